@@ -426,4 +426,10 @@ public class EverestModelExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the simulation runs on a remote server, which may give different results
+		return false;
+	}
+
 }
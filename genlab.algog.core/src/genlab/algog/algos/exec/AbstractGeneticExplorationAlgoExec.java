@@ -5,6 +5,9 @@ import genlab.algog.algos.meta.AbstractGeneAlgo;
 import genlab.algog.algos.meta.AbstractGeneticExplorationAlgo;
 import genlab.algog.algos.meta.BooleanGeneAlgo;
 import genlab.algog.algos.meta.DoubleGeneAlgo;
+import genlab.algog.algos.meta.EEvaluationMode;
+import genlab.algog.algos.meta.EFitnessArchiveEviction;
+import genlab.algog.algos.meta.EMigrationTopology;
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
 import genlab.algog.algos.meta.GenomeAlgo;
 import genlab.algog.algos.meta.IntegerGeneAlgo;
@@ -15,8 +18,11 @@ import genlab.algog.internal.AGenome;
 import genlab.algog.internal.AIntegerGene;
 import genlab.algog.internal.ANumericGene;
 import genlab.algog.internal.AnIndividual;
+import genlab.algog.internal.FitnessArchive;
+import genlab.core.commons.ProgramException;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.exec.IExecution;
+import genlab.core.exec.client.ComputationNodes;
 import genlab.core.model.exec.AbstractContainerExecution;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -26,7 +32,8 @@ import genlab.core.model.exec.IComputationProgress;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IConnection;
 import genlab.core.model.meta.IAlgo;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
+import genlab.core.model.meta.basics.flowtypes.ColumnarGenlabTable;
 
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
@@ -56,6 +63,15 @@ import cern.jet.random.engine.RandomEngine;
  * the next generation, then add another subtask to evaluate the next generation, 
  * and so on.
  * 
+ * In steady-state mode, there is no generation to wait for: one {@link GeneticExplorationSteadyState}
+ * evaluates the initial population then the offspring bred one at a time, each time an evaluation
+ * finishes. Every paramPopulationSize individuals evaluated are stored as one iteration, so the
+ * tables are the same as in the generational mode.
+ * 
+ * With several islands, each {@link GeneticIsland} evolves its own population: its generations 
+ * are evaluated without waiting for the other islands, and every few generations its best individuals 
+ * migrate to other islands. While the generation of an island is processed, the fields of 
+ * the population (random numbers, parents, offspring, iterations made) are the ones of this island.
  * 
  * @author Samuel Thiriot
  *
@@ -89,6 +105,33 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	
 	protected final int paramStopMaxIterations;
 
+	/** the fitness of the individuals evaluated, reused for the individuals having the same genes */
+	protected final FitnessArchive archive;
+
+	protected final EEvaluationMode paramEvaluationMode;
+	
+	/** in steady-state mode, the count of individuals evaluated at the same time */
+	protected final int paramEvaluationSlots;
+
+	/** in steady-state mode, the individuals waiting for their evaluation (the initial population first, then the offspring) */
+	private final LinkedList<AnIndividual> steadyStateQueue = new LinkedList<AnIndividual>();
+	/** in steady-state mode, the individuals evaluated during the current iteration */
+	private Set<AnIndividual> steadyStateIteration = new HashSet<AnIndividual>();
+	private int steadyStateCountEvaluated = 0;
+	private boolean steadyStateStopped = false;
+	private final Object lockerSteadyState = new Object();
+
+	protected final int paramIslands;
+	protected final int paramMigrationInterval;
+	protected final int paramMigrationSize;
+	protected final EMigrationTopology paramMigrationTopology;
+	
+	/** the islands, or null if there is only one population */
+	protected List<GeneticIsland> islands = null;
+	/** the island whose population is in the fields of this class */
+	protected GeneticIsland currentIsland = null;
+	/** associates the evaluation of each generation with its island */
+	private final Map<GeneticExplorationOneGeneration,GeneticIsland> generation2island = new HashMap<GeneticExplorationOneGeneration, GeneticIsland>();
 
 
 	protected int iterationsMade = 0;
@@ -111,6 +154,24 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		
 		paramStopMaxIterations = (Integer) algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_STOP_MAXITERATIONS);
 
+		final Integer idxParamEviction = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_ARCHIVE_EVICTION);
+		archive = new FitnessArchive(
+				(Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_ARCHIVE_CAPACITY),
+				EFitnessArchiveEviction.values()[idxParamEviction] == EFitnessArchiveEviction.LEAST_RECENTLY_USED,
+				(Boolean)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_ARCHIVE_DETERMINISTIC_ONLY)
+				);
+		
+		final Integer idxParamEvaluationMode = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_EVALUATION_MODE);
+		paramEvaluationMode = EEvaluationMode.values()[idxParamEvaluationMode];
+		
+		final Integer paramSlots = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_EVALUATION_SLOTS);
+		paramEvaluationSlots = paramSlots > 0 ? paramSlots : Math.max(1, ComputationNodes.getSingleton().getParameterLocalThreadsMax());
+		
+		paramIslands = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_ISLANDS);
+		paramMigrationInterval = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_INTERVAL);
+		paramMigrationSize = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_SIZE);
+		final Integer idxParamTopology = (Integer)algoInst.getValueForParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_TOPOLOGY);
+		paramMigrationTopology = EMigrationTopology.values()[idxParamTopology];
 		
 	}
 
@@ -132,6 +193,8 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		h.removeAll(parentGeneration.get(iterationsMade));
 		offspringGeneration.put(iterationsMade, h);
 
+		if (archive.isEnabled())
+			messages.infoUser("archive of fitness: "+archive.getHumanReadableState(), getClass());
 		
 		this.progress.incProgressMade();
 	
@@ -336,7 +399,8 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 				Collections.unmodifiableMap(genome2fitnessOutput),
 				Collections.unmodifiableMap(gene2geneAlgoInstance),				
 				inputConnection2value,
-				"eval generation "+iterationsMade
+				archive,
+				"eval generation "+iterationsMade+(currentIsland == null ? "" : " "+currentIsland)
 				);
 		
 		execOneGeneration.setParent(this);
@@ -352,6 +416,285 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		
 	}
 	
+	/**
+	 * Creates the islands, each one with its own random numbers seeded from ours
+	 */
+	protected void createIslands() {
+		
+		islands = new ArrayList<GeneticIsland>(paramIslands);
+		for (int i=0; i<paramIslands; i++) {
+			islands.add(new GeneticIsland(i, coltRandom.nextInt()));
+		}
+	}
+	
+	/**
+	 * Loads the population of this island into the fields used by the genetic operators
+	 * @param island
+	 */
+	protected void switchToIsland(GeneticIsland island) {
+		
+		if (currentIsland != null)
+			currentIsland.iterationsMade = iterationsMade;
+		
+		currentIsland = island;
+		coltRandom = island.coltRandom;
+		uniform = island.uniform;
+		parentGeneration = island.parentGeneration;
+		offspringGeneration = island.offspringGeneration;
+		iterationsMade = island.iterationsMade;
+	}
+	
+	/**
+	 * Returns the islands which receive the migrants of this one
+	 * @param island
+	 * @return
+	 */
+	protected List<GeneticIsland> getMigrationDestinations(GeneticIsland island) {
+		
+		final List<GeneticIsland> res = new LinkedList<GeneticIsland>();
+		
+		switch (paramMigrationTopology) {
+		case RING:
+			res.add(islands.get((island.index+1) % islands.size()));
+			break;
+		case FULLY_CONNECTED:
+			for (GeneticIsland other : islands) {
+				if (other != island)
+					res.add(other);
+			}
+			break;
+		case RANDOM:
+			final int other = uniform.nextIntFromTo(0, islands.size()-2);
+			res.add(islands.get(other < island.index ? other : other+1));
+			break;
+		default:
+			throw new ProgramException("unknown migration topology: "+paramMigrationTopology);
+		}
+		
+		return res;
+	}
+	
+	/**
+	 * Selects the individuals of the current island which migrate to other islands. 
+	 * By default, they are chosen at random among the two last generations.
+	 * @param count
+	 * @return
+	 */
+	protected List<AnIndividual> selectEmigrants(int count) {
+		
+		final List<AnIndividual> candidates = new ArrayList<AnIndividual>(parentGeneration.get(iterationsMade));
+		if (offspringGeneration.get(iterationsMade) != null)
+			candidates.addAll(offspringGeneration.get(iterationsMade));
+		
+		// partial shuffle
+		final int n = Math.min(count, candidates.size());
+		for (int i=0; i<n; i++) {
+			Collections.swap(candidates, i, uniform.nextIntFromTo(i, candidates.size()-1));
+		}
+		
+		return candidates.subList(0, n);
+	}
+	
+	/**
+	 * Migration for the current island, once its generation was evaluated: the immigrants received 
+	 * join its parents, so they take part in the next selection, and every paramMigrationInterval 
+	 * generations copies of the individuals chosen by {@link #selectEmigrants(int)} are sent to other islands.
+	 */
+	protected void migrate() {
+		
+		final GeneticIsland island = currentIsland;
+		
+		// the parents of the generation 0 are exported as results; receive the immigrants later
+		if (iterationsMade > 0 && !island.immigrants.isEmpty()) {
+			messages.infoUser(island+" receives "+island.immigrants.size()+" immigrants", getClass());
+			parentGeneration.get(iterationsMade).addAll(island.immigrants);
+			island.immigrants.clear();
+		}
+		
+		if (paramMigrationSize == 0 || (iterationsMade+1) % paramMigrationInterval != 0)
+			return;
+		
+		final List<AnIndividual> emigrants = selectEmigrants(paramMigrationSize);
+		for (GeneticIsland destination : getMigrationDestinations(island)) {
+			if (destination.finished)
+				continue;
+			messages.debugUser(island+" sends "+emigrants.size()+" migrants to "+destination, getClass());
+			for (AnIndividual emigrant : emigrants) {
+				// only the individuals evaluated migrate, as copies
+				if (emigrant.fitness == null)
+					continue;
+				AnIndividual migrant = new AnIndividual(emigrant);
+				migrant.fitness = emigrant.fitness.clone();
+				migrant.targets = emigrant.targets == null ? null : emigrant.targets.clone();
+				migrant.values = emigrant.values == null ? null : emigrant.values.clone();
+				destination.immigrants.add(migrant);
+			}
+		}
+	}
+	
+	/**
+	 * Returns the execution which evaluates, in steady-state mode, the initial population then 
+	 * the offspring until all the iterations are done.
+	 * @param initialPopulation
+	 * @return
+	 */
+	protected GeneticExplorationSteadyState createExecutableForSteadyState(Map<AGenome,Set<AnIndividual>> initialPopulation) {
+		
+		synchronized (lockerSteadyState) {
+			steadyStateQueue.clear();
+			for (Set<AnIndividual> population : initialPopulation.values()) {
+				steadyStateQueue.addAll(population);
+			}
+			steadyStateIteration = new HashSet<AnIndividual>();
+			steadyStateCountEvaluated = 0;
+			steadyStateStopped = false;
+		}
+		
+		messages.traceTech("creating the executable for the steady-state evaluation...", getClass());
+		
+		GeneticExplorationSteadyState execSteadyState = new GeneticExplorationSteadyState(
+				exec, 
+				algoInst,
+				this,
+				Collections.unmodifiableMap(genome2algoInstance),
+				Collections.unmodifiableMap(genome2fitnessOutput),
+				Collections.unmodifiableMap(gene2geneAlgoInstance),
+				inputConnection2value,
+				archive,
+				paramEvaluationSlots,
+				paramPopulationSize*(paramStopMaxIterations+1),
+				"steady-state evaluation"
+				);
+		
+		execSteadyState.setParent(this);
+		execSteadyState.getProgress().addListener(this);
+		
+		messages.traceTech("init links to this executable", getClass());
+		execSteadyState.initInputs(instance2execForSubtasks);
+		
+		return execSteadyState;
+	}
+	
+	/**
+	 * Steady-state mode: breeds offspring from the current population by selection, crossover and mutation.
+	 * @return the offspring, or an empty collection if the population is not large enough yet
+	 */
+	protected abstract Collection<AnIndividual> breedOffspringForSteadyState();
+	
+	/**
+	 * Steady-state mode: adds an evaluated individual to the current population, which then 
+	 * should keep at most paramPopulationSize individuals.
+	 * @param individual
+	 */
+	protected abstract void insertIntoSteadyStatePopulation(AnIndividual individual);
+	
+	/**
+	 * Steady-state mode: returns a copy of the current population
+	 * @return
+	 */
+	protected abstract Set<AnIndividual> getSteadyStatePopulation();
+	
+	/**
+	 * Steady-state mode: called once paramPopulationSize more individuals were evaluated, after
+	 * the results were stored for the iteration. Prepares the intermediate results by default; they
+	 * are sent once the iteration is done. Called while the steady-state population is locked, so 
+	 * it should not change our state (the runner, notified, may be waiting for this lock). 
+	 */
+	protected void hookEndOfSteadyStateIteration() {
+		prepareContinuousOutput();
+	}
+	
+	/**
+	 * Steady-state mode: returns true if an individual can be evaluated now, 
+	 * that is, if one is waiting or if offspring can be bred.
+	 * @return
+	 */
+	final boolean canProvideIndividualForSteadyState() {
+		
+		synchronized (lockerSteadyState) {
+			if (steadyStateQueue.isEmpty() && !steadyStateStopped)
+				steadyStateQueue.addAll(breedOffspringForSteadyState());
+			return !steadyStateQueue.isEmpty();
+		}
+	}
+	
+	/**
+	 * Steady-state mode: returns the next individual to evaluate, or null if none can be bred now.
+	 * @return
+	 */
+	final AnIndividual nextIndividualForSteadyState() {
+		
+		synchronized (lockerSteadyState) {
+			if (!canProvideIndividualForSteadyState())
+				return null;
+			return steadyStateQueue.removeFirst();
+		}
+	}
+	
+	/**
+	 * Steady-state mode: returns true once no more individual should be evaluated
+	 * @return
+	 */
+	final boolean isSteadyStateStopped() {
+		
+		synchronized (lockerSteadyState) {
+			return steadyStateStopped;
+		}
+	}
+	
+	/**
+	 * Steady-state mode: receives the results of an individual, inserts it into the population, and 
+	 * stores an iteration once paramPopulationSize individuals were evaluated: the individuals evaluated 
+	 * are its offspring, and the population at this time are the parents of the next iteration.
+	 * @param individual
+	 */
+	final void individualEvaluatedForSteadyState(AnIndividual individual) {
+		
+		// our state changes once the lock is released: the runner, notified, may be waiting for it
+		ComputationState stateToSend = null;
+		
+		synchronized (lockerSteadyState) {
+			
+			// the individuals still evaluated once the exploration stopped are ignored
+			if (steadyStateStopped)
+				return;
+			
+			steadyStateIteration.add(individual);
+			insertIntoSteadyStatePopulation(individual);
+			steadyStateCountEvaluated++;
+			
+			if (steadyStateCountEvaluated % paramPopulationSize != 0)
+				return;
+			
+			try {
+				// the initial individuals evaluated late are already exported as parents of the iteration 0
+				if (iterationsMade > 0)
+					steadyStateIteration.removeAll(parentGeneration.get(0));
+				manageResultsForCurrentGeneration(steadyStateIteration);
+				steadyStateIteration = new HashSet<AnIndividual>();
+				
+				if (!shouldContinueExploration()) {
+					steadyStateStopped = true;
+					steadyStateQueue.clear();
+					return;
+				}
+				
+				parentGeneration.put(iterationsMade+1, getSteadyStatePopulation());
+				hookEndOfSteadyStateIteration();
+				stateToSend = ComputationState.SENDING_CONTINOUS;
+				
+				iterationsMade++;
+				
+			} catch (RuntimeException e) {
+				messages.errorTech("error during the end of iteration "+iterationsMade, getClass(), e);
+				steadyStateStopped = true;
+				stateToSend = ComputationState.FINISHED_FAILURE;
+			}
+		}
+		
+		progress.setComputationState(stateToSend);
+	}
+	
 	/**
 	 * Displays the results for one given generation on the given stream.
 	 * @param ps
@@ -402,7 +745,7 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 * Returns the mapping between the genome and the corresponding gene columns 
 	 * @param tab
 	 */
-	protected Map<AGenome,String[]> declareColumnsForGenes(GenlabTable tab) {
+	protected Map<AGenome,String[]> declareColumnsForGenes(AbstractGenlabTable tab) {
 
 		final Map<AGenome,String[]> genome2geneColumns = new LinkedHashMap<AGenome, String[]>(genome2fitnessOutput.size());
 
@@ -448,7 +791,7 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 * Returns the mapping between the genome and the corresponding gene columns 
 	 * @param tab
 	 */
-	protected Map<AGenome,String[]> declareColumnsForGoals(GenlabTable tab) {
+	protected Map<AGenome,String[]> declareColumnsForGoals(AbstractGenlabTable tab) {
 
 		final Map<AGenome,String[]> genome2fitnessColumns = new LinkedHashMap<AGenome, String[]>(genome2fitnessOutput.size());
 		final Map<String,Map<String,String>> tableMetadataGoals = new HashMap<String, Map<String,String>>();
@@ -500,7 +843,7 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 * @param indiv2target
 	 */
 	protected final void storeIndividualsData(
-				GenlabTable tab, 
+				AbstractGenlabTable tab, 
 				String titleIteration, Integer iterationId, 
 				String titleGenome, 
 				Map<AGenome,String[]> genome2fitnessColumns,
@@ -511,6 +854,10 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		
 		for (AnIndividual ind : individuals) {
 			
+			// in steady-state mode, the initial individuals may still be evaluated
+			if (ind.fitness == null)
+				continue;
+			
 			try {
 				int rowId = tab.addRow();
 				tab.setValue(rowId, titleIteration, iterationId);
@@ -569,14 +916,14 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 * Packs all the data inside a table.
 	 * @return
 	 */
-	protected final GenlabTable packDataInTable() {
+	protected final AbstractGenlabTable packDataInTable() {
 
 		// TODO don't recreate a new table from 0 every time ?
 		
 		final String titleIteration = "iteration";
 		final String titleGenome = "genome";
 		
-		GenlabTable tab = new GenlabTable();
+		AbstractGenlabTable tab = new ColumnarGenlabTable();
 		tab.declareColumn(titleIteration);
 		tab.declareColumn(titleGenome);
 		tab.setTableMetaData(GeneticExplorationAlgoConstants.TABLE_METADATA_KEY_COLTITLE_ITERATION, titleIteration);
@@ -589,24 +936,56 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		// declare columns for each possible gene
 		final Map<AGenome,String[]> genome2geneColumns = declareColumnsForGenes(tab);
 		
+		if (islands == null) {
+			storeGenerationsData(
+				tab, titleIteration, titleGenome, 
+				genome2fitnessColumns, genome2geneColumns, 
+				parentGeneration, offspringGeneration
+			);
+		} else {
+			// the results of all the islands are merged
+			for (GeneticIsland island : islands) {
+				storeGenerationsData(
+					tab, titleIteration, titleGenome, 
+					genome2fitnessColumns, genome2geneColumns, 
+					island.parentGeneration, island.offspringGeneration
+				);
+			}
+		}
+		
+		return tab;
+	}
+	
+	/**
+	 * Stores inside a table the individuals of one population: the initial one, then the offspring 
+	 * of each iteration
+	 */
+	private void storeGenerationsData(
+				AbstractGenlabTable tab, 
+				String titleIteration, 
+				String titleGenome, 
+				Map<AGenome,String[]> genome2fitnessColumns,
+				Map<AGenome,String[]> genome2geneColumns,
+				Map<Integer, Set<AnIndividual>> parents,
+				Map<Integer, Set<AnIndividual>> offspring
+				) {
+		
 		storeIndividualsData(
 			tab, 
 			titleIteration, 0, titleGenome, 
 			genome2fitnessColumns, genome2geneColumns, 
-			parentGeneration.get(0)
+			parents.get(0)
 		);
 		
-		for (Integer iterationId : offspringGeneration.keySet()) {
+		for (Integer iterationId : offspring.keySet()) {
 			// for each iteration
 			storeIndividualsData(
 				tab, 
 				titleIteration, iterationId, titleGenome, 
 				genome2fitnessColumns, genome2geneColumns, 
-				offspringGeneration.get(iterationId)
+				offspring.get(iterationId)
 			);
 		}
-		
-		return tab;
 	}
 	
 	/**
@@ -632,7 +1011,7 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		
 		if (ourState == ComputationState.FINISHED_OK) {
 			
-			GenlabTable tab = packDataInTable();
+			AbstractGenlabTable tab = packDataInTable();
 		
 			res.setResult(AbstractGeneticExplorationAlgo.OUTPUT_TABLE, tab);
 		}
@@ -669,7 +1048,7 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 */
 	protected void completeContinuousIntermediateResult(ComputationResult res) {
 
-		GenlabTable tab = packDataInTable();
+		AbstractGenlabTable tab = packDataInTable();
 		res.setResult(AbstractGeneticExplorationAlgo.OUTPUT_TABLE, tab);
 		
 	}
@@ -679,17 +1058,24 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 	 */
 	protected final void exportContinuousOutput() {
 		
+		prepareContinuousOutput();
+		
+		// notify children of our updates
+		progress.setComputationState(ComputationState.SENDING_CONTINOUS);
+
+		
+	}
 	
+	/**
+	 * defines an intermediate version of the result, without notifying anyone
+	 */
+	protected final void prepareContinuousOutput() {
+		
 		ComputationResult res = new ComputationResult(algoInst, progress, messages);
 		
 		completeContinuousIntermediateResult(res);
 		
 		setResult(res);
-		
-		// notify children of our updates
-		progress.setComputationState(ComputationState.SENDING_CONTINOUS);
-
-		
 	}
 	
 	/**
@@ -714,6 +1100,13 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 			if (!progress.getComputationState().isFinished())
 				return;
 			
+			// in steady-state mode, the iterations were already stored during the evaluations
+			if (progress.getAlgoExecution() instanceof GeneticExplorationSteadyState) {
+				if (!this.progress.getComputationState().isFinished())
+					manageEndOfExploration();
+				return;
+			}
+			
 			// if the algo for which the progress changed is not the exploration of one generation, then ignore it.
 			if (!(progress.getAlgoExecution() instanceof GeneticExplorationOneGeneration))
 				return;
@@ -721,6 +1114,11 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 			// retrieve the algorithm which finished, that is the exploration of one generation 
 			final GeneticExplorationOneGeneration algoFinished = (GeneticExplorationOneGeneration)progress.getAlgoExecution();
 			
+			// with islands, continue with the population of the island of this generation
+			final GeneticIsland island = generation2island.remove(algoFinished);
+			if (island != null)
+				switchToIsland(island);
+			
 			try {
 				// retrieve the different results of the evaluation of the generation: fitness, values explored, and targets
 				Set<AnIndividual> individuals = algoFinished.getComputedIndividuals();
@@ -742,6 +1140,15 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 				
 				// if the evaluation of the algorithm is done yet, then finish the process
 				if (!shouldContinueExploration()) {
+					if (island != null) {
+						// wait for the other islands
+						island.iterationsMade = iterationsMade;
+						island.finished = true;
+						for (GeneticIsland other : islands) {
+							if (!other.finished)
+								return;
+						}
+					}
 					manageEndOfExploration();
 					return;
 				}
@@ -750,11 +1157,16 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 				if (opportunityCancel())
 					return;
 				
+				if (island != null)
+					migrate();
+				
 				// prepare next iteration: create the next generation, and pack it as an executable
 				GeneticExplorationOneGeneration execFirstGen = createExecutableForGeneration(prepareNextGeneration());
+				if (island != null)
+					generation2island.put(execFirstGen, island);
 				
 				// start the evaluation of the next population, by adding the novel subtask to our set of children tasks
-				messages.infoUser("starting the evaluation of generation "+iterationsMade, getClass());
+				messages.infoUser("starting the evaluation of generation "+iterationsMade+(island == null ? "" : " of "+island), getClass());
 				addTask(execFirstGen);
 				
 				iterationsMade++;
@@ -807,6 +1219,32 @@ public abstract class AbstractGeneticExplorationAlgoExec extends AbstractContain
 		// analyze the parameters of the genlab stuff
 		analyzeParameters();
 		
+		if (paramIslands > 1) {
+			
+			if (paramEvaluationMode != EEvaluationMode.GENERATIONAL)
+				throw new WrongParametersException("the islands are only available with the generational evaluation mode");
+			
+			// each island evolves its own population
+			messages.infoUser("exploration with "+paramIslands+" islands, migrating "+paramMigrationSize+" individuals every "+paramMigrationInterval+" generations ("+paramMigrationTopology.label+")", getClass());
+			progress.setProgressTotal(paramStopMaxIterations*paramIslands);
+			createIslands();
+			for (GeneticIsland island : islands) {
+				switchToIsland(island);
+				GeneticExplorationOneGeneration execFirstGen = createExecutableForGeneration(generateInitialPopulation());
+				generation2island.put(execFirstGen, island);
+				addTask(execFirstGen);
+			}
+			return;
+		}
+		
+		if (paramEvaluationMode == EEvaluationMode.STEADY_STATE) {
+			
+			// evaluate the initial population, then the offspring as soon as evaluation slots are free
+			messages.infoUser("steady-state evaluation, "+paramEvaluationSlots+" individuals at a time", getClass());
+			addTask(createExecutableForSteadyState(generateInitialPopulation()));
+			return;
+		}
+		
 		// add the initial generation
 		GeneticExplorationOneGeneration execFirstGen = createExecutableForGeneration(generateInitialPopulation());
 		
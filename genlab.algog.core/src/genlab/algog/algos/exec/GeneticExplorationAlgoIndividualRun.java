@@ -6,6 +6,7 @@ import genlab.algog.internal.AnIndividual;
 import genlab.core.commons.ProgramException;
 import genlab.core.exec.ICleanableTask;
 import genlab.core.exec.IExecution;
+import genlab.core.model.exec.AbstractAlgoExecution;
 import genlab.core.model.exec.AbstractContainerExecution;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -57,6 +58,11 @@ public class GeneticExplorationAlgoIndividualRun
 	 */
 	private final AnIndividual individual;
 	
+	/**
+	 * True if all the algorithms ran for the evaluation are deterministic
+	 */
+	private boolean deterministic = false;
+	
 	public GeneticExplorationAlgoIndividualRun(
 			// standard genlab stuff
 			IExecution exec, 
@@ -187,6 +193,13 @@ public class GeneticExplorationAlgoIndividualRun
 		
 		initAddTasksAsSubtasks(evaluationAlgoInstances, instance2execForSubtasks);
 		
+		deterministic = true;
+		for (IAlgoExecution sub: instance2execForSubtasks.values()) {
+			if (sub != this && sub instanceof AbstractAlgoExecution && !((AbstractAlgoExecution)sub).isDeterministic()) {
+				deterministic = false;
+				break;
+			}
+		}
 	
 		progress.setComputationState(ComputationState.READY);
 	}
@@ -253,6 +266,15 @@ public class GeneticExplorationAlgoIndividualRun
 		
 	}
 
+	/**
+	 * The evaluation is deterministic if all the algorithms it runs are
+	 * (known once the executions of these algorithms are created by {@link #initInputs(Map)}).
+	 */
+	@Override
+	public boolean isDeterministic() {
+		return deterministic;
+	}
+
 	public final AnIndividual getIndividual() {
 		return individual; 
 	}
@@ -5,6 +5,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -13,6 +15,7 @@ import genlab.algog.algos.instance.GeneticExplorationAlgoContainerInstance;
 import genlab.algog.internal.AGene;
 import genlab.algog.internal.AGenome;
 import genlab.algog.internal.AnIndividual;
+import genlab.algog.internal.FitnessArchive;
 import genlab.core.commons.ProgramException;
 import genlab.core.exec.ICleanableTask;
 import genlab.core.exec.IExecution;
@@ -27,6 +30,10 @@ import genlab.core.model.instance.IConnection;
  * The executable task which evaluates one complete generation of a genetic algorithm.
  * Will creates and supervize the subtasks corresponding to the evaluation of each individual.
  * 
+ * The individuals found in the {@link FitnessArchive} are not evaluated; when several individuals
+ * of the generation have the same genes, only the first one is evaluated, and the other ones
+ * receive its results.
+ * 
  * @author Samuel Thiriot
  *
  */
@@ -39,6 +46,13 @@ public class GeneticExplorationOneGeneration
 	private final String name;
 	
 	private final Map<AGenome,Set<AnIndividual>> generationToEvaluate;
+	/** the individuals which have actually to be evaluated */
+	private final Map<AGenome,List<AnIndividual>> individualsToEvaluate = new LinkedHashMap<AGenome, List<AnIndividual>>();
+	/** the individuals having the same genes as an individual evaluated, which will receive its results */
+	private final Map<AnIndividual,List<AnIndividual>> individual2duplicates = new HashMap<AnIndividual, List<AnIndividual>>();
+	private final FitnessArchive archive;
+	
+	private int totalIndividuals = 0;
 	private Map<AGenome, Collection<IAlgoInstance>> genome2algoInstance;
 	private final Map<AGenome, List<IAlgoInstance>> genome2fitnessOutput;
 	private final Map<AGene<?>,IAlgoInstance> gene2geneAlgoInstance;
@@ -67,6 +81,7 @@ public class GeneticExplorationOneGeneration
 	 * @param algoInst the genetic algo instance 
 	 * @param generationToEvaluate the generation to be evaluated in this iteration
 	 * @param genome2algoInstance the set of algo instances to use for the computation
+	 * @param archive the results already known
 	 */
 	public GeneticExplorationOneGeneration(
 			IExecution exec,
@@ -76,6 +91,7 @@ public class GeneticExplorationOneGeneration
 			Map<AGenome, List<IAlgoInstance>> map,
 			Map<AGene<?>,IAlgoInstance> gene2geneAlgoInstance,
 			Map <IConnection,Object> inputConnection2value,
+			FitnessArchive archive,
 			String name
 			) {
 		
@@ -89,6 +105,7 @@ public class GeneticExplorationOneGeneration
 		this.genome2algoInstance = genome2algoInstance;
 		this.gene2geneAlgoInstance = gene2geneAlgoInstance;
 		this.inputConnection2value = inputConnection2value;
+		this.archive = archive;
 				
 		this.autoUpdateProgressFromChildren = false;
 		// we don't want to die if a subprocess has a problem; we will assume the fitness is infinite instead.
@@ -101,13 +118,63 @@ public class GeneticExplorationOneGeneration
 		
 		messages.debugTech("should create the exec for this generation", getClass());
 		
-		// compute the count of iterations to do
+		// select the individuals to evaluate, and compute the count of iterations to do
+		totalIndividuals = 0;
 		totalIterationsToDo = 0;
-		for (Set<AnIndividual> popToCompute : generationToEvaluate.values()) {
-			totalIterationsToDo += popToCompute.size();
+		int countRestored = 0;
+		int countDuplicates = 0;
+		individualsToEvaluate.clear();
+		individual2duplicates.clear();
+		for (Map.Entry<AGenome,Set<AnIndividual>> genome2population : generationToEvaluate.entrySet()) {
+			
+			final AGenome genome = genome2population.getKey();
+			final boolean canReuse = archive.canReuse(genome);
+			final List<AnIndividual> toEvaluate = new LinkedList<AnIndividual>();
+			final Map<Object,AnIndividual> genes2individual = new HashMap<Object, AnIndividual>();
+			
+			for (AnIndividual individual : genome2population.getValue()) {
+				
+				totalIndividuals++;
+
+				// already evaluated in a previous generation
+				if (archive.restore(individual)) {
+					computedIndividuals.add(individual);
+					countRestored++;
+					continue;
+				}
+				
+				// already evaluated in this generation
+				if (canReuse) {
+					final AnIndividual first = genes2individual.get(FitnessArchive.keyFor(individual));
+					if (first != null) {
+						List<AnIndividual> duplicates = individual2duplicates.get(first);
+						if (duplicates == null) {
+							duplicates = new LinkedList<AnIndividual>();
+							individual2duplicates.put(first, duplicates);
+						}
+						duplicates.add(individual);
+						countDuplicates++;
+						continue;
+					}
+					genes2individual.put(FitnessArchive.keyFor(individual), individual);
+				}
+				
+				toEvaluate.add(individual);
+			}
+			
+			individualsToEvaluate.put(genome, toEvaluate);
+			totalIterationsToDo += toEvaluate.size();
 		}
-		progress.setProgressTotal(totalIterationsToDo);
+		progress.setProgressTotal(totalIndividuals);
+		progress.setProgressMade(computedIndividuals.size());
 		
+		if (archive.isEnabled()) {
+			messages.infoUser(
+					"in this generation of "+totalIndividuals+" individuals, "+countRestored+" were restored from the archive and "
+					+countDuplicates+" are duplicates; "+totalIterationsToDo+" will be evaluated", 
+					getClass()
+					);
+		}
 		messages.debugTech("this generation requires "+totalIterationsToDo+" iterations", getClass());
 		totalIterationsSubmitted = 0;
 		
@@ -180,9 +247,9 @@ public class GeneticExplorationOneGeneration
 		// initial case: retrieve the first genome
 		if (currentComputationIteratorProcessedGenome == null) {
 			// init
-			currentComputationIteratorProcessedGenome = generationToEvaluate.keySet().iterator();
+			currentComputationIteratorProcessedGenome = individualsToEvaluate.keySet().iterator();
 			currentGenome = currentComputationIteratorProcessedGenome.next();
-			currentIteratorIndividual = generationToEvaluate.get(currentGenome).iterator();
+			currentIteratorIndividual = individualsToEvaluate.get(currentGenome).iterator();
 		} else {
 		
 			// shift to the next individual
@@ -193,9 +260,10 @@ public class GeneticExplorationOneGeneration
 //		Set<AnIndividual> currentPopulation = generationToEvaluate.get(currentGenome);
 		
 		// if we finished the current population, then shift to the next genome !
-		if (!currentIteratorIndividual.hasNext()) {
+		// (some have nothing to evaluate)
+		while (!currentIteratorIndividual.hasNext()) {
 			currentGenome = currentComputationIteratorProcessedGenome.next();
-			currentIteratorIndividual = generationToEvaluate.get(currentGenome).iterator();
+			currentIteratorIndividual = individualsToEvaluate.get(currentGenome).iterator();
 //			currentPopulation = generationToEvaluate.get(currentGenome);
 		}
 		
@@ -204,16 +272,38 @@ public class GeneticExplorationOneGeneration
 		totalIterationsSubmitted++;
 	}
 	
-	protected void computeResultsForIndividual(GeneticExplorationAlgoIndividualRun indivRun) {
+	protected void computeResultsForIndividual(GeneticExplorationAlgoIndividualRun indivRun, ComputationState state) {
 
 		AnIndividual indiv = indivRun.getIndividual();
 
+		// archive results
+		archive.setDeterministic(indiv.genome, indivRun.isDeterministic());
+		if (state == ComputationState.FINISHED_OK)
+			archive.store(indiv, indivRun.isDeterministic());
+		
 		// store results
 		synchronized (lockerResults) {
 			
 			if (this.computedIndividuals.add(indiv)) {
 				progress.incProgressMade();
 			}
+			
+			// the individuals with the same genes have the same results;
+			// if the evaluation failed or was cancelled, they are marked as failed as well
+			final List<AnIndividual> duplicates = individual2duplicates.remove(indiv);
+			if (duplicates != null) {
+				if (state != ComputationState.FINISHED_OK)
+					messages.warnUser("the evaluation of individual "+indiv+" failed; its "+duplicates.size()+" duplicates are considered as failed too", getClass());
+				for (AnIndividual duplicate : duplicates) {
+					if (state == ComputationState.FINISHED_OK)
+						archive.copyDuplicate(indiv, duplicate);
+					else
+						markFailed(indiv, duplicate);
+					if (this.computedIndividuals.add(duplicate)) {
+						progress.incProgressMade();
+					}
+				}
+			}
 			/*if (!this.computedIndividuals.add(indiv)) {
 				messages.warnTech("we received an individual which was already evaluated: "+indiv, getClass());
 			}*/
@@ -222,6 +312,25 @@ public class GeneticExplorationOneGeneration
 		
 	}
 
+	/**
+	 * Gives to a duplicate the results of a failed evaluation: an infinite fitness for each goal,
+	 * the same targets, and no value.
+	 * @param failed the individual which evaluation failed
+	 * @param duplicate
+	 */
+	protected void markFailed(AnIndividual failed, AnIndividual duplicate) {
+		
+		final int goals = genome2fitnessOutput.get(failed.genome).size();
+		duplicate.fitness = new Double[goals];
+		duplicate.targets = new Object[goals];
+		duplicate.values = new Object[goals];
+		for (int i=0; i<goals; i++) {
+			duplicate.fitness[i] = AnIndividual.INF;
+			duplicate.targets[i] = failed.targets == null ? null : failed.targets[i];
+			duplicate.values[i] = null;
+		}
+	}
+
 	@Override
 	public void computationStateChanged(IComputationProgress progress) {
 		
@@ -242,10 +351,10 @@ public class GeneticExplorationOneGeneration
 		GeneticExplorationAlgoIndividualRun indivRun = (GeneticExplorationAlgoIndividualRun)progress.getAlgoExecution();
 				
 		// process them
-		computeResultsForIndividual(indivRun);
+		computeResultsForIndividual(indivRun, progress.getComputationState());
 		
-		//messages.infoTech("computed "+computedIndividuals.size()+" over "+totalIterationsToDo, getClass());
-		if (computedIndividuals.size() == totalIterationsToDo) {
+		//messages.infoTech("computed "+computedIndividuals.size()+" over "+totalIndividuals, getClass());
+		if (computedIndividuals.size() == totalIndividuals) {
 
 			//messages.traceTech("all subs terminated; should transmit results", getClass());
 			this.progress.setComputationState(ComputationState.FINISHED_OK);
@@ -357,7 +466,12 @@ public class GeneticExplorationOneGeneration
 	@Override
 	public void run() {
 		super.run();
-		progress.setProgressTotal(totalIterationsToDo);
+		progress.setProgressTotal(totalIndividuals);
+		
+		// maybe all the individuals were already evaluated
+		if (totalIterationsToDo == 0) {
+			this.progress.setComputationState(ComputationState.FINISHED_OK);
+		}
 		
 	}
 }
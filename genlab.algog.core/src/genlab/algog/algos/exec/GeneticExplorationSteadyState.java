@@ -0,0 +1,316 @@
+package genlab.algog.algos.exec;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import genlab.algog.algos.instance.GeneticExplorationAlgoContainerInstance;
+import genlab.algog.internal.AGene;
+import genlab.algog.internal.AGenome;
+import genlab.algog.internal.AnIndividual;
+import genlab.algog.internal.FitnessArchive;
+import genlab.core.commons.ProgramException;
+import genlab.core.exec.ICleanableTask;
+import genlab.core.exec.IExecution;
+import genlab.core.model.exec.AbstractContainerExecutionSupervisor;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.exec.IComputationProgress;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IConnection;
+
+/**
+ * The executable task which evaluates the individuals of a genetic algorithm in steady-state mode:
+ * there is no generation to wait for; as soon as the evaluation of an individual finishes, its results
+ * are given to the genetic algorithm, and the next individual it provides (the initial population first,
+ * then the offspring bred from the current population) is submitted.
+ *
+ * At most slots individuals are evaluated at the same time. The individuals found in the {@link FitnessArchive}
+ * are not evaluated, but still count in the total of the evaluations.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class GeneticExplorationSteadyState
+								extends AbstractContainerExecutionSupervisor
+								implements ICleanableTask {
+
+	private static final long serialVersionUID = 1L;
+
+	private final GeneticExplorationAlgoContainerInstance geneAlgoInst;
+	private final AbstractGeneticExplorationAlgoExec algoExec;
+
+	private final String name;
+
+	private final Map<AGenome, Collection<IAlgoInstance>> genome2algoInstance;
+	private final Map<AGenome, List<IAlgoInstance>> genome2fitnessOutput;
+	private final Map<AGene<?>,IAlgoInstance> gene2geneAlgoInstance;
+	private final Map <IConnection,Object> inputConnection2value;
+	private final FitnessArchive archive;
+
+	/** max count of individuals evaluated at the same time */
+	private final int slots;
+	/** count of individuals to evaluate in total */
+	private final int totalEvaluations;
+
+	private final Object lockerCounts = new Object();
+	private int countSubmitted = 0;
+	private int countEvaluated = 0;
+	private int countRestored = 0;
+	private boolean finished = false;
+	/** true if the runner dropped us as a producer while more individuals will be submitted */
+	private boolean producerDropped = false;
+
+	private AnIndividual lastIndividual = null;
+
+	/**
+	 *
+	 * @param exec the execution context
+	 * @param algoInst the genetic algo instance
+	 * @param algoExec the genetic algorithm which provides the individuals and receives their results
+	 * @param genome2algoInstance the set of algo instances to use for the computation
+	 * @param archive the results already known
+	 * @param slots max count of individuals evaluated at the same time
+	 * @param totalEvaluations count of individuals to evaluate in total
+	 */
+	public GeneticExplorationSteadyState(
+			IExecution exec,
+			GeneticExplorationAlgoContainerInstance algoInst,
+			AbstractGeneticExplorationAlgoExec algoExec,
+			Map<AGenome, Collection<IAlgoInstance>> genome2algoInstance,
+			Map<AGenome, List<IAlgoInstance>> genome2fitnessOutput,
+			Map<AGene<?>,IAlgoInstance> gene2geneAlgoInstance,
+			Map <IConnection,Object> inputConnection2value,
+			FitnessArchive archive,
+			int slots,
+			int totalEvaluations,
+			String name
+			) {
+
+		super(exec, algoInst);
+
+		if (slots < 1)
+			throw new ProgramException("at least one individual should be evaluated at a time");
+
+		this.geneAlgoInst = algoInst;
+		this.algoExec = algoExec;
+		this.name = name;
+
+		this.genome2algoInstance = genome2algoInstance;
+		this.genome2fitnessOutput = genome2fitnessOutput;
+		this.gene2geneAlgoInstance = gene2geneAlgoInstance;
+		this.inputConnection2value = inputConnection2value;
+		this.archive = archive;
+		this.slots = slots;
+		this.totalEvaluations = totalEvaluations;
+
+		this.autoUpdateProgressFromChildren = false;
+		// we don't want to die if a subprocess has a problem; we will assume the fitness is infinite instead.
+		this.ignoreCancelFromChildren = true;
+		this.ignoreFailuresFromChildren = true;
+	}
+
+	@Override
+	protected void initFirstRun() {
+
+		messages.debugTech("will evaluate "+totalEvaluations+" individuals, "+slots+" at a time", getClass());
+
+		progress.setProgressTotal(totalEvaluations);
+		progress.setProgressMade(0);
+	}
+
+	@Override
+	protected void startOfIteration() {
+
+	}
+
+	@Override
+	protected boolean shouldContinueRun() {
+		synchronized (lockerCounts) {
+			return countSubmitted < totalEvaluations && !algoExec.isSteadyStateStopped();
+		}
+	}
+
+	@Override
+	protected void endOfRun() {
+
+	}
+
+	/**
+	 * No more individual is submitted while all the slots are used, or while the genetic algorithm
+	 * is not able to breed any.
+	 */
+	@Override
+	public boolean cannotSendTasksNow() {
+
+		if (super.cannotSendTasksNow())
+			return true;
+
+		synchronized (lockerCounts) {
+			if (countSubmitted - countEvaluated >= slots)
+				return true;
+		}
+
+		return !algoExec.canProvideIndividualForSteadyState();
+	}
+
+	/**
+	 * Submits the next individual to evaluate. The individuals restored from the archive are given
+	 * back immediately to the genetic algorithm, and the next one is tried. Returns null if no 
+	 * individual can be provided now.
+	 */
+	@Override
+	public IAlgoExecution provideMoreTasks() {
+
+		if (canceled) {
+			messages.infoUser("cancelled; interrupting the evaluations.", getClass());
+			progress.setComputationState(ComputationState.FINISHED_CANCEL);
+			return null;
+		}
+
+		while (shouldContinueRun()) {
+
+			final AnIndividual individual;
+			synchronized (lockerCounts) {
+				// after individuals restored from the archive, maybe no other one can be bred now;
+				// the runner drops us, so we register again once the next evaluation finishes
+				individual = algoExec.nextIndividualForSteadyState();
+				if (individual == null) {
+					producerDropped = true;
+					return null;
+				}
+				countSubmitted++;
+				lastIndividual = individual;
+			}
+
+			// already evaluated before
+			if (archive.restore(individual)) {
+				synchronized (lockerCounts) {
+					countRestored++;
+				}
+				individualEvaluated(individual);
+				continue;
+			}
+
+			IAlgoExecution subExec = createExecutionForIndividual(individual);
+
+			subExec.setParent(this);
+			addTask(subExec);
+			subExec.getProgress().addListener(this);
+
+			return subExec;
+		}
+
+		messages.debugTech("submitted all the individuals.", getClass());
+		return null;
+	}
+
+	protected GeneticExplorationAlgoIndividualRun createExecutionForIndividual(AnIndividual individual) {
+
+		messages.traceTech("creating the executable for the exploration of individual: "+individual+" of genome "+individual.genome, getClass());
+
+		GeneticExplorationAlgoIndividualRun resExec = new GeneticExplorationAlgoIndividualRun(
+				exec,
+				geneAlgoInst,
+				gene2geneAlgoInstance,
+				inputConnection2value,
+				genome2algoInstance.get(individual.genome),
+				genome2fitnessOutput.get(individual.genome),
+				individual
+				);
+		resExec.setParent(this);
+
+		// init its links
+		messages.traceTech("init links", getClass());
+		resExec.initInputs(instance2execForSubtasks);
+
+		return resExec;
+	}
+
+	/**
+	 * Gives the results of an individual to the genetic algorithm, and finishes once all
+	 * the individuals submitted are evaluated and no other one will be.
+	 * @param individual
+	 */
+	protected void individualEvaluated(AnIndividual individual) {
+
+		algoExec.individualEvaluatedForSteadyState(individual);
+
+		final boolean finishNow;
+		final boolean registerAgain;
+		synchronized (lockerCounts) {
+			countEvaluated++;
+			progress.incProgressMade();
+			finishNow = !finished && countEvaluated == countSubmitted && !shouldContinueRun();
+			if (finishNow)
+				finished = true;
+			registerAgain = producerDropped && shouldContinueRun();
+			if (registerAgain)
+				producerDropped = false;
+		}
+
+		if (registerAgain)
+			exec.getRunner().registerTasksDynamicProducer(this);
+
+		if (finishNow) {
+			if (archive.isEnabled())
+				messages.infoUser(countRestored+" of the "+countEvaluated+" individuals were restored from the archive", getClass());
+			progress.setComputationState(ComputationState.FINISHED_OK);
+		}
+	}
+
+	@Override
+	public void computationStateChanged(IComputationProgress progress) {
+
+		if (!progress.getComputationState().isFinished())
+			return; // don't care about non finished events
+
+		// ignore progress which is not coming from my children
+		if (!tasks.contains(progress.getAlgoExecution()))
+			return;
+
+		if (!(progress.getAlgoExecution() instanceof GeneticExplorationAlgoIndividualRun))
+			throw new ProgramException("should not receive messages from other than individual tests");
+
+		GeneticExplorationAlgoIndividualRun indivRun = (GeneticExplorationAlgoIndividualRun)progress.getAlgoExecution();
+		AnIndividual indiv = indivRun.getIndividual();
+
+		// archive results
+		archive.setDeterministic(indiv.genome, indivRun.isDeterministic());
+		if (progress.getComputationState() == ComputationState.FINISHED_OK)
+			archive.store(indiv, indivRun.isDeterministic());
+
+		individualEvaluated(indiv);
+
+		// do not enter the complicated generic management in our simple case !
+		// super.computationStateChanged(progress);
+	}
+
+	@Override
+	protected String getSuffixForCurrentIteration() {
+		synchronized (lockerCounts) {
+			return " "+countSubmitted+"/"+totalEvaluations+" (ind "+lastIndividual+")";
+		}
+	}
+
+	@Override
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void initInputs(Map<IAlgoInstance,IAlgoExecution> instance2exec) {
+
+		// we have no input of ourselves
+
+		// also, we store the table for later usage (when we will create the subtasks !)
+		this.instance2execOriginal = instance2exec;
+
+		// and we create a version to be transmitted to our subtasks
+		instance2execForSubtasks = new HashMap<IAlgoInstance, IAlgoExecution>(instance2execOriginal);
+
+		progress.setComputationState(ComputationState.READY);
+	}
+
+}
@@ -0,0 +1,53 @@
+package genlab.algog.algos.exec;
+
+import genlab.algog.internal.AnIndividual;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import cern.jet.random.Uniform;
+import cern.jet.random.engine.MersenneTwister;
+import cern.jet.random.engine.RandomEngine;
+
+/**
+ * One of the populations of the island model. Each island evolves independently from the
+ * other ones, with its own random numbers and its own generations, and regularly receives
+ * migrants from the other islands.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class GeneticIsland {
+
+	public final int index;
+
+	public final RandomEngine coltRandom;
+	public final Uniform uniform;
+
+	/** for each generation of this island, the offspring and the parents */
+	public final Map<Integer, Set<AnIndividual>> offspringGeneration = new LinkedHashMap<Integer, Set<AnIndividual>>();
+	public final Map<Integer, Set<AnIndividual>> parentGeneration = new LinkedHashMap<Integer, Set<AnIndividual>>();
+
+	/** the individuals received from other islands, which will take part in the next selection */
+	public final List<AnIndividual> immigrants = new LinkedList<AnIndividual>();
+
+	public int iterationsMade = 0;
+
+	/** true once all the generations of this island were evaluated */
+	public boolean finished = false;
+
+	public GeneticIsland(int index, int seed) {
+		this.index = index;
+		this.coltRandom = new MersenneTwister(seed);
+		this.uniform = new Uniform(coltRandom);
+	}
+
+	@Override
+	public String toString() {
+		return "island "+index;
+	}
+
+}
@@ -2,17 +2,24 @@ package genlab.algog.algos.exec;
 
 import genlab.algog.algos.instance.GeneticExplorationAlgoContainerInstance;
 import genlab.algog.algos.meta.ECrossoverMethod;
+import genlab.algog.algos.meta.ENonDominatedSortMethod;
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
 import genlab.algog.algos.meta.NSGA2GeneticExplorationAlgo;
 import genlab.algog.internal.ADoubleGene;
 import genlab.algog.internal.AGene;
 import genlab.algog.internal.AGenome;
 import genlab.algog.internal.AnIndividual;
+import genlab.algog.internal.EfficientNonDominatedSorter;
+import genlab.algog.internal.FastNonDominatedSorter;
+import genlab.algog.internal.INonDominatedSorter;
+import genlab.algog.internal.PopulationArrays;
 import genlab.core.commons.ProgramException;
+import genlab.core.commons.WrongParametersException;
 import genlab.core.exec.IExecution;
 import genlab.core.model.exec.ComputationResult;
 import genlab.core.model.exec.ComputationState;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
+import genlab.core.model.meta.basics.flowtypes.ColumnarGenlabTable;
 
 import java.awt.print.Paper;
 import java.util.ArrayList;
@@ -23,7 +30,6 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -42,8 +48,14 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	/** for the last generation associates each rank with its individuals */
 	protected SortedMap<Integer,Set<AnIndividual>> fronts = null;
 	protected Set<AnIndividual> pq_at_t0 = null;
+	/** P(t) U Q(t) as primitive arrays, from the non dominated sort to the generation of the offspring */
+	protected PopulationArrays population = null;
 	/** for each generation, stores the first pareto front */
 	protected final LinkedHashMap<Integer,Set<AnIndividual>> generationWFirstPF;
+	/** in steady-state mode, the current population (its arrays are kept in population) */
+	protected final List<AnIndividual> steadyStatePopulation = new ArrayList<AnIndividual>();
+	/** in steady-state mode, the index of the genome of the next offspring */
+	private int steadyStateNextGenome = 0;
 	/** number of cuts to make on genes for the crossover operator */
 	public static final int NCUTS = 2;
 	/** have to be a power of 2, default value is TOURNAMENT_DEPTH=4 */
@@ -54,6 +66,9 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 
 	protected final ECrossoverMethod paramCrossover;
 	
+	/** sorts the individuals into Pareto fronts */
+	protected final INonDominatedSorter nonDominatedSorter;
+	
 	/**
 	 * Constructor
 	 * @param exec
@@ -70,6 +85,28 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 		paramCrossover = ECrossoverMethod.values()[idxParamCrossover];
 	
 		messages.infoUser("will use for crossover the operator "+paramCrossover.label, getClass());
+		
+		final Integer idxParamSort = (Integer)algoInst.getValueForParameter(NSGA2GeneticExplorationAlgo.PARAM_NON_DOMINATED_SORT);
+		nonDominatedSorter = createNonDominatedSorter(ENonDominatedSortMethod.values()[idxParamSort]);
+	}
+	
+	/**
+	 * Creates the sorter of individuals into Pareto fronts
+	 * @param method
+	 * @return
+	 */
+	protected INonDominatedSorter createNonDominatedSorter(ENonDominatedSortMethod method) {
+		
+		switch (method) {
+		case EFFICIENT:
+			return new EfficientNonDominatedSorter();
+		case FAST:
+			return new FastNonDominatedSorter();
+		case FAST_PARALLEL:
+			return new FastNonDominatedSorter(FastNonDominatedSorter.getSharedPool());
+		default:
+			throw new ProgramException("unknown method for the non-dominated sort: "+method);
+		}
 	}
 
 	/**
@@ -114,141 +151,90 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	}
 	
 	/**
-	 * first pass: discover for each individual how many individuals dominate it, and which children it dominates<br />
-	 * then build domination fronts
-	 * @param individualsWFitness
+	 * Sorts P(t) U Q(t) into Pareto fronts with the sorter chosen (the population is copied into
+	 * primitive arrays first), then stores the rank of each individual and the fronts.
 	 */
 	protected void fastNonDominatedSort() {
 		
-		System.err.println("fastNonDominatedSort: in");
-		SortedMap<Integer,Set<AnIndividual>> frontIndexWIndividuals = new TreeMap<Integer, Set<AnIndividual>>();
-		Map<AnIndividual,Integer> individualWDominationCount = new HashMap<AnIndividual, Integer>(pq_at_t0.size());
-		Map<AnIndividual,Set<AnIndividual>> individualWDominatedIndividuals = new HashMap<AnIndividual, Set<AnIndividual>>(pq_at_t0.size());
-		Set<AnIndividual> individualsInCurrentFront = new HashSet<AnIndividual>();
+		this.population = new PopulationArrays(pq_at_t0);
+		final AnIndividual[] individuals = population.individuals;
 		
-		for( AnIndividual p : pq_at_t0 ) {
-			final Double[] pFitness = p.fitness;
-			
-			int dominationCount = 0;
-			Set<AnIndividual> dominatedIndividuals = new HashSet<AnIndividual>(pq_at_t0.size());
-			
-			for( AnIndividual q : pq_at_t0 ) {
-				final Double[] qFitness = q.fitness;
-
-				// if p and q are not feasible
-				if( !p.isFeasible() && !q.isFeasible() ) {
-					dominatedIndividuals.add(q);
-				}
-				// if p is feasible and q is not
-				else if( p.isFeasible() && !q.isFeasible() ) {
-					dominatedIndividuals.add(q);
-				}
-				// if q is feasible and p is not
-				else if( !p.isFeasible() && q.isFeasible() ) {
-					dominationCount++;
-				}
-				// with fitness: p dominates q?
-				else if( dominates(pFitness, qFitness) ) {
-					dominatedIndividuals.add(q);
-				}
-				// with fitness: q dominates p?
-				else if( dominates(qFitness, pFitness) ) {
-					dominationCount++;
-				}
-			}
-			
-			individualWDominatedIndividuals.put(p, dominatedIndividuals);
-			individualWDominationCount.put(p, dominationCount);
-
-			// does this individual belong to the first front?
-			if( dominationCount==0 ) {
-				individualsInCurrentFront.add(p);
-				p.rank = 1;
+		final int[] ranks = nonDominatedSorter.sort(
+				population.getFitnessByIndividual(), 
+				population.feasible, 
+				population.count, 
+				population.objectivesCount
+				);
+		population.setRanks(ranks);
+		
+		SortedMap<Integer,Set<AnIndividual>> frontIndexWIndividuals = new TreeMap<Integer, Set<AnIndividual>>();
+		// the first domination front is always defined (even empty)
+		frontIndexWIndividuals.put(1, new HashSet<AnIndividual>());
+		for( int i=0 ; i<individuals.length ; i++ ) {
+			Set<AnIndividual> front = frontIndexWIndividuals.get(ranks[i]);
+			if( front==null ) {
+				front = new HashSet<AnIndividual>();
+				frontIndexWIndividuals.put(ranks[i], front);
 			}
+			front.add(individuals[i]);
 		}
 		
 		// save the first domination front
-		generationWFirstPF.put(iterationsMade, individualsInCurrentFront);
-		frontIndexWIndividuals.put(1, individualsInCurrentFront);
-		
-		
-		// build the second, third, ..., Xth domination fronts
-		int frontIndex = 1;
-		Set<AnIndividual> nextFront = null;
-		
-		while( !individualsInCurrentFront.isEmpty() ) {
-			nextFront = new HashSet<AnIndividual>();
-			
-			for( AnIndividual p : individualsInCurrentFront ) {
-				for( AnIndividual q : individualWDominatedIndividuals.get(p) ) {
-					Integer nq = individualWDominationCount.get(q) - 1;
-					individualWDominationCount.put(q, nq);
-					// if q belongs to the next front
-					if( nq==0 ) {
-						nextFront.add(q);
-						q.rank = frontIndex + 1;
-					}
-				}
-			}
-			
-			frontIndex++;
-			individualsInCurrentFront = nextFront;
-			
-			if( !nextFront.isEmpty() ) {
-				frontIndexWIndividuals.put(frontIndex, nextFront);
-			}
-		}
+		storeFirstParetoFront(iterationsMade, frontIndexWIndividuals.get(1));
 		
 		// we don't always compute the fronts, but when we do: brace yourself
 		this.fronts = frontIndexWIndividuals;
 		
-		System.err.println("fastNonDominatedSort: out");
 	}
 	
 	/**
-	 * Compares two individuals based on the fitness computed
-	 * @author Samuel Thiriot
+	 * Stores the first Pareto front of an iteration. With islands, the fronts of the islands
+	 * which reached this iteration are merged: only their non dominated individuals are kept.
+	 * The fronts are small and their individuals are part of the population being selected, 
+	 * so they are compared directly (building other arrays would change their populationIndex).
+	 * @param iteration
+	 * @param front
 	 */
-	protected class ComparatorFitness implements Comparator<AnIndividual> {
-
-		private final int m;
+	protected void storeFirstParetoFront(int iteration, Set<AnIndividual> front) {
 		
-		public ComparatorFitness(int m) {
-			this.m = m;
+		final Set<AnIndividual> previous = generationWFirstPF.get(iteration);
+		if( islands==null || previous==null ) {
+			generationWFirstPF.put(iteration, front);
+			return;
 		}
-
-		@Override
-		public int compare(AnIndividual o1, AnIndividual o2) {
-			
-			final Double fitness1 = o1.fitness[m];
-			final Double fitness2 = o2.fitness[m];
-			if (fitness1 == null || fitness2 == null)
-				throw new ProgramException("trying to compare the fitness of "+o1+" and "+o2+" but it is null");
-			return Double.compare(fitness1, fitness2);
+		
+		final List<AnIndividual> union = new ArrayList<AnIndividual>(previous);
+		union.addAll(front);
+		
+		final Set<AnIndividual> merged = new HashSet<AnIndividual>();
+		for( AnIndividual a : union ) {
+			boolean dominated = false;
+			for( AnIndividual b : union ) {
+				if( b!=a && dominatesForMerge(b, a) ) {
+					dominated = true;
+					break;
+				}
+			}
+			if( !dominated )
+				merged.add(a);
 		}
+		generationWFirstPF.put(iteration, merged);
 	}
 	
 	/**
-	 * Compares two individuals based on the genes
-	 * @author Alan Solon
+	 * Domination between individuals of Pareto fronts: feasible individuals dominate the other ones
 	 */
-	protected class ComparatorGenes implements Comparator<AnIndividual> {
-
-		private final int g;
-		
-		public ComparatorGenes(int g) {
-			this.g = g;
-		}
-
-		@Override
-		public int compare(AnIndividual o1, AnIndividual o2) {
-			
-			final Number a = (Number)o1.genes[g];
-			final Number b = (Number)o2.genes[g];
-			return Double.compare(a.doubleValue(), b.doubleValue());
-		}
+	private boolean dominatesForMerge(AnIndividual a, AnIndividual b) {
+		
+		final boolean feasibleA = a.fitness!=null && a.values!=null && a.isFeasible();
+		final boolean feasibleB = b.fitness!=null && b.values!=null && b.isFeasible();
+		if( feasibleA!=feasibleB )
+			return feasibleA;
+		if( !feasibleA )
+			return false;
+		return dominates(a.fitness, b.fitness);
 	}
-
+	
 	/**
 	 * Compares two individuals based on the crowded stats
 	 * @author Samuel Thiriot
@@ -264,182 +250,49 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	}
 
 	/**
-	 * Compares two individuals based on n1
-	 * @author Alan Solon
+	 * set distance population to 0, sort indivs by fitness, set distance indivs
+	 * @param front
 	 */
-	protected class ComparatorN1 implements Comparator<AnIndividual> {
+	protected void calculateCrowdingDistance(Set<AnIndividual> front) {
 		
-		@Override
-		public int compare(AnIndividual o1, AnIndividual o2) {
-			
-			return Double.compare(o1.crowdDistance, o2.crowdDistance);
-		}
+		final int[] members = population.indexesOf(front);
+		population.calculateCrowdingDistance(members, members.length);
 	}
-
+	
 	/**
-	 * Compares two individuals based on n2
-	 * @author Alan Solon
+	 * Keeps howMany individuals of the front, by removing one at a time the most crowded one
+	 * in the space of the fitness
+	 * @param howMany
+	 * @param front
+	 * @return
 	 */
-	protected class ComparatorN2 implements Comparator<AnIndividual> {
-
+	protected Set<AnIndividual> crowdingDistanceByFitness(int howMany, List<AnIndividual> front) {
 		
-		@Override
-		public int compare(AnIndividual o1, AnIndividual o2) {
-			
-			return Double.compare(o2.centerDistance, o1.centerDistance);
-		}
+		final int[] members = population.indexesOf(front);
+		return toIndividuals(population.truncateByCrowdingDistance(population.fitness, members, howMany));
 	}
 	
 	/**
-	 * set distance population to 0, sort indivs by fitness, set distance indivs
-	 * @param population
-	 * @param individualWFitness
+	 * Keeps howMany individuals of the front, by removing one at a time the most crowded one
+	 * in the space of the genes (for the individuals which were not evaluated)
+	 * @param howMany
+	 * @param front
 	 * @return
 	 */
-	protected void calculateCrowdingDistance(Set<AnIndividual> population) {
-		System.err.println("calculateCrowdingDistance: in");
-
-		List<AnIndividual> indivs = new ArrayList<AnIndividual>(population);
-		
-		int l = population.size();
-		int objectivesCount = indivs.get(0).fitness.length;
-
-		// set distance to 0
-		for( AnIndividual i : indivs ) {
-			i.crowdDistance = 0d;
-		}
+	protected Set<AnIndividual> crowdingDistanceByGenes(int howMany, List<AnIndividual> front) {
 		
-		for (int m=0; m<objectivesCount; m++) {			
-			Collections.sort(indivs, new ComparatorFitness(m));
-			
-			final double minFitness = indivs.get(0).fitness[m];
-			final double maxFitness = indivs.get(l-1).fitness[m];
-			final double diffFitness = maxFitness - minFitness;
-			
-			// ignore the individuals which were not evaluated (no data for comparison !)
-			if (Double.isNaN(diffFitness))
-				continue;
-
-			indivs.get(0).crowdDistance = INF;
-			indivs.get(l-1).crowdDistance = INF;
-			
-			for( int i=1 ; i<l-1 ; i++ ) {
-				Double d = indivs.get(i).crowdDistance;
-				d += ( indivs.get(i+1).fitness[m] - indivs.get(i-1).fitness[m] ) / diffFitness;
-				indivs.get(i).crowdDistance = d;
-			}
-		}
-		System.err.println("calculateCrowdingDistance: out");
-
-	}
-	
-	protected Set<AnIndividual> crowdingDistanceByFitness(int howMany, List<AnIndividual> front) {
-		System.err.println("crowdingDistanceByFitness: in");
-		while( front.size()>howMany ) {
-			int l = front.size();
-			for( AnIndividual i : front ) {
-				i.crowdDistance = 0d;
-				i.centerDistance = 0d;
-			}
-			for( int m=0 ; m<front.get(0).fitness.length ; m++ ) {
-				Collections.sort(front, new ComparatorFitness(m));
-
-				final double delta = front.get(l-1).fitness[m] - front.get(0).fitness[m];
-	
-				front.get(0).crowdDistance = INF;
-				front.get(l-1).crowdDistance = INF;
-
-				front.get(0).centerDistance += Math.abs( front.get(0).fitness[m]-front.get(l-1).fitness[m] ) / delta;
-				front.get(l-1).centerDistance += Math.abs( front.get(0).fitness[m]-front.get(l-1).fitness[m] ) / delta;
-	
-				for( int i=1 ; i<l-1 ; i++ ) {
-					front.get(i).crowdDistance += Math.abs( front.get(i-1).fitness[m]-front.get(i+1).fitness[m] ) / delta;
-					
-					// 0 farther from i than n
-					if( Math.abs(front.get(i).fitness[m]-front.get(0).fitness[m]) > Math.abs(front.get(l-1).fitness[m]-front.get(i).fitness[m]) ) {
-						front.get(i).centerDistance += Math.abs( front.get(i).fitness[m]-front.get(0).fitness[m] ) / delta;
-					}else {
-						front.get(i).centerDistance += Math.abs( front.get(l-1).fitness[m]-front.get(i).fitness[m] ) / delta;
-					}
-				}
-			}
-			
-			// call all individual who got the same minimum n1
-			List<AnIndividual> er = new ArrayList<AnIndividual>();
-			Collections.sort(front, new ComparatorN1());
-			Double n1 = front.get(0).crowdDistance;
-			for( AnIndividual i : front ) {
-				if( i.crowdDistance-n1<EPS ) {
-					er.add(i);
-				}else {
-					break;
-				}
-			}
-			
-			// among them, select the best n2
-			Collections.sort(er, new ComparatorN2());
-			front.remove( er.get(0) );
-		}
-		System.err.println("crowdingDistanceByFitness: out");
-		return new HashSet<AnIndividual>(front);
+		final int[] members = population.indexesOf(front);
+		final double[][] genes = population.getGenesValues(members, members.length);
+		return toIndividuals(population.truncateByCrowdingDistance(genes, members, howMany));
 	}
 	
-	protected Set<AnIndividual> crowdingDistanceByGenes(int howMany, List<AnIndividual> front) {
-		System.err.println("crowdingDistanceByGenes: in");
-		while( front.size()>howMany ) {
-			int l = front.size();
-			for( AnIndividual i : front ) {
-				i.crowdDistance = 0d;
-				i.centerDistance = 0d;
-			}
-			for( int g=0 ; g<front.get(0).genes.length ; g++ ) {
-				Collections.sort(front, new ComparatorGenes(g));
-
-				double z = ((Number)(front.get(l-1).genes[g])).doubleValue();
-				double a = ((Number)(front.get(0).genes[g])).doubleValue();
-				final double delta =  z - a;
-	
-				front.get(0).crowdDistance = INF;
-				front.get(l-1).crowdDistance = INF;
-
-				front.get(0).centerDistance += Math.abs( a-z ) / delta;
-				front.get(l-1).centerDistance += Math.abs( a-z ) / delta;
-	
-				for( int i=1 ; i<l-1 ; i++ ) {
-					double m = ((Number)(front.get(i-1).genes[g])).doubleValue();
-					double o = ((Number)(front.get(i).genes[g])).doubleValue();
-					double n = ((Number)(front.get(i+1).genes[g])).doubleValue();
-					front.get(i).crowdDistance += Math.abs( m-n ) / delta;
-					
-					// 0 farther from i than n
-					if( Math.abs(o-a) > Math.abs(z-o) ) {
-						front.get(i).centerDistance += Math.abs( o-a ) / delta;
-					}else {
-						front.get(i).centerDistance += Math.abs( z-o ) / delta;
-					}
-				}
-			}
-			
-			// call all individual who got the same minimum n1
-			List<AnIndividual> er = new ArrayList<AnIndividual>();
-			Collections.sort(front, new ComparatorN1());
-			Double n1 = front.get(0).crowdDistance;
-			for( AnIndividual i : front ) {
-				if( i.crowdDistance-n1<EPS ) {
-					er.add(i);
-				}else {
-					break;
-				}
-			}
-			
-			// among them, select the best n2
-			Collections.sort(er, new ComparatorN2());
-			front.remove( er.get(0) );
-		}
+	private Set<AnIndividual> toIndividuals(int[] members) {
 		
-		System.err.println("crowdingDistanceByGenes: out");
-
-		return new HashSet<AnIndividual>(front);
+		Set<AnIndividual> res = new HashSet<AnIndividual>(members.length);
+		for( int i : members ) {
+			res.add(population.individuals[i]);
+		}
+		return res;
 	}
 
 	/**
@@ -490,6 +343,9 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 //			p_at_t1.addAll( sortedFront.subList( 0 , (paramPopulationSize-p_at_t1.size()) ) );
 //		}
 		
+		// the distances are now known for P(t+1)
+		population.writeBack();
+		
 		if( p_at_t1.size()<paramPopulationSize ) {
 			messages.infoUser("We were not able to select enough individuals from Q(t) and P(t): selected "+p_at_t1.size()+" for "+paramPopulationSize+" expected", getClass());
 		}
@@ -499,6 +355,10 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	
 	private void doubleCheckRegressions() {
 		
+		// with islands, the fronts are merged while the islands reach each iteration
+		if( islands!=null )
+			return;
+		
 		Set<AnIndividual> iterationBefore = generationWFirstPF.get(iterationsMade-1);
 		Set<AnIndividual> iterationLast = generationWFirstPF.get(iterationsMade);
 		
@@ -540,17 +400,70 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 		return result;
 	}
 	
+	/**
+	 * Returns the individuals of the two last generations of all the islands
+	 * @return
+	 */
+	protected Set<AnIndividual> getIndividualsForTwoLastGenerationsOfIslands() {
+		Set<AnIndividual> result = new HashSet<AnIndividual>();
+		
+		for( GeneticIsland island : islands ) {
+			result.addAll(island.parentGeneration.get(island.iterationsMade));
+			if( island.offspringGeneration.get(island.iterationsMade)!=null )
+				result.addAll(island.offspringGeneration.get(island.iterationsMade));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * The migrants are the individuals of the best fronts of P(t) U Q(t), 
+	 * chosen at random within the last front needed 
+	 */
+	@Override
+	protected List<AnIndividual> selectEmigrants(int count) {
+		
+		final PopulationArrays candidates = new PopulationArrays(getIndividualsForTwoLastGenerations());
+		final int[] ranks = nonDominatedSorter.sort(
+				candidates.getFitnessByIndividual(), 
+				candidates.feasible, 
+				candidates.count, 
+				candidates.objectivesCount
+				);
+		
+		// shuffle, then sort by front (the sort is stable)
+		final List<Integer> order = new ArrayList<Integer>(candidates.count);
+		for( int i=0 ; i<candidates.count ; i++ ) {
+			order.add(i);
+		}
+		for( int i=candidates.count-1 ; i>0 ; i-- ) {
+			Collections.swap(order, i, uniform.nextIntFromTo(0, i));
+		}
+		Collections.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Integer.compare(ranks[o1], ranks[o2]);
+			}
+		});
+		
+		final List<AnIndividual> emigrants = new ArrayList<AnIndividual>(count);
+		for( int i=0 ; i<Math.min(count, candidates.count) ; i++ ) {
+			emigrants.add(candidates.individuals[order.get(i)]);
+		}
+		return emigrants;
+	}
+	
 	/**
 	 * Takes all the pareto fronts detected during simulation, 
 	 * and packs them as a table to be exported.
 	 * @return
 	 */
-	protected GenlabTable packParetoFrontsAsTable() {
+	protected AbstractGenlabTable packParetoFrontsAsTable() {
 		
 		final String titleIteration = "iteration";
 		final String titleParetoGenome = "pareto genome";
 		
-		GenlabTable tab = new GenlabTable();
+		AbstractGenlabTable tab = new ColumnarGenlabTable();
 		tab.declareColumn(titleIteration);
 		tab.setTableMetaData(GeneticExplorationAlgoConstants.TABLE_METADATA_KEY_COLTITLE_ITERATION, titleIteration);
 		tab.setTableMetaData(GeneticExplorationAlgoConstants.TABLE_METADATA_KEY_MAX_ITERATIONS, paramStopMaxIterations);
@@ -709,24 +622,45 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	}
 	
 	/**
-	 * Crowded Tournament Selection operator
-	 * @param ind1
-	 * @param ind2
-	 * @param parents
+	 * Create two children with the crossover operator chosen as parameter
+	 * @param genome
+	 * @param parent1
+	 * @param parent2
 	 * @return
 	 */
-	protected AnIndividual crowdedTournamentSelection(AnIndividual ind1, AnIndividual ind2) {
+	protected final List<AnIndividual> crossover(final AGenome genome, AnIndividual parent1, AnIndividual parent2) {
+		
+		switch (paramCrossover) {
+		case N_POINTS:
+			return crossoverNPoints(genome, NCUTS, parent1, parent2);
+		case SBX:
+			return crossoverSBX(genome, parent1, parent2);
+		default:
+			throw new ProgramException("unknown crossover method: "+paramCrossover);
+		}
+	}
+	
+	/**
+	 * Crowded Tournament Selection operator
+	 * @param ind1 index of the first individual in the population
+	 * @param ind2 index of the second individual in the population
+	 * @return the index of the winner
+	 */
+	protected int crowdedTournamentSelection(int ind1, int ind2) {
+		
+		final boolean feasible1 = population.feasible[ind1];
+		final boolean feasible2 = population.feasible[ind2];
 		
 		// if 1 is feasible and 2 is not
-		if( ind1.isFeasible() && !ind2.isFeasible() ) {
+		if( feasible1 && !feasible2 ) {
 			return ind1;
 		}
 		// if 2 is feasible and 1 is not
-		else if( !ind1.isFeasible() && ind2.isFeasible() ) {
+		else if( !feasible1 && feasible2 ) {
 			return ind2;
 		}
 		// if both are infeasible
-		else if( !ind1.isFeasible() && !ind2.isFeasible() ) {
+		else if( !feasible1 && !feasible2 ) {
 			// random choice
 			if( uniform.nextBoolean() ) {
 				return ind1;
@@ -736,19 +670,19 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 		}
 		
 		// if 1 dominates 2
-		if( dominates(ind1.fitness, ind2.fitness) ) {
+		if( population.dominates(ind1, ind2) ) {
 			return ind1;
 		}
 		// else if 2 dominates 1
-		else if( dominates(ind2.fitness, ind1.fitness) ) {
+		else if( population.dominates(ind2, ind1) ) {
 			return ind2;
 		}
 		// else if 1 is most spread than 2
-		else if( ind1.crowdDistance>ind2.crowdDistance ) {
+		else if( population.crowding[ind1]>population.crowding[ind2] ) {
 			return ind1;
 		}
 		// else if 2 is most spread than 1
-		else if( ind2.crowdDistance>ind1.crowdDistance ) {
+		else if( population.crowding[ind2]>population.crowding[ind1] ) {
 			return ind2;
 		}
 		// else who's the luckier?
@@ -760,18 +694,17 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 	}
 	
 	/**
-	 * Binary tournament base on the crowded tournament operator
-	 * @return two best individuals
+	 * Binary tournament base on the crowded tournament operator; the winners of each round
+	 * replace the candidates in place, until two remain
+	 * @param candidates indexes in the population, the two best ones first at the end
+	 * @param size count of candidates
 	 */
-	public List<AnIndividual> recursiveCrowdedTournamentSelection(List<AnIndividual> p) {
-		if( p.size()>2 ) {
-			List<AnIndividual> a = new ArrayList<AnIndividual>();
-			for( int i=0 ; i<p.size()/2 ; i++ ) {
-				a.add( crowdedTournamentSelection(p.get( 2*i ), p.get( 2*i+1 )) );
+	protected void recursiveCrowdedTournamentSelection(int[] candidates, int size) {
+		while( size>2 ) {
+			for( int i=0 ; i<size/2 ; i++ ) {
+				candidates[i] = crowdedTournamentSelection(candidates[2*i], candidates[2*i+1]);
 			}
-			return recursiveCrowdedTournamentSelection(a);
-		}else {
-			return p;
+			size /= 2;
 		}
 	}
 	
@@ -787,35 +720,26 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 		
 		Set<AnIndividual> offspring = new HashSet<AnIndividual>(populationSize);
 		int countCrossover = 0;		
-		List<AnIndividual> listOfParents = new LinkedList<AnIndividual>(parents);
+		List<AnIndividual> listOfParents = new ArrayList<AnIndividual>(parents);
 		Collections.shuffle(listOfParents);
+		final int[] indexOfParents = population.indexesOf(listOfParents);
+		final int[] candidates = new int[TOURNAMENT_DEPTH];
 
 		StringBuffer _message = new StringBuffer();
 		
 		while( offspring.size()<populationSize ) {
 			
 			int indexFrom = uniform.nextIntFromTo(0, populationSize-TOURNAMENT_DEPTH);
-			int indexTo = indexFrom + TOURNAMENT_DEPTH;
-			List<AnIndividual> subList = listOfParents.subList(indexFrom, indexTo);
+			System.arraycopy(indexOfParents, indexFrom, candidates, 0, TOURNAMENT_DEPTH);
 			
-			List<AnIndividual> twoParents = recursiveCrowdedTournamentSelection(subList);
+			recursiveCrowdedTournamentSelection(candidates, TOURNAMENT_DEPTH);
 
-			AnIndividual p1 = twoParents.get(0);
-			AnIndividual p2 = twoParents.get(1);
+			AnIndividual p1 = population.individuals[candidates[0]];
+			AnIndividual p2 = population.individuals[candidates[1]];
 
 			if( genome.crossoverProbability==1.0 || uniform.nextDoubleFromTo(0.0, 1.0)<=genome.crossoverProbability ) {
 				
-				List<AnIndividual> novelIndividuals = null;
-				switch (paramCrossover) {
-				case N_POINTS:
-					novelIndividuals = crossoverNPoints(genome, NCUTS, p1, p2);
-					break;
-				case SBX:
-					novelIndividuals = crossoverSBX(genome, p1, p2);
-					break;
-				default:
-					throw new ProgramException("unknown crossover method: "+paramCrossover);
-				}
+				List<AnIndividual> novelIndividuals = crossover(genome, p1, p2);
 				
 				countCrossover++;
 
@@ -970,9 +894,193 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 			messages.infoUser(_message.toString(), getClass());
 		}
 		
+		// reset the arrays of P(t) U Q(t)
+		this.population = null;
+		
 		return novelGenomeWPopulation;
 	}
 	
+	/**
+	 * Sorts the steady-state population into Pareto fronts, and computes the crowding distance
+	 * of the individuals in each front.
+	 * @return for each front (from 0), the indexes of its individuals in population 
+	 */
+	protected int[][] sortSteadyStatePopulation() {
+		
+		this.population = new PopulationArrays(steadyStatePopulation);
+		
+		final int[] ranks = nonDominatedSorter.sort(
+				population.getFitnessByIndividual(), 
+				population.feasible, 
+				population.count, 
+				population.objectivesCount
+				);
+		population.setRanks(ranks);
+		
+		// group the individuals by front
+		int countFronts = 0;
+		for( int r : ranks ) {
+			countFronts = Math.max(countFronts, r);
+		}
+		final int[] sizes = new int[countFronts];
+		for( int r : ranks ) {
+			sizes[r-1]++;
+		}
+		final int[][] frontsIndexes = new int[countFronts][];
+		for( int f=0 ; f<countFronts ; f++ ) {
+			frontsIndexes[f] = new int[sizes[f]];
+			sizes[f] = 0;
+		}
+		for( int i=0 ; i<ranks.length ; i++ ) {
+			frontsIndexes[ranks[i]-1][sizes[ranks[i]-1]++] = i;
+		}
+		
+		for( int[] front : frontsIndexes ) {
+			population.calculateCrowdingDistance(front, front.length);
+		}
+		
+		return frontsIndexes;
+	}
+	
+	/**
+	 * Steady-state replacement: once the population is full, the individual removed is
+	 * the one the truncation of P(t) U Q(t) would remove first, that is the most crowded 
+	 * individual of the last front. Removing it changes neither the ranks of the other 
+	 * individuals nor the distances out of the last front, so the population is sorted once.
+	 */
+	@Override
+	protected void insertIntoSteadyStatePopulation(AnIndividual individual) {
+		
+		steadyStatePopulation.add(individual);
+		
+		final int[][] frontsIndexes = sortSteadyStatePopulation();
+		
+		if( steadyStatePopulation.size()<=paramPopulationSize ) {
+			population.writeBack();
+			return;
+		}
+		
+		final int[] last = frontsIndexes[frontsIndexes.length-1];
+		final Double[] fitness = population.individuals[last[0]].fitness;
+		final double[][] values;
+		if( fitness==null || fitness.length==0 || fitness[0]==null || Math.abs(fitness[0]-INF)<EPS ) {
+			values = population.getGenesValues(last, last.length);
+		}
+		else {
+			values = population.fitness;
+		}
+		final Set<AnIndividual> kept = new HashSet<AnIndividual>(last.length);
+		for( int i : population.truncateByCrowdingDistance(values, last, last.length-1) ) {
+			kept.add(population.individuals[i]);
+		}
+		
+		// the distances of the last front are the ones after the removal
+		population.writeBack();
+		for( int i : last ) {
+			if( !kept.contains(population.individuals[i]) ) {
+				steadyStatePopulation.remove(population.individuals[i]);
+				break;
+			}
+		}
+		
+		// the arrays without the individual removed, with the ranks and distances just written
+		this.population = new PopulationArrays(steadyStatePopulation);
+	}
+	
+	/**
+	 * Breeds two offspring for one genome (the genomes in turn): two parents are selected by 
+	 * crowded tournament within the individuals of this genome, then crossed and mutated. 
+	 * Waits for the population to contain at least TOURNAMENT_DEPTH individuals.
+	 */
+	@Override
+	protected Collection<AnIndividual> breedOffspringForSteadyState() {
+		
+		if( population==null || steadyStatePopulation.size()<TOURNAMENT_DEPTH )
+			return Collections.emptyList();
+		
+		final List<AGenome> genomes = new ArrayList<AGenome>(genome2fitnessOutput.keySet());
+		final int[] members = new int[population.count];
+		
+		for( int g=0 ; g<genomes.size() ; g++ ) {
+			
+			final AGenome genome = genomes.get((steadyStateNextGenome+g) % genomes.size());
+			int count = 0;
+			for( int i=0 ; i<population.count ; i++ ) {
+				if( population.individuals[i].genome==genome )
+					members[count++] = i;
+			}
+			if( count==0 )
+				continue;
+			
+			steadyStateNextGenome = (steadyStateNextGenome+g+1) % genomes.size();
+			
+			final int[] candidates = new int[TOURNAMENT_DEPTH];
+			for( int i=0 ; i<TOURNAMENT_DEPTH ; i++ ) {
+				candidates[i] = members[uniform.nextIntFromTo(0, count-1)];
+			}
+			recursiveCrowdedTournamentSelection(candidates, TOURNAMENT_DEPTH);
+			
+			final AnIndividual p1 = population.individuals[candidates[0]];
+			final AnIndividual p2 = population.individuals[candidates[1]];
+			
+			final Set<AnIndividual> offspring = new HashSet<AnIndividual>(2);
+			if( genome.crossoverProbability==1.0 || uniform.nextDoubleFromTo(0.0, 1.0)<=genome.crossoverProbability ) {
+				for( AnIndividual child : crossover(genome, p1, p2) ) {
+					offspring.add(new AnIndividual(child));
+				}
+			}else {
+				offspring.add(new AnIndividual(p1));
+				offspring.add(new AnIndividual(p2));
+			}
+			
+			mutatePopulation(genome, offspring, new HashMap<AGene<?>, Integer>());
+			
+			return offspring;
+		}
+		
+		return Collections.emptyList();
+	}
+	
+	@Override
+	protected Set<AnIndividual> getSteadyStatePopulation() {
+		return new HashSet<AnIndividual>(steadyStatePopulation);
+	}
+	
+	/**
+	 * Stores the first Pareto front of the population, as ranked at the last insertion (sorting 
+	 * again would change the ranks of the individuals of the population), then prepares the 
+	 * intermediate results
+	 */
+	@Override
+	protected void hookEndOfSteadyStateIteration() {
+		
+		final Set<AnIndividual> firstFront = new HashSet<AnIndividual>();
+		for( int i=0 ; i<population.count ; i++ ) {
+			if( population.rank[i]==1 )
+				firstFront.add(population.individuals[i]);
+		}
+		storeFirstParetoFront(iterationsMade, firstFront);
+		doubleCheckRegressions();
+		
+		super.hookEndOfSteadyStateIteration();
+	}
+	
+	/**
+	 * The breeding needs TOURNAMENT_DEPTH individuals in the population
+	 */
+	@Override
+	protected GeneticExplorationSteadyState createExecutableForSteadyState(Map<AGenome,Set<AnIndividual>> initialPopulation) {
+		
+		int count = 0;
+		for( Set<AnIndividual> individuals : initialPopulation.values() ) {
+			count += individuals.size();
+		}
+		if( count<TOURNAMENT_DEPTH )
+			throw new WrongParametersException("the steady-state mode requires an initial population of at least "+TOURNAMENT_DEPTH+" individuals, not "+count);
+		
+		return super.createExecutableForSteadyState(initialPopulation);
+	}
+	
 	@Override
 	protected boolean hasConverged() {
 		// we are not yet able to detect if the algo has converged !
@@ -989,12 +1097,13 @@ public class NSGA2Exec extends BasicGeneticExplorationAlgoExec {
 		if( ourState!=ComputationState.FINISHED_OK )
 			return;
 		
-		// process the last Pareto front
-		this.pq_at_t0 = getIndividualsForTwoLastGenerations();		
+		// process the last Pareto front (of all the islands)
+		this.pq_at_t0 = islands==null ? getIndividualsForTwoLastGenerations() : getIndividualsForTwoLastGenerationsOfIslands();
 		// reset internal variables
 		this.fronts = null;		
 		// compute fronts and rank on P(t) U Q(t)
 		fastNonDominatedSort();
+		this.population = null;
 
 		// and define the result for Pareto
 		res.setResult(
@@ -11,8 +11,10 @@ import genlab.core.model.meta.ExistingAlgos;
 import genlab.core.model.meta.IAlgo;
 import genlab.core.model.meta.InputOutput;
 import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+import genlab.core.parameters.BooleanParameter;
 import genlab.core.parameters.DoubleParameter;
 import genlab.core.parameters.IntParameter;
+import genlab.core.parameters.ListParameter;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -60,12 +62,83 @@ public abstract class AbstractGeneticExplorationAlgo extends AlgoContainer {
 			);
 	
 	
+	public static final IntParameter PARAM_ARCHIVE_CAPACITY = new IntParameter(
+			"param_archive_capacity", 
+			"archive of fitness", 
+			"count of individuals whose fitness is kept, so individuals with the same genes are not evaluated again (0 to disable)", 
+			new Integer(10000)
+			);
+
+	public static final ListParameter PARAM_ARCHIVE_EVICTION = new ListParameter(
+			"param_archive_eviction", 
+			"archive eviction", 
+			"individuals removed first when the archive of fitness is full",
+			0,
+			EFitnessArchiveEviction.getLabelsAsList()
+			);
+
+	public static final BooleanParameter PARAM_ARCHIVE_DETERMINISTIC_ONLY = new BooleanParameter(
+			"param_archive_deterministic_only", 
+			"archive only deterministic evaluations", 
+			"reuse the fitness only if all the algorithms evaluating the individuals are deterministic", 
+			Boolean.TRUE
+			);
+
+	public static final ListParameter PARAM_EVALUATION_MODE = new ListParameter(
+			"param_evaluation_mode", 
+			"evaluation mode", 
+			"generational: the offspring are bred once the whole generation is evaluated; steady-state: an offspring is bred and evaluated as soon as an evaluation finishes",
+			0,
+			EEvaluationMode.getLabelsAsList()
+			);
+
+	public static final IntParameter PARAM_EVALUATION_SLOTS = new IntParameter(
+			"param_evaluation_slots", 
+			"concurrent evaluations", 
+			"in steady-state mode, count of individuals evaluated at the same time (0 for the count of local threads)", 
+			new Integer(0)
+			);
+
+	public static final IntParameter PARAM_ISLANDS = new IntParameter(
+			"param_islands", 
+			"islands", 
+			"count of populations evolving independently, each of the total population size, and exchanging migrants (generational mode only)", 
+			new Integer(1)
+			);
+
+	public static final IntParameter PARAM_MIGRATION_INTERVAL = new IntParameter(
+			"param_migration_interval", 
+			"migration interval", 
+			"count of generations between two migrations from an island", 
+			new Integer(5)
+			);
+
+	public static final IntParameter PARAM_MIGRATION_SIZE = new IntParameter(
+			"param_migration_size", 
+			"migrants", 
+			"count of individuals (the best ones) sent by an island at each migration", 
+			new Integer(2)
+			);
+
+	public static final ListParameter PARAM_MIGRATION_TOPOLOGY = new ListParameter(
+			"param_migration_topology", 
+			"migration topology", 
+			"to which islands the migrants are sent",
+			0,
+			EMigrationTopology.getLabelsAsList()
+			);
+	
 	static {
 
 		OUTPUT_TABLE.setIsContinuousOutput(true);
 
 		PARAM_STOP_MAXITERATIONS.setMinValue(1);
 		PARAM_SIZE_POPULATION.setMinValue(4);
+		PARAM_ARCHIVE_CAPACITY.setMinValue(0);
+		PARAM_EVALUATION_SLOTS.setMinValue(0);
+		PARAM_ISLANDS.setMinValue(1);
+		PARAM_MIGRATION_INTERVAL.setMinValue(1);
+		PARAM_MIGRATION_SIZE.setMinValue(0);
 
 	}
 	
@@ -86,6 +159,18 @@ public abstract class AbstractGeneticExplorationAlgo extends AlgoContainer {
 		
 		registerParameter(PARAM_ETA_MUTATION);
 		registerParameter(PARAM_ETA_CROSSOVER);
+		
+		registerParameter(PARAM_ARCHIVE_CAPACITY);
+		registerParameter(PARAM_ARCHIVE_EVICTION);
+		registerParameter(PARAM_ARCHIVE_DETERMINISTIC_ONLY);
+		
+		registerParameter(PARAM_EVALUATION_MODE);
+		registerParameter(PARAM_EVALUATION_SLOTS);
+		
+		registerParameter(PARAM_ISLANDS);
+		registerParameter(PARAM_MIGRATION_INTERVAL);
+		registerParameter(PARAM_MIGRATION_SIZE);
+		registerParameter(PARAM_MIGRATION_TOPOLOGY);
 	}
 
 
@@ -0,0 +1,58 @@
+package genlab.algog.algos.meta;
+
+import genlab.core.commons.ProgramException;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How the individuals are bred and submitted for evaluation: a whole generation at a time,
+ * or one offspring as soon as an evaluation finishes
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public enum EEvaluationMode {
+	
+	GENERATIONAL ("generational"),
+	STEADY_STATE ("steady-state (asynchronous)")
+	;
+	
+	public final String label;
+	
+	private static Map<String, EEvaluationMode> label2value = new HashMap<String, EEvaluationMode>();
+
+	private EEvaluationMode (String label) {
+		this.label = label;
+	}
+
+	public static EEvaluationMode parseFromLabel(String label) {
+		return label2value.get(label);
+	}
+	
+	public static List<String> getLabelsAsList() {
+		
+		List<String> res = new LinkedList<String>();
+		for (EEvaluationMode e: values()) {
+			res.add(e.label);
+		}
+		return res;
+	}
+	
+	static {
+		
+		// cache the map from label to enum value
+		for (EEvaluationMode value : EEvaluationMode.values()) {
+			
+			// refuse double values
+			if (label2value.containsKey(value.label)) {
+				throw new ProgramException("label "+value.label+" was defined several times in "+EEvaluationMode.class.getCanonicalName());
+			}
+		
+			label2value.put(value.label, value);
+		}
+		
+	}
+}
@@ -0,0 +1,57 @@
+package genlab.algog.algos.meta;
+
+import genlab.core.commons.ProgramException;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Policies for choosing the individuals removed from a full archive of fitness
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public enum EFitnessArchiveEviction {
+	
+	LEAST_RECENTLY_USED ("least recently used first"),
+	OLDEST ("oldest first")
+	;
+	
+	public final String label;
+	
+	private static Map<String, EFitnessArchiveEviction> label2value = new HashMap<String, EFitnessArchiveEviction>();
+
+	private EFitnessArchiveEviction (String label) {
+		this.label = label;
+	}
+
+	public static EFitnessArchiveEviction parseFromLabel(String label) {
+		return label2value.get(label);
+	}
+	
+	public static List<String> getLabelsAsList() {
+		
+		List<String> res = new LinkedList<String>();
+		for (EFitnessArchiveEviction e: values()) {
+			res.add(e.label);
+		}
+		return res;
+	}
+	
+	static {
+		
+		// cache the map from label to enum value
+		for (EFitnessArchiveEviction value : EFitnessArchiveEviction.values()) {
+			
+			// refuse double values
+			if (label2value.containsKey(value.label)) {
+				throw new ProgramException("label "+value.label+" was defined several times in "+EFitnessArchiveEviction.class.getCanonicalName());
+			}
+		
+			label2value.put(value.label, value);
+		}
+		
+	}
+}
@@ -0,0 +1,59 @@
+package genlab.algog.algos.meta;
+
+import genlab.core.commons.ProgramException;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * To which islands the migrants of an island are sent: to the next one (ring), to all the
+ * other ones (fully connected), or to another one chosen at random at each migration
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public enum EMigrationTopology {
+	
+	RING ("ring"),
+	FULLY_CONNECTED ("fully connected"),
+	RANDOM ("random neighbour")
+	;
+	
+	public final String label;
+	
+	private static Map<String, EMigrationTopology> label2value = new HashMap<String, EMigrationTopology>();
+
+	private EMigrationTopology (String label) {
+		this.label = label;
+	}
+
+	public static EMigrationTopology parseFromLabel(String label) {
+		return label2value.get(label);
+	}
+	
+	public static List<String> getLabelsAsList() {
+		
+		List<String> res = new LinkedList<String>();
+		for (EMigrationTopology e: values()) {
+			res.add(e.label);
+		}
+		return res;
+	}
+	
+	static {
+		
+		// cache the map from label to enum value
+		for (EMigrationTopology value : EMigrationTopology.values()) {
+			
+			// refuse double values
+			if (label2value.containsKey(value.label)) {
+				throw new ProgramException("label "+value.label+" was defined several times in "+EMigrationTopology.class.getCanonicalName());
+			}
+		
+			label2value.put(value.label, value);
+		}
+		
+	}
+}
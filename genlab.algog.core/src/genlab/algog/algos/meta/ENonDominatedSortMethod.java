@@ -0,0 +1,58 @@
+package genlab.algog.algos.meta;
+
+import genlab.core.commons.ProgramException;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Methods available for sorting individuals into Pareto fronts
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public enum ENonDominatedSortMethod {
+	
+	EFFICIENT ("efficient non-dominated sort (ENS-BS)"),
+	FAST ("fast non-dominated sort (Deb)"),
+	FAST_PARALLEL ("fast non-dominated sort, parallel")
+	;
+	
+	public final String label;
+	
+	private static Map<String, ENonDominatedSortMethod> label2value = new HashMap<String, ENonDominatedSortMethod>();
+
+	private ENonDominatedSortMethod (String label) {
+		this.label = label;
+	}
+
+	public static ENonDominatedSortMethod parseFromLabel(String label) {
+		return label2value.get(label);
+	}
+	
+	public static List<String> getLabelsAsList() {
+		
+		List<String> res = new LinkedList<String>();
+		for (ENonDominatedSortMethod e: values()) {
+			res.add(e.label);
+		}
+		return res;
+	}
+	
+	static {
+		
+		// cache the map from label to enum value
+		for (ENonDominatedSortMethod value : ENonDominatedSortMethod.values()) {
+			
+			// refuse double values
+			if (label2value.containsKey(value.label)) {
+				throw new ProgramException("label "+value.label+" was defined several times in "+ENonDominatedSortMethod.class.getCanonicalName());
+			}
+		
+			label2value.put(value.label, value);
+		}
+		
+	}
+}
@@ -27,6 +27,14 @@ public class NSGA2GeneticExplorationAlgo extends AbstractGeneticExplorationAlgo
 			ECrossoverMethod.getLabelsAsList()
 			);
 	
+	public static final ListParameter PARAM_NON_DOMINATED_SORT = new ListParameter(
+			"param_non_dominated_sort", 
+			"non-dominated sort", 
+			"method for sorting the individuals into Pareto fronts (same fronts, different speeds)",
+			0,
+			ENonDominatedSortMethod.getLabelsAsList()
+			);
+	
 	static {
 		OUTPUT_TABLE_PARETO.setIsContinuousOutput(true);
 	}
@@ -42,6 +50,7 @@ public class NSGA2GeneticExplorationAlgo extends AbstractGeneticExplorationAlgo
 		outputs.add(OUTPUT_TABLE_PARETO);
 		
 		registerParameter(PARAM_CROSSOVER);
+		registerParameter(PARAM_NON_DOMINATED_SORT);
 		
 	}
 
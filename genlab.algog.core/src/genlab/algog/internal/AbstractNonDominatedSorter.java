@@ -0,0 +1,94 @@
+package genlab.algog.internal;
+
+import genlab.core.commons.WrongParametersException;
+
+/**
+ * Manages the unfeasible solutions, so implementations only sort the feasible ones.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public abstract class AbstractNonDominatedSorter implements INonDominatedSorter {
+
+	/**
+	 * Returns true if the solution a dominates b: for all objectives fa <= fb, and fa < fb for one of them
+	 * @param fitness
+	 * @param a offset of the objectives of a
+	 * @param b offset of the objectives of b
+	 * @param objectivesCount
+	 * @return
+	 */
+	public static final boolean dominates(double[] fitness, int a, int b, int objectivesCount) {
+
+		boolean d = false;
+
+		for (int m=0; m<objectivesCount; m++) {
+			if (fitness[a+m] > fitness[b+m]) {
+				return false;
+			} else if (fitness[b+m] > fitness[a+m]) {
+				d = true;
+			}
+		}
+
+		return d;
+	}
+
+	@Override
+	public int[] sort(double[] fitness, boolean[] feasible, int count, int objectivesCount) {
+
+		if (fitness.length < count*objectivesCount || feasible.length < count)
+			throw new WrongParametersException("not enough fitness for "+count+" solutions and "+objectivesCount+" objectives");
+
+		final int[] ranks = new int[count];
+
+		// keep only the feasible solutions
+		int feasibleCount = 0;
+		for (int i=0; i<count; i++) {
+			if (feasible[i])
+				feasibleCount++;
+		}
+		final int[] feasibleIdx = new int[feasibleCount];
+		final double[] feasibleFitness;
+		if (feasibleCount == count) {
+			for (int i=0; i<count; i++)
+				feasibleIdx[i] = i;
+			feasibleFitness = fitness;
+		} else {
+			feasibleFitness = new double[feasibleCount*objectivesCount];
+			int j = 0;
+			for (int i=0; i<count; i++) {
+				if (!feasible[i])
+					continue;
+				feasibleIdx[j] = i;
+				System.arraycopy(fitness, i*objectivesCount, feasibleFitness, j*objectivesCount, objectivesCount);
+				j++;
+			}
+		}
+
+		final int[] feasibleRanks = new int[feasibleCount];
+		final int frontsCount = feasibleCount == 0 ? 0 : sortFeasible(feasibleFitness, feasibleCount, objectivesCount, feasibleRanks);
+
+		for (int j=0; j<feasibleCount; j++)
+			ranks[feasibleIdx[j]] = feasibleRanks[j];
+		if (feasibleCount < count) {
+			// all the unfeasible solutions are dominated by all the feasible ones
+			for (int i=0; i<count; i++) {
+				if (!feasible[i])
+					ranks[i] = frontsCount+1;
+			}
+		}
+
+		return ranks;
+	}
+
+	/**
+	 * Stores the front of each solution (starting at 1) and returns the count of fronts.
+	 * @param fitness
+	 * @param count
+	 * @param objectivesCount
+	 * @param ranks
+	 * @return
+	 */
+	protected abstract int sortFeasible(double[] fitness, int count, int objectivesCount, int[] ranks);
+
+}
@@ -18,11 +18,13 @@ public class AnIndividual implements Comparable<AnIndividual> {
 	/** Pareto front ranking */
 	public int rank;
 	/** Crowded distance */
-	public Double crowdDistance;
+	public double crowdDistance;
 	
 	public Double averageRank;
 	public int birthday;
-	public Double centerDistance;
+	public double centerDistance;
+	/** Index in the last {@link PopulationArrays} built with this individual, or -1 */
+	public int populationIndex;
 	
 	public static int lastId = 1;
 	public static final Double INF = StrictMath.pow(10, 14);
@@ -46,6 +48,7 @@ public class AnIndividual implements Comparable<AnIndividual> {
 		this.birthday = 0;
 		this.averageRank = 0.5;
 		this.centerDistance = 0d;
+		this.populationIndex = -1;
 	}
 	
 	public AnIndividual(AnIndividual ind) {
@@ -55,7 +58,7 @@ public class AnIndividual implements Comparable<AnIndividual> {
 	@Override
 	public int compareTo(AnIndividual arg0) {
 		
-		return crowdDistance.compareTo(arg0.crowdDistance);
+		return Double.compare(crowdDistance, arg0.crowdDistance);
 	}
 	
 	/**
@@ -0,0 +1,289 @@
+package genlab.algog.internal;
+
+import genlab.core.commons.WrongParametersException;
+
+import java.util.Arrays;
+
+/**
+ * Crowding distances of NSGA-II computed on primitive arrays. The value of the individual i
+ * for the dimension d (an objective, or a gene) is values[d][i]; the individuals considered
+ * are passed as an array of their indexes (members).
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public final class CrowdingDistance {
+
+	public static final double INF = AnIndividual.INF;
+	public static final double EPS = AnIndividual.EPS;
+
+	private CrowdingDistance() {
+	}
+
+	/**
+	 * Stable merge sort of indexes by increasing key (in the order of Double.compare),
+	 * with the insertion sort for small ranges
+	 */
+	private static void mergeSort(double[] key, int[] src, int[] dest, int low, int high) {
+
+		final int length = high - low;
+		if (length < 8) {
+			for (int i=low; i<high; i++) {
+				for (int j=i; j>low && Double.compare(key[dest[j-1]], key[dest[j]]) > 0; j--) {
+					final int swap = dest[j];
+					dest[j] = dest[j-1];
+					dest[j-1] = swap;
+				}
+			}
+			return;
+		}
+
+		final int middle = (low + high) >>> 1;
+		mergeSort(key, dest, src, low, middle);
+		mergeSort(key, dest, src, middle, high);
+
+		// already sorted
+		if (Double.compare(key[src[middle-1]], key[src[middle]]) <= 0) {
+			System.arraycopy(src, low, dest, low, length);
+			return;
+		}
+
+		for (int i=low, p=low, q=middle; i<high; i++) {
+			if (q >= high || (p < middle && Double.compare(key[src[p]], key[src[q]]) <= 0))
+				dest[i] = src[p++];
+			else
+				dest[i] = src[q++];
+		}
+	}
+
+	/**
+	 * Sorts the first size indexes by increasing key; equal keys keep their order.
+	 * @param indexes
+	 * @param size
+	 * @param key
+	 * @param scratch an array of at least size elements, overwritten
+	 */
+	public static void sortByKey(int[] indexes, int size, double[] key, int[] scratch) {
+		System.arraycopy(indexes, 0, scratch, 0, size);
+		mergeSort(key, scratch, indexes, 0, size);
+	}
+
+	/**
+	 * Computes the crowding distance of the members: the extreme individuals of each dimension
+	 * get INF, the other ones the sum of the normalized distances between their two neighbours.
+	 * The dimensions in which the range is NaN (individuals not evaluated) are ignored.
+	 * @param values
+	 * @param members
+	 * @param size count of members
+	 * @param crowding receives the distance of each member
+	 */
+	public static void calculate(double[][] values, int[] members, int size, double[] crowding) {
+
+		for (int k=0; k<size; k++)
+			crowding[members[k]] = 0d;
+		if (size == 0)
+			return;
+
+		// each dimension is sorted from the order of the previous one, so ties keep the same ends
+		final int[] order = Arrays.copyOf(members, size);
+		final int[] scratch = new int[size];
+
+		for (int d=0; d<values.length; d++) {
+			final double[] v = values[d];
+			sortByKey(order, size, v, scratch);
+
+			final double diff = v[order[size-1]] - v[order[0]];
+			if (Double.isNaN(diff))
+				continue;
+
+			crowding[order[0]] = INF;
+			crowding[order[size-1]] = INF;
+			for (int i=1; i<size-1; i++)
+				crowding[order[i]] += (v[order[i+1]] - v[order[i-1]]) / diff;
+		}
+	}
+
+	/**
+	 * Removes the members one by one until howMany remain: each time, among the members whose
+	 * crowding distance is the lowest (within EPS), the one with the highest center distance (the sum
+	 * of the normalized distances to the farthest extreme of each dimension) is removed.
+	 *
+	 * The members are kept in a linked list sorted along each dimension, so removing a member only
+	 * changes the distances of its neighbours, unless it was an extreme of a dimension (the ranges
+	 * then change, and all the distances are computed again).
+	 *
+	 * @param values
+	 * @param members
+	 * @param size count of members
+	 * @param howMany count of members to keep
+	 * @param crowding receives the crowding distance of the members kept
+	 * @param center receives the center distance of the members kept
+	 * @return the members kept, in their order in members
+	 */
+	public static int[] truncate(double[][] values, int[] members, int size, int howMany, double[] crowding, double[] center) {
+
+		if (howMany < 0)
+			throw new WrongParametersException("can not keep "+howMany+" individuals");
+		if (size <= howMany)
+			return Arrays.copyOf(members, size);
+
+		final int dims = values.length;
+
+		// from there the member k is members[k]
+		final double[][] local = new double[dims][size];
+		for (int d=0; d<dims; d++) {
+			final double[] v = values[d];
+			final double[] l = local[d];
+			for (int k=0; k<size; k++)
+				l[k] = v[members[k]];
+		}
+
+		final int[][] prev = new int[dims][size];
+		final int[][] next = new int[dims][size];
+		final int[] first = new int[dims];
+		final int[] last = new int[dims];
+		{
+			final int[] order = new int[size];
+			final int[] scratch = new int[size];
+			for (int k=0; k<size; k++)
+				order[k] = k;
+			for (int d=0; d<dims; d++) {
+				sortByKey(order, size, local[d], scratch);
+				first[d] = order[0];
+				last[d] = order[size-1];
+				for (int i=0; i<size; i++) {
+					prev[d][order[i]] = i > 0 ? order[i-1] : -1;
+					next[d][order[i]] = i < size-1 ? order[i+1] : -1;
+				}
+			}
+		}
+
+		final double[] localCrowding = new double[size];
+		final double[] localCenter = new double[size];
+		final boolean[] removed = new boolean[size];
+		for (int k=0; k<size; k++)
+			computeDistances(local, prev, next, first, last, k, localCrowding, localCenter);
+
+		final int[] changed = new int[2*dims];
+		int remaining = size;
+
+		while (remaining > howMany) {
+
+			final int r = selectRemoved(localCrowding, localCenter, removed);
+			removed[r] = true;
+			remaining--;
+
+			// unlink r
+			boolean extremeRemoved = false;
+			int changedCount = 0;
+			for (int d=0; d<dims; d++) {
+				final int p = prev[d][r];
+				final int n = next[d][r];
+				if (p >= 0) {
+					next[d][p] = n;
+					changed[changedCount++] = p;
+				} else {
+					first[d] = n;
+					extremeRemoved = true;
+				}
+				if (n >= 0) {
+					prev[d][n] = p;
+					changed[changedCount++] = n;
+				} else {
+					last[d] = p;
+					extremeRemoved = true;
+				}
+			}
+
+			if (remaining == 0)
+				break;
+			if (extremeRemoved) {
+				for (int k=0; k<size; k++) {
+					if (!removed[k])
+						computeDistances(local, prev, next, first, last, k, localCrowding, localCenter);
+				}
+			} else {
+				for (int i=0; i<changedCount; i++)
+					computeDistances(local, prev, next, first, last, changed[i], localCrowding, localCenter);
+			}
+		}
+
+		final int[] kept = new int[remaining];
+		for (int k=0, j=0; k<size; k++) {
+			if (removed[k])
+				continue;
+			kept[j++] = members[k];
+			crowding[members[k]] = localCrowding[k];
+			center[members[k]] = localCenter[k];
+		}
+		return kept;
+	}
+
+	/**
+	 * Computes the crowding and center distances of the member k from its neighbours and the
+	 * extremes of each dimension
+	 */
+	private static void computeDistances(double[][] local, int[][] prev, int[][] next, int[] first, int[] last,
+			int k, double[] crowding, double[] center) {
+
+		double c = 0d;
+		double e = 0d;
+
+		for (int d=0; d<local.length; d++) {
+			final double[] v = local[d];
+			final double a = v[first[d]];
+			final double z = v[last[d]];
+			final double delta = z - a;
+
+			if (k == first[d] || k == last[d]) {
+				c = INF;
+				if (k == first[d])
+					e += Math.abs(a - z) / delta;
+				if (k == last[d])
+					e += Math.abs(a - z) / delta;
+			} else {
+				c += Math.abs(v[prev[d][k]] - v[next[d][k]]) / delta;
+				// distance to the farthest extreme
+				final double o = v[k];
+				if (Math.abs(o - a) > Math.abs(z - o))
+					e += Math.abs(o - a) / delta;
+				else
+					e += Math.abs(z - o) / delta;
+			}
+		}
+
+		crowding[k] = c;
+		center[k] = e;
+	}
+
+	/**
+	 * Among the members with the lowest crowding distance (within EPS), returns the one with the
+	 * highest center distance; ties are broken by the lowest crowding distance, then the first member.
+	 */
+	private static int selectRemoved(double[] crowding, double[] center, boolean[] removed) {
+
+		int lowest = -1;
+		for (int k=0; k<crowding.length; k++) {
+			if (!removed[k] && (lowest < 0 || Double.compare(crowding[k], crowding[lowest]) < 0))
+				lowest = k;
+		}
+		final double n1 = crowding[lowest];
+
+		int selected = -1;
+		for (int k=0; k<crowding.length; k++) {
+			if (removed[k] || !(crowding[k] - n1 < EPS))
+				continue;
+			if (selected < 0) {
+				selected = k;
+				continue;
+			}
+			final int cmp = Double.compare(center[k], center[selected]);
+			if (cmp > 0 || (cmp == 0 && Double.compare(crowding[k], crowding[selected]) < 0))
+				selected = k;
+		}
+
+		// only NaN distances
+		return selected < 0 ? lowest : selected;
+	}
+
+}
@@ -0,0 +1,142 @@
+package genlab.algog.internal;
+
+import java.util.Arrays;
+
+/**
+ * Efficient non dominated sort with binary search (ENS-BS, Zhang et al. 2015).
+ * The solutions are sorted in lexicographic order of their objectives, so a solution can only be
+ * dominated by the ones before it; each solution is then added to the first front in which no
+ * solution dominates it, found by binary search among the fronts (if a front contains a solution
+ * dominating it, all the previous fronts contain one too).
+ *
+ * Most solutions are compared with a few solutions of log(F) fronts, instead of all the N-1 other
+ * ones; the worst case remains in O(M.N^2).
+ *
+ * Fitness containing NaN can not be ordered consistently with the domination, so they are
+ * sorted by {@link FastNonDominatedSorter}.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class EfficientNonDominatedSorter extends AbstractNonDominatedSorter {
+
+	private final FastNonDominatedSorter fallback = new FastNonDominatedSorter();
+
+	public EfficientNonDominatedSorter() {
+	}
+
+	/**
+	 * Lexicographic comparison; -0.0 and 0.0 are equal, like for the domination.
+	 */
+	private static final int compare(double[] fitness, int a, int b, int objectivesCount) {
+		for (int m=0; m<objectivesCount; m++) {
+			final double fa = fitness[a+m];
+			final double fb = fitness[b+m];
+			if (fa < fb)
+				return -1;
+			if (fa > fb)
+				return 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Sorts the indexes of solutions in lexicographic order of their fitness (merge sort,
+	 * with the insertion sort for small ranges)
+	 */
+	private static void sortIndexes(double[] fitness, int objectivesCount, int[] src, int[] dest, int low, int high) {
+
+		final int length = high - low;
+		if (length < 8) {
+			for (int i=low; i<high; i++) {
+				for (int j=i; j>low && compare(fitness, dest[j-1]*objectivesCount, dest[j]*objectivesCount, objectivesCount) > 0; j--) {
+					final int swap = dest[j];
+					dest[j] = dest[j-1];
+					dest[j-1] = swap;
+				}
+			}
+			return;
+		}
+
+		final int middle = (low + high) >>> 1;
+		sortIndexes(fitness, objectivesCount, dest, src, low, middle);
+		sortIndexes(fitness, objectivesCount, dest, src, middle, high);
+
+		// already sorted
+		if (compare(fitness, src[middle-1]*objectivesCount, src[middle]*objectivesCount, objectivesCount) <= 0) {
+			System.arraycopy(src, low, dest, low, length);
+			return;
+		}
+
+		for (int i=low, p=low, q=middle; i<high; i++) {
+			if (q >= high || (p < middle && compare(fitness, src[p]*objectivesCount, src[q]*objectivesCount, objectivesCount) <= 0))
+				dest[i] = src[p++];
+			else
+				dest[i] = src[q++];
+		}
+	}
+
+	@Override
+	protected int sortFeasible(double[] fitness, int count, int objectivesCount, int[] ranks) {
+
+		for (int i=0; i<count*objectivesCount; i++) {
+			if (Double.isNaN(fitness[i]))
+				return fallback.sortFeasible(fitness, count, objectivesCount, ranks);
+		}
+
+		final int[] order = new int[count];
+		for (int i=0; i<count; i++)
+			order[i] = i;
+		sortIndexes(fitness, objectivesCount, order.clone(), order, 0, count);
+
+		// the solutions of each front, in the order they were added
+		int[][] fronts = new int[8][];
+		int[] frontsSizes = new int[8];
+		int frontsCount = 0;
+
+		for (int i=0; i<count; i++) {
+
+			final int s = order[i];
+			final int sOffset = s*objectivesCount;
+
+			// the first front in which no solution dominates s
+			int low = 0;
+			int high = frontsCount;
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (isDominatedByFront(fitness, objectivesCount, fronts[middle], frontsSizes[middle], sOffset))
+					low = middle+1;
+				else
+					high = middle;
+			}
+
+			if (low == frontsCount) {
+				if (frontsCount == fronts.length) {
+					fronts = Arrays.copyOf(fronts, frontsCount*2);
+					frontsSizes = Arrays.copyOf(frontsSizes, frontsCount*2);
+				}
+				fronts[frontsCount] = new int[8];
+				frontsCount++;
+			}
+			if (frontsSizes[low] == fronts[low].length)
+				fronts[low] = Arrays.copyOf(fronts[low], frontsSizes[low]*2);
+			fronts[low][frontsSizes[low]++] = s;
+			ranks[s] = low+1;
+		}
+
+		return frontsCount;
+	}
+
+	/**
+	 * Returns true if one solution of the front dominates the solution s. The last solutions
+	 * added are the closest to s, so they are compared first.
+	 */
+	private static boolean isDominatedByFront(double[] fitness, int objectivesCount, int[] front, int size, int sOffset) {
+		for (int i=size-1; i>=0; i--) {
+			if (dominates(fitness, front[i]*objectivesCount, sOffset, objectivesCount))
+				return true;
+		}
+		return false;
+	}
+
+}
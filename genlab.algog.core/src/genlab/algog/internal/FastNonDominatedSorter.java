@@ -0,0 +1,178 @@
+package genlab.algog.internal;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The fast non dominated sort of Deb et al. (NSGA-II), in O(M.N^2): each solution is compared
+ * with all the other ones to count how many dominate it, then the fronts are peeled one by one.
+ *
+ * When a fork/join pool is provided, the comparisons of the solutions are made in parallel
+ * (each task compares a range of solutions with all the other ones).
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class FastNonDominatedSorter extends AbstractNonDominatedSorter {
+
+	/**
+	 * Below this count of solutions, comparing in parallel costs more than it saves
+	 */
+	public static final int PARALLEL_THRESHOLD = 256;
+
+	/**
+	 * Count of solutions compared by one task
+	 */
+	private static final int ROWS_PER_TASK = 32;
+
+	private static ForkJoinPool sharedPool = null;
+
+	/**
+	 * Returns a pool shared by the sorters, with one thread per processor
+	 * @return
+	 */
+	public static synchronized ForkJoinPool getSharedPool() {
+		if (sharedPool == null)
+			sharedPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		return sharedPool;
+	}
+
+	private final ForkJoinPool pool;
+
+	/**
+	 * @param pool the pool for comparing in parallel, or null to compare in the current thread
+	 */
+	public FastNonDominatedSorter(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public FastNonDominatedSorter() {
+		this(null);
+	}
+
+	/**
+	 * Compares the solutions [from,to[ with all the other ones
+	 */
+	private static final class DominanceTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final double[] fitness;
+		private final int count;
+		private final int objectivesCount;
+		private final int from;
+		private final int to;
+		private final int[] dominationCount;
+		private final int[][] dominated;
+		private final int[] dominatedCount;
+
+		DominanceTask(double[] fitness, int count, int objectivesCount, int from, int to,
+				int[] dominationCount, int[][] dominated, int[] dominatedCount) {
+			this.fitness = fitness;
+			this.count = count;
+			this.objectivesCount = objectivesCount;
+			this.from = from;
+			this.to = to;
+			this.dominationCount = dominationCount;
+			this.dominated = dominated;
+			this.dominatedCount = dominatedCount;
+		}
+
+		@Override
+		protected void compute() {
+
+			if (to - from > ROWS_PER_TASK) {
+				final int middle = (from + to) >>> 1;
+				invokeAll(
+						new DominanceTask(fitness, count, objectivesCount, from, middle, dominationCount, dominated, dominatedCount),
+						new DominanceTask(fitness, count, objectivesCount, middle, to, dominationCount, dominated, dominatedCount)
+						);
+				return;
+			}
+			for (int p=from; p<to; p++)
+				compare(fitness, count, objectivesCount, p, dominationCount, dominated, dominatedCount);
+		}
+	}
+
+	/**
+	 * Compares p with all the solutions; only writes the data of p, so several solutions
+	 * can be compared in parallel.
+	 */
+	private static void compare(double[] fitness, int count, int objectivesCount, int p,
+			int[] dominationCount, int[][] dominated, int[] dominatedCount) {
+
+		final int pOffset = p*objectivesCount;
+		int[] pDominated = new int[8];
+		int pDominatedCount = 0;
+		int pDominationCount = 0;
+
+		for (int q=0; q<count; q++) {
+			final int qOffset = q*objectivesCount;
+			if (dominates(fitness, pOffset, qOffset, objectivesCount)) {
+				if (pDominatedCount == pDominated.length)
+					pDominated = Arrays.copyOf(pDominated, pDominatedCount*2);
+				pDominated[pDominatedCount++] = q;
+			} else if (dominates(fitness, qOffset, pOffset, objectivesCount)) {
+				pDominationCount++;
+			}
+		}
+
+		dominationCount[p] = pDominationCount;
+		dominated[p] = pDominated;
+		dominatedCount[p] = pDominatedCount;
+	}
+
+	@Override
+	protected int sortFeasible(double[] fitness, int count, int objectivesCount, int[] ranks) {
+
+		final int[] dominationCount = new int[count];
+		final int[][] dominated = new int[count][];
+		final int[] dominatedCount = new int[count];
+
+		if (pool != null && count >= PARALLEL_THRESHOLD) {
+			pool.invoke(new DominanceTask(fitness, count, objectivesCount, 0, count, dominationCount, dominated, dominatedCount));
+		} else {
+			for (int p=0; p<count; p++)
+				compare(fitness, count, objectivesCount, p, dominationCount, dominated, dominatedCount);
+		}
+
+		// the first front
+		int[] current = new int[count];
+		int currentSize = 0;
+		for (int p=0; p<count; p++) {
+			if (dominationCount[p] == 0) {
+				current[currentSize++] = p;
+				ranks[p] = 1;
+			}
+		}
+
+		// then the next ones
+		int[] next = new int[count];
+		int front = 1;
+		while (currentSize > 0) {
+			int nextSize = 0;
+			for (int i=0; i<currentSize; i++) {
+				final int p = current[i];
+				final int[] pDominated = dominated[p];
+				for (int j=0; j<dominatedCount[p]; j++) {
+					final int q = pDominated[j];
+					if (--dominationCount[q] == 0) {
+						next[nextSize++] = q;
+						ranks[q] = front+1;
+					}
+				}
+			}
+			if (nextSize == 0)
+				break;
+			front++;
+			final int[] swap = current;
+			current = next;
+			next = swap;
+			currentSize = nextSize;
+		}
+
+		return front;
+	}
+
+}
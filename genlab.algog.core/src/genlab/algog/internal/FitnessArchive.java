@@ -0,0 +1,257 @@
+package genlab.algog.internal;
+
+import genlab.core.commons.WrongParametersException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the fitness, targets and values computed for the genes of individuals, so an individual
+ * having the same genome and genes as one evaluated before (for instance, an offspring which
+ * was neither crossed nor mutated) takes its results instead of being evaluated again.
+ *
+ * The archive keeps at most capacity entries; when full, either the least recently used or the
+ * oldest entry is evicted.
+ *
+ * When restricted to deterministic evaluations, only the results of evaluations known as deterministic
+ * are stored, and duplicates are only detected for the genomes whose evaluation is known as deterministic.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class FitnessArchive {
+
+	/**
+	 * Identifies the individuals by their genome and the values of their genes
+	 */
+	private static final class Key {
+
+		private final AGenome genome;
+		private final Object[] genes;
+		private final int hash;
+
+		private Key(AGenome genome, Object[] genes) {
+			this.genome = genome;
+			this.genes = genes;
+			this.hash = 31*System.identityHashCode(genome) + Arrays.hashCode(genes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key))
+				return false;
+			final Key other = (Key)obj;
+			return hash == other.hash && genome == other.genome && Arrays.equals(genes, other.genes);
+		}
+	}
+
+	private static final class Entry {
+
+		private final Double[] fitness;
+		private final Object[] targets;
+		private final Object[] values;
+
+		private Entry(Double[] fitness, Object[] targets, Object[] values) {
+			this.fitness = fitness;
+			this.targets = targets;
+			this.values = values;
+		}
+	}
+
+	private final int capacity;
+	private final boolean deterministicOnly;
+
+	private final LinkedHashMap<Key,Entry> entries;
+	private final Map<AGenome,Boolean> genome2deterministic = new HashMap<AGenome, Boolean>();
+
+	/*
+	 * metrics
+	 */
+	private long countHits = 0;
+	private long countMisses = 0;
+	private long countDuplicates = 0;
+	private long countStored = 0;
+	private long countEvicted = 0;
+
+	/**
+	 * @param capacity max count of individuals kept; 0 disables the archive
+	 * @param leastRecentlyUsed if true, evicts the least recently used individuals first, else the oldest ones
+	 * @param deterministicOnly if true, only reuses the results of deterministic evaluations
+	 */
+	public FitnessArchive(final int capacity, boolean leastRecentlyUsed, boolean deterministicOnly) {
+
+		if (capacity < 0)
+			throw new WrongParametersException("the capacity of the archive can not be negative: "+capacity);
+
+		this.capacity = capacity;
+		this.deterministicOnly = deterministicOnly;
+		this.entries = new LinkedHashMap<Key, Entry>(Math.min(capacity, 1024), 0.75f, leastRecentlyUsed) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key,Entry> eldest) {
+				if (size() <= capacity)
+					return false;
+				countEvicted++;
+				return true;
+			}
+		};
+	}
+
+	public boolean isEnabled() {
+		return capacity > 0;
+	}
+
+	public boolean isDeterministicOnly() {
+		return deterministicOnly;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+
+	/**
+	 * Records whether the evaluation of this genome was deterministic
+	 * @param genome
+	 * @param deterministic
+	 */
+	public synchronized void setDeterministic(AGenome genome, boolean deterministic) {
+
+		final Boolean previous = genome2deterministic.get(genome);
+		// one non deterministic evaluation is enough
+		if (previous == null || previous)
+			genome2deterministic.put(genome, deterministic);
+	}
+
+	/**
+	 * Returns true if the individuals of this genome having the same genes can share their results
+	 * @param genome
+	 * @return
+	 */
+	public synchronized boolean canReuse(AGenome genome) {
+
+		if (!isEnabled())
+			return false;
+		if (!deterministicOnly)
+			return true;
+		return Boolean.TRUE.equals(genome2deterministic.get(genome));
+	}
+
+	/**
+	 * If the results for the genes of this individual are known, copies them into the individual.
+	 * @param individual
+	 * @return true if the results were restored
+	 */
+	public synchronized boolean restore(AnIndividual individual) {
+
+		if (!canReuse(individual.genome))
+			return false;
+
+		final Entry e = entries.get(new Key(individual.genome, individual.genes));
+		if (e == null) {
+			countMisses++;
+			return false;
+		}
+
+		countHits++;
+		copy(e.fitness, e.targets, e.values, individual);
+		return true;
+	}
+
+	/**
+	 * Stores the results of an individual
+	 * @param individual
+	 * @param deterministic true if the evaluation of the individual was deterministic
+	 */
+	public synchronized void store(AnIndividual individual, boolean deterministic) {
+
+		if (!isEnabled() || individual.fitness == null)
+			return;
+		if (deterministicOnly && !deterministic)
+			return;
+
+		entries.put(
+				new Key(individual.genome, individual.genes.clone()),
+				new Entry(individual.fitness.clone(), individual.targets.clone(), individual.values.clone())
+				);
+		countStored++;
+	}
+
+	/**
+	 * Copies the results of an individual to another one having the same genes (in the same generation)
+	 * @param from
+	 * @param to
+	 */
+	public synchronized void copyDuplicate(AnIndividual from, AnIndividual to) {
+
+		countDuplicates++;
+		copy(from.fitness, from.targets, from.values, to);
+	}
+
+	private static void copy(Double[] fitness, Object[] targets, Object[] values, AnIndividual to) {
+		to.fitness = fitness == null ? null : fitness.clone();
+		to.targets = targets == null ? null : targets.clone();
+		to.values = values == null ? null : values.clone();
+	}
+
+	/**
+	 * Returns an object which identifies an individual by its genome and genes
+	 * (for detecting duplicates in a generation)
+	 * @param individual
+	 * @return
+	 */
+	public static Object keyFor(AnIndividual individual) {
+		return new Key(individual.genome, individual.genes);
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized long getCountHits() {
+		return countHits;
+	}
+
+	public synchronized long getCountMisses() {
+		return countMisses;
+	}
+
+	public synchronized long getCountDuplicates() {
+		return countDuplicates;
+	}
+
+	public synchronized long getCountEvicted() {
+		return countEvicted;
+	}
+
+	/**
+	 * Returns the share of lookups which found results, or 0 if there was no lookup
+	 * @return
+	 */
+	public synchronized double getHitRate() {
+		final long lookups = countHits + countMisses;
+		return lookups == 0 ? 0d : (double)countHits/lookups;
+	}
+
+	public synchronized String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+		sb
+			.append(entries.size()).append("/").append(capacity).append(" individuals archived, ")
+			.append(countHits).append(" reused (")
+			.append(String.format("%.1f", getHitRate()*100)).append("% of lookups), ")
+			.append(countDuplicates).append(" duplicates in their generation, ")
+			.append(countStored).append(" stored, ")
+			.append(countEvicted).append(" evicted");
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,26 @@
+package genlab.algog.internal;
+
+/**
+ * Sorts solutions into Pareto fronts. The fitness of the solutions are passed as primitive
+ * arrays: objectives are minimized, and a solution dominates another one if it is not
+ * worse for any objective and better for one.
+ *
+ * Feasible solutions always dominate unfeasible ones; unfeasible solutions are all in the
+ * same front, after the fronts of the feasible ones.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public interface INonDominatedSorter {
+
+	/**
+	 * Returns the front of each solution, starting at 1 for the non dominated ones.
+	 * @param fitness the objectives of the solution i are stored from fitness[i*objectivesCount]
+	 * @param feasible true for each feasible solution (the fitness of other ones is ignored)
+	 * @param count count of solutions
+	 * @param objectivesCount count of objectives
+	 * @return
+	 */
+	public int[] sort(double[] fitness, boolean[] feasible, int count, int objectivesCount);
+
+}
@@ -0,0 +1,188 @@
+package genlab.algog.internal;
+
+import genlab.core.commons.ProgramException;
+
+import java.util.Collection;
+
+/**
+ * The data used by the selection of NSGA-II for a population, stored in primitive arrays instead
+ * of the boxed fields of each {@link AnIndividual}: the individual i is individuals[i], its fitness
+ * for the objective m is fitness[m][i], its rank rank[i], and so on. Each individual knows its index
+ * from {@link AnIndividual#populationIndex}.
+ *
+ * The rank and distances are copied back to the individuals by {@link #writeBack()}.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class PopulationArrays {
+
+	public final AnIndividual[] individuals;
+	public final int count;
+	public final int objectivesCount;
+
+	/** fitness for each objective, then each individual; NaN when not computed */
+	public final double[][] fitness;
+	public final boolean[] feasible;
+	public final int[] rank;
+	public final double[] crowding;
+	public final double[] center;
+
+	public PopulationArrays(Collection<AnIndividual> population) {
+
+		count = population.size();
+		individuals = population.toArray(new AnIndividual[count]);
+
+		int m = 0;
+		for (AnIndividual ind : individuals) {
+			if (ind.fitness != null) {
+				m = ind.fitness.length;
+				break;
+			}
+		}
+		objectivesCount = m;
+
+		fitness = new double[objectivesCount][count];
+		feasible = new boolean[count];
+		rank = new int[count];
+		crowding = new double[count];
+		center = new double[count];
+
+		for (int i=0; i<count; i++) {
+			final AnIndividual ind = individuals[i];
+			ind.populationIndex = i;
+			feasible[i] = ind.isFeasible();
+			rank[i] = ind.rank;
+			crowding[i] = ind.crowdDistance;
+			center[i] = ind.centerDistance;
+			for (int j=0; j<objectivesCount; j++) {
+				final Double f = ind.fitness == null || j >= ind.fitness.length ? null : ind.fitness[j];
+				fitness[j][i] = f == null ? Double.NaN : f;
+			}
+		}
+	}
+
+	/**
+	 * Returns the fitness of the feasible individuals by individual (the objective m of i at
+	 * i*objectivesCount+m), as expected by the {@link INonDominatedSorter}
+	 * @return
+	 */
+	public double[] getFitnessByIndividual() {
+
+		final double[] res = new double[count*objectivesCount];
+		for (int m=0; m<objectivesCount; m++) {
+			final double[] f = fitness[m];
+			for (int i=0; i<count; i++) {
+				if (feasible[i])
+					res[i*objectivesCount+m] = f[i];
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Stores the ranks, also into the individuals
+	 * @param ranks
+	 */
+	public void setRanks(int[] ranks) {
+		System.arraycopy(ranks, 0, rank, 0, count);
+		for (int i=0; i<count; i++)
+			individuals[i].rank = ranks[i];
+	}
+
+	/**
+	 * Returns the index of each individual
+	 * @param population individuals of this population
+	 * @return
+	 */
+	public int[] indexesOf(Collection<AnIndividual> population) {
+
+		final int[] res = new int[population.size()];
+		int k = 0;
+		for (AnIndividual ind : population) {
+			final int i = ind.populationIndex;
+			if (i < 0 || i >= count || individuals[i] != ind)
+				throw new ProgramException("the individual "+ind+" is not part of this population");
+			res[k++] = i;
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the value of each gene for the members (values[g][i]); the genes have to be numbers
+	 * @param members
+	 * @param size
+	 * @return
+	 */
+	public double[][] getGenesValues(int[] members, int size) {
+
+		if (size == 0)
+			return new double[0][count];
+
+		final int genesCount = individuals[members[0]].genes.length;
+		final double[][] values = new double[genesCount][count];
+		for (int k=0; k<size; k++) {
+			final int i = members[k];
+			final Object[] genes = individuals[i].genes;
+			for (int g=0; g<genesCount; g++)
+				values[g][i] = ((Number)genes[g]).doubleValue();
+		}
+		return values;
+	}
+
+	/**
+	 * Returns true if a dominates b: for all objectives fa <= fb, and fa < fb for one of them
+	 * @param a
+	 * @param b
+	 * @return
+	 */
+	public boolean dominates(int a, int b) {
+
+		boolean d = false;
+
+		for (int m=0; m<objectivesCount; m++) {
+			final double[] f = fitness[m];
+			if (f[a] > f[b]) {
+				return false;
+			} else if (f[b] > f[a]) {
+				d = true;
+			}
+		}
+
+		return d;
+	}
+
+	/**
+	 * Computes the crowding distance of the members from their fitness
+	 * @param members
+	 * @param size
+	 */
+	public void calculateCrowdingDistance(int[] members, int size) {
+		CrowdingDistance.calculate(fitness, members, size, crowding);
+	}
+
+	/**
+	 * Keeps howMany members, based on their crowding distance for the values passed (the fitness,
+	 * or the genes)
+	 * @param values
+	 * @param members
+	 * @param howMany
+	 * @return the members kept
+	 */
+	public int[] truncateByCrowdingDistance(double[][] values, int[] members, int howMany) {
+		return CrowdingDistance.truncate(values, members, members.length, howMany, crowding, center);
+	}
+
+	/**
+	 * Copies the ranks and distances to the individuals
+	 */
+	public void writeBack() {
+		for (int i=0; i<count; i++) {
+			final AnIndividual ind = individuals[i];
+			ind.rank = rank[i];
+			ind.crowdDistance = crowding[i];
+			ind.centerDistance = center[i];
+		}
+	}
+
+}
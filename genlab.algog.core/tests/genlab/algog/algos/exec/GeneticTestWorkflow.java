@@ -0,0 +1,221 @@
+package genlab.algog.algos.exec;
+
+import static org.junit.Assert.*;
+
+import genlab.algog.algos.instance.GeneticExplorationAlgoContainerInstance;
+import genlab.algog.algos.meta.AbstractGeneticExplorationAlgo;
+import genlab.algog.algos.meta.DoubleGeneAlgo;
+import genlab.algog.algos.meta.EEvaluationMode;
+import genlab.algog.algos.meta.GenomeAlgo;
+import genlab.algog.algos.meta.GoalAlgo;
+import genlab.algog.algos.meta.NSGA2GeneticExplorationAlgo;
+import genlab.algog.internal.ADoubleGene;
+import genlab.algog.internal.AGene;
+import genlab.algog.internal.AGenome;
+import genlab.algog.internal.AnIndividual;
+import genlab.core.exec.Execution;
+import genlab.core.exec.IContainerTask;
+import genlab.core.exec.ITask;
+import genlab.core.exec.client.Runner;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.instance.GenlabWorkflowInstance;
+import genlab.core.model.instance.IAlgoContainerInstance;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IGenlabWorkflowInstance;
+import genlab.core.model.meta.basics.algos.ConstantValueDouble;
+import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+import genlab.core.parameters.Parameter;
+import genlab.core.performance.LatencyHistogram;
+import genlab.core.performance.MetricsRegistry;
+
+import java.io.File;
+import java.util.Arrays;
+
+/**
+ * A small NSGA2 exploration run without the platform: one genome of two genes x and y in [0,1],
+ * and two goals reached when x = 0.2 and y = 0.8.
+ */
+public class GeneticTestWorkflow {
+
+	public static final long TIMEOUT_MS = 60000;
+
+	public final IGenlabWorkflowInstance workflow;
+	public final IAlgoContainerInstance nsgaInstance;
+	public final GoalAlgo goalAlgo = new GoalAlgo();
+
+	protected Execution exec = null;
+	protected IAlgoExecution execution = null;
+
+	public GeneticTestWorkflow(int populationSize, int iterations) {
+
+		workflow = new GenlabWorkflowInstance(
+				"test",
+				"test",
+				new File(System.getProperty("java.io.tmpdir"), "test_algog.glw").getAbsolutePath()
+				);
+
+		final NSGA2GeneticExplorationAlgo nsgaAlgo = new NSGA2GeneticExplorationAlgo();
+		nsgaInstance = (IAlgoContainerInstance)nsgaAlgo.createInstance(workflow);
+		workflow.addAlgoInstance(nsgaInstance);
+		nsgaInstance.setValueForParameter(AbstractGeneticExplorationAlgo.PARAM_SIZE_POPULATION, populationSize);
+		nsgaInstance.setValueForParameter(AbstractGeneticExplorationAlgo.PARAM_STOP_MAXITERATIONS, iterations);
+		// every individual is evaluated, none is restored
+		nsgaInstance.setValueForParameter(AbstractGeneticExplorationAlgo.PARAM_ARCHIVE_CAPACITY, 0);
+		nsgaInstance.setValueForParameter(AbstractGeneticExplorationAlgo.PARAM_EVALUATION_SLOTS, 2);
+
+		final IAlgoInstance genome = addChild(new GenomeAlgo().createInstance(workflow));
+		genome.setName("genome");
+
+		addGeneAndGoal(genome, "x", 0.2);
+		addGeneAndGoal(genome, "y", 0.8);
+	}
+
+	protected IAlgoInstance addChild(IAlgoInstance child) {
+
+		workflow.addAlgoInstance(child);
+		child.setContainer(nsgaInstance);
+		nsgaInstance.addChildren(child);
+		return child;
+	}
+
+	protected void addGeneAndGoal(IAlgoInstance genome, String name, double target) {
+
+		final DoubleGeneAlgo geneAlgo = new DoubleGeneAlgo();
+		final IAlgoInstance gene = addChild(geneAlgo.createInstance(workflow));
+		gene.setValueForParameter(DoubleGeneAlgo.PARAM_MINIMUM, 0d);
+		gene.setValueForParameter(DoubleGeneAlgo.PARAM_MAXIMUM, 1d);
+		workflow.connect(genome, GenomeAlgo.OUTPUT_GENOME, gene, DoubleGeneAlgo.INPUT_GENOME);
+
+		final IAlgoInstance goal = addChild(goalAlgo.createInstance(workflow));
+		workflow.connect(gene, DoubleGeneAlgo.OUTPUT_VALUE, goal, GoalAlgo.INPUT_VALUE);
+		// (named once connected, else they are named after what they are connected to)
+		gene.setName(name);
+		goal.setName("g_"+name);
+
+		final ConstantValueDouble constantAlgo = new ConstantValueDouble();
+		final IAlgoInstance constant = addChild(constantAlgo.createInstance(workflow));
+		constant.setValueForParameter(constantAlgo.getConstantParameter(), target);
+		workflow.connect(constant, ConstantValueDouble.OUTPUT, goal, GoalAlgo.INPUT_TARGET);
+	}
+
+	public void setEvaluationMode(EEvaluationMode mode) {
+		nsgaInstance.setValueForParameter(AbstractGeneticExplorationAlgo.PARAM_EVALUATION_MODE, mode.ordinal());
+	}
+
+	public void setParameter(Parameter<?> parameter, Object value) {
+		nsgaInstance.setValueForParameter(parameter, value);
+	}
+
+	/**
+	 * Creates the execution of NSGA2 for this workflow, to test its steps without running it
+	 */
+	public NSGA2Exec createNSGA2Exec() {
+		return new NSGA2Exec(new Execution(), (GeneticExplorationAlgoContainerInstance)nsgaInstance);
+	}
+
+	/**
+	 * Returns a genome of two genes in [0,10]
+	 */
+	public static AGenome createGenome() {
+
+		final AGenome genome = new AGenome("genome", 1.0);
+		genome.setGenes(Arrays.<AGene<?>>asList(
+				new ADoubleGene("x", 0.1, 0d, 10d, 20d, 20d),
+				new ADoubleGene("y", 0.1, 0d, 10d, 20d, 20d)
+				));
+		return genome;
+	}
+
+	/**
+	 * Returns an individual evaluated, whose genes are its fitness
+	 */
+	public static AnIndividual individual(AGenome genome, double f1, double f2) {
+
+		final AnIndividual ind = new AnIndividual(genome, new Object[] { f1, f2 });
+		ind.fitness = new Double[] { f1, f2 };
+		ind.values = new Object[] { f1, f2 };
+		ind.targets = new Object[] { 0d, 0d };
+		return ind;
+	}
+
+	/**
+	 * Runs the exploration until it finishes
+	 * @throws InterruptedException
+	 */
+	public void run() throws InterruptedException {
+
+		final Runner runner = new Runner(4);
+		runner.start();
+		try {
+			exec = new Execution(runner);
+			exec.setExecutionForced(true);
+			execution = workflow.execute(exec);
+			runner.addTask(execution);
+
+			final long start = System.currentTimeMillis();
+			while (!execution.getProgress().getComputationState().isFinished()) {
+				if (System.currentTimeMillis() - start > TIMEOUT_MS)
+					fail("the exploration did not finish in time: "+execution.getProgress().getComputationState()+"\n"+runner.getHumanReadableState());
+				Thread.sleep(20);
+			}
+			assertEquals(ComputationState.FINISHED_OK, execution.getProgress().getComputationState());
+		} finally {
+			runner.cancel();
+		}
+	}
+
+	/**
+	 * Returns the execution of the genetic algorithm
+	 */
+	public AbstractGeneticExplorationAlgoExec getGeneticExec() {
+
+		for (ITask task: ((IContainerTask)execution).getTasks()) {
+			if (((IAlgoExecution)task).getAlgoInstance() == nsgaInstance)
+				return (AbstractGeneticExplorationAlgoExec)task;
+		}
+		fail("no execution for the genetic algorithm");
+		return null;
+	}
+
+	/**
+	 * Returns the table of all the individuals evaluated
+	 */
+	public IGenlabTable getTable() {
+		return (IGenlabTable)getGeneticExec().getResult().getResults().get(
+				nsgaInstance.getOutputInstanceForOutput(AbstractGeneticExplorationAlgo.OUTPUT_TABLE)
+				);
+	}
+
+	/**
+	 * Returns the count of individuals evaluated, that is the runs of each of the two goals. 
+	 * The runs are recorded just after they finish, so waits at most one second for the count expected.
+	 * @throws InterruptedException
+	 */
+	public long countIndividualsEvaluated(long expected) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		long count;
+		do {
+			final LatencyHistogram histogram = exec.getMetrics().getHistograms().get(MetricsRegistry.PREFIX_ALGO+goalAlgo.getId());
+			count = histogram == null ? 0 : histogram.getCount()/2;
+			if (count >= expected)
+				break;
+			Thread.sleep(10);
+		} while (System.currentTimeMillis() - start < 1000);
+		return count;
+	}
+
+	/**
+	 * Returns the count of rows of the table for each iteration
+	 */
+	public int[] countRowsByIteration(IGenlabTable table, int iterations) {
+
+		final int[] res = new int[iterations+1];
+		for (int r=0; r<table.getRowsCount(); r++) {
+			res[(Integer)table.getValue(r, "iteration")]++;
+		}
+		return res;
+	}
+
+}
@@ -0,0 +1,156 @@
+package genlab.algog.algos.exec;
+
+import static org.junit.Assert.*;
+
+import genlab.algog.algos.meta.AbstractGeneticExplorationAlgo;
+import genlab.algog.algos.meta.EMigrationTopology;
+import genlab.algog.internal.AGenome;
+import genlab.algog.internal.AnIndividual;
+import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * The island model: migration between the islands, and the results merged
+ */
+public class TestIslands {
+
+	public static final int POPULATION = 8;
+	public static final int ITERATIONS = 3;
+
+	/**
+	 * Returns the execution of NSGA2 with its islands created, as at the start of the exploration
+	 */
+	protected static NSGA2Exec createExecWithIslands(int islands, EMigrationTopology topology, int migrationSize) {
+
+		final GeneticTestWorkflow workflow = new GeneticTestWorkflow(4, ITERATIONS);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_ISLANDS, islands);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_TOPOLOGY, topology.ordinal());
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_INTERVAL, 1);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_SIZE, migrationSize);
+
+		final NSGA2Exec nsga = workflow.createNSGA2Exec();
+		nsga.initRandomNumberGenerator();
+		nsga.createIslands();
+		return nsga;
+	}
+
+	@Test
+	public void testRing() {
+
+		final NSGA2Exec nsga = createExecWithIslands(4, EMigrationTopology.RING, 2);
+
+		for (GeneticIsland island : nsga.islands) {
+			assertEquals(
+					Arrays.asList(nsga.islands.get((island.index+1) % 4)),
+					nsga.getMigrationDestinations(island)
+					);
+		}
+	}
+
+	@Test
+	public void testFullyConnected() {
+
+		final NSGA2Exec nsga = createExecWithIslands(4, EMigrationTopology.FULLY_CONNECTED, 2);
+
+		for (GeneticIsland island : nsga.islands) {
+			final List<GeneticIsland> destinations = nsga.getMigrationDestinations(island);
+			final Set<GeneticIsland> others = new HashSet<GeneticIsland>(nsga.islands);
+			others.remove(island);
+			assertEquals(3, destinations.size());
+			assertEquals(others, new HashSet<GeneticIsland>(destinations));
+		}
+	}
+
+	@Test
+	public void testRandom() {
+
+		final NSGA2Exec nsga = createExecWithIslands(4, EMigrationTopology.RANDOM, 2);
+
+		for (GeneticIsland island : nsga.islands) {
+			nsga.switchToIsland(island);
+			final Set<GeneticIsland> reached = new HashSet<GeneticIsland>();
+			for (int i=0; i<200; i++) {
+				final List<GeneticIsland> destinations = nsga.getMigrationDestinations(island);
+				assertEquals(1, destinations.size());
+				assertNotSame(island, destinations.get(0));
+				reached.add(destinations.get(0));
+			}
+			// each other island is reached at times
+			assertEquals(3, reached.size());
+		}
+	}
+
+	@Test
+	public void testMigrantsAreCopies() {
+
+		final NSGA2Exec nsga = createExecWithIslands(2, EMigrationTopology.RING, 2);
+		final GeneticIsland sender = nsga.islands.get(0);
+		final GeneticIsland receiver = nsga.islands.get(1);
+
+		final AGenome genome = GeneticTestWorkflow.createGenome();
+		final Set<AnIndividual> population = new HashSet<AnIndividual>(Arrays.asList(
+				GeneticTestWorkflow.individual(genome, 1, 4),
+				GeneticTestWorkflow.individual(genome, 2, 3),
+				GeneticTestWorkflow.individual(genome, 3, 2),
+				GeneticTestWorkflow.individual(genome, 4, 1)
+				));
+
+		nsga.switchToIsland(sender);
+		nsga.parentGeneration.put(0, population);
+		nsga.migrate();
+
+		assertEquals(2, receiver.immigrants.size());
+		assertTrue(sender.immigrants.isEmpty());
+		for (AnIndividual migrant : receiver.immigrants) {
+
+			assertFalse(population.contains(migrant));
+
+			// a change of the migrant in its new island...
+			final double x = (Double)migrant.genes[0];
+			migrant.genes[0] = -1d;
+			migrant.fitness[0] = -1d;
+			migrant.values[0] = -1d;
+			migrant.targets[0] = -1d;
+
+			// ... does not change the individual which stays in the sender island
+			boolean found = false;
+			for (AnIndividual ind : population) {
+				if ((Double)ind.genes[0] == x) {
+					found = true;
+					assertEquals(x, ind.fitness[0], 0);
+					assertEquals(x, (Double)ind.values[0], 0);
+					assertEquals(0d, (Double)ind.targets[0], 0);
+				}
+				assertTrue(ind.fitness[0] >= 0);
+			}
+			assertTrue(found);
+		}
+	}
+
+	@Test
+	public void testMergedTable() throws InterruptedException {
+
+		final int islands = 3;
+
+		final GeneticTestWorkflow workflow = new GeneticTestWorkflow(POPULATION, ITERATIONS);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_ISLANDS, islands);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_INTERVAL, 1);
+		workflow.setParameter(AbstractGeneticExplorationAlgo.PARAM_MIGRATION_SIZE, 2);
+		workflow.run();
+
+		final IGenlabTable table = workflow.getTable();
+		for (int rows : workflow.countRowsByIteration(table, ITERATIONS)) {
+			assertEquals(islands*POPULATION, rows);
+		}
+
+		final long evaluations = islands*POPULATION*(ITERATIONS+1);
+		assertEquals(evaluations, workflow.countIndividualsEvaluated(evaluations));
+	}
+
+}
@@ -0,0 +1,87 @@
+package genlab.algog.algos.exec;
+
+import static org.junit.Assert.*;
+
+import genlab.algog.algos.meta.EEvaluationMode;
+import genlab.algog.internal.AGenome;
+import genlab.algog.internal.AnIndividual;
+import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * The steady-state evaluation mode, compared to the generational one
+ */
+public class TestSteadyState {
+
+	public static final int POPULATION = 8;
+	public static final int ITERATIONS = 3;
+
+	@Test
+	public void testSameTableAsGenerational() throws InterruptedException {
+
+		final GeneticTestWorkflow generational = new GeneticTestWorkflow(POPULATION, ITERATIONS);
+		generational.setEvaluationMode(EEvaluationMode.GENERATIONAL);
+		generational.run();
+
+		final GeneticTestWorkflow steadyState = new GeneticTestWorkflow(POPULATION, ITERATIONS);
+		steadyState.setEvaluationMode(EEvaluationMode.STEADY_STATE);
+		steadyState.run();
+
+		final IGenlabTable expected = generational.getTable();
+		final IGenlabTable table = steadyState.getTable();
+
+		assertEquals(expected.getColumnsId(), table.getColumnsId());
+		assertEquals(expected.getRowsCount(), table.getRowsCount());
+		// (an offspring may be evaluated before the last individuals of an iteration, so it is stored with them)
+		for (int rows : steadyState.countRowsByIteration(table, ITERATIONS)) {
+			assertTrue(rows > 0);
+		}
+
+		// the initial population, then the offspring of each iteration
+		final long evaluations = POPULATION*(ITERATIONS+1);
+		assertEquals(evaluations, generational.countIndividualsEvaluated(evaluations));
+		assertEquals(evaluations, steadyState.countIndividualsEvaluated(evaluations));
+	}
+
+	@Test
+	public void testReplacementRemovesMostCrowdedOfLastFront() {
+
+		final GeneticTestWorkflow workflow = new GeneticTestWorkflow(4, ITERATIONS);
+		workflow.setEvaluationMode(EEvaluationMode.STEADY_STATE);
+		final NSGA2Exec nsga = workflow.createNSGA2Exec();
+		final AGenome genome = GeneticTestWorkflow.createGenome();
+
+		// a dominates the last front b, c, d, e; in the last front, the distance of c is
+		// (2.1-1)/4 + (5-3.9)/4 = 0.55 and the one of d is (5-2)/4 + (4-1)/4 = 1.5
+		final AnIndividual a = GeneticTestWorkflow.individual(genome, 0, 0);
+		final AnIndividual b = GeneticTestWorkflow.individual(genome, 1, 5);
+		final AnIndividual c = GeneticTestWorkflow.individual(genome, 2, 4);
+		final AnIndividual d = GeneticTestWorkflow.individual(genome, 2.1, 3.9);
+		final AnIndividual e = GeneticTestWorkflow.individual(genome, 5, 1);
+
+		nsga.insertIntoSteadyStatePopulation(c);
+		nsga.insertIntoSteadyStatePopulation(a);
+		nsga.insertIntoSteadyStatePopulation(d);
+		nsga.insertIntoSteadyStatePopulation(b);
+		assertEquals(4, nsga.getSteadyStatePopulation().size());
+
+		nsga.insertIntoSteadyStatePopulation(e);
+		assertEquals(new HashSet<AnIndividual>(Arrays.asList(a, b, d, e)), nsga.getSteadyStatePopulation());
+		assertEquals(1, a.rank);
+		assertEquals(2, d.rank);
+
+		// the new individual is removed itself when it is the most crowded
+		final AnIndividual f = GeneticTestWorkflow.individual(genome, 2.05, 3.95);
+		nsga.insertIntoSteadyStatePopulation(f);
+		final Set<AnIndividual> population = nsga.getSteadyStatePopulation();
+		assertEquals(4, population.size());
+		assertFalse(population.contains(f));
+		assertTrue(population.containsAll(Arrays.asList(a, b, d, e)));
+	}
+
+}
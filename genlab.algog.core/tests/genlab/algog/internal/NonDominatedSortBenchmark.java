@@ -0,0 +1,147 @@
+package genlab.algog.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Compares the time of the non-dominated sorts with the previous implementation of NSGA2Exec
+ * (maps of individuals and boxed fitness), for populations of 2000 individuals and 2 to 5 objectives.
+ * Not a unit test: run it as a java application.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class NonDominatedSortBenchmark {
+
+	public static final int COUNT_INDIVIDUALS = 2000;
+	public static final int WARMUP = 5;
+	public static final int REPEAT = 10;
+
+	/**
+	 * The sort of NSGA2Exec before the sorters (the fronts are not built, as the ranks are enough to compare)
+	 */
+	protected static int legacySort(Collection<AnIndividual> population) {
+
+		Map<AnIndividual,Integer> individualWDominationCount = new HashMap<AnIndividual, Integer>(population.size());
+		Map<AnIndividual,Set<AnIndividual>> individualWDominatedIndividuals = new HashMap<AnIndividual, Set<AnIndividual>>(population.size());
+		Set<AnIndividual> individualsInCurrentFront = new HashSet<AnIndividual>();
+
+		for (AnIndividual p : population) {
+			int dominationCount = 0;
+			Set<AnIndividual> dominatedIndividuals = new HashSet<AnIndividual>(population.size());
+			for (AnIndividual q : population) {
+				if (!p.isFeasible() && !q.isFeasible()) {
+					dominatedIndividuals.add(q);
+				} else if (p.isFeasible() && !q.isFeasible()) {
+					dominatedIndividuals.add(q);
+				} else if (!p.isFeasible() && q.isFeasible()) {
+					dominationCount++;
+				} else if (legacyDominates(p.fitness, q.fitness)) {
+					dominatedIndividuals.add(q);
+				} else if (legacyDominates(q.fitness, p.fitness)) {
+					dominationCount++;
+				}
+			}
+			individualWDominatedIndividuals.put(p, dominatedIndividuals);
+			individualWDominationCount.put(p, dominationCount);
+			if (dominationCount == 0) {
+				individualsInCurrentFront.add(p);
+				p.rank = 1;
+			}
+		}
+
+		int frontIndex = 1;
+		while (!individualsInCurrentFront.isEmpty()) {
+			Set<AnIndividual> nextFront = new HashSet<AnIndividual>();
+			for (AnIndividual p : individualsInCurrentFront) {
+				for (AnIndividual q : individualWDominatedIndividuals.get(p)) {
+					Integer nq = individualWDominationCount.get(q) - 1;
+					individualWDominationCount.put(q, nq);
+					if (nq == 0) {
+						nextFront.add(q);
+						q.rank = frontIndex + 1;
+					}
+				}
+			}
+			frontIndex++;
+			individualsInCurrentFront = nextFront;
+		}
+		return frontIndex;
+	}
+
+	protected static boolean legacyDominates(Double[] aFitness, Double[] bFitness) {
+		boolean d = false;
+		for (int m=0; m<aFitness.length; m++) {
+			if (aFitness[m] > bFitness[m]) {
+				return false;
+			} else if (bFitness[m] > aFitness[m]) {
+				d = true;
+			}
+		}
+		return d;
+	}
+
+	protected static Set<AnIndividual> createPopulation(Random random, int objectivesCount) {
+
+		Set<AnIndividual> population = new HashSet<AnIndividual>(COUNT_INDIVIDUALS);
+		for (int i=0; i<COUNT_INDIVIDUALS; i++) {
+			AnIndividual ind = new AnIndividual(null, new Object[0]);
+			ind.fitness = new Double[objectivesCount];
+			ind.values = new Object[objectivesCount];
+			for (int m=0; m<objectivesCount; m++) {
+				ind.fitness[m] = random.nextDouble();
+				ind.values[m] = ind.fitness[m];
+			}
+			population.add(ind);
+		}
+		return population;
+	}
+
+	protected static void measure(String name, INonDominatedSorter sorter, Set<AnIndividual> population, int objectivesCount) {
+
+		final AnIndividual[] individuals = population.toArray(new AnIndividual[population.size()]);
+		long total = 0;
+		for (int r=0; r<WARMUP+REPEAT; r++) {
+			final long start = System.nanoTime();
+			if (sorter == null) {
+				legacySort(population);
+			} else {
+				// like NSGA2Exec: copy the fitness, then sort
+				final double[] fitness = new double[individuals.length*objectivesCount];
+				final boolean[] feasible = new boolean[individuals.length];
+				for (int i=0; i<individuals.length; i++) {
+					feasible[i] = individuals[i].isFeasible();
+					for (int m=0; m<objectivesCount; m++)
+						fitness[i*objectivesCount+m] = individuals[i].fitness[m];
+				}
+				sorter.sort(fitness, feasible, individuals.length, objectivesCount);
+			}
+			if (r >= WARMUP)
+				total += System.nanoTime()-start;
+		}
+		System.out.println(String.format(
+				"%-28s %d objectives: %8.2f ms",
+				name,
+				objectivesCount,
+				total/1000000d/REPEAT
+				));
+	}
+
+	public static void main(String[] args) {
+
+		final Random random = new Random(1);
+
+		for (int objectivesCount=2; objectivesCount<=5; objectivesCount++) {
+			final Set<AnIndividual> population = createPopulation(random, objectivesCount);
+			measure("legacy (maps)", null, population, objectivesCount);
+			measure("fast", new FastNonDominatedSorter(), population, objectivesCount);
+			measure("fast, parallel", new FastNonDominatedSorter(FastNonDominatedSorter.getSharedPool()), population, objectivesCount);
+			measure("efficient (ENS-BS)", new EfficientNonDominatedSorter(), population, objectivesCount);
+		}
+	}
+
+}
@@ -0,0 +1,144 @@
+package genlab.algog.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestCrowdingDistance {
+
+	/**
+	 * Stable sort of the members by the value of the dimension d
+	 */
+	protected static void sortReference(Integer[] order, final double[] v) {
+		Arrays.sort(order, new java.util.Comparator<Integer>() {
+			@Override
+			public int compare(Integer o1, Integer o2) {
+				return Double.compare(v[o1], v[o2]);
+			}
+		});
+	}
+
+	/**
+	 * Removes one member at a time, computing again all the distances each time
+	 */
+	protected static int[] truncateReference(double[][] values, int[] members, int howMany) {
+
+		int[] current = members.clone();
+		while (current.length > howMany) {
+
+			final int l = current.length;
+			final double[] crowding = new double[values[0].length];
+			final double[] center = new double[values[0].length];
+			final Integer[] order = new Integer[l];
+			for (int k=0; k<l; k++)
+				order[k] = current[k];
+
+			for (int d=0; d<values.length; d++) {
+				final double[] v = values[d];
+				sortReference(order, v);
+				final double a = v[order[0]];
+				final double z = v[order[l-1]];
+				final double delta = z - a;
+				crowding[order[0]] = CrowdingDistance.INF;
+				crowding[order[l-1]] = CrowdingDistance.INF;
+				center[order[0]] += Math.abs(a-z) / delta;
+				center[order[l-1]] += Math.abs(a-z) / delta;
+				for (int i=1; i<l-1; i++) {
+					final double o = v[order[i]];
+					crowding[order[i]] += Math.abs(v[order[i-1]] - v[order[i+1]]) / delta;
+					center[order[i]] += Math.max(Math.abs(o-a), Math.abs(z-o)) / delta;
+				}
+			}
+
+			double n1 = Double.POSITIVE_INFINITY;
+			for (int i : current)
+				n1 = Math.min(n1, crowding[i]);
+			int removed = -1;
+			for (int k=0; k<l; k++) {
+				final int i = current[k];
+				if (crowding[i] - n1 >= CrowdingDistance.EPS)
+					continue;
+				if (removed < 0 || center[i] > center[removed] || (center[i] == center[removed] && crowding[i] < crowding[removed]))
+					removed = i;
+			}
+
+			final int[] next = new int[l-1];
+			for (int k=0, j=0; k<l; k++) {
+				if (current[k] != removed)
+					next[j++] = current[k];
+			}
+			current = next;
+		}
+		return current;
+	}
+
+	@Test
+	public void testCalculate() {
+
+		final double[][] values = {
+				{ 0, 1, 3, 4, 100 },	// unused individual 4
+				{ 4, 3, 1, 0, 100 }
+		};
+		final double[] crowding = new double[5];
+		crowding[4] = 42;
+		CrowdingDistance.calculate(values, new int[] {3, 1, 0, 2}, 4, crowding);
+
+		assertEquals(CrowdingDistance.INF, crowding[0], 0);
+		assertEquals(CrowdingDistance.INF, crowding[3], 0);
+		assertEquals(2*3/4d, crowding[1], 1e-12);
+		assertEquals(2*3/4d, crowding[2], 1e-12);
+		assertEquals(42, crowding[4], 0);
+
+		// not evaluated: the range is NaN, the objective is ignored
+		final double[][] notEvaluated = { { 0, Double.NaN, 2 } };
+		CrowdingDistance.calculate(notEvaluated, new int[] {0, 1, 2}, 3, crowding);
+		assertArrayEquals(new double[] {0, 0, 0}, Arrays.copyOf(crowding, 3), 0);
+	}
+
+	@Test
+	public void testSortByKey() {
+
+		final double[] key = { 2, -0.0, 0.0, Double.NaN, 1, 2, -5 };
+		final int[] indexes = { 0, 1, 2, 3, 4, 5, 6 };
+		CrowdingDistance.sortByKey(indexes, indexes.length, key, new int[indexes.length]);
+		assertArrayEquals(new int[] {6, 1, 2, 4, 0, 5, 3}, indexes);
+	}
+
+	@Test
+	public void testTruncate() {
+
+		final Random random = new Random(42);
+
+		for (int dims=1; dims<=4; dims++) {
+			for (int count: new int[] {2, 5, 40, 200}) {
+				for (boolean ties: new boolean[] {false, true}) {
+
+					// one more individual which is not a member
+					final double[][] values = new double[dims][count+1];
+					for (int d=0; d<dims; d++) {
+						for (int i=0; i<=count; i++)
+							values[d][i] = ties ? random.nextInt(10) : random.nextDouble();
+					}
+					final int[] members = new int[count];
+					for (int k=0; k<count; k++)
+						members[k] = k+1;
+
+					for (int howMany: new int[] {0, 1, count/2, count-1, count}) {
+						final double[] crowding = new double[count+1];
+						final double[] center = new double[count+1];
+						final int[] kept = CrowdingDistance.truncate(values, members, count, howMany, crowding, center);
+						assertArrayEquals(
+								count+" individuals, "+dims+" dimensions, keeping "+howMany+(ties ? " with ties" : ""),
+								truncateReference(values, members, howMany),
+								kept
+								);
+					}
+				}
+			}
+		}
+	}
+
+}
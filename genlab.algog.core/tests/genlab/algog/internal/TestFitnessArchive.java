@@ -0,0 +1,120 @@
+package genlab.algog.internal;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class TestFitnessArchive {
+
+	private static final AGenome GENOME = new AGenome("test", 1.0);
+
+	protected static AnIndividual individual(Object... genes) {
+		return new AnIndividual(GENOME, genes);
+	}
+
+	protected static AnIndividual evaluated(double fitness, Object... genes) {
+		final AnIndividual ind = individual(genes);
+		ind.fitness = new Double[] { fitness };
+		ind.targets = new Object[] { 0d };
+		ind.values = new Object[] { fitness };
+		return ind;
+	}
+
+	@Test
+	public void testRestore() {
+
+		final FitnessArchive archive = new FitnessArchive(10, true, false);
+		archive.store(evaluated(3, 1, true, 2.5), true);
+
+		final AnIndividual same = individual(1, true, 2.5);
+		assertTrue(archive.restore(same));
+		assertArrayEquals(new Double[] { 3d }, same.fitness);
+		assertArrayEquals(new Object[] { 3d }, same.values);
+
+		final AnIndividual other = individual(1, false, 2.5);
+		assertFalse(archive.restore(other));
+		assertNull(other.fitness);
+
+		// another genome
+		final AnIndividual otherGenome = new AnIndividual(new AGenome("other", 1.0), new Object[] { 1, true, 2.5 });
+		assertFalse(archive.restore(otherGenome));
+
+		assertEquals(1, archive.getCountHits());
+		assertEquals(2, archive.getCountMisses());
+		assertEquals(1/3d, archive.getHitRate(), 1e-12);
+	}
+
+	@Test
+	public void testGenesCopied() {
+
+		final FitnessArchive archive = new FitnessArchive(10, true, false);
+		final AnIndividual ind = evaluated(3, 1, 2);
+		archive.store(ind, true);
+
+		// mutating the individual later does not change the archive
+		ind.genes[0] = 5;
+		assertFalse(archive.restore(individual(5, 2)));
+		assertTrue(archive.restore(individual(1, 2)));
+	}
+
+	@Test
+	public void testEviction() {
+
+		final FitnessArchive lru = new FitnessArchive(2, true, false);
+		final FitnessArchive fifo = new FitnessArchive(2, false, false);
+		for (FitnessArchive archive : new FitnessArchive[] { lru, fifo }) {
+			archive.store(evaluated(1, 1), true);
+			archive.store(evaluated(2, 2), true);
+			// use the first one
+			assertTrue(archive.restore(individual(1)));
+			archive.store(evaluated(3, 3), true);
+			assertEquals(2, archive.size());
+			assertEquals(1, archive.getCountEvicted());
+		}
+
+		assertTrue(lru.restore(individual(1)));
+		assertFalse(lru.restore(individual(2)));
+		assertFalse(fifo.restore(individual(1)));
+		assertTrue(fifo.restore(individual(2)));
+	}
+
+	@Test
+	public void testDeterministicOnly() {
+
+		final FitnessArchive archive = new FitnessArchive(10, true, true);
+
+		// nothing is known about the evaluation of the genome
+		assertFalse(archive.canReuse(GENOME));
+
+		archive.setDeterministic(GENOME, true);
+		assertTrue(archive.canReuse(GENOME));
+		archive.store(evaluated(1, 1), false);
+		assertFalse(archive.restore(individual(1)));
+		archive.store(evaluated(1, 1), true);
+		assertTrue(archive.restore(individual(1)));
+
+		// one non deterministic evaluation is enough
+		archive.setDeterministic(GENOME, false);
+		archive.setDeterministic(GENOME, true);
+		assertFalse(archive.canReuse(GENOME));
+		assertFalse(archive.restore(individual(1)));
+	}
+
+	@Test
+	public void testDisabled() {
+
+		final FitnessArchive archive = new FitnessArchive(0, true, false);
+		assertFalse(archive.isEnabled());
+		archive.store(evaluated(1, 1), true);
+		assertFalse(archive.restore(individual(1)));
+		assertEquals(0, archive.size());
+	}
+
+	@Test
+	public void testDuplicateKeys() {
+
+		assertEquals(FitnessArchive.keyFor(individual(1, 2.0)), FitnessArchive.keyFor(individual(1, 2.0)));
+		assertFalse(FitnessArchive.keyFor(individual(1, 2.0)).equals(FitnessArchive.keyFor(individual(1, 2.5))));
+	}
+
+}
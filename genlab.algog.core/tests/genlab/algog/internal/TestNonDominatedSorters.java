@@ -0,0 +1,142 @@
+package genlab.algog.internal;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+public class TestNonDominatedSorters {
+
+	/**
+	 * Peels the fronts one by one by comparing all the remaining solutions
+	 */
+	protected static int[] reference(double[] fitness, boolean[] feasible, int count, int objectivesCount) {
+
+		final int[] ranks = new int[count];
+		int remaining = 0;
+		for (int i=0; i<count; i++) {
+			if (feasible[i])
+				remaining++;
+		}
+		int front = 0;
+		while (remaining > 0) {
+			front++;
+			final boolean[] inFront = new boolean[count];
+			for (int p=0; p<count; p++) {
+				if (!feasible[p] || ranks[p] != 0)
+					continue;
+				boolean dominated = false;
+				for (int q=0; q<count && !dominated; q++) {
+					if (feasible[q] && ranks[q] == 0 && AbstractNonDominatedSorter.dominates(fitness, q*objectivesCount, p*objectivesCount, objectivesCount))
+						dominated = true;
+				}
+				inFront[p] = !dominated;
+			}
+			for (int p=0; p<count; p++) {
+				if (inFront[p]) {
+					ranks[p] = front;
+					remaining--;
+				}
+			}
+		}
+		for (int i=0; i<count; i++) {
+			if (!feasible[i])
+				ranks[i] = front+1;
+		}
+		return ranks;
+	}
+
+	protected static INonDominatedSorter[] createSorters(ForkJoinPool pool) {
+		return new INonDominatedSorter[] {
+				new FastNonDominatedSorter(),
+				new FastNonDominatedSorter(pool),
+				new EfficientNonDominatedSorter()
+		};
+	}
+
+	@Test
+	public void testSmall() {
+
+		// minimization
+		final double[] fitness = {
+				1, 5,	// 0: front 1
+				2, 2,	// 1: front 1
+				5, 1,	// 2: front 1
+				3, 3,	// 3: front 2
+				2, 2,	// 4: duplicate of 1, front 1
+				4, 4,	// 5: front 3
+				0, 0,	// 6: unfeasible
+		};
+		final boolean[] feasible = {true, true, true, true, true, true, false};
+
+		for (INonDominatedSorter sorter: createSorters(FastNonDominatedSorter.getSharedPool())) {
+			assertArrayEquals(
+					sorter.getClass().getSimpleName(),
+					new int[] {1, 1, 1, 2, 1, 3, 4},
+					sorter.sort(fitness, feasible, 7, 2)
+					);
+		}
+	}
+
+	@Test
+	public void testSpecialCases() {
+
+		for (INonDominatedSorter sorter: createSorters(FastNonDominatedSorter.getSharedPool())) {
+
+			// nothing to sort
+			assertEquals(0, sorter.sort(new double[0], new boolean[0], 0, 2).length);
+
+			// all unfeasible
+			assertArrayEquals(new int[] {1, 1}, sorter.sort(new double[4], new boolean[2], 2, 2));
+
+			// -0.0 equals 0.0
+			assertArrayEquals(
+					new int[] {1, 2},
+					sorter.sort(new double[] {-0.0, 0, 0.0, 1}, new boolean[] {true, true}, 2, 2)
+					);
+			assertArrayEquals(
+					new int[] {2, 1},
+					sorter.sort(new double[] {-0.0, 1, 0.0, 0}, new boolean[] {true, true}, 2, 2)
+					);
+
+			// NaN never dominates nor is dominated on its objective
+			final double[] fitness = {Double.NaN, 0, 1, 1, 2, 2};
+			final boolean[] feasible = {true, true, true};
+			assertArrayEquals(reference(fitness, feasible, 3, 2), sorter.sort(fitness, feasible, 3, 2));
+		}
+	}
+
+	@Test
+	public void testRandom() {
+
+		final Random random = new Random(42);
+		final ForkJoinPool pool = new ForkJoinPool(4);
+
+		for (int objectivesCount=1; objectivesCount<=5; objectivesCount++) {
+			for (int count: new int[] {1, 10, 300, 1000}) {
+
+				final double[] fitness = new double[count*objectivesCount];
+				final boolean[] feasible = new boolean[count];
+				for (int i=0; i<fitness.length; i++)
+					// few distinct values, so there are ties and duplicates
+					fitness[i] = random.nextInt(20);
+				for (int i=0; i<count; i++)
+					feasible[i] = random.nextDouble() < 0.9;
+
+				final int[] expected = reference(fitness, feasible, count, objectivesCount);
+				for (INonDominatedSorter sorter: createSorters(pool)) {
+					assertArrayEquals(
+							sorter.getClass().getSimpleName()+" with "+count+" solutions and "+objectivesCount+" objectives",
+							expected,
+							sorter.sort(fitness, feasible, count, objectivesCount)
+							);
+				}
+			}
+		}
+
+		pool.shutdown();
+	}
+
+}
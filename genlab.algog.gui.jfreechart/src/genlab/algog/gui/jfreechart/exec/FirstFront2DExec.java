@@ -7,7 +7,7 @@ import genlab.core.exec.IExecution;
 import genlab.core.model.exec.IAlgoExecution;
 import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.jfreechart.exec.AbstractJFreeChartAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
 
@@ -16,7 +16,7 @@ import java.util.Map;
 public class FirstFront2DExec extends AbstractJFreeChartAlgoExec {
 
 	// the table loaded from a continuous update, or a sequential update.
-	private GenlabTable table;
+	private AbstractGenlabTable table;
 	private boolean parametersDefined = false;
 	
 	public FirstFront2DExec(IExecution exec, IAlgoInstance algoInst) {
@@ -24,7 +24,7 @@ public class FirstFront2DExec extends AbstractJFreeChartAlgoExec {
 		
 	}
 
-	protected void adaptParametersForData(IAlgoInstance algoInst, GenlabTable table) {
+	protected void adaptParametersForData(IAlgoInstance algoInst, AbstractGenlabTable table) {
 		
 		if (table == null)
 			return;
@@ -82,14 +82,14 @@ public class FirstFront2DExec extends AbstractJFreeChartAlgoExec {
 	}
 	
 	protected void loadDataSuccessiveFromInput() {
-		table = (GenlabTable)getInputValueForInput(FirstFront2DAlgo.INPUT_TABLE);
+		table = (AbstractGenlabTable)getInputValueForInput(FirstFront2DAlgo.INPUT_TABLE);
 
 	}
 		
 	protected void setDataFromContinuousUpdate(IAlgoExecution continuousProducer,
 			Object keyWave, IConnectionExecution connectionExec, Object value) {
 
-		table = (GenlabTable)value;
+		table = (AbstractGenlabTable)value;
 
 	}
 
@@ -5,14 +5,14 @@ import genlab.core.exec.IExecution;
 import genlab.core.model.exec.IAlgoExecution;
 import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.jfreechart.exec.AbstractJFreeChartAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
 
 public class ViewAlgoGBigRadarTableExec extends AbstractJFreeChartAlgoExec {
 
 	// the table loaded from a continuous update, or a sequential update.
-	private GenlabTable table;
+	private AbstractGenlabTable table;
 	
 	public ViewAlgoGBigRadarTableExec(IExecution exec, IAlgoInstance algoInst) {
 		super(exec, algoInst);
@@ -20,14 +20,14 @@ public class ViewAlgoGBigRadarTableExec extends AbstractJFreeChartAlgoExec {
 	}
 	
 	protected void loadDataSuccessiveFromInput() {
-		table = (GenlabTable)getInputValueForInput(AlgoGPlotBigRadarAlgo.INPUT_TABLE);
+		table = (AbstractGenlabTable)getInputValueForInput(AlgoGPlotBigRadarAlgo.INPUT_TABLE);
 
 	}
 		
 	protected void setDataFromContinuousUpdate(IAlgoExecution continuousProducer,
 			Object keyWave, IConnectionExecution connectionExec, Object value) {
 
-		table = (GenlabTable)value;
+		table = (AbstractGenlabTable)value;
 
 	}
 
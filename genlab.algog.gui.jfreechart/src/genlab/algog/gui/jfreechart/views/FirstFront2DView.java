@@ -7,7 +7,7 @@ import genlab.algog.gui.jfreechart.instance.FirstFront2DInstance;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IParametersListener;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.actions.ShowParametersAction;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
@@ -31,7 +31,7 @@ import org.jfree.experimental.chart.swt.ChartComposite;
 import org.jfree.util.PaintUtilities;
 import org.jfree.util.ShapeUtilities;
 
-public class FirstFront2DView extends AbstractViewOpenedByAlgo<GenlabTable> implements IParametersListener {
+public class FirstFront2DView extends AbstractViewOpenedByAlgo<AbstractGenlabTable> implements IParametersListener {
 
 	public static final String VIEW_ID = "genlab.algog.gui.jfreechart.views.FirstFront2DView";
 	
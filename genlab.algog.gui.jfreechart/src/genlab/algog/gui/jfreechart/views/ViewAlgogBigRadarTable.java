@@ -3,7 +3,7 @@ package genlab.algog.gui.jfreechart.views;
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IParametersListener;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.jfreechart.EnhancedSpiderWebPlot;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
@@ -39,7 +39,7 @@ import org.jfree.experimental.chart.swt.ChartComposite;
 import org.jfree.ui.RectangleEdge;
 
 public final class ViewAlgogBigRadarTable 
-						extends AbstractViewOpenedByAlgo<GenlabTable> 
+						extends AbstractViewOpenedByAlgo<AbstractGenlabTable> 
 						implements IParametersListener {
 
 	public static final String VIEW_ID = "genlab.algog.gui.jfreechart.views.ViewAlgogBigRadarTable";
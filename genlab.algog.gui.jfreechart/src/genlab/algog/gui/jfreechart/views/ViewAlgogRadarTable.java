@@ -4,7 +4,7 @@ import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IParametersListener;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.jfreechart.EnhancedSpiderWebPlot;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
@@ -43,7 +43,7 @@ import org.jfree.ui.RectangleEdge;
 		// TODO always display for last version of data
 		
 public final class ViewAlgogRadarTable 
-						extends AbstractViewOpenedByAlgo<GenlabTable> 
+						extends AbstractViewOpenedByAlgo<AbstractGenlabTable> 
 						implements IParametersListener {
 
 	public static final String VIEW_ID = "genlab.algog.gui.jfreechart.views.ViewAlgoGTableRadar";
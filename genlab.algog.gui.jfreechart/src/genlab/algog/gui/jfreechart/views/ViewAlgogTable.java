@@ -1,7 +1,7 @@
 package genlab.algog.gui.jfreechart.views;
 
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
 
@@ -27,7 +27,7 @@ import org.jfree.chart.annotations.XYLineAnnotation;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.experimental.chart.swt.ChartComposite;
 
-public final class ViewAlgogTable extends AbstractViewOpenedByAlgo<GenlabTable> {
+public final class ViewAlgogTable extends AbstractViewOpenedByAlgo<AbstractGenlabTable> {
 
 	public static final String VIEW_ID = "genlab.algog.gui.jfreechart.views.ViewAlgoGTable";
 	
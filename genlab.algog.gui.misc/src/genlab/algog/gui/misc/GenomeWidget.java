@@ -1,7 +1,7 @@
 package genlab.algog.gui.misc;
 
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.gui.Utils;
 import genlab.gui.VisualResources;
@@ -40,7 +40,7 @@ import org.eclipse.swt.widgets.ToolTip;
  */
 public class GenomeWidget extends Canvas {
 
-	protected GenlabTable lastVersionDataToDisplay = null;
+	protected AbstractGenlabTable lastVersionDataToDisplay = null;
 	protected ListOfMessages messages = null;
 	
 	/**
@@ -234,7 +234,7 @@ public class GenomeWidget extends Canvas {
 		return true;
 	}
 	
-	public void setData(GenlabTable tab) {
+	public void setData(AbstractGenlabTable tab) {
 		lastVersionDataToDisplay = tab;
 		this.redraw();
 	}
@@ -2,7 +2,7 @@ package genlab.algog.gui.misc.algos.views;
 
 import genlab.algog.algos.meta.GeneticExplorationAlgoConstants;
 import genlab.algog.gui.misc.GenomeWidget;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
 
@@ -24,7 +24,7 @@ import org.eclipse.ui.forms.widgets.FormToolkit;
 import org.eclipse.ui.forms.widgets.ScrolledForm;
 import org.eclipse.ui.forms.widgets.Section;
 
-public final class PlotPhenotypeView extends AbstractViewOpenedByAlgo<GenlabTable> {
+public final class PlotPhenotypeView extends AbstractViewOpenedByAlgo<AbstractGenlabTable> {
 
 	public static final String VIEW_ID = "genlab.algog.gui.misc.algos.views.PlotPhenotypeView";
 	
@@ -5,14 +5,14 @@ import genlab.core.exec.IExecution;
 import genlab.core.model.exec.IAlgoExecution;
 import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.algos.AbstractOpenViewContinuousAlgoExec;
 import genlab.gui.views.AbstractViewOpenedByAlgo;
 
 public class PlotPhenotypeExec extends AbstractOpenViewContinuousAlgoExec {
 
 	// the table loaded from a continuous update, or a sequential update.
-	private GenlabTable table;
+	private AbstractGenlabTable table;
 	
 	public PlotPhenotypeExec(IExecution exec, IAlgoInstance algoInst, String viewId) {
 		super(exec, algoInst, viewId);
@@ -21,14 +21,14 @@ public class PlotPhenotypeExec extends AbstractOpenViewContinuousAlgoExec {
 
 	
 	protected void loadDataSuccessiveFromInput() {
-		table = (GenlabTable)getInputValueForInput(PlotPhenotypeAlgo.INPUT_TABLE);
+		table = (AbstractGenlabTable)getInputValueForInput(PlotPhenotypeAlgo.INPUT_TABLE);
 
 	}
 		
 	protected void setDataFromContinuousUpdate(IAlgoExecution continuousProducer,
 			Object keyWave, IConnectionExecution connectionExec, Object value) {
 
-		table = (GenlabTable)value;
+		table = (AbstractGenlabTable)value;
 
 	}
 
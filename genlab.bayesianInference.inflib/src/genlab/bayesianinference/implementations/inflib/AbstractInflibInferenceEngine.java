@@ -8,8 +8,7 @@ import edu.ucla.belief.io.hugin.HuginNodeImpl;
 import genlab.bayesianinference.AbstractInferenceEngine;
 import genlab.bayesianinference.BNCache;
 import genlab.bayesianinference.BayesianNetworkException;
-import genlab.core.performance.TimeMonitor;
-import genlab.core.performance.TimeMonitors;
+import genlab.core.performance.MetricsRegistry;
 import genlab.core.random.IRandomNumberGenerator;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
@@ -38,7 +37,7 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 	/**
 	 * The time monitoring, defined only if MONITOR is true
 	 */
-	private final TimeMonitor timeMonitor;
+	private final MetricsRegistry metrics;
 	
 	private final static String keyTimeForCompilation = "compilation";
 	private final static String keyTimeForEvidenceRetract = "evidence retractation";
@@ -76,9 +75,9 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 	public AbstractInflibInferenceEngine(String name) {
 		
 		if (MONITOR)
-			timeMonitor = TimeMonitors.SINGLETON.getMonitor("inference "+name);
+			metrics = MetricsRegistry.singleton.getScope("inference "+name);
 		else
-			timeMonitor = null;
+			metrics = null;
 		
 		messages = ListsOfMessages.getGenlabMessages();
 		
@@ -107,11 +106,10 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 			loadBN(filenameBayesianNetwork, false);
 		messages.traceTech("launch compilation of "+filenameBayesianNetwork, getClass());
 		
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForCompilation, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		engine = compileBN();
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForCompilation, this);
+			metrics.getHistogram(keyTimeForCompilation).recordSince(startNs);
 		
 		messages.traceTech("init evidence...", getClass());
 		initEvidence();		
@@ -156,8 +154,7 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 	@Override
 	public void resetEvidence() {
 
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceRetract, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		if (WITH_CACHE)
 			cache.resetEvidence();
@@ -167,15 +164,14 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 		}
 		
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceRetract, this);
+			metrics.getHistogram(keyTimeForEvidenceRetract).recordSince(startNs);
 		
 	}
 
 	@Override
 	public void addEvidenceForAttribute(String attributeName, int index) {
 	
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceAssertion, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		InflibNode node = getBNAttributeForAttributeName(attributeName);
 		
@@ -193,15 +189,14 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 		}
 		
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceAssertion, this);
+			metrics.getHistogram(keyTimeForEvidenceAssertion).recordSince(startNs);
 	
 	}
 
 	@Override
 	public void retractEvidence(String attributeName) {
 		
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceRetract, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		if (WITH_CACHE)
 			cache.resetEvidence();
@@ -211,7 +206,7 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 		}
 		
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceRetract, this);
+			metrics.getHistogram(keyTimeForEvidenceRetract).recordSince(startNs);
 		
 	}
 
@@ -245,8 +240,7 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 
 	protected final double[] getPosteriors(InflibNode node) {
 		
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForPosteriors, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 				
 		if ( WITH_CACHE && cache.hasCacheForThisEntry(node) ) {
 				return cache.getCurrentPosteriors(node);	
@@ -264,7 +258,7 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 			cache.addResultForCurrentEvidence(node, res);
 		
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForPosteriors, this);
+			metrics.getHistogram(keyTimeForPosteriors).recordSince(startNs);
 		
 		return res;		
 	}
@@ -294,6 +288,6 @@ public abstract class AbstractInflibInferenceEngine extends AbstractInferenceEng
 	@Override
 	public void exportPropagationStatistics(PrintStream ps) {
 		if (MONITOR)
-			timeMonitor.printToStream(ps);
+			metrics.printToStream(ps);
 	}
 }
@@ -7,8 +7,7 @@ import javax.swing.text.html.MinimalHTMLWriter;
 
 import genlab.bayesianinference.IBayesianNetwork;
 import genlab.bayesianinference.IInferenceEngine;
-import genlab.core.performance.TimeMonitor;
-import genlab.core.performance.TimeMonitors;
+import genlab.core.performance.MetricsRegistry;
 import genlab.core.random.IRandomNumberGenerator;
 import genlab.random.colt.ColtRandomGenerator;
 
@@ -26,7 +25,7 @@ public class SMILEInferenceEngine implements IInferenceEngine {
 	/**
 	 * The time monitoring, defined only if MONITOR is true
 	 */
-	private final TimeMonitor timeMonitor;
+	private final MetricsRegistry metrics;
 	
 	private final static String keyTimeForEvidenceRetract = "evidence retractation";
 	private final static String keyTimeForPosteriors = "posteriors computation";
@@ -42,9 +41,9 @@ public class SMILEInferenceEngine implements IInferenceEngine {
 		this.rand = rand;
 		
 		if (MONITOR)
-			timeMonitor = TimeMonitors.SINGLETON.getMonitor("inference SMILE");
+			metrics = MetricsRegistry.singleton.getScope("inference SMILE");
 		else
-			timeMonitor = null;
+			metrics = null;
 		
 	}
 	
@@ -75,14 +74,13 @@ public class SMILEInferenceEngine implements IInferenceEngine {
 	@Override
 	public void resetEvidence() {
 		
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceRetract, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		bn.smileNet.clearAllEvidence();
 		bn.smileNet.updateBeliefs();
 		
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceRetract, this);
+			metrics.getHistogram(keyTimeForEvidenceRetract).recordSince(startNs);
 		
 
 	}
@@ -91,29 +89,27 @@ public class SMILEInferenceEngine implements IInferenceEngine {
 	public void addEvidenceForAttribute(String attributeName, int index) {
 		
 
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceAssertion, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		bn.smileNet.setEvidence(attributeName, index);
 		bn.smileNet.updateBeliefs();
 
 
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceAssertion, this);
+			metrics.getHistogram(keyTimeForEvidenceAssertion).recordSince(startNs);
 		
 	}
 
 	@Override
 	public void retractEvidence(String attributeName) {
 		
-		if (MONITOR)
-			timeMonitor.notifyTaskStart(keyTimeForEvidenceRetract, this);
+		final long startNs = MONITOR ? System.nanoTime() : 0;
 		
 		bn.smileNet.clearEvidence(attributeName);
 		bn.smileNet.updateBeliefs();
 
 		if (MONITOR)
-			timeMonitor.notifyTaskEnd(keyTimeForEvidenceRetract, this);
+			metrics.getHistogram(keyTimeForEvidenceRetract).recordSince(startNs);
 		
 	}
 
@@ -163,7 +159,7 @@ public class SMILEInferenceEngine implements IInferenceEngine {
 	@Override
 	public void exportPropagationStatistics(PrintStream ps) {
 		if (MONITOR)
-			timeMonitor.printToStream(ps);
+			metrics.printToStream(ps);
 	}
 
 }
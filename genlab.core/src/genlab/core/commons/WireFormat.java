@@ -0,0 +1,163 @@
+package genlab.core.commons;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Constants and helpers for the compact binary format used to exchange data with
+ * distant servers.
+ *
+ * The content encoded with a {@link WireOutput} is embedded into the java serialization
+ * as one block: a header (format version, compression), then the bytes. Big blocks
+ * are compressed with deflate, tuned for speed.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class WireFormat {
+
+	public static final int VERSION = 1;
+
+	/*
+	 * tags of the values
+	 */
+	public static final int TAG_NULL = 0;
+	public static final int TAG_INTEGER = 1;
+	public static final int TAG_DOUBLE = 2;
+	public static final int TAG_STRING = 3;
+	public static final int TAG_TRUE = 4;
+	public static final int TAG_FALSE = 5;
+	public static final int TAG_LONG = 6;
+	public static final int TAG_FLOAT = 7;
+	public static final int TAG_CLASS = 8;
+	public static final int TAG_SERIALIZED = 9;
+
+	private static final int FLAG_DEFLATE = 1;
+
+	/**
+	 * Blocks bigger than this count of bytes are compressed;
+	 * a negative value disables compression.
+	 */
+	public static int compressionThreshold = 64*1024;
+
+	private WireFormat() {
+
+	}
+
+	/**
+	 * Writes the content of this encoder as one block
+	 * @param out
+	 * @param wire
+	 * @throws IOException
+	 */
+	public static void writeBlock(ObjectOutput out, WireOutput wire) throws IOException {
+
+		final int rawLength = wire.size();
+
+		out.writeByte(VERSION);
+
+		if (compressionThreshold >= 0 && rawLength > compressionThreshold) {
+
+			final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+			try {
+				deflater.setInput(wire.getBuffer(), 0, rawLength);
+				deflater.finish();
+				final byte[] compressed = new byte[rawLength + rawLength/1000 + 64];
+				int compressedLength = 0;
+				while (!deflater.finished() && compressedLength < compressed.length)
+					compressedLength += deflater.deflate(compressed, compressedLength, compressed.length-compressedLength);
+				// only keep the compressed version if it is worth it
+				if (deflater.finished() && compressedLength < rawLength) {
+					out.writeByte(FLAG_DEFLATE);
+					out.writeInt(rawLength);
+					out.writeInt(compressedLength);
+					out.write(compressed, 0, compressedLength);
+					return;
+				}
+			} finally {
+				deflater.end();
+			}
+		}
+
+		out.writeByte(0);
+		out.writeInt(rawLength);
+		out.write(wire.getBuffer(), 0, rawLength);
+
+	}
+
+	/**
+	 * Reads a block written by {@link #writeBlock(ObjectOutput, WireOutput)}
+	 * @param in
+	 * @return a decoder for its content
+	 * @throws IOException
+	 */
+	public static WireInput readBlock(ObjectInput in) throws IOException {
+
+		final int version = in.readByte();
+		if (version != VERSION)
+			throw new IOException("unsupported version of the binary format: "+version+" (expected "+VERSION+")");
+
+		final int flags = in.readByte();
+		final int rawLength = in.readInt();
+		final byte[] raw = new byte[rawLength];
+
+		if ((flags & FLAG_DEFLATE) == 0) {
+			in.readFully(raw);
+			return new WireInput(raw);
+		}
+
+		final byte[] compressed = new byte[in.readInt()];
+		in.readFully(compressed);
+		final Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed);
+			int length = 0;
+			while (length < rawLength && !inflater.finished()) {
+				final int inflated = inflater.inflate(raw, length, rawLength-length);
+				if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				length += inflated;
+			}
+			if (length != rawLength)
+				throw new IOException("corrupted block: "+length+" bytes decompressed instead of "+rawLength);
+		} catch (DataFormatException e) {
+			throw new IOException("corrupted block: "+e.getMessage(), e);
+		} finally {
+			inflater.end();
+		}
+		return new WireInput(raw);
+	}
+
+	/**
+	 * Finds a class by its name, preferably with the context class loader of the current thread
+	 * (which sees the classes of the other plugins)
+	 * @param name
+	 * @return
+	 * @throws IOException
+	 */
+	@SuppressWarnings("rawtypes")
+	public static Class resolveClass(String name) throws IOException {
+
+		if (name == null)
+			return null;
+
+		final ClassLoader contextLoader = Thread.currentThread().getContextClassLoader();
+		if (contextLoader != null) {
+			try {
+				return Class.forName(name, false, contextLoader);
+			} catch (ClassNotFoundException e) {
+				// will try another way
+			}
+		}
+		try {
+			return Class.forName(name);
+		} catch (ClassNotFoundException e) {
+			throw new IOException("unable to find class "+name, e);
+		}
+	}
+
+}
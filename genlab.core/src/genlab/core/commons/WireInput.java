@@ -0,0 +1,219 @@
+package genlab.core.commons;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Decodes the data encoded by a {@link WireOutput}.
+ *
+ * Not thread safe.
+ *
+ * @see WireFormat
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public final class WireInput {
+
+	private final byte[] buffer;
+	private int position;
+	private final int limit;
+
+	private final ArrayList<String> idx2string = new ArrayList<String>();
+
+	public WireInput(byte[] buffer, int offset, int length) {
+		this.buffer = buffer;
+		this.position = offset;
+		this.limit = offset+length;
+	}
+
+	public WireInput(byte[] buffer) {
+		this(buffer, 0, buffer.length);
+	}
+
+	private final void ensureAvailable(int count) throws EOFException {
+		if (position + count > limit)
+			throw new EOFException("unexpected end of the data ("+count+" bytes expected at position "+position+")");
+	}
+
+	public int readByte() throws IOException {
+		ensureAvailable(1);
+		return buffer[position++];
+	}
+
+	public void readBytes(byte[] dest, int offset, int length) throws IOException {
+		ensureAvailable(length);
+		System.arraycopy(buffer, position, dest, offset, length);
+		position += length;
+	}
+
+	public boolean readBoolean() throws IOException {
+		return readByte() != 0;
+	}
+
+	public int readVarInt() throws IOException {
+		int value = 0;
+		for (int shift=0; shift<35; shift+=7) {
+			final int b = readByte();
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("malformed variable length integer at position "+position);
+	}
+
+	public long readVarLong() throws IOException {
+		long value = 0;
+		for (int shift=0; shift<70; shift+=7) {
+			final int b = readByte();
+			value |= (long)(b & 0x7F) << shift;
+			if ((b & 0x80) == 0)
+				return value;
+		}
+		throw new IOException("malformed variable length long at position "+position);
+	}
+
+	public int readSignedVarInt() throws IOException {
+		final int raw = readVarInt();
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+
+	public long readSignedVarLong() throws IOException {
+		final long raw = readVarLong();
+		return (raw >>> 1) ^ -(raw & 1);
+	}
+
+	public long readLong() throws IOException {
+		ensureAvailable(8);
+		long value = 0;
+		for (int i=0; i<8; i++)
+			value = (value << 8) | (buffer[position++] & 0xFF);
+		return value;
+	}
+
+	public double readDouble() throws IOException {
+		return Double.longBitsToDouble(readLong());
+	}
+
+	public float readFloat() throws IOException {
+		ensureAvailable(4);
+		int bits = 0;
+		for (int i=0; i<4; i++)
+			bits = (bits << 8) | (buffer[position++] & 0xFF);
+		return Float.intBitsToFloat(bits);
+	}
+
+	public String readString() throws IOException {
+		final int length = readVarInt()-1;
+		if (length < 0)
+			return null;
+		ensureAvailable(length);
+		final String s = new String(buffer, position, length, WireOutput.UTF8);
+		position += length;
+		return s;
+	}
+
+	public String readInternedString() throws IOException {
+		final int code = readVarInt();
+		switch (code) {
+		case 0:
+			return null;
+		case 1:
+			final String s = readString();
+			idx2string.add(s);
+			return s;
+		default:
+			if (code-2 >= idx2string.size())
+				throw new IOException("reference to an unknown string: "+(code-2));
+			return idx2string.get(code-2);
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	public Class readClass() throws IOException {
+		return WireFormat.resolveClass(readInternedString());
+	}
+
+	public Object readValue() throws IOException {
+
+		final int tag = readByte();
+		switch (tag) {
+		case WireFormat.TAG_NULL:
+			return null;
+		case WireFormat.TAG_INTEGER:
+			return readSignedVarInt();
+		case WireFormat.TAG_DOUBLE:
+			return readDouble();
+		case WireFormat.TAG_STRING:
+			return readInternedString();
+		case WireFormat.TAG_TRUE:
+			return Boolean.TRUE;
+		case WireFormat.TAG_FALSE:
+			return Boolean.FALSE;
+		case WireFormat.TAG_LONG:
+			return readSignedVarLong();
+		case WireFormat.TAG_FLOAT:
+			return readFloat();
+		case WireFormat.TAG_CLASS:
+			return readClass();
+		case WireFormat.TAG_SERIALIZED:
+			final int length = readVarInt();
+			ensureAvailable(length);
+			final ByteArrayInputStream bytes = new ByteArrayInputStream(buffer, position, length);
+			position += length;
+			final ObjectInputStream ois = new ContextObjectInputStream(bytes);
+			try {
+				return ois.readObject();
+			} catch (ClassNotFoundException e) {
+				throw new IOException("unable to decode a value: "+e.getMessage(), e);
+			} finally {
+				ois.close();
+			}
+		default:
+			throw new IOException("unknown value tag "+tag+" at position "+(position-1));
+		}
+	}
+
+	public Map<String,Object> readMap() throws IOException {
+		final int size = readVarInt()-1;
+		if (size < 0)
+			return null;
+		Map<String,Object> res = new HashMap<String, Object>(size*2);
+		for (int i=0; i<size; i++) {
+			final String key = readInternedString();
+			res.put(key, readValue());
+		}
+		return res;
+	}
+
+	public int available() {
+		return limit-position;
+	}
+
+	/**
+	 * Resolves the classes with the same rules than {@link WireFormat#resolveClass(String)}
+	 */
+	private static class ContextObjectInputStream extends ObjectInputStream {
+
+		public ContextObjectInputStream(InputStream in) throws IOException {
+			super(in);
+		}
+
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+			try {
+				return WireFormat.resolveClass(desc.getName());
+			} catch (IOException e) {
+				return super.resolveClass(desc);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,232 @@
+package genlab.core.commons;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Compact binary encoder for the data exchanged with distant servers
+ * (graphs, tables, results).
+ *
+ * Compared to the java serialization, it:
+ * <ul>
+ * <li>encodes integers as variable length integers (small values take one byte)</li>
+ * <li>encodes each distinct string once; the next occurrences only reference it</li>
+ * <li>tags values with one byte, instead of class descriptors</li>
+ * </ul>
+ * Values which are not of a basic type are written with the java serialization.
+ *
+ * Not thread safe. Decoded by {@link WireInput}.
+ *
+ * @see WireFormat
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public final class WireOutput {
+
+	public static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private byte[] buffer;
+	private int position = 0;
+
+	private final Map<String,Integer> string2idx = new HashMap<String, Integer>();
+
+	public WireOutput(int initialCapacity) {
+		buffer = new byte[Math.max(16, initialCapacity)];
+	}
+
+	public WireOutput() {
+		this(1024);
+	}
+
+	private final void ensureCapacity(int additional) {
+		if (position + additional <= buffer.length)
+			return;
+		buffer = Arrays.copyOf(buffer, Math.max(buffer.length*2, position+additional));
+	}
+
+	public void writeByte(int b) {
+		ensureCapacity(1);
+		buffer[position++] = (byte)b;
+	}
+
+	public void writeBytes(byte[] bytes, int offset, int length) {
+		ensureCapacity(length);
+		System.arraycopy(bytes, offset, buffer, position, length);
+		position += length;
+	}
+
+	public void writeBoolean(boolean b) {
+		writeByte(b ? 1 : 0);
+	}
+
+	/**
+	 * Writes a positive integer in 1 to 5 bytes (7 bits per byte)
+	 * @param value
+	 */
+	public void writeVarInt(int value) {
+		ensureCapacity(5);
+		while ((value & ~0x7F) != 0) {
+			buffer[position++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte)value;
+	}
+
+	/**
+	 * Writes a positive long in 1 to 10 bytes (7 bits per byte)
+	 * @param value
+	 */
+	public void writeVarLong(long value) {
+		ensureCapacity(10);
+		while ((value & ~0x7FL) != 0) {
+			buffer[position++] = (byte)((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		buffer[position++] = (byte)value;
+	}
+
+	/**
+	 * Writes an integer which might be negative (small absolute values take one byte)
+	 * @param value
+	 */
+	public void writeSignedVarInt(int value) {
+		writeVarInt((value << 1) ^ (value >> 31));
+	}
+
+	public void writeSignedVarLong(long value) {
+		writeVarLong((value << 1) ^ (value >> 63));
+	}
+
+	public void writeLong(long value) {
+		ensureCapacity(8);
+		for (int i=56; i>=0; i-=8)
+			buffer[position++] = (byte)(value >>> i);
+	}
+
+	public void writeDouble(double value) {
+		writeLong(Double.doubleToLongBits(value));
+	}
+
+	public void writeFloat(float value) {
+		final int bits = Float.floatToIntBits(value);
+		ensureCapacity(4);
+		for (int i=24; i>=0; i-=8)
+			buffer[position++] = (byte)(bits >>> i);
+	}
+
+	/**
+	 * Writes a string (possibly null) in UTF-8
+	 * @param s
+	 */
+	public void writeString(String s) {
+		if (s == null) {
+			writeVarInt(0);
+			return;
+		}
+		final byte[] bytes = s.getBytes(UTF8);
+		writeVarInt(bytes.length+1);
+		writeBytes(bytes, 0, bytes.length);
+	}
+
+	/**
+	 * Writes a string which is likely to be written again (attribute names,
+	 * class names, identifiers...): it is only written the first time,
+	 * then referenced by its index.
+	 * @param s
+	 */
+	public void writeInternedString(String s) {
+		if (s == null) {
+			writeVarInt(0);
+			return;
+		}
+		Integer idx = string2idx.get(s);
+		if (idx != null) {
+			writeVarInt(idx+2);
+			return;
+		}
+		string2idx.put(s, string2idx.size());
+		writeVarInt(1);
+		writeString(s);
+	}
+
+	/**
+	 * Writes any value: basic types are written compactly, other ones
+	 * are written with the java serialization.
+	 * @param value
+	 * @throws IOException
+	 */
+	public void writeValue(Object value) throws IOException {
+
+		if (value == null) {
+			writeByte(WireFormat.TAG_NULL);
+		} else if (value instanceof Integer) {
+			writeByte(WireFormat.TAG_INTEGER);
+			writeSignedVarInt((Integer)value);
+		} else if (value instanceof Double) {
+			writeByte(WireFormat.TAG_DOUBLE);
+			writeDouble((Double)value);
+		} else if (value instanceof String) {
+			writeByte(WireFormat.TAG_STRING);
+			writeInternedString((String)value);
+		} else if (value instanceof Boolean) {
+			writeByte(((Boolean)value) ? WireFormat.TAG_TRUE : WireFormat.TAG_FALSE);
+		} else if (value instanceof Long) {
+			writeByte(WireFormat.TAG_LONG);
+			writeSignedVarLong((Long)value);
+		} else if (value instanceof Float) {
+			writeByte(WireFormat.TAG_FLOAT);
+			writeFloat((Float)value);
+		} else if (value instanceof Class) {
+			writeByte(WireFormat.TAG_CLASS);
+			writeInternedString(((Class<?>)value).getName());
+		} else {
+			writeByte(WireFormat.TAG_SERIALIZED);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(bytes);
+			oos.writeObject(value);
+			oos.close();
+			writeVarInt(bytes.size());
+			writeBytes(bytes.toByteArray(), 0, bytes.size());
+		}
+	}
+
+	/**
+	 * Writes a map with string keys and any values
+	 * @param map
+	 * @throws IOException
+	 */
+	public void writeMap(Map<String,? extends Object> map) throws IOException {
+		if (map == null) {
+			writeVarInt(0);
+			return;
+		}
+		writeVarInt(map.size()+1);
+		for (Map.Entry<String,? extends Object> e: map.entrySet()) {
+			writeInternedString(e.getKey());
+			writeValue(e.getValue());
+		}
+	}
+
+	public int size() {
+		return position;
+	}
+
+	/**
+	 * Returns the internal buffer (only the {@link #size()} first bytes are relevant)
+	 * @return
+	 */
+	byte[] getBuffer() {
+		return buffer;
+	}
+
+	public byte[] toByteArray() {
+		return Arrays.copyOf(buffer, position);
+	}
+
+}
@@ -0,0 +1,88 @@
+package genlab.core.exec;
+
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.meta.IAlgo;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers, for each algo, how long its executions took. 
+ * Used to estimate the cost of the tasks not ran yet.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class AlgoDurationsHistory {
+
+	public static AlgoDurationsHistory singleton = new AlgoDurationsHistory();
+	
+	private static class Durations {
+		
+		private long count = 0;
+		private long totalMs = 0;
+		
+		public synchronized void add(long durationMs) {
+			count++;
+			totalMs += durationMs;
+		}
+		
+		public synchronized long getMeanMs() {
+			if (count == 0)
+				return -1;
+			return totalMs/count;
+		}
+	}
+	
+	private final ConcurrentHashMap<String,Durations> algoId2durations = new ConcurrentHashMap<String, Durations>();
+	
+	public AlgoDurationsHistory() {
+		
+	}
+	
+	/**
+	 * Records the duration of this execution, if it finished successfully.
+	 * @param exec
+	 */
+	public void record(IAlgoExecution exec) {
+		
+		if (exec.getProgress().getComputationState() != ComputationState.FINISHED_OK)
+			return;
+		
+		final Long durationMs = exec.getProgress().getDurationMs();
+		if (durationMs == null || durationMs < 0 || exec.getAlgoInstance() == null)
+			return;
+		
+		record(exec.getAlgoInstance().getAlgo(), durationMs);
+	}
+	
+	public void record(IAlgo algo, long durationMs) {
+		
+		Durations durations = algoId2durations.get(algo.getId());
+		if (durations == null) {
+			durations = new Durations();
+			Durations previous = algoId2durations.putIfAbsent(algo.getId(), durations);
+			if (previous != null)
+				durations = previous;
+		}
+		durations.add(durationMs);
+	}
+	
+	/**
+	 * Returns the mean duration of the executions of this algo, or -1 if unknown.
+	 * @param algo
+	 * @return
+	 */
+	public long getMeanDurationMs(IAlgo algo) {
+		
+		Durations durations = algoId2durations.get(algo.getId());
+		if (durations == null)
+			return -1;
+		return durations.getMeanMs();
+	}
+	
+	public void clear() {
+		algoId2durations.clear();
+	}
+	
+}
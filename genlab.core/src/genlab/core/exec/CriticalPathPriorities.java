@@ -0,0 +1,155 @@
+package genlab.core.exec;
+
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.instance.IAlgoContainerInstance;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IConnection;
+import genlab.core.model.instance.IInputOutputInstance;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Computes the priority of tasks from the (static) graph of algo instances: 
+ * the priority of an algo is the length of the longest path which remains 
+ * to be ran once this algo starts (this algo included). Running first the tasks 
+ * which are at the beginning of long chains reduces the total duration of 
+ * the workflow.
+ * 
+ * The length of each algo is its mean duration in previous runs if known 
+ * (see {@link AlgoDurationsHistory}), else 1. The length of a container also
+ * includes the longest path of its children.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class CriticalPathPriorities {
+
+	/**
+	 * Orders tasks by decreasing priority, then by creation (first created first).
+	 */
+	public static final Comparator<IAlgoExecution> COMPARATOR_PRIORITY = new Comparator<IAlgoExecution>() {
+
+		@Override
+		public int compare(IAlgoExecution o1, IAlgoExecution o2) {
+			
+			final long p1 = o1.getPriority();
+			final long p2 = o2.getPriority();
+			if (p1 != p2)
+				return p1 > p2 ? -1 : 1;
+			
+			if (o1.getProgress() == null || o2.getProgress() == null)
+				return 0;
+			if (o1.getProgress().getTimestampCreation() == null || o2.getProgress().getTimestampCreation() == null)
+				return 0;
+			return o1.getProgress().getTimestampCreation().compareTo(o2.getProgress().getTimestampCreation());
+		}
+		
+	};
+	
+	private final AlgoDurationsHistory history;
+	
+	private final Map<IAlgoInstance,Long> algo2remaining = new HashMap<IAlgoInstance, Long>();
+	private final Set<IAlgoInstance> exploring = new HashSet<IAlgoInstance>();
+	
+	private CriticalPathPriorities(AlgoDurationsHistory history) {
+		this.history = history;
+	}
+	
+	/**
+	 * Returns the length of this algo alone (without the ones depending on it)
+	 * @param ai
+	 * @return
+	 */
+	private long getLength(IAlgoInstance ai) {
+		
+		long length = 1;
+		
+		if (ai instanceof IAlgoContainerInstance) {
+			// a container lasts as long as its children
+			for (IAlgoInstance child: ((IAlgoContainerInstance)ai).getChildren()) {
+				length = Math.max(length, getRemaining(child));
+			}
+		} else if (history != null) {
+			final long mean = history.getMeanDurationMs(ai.getAlgo());
+			if (mean > 0)
+				length = mean;
+		}
+		
+		return length;
+	}
+	
+	/**
+	 * Returns the length of the longest path starting from this algo
+	 * @param ai
+	 * @return
+	 */
+	private long getRemaining(IAlgoInstance ai) {
+		
+		Long cached = algo2remaining.get(ai);
+		if (cached != null)
+			return cached;
+		
+		// loops are detected elsewhere (ranks); just don't explore them forever
+		if (!exploring.add(ai))
+			return 0;
+		
+		long maxNext = 0;
+		for (IInputOutputInstance output: ai.getOutputInstances()) {
+			for (IConnection c: output.getConnections()) {
+				maxNext = Math.max(maxNext, getRemaining(c.getTo().getAlgoInstance()));
+			}
+		}
+		
+		final long remaining = getLength(ai) + maxNext;
+		
+		exploring.remove(ai);
+		algo2remaining.put(ai, remaining);
+		
+		return remaining;
+	}
+	
+	/**
+	 * Returns the priority of each of these algo instances.
+	 * @param algoInstances
+	 * @return
+	 */
+	public static Map<IAlgoInstance,Long> computePriorities(Collection<IAlgoInstance> algoInstances) {
+		
+		CriticalPathPriorities computer = new CriticalPathPriorities(AlgoDurationsHistory.singleton);
+		
+		Map<IAlgoInstance,Long> res = new HashMap<IAlgoInstance, Long>(algoInstances.size());
+		for (IAlgoInstance ai: algoInstances) {
+			res.put(ai, computer.getRemaining(ai));
+		}
+		return res;
+	}
+	
+	/**
+	 * Sets the priority of the executions of these algo instances. The offset
+	 * is added to each priority (typically the priority of the container, 
+	 * so the children of a critical container remain critical).
+	 * @param algoInstances
+	 * @param instance2execution
+	 * @param offset
+	 */
+	public static void assignPriorities(
+			Collection<IAlgoInstance> algoInstances, 
+			Map<IAlgoInstance,IAlgoExecution> instance2execution,
+			long offset) {
+		
+		Map<IAlgoInstance,Long> priorities = computePriorities(algoInstances);
+		for (Map.Entry<IAlgoInstance,Long> e: priorities.entrySet()) {
+			IAlgoExecution exec = instance2execution.get(e.getKey());
+			// maybe we did not created this one ? (notably if disabled)
+			if (exec == null)
+				continue;
+			exec.setPriority(offset + e.getValue());
+		}
+	}
+	
+}
@@ -3,6 +3,8 @@ package genlab.core.exec;
 import genlab.core.commons.FileUtils;
 import genlab.core.commons.ProgramException;
 import genlab.core.commons.UniqueTimestamp;
+import genlab.core.performance.Counter;
+import genlab.core.performance.MetricsRegistry;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
 
@@ -27,6 +29,11 @@ public class Execution implements IExecution, Externalizable {
 	
 	private Map<String, Object> key2value = new HashMap<String, Object>(30);
 	
+	/**
+	 * The metrics of this execution; the technical informations incremented are counters of it
+	 */
+	private final MetricsRegistry metrics;
+	
 	private IRunner runner = null;
 	
 	/**
@@ -44,6 +51,8 @@ public class Execution implements IExecution, Externalizable {
 		// create messages 
 		messages = new ListOfMessages();
 		
+		metrics = MetricsRegistry.singleton.getScope(getId());
+		
 		this.runner = runner;
 		
 		// and register them !
@@ -102,9 +111,11 @@ public class Execution implements IExecution, Externalizable {
 
 	@Override
 	public Map<String, Object> getAllTechnicalInformations() {
+		Map<String, Object> res = new HashMap<String, Object>(metrics.getCounterValues());
 		synchronized (key2value) {
-			return Collections.unmodifiableMap(key2value);
+			res.putAll(key2value);
 		}
+		return Collections.unmodifiableMap(res);
 	}
 
 	@Override
@@ -117,23 +128,18 @@ public class Execution implements IExecution, Externalizable {
 	@Override
 	public Object getTechnicalInformation(String key) {
 		synchronized (key2value) {
-
-			return key2value.get(key);
+			final Object res = key2value.get(key);
+			if (res != null)
+				return res;
 		}
+		final Counter counter = metrics.getExistingCounter(key);
+		return counter == null ? null : counter.get();
 	}
 
 	@Override
 	public void incrementTechnicalInformationLong(String key, long increment) {
 		
-		synchronized (key2value) {
-			Long value = (Long)key2value.get(key);
-			if (value == null)
-				value = increment;
-			else 
-				value += increment;
-			key2value.put(key, value);
-				
-		}
+		metrics.getCounter(key).add(increment);
 		
 	} 
 	
@@ -142,14 +148,17 @@ public class Execution implements IExecution, Externalizable {
 		incrementTechnicalInformationLong(key, 1);
 	}
 	
+	@Override
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+	
 	public void displayTechnicalInformationsOnMessages() {
 		if (messages == null)
 			return;
 		StringBuffer sb = new StringBuffer("\n");
-		synchronized (key2value) {
-			for (Entry<String,Object> e : key2value.entrySet()){
-				sb.append("- ").append(e.getKey()).append(": ").append(e.getValue()).append("\n");
-			}
+		for (Entry<String,Object> e : getAllTechnicalInformations().entrySet()){
+			sb.append("- ").append(e.getKey()).append(": ").append(e.getValue()).append("\n");
 		}
 		messages.infoTech("here are some technical informations for this execution: "+sb.toString(), getClass());
 
@@ -175,6 +184,8 @@ public class Execution implements IExecution, Externalizable {
 		// create messages 
 		messages = new ListOfMessages();
 
+		metrics = MetricsRegistry.singleton.getScope(getId());
+
 		// and register them !
 		ListsOfMessages.registerListOfMessages(getId(), messages);
 		
@@ -184,7 +195,10 @@ public class Execution implements IExecution, Externalizable {
 	public void writeExternal(ObjectOutput out) throws IOException {
 		
 		out.writeBoolean(forceExecution);
-		out.writeObject(key2value);
+		synchronized (key2value) {
+			out.writeObject(new HashMap<String, Object>(key2value));
+		}
+		out.writeObject(new HashMap<String, Long>(metrics.getCounterValues()));
 		
 	}
 	
@@ -195,6 +209,12 @@ public class Execution implements IExecution, Externalizable {
 
 		forceExecution = in.readBoolean();
 		key2value = (Map<String, Object>) in.readObject();
+		// the counters were already accounted by the global metrics of the sender
+		@SuppressWarnings("unchecked")
+		final Map<String, Long> counters = (Map<String, Long>) in.readObject();
+		for (Entry<String,Long> e: counters.entrySet()) {
+			metrics.getCounter(e.getKey()).addLocally(e.getValue());
+		}
 			
 	}
 
@@ -1,5 +1,6 @@
 package genlab.core.exec;
 
+import genlab.core.performance.MetricsRegistry;
 import genlab.core.usermachineinteraction.ListOfMessages;
 
 import java.io.File;
@@ -45,6 +46,12 @@ public interface IExecution {
 
 	public void displayTechnicalInformationsOnMessages();
 	
+	/**
+	 * Returns the scope of metrics of this execution (counters, durations of algorithms)
+	 * @return
+	 */
+	public MetricsRegistry getMetrics();
+	
 	public IRunner getRunner();
 	
 	public void setRunner(IRunner r);
@@ -0,0 +1,22 @@
+package genlab.core.exec;
+
+import genlab.core.model.exec.IAlgoExecution;
+
+/**
+ * Tags the executions which consume resources other than one thread: memory, 
+ * native memory, an external engine, disk... 
+ * Runners will only start them when these resources are available.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public interface IResourcesConsumer extends IAlgoExecution {
+
+	/**
+	 * Returns the resources this execution will need, or null if nothing specific.
+	 * Called when the execution is ready, so the inputs may be used to estimate the demand.
+	 * @return
+	 */
+	public ResourcesDemand getResourcesDemand();
+	
+}
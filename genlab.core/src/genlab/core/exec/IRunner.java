@@ -59,4 +59,11 @@ public interface IRunner extends IComputationProgressSimpleListener {
 	
 	public String getHumanReadableState();
 	
+	/**
+	 * Returns the resources (memory, engines...) managed by this runner, 
+	 * and their current utilisation.
+	 * @return
+	 */
+	public ResourcesBudget getResourcesBudget();
+	
 }
\ No newline at end of file
@@ -0,0 +1,196 @@
+package genlab.core.exec;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The resources available to a runner, and the part of them currently used 
+ * by the running tasks.
+ * 
+ * A demand is accepted only if it fits into the remaining resources. Still, a demand which 
+ * exceeds the total capacity is accepted when nothing else uses this resource; 
+ * else it could never run.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class ResourcesBudget {
+
+	public static final double DEFAULT_HEAP_RATIO = 0.75;
+	
+	private long capacityHeapBytes;
+	private long capacityNativeBytes;
+	private int capacityIoSlots;
+	
+	private long usedHeapBytes = 0;
+	private long usedNativeBytes = 0;
+	private int usedIoSlots = 0;
+	private final Set<String> usedEngines = new HashSet<String>();
+	
+	private long countRefused = 0;
+	
+	public ResourcesBudget(long capacityHeapBytes, long capacityNativeBytes, int capacityIoSlots) {
+		this.capacityHeapBytes = capacityHeapBytes;
+		this.capacityNativeBytes = capacityNativeBytes;
+		this.capacityIoSlots = capacityIoSlots;
+	}
+	
+	/**
+	 * Creates a budget based on the memory available for this JVM, with one IO slot 
+	 * per thread; native memory is not bounded.
+	 * @param threads the count of threads running tasks
+	 */
+	public ResourcesBudget(int threads) {
+		this(
+				getDefaultCapacityHeapBytes(), 
+				Long.MAX_VALUE, 
+				Math.max(1, threads)
+				);
+	}
+	
+	/**
+	 * Creates a budget based on the memory available for this JVM, with one IO slot 
+	 * per processor; native memory is not bounded.
+	 */
+	public ResourcesBudget() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+	
+	/**
+	 * Returns the heap available to tasks by default, that is a part of the max memory of this JVM
+	 * @return
+	 */
+	public static long getDefaultCapacityHeapBytes() {
+		return (long)(Runtime.getRuntime().maxMemory()*DEFAULT_HEAP_RATIO);
+	}
+	
+	private static boolean fits(long used, long demand, long capacity) {
+		if (demand <= 0)
+			return true;
+		if (used == 0)
+			return true; // even if too big, accept it when alone
+		return used + demand <= capacity;
+	}
+	
+	/**
+	 * Reserves the resources for this demand if they are available, and returns true;
+	 * else returns false and changes nothing.
+	 * @param demand
+	 * @return
+	 */
+	public synchronized boolean tryAcquire(ResourcesDemand demand) {
+		
+		if (
+				!fits(usedHeapBytes, demand.heapBytes, capacityHeapBytes)
+				|| !fits(usedNativeBytes, demand.nativeBytes, capacityNativeBytes)
+				|| !fits(usedIoSlots, demand.ioSlots, capacityIoSlots)
+				|| !Collections.disjoint(usedEngines, demand.exclusiveEngines)
+				) {
+			countRefused++;
+			return false;
+		}
+		
+		usedHeapBytes += Math.max(0, demand.heapBytes);
+		usedNativeBytes += Math.max(0, demand.nativeBytes);
+		usedIoSlots += Math.max(0, demand.ioSlots);
+		usedEngines.addAll(demand.exclusiveEngines);
+		
+		return true;
+	}
+	
+	/**
+	 * Releases resources previously acquired for this demand.
+	 * @param demand
+	 */
+	public synchronized void release(ResourcesDemand demand) {
+		
+		usedHeapBytes -= Math.max(0, demand.heapBytes);
+		usedNativeBytes -= Math.max(0, demand.nativeBytes);
+		usedIoSlots -= Math.max(0, demand.ioSlots);
+		usedEngines.removeAll(demand.exclusiveEngines);
+		
+	}
+
+	public synchronized long getCapacityHeapBytes() {
+		return capacityHeapBytes;
+	}
+
+	public synchronized void setCapacityHeapBytes(long capacityHeapBytes) {
+		this.capacityHeapBytes = capacityHeapBytes;
+	}
+
+	public synchronized long getCapacityNativeBytes() {
+		return capacityNativeBytes;
+	}
+
+	public synchronized void setCapacityNativeBytes(long capacityNativeBytes) {
+		this.capacityNativeBytes = capacityNativeBytes;
+	}
+
+	public synchronized int getCapacityIoSlots() {
+		return capacityIoSlots;
+	}
+
+	public synchronized void setCapacityIoSlots(int capacityIoSlots) {
+		this.capacityIoSlots = capacityIoSlots;
+	}
+
+	public synchronized long getUsedHeapBytes() {
+		return usedHeapBytes;
+	}
+
+	public synchronized long getUsedNativeBytes() {
+		return usedNativeBytes;
+	}
+
+	public synchronized int getUsedIoSlots() {
+		return usedIoSlots;
+	}
+
+	public synchronized Collection<String> getUsedEngines() {
+		return new HashSet<String>(usedEngines);
+	}
+	
+	/**
+	 * Returns the count of demands which were refused because resources were missing
+	 * @return
+	 */
+	public synchronized long getCountRefused() {
+		return countRefused;
+	}
+	
+	/**
+	 * Returns the ratio of the heap capacity used by tasks (may be higher than 1)
+	 * @return
+	 */
+	public synchronized double getHeapUtilisation() {
+		return capacityHeapBytes <= 0 ? 0 : (double)usedHeapBytes/capacityHeapBytes;
+	}
+	
+	public synchronized double getNativeUtilisation() {
+		return capacityNativeBytes <= 0 ? 0 : (double)usedNativeBytes/capacityNativeBytes;
+	}
+	
+	public synchronized double getIoUtilisation() {
+		return capacityIoSlots <= 0 ? 0 : (double)usedIoSlots/capacityIoSlots;
+	}
+
+	public synchronized String getHumanReadableState() {
+		
+		StringBuffer sb = new StringBuffer();
+		sb
+			.append("heap ").append(usedHeapBytes/ResourcesDemand.MEGABYTE).append("/").append(capacityHeapBytes/ResourcesDemand.MEGABYTE).append(" Mb, ")
+			.append("native ").append(usedNativeBytes/ResourcesDemand.MEGABYTE);
+		if (capacityNativeBytes != Long.MAX_VALUE)
+			sb.append("/").append(capacityNativeBytes/ResourcesDemand.MEGABYTE);
+		sb
+			.append(" Mb, ")
+			.append("io ").append(usedIoSlots).append("/").append(capacityIoSlots).append(", ")
+			.append("engines in use ").append(usedEngines).append(", ")
+			.append(countRefused).append(" refusals");
+		return sb.toString();
+	}
+	
+}
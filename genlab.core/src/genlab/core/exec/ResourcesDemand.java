@@ -0,0 +1,64 @@
+package genlab.core.exec;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Describes the resources a task needs to run, besides its threads: 
+ * the estimated heap memory, the native memory (as used by native libraries like igraph), 
+ * some bandwidth for inputs/outputs, and an exclusive access to some external engines 
+ * (identified by their name).
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class ResourcesDemand {
+
+	public static final ResourcesDemand NONE = new ResourcesDemand(0, 0, 0);
+	
+	public static final long MEGABYTE = 1024l*1024l;
+	
+	public final long heapBytes;
+	public final long nativeBytes;
+	public final int ioSlots;
+	public final Set<String> exclusiveEngines;
+	
+	public ResourcesDemand(long heapBytes, long nativeBytes, int ioSlots, Set<String> exclusiveEngines) {
+		this.heapBytes = heapBytes;
+		this.nativeBytes = nativeBytes;
+		this.ioSlots = ioSlots;
+		if (exclusiveEngines == null || exclusiveEngines.isEmpty())
+			this.exclusiveEngines = Collections.emptySet();
+		else 
+			this.exclusiveEngines = Collections.unmodifiableSet(new HashSet<String>(exclusiveEngines));
+	}
+	
+	public ResourcesDemand(long heapBytes, long nativeBytes, int ioSlots) {
+		this(heapBytes, nativeBytes, ioSlots, (Set<String>)null);
+	}
+	
+	public ResourcesDemand(long heapBytes, long nativeBytes, int ioSlots, String exclusiveEngine) {
+		this(heapBytes, nativeBytes, ioSlots, Collections.singleton(exclusiveEngine));
+	}
+	
+	/**
+	 * Returns true if nothing is demanded, so there is no need to check resources
+	 * @return
+	 */
+	public boolean isEmpty() {
+		return heapBytes <= 0 && nativeBytes <= 0 && ioSlots <= 0 && exclusiveEngines.isEmpty();
+	}
+	
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb
+			.append("heap ").append(heapBytes/MEGABYTE).append(" Mb, ")
+			.append("native ").append(nativeBytes/MEGABYTE).append(" Mb, ")
+			.append(ioSlots).append(" io");
+		if (!exclusiveEngines.isEmpty())
+			sb.append(", exclusive ").append(exclusiveEngines);
+		return sb.toString();
+	}
+}
@@ -0,0 +1,601 @@
+package genlab.core.exec;
+
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+import genlab.core.model.exec.AbstractAlgoExecution;
+import genlab.core.model.exec.ComputationResult;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.exec.IAlgoExecutionOneshot;
+import genlab.core.model.exec.IComputationResult;
+import genlab.core.model.exec.IConnectionExecution;
+import genlab.core.model.instance.IAlgoContainerInstance;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IInputOutputInstance;
+import genlab.core.parameters.InstanceNameParameter;
+import genlab.core.parameters.Parameter;
+import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.ListsOfMessages;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Memoizes the results of deterministic algorithms: when an algorithm is ran again with
+ * the same parameters and the same inputs (for instance, the same generator with the same seed
+ * in another run or another iteration of an exploration), its outputs are reused instead of
+ * being computed again.
+ *
+ * The results are identified by a hash of the algo id, of the values of its parameters,
+ * and of the content of its inputs. They are kept in memory and on disk,
+ * each with a size budget; the least recently used results are evicted first.
+ * Results are stored in the compact binary format, so each reuse provides a fresh copy
+ * of the values.
+ *
+ * Only one-shot executions using threads are cached, and only if they opt in
+ * (see {@link AbstractAlgoExecution#isCacheable()}): by default, the algorithms
+ * which received a value for their random seed.
+ *
+ * Disabled by default.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ResultsCache {
+
+	public static final long DEFAULT_MEMORY_BUDGET_BYTES = 64*1024*1024;
+	public static final long DEFAULT_DISK_BUDGET_BYTES = 512*1024*1024;
+
+	public static final String FILE_EXTENSION = ".glcache";
+
+	/**
+	 * Tag for files in the hashed content (not used by the wire format)
+	 */
+	private static final int TAG_FILE = 0x7F;
+
+	public static ResultsCache singleton = new ResultsCache();
+
+	private final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
+
+	private volatile boolean enabled = false;
+
+	private long memoryBudgetBytes = DEFAULT_MEMORY_BUDGET_BYTES;
+	private long diskBudgetBytes = DEFAULT_DISK_BUDGET_BYTES;
+	private File directory = new File(System.getProperty("java.io.tmpdir"), "genlab_results_cache");
+
+	/**
+	 * The results in memory, the least recently used first. Also used as the locker for memory.
+	 */
+	private final LinkedHashMap<String,byte[]> memory = new LinkedHashMap<String, byte[]>(100, 0.75f, true);
+	private long memoryBytes = 0;
+
+	/**
+	 * The size of the results on disk, the least recently used first (null until the directory is scanned).
+	 * Also used as the locker for disk.
+	 */
+	private LinkedHashMap<String,Long> disk = null;
+	private final Object lockerDisk = new Object();
+	private long diskBytes = 0;
+
+	/*
+	 * metrics
+	 */
+	private final AtomicLong countHitsMemory = new AtomicLong(0);
+	private final AtomicLong countHitsDisk = new AtomicLong(0);
+	private final AtomicLong countMisses = new AtomicLong(0);
+	private final AtomicLong countStored = new AtomicLong(0);
+
+	public ResultsCache() {
+
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public void setMemoryBudgetBytes(long bytes) {
+		synchronized (memory) {
+			this.memoryBudgetBytes = bytes;
+			evictMemory();
+		}
+	}
+
+	public long getMemoryBudgetBytes() {
+		return memoryBudgetBytes;
+	}
+
+	public void setDiskBudgetBytes(long bytes) {
+		synchronized (lockerDisk) {
+			this.diskBudgetBytes = bytes;
+			if (disk != null)
+				evictDisk();
+		}
+	}
+
+	public long getDiskBudgetBytes() {
+		return diskBudgetBytes;
+	}
+
+	/**
+	 * Defines the directory where the results are stored on disk
+	 * @param directory
+	 */
+	public void setDirectory(File directory) {
+		synchronized (lockerDisk) {
+			this.directory = directory;
+			this.disk = null;
+			this.diskBytes = 0;
+		}
+	}
+
+	public File getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns true if the results of this task might be reused
+	 * @param exec
+	 * @return
+	 */
+	public boolean isCacheable(IAlgoExecution exec) {
+
+		if (!enabled)
+			return false;
+
+		// only the actual computations are worth caching...
+		if (!(exec instanceof AbstractAlgoExecution) || !(exec instanceof IAlgoExecutionOneshot))
+			return false;
+		if (exec.getThreadsUsed() <= 0 || exec.getAlgoInstance() instanceof IAlgoContainerInstance)
+			return false;
+
+		// ... which produce results (the other ones are displays, writers...) ...
+		if (exec.getAlgoInstance().getOutputInstances().isEmpty())
+			return false;
+
+		// ... and when they declare they are the same for the same inputs
+		return ((AbstractAlgoExecution)exec).isCacheable();
+	}
+
+	/**
+	 * Runs this task, or reuses its results if they were already computed.
+	 * Exceptions raised by the task are propagated.
+	 * @param exec
+	 */
+	public void run(IAlgoExecution exec) {
+
+		if (!isCacheable(exec)) {
+			exec.run();
+			return;
+		}
+
+		String key = null;
+		try {
+			key = computeKey(exec);
+		} catch (IOException e) {
+			messages.debugTech("unable to compute the hash of the inputs of "+exec.getName()+" ("+e.getMessage()+"), its results will not be cached", getClass());
+		}
+
+		if (key != null && reuse(exec, key))
+			return;
+
+		// the consumers may release the results as soon as they read them (during run)
+		final AbstractAlgoExecution algoExec = (AbstractAlgoExecution)exec;
+		algoExec.retainResult();
+		try {
+			exec.run();
+
+			if (key != null && exec.getProgress().getComputationState() == ComputationState.FINISHED_OK)
+				store(exec, key);
+		} finally {
+			algoExec.releaseRetainedResult();
+		}
+	}
+
+	/**
+	 * Computes the identifier of the result of this task: hash of its algo, parameters and inputs.
+	 * @param exec
+	 * @return
+	 * @throws IOException
+	 */
+	protected String computeKey(IAlgoExecution exec) throws IOException {
+
+		final IAlgoInstance algoInst = exec.getAlgoInstance();
+
+		WireOutput wire = new WireOutput();
+		wire.writeString(algoInst.getAlgo().getId());
+
+		// parameters, sorted by id
+		TreeMap<String,Object> parameters = new TreeMap<String, Object>();
+		for (Parameter<?> p: algoInst.getParameters()) {
+			if (p instanceof InstanceNameParameter)
+				continue;
+			parameters.put(p.getId(), algoInst.getValueForParameter(p.getId()));
+		}
+		wire.writeVarInt(parameters.size());
+		for (Map.Entry<String,Object> e: parameters.entrySet()) {
+			wire.writeString(e.getKey());
+			writeForHash(wire, e.getValue());
+		}
+
+		// inputs, sorted by id; the values of each input are sorted by hash
+		TreeMap<String,IInputOutputInstance> inputs = new TreeMap<String, IInputOutputInstance>();
+		for (IInputOutputInstance input: algoInst.getInputInstances()) {
+			inputs.put(input.getMeta().getId(), input);
+		}
+		wire.writeVarInt(inputs.size());
+		for (Map.Entry<String,IInputOutputInstance> e: inputs.entrySet()) {
+			wire.writeString(e.getKey());
+			Collection<IConnectionExecution> connections = exec.getConnectionsForInput(e.getValue());
+			List<String> hashes = new ArrayList<String>(connections.size());
+			for (IConnectionExecution c: connections) {
+				WireOutput wireValue = new WireOutput();
+				writeForHash(wireValue, c.getValue());
+				hashes.add(hash(wireValue.toByteArray()));
+			}
+			Collections.sort(hashes);
+			wire.writeVarInt(hashes.size());
+			for (String h: hashes)
+				wire.writeString(h);
+		}
+
+		return hash(wire.toByteArray());
+	}
+
+	/**
+	 * Writes the content of this value. Files are represented by their path, size and date, 
+	 * so the results computed from a file are not reused once it changed.
+	 * @param wire
+	 * @param value
+	 * @throws IOException
+	 */
+	protected static void writeForHash(WireOutput wire, Object value) throws IOException {
+		
+		if (value instanceof File) {
+			final File f = (File)value;
+			wire.writeByte(TAG_FILE);
+			wire.writeString(f.getAbsolutePath());
+			wire.writeVarLong(f.length());
+			wire.writeVarLong(f.lastModified());
+		} else {
+			wire.writeValue(value);
+		}
+	}
+
+	protected static String hash(byte[] content) {
+
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new RuntimeException("SHA-1 is not available in this JVM", e);
+		}
+		final byte[] h = digest.digest(content);
+
+		StringBuffer sb = new StringBuffer(h.length*2);
+		for (byte b: h) {
+			sb.append(Character.forDigit((b >> 4) & 0xF, 16));
+			sb.append(Character.forDigit(b & 0xF, 16));
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * If the results for this key are known, publishes them as the results of this task
+	 * @param exec
+	 * @param key
+	 * @return true if the results were reused
+	 */
+	protected boolean reuse(IAlgoExecution exec, String key) {
+
+		boolean fromDisk = false;
+		byte[] content;
+		synchronized (memory) {
+			content = memory.get(key);
+		}
+		if (content == null) {
+			content = readFromDisk(key);
+			if (content == null) {
+				countMisses.incrementAndGet();
+				return false;
+			}
+			fromDisk = true;
+			putInMemory(key, content);
+		}
+
+		Map<String,Object> id2result;
+		try {
+			id2result = new WireInput(content).readMap();
+		} catch (IOException e) {
+			messages.warnTech("unable to decode the cached results for "+exec.getName()+"; will compute them again", getClass(), e);
+			forget(key);
+			countMisses.incrementAndGet();
+			return false;
+		}
+
+		if (fromDisk)
+			countHitsDisk.incrementAndGet();
+		else
+			countHitsMemory.incrementAndGet();
+
+		ComputationResult r = new ComputationResult(
+				exec.getAlgoInstance(),
+				exec.getProgress(),
+				exec.getExecution().getListOfMessages()
+				);
+		for (Map.Entry<String,Object> e: id2result.entrySet()) {
+			r.setResult(
+					exec.getAlgoInstance().getOutputInstanceForOutput(e.getKey()),
+					e.getValue()
+					);
+		}
+		exec.getExecution().getListOfMessages().infoUser("reused the results computed previously with the same parameters and inputs", exec.getAlgoInstance().getName(), getClass());
+		exec.setResult(r);
+		exec.getProgress().setProgressMade(1);
+		exec.getProgress().setComputationState(ComputationState.FINISHED_OK);
+
+		return true;
+	}
+
+	protected void store(IAlgoExecution exec, String key) {
+
+		final IComputationResult result = exec.getResult();
+		if (result == null || result.getResults() == null)
+			return;
+
+		Map<String,Object> id2result = new HashMap<String, Object>();
+		for (Map.Entry<IInputOutputInstance,Object> e: result.getResults().entrySet()) {
+			id2result.put(e.getKey().getMeta().getId(), e.getValue());
+		}
+
+		byte[] content;
+		try {
+			WireOutput wire = new WireOutput();
+			wire.writeMap(id2result);
+			content = wire.toByteArray();
+		} catch (IOException e) {
+			messages.debugTech("unable to encode the results of "+exec.getName()+" ("+e.getMessage()+"), they will not be cached", getClass());
+			return;
+		}
+
+		countStored.incrementAndGet();
+		putInMemory(key, content);
+		writeToDisk(key, content);
+	}
+
+	protected void putInMemory(String key, byte[] content) {
+
+		synchronized (memory) {
+			if (content.length > memoryBudgetBytes)
+				return;
+			byte[] previous = memory.put(key, content);
+			if (previous != null)
+				memoryBytes -= previous.length;
+			memoryBytes += content.length;
+			evictMemory();
+		}
+	}
+
+	private void evictMemory() {
+		Iterator<byte[]> it = memory.values().iterator();
+		while (memoryBytes > memoryBudgetBytes && it.hasNext()) {
+			memoryBytes -= it.next().length;
+			it.remove();
+		}
+	}
+
+	/**
+	 * Lists the results already on disk, the least recently used first
+	 */
+	private void scanDiskIfNecessary() {
+
+		if (disk != null)
+			return;
+
+		disk = new LinkedHashMap<String, Long>(100, 0.75f, true);
+		diskBytes = 0;
+
+		File[] files = directory.listFiles();
+		if (files == null)
+			return;
+		Arrays.sort(files, new Comparator<File>() {
+
+			@Override
+			public int compare(File o1, File o2) {
+				return Long.compare(o1.lastModified(), o2.lastModified());
+			}
+		});
+		for (File f: files) {
+			final String name = f.getName();
+			if (!name.endsWith(FILE_EXTENSION))
+				continue;
+			disk.put(name.substring(0, name.length()-FILE_EXTENSION.length()), f.length());
+			diskBytes += f.length();
+		}
+		evictDisk();
+	}
+
+	private void evictDisk() {
+		Iterator<Map.Entry<String,Long>> it = disk.entrySet().iterator();
+		while (diskBytes > diskBudgetBytes && it.hasNext()) {
+			Map.Entry<String,Long> e = it.next();
+			diskBytes -= e.getValue();
+			it.remove();
+			new File(directory, e.getKey()+FILE_EXTENSION).delete();
+		}
+	}
+
+	protected byte[] readFromDisk(String key) {
+
+		if (diskBudgetBytes <= 0)
+			return null;
+
+		synchronized (lockerDisk) {
+
+			scanDiskIfNecessary();
+
+			final Long size = disk.get(key);
+			if (size == null)
+				return null;
+
+			final File file = new File(directory, key+FILE_EXTENSION);
+			byte[] content = new byte[size.intValue()];
+			InputStream is = null;
+			try {
+				is = new FileInputStream(file);
+				int read = 0;
+				while (read < content.length) {
+					final int r = is.read(content, read, content.length-read);
+					if (r < 0)
+						throw new IOException("unexpected end of file");
+					read += r;
+				}
+			} catch (IOException e) {
+				messages.warnTech("unable to read the cached result "+file+"; it will be ignored", getClass(), e);
+				disk.remove(key);
+				diskBytes -= size;
+				file.delete();
+				return null;
+			} finally {
+				if (is != null) {
+					try {
+						is.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+			file.setLastModified(System.currentTimeMillis());
+			return content;
+		}
+	}
+
+	protected void writeToDisk(String key, byte[] content) {
+
+		if (diskBudgetBytes <= 0 || content.length > diskBudgetBytes)
+			return;
+
+		synchronized (lockerDisk) {
+
+			scanDiskIfNecessary();
+
+			if (disk.containsKey(key))
+				return;
+
+			directory.mkdirs();
+			final File file = new File(directory, key+FILE_EXTENSION);
+			final File tmpFile = new File(directory, key+".tmp");
+			OutputStream os = null;
+			try {
+				os = new FileOutputStream(tmpFile);
+				os.write(content);
+				os.close();
+				os = null;
+				if (!tmpFile.renameTo(file))
+					throw new IOException("unable to rename "+tmpFile+" to "+file);
+			} catch (IOException e) {
+				messages.warnTech("unable to store a result in the cache directory "+directory, getClass(), e);
+				tmpFile.delete();
+				return;
+			} finally {
+				if (os != null) {
+					try {
+						os.close();
+					} catch (IOException e) {
+					}
+				}
+			}
+
+			disk.put(key, (long)content.length);
+			diskBytes += content.length;
+			evictDisk();
+		}
+	}
+
+	protected void forget(String key) {
+
+		synchronized (memory) {
+			byte[] previous = memory.remove(key);
+			if (previous != null)
+				memoryBytes -= previous.length;
+		}
+		synchronized (lockerDisk) {
+			if (disk != null) {
+				Long size = disk.remove(key);
+				if (size != null)
+					diskBytes -= size;
+			}
+			new File(directory, key+FILE_EXTENSION).delete();
+		}
+	}
+
+	/**
+	 * Forgets all the results, in memory and on disk
+	 */
+	public void clear() {
+
+		synchronized (memory) {
+			memory.clear();
+			memoryBytes = 0;
+		}
+		synchronized (lockerDisk) {
+			File[] files = directory.listFiles();
+			if (files != null) {
+				for (File f: files) {
+					if (f.getName().endsWith(FILE_EXTENSION))
+						f.delete();
+				}
+			}
+			disk = null;
+			diskBytes = 0;
+		}
+	}
+
+	public long getCountHits() {
+		return countHitsMemory.get() + countHitsDisk.get();
+	}
+
+	public long getCountMisses() {
+		return countMisses.get();
+	}
+
+	public String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+		sb.append(enabled ? "enabled" : "disabled").append(", ");
+		synchronized (memory) {
+			sb.append(memory.size()).append(" results in memory (").append(memoryBytes/1024).append("/").append(memoryBudgetBytes/1024).append(" KB), ");
+		}
+		synchronized (lockerDisk) {
+			if (disk != null)
+				sb.append(disk.size()).append(" results on disk (").append(diskBytes/1024).append("/").append(diskBudgetBytes/1024).append(" KB), ");
+		}
+		sb
+			.append(countHitsMemory.get()).append(" reused from memory, ")
+			.append(countHitsDisk.get()).append(" reused from disk, ")
+			.append(countMisses.get()).append(" computed, ")
+			.append(countStored.get()).append(" stored");
+		return sb.toString();
+	}
+
+}
@@ -4,7 +4,9 @@ import genlab.core.commons.ProgramException;
 import genlab.core.usermachineinteraction.GLLogger;
 
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.Map;
 
 /**
  * Tracks the tasks currently running and the runners currently referenced.
@@ -45,6 +47,20 @@ public class TasksManager {
 		}
 	}
 	
+	/**
+	 * Returns, for each runner, its resources and their current utilisation.
+	 * @return
+	 */
+	public Map<IRunner,ResourcesBudget> getResourcesUtilisation() {
+		Map<IRunner,ResourcesBudget> res = new LinkedHashMap<IRunner, ResourcesBudget>();
+		synchronized (runners) {
+			for (IRunner r: runners) {
+				res.put(r, r.getResourcesBudget());
+			}
+		}
+		return res;
+	}
+	
 	public TasksManager() {
 
 	}
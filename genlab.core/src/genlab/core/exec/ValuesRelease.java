@@ -0,0 +1,209 @@
+package genlab.core.exec;
+
+import genlab.core.commons.WireOutput;
+import genlab.core.model.exec.AbstractAlgoExecution;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.exec.IComputationResult;
+import genlab.core.model.instance.IAlgoContainerInstance;
+import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.ListsOfMessages;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Releases the intermediate values as soon as they are not needed anymore,
+ * so the memory used by a workflow is bounded by the width of its graph of tasks
+ * rather than by its total size.
+ *
+ * Each task counts the executable connections which consume its outputs. When the last of them
+ * retrieved its value, the results of the task are released (the values remain reachable from the
+ * connections). When a task finished, the values of its incoming connections are released as well.
+ * Tasks without any consumer keep their results, as they may be read by the user.
+ *
+ * In debug mode, the size of the results retained by each task is estimated (from their compact binary
+ * encoding) and can be reported; this is costly, and only intended for investigating memory issues.
+ *
+ * Disabled by default.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ValuesRelease {
+
+	public static ValuesRelease singleton = new ValuesRelease();
+
+	private final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
+
+	private volatile boolean enabled = false;
+
+	private volatile boolean debug = false;
+
+	/**
+	 * In debug mode, the tasks which finished and still retain their results
+	 * (weak keys, so the tasks cleaned meanwhile are forgotten). Also used as the locker for it.
+	 */
+	private final Map<IAlgoExecution,Boolean> retaining = new WeakHashMap<IAlgoExecution, Boolean>();
+
+	/*
+	 * metrics
+	 */
+	private final AtomicLong countResultsReleased = new AtomicLong(0);
+	private final AtomicLong countInputsReleased = new AtomicLong(0);
+	private final AtomicLong bytesReleased = new AtomicLong(0);
+
+	public ValuesRelease() {
+
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isDebug() {
+		return debug;
+	}
+
+	public void setDebug(boolean debug) {
+		this.debug = debug;
+		if (!debug) {
+			synchronized (retaining) {
+				retaining.clear();
+			}
+		}
+	}
+
+	/**
+	 * Should be called by runners when a task is finished (whatever its state): releases the values of its
+	 * inputs, which are not needed anymore.
+	 * @param exec
+	 */
+	public void taskFinished(IAlgoExecution exec) {
+
+		if (!enabled || !(exec instanceof AbstractAlgoExecution))
+			return;
+
+		// containers may still provide their inputs to their children
+		if (exec.getAlgoInstance() instanceof IAlgoContainerInstance)
+			return;
+
+		final int released = ((AbstractAlgoExecution)exec).releaseInputValues();
+		countInputsReleased.addAndGet(released);
+
+		if (debug && exec.getResult() != null && exec.getResult().getResults() != null) {
+			synchronized (retaining) {
+				retaining.put(exec, Boolean.TRUE);
+			}
+		}
+
+	}
+
+	/**
+	 * Called by a task when all its consumers retrieved its results, just before they are released.
+	 * @param exec
+	 */
+	public void resultsReleased(IAlgoExecution exec, IComputationResult result) {
+
+		countResultsReleased.incrementAndGet();
+
+		if (!debug)
+			return;
+
+		synchronized (retaining) {
+			retaining.remove(exec);
+		}
+		final long bytes = estimateBytes(result);
+		if (bytes > 0)
+			bytesReleased.addAndGet(bytes);
+		messages.debugTech("all the consumers of "+exec.getName()+" retrieved its results, released "+(bytes < 0 ? "?" : bytes/1024)+" KB", getClass());
+	}
+
+	/**
+	 * Estimates the size of these results, based on their compact binary encoding;
+	 * returns -1 if it can not be estimated.
+	 * @param result
+	 * @return
+	 */
+	public static long estimateBytes(IComputationResult result) {
+
+		if (result == null || result.getResults() == null)
+			return 0;
+
+		try {
+			WireOutput wire = new WireOutput();
+			for (Object value: result.getResults().values())
+				wire.writeValue(value);
+			return wire.size();
+		} catch (IOException e) {
+			return -1;
+		} catch (RuntimeException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * In debug mode, returns the list of the finished tasks which still retain their results,
+	 * the biggest first, with the estimated size of their results.
+	 * @return
+	 */
+	public String getRetainedReport() {
+
+		if (!debug)
+			return "(debug mode disabled)";
+
+		final List<IAlgoExecution> execs;
+		synchronized (retaining) {
+			execs = new ArrayList<IAlgoExecution>(retaining.keySet());
+		}
+
+		final List<Object[]> rows = new ArrayList<Object[]>(execs.size());
+		long total = 0;
+		for (IAlgoExecution exec: execs) {
+			final long bytes = estimateBytes(exec.getResult());
+			if (bytes <= 0)
+				continue;
+			rows.add(new Object[] { exec.getName(), bytes });
+			total += bytes;
+		}
+		Collections.sort(rows, new Comparator<Object[]>() {
+
+			@Override
+			public int compare(Object[] o1, Object[] o2) {
+				return Long.compare((Long)o2[1], (Long)o1[1]);
+			}
+		});
+
+		StringBuffer sb = new StringBuffer();
+		sb.append(rows.size()).append(" finished tasks retain ").append(total/1024).append(" KB");
+		for (Object[] row: rows) {
+			sb.append("\n\t").append(row[0]).append(": ").append(((Long)row[1])/1024).append(" KB");
+		}
+		return sb.toString();
+	}
+
+	public String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+		sb.append(enabled ? "enabled" : "disabled");
+		if (debug)
+			sb.append(" (debug)");
+		sb
+			.append(", ")
+			.append(countResultsReleased.get()).append(" results released, ")
+			.append(countInputsReleased.get()).append(" inputs released");
+		if (debug)
+			sb.append(", ").append(bytesReleased.get()/1024).append(" KB released");
+		return sb.toString();
+	}
+
+}
@@ -2,6 +2,8 @@ package genlab.core.exec;
 
 import genlab.core.model.exec.ComputationState;
 import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.performance.MetricsRegistry;
+import genlab.core.performance.TimelineProfiler;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
 
@@ -79,7 +81,7 @@ public class WorkingRunnerThread extends Thread {
 				// we can only consume from one principal queue
 				// then just wait for it.
 				try {
-					messages.traceTech(this.getName()+" waiting for a task in the unique queue", getClass());
+					messages.traceTech(getClass(), "{} waiting for a task in the unique queue", this.getName());
 					exec = readyToCompute.take();
 				} catch (InterruptedException e) {
 					messages.errorTech("catched an exception when trying to fetch a task: "+e.getMessage(), getClass(), e);
@@ -113,9 +115,11 @@ public class WorkingRunnerThread extends Thread {
 			
 			
 			// and run this task
-			messages.debugTech(getName()+" running task: "+exec.getName(), getClass());
+			messages.debugTech(getClass(), "{} running task: {}", getName(), exec.getName());
+			final long startNs = System.nanoTime();
+			TimelineProfiler.singleton.taskRunStarted(exec, null);
 			try {
-				exec.run();
+				ResultsCache.singleton.run(exec);
 			} catch (Exception e) {
 				messages.errorUser("task "+exec.getName()+" raised an error:"+e.getMessage(), getClass(), e);
 				exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
@@ -125,7 +129,9 @@ public class WorkingRunnerThread extends Thread {
 				exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
 				exec.getProgress().setException(e);
 			}
-			messages.debugTech(getName()+" ran task: "+exec.getName(), getClass());
+			MetricsRegistry.singleton.recordTask(exec, System.nanoTime()-startNs);
+			TimelineProfiler.singleton.taskRunEnded(exec);
+			messages.debugTech(getClass(), "{} ran task: {}", getName(), exec.getName());
 			
 			exec = null;
 			
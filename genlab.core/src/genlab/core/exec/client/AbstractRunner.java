@@ -0,0 +1,429 @@
+package genlab.core.exec.client;
+
+import genlab.core.exec.AlgoDurationsHistory;
+import genlab.core.exec.CriticalPathPriorities;
+import genlab.core.exec.IAlgoExecutionRemotable;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.IRunner;
+import genlab.core.exec.ITask;
+import genlab.core.exec.ITasksDynamicProducer;
+import genlab.core.exec.ResourcesBudget;
+import genlab.core.exec.ResourcesDemand;
+import genlab.core.exec.TasksManager;
+import genlab.core.exec.ValuesRelease;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.ListsOfMessages;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+
+/**
+ * Common basis for the local runners.
+ *
+ * Manages what does not depend on the actual scheduling strategy:
+ * <ul>
+ * <li>the queues shared with the threads which delegate tasks to distant servers</li>
+ * <li>the dynamic tasks producers (loops, explorations...)</li>
+ * <li>the cancellation flag</li>
+ * </ul>
+ *
+ * The actual policy (which task runs when, and in which thread) is implemented by children.
+ *
+ * @see Runner
+ * @see WorkStealingRunner
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public abstract class AbstractRunner extends Thread implements IRunner {
+
+	final static int START_TASKS_SIZE = 500;
+
+	final HashSet<ITasksDynamicProducer> tasksProducers = new HashSet<ITasksDynamicProducer>();
+
+	/**
+	 * If true, all tasks should be canceled as soon as possible.
+	 */
+	protected volatile boolean cancel = false;
+
+	protected final ListOfMessages messagesRun;
+
+	/**
+	 * Contains worker threads which do use the CPU, including the ones
+	 * which delegate to distant servers.
+	 */
+	protected Set<Thread> threadsPoolTaskWithThreads = new HashSet<Thread>(500);
+
+	/**
+	 * Tasks to be ran locally. Also used by distant threads as a backup queue
+	 * when a distant execution failed. The most critical tasks are taken first.
+	 */
+	protected final BlockingQueue<IAlgoExecution> readyToComputeWithThreads = new PriorityBlockingQueue<IAlgoExecution>(
+			START_TASKS_SIZE, 
+			CriticalPathPriorities.COMPARATOR_PRIORITY
+			);
+
+	/**
+	 * Contains worker threads which delegate to distant servers. The most critical 
+	 * tasks are taken first.
+	 */
+	protected final BlockingQueue<IAlgoExecutionRemotable> readyToComputeRemotable = new PriorityBlockingQueue<IAlgoExecutionRemotable>(
+			START_TASKS_SIZE, 
+			CriticalPathPriorities.COMPARATOR_PRIORITY
+			);
+
+	/**
+	 * Notified when one of the queues of tasks was changed.
+	 */
+	protected final Object lockerBothQueues = new Object();
+
+	/**
+	 * The resources that tasks may use, besides threads
+	 */
+	protected final ResourcesBudget resourcesBudget;
+
+	/**
+	 * The tasks which are ready, but wait for resources to be available,
+	 * ordered by decreasing priority.
+	 * Also acts as the locker for the resources budget decisions.
+	 */
+	private final LinkedList<IAlgoExecution> waitingForResources = new LinkedList<IAlgoExecution>();
+
+	/**
+	 * The resources acquired by each task currently admitted
+	 */
+	private final ConcurrentHashMap<IAlgoExecution,ResourcesDemand> task2acquiredResources = new ConcurrentHashMap<IAlgoExecution, ResourcesDemand>();
+
+
+	/**
+	 * @param name the name of the thread
+	 * @param availableLocalThreads the count of threads running tasks, used to size the resources budget
+	 */
+	protected AbstractRunner(String name, int availableLocalThreads) {
+
+		this.messagesRun =  ListsOfMessages.getGenlabMessages();
+		this.resourcesBudget = new ResourcesBudget(availableLocalThreads);
+
+		setName(name);
+		setPriority(MIN_PRIORITY);
+		setDaemon(true);
+
+	}
+
+	/**
+	 * Wakes up the main loop of the runner, so it reconsiders its state
+	 * (for instance: asks the dynamic producers for more tasks).
+	 */
+	protected abstract void wakeUp();
+
+	/**
+	 * Actually submits a task which is ready and which was granted its resources
+	 * @param exec
+	 */
+	protected abstract void submitAdmittedTask(IAlgoExecution exec);
+
+	/**
+	 * Submits this ready task if the resources it declares are available; else the task will be submitted 
+	 * as soon as resources are released by other tasks.
+	 * @param exec
+	 */
+	protected void submitTaskIfResourcesAvailable(IAlgoExecution exec) {
+
+		ResourcesDemand demand = null;
+		if (exec instanceof IResourcesConsumer) {
+			try {
+				demand = ((IResourcesConsumer)exec).getResourcesDemand();
+			} catch (RuntimeException e) {
+				messagesRun.warnTech("error while evaluating the resources needed by "+exec+"; will assume it requires nothing", getClass(), e);
+			}
+		}
+
+		if (demand == null || demand.isEmpty()) {
+			submitAdmittedTask(exec);
+			return;
+		}
+
+		synchronized (waitingForResources) {
+			if (!resourcesBudget.tryAcquire(demand)) {
+				messagesRun.debugTech(getClass(), "not enough resources for {} ({}), will wait for them", exec, demand);
+				// keep the most critical tasks first
+				ListIterator<IAlgoExecution> itWaiting = waitingForResources.listIterator();
+				while (itWaiting.hasNext()) {
+					if (CriticalPathPriorities.COMPARATOR_PRIORITY.compare(exec, itWaiting.next()) < 0) {
+						itWaiting.previous();
+						break;
+					}
+				}
+				itWaiting.add(exec);
+				return;
+			}
+			task2acquiredResources.put(exec, demand);
+		}
+
+		submitAdmittedTask(exec);
+	}
+
+	/**
+	 * Releases the resources acquired by this task (if any), and submits the tasks which were waiting 
+	 * for them.
+	 * @param exec
+	 */
+	protected void releaseResources(IAlgoExecution exec) {
+
+		final ResourcesDemand demand = task2acquiredResources.remove(exec);
+
+		LinkedList<IAlgoExecution> admitted = null;
+
+		synchronized (waitingForResources) {
+
+			if (demand != null)
+				resourcesBudget.release(demand);
+
+			if (waitingForResources.isEmpty())
+				return;
+
+			// forget the tasks cancelled meanwhile...
+			admitted = new LinkedList<IAlgoExecution>();
+			Iterator<IAlgoExecution> itWaiting = waitingForResources.iterator();
+			while (itWaiting.hasNext()) {
+				final IAlgoExecution waiting = itWaiting.next();
+				if (waiting == exec || waiting.getProgress().getComputationState().isFinished()) {
+					itWaiting.remove();
+					continue;
+				}
+				if (demand == null)
+					continue;
+				// ... and admit the ones which now fit in the budget
+				final ResourcesDemand demandWaiting = ((IResourcesConsumer)waiting).getResourcesDemand();
+				if (resourcesBudget.tryAcquire(demandWaiting)) {
+					itWaiting.remove();
+					task2acquiredResources.put(waiting, demandWaiting);
+					admitted.add(waiting);
+				}
+			}
+		}
+
+		for (IAlgoExecution e: admitted) {
+			messagesRun.debugTech(getClass(), "resources are now available for {}", e);
+			submitAdmittedTask(e);
+		}
+	}
+
+	/**
+	 * Should be called when a task finished; remembers its duration so 
+	 * the priorities of the next tasks are more accurate.
+	 * @param exec
+	 */
+	protected void recordDuration(IAlgoExecution exec) {
+		try {
+			AlgoDurationsHistory.singleton.record(exec);
+		} catch (RuntimeException e) {
+			messagesRun.warnTech("unable to record the duration of task "+exec, getClass(), e);
+		}
+	}
+
+	/**
+	 * Should be called when a task finished; releases the values it does not need anymore.
+	 * @param exec
+	 */
+	protected void releaseValues(IAlgoExecution exec) {
+		try {
+			ValuesRelease.singleton.taskFinished(exec);
+		} catch (RuntimeException e) {
+			messagesRun.warnTech("unable to release the values of task "+exec, getClass(), e);
+		}
+	}
+
+	/**
+	 * Returns the count of ready tasks which wait for resources
+	 * @return
+	 */
+	public int getCountWaitingForResources() {
+		synchronized (waitingForResources) {
+			return waitingForResources.size();
+		}
+	}
+
+	@Override
+	public ResourcesBudget getResourcesBudget() {
+		return resourcesBudget;
+	}
+
+	/**
+	 * Should be called by children at the end of their constructor;
+	 * notifies the world of our existence.
+	 */
+	protected void declareRunner() {
+		TasksManager.singleton.addRunner(this);
+	}
+
+	protected void addWorkingThread(Thread thread) {
+
+		synchronized (threadsPoolTaskWithThreads) {
+			messagesRun.infoTech("adding working thread: "+thread.getName(), getClass());
+
+			thread.start();
+			threadsPoolTaskWithThreads.add(thread);
+		}
+	}
+
+	protected void removeWorkingThread(Thread thread) {
+
+		synchronized (threadsPoolTaskWithThreads) {
+			messagesRun.infoTech("removing working thread: "+thread.getName(), getClass());
+
+			threadsPoolTaskWithThreads.remove(thread);
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see genlab.core.exec.IRunner#addTasks(java.util.Collection)
+	 */
+	@Override
+	public void addTasks(Collection<IAlgoExecution> allTasks) {
+
+		for (IAlgoExecution e: allTasks)
+			addTask(e);
+
+	}
+
+	/**
+	 * Proposes to one dynamic producer to submit a novel task.
+	 * Returns true if a novel task was added.
+	 * @return
+	 */
+	protected boolean proposeDynamicProducersToWork() {
+
+		synchronized (tasksProducers) {
+
+			if (tasksProducers.isEmpty())
+				return false;
+
+			messagesRun.debugTech("proposing to tasks producers to submit novel tasks...", getClass());
+
+			Iterator<ITasksDynamicProducer> itProducers = tasksProducers.iterator();
+			while (itProducers.hasNext()) {
+
+				ITasksDynamicProducer producer = itProducers.next();
+
+				if (!producer.willMoreTasks()) {
+					// this producer has no more work; let's leave him alone
+					itProducers.remove();
+					messagesRun.debugTech(getClass(), "task producer {} has no more tasks", producer);
+					continue;
+				}
+
+				if (producer.cannotSendTasksNow()) {
+					// this producer will send tasks later, but not now
+					// just don't focus on it
+					continue;
+				}
+
+				messagesRun.debugTech(getClass(), "proposing to task producer {} to submit novel tasks...", producer);
+
+				IAlgoExecution t = null;
+
+				try {
+					t = producer.provideMoreTasks();
+				} catch (RuntimeException e) {
+					messagesRun.errorTech("error while proposing a producer to submit jobs:"+e.getMessage(), getClass(), e);
+					// TODO invalidate something !
+					// TODO change tasks producer so it provides the info about its container task
+				}
+
+				if (t == null) {
+					tasksProducers.remove(producer);
+					messagesRun.debugTech(getClass(), "task producer {} has no more tasks", producer);
+					return false;
+				} else {
+					addTask(t);
+					return true;
+				}
+
+			}
+
+			return false;
+
+
+		}
+	}
+
+	/* (non-Javadoc)
+	 * @see genlab.core.exec.IRunner#registerTasksDynamicProducer(genlab.core.exec.ITasksDynamicProducer)
+	 */
+	@Override
+	public void registerTasksDynamicProducer(ITasksDynamicProducer producer) {
+		synchronized (tasksProducers) {
+			messagesRun.debugTech(getClass(), "registered a novel tasks producer: {}", producer);
+			tasksProducers.add(producer);
+		}
+		wakeUp();
+	}
+
+	public abstract void cancelTasks();
+
+	/* (non-Javadoc)
+	 * @see genlab.core.exec.IRunner#cancel()
+	 */
+	@Override
+	public void cancel() {
+		cancelTasks();
+
+	}
+
+	/* (non-Javadoc)
+	 * @see genlab.core.exec.IRunner#kill()
+	 */
+	@Override
+	public void kill() {
+		// TODO
+		cancelTasks();
+	}
+
+	@Override
+	public void propagateRank(Integer rank, Set<ITask> visited) {
+		// not relevant
+	}
+
+	/**
+	 * Returns true if at least one thread delegates tasks to a distant server.
+	 * @return
+	 */
+	protected boolean hasDistantWorkers() {
+		synchronized (threadsPoolTaskWithThreads) {
+			for (Thread t: threadsPoolTaskWithThreads) {
+				if (t instanceof WorkingRunnerDistanceThread)
+					return true;
+			}
+		}
+		return false;
+	}
+
+	public void addRunnerDistant(WorkingRunnerDistanceThread thread) {
+
+		try {
+
+			addWorkingThread(thread);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+			// TODO error !
+		}
+	}
+
+	public void removeRunnerDistant(WorkingRunnerDistanceThread thread) {
+		try {
+			removeWorkingThread(thread);
+		} catch (RuntimeException e) {
+			e.printStackTrace();
+		}
+	}
+
+}
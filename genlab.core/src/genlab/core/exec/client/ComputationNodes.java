@@ -1,5 +1,7 @@
 package genlab.core.exec.client;
 
+import genlab.core.exec.ResourcesBudget;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.exec.client.DistantGenlabServerManager.ManagerState;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
@@ -22,6 +24,23 @@ import java.util.Set;
 public class ComputationNodes {
 
 	
+	/**
+	 * The implementations of local runners available
+	 */
+	public enum RunnerKind {
+		
+		/**
+		 * the historical runner: sets of tasks and blocking queues
+		 */
+		CLASSIC,
+		
+		/**
+		 * fork/join pool with work stealing; scales better with many tasks and cores
+		 */
+		WORK_STEALING;
+		
+	}
+	
 	private static final ComputationNodes singleton = new ComputationNodes();
 	
 	public static final ComputationNodes getSingleton() {
@@ -31,7 +50,7 @@ public class ComputationNodes {
 	/**
 	 * The actual runner. 
 	 */
-	private Runner runner = null;
+	private AbstractRunner runner = null;
 	
 	/**
 	 * Messages used internally to communicate with the user
@@ -43,6 +62,46 @@ public class ComputationNodes {
 	 */
 	private int parameterLocalThreadsMax = Runtime.getRuntime().availableProcessors();
 	
+	/**
+	 * Parameter: the kind of local runner to create.
+	 */
+	private RunnerKind parameterRunnerKind = RunnerKind.CLASSIC;
+	
+	/**
+	 * Parameter: max number of threads used to run control tasks (tasks which use no CPU). 
+	 * 0 means the classic runner creates these threads on demand.
+	 */
+	private int parameterControlThreadsMax = 0;
+	
+	/**
+	 * Parameter: max count of tasks sent to each distant server without waiting for their results.
+	 * 0 means one thread per task accepted by the server, each one waiting for its task to finish.
+	 */
+	private int parameterRemoteTasksInFlight = 0;
+	
+	/**
+	 * Parameter: heap (in Mb) which tasks declaring their resources may use together.
+	 * 0 means a part of the max memory of this JVM.
+	 */
+	private int parameterResourcesHeapMb = 0;
+	
+	/**
+	 * Parameter: native memory (in Mb) which tasks declaring their resources may use together.
+	 * 0 means no limit.
+	 */
+	private int parameterResourcesNativeMb = 0;
+	
+	/**
+	 * Parameter: count of tasks intensive in disk or network access which may run together.
+	 * 0 means as many as local threads.
+	 */
+	private int parameterResourcesIoSlots = 0;
+	
+	/**
+	 * Balances the tasks between distant servers
+	 */
+	private final NodesScheduler nodesScheduler = new NodesScheduler();
+	
 	/**
 	 * Associates an host to its manager
 	 */
@@ -75,13 +134,21 @@ public class ComputationNodes {
 	 * and/or distantly.
 	 * @return
 	 */
-	public Runner getDefaultRunner() {
+	public AbstractRunner getDefaultRunner() {
 		if (runner == null) {
 			
 			setUpPermissiveSecurityManager();
 
 			messages.infoUser("starting a computation node with "+parameterLocalThreadsMax+" threads.", getClass());
-			runner = new Runner(parameterLocalThreadsMax);
+			switch (parameterRunnerKind) {
+			case WORK_STEALING:
+				runner = new WorkStealingRunner(parameterLocalThreadsMax, parameterControlThreadsMax);
+				break;
+			case CLASSIC:
+			default:
+				runner = new Runner(parameterLocalThreadsMax, parameterControlThreadsMax);
+			}
+			applyParametersResources();
 			runner.start();
 			
 		}
@@ -96,6 +163,97 @@ public class ComputationNodes {
 		return this.parameterLocalThreadsMax;
 	}
 	
+	/**
+	 * Defines the kind of runner to use. Only used when the default runner is created.
+	 * @param kind
+	 */
+	public void setParameterRunnerKind(RunnerKind kind) {
+		this.parameterRunnerKind = kind;
+	}
+	
+	public RunnerKind getParameterRunnerKind() {
+		return this.parameterRunnerKind;
+	}
+	
+	/**
+	 * Defines the max count of threads running control tasks. Only used when the default runner is created.
+	 * @param max
+	 */
+	public void setParameterControlThreadsMax(int max) {
+		this.parameterControlThreadsMax = max;
+	}
+	
+	public int getParameterControlThreadsMax() {
+		return this.parameterControlThreadsMax;
+	}
+	
+	/**
+	 * Defines the max count of tasks sent to each distant server in a pipelined way (0 to send tasks one by one).
+	 * Only used for the servers connected afterwards.
+	 * @param max
+	 */
+	public void setParameterRemoteTasksInFlight(int max) {
+		this.parameterRemoteTasksInFlight = max;
+	}
+	
+	public int getParameterRemoteTasksInFlight() {
+		return this.parameterRemoteTasksInFlight;
+	}
+	
+	/**
+	 * Defines the capacities of the resources budget of the local runner (0 for the default of each one).
+	 * Applied to the runner immediately if it already exists.
+	 * @param heapMb heap in Mb (0: a part of the max memory of this JVM)
+	 * @param nativeMb native memory in Mb (0: no limit)
+	 * @param ioSlots count of tasks intensive in IO running together (0: as many as local threads)
+	 */
+	public void setParameterResources(int heapMb, int nativeMb, int ioSlots) {
+		this.parameterResourcesHeapMb = heapMb;
+		this.parameterResourcesNativeMb = nativeMb;
+		this.parameterResourcesIoSlots = ioSlots;
+		if (runner != null)
+			applyParametersResources();
+	}
+	
+	public int getParameterResourcesHeapMb() {
+		return parameterResourcesHeapMb;
+	}
+	
+	public int getParameterResourcesNativeMb() {
+		return parameterResourcesNativeMb;
+	}
+	
+	public int getParameterResourcesIoSlots() {
+		return parameterResourcesIoSlots;
+	}
+	
+	protected void applyParametersResources() {
+		
+		final ResourcesBudget budget = runner.getResourcesBudget();
+		
+		budget.setCapacityHeapBytes(
+				parameterResourcesHeapMb > 0 ? 
+						parameterResourcesHeapMb*ResourcesDemand.MEGABYTE 
+						: ResourcesBudget.getDefaultCapacityHeapBytes()
+				);
+		budget.setCapacityNativeBytes(
+				parameterResourcesNativeMb > 0 ? 
+						parameterResourcesNativeMb*ResourcesDemand.MEGABYTE 
+						: Long.MAX_VALUE
+				);
+		budget.setCapacityIoSlots(
+				parameterResourcesIoSlots > 0 ? 
+						parameterResourcesIoSlots 
+						: Math.max(1, parameterLocalThreadsMax)
+				);
+		
+		messages.debugTech("resources for the local runner: "+budget.getHumanReadableState(), getClass());
+	}
+	
+	public NodesScheduler getNodesScheduler() {
+		return nodesScheduler;
+	}
+	
 	protected void manageDistantHost(final ServerHostPreference host) {
 		
 		DistantGenlabServerManager server = host2serverManager.get(host);
@@ -0,0 +1,203 @@
+package genlab.core.exec.client;
+
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.ListsOfMessages;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs the control tasks, that is the tasks which declare they use no thread
+ * (supervisors, iterations, reduce controllers...).
+ *
+ * These tasks never wait: they start their children, then return; they are
+ * later driven by the events of their children. So a few threads are enough to run
+ * any quantity of them, whatever the depth of nested containers: the control tasks are queued
+ * and multiplexed on a pool of fixed size, which plays the role of a continuation scheduler.
+ *
+ * Also collects metrics about the control tasks.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ControlTasksExecutor {
+
+	public static final int DEFAULT_MAX_THREADS = 2;
+
+	private final ThreadPoolExecutor pool;
+
+	private final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
+
+	/*
+	 * metrics
+	 */
+	private final AtomicLong countSubmitted = new AtomicLong(0);
+	private final AtomicLong countFinished = new AtomicLong(0);
+	private final AtomicLong countFailed = new AtomicLong(0);
+	private final AtomicLong cumulatedDurationNs = new AtomicLong(0);
+	private final AtomicLong maxDurationNs = new AtomicLong(0);
+	private final AtomicInteger countRunning = new AtomicInteger(0);
+	private final AtomicInteger peakQueued = new AtomicInteger(0);
+
+	/**
+	 * Creates a pool running control tasks in at most maxThreads threads.
+	 * @param name
+	 * @param maxThreads
+	 */
+	public ControlTasksExecutor(final String name, int maxThreads) {
+
+		if (maxThreads <= 0)
+			maxThreads = DEFAULT_MAX_THREADS;
+
+		pool = new ThreadPoolExecutor(
+				maxThreads,
+				maxThreads,
+				30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(),
+				new ThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger(0);
+
+					@Override
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, name+"_"+count.getAndIncrement());
+						t.setDaemon(true);
+						t.setPriority(Thread.MIN_PRIORITY);
+						return t;
+					}
+				}
+				);
+		// no need to keep idle threads when nothing happens
+		pool.allowCoreThreadTimeOut(true);
+
+	}
+
+	/**
+	 * Queues this control task; it will be ran as soon as a control thread is available.
+	 * @param exec
+	 */
+	public void execute(final IAlgoExecution exec) {
+
+		countSubmitted.incrementAndGet();
+
+		pool.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				runControlTask(exec);
+			}
+		});
+
+		final int queued = pool.getQueue().size();
+		int peak;
+		while ((peak = peakQueued.get()) < queued && !peakQueued.compareAndSet(peak, queued)) {
+		}
+
+	}
+
+	protected void runControlTask(IAlgoExecution exec) {
+
+		countRunning.incrementAndGet();
+		final long start = System.nanoTime();
+
+		try {
+			exec.run();
+		} catch (Exception e) {
+			countFailed.incrementAndGet();
+			messages.errorUser("task "+exec.getName()+" raised an error:"+e.getMessage(), getClass(), e);
+			exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
+			exec.getProgress().setException(e);
+		} catch (OutOfMemoryError e) {
+			countFailed.incrementAndGet();
+			messages.errorUser("no more memory while processing task "+exec.getName()+"; update the memory settings", getClass(), e);
+			exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
+			exec.getProgress().setException(e);
+		} finally {
+
+			final long duration = System.nanoTime() - start;
+			cumulatedDurationNs.addAndGet(duration);
+			long max;
+			while ((max = maxDurationNs.get()) < duration && !maxDurationNs.compareAndSet(max, duration)) {
+			}
+
+			countRunning.decrementAndGet();
+			countFinished.incrementAndGet();
+		}
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	public int getMaxThreads() {
+		return pool.getMaximumPoolSize();
+	}
+
+	/**
+	 * Returns the count of threads currently alive in this pool
+	 * @return
+	 */
+	public int getCountThreads() {
+		return pool.getPoolSize();
+	}
+
+	public int getCountQueued() {
+		return pool.getQueue().size();
+	}
+
+	public int getCountRunning() {
+		return countRunning.get();
+	}
+
+	public long getCountSubmitted() {
+		return countSubmitted.get();
+	}
+
+	public long getCountFinished() {
+		return countFinished.get();
+	}
+
+	public long getCountFailed() {
+		return countFailed.get();
+	}
+
+	public int getPeakQueued() {
+		return peakQueued.get();
+	}
+
+	/**
+	 * Returns the mean duration of a control task, in milliseconds
+	 * @return
+	 */
+	public double getMeanDurationMs() {
+		final long finished = countFinished.get();
+		if (finished == 0)
+			return 0;
+		return cumulatedDurationNs.get()/1000000.0/finished;
+	}
+
+	public double getMaxDurationMs() {
+		return maxDurationNs.get()/1000000.0;
+	}
+
+	public String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+		sb
+			.append(getCountThreads()).append("/").append(getMaxThreads()).append(" control threads, ")
+			.append(getCountRunning()).append(" control tasks running, ")
+			.append(getCountQueued()).append(" queued (peak ").append(getPeakQueued()).append("), ")
+			.append(getCountFinished()).append(" finished (").append(getCountFailed()).append(" failed, ")
+			.append(String.format("%.2f", getMeanDurationMs())).append(" ms mean, ")
+			.append(String.format("%.2f", getMaxDurationMs())).append(" ms max)")
+			;
+		return sb.toString();
+	}
+
+}
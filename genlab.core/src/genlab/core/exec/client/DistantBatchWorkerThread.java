@@ -0,0 +1,371 @@
+package genlab.core.exec.client;
+
+import genlab.core.exec.IAlgoExecutionRemotable;
+import genlab.core.exec.server.DistantExecutionResult;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.performance.MetricsRegistry;
+import genlab.core.performance.TimelineProfiler;
+
+import java.rmi.ConnectException;
+import java.rmi.RemoteException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delegates tasks to a distant server by batches: 
+ * up to maxInFlight tasks are sent to the server without waiting for the previous ones, 
+ * several tasks being sent in one call; the results are streamed back
+ * as soon as each task finishes. So one thread is enough to keep a server busy, 
+ * and the network round-trips do not delay each task anymore.
+ * 
+ * In case of failure, the tasks are put back in the local queue, as done 
+ * by the {@link WorkingRunnerDistanceThread}.
+ * 
+ * The count of tasks in flight and the stealing of tasks between servers 
+ * are driven by the {@link NodesScheduler}.
+ * 
+ * As for local runs, the duration of each task is recorded in the {@link MetricsRegistry} and 
+ * the {@link TimelineProfiler}; it is measured from here, so it includes the network and the 
+ * delay spent in the queue of the server.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class DistantBatchWorkerThread extends WorkingRunnerDistanceThread {
+
+	/**
+	 * Max duration of a wait for distant results when no novel task has to be sent
+	 */
+	public static final long COLLECT_TIMEOUT_MS = 200;
+	
+	/**
+	 * Max duration of a wait for local tasks when nothing is running distantly
+	 */
+	public static final long POLL_TIMEOUT_MS = 500;
+	
+	/**
+	 * Weight of the last duration measured in the mean duration of tasks
+	 */
+	public static final double DURATION_SMOOTHING = 0.2;
+	
+	private final int maxInFlight;
+	
+	private final NodesScheduler scheduler;
+	
+	/**
+	 * Identifies this client for the server
+	 */
+	private final String clientId;
+	
+	/**
+	 * The tasks currently sent to the server, associated to their identifier.
+	 */
+	private final Map<Long,IAlgoExecution> inFlight = new LinkedHashMap<Long, IAlgoExecution>();
+	
+	/**
+	 * When each task in flight was sent (nanoseconds)
+	 */
+	private final Map<Long,Long> id2timestampSent = new HashMap<Long, Long>();
+	
+	private volatile int countInFlight = 0;
+	
+	/**
+	 * Mean duration of a task (as seen from here, so network included), or -1 if unknown
+	 */
+	private volatile double meanTaskDurationMs = -1;
+	
+	/**
+	 * Count of tasks queued on the server that other workers would like us to give back
+	 */
+	private final AtomicInteger countToGiveBack = new AtomicInteger(0);
+	
+	private final AtomicLong countStolenFrom = new AtomicLong(0);
+	
+	private long timestampLastSteal = 0;
+	
+	private long nextTaskId = 0;
+	
+	public DistantBatchWorkerThread(
+			String serverName, 
+			String name,
+			BlockingQueue<IAlgoExecutionRemotable> readyToCompute,
+			BlockingQueue<IAlgoExecution> backupQueue, 
+			Object lockerQueue,
+			DistantGenlabServerManager server,
+			int maxInFlight,
+			NodesScheduler scheduler) {
+		
+		super(serverName, name, readyToCompute, backupQueue, lockerQueue, server);
+		
+		this.maxInFlight = Math.max(1, maxInFlight);
+		this.scheduler = scheduler;
+		this.clientId = name+"@"+UUID.randomUUID().toString();
+	}
+	
+	public int getMaxInFlight() {
+		return maxInFlight;
+	}
+	
+	public int getCountInFlight() {
+		return countInFlight;
+	}
+	
+	/**
+	 * Returns the count of tasks the server runs in parallel
+	 * @return
+	 */
+	public int getSlots() {
+		return server.getNumberOfTasksAccepted();
+	}
+	
+	public long getLatencyMs() {
+		return server.getLatencyMs();
+	}
+	
+	public double getMeanTaskDurationMs() {
+		return meanTaskDurationMs;
+	}
+	
+	public long getCountStolenFrom() {
+		return countStolenFrom.get();
+	}
+	
+	/**
+	 * Asks this worker to put back in the common queue some of the tasks which wait 
+	 * in its server, so idle servers can take them. 
+	 * @param count
+	 */
+	public void requestGiveBack(int count) {
+		countToGiveBack.addAndGet(count);
+	}
+	
+	private void updateCountInFlight() {
+		countInFlight = inFlight.size();
+	}
+	
+	private void updateMeanDuration(long durationMs) {
+		if (meanTaskDurationMs < 0)
+			meanTaskDurationMs = durationMs;
+		else 
+			meanTaskDurationMs = (1-DURATION_SMOOTHING)*meanTaskDurationMs + DURATION_SMOOTHING*durationMs;
+	}
+	
+	/**
+	 * Takes from the local queue the tasks to send, so there are at most maxInFlight
+	 * tasks in flight. Waits for a first task only if nothing runs distantly.
+	 * @return
+	 * @throws InterruptedException
+	 */
+	protected Map<Long,IAlgoExecution> takeNextBatch() throws InterruptedException {
+		
+		Map<Long,IAlgoExecution> batch = new LinkedHashMap<Long, IAlgoExecution>();
+		
+		if (inFlight.isEmpty()) {
+			IAlgoExecution first = readyToCompute.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+			if (first == null)
+				return batch;
+			batch.put(nextTaskId++, first);
+		}
+		
+		final int target = scheduler.getTargetInFlight(this);
+		while (inFlight.size() + batch.size() < target) {
+			IAlgoExecution exec = readyToCompute.poll();
+			if (exec == null)
+				break;
+			batch.put(nextTaskId++, exec);
+		}
+		
+		return batch;
+	}
+	
+	/**
+	 * Puts all the tasks in flight back in the local queue
+	 */
+	protected void reinsertTasksInFlight() {
+		
+		for (IAlgoExecution exec: inFlight.values()) {
+			reinsertTaskInBackupQueue(exec);
+		}
+		inFlight.clear();
+		id2timestampSent.clear();
+		updateCountInFlight();
+	}
+	
+	/**
+	 * If other workers asked for it, takes back from the server the last tasks sent, 
+	 * if they did not start yet, and puts them in the common queue.
+	 * @return the count of tasks given back
+	 * @throws RemoteException
+	 */
+	protected int giveBackTasksIfRequested() throws RemoteException {
+		
+		final int requested = countToGiveBack.getAndSet(0);
+		if (requested <= 0)
+			return 0;
+		
+		// the last tasks sent are the most likely to be still queued
+		final int queued = inFlight.size() - Math.max(1, getSlots());
+		final int count = Math.min(requested, queued);
+		if (count <= 0)
+			return 0;
+		
+		long[] candidates = new long[count];
+		int idx = 0;
+		int toSkip = inFlight.size() - count;
+		for (Long id: inFlight.keySet()) {
+			if (toSkip-- > 0)
+				continue;
+			candidates[idx++] = id;
+		}
+		
+		long[] removed = server.getDistantServer().cancelQueuedTasks(clientId, candidates);
+		
+		for (long id: removed) {
+			IAlgoExecution exec = inFlight.remove(id);
+			id2timestampSent.remove(id);
+			if (exec != null) 
+				readyToCompute.add((IAlgoExecutionRemotable)exec);
+		}
+		updateCountInFlight();
+		countStolenFrom.addAndGet(removed.length);
+		
+		if (removed.length > 0) {
+			messages.debugTech(getName()+" gave back "+removed.length+" tasks queued on server "+serverName, getClass());
+			synchronized (lockerQueue) {
+				lockerQueue.notifyAll();
+			}
+		}
+		
+		return removed.length;
+	}
+	
+	/**
+	 * When idle, proposes to steal tasks queued in slower servers (at most once per collect delay)
+	 */
+	protected void stealIfIdle() {
+		
+		if (inFlight.size() >= Math.max(1, getSlots()) || !readyToCompute.isEmpty())
+			return;
+		
+		final long now = System.currentTimeMillis();
+		if (now - timestampLastSteal < COLLECT_TIMEOUT_MS)
+			return;
+		timestampLastSteal = now;
+		
+		scheduler.proposeSteal(this);
+	}
+	
+	@Override
+	public void run() {
+		
+		scheduler.registerWorker(this);
+		
+		while (!askStop) {
+			
+			try {
+				
+				final int givenBack = giveBackTasksIfRequested();
+				
+				// fill the pipeline, but leave the tasks just given back to the idle workers
+				Map<Long,IAlgoExecution> batch = givenBack > 0 ? 
+						new LinkedHashMap<Long, IAlgoExecution>() 
+						: takeNextBatch();
+				
+				if (!batch.isEmpty()) {
+					
+					for (IAlgoExecution exec: batch.values()) {
+						exec.getProgress().setProgressTotal(1);
+						exec.getProgress().setComputationState(ComputationState.STARTED);
+						TimelineProfiler.singleton.taskRunStarted(exec, getName()+" (remote "+serverName+")");
+					}
+					inFlight.putAll(batch);
+					final Long now = System.nanoTime();
+					for (Long id: batch.keySet()) {
+						id2timestampSent.put(id, now);
+					}
+					updateCountInFlight();
+					
+					messages.debugTech(getName()+" sending "+batch.size()+" tasks to server "+serverName+" ("+inFlight.size()+" in flight)", getClass());
+					server.getDistantServer().submitTasks(clientId, batch);
+				}
+				
+				if (batch.isEmpty())
+					stealIfIdle();
+				
+				if (inFlight.isEmpty())
+					continue;
+				
+				// retrieve the results available; only wait for them if there is nothing else to do
+				List<DistantExecutionResult> results = server.getDistantServer().collectResults(
+						clientId, 
+						maxInFlight, 
+						batch.isEmpty() ? COLLECT_TIMEOUT_MS : 0
+						);
+				
+				for (DistantExecutionResult execResult: results) {
+					
+					IAlgoExecution exec = inFlight.remove(execResult.taskId);
+					Long timestampSent = id2timestampSent.remove(execResult.taskId);
+					updateCountInFlight();
+					final long durationNs = timestampSent == null ? -1 : System.nanoTime() - timestampSent;
+					if (durationNs >= 0)
+						updateMeanDuration(durationNs/1000000);
+					if (exec == null) {
+						messages.warnTech("received from server "+serverName+" the result of an unknown task "+execResult.taskId+"; ignoring it", getClass());
+						continue;
+					}
+					
+					if (durationNs >= 0)
+						MetricsRegistry.singleton.recordTask(exec, durationNs);
+					TimelineProfiler.singleton.taskRunEnded(exec);
+					
+					try {
+						processDistantResult(exec, execResult);
+					} catch (RuntimeException e) {
+						messages.errorUser("task "+exec.getName()+" raised an error:"+e.getMessage(), getClass(), e);
+						reinsertTaskInBackupQueue(exec);
+					}
+				}
+				
+			} catch (InterruptedException e) {
+				messages.warnTech(getName()+" interrupted while waiting for tasks", getClass(), e);
+			} catch(ConnectException e) {
+				messages.warnUser("connection issue with server "+serverName+" while "+inFlight.size()+" tasks were running there; suggesting a reconnection to the server", getClass()); 
+				reinsertTasksInFlight();
+				scheduler.unregisterWorker(this);
+				server.disconnectAndReconnect();
+				return;
+			} catch (RemoteException e) {
+				messages.errorUser("server "+serverName+" raised a distant error: "+e.getMessage(), getClass(), e);
+				reinsertTasksInFlight();
+			} catch (RuntimeException e) {
+				messages.errorUser("error while delegating tasks to server "+serverName+": "+e.getMessage(), getClass(), e);
+				reinsertTasksInFlight();
+			}
+			
+		}
+		
+		scheduler.unregisterWorker(this);
+		
+		// the results of the tasks still running will never be collected
+		reinsertTasksInFlight();
+		try {
+			server.getDistantServer().closeSession(clientId);
+		} catch (RemoteException e) {
+			messages.warnTech("unable to close the session on server "+serverName+": "+e.getMessage(), getClass(), e);
+		} catch (RuntimeException e) {
+			// the server is probably already unavailable
+		}
+		
+		messages.debugTech(getName()+": closing thread.", getClass());
+	}
+
+}
@@ -39,6 +39,11 @@ public class DistantGenlabServerManager {
 	
 	private int numberOfThreads = 0;
 	
+	/**
+	 * Mean delay of a ping, as measured at connection
+	 */
+	private long latencyMs = 0;
+	
 	/**
 	 * The set of threads running on this server
 	 */
@@ -65,6 +70,22 @@ public class DistantGenlabServerManager {
 		return state;
 	}
 	
+	/**
+	 * Returns the count of tasks this server runs in parallel
+	 * @return
+	 */
+	public int getNumberOfTasksAccepted() {
+		return numberOfThreads;
+	}
+	
+	/**
+	 * Returns the mean delay of a ping to this server
+	 * @return
+	 */
+	public long getLatencyMs() {
+		return latencyMs;
+	}
+	
 	public void connect() {
 	
 		state = ManagerState.CONNECTING;
@@ -136,7 +157,8 @@ public class DistantGenlabServerManager {
 				state = ManagerState.CONNECTION_PROBLEM;
 			}
 		}
-		messages.infoTech("delay between us and server "+hostname+":"+port+": "+(cumulated/total)+" ms", getClass());
+		latencyMs = cumulated/total;
+		messages.infoTech("delay between us and server "+hostname+":"+port+": "+latencyMs+" ms", getClass());
 
 	}
 
@@ -151,7 +173,33 @@ public class DistantGenlabServerManager {
 		if (state != ManagerState.CONNECTED)
 			return;
 		
-		Runner runner = ComputationNodes.getSingleton().getDefaultRunner();
+		AbstractRunner runner = ComputationNodes.getSingleton().getDefaultRunner();
+		
+		final int tasksInFlight = ComputationNodes.getSingleton().getParameterRemoteTasksInFlight();
+		if (tasksInFlight > 0) {
+			// one thread is enough to feed the server with batches of tasks
+			if (!threads.isEmpty())
+				return;
+			try {
+				messages.infoUser("starting a batch working thread on server "+hostname+":"+port+" (up to "+tasksInFlight+" tasks in flight)", getClass());
+				DistantBatchWorkerThread thread = new DistantBatchWorkerThread(
+						hostname+":"+port,
+						"worker_distant_batch_"+hostname+":"+port, 
+						runner.readyToComputeRemotable, 
+						runner.readyToComputeWithThreads, 		
+						runner.lockerBothQueues,
+						this,
+						tasksInFlight,
+						ComputationNodes.getSingleton().getNodesScheduler()
+						);
+				threads.add(thread);
+				runner.addRunnerDistant(thread);
+			} catch (RuntimeException e) {
+				messages.errorUser("unable to create a distant worker thread: "+e.getMessage(), getClass(), e);
+			}
+			return;
+		}
+		
 		while (threads.size() < numberOfThreads) {
 			
 			try {
@@ -181,7 +229,7 @@ public class DistantGenlabServerManager {
 			return;
 		
 		state = ManagerState.STOPPING;
-		Runner runner = ComputationNodes.getSingleton().getDefaultRunner();
+		AbstractRunner runner = ComputationNodes.getSingleton().getDefaultRunner();
 		messages.infoUser("disconnecting server "+hostname+":"+port+"...", getClass());
 		for (WorkingRunnerDistanceThread thread: threads) {
 			thread.askStop();
@@ -0,0 +1,160 @@
+package genlab.core.exec.client;
+
+import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.ListsOfMessages;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Balances the tasks between the distant servers, depending on their measured performance.
+ *
+ * All the distant workers take their tasks from the same queue, so the fastest servers
+ * naturally take more of them. But a worker sends tasks in advance to its server,
+ * so a slow server might keep tasks in its queue while another one is idle. So:
+ * <ul>
+ * <li>the count of tasks sent in advance to a server is limited to the count of tasks
+ * it will finish during a round-trip (its throughput multiplied by its latency),
+ * so slow servers do not accumulate tasks</li>
+ * <li>an idle server steals the tasks queued in the server which would run them the latest,
+ * if it would run them sooner itself</li>
+ * </ul>
+ *
+ * @see DistantBatchWorkerThread
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class NodesScheduler {
+
+	/**
+	 * A task is only stolen if the thief would finish it sooner by this ratio
+	 * (avoids tasks going back and forth between servers of similar speed)
+	 */
+	public static final double MIN_GAIN_FOR_STEALING = 1.5;
+
+	private final Set<DistantBatchWorkerThread> workers = new HashSet<DistantBatchWorkerThread>();
+
+	private final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
+
+	public NodesScheduler() {
+
+	}
+
+	public void registerWorker(DistantBatchWorkerThread worker) {
+		synchronized (workers) {
+			workers.add(worker);
+		}
+	}
+
+	public void unregisterWorker(DistantBatchWorkerThread worker) {
+		synchronized (workers) {
+			workers.remove(worker);
+		}
+	}
+
+	/**
+	 * Returns the count of tasks this worker should keep in flight:
+	 * enough to keep its server busy during a round-trip, and no more than its maximum.
+	 * @param worker
+	 * @return
+	 */
+	public int getTargetInFlight(DistantBatchWorkerThread worker) {
+
+		final int slots = Math.max(1, worker.getSlots());
+		final double meanDurationMs = worker.getMeanTaskDurationMs();
+
+		int target;
+		if (meanDurationMs <= 0) {
+			// not measured yet; just keep the server busy
+			target = slots;
+		} else {
+			// tasks finished by this server during a round-trip
+			final double throughputPerMs = slots / meanDurationMs;
+			final int prefetch = (int)Math.ceil(2 * worker.getLatencyMs() * throughputPerMs);
+			target = slots + Math.max(1, prefetch);
+		}
+
+		return Math.max(1, Math.min(target, worker.getMaxInFlight()));
+	}
+
+	/**
+	 * Returns the estimated delay before the last task queued by this worker starts on its server,
+	 * or 0 if no task is waiting there.
+	 * @param worker
+	 * @return
+	 */
+	protected double getEstimatedQueueDelayMs(DistantBatchWorkerThread worker) {
+
+		final int slots = Math.max(1, worker.getSlots());
+		final int queued = worker.getCountInFlight() - slots;
+		if (queued <= 0)
+			return 0;
+
+		final double meanDurationMs = worker.getMeanTaskDurationMs();
+		if (meanDurationMs <= 0)
+			return 0;
+
+		return queued * meanDurationMs / slots;
+	}
+
+	/**
+	 * Called by an idle worker: asks the most loaded worker to give back some of its
+	 * queued tasks, if the idle one would run them sooner. The tasks given back are put in the
+	 * common queue, where the idle worker will find them.
+	 * @param thief
+	 * @return the count of tasks requested
+	 */
+	public int proposeSteal(DistantBatchWorkerThread thief) {
+
+		final int capacity = Math.max(1, thief.getSlots()) - thief.getCountInFlight();
+		if (capacity <= 0)
+			return 0;
+
+		// how long would the thief take to run a task (waiting for the network included) ?
+		final double thiefDurationMs = Math.max(0, thief.getMeanTaskDurationMs()) + 2*thief.getLatencyMs();
+
+		DistantBatchWorkerThread victim = null;
+		double victimDelayMs = 0;
+		synchronized (workers) {
+			for (DistantBatchWorkerThread w: workers) {
+				if (w == thief)
+					continue;
+				final double delayMs = getEstimatedQueueDelayMs(w);
+				if (delayMs > victimDelayMs) {
+					victim = w;
+					victimDelayMs = delayMs;
+				}
+			}
+		}
+
+		if (victim == null || victimDelayMs < MIN_GAIN_FOR_STEALING*thiefDurationMs)
+			return 0;
+
+		final int queued = victim.getCountInFlight() - Math.max(1, victim.getSlots());
+		final int count = Math.min(capacity, queued);
+		if (count <= 0)
+			return 0;
+
+		messages.debugTech(thief.getName()+" steals "+count+" tasks from "+victim.getName()+" (queued there for "+((long)victimDelayMs)+" ms)", getClass());
+		victim.requestGiveBack(count);
+
+		return count;
+	}
+
+	public String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+		synchronized (workers) {
+			for (DistantBatchWorkerThread w: workers) {
+				sb
+					.append(w.getName()).append(": ")
+					.append(w.getCountInFlight()).append(" in flight (target ").append(getTargetInFlight(w)).append("), ")
+					.append(String.format("%.1f", w.getMeanTaskDurationMs())).append(" ms per task, ")
+					.append(w.getCountStolenFrom()).append(" tasks given back\n");
+			}
+		}
+		return sb.toString();
+	}
+
+}
@@ -4,15 +4,15 @@ import genlab.core.commons.ProgramException;
 import genlab.core.exec.IAlgoExecutionRemotable;
 import genlab.core.exec.ICleanableTask;
 import genlab.core.exec.IContainerTask;
-import genlab.core.exec.IRunner;
 import genlab.core.exec.ITask;
-import genlab.core.exec.ITasksDynamicProducer;
-import genlab.core.exec.TasksManager;
+import genlab.core.exec.ValuesRelease;
 import genlab.core.exec.WorkingRunnerThread;
+import genlab.core.model.exec.ComputationState;
 import genlab.core.model.exec.IAlgoExecution;
 import genlab.core.model.exec.IComputationProgress;
+import genlab.core.performance.MetricsRegistry;
+import genlab.core.performance.TimelineProfiler;
 import genlab.core.usermachineinteraction.ListOfMessages;
-import genlab.core.usermachineinteraction.ListsOfMessages;
 
 import java.util.Collection;
 import java.util.HashSet;
@@ -45,10 +45,7 @@ import java.util.concurrent.LinkedBlockingQueue;
  * @author Samuel Thiriot
  *
  */
-public class Runner extends Thread implements IRunner {
-	
-	
-	final static int START_TASKS_SIZE = 500;
+public class Runner extends AbstractRunner {
 	
 	
 	/**
@@ -66,18 +63,6 @@ public class Runner extends Thread implements IRunner {
 	final HashSet<IAlgoExecution> notReady = new HashSet<IAlgoExecution>(START_TASKS_SIZE);	
 	
 
-	final HashSet<ITasksDynamicProducer> tasksProducers = new HashSet<ITasksDynamicProducer>();
-	
-	
-
-		
-	/**
-	 * If true, all tasks should be canceled as soon as possible.
-	 */
-	boolean cancel = false;
-	
-	private ListOfMessages messagesRun = null;
-	
 	private final Object lockerMainLoop = new Object();
 	
 	/**
@@ -88,18 +73,11 @@ public class Runner extends Thread implements IRunner {
 	final BlockingQueue<IAlgoExecution> readyToComputeNoThread = new LinkedBlockingQueue<IAlgoExecution>();
 
 	/**
-	 * Contains worker threads which do use the CPU. Contains only MAX_THREADS
+	 * If not null, runs the tasks which do not use the CPU in a bounded pool of threads 
+	 * instead of the resizable pool above.
 	 */
-	protected Set<Thread> threadsPoolTaskWithThreads = new HashSet<Thread>(500);
-	protected final BlockingQueue<IAlgoExecution> readyToComputeWithThreads = new LinkedBlockingQueue<IAlgoExecution>();
+	protected final ControlTasksExecutor controlTasksExecutor;
 
-	/**
-	 * Contains worker threads which delegate to distant servers.
-	 */
-	protected final BlockingQueue<IAlgoExecutionRemotable> readyToComputeRemotable = new LinkedBlockingQueue<IAlgoExecutionRemotable>();
-
-	protected final Object lockerBothQueues = new Object();
-	
 	/**
 	 * The number of threads used currently. Based on the number of thread displayed by tasks, 
 	 * not an objective measure.
@@ -109,16 +87,28 @@ public class Runner extends Thread implements IRunner {
 	private int availableThreads = 4;
 	
 	public Runner(int availableLocalThreads) {
+		this(availableLocalThreads, 0);
+	}
+	
+	/**
+	 * Creates a runner. If maxControlThreads is strictly positive, the tasks which do not
+	 * use the CPU will be ran in at most this count of threads; else, a control thread will 
+	 * be created each time all the existing ones are busy.
+	 * @param availableLocalThreads
+	 * @param maxControlThreads
+	 */
+	public Runner(int availableLocalThreads, int maxControlThreads) {
 		
-		this.messagesRun =  ListsOfMessages.getGenlabMessages();
+		super("glRunner", availableLocalThreads);
 		
 		this.availableThreads = availableLocalThreads;
 		
-		messagesRun.infoUser("creating local runner (threads = "+availableLocalThreads+")", getClass());
+		messagesRun.infoUser("creating local runner (threads = "+availableLocalThreads+", control threads = "+(maxControlThreads > 0 ? maxControlThreads : "on demand")+")", getClass());
 		
-		setName("glRunner");
-		setPriority(MIN_PRIORITY);
-		setDaemon(true);
+		if (maxControlThreads > 0)
+			controlTasksExecutor = new ControlTasksExecutor("gl_workcontroller_local", maxControlThreads);
+		else 
+			controlTasksExecutor = null;
 		
 
 		// init the thread pool
@@ -133,7 +123,7 @@ public class Runner extends Thread implements IRunner {
 		}
 		
 		// init the thread pool
-		for (int i=0; i<availableLocalThreads; i++) {
+		for (int i=0; controlTasksExecutor == null && i<availableLocalThreads; i++) {
 			WorkingRunnerThread t = new WorkingRunnerThread(
 					"gl_workcontroller_local_"+i, 
 					readyToComputeNoThread,
@@ -145,40 +135,14 @@ public class Runner extends Thread implements IRunner {
 		}
 		
 		// notify the work of our existence
-		TasksManager.singleton.addRunner(this);
-	}
-	
-	protected void addWorkingThread(Thread thread) {
-		
-		synchronized (threadsPoolTaskWithThreads) {
-			messagesRun.infoTech("adding working thread: "+thread.getName(), getClass());
-			
-			thread.start();
-			threadsPoolTaskWithThreads.add(thread);
-		}
-	}
-
-	private void removeWorkingThread(WorkingRunnerDistanceThread thread) {
-		
-		synchronized (threadsPoolTaskWithThreads) {
-			messagesRun.infoTech("removing working thread: "+thread.getName(), getClass());
-			
-			threadsPoolTaskWithThreads.remove(thread);
-		}
+		declareRunner();
 	}
 	
-	/* (non-Javadoc)
-	 * @see genlab.core.exec.IRunner#addTasks(java.util.Collection)
-	 */
 	@Override
-	public void addTasks(Collection<IAlgoExecution> allTasks) {
-		
-		for (IAlgoExecution e: allTasks)
-			addTask(e);	
-		
+	protected void submitAdmittedTask(IAlgoExecution exec) {
+		submitTaskToWorkerThreads(exec);
 	}
 	
-	
 	/**
 	 *  Directs a task to the queue of distant execution or falls back to 
 	 * standard behaviour.
@@ -187,7 +151,11 @@ public class Runner extends Thread implements IRunner {
 	 */
 	protected void submitTaskToWorkerThreads(IAlgoExecution exec) {
 		
-		if (exec.getThreadsUsed() == 0) {
+		if (exec.getThreadsUsed() == 0 && controlTasksExecutor != null) {
+			// control task, ran by the bounded pool
+			messagesRun.traceTech(getClass(), "adding task with no CPU: {}", exec);
+			controlTasksExecutor.execute(exec);
+		} else if (exec.getThreadsUsed() == 0) {
 			// control thread, let's just delegate it there
 			// recreate a control thread only if they are all busy 
 			boolean hasAThreadNotWorking = false;
@@ -199,7 +167,8 @@ public class Runner extends Thread implements IRunner {
 			}
 			synchronized (threadsPoolTaskNoThread) {
 				if (!hasAThreadNotWorking) {
-					messagesRun.debugTech("not enough threads; increasing the size to "+(threadsPoolTaskNoThread.size()+1), getClass());
+					if (messagesRun.isDebugEnabled(getClass()))
+						messagesRun.debugTech("not enough threads; increasing the size to "+(threadsPoolTaskNoThread.size()+1), getClass());
 					WorkingRunnerThread wrt = new WorkingRunnerThread(
 							"gl_workcontroller_local_"+threadsPoolTaskNoThread.size(), 
 							readyToComputeNoThread,
@@ -209,7 +178,7 @@ public class Runner extends Thread implements IRunner {
 					wrt.start();
 					threadsPoolTaskNoThread.add(wrt);
 				}
-				messagesRun.traceTech("adding task with no CPU: "+exec, getClass());
+				messagesRun.traceTech(getClass(), "adding task with no CPU: {}", exec);
 				readyToComputeNoThread.add(exec);
 			}
 		} else if (exec instanceof IAlgoExecutionRemotable) {
@@ -235,7 +204,7 @@ public class Runner extends Thread implements IRunner {
 	@Override
 	public void addTask(IAlgoExecution exec) {
 		
-		messagesRun.traceTech("adding task: "+exec+" (state "+exec.getProgress().getComputationState()+")", getClass());
+		messagesRun.traceTech(getClass(), "adding task: {} (state {})", exec, exec.getProgress().getComputationState());
 		
 		synchronized (all) {
 			
@@ -246,11 +215,13 @@ public class Runner extends Thread implements IRunner {
 
 			all.add(exec);
 			
+			TimelineProfiler.singleton.taskQueued(exec, this);
+			
 			// add the task in the place it can be used
 			switch (exec.getProgress().getComputationState()) {
 			case READY:
 				ready.add(exec);
-				submitTaskToWorkerThreads(exec);
+				submitTaskIfResourcesAvailable(exec);
 				break;
 			case CREATED:
 			case WAITING_DEPENDENCY:
@@ -288,6 +259,7 @@ public class Runner extends Thread implements IRunner {
 		
 	}
 	
+	@Override
 	protected void wakeUp() {
 		
 		messagesRun.traceTech("attempting to wake up the runner: \"Knock knock, Neo !\"", getClass());
@@ -311,7 +283,7 @@ public class Runner extends Thread implements IRunner {
 			}				
 		}
 		
-		messagesRun.traceTech("found root tasks: "+res, getClass());
+		messagesRun.traceTech(getClass(), "found root tasks: {}", res);
 		
 		return res;
 		
@@ -353,20 +325,30 @@ public class Runner extends Thread implements IRunner {
 		synchronized (all) {
 				
 			// at init: 
-			// - nothing is done
+			// - nothing is done, nothing is running, except the tasks added since 
+			// the runner was started, which may have started already
 			done.clear();
+			running.clear();
+			for (IAlgoExecution e: all) {
+				final ComputationState state = e.getProgress().getComputationState();
+				if (state.isFinished())
+					done.add(e);
+				else if (state == ComputationState.STARTED)
+					running.add(e);
+			}
 			
 			// - roots are ready
 			ready.clear();
 			ready.addAll(detectRoots());
-			
-			// - nothing is running
-			running.clear();
+			ready.removeAll(running);
+			ready.removeAll(done);
 			
 			// - all others are not ready
 			notReady.clear();
 			notReady.addAll(all);
 			notReady.removeAll(ready);
+			notReady.removeAll(running);
+			notReady.removeAll(done);
 		
 		}
 		
@@ -383,7 +365,7 @@ public class Runner extends Thread implements IRunner {
 				.append(ready.size()).append(" ready, ")
 				.append(notReady.size()).append(" waiting, ")
 				.append(tasksProducers.size()).append(" task producers, ")
-				.append(threadsPoolTaskNoThread.size()).append(" threads monitoring and ")
+				.append(controlTasksExecutor == null ? threadsPoolTaskNoThread.size() : controlTasksExecutor.getCountThreads()).append(" threads monitoring and ")
 				.append(threadsPoolTaskWithThreads.size()).append(" working")
 				;
 			
@@ -404,79 +386,45 @@ public class Runner extends Thread implements IRunner {
 			
 		}
 		
+		if (controlTasksExecutor != null)
+			sb.append("\ncontrol tasks: ").append(controlTasksExecutor.getHumanReadableState());
+		
+		sb.append("\nresources: ").append(resourcesBudget.getHumanReadableState())
+			.append(", ").append(getCountWaitingForResources()).append(" tasks waiting for resources");
+		
+		sb.append("\nvalues release: ").append(ValuesRelease.singleton.getHumanReadableState());
+		if (ValuesRelease.singleton.isDebug())
+			sb.append("\n").append(ValuesRelease.singleton.getRetainedReport());
+		
+		sb.append("\ntimeline: ").append(TimelineProfiler.singleton.getHumanReadableState());
+		sb.append("\n").append(MetricsRegistry.singleton.getHumanReadableState(10));
+		
 		return sb.toString();
 	}
 	
+	/**
+	 * Returns the executor of control tasks, or null if control tasks are ran by 
+	 * a pool of threads created on demand.
+	 * @return
+	 */
+	public ControlTasksExecutor getControlTasksExecutor() {
+		return controlTasksExecutor;
+	}
+	
 	protected void printState() {
 		
 		messagesRun.debugTech(getHumanReadableState(), getClass());
 		
 	}
 	
-	protected boolean proposeDynamicProducersToWork() {
-		
-		synchronized (tasksProducers) {
-			
-			if (tasksProducers.isEmpty())
-				return false;
-			
-			messagesRun.debugTech("proposing to tasks producers to submit novel tasks...", getClass());
-			
-			Iterator<ITasksDynamicProducer> itProducers = tasksProducers.iterator();
-			while (itProducers.hasNext()) {
-				
-				ITasksDynamicProducer producer = itProducers.next();
-
-				if (!producer.willMoreTasks()) {
-					// this producer has no more work; let's leave him alone
-					itProducers.remove();
-					messagesRun.debugTech("task producer "+producer+" has no more tasks", getClass());
-					continue;
-				}
-				
-				if (producer.cannotSendTasksNow()) {
-					// this producer will send tasks later, but not now
-					// just don't focus on it
-					continue;
-				}
-
-				messagesRun.debugTech("proposing to task producer "+producer+" to submit novel tasks...", getClass());
-					
-				IAlgoExecution t = null;
-				
-				try {
-					t = producer.provideMoreTasks();
-				} catch (RuntimeException e) {
-					messagesRun.errorTech("error while proposing a producer to submit jobs:"+e.getMessage(), getClass(), e);
-					// TODO invalidate something !
-					// TODO change tasks producer so it provides the info about its container task
-				}
-				
-				if (t == null) {
-					tasksProducers.remove(producer);
-					messagesRun.debugTech("task producer "+producer+" has no more tasks", getClass());
-					return false;
-				} else {
-					addTask(t);
-					return true;
-				}
-				
-			}
-			
-			return false;
-			
-			
-		}
-	}
-	
-	
 	private void mayCleanTasks(long mintimeMs) {
 		
 		// should we clean ? 
 		if (cleanable.size() < 20)
 			return;
 
-		messagesRun.debugTech("we are doing a bit of housekeeping there :-) ("+cleanable.size()+" tasks ready for cleaning)", getClass());
+		if (messagesRun.isDebugEnabled(getClass()))
+			messagesRun.debugTech("we are doing a bit of housekeeping there :-) ("+cleanable.size()+" tasks ready for cleaning)", getClass());
 		
 		synchronized (all) {
 								
@@ -490,11 +438,12 @@ public class Runner extends Thread implements IRunner {
 						continue;
 					
 					try {
-						messagesRun.traceTech("cleaning task: "+sub, getClass());
+						messagesRun.traceTech(getClass(), "cleaning task: {}", sub);
 	
 						// now clean it !
 						
 						sub.clean();
+						TimelineProfiler.singleton.taskCleaned(sub);
 						
 					} catch (RuntimeException e) {
 						messagesRun.warnTech("oops,  catched an error while attempting to clean a task: "+sub, getClass(), e);
@@ -570,6 +519,7 @@ public class Runner extends Thread implements IRunner {
 	/* (non-Javadoc)
 	 * @see genlab.core.exec.IRunner#cancelTasks()
 	 */
+	@Override
 	public void cancelTasks() {
 		
 		messagesRun.debugTech("asked to cancel all tasks", getClass());
@@ -622,11 +572,13 @@ public class Runner extends Thread implements IRunner {
 		
 		IAlgoExecution e = progress.getAlgoExecution();
 
+		TimelineProfiler.singleton.taskStateChanged(e, progress.getComputationState());
+
 		boolean wakeUp = false;
 		
 		final ListOfMessages messages = e.getExecution().getListOfMessages();
 		
-		messages.traceTech("receiving state change: "+progress.getAlgoExecution()+" is now "+progress.getComputationState(), getClass());
+		messages.traceTech(getClass(), "receiving state change: {} is now {}", progress.getAlgoExecution(), progress.getComputationState());
 
 		synchronized (all) {
 	
@@ -643,7 +595,8 @@ public class Runner extends Thread implements IRunner {
 				// cancelTasks();
 			case FINISHED_OK:
 			case FINISHED_CANCEL:
-				messages.traceTech("task finished: "+e+" ("+progress.getDurationMs()+" ms)", getClass());
+				if (messages.isTraceEnabled(getClass()))
+					messages.traceTech("task finished: "+e+" ("+progress.getDurationMs()+" ms)", getClass());
 				
 				// remove this task from its previous state
 				boolean wasRunning = running.remove(e);
@@ -659,20 +612,23 @@ public class Runner extends Thread implements IRunner {
 					
 				}
 				possibilityOfTaskCleanup(e);
+				releaseResources(e);
+				recordDuration(e);
+				releaseValues(e);
 				wakeUp = true;
 				break;
 				
 			// a task was waiting for dependancy, and received all inputs
 			case READY:
-				messages.traceTech("task is now ready: "+e, getClass());
+				messages.traceTech(getClass(), "task is now ready: {}", e);
 				notReady.remove(e);
 				ready.add(e);
-				submitTaskToWorkerThreads(e);
+				submitTaskIfResourcesAvailable(e);
 				wakeUp = true;
 				break;
 			
 			case STARTED:
-				messages.traceTech("task started: "+e, getClass());
+				messages.traceTech(getClass(), "task started: {}", e);
 				ready.remove(e);
 				notReady.remove(e);
 				if (running.add(e)) {
@@ -706,36 +662,6 @@ public class Runner extends Thread implements IRunner {
 
 	}
 
-	/* (non-Javadoc)
-	 * @see genlab.core.exec.IRunner#cancel()
-	 */
-	@Override
-	public void cancel() {
-		cancelTasks();
-		
-	}
-	
-	/* (non-Javadoc)
-	 * @see genlab.core.exec.IRunner#kill()
-	 */
-	@Override
-	public void kill() {
-		// TODO
-		cancelTasks();
-	}
-	
-	/* (non-Javadoc)
-	 * @see genlab.core.exec.IRunner#registerTasksDynamicProducer(genlab.core.exec.ITasksDynamicProducer)
-	 */
-	@Override
-	public void registerTasksDynamicProducer(ITasksDynamicProducer producer) {
-		synchronized (tasksProducers) {
-			messagesRun.debugTech("registered a novel tasks producer: "+producer, getClass());
-			tasksProducers.add(producer);
-		}
-		wakeUp();
-	}
-
 	/* (non-Javadoc)
 	 * @see genlab.core.exec.IRunner#taskCleaning(genlab.core.exec.ITask)
 	 */
@@ -763,7 +689,7 @@ public class Runner extends Thread implements IRunner {
 	@Override
 	public void possibilityOfTaskCleanup(ITask task) {
 		
-		messagesRun.traceTech("notified of the possibility to clean a task: "+task, getClass());
+		messagesRun.traceTech(getClass(), "notified of the possibility to clean a task: {}", task);
 
 		// only clean the tasks marked as "you may clean me"
 		if (!(task instanceof ICleanableTask))
@@ -788,33 +714,4 @@ public class Runner extends Thread implements IRunner {
 		} 
 	}
 
-
-	@Override
-	public void propagateRank(Integer rank, Set<ITask> visited) {
-		// not relevant
-	}
-
-
-	public void addRunnerDistant(WorkingRunnerDistanceThread thread) {
-		
-		try {
-			
-			addWorkingThread(thread);
-		} catch (RuntimeException e) {
-			e.printStackTrace();
-			// TODO error !
-		}
-	}
-
-	public void removeRunnerDistant(WorkingRunnerDistanceThread thread) {
-		try {
-			removeWorkingThread(thread);
-		} catch (RuntimeException e) {
-			e.printStackTrace();
-		}
-	}
-
-	
-
-	
 }
@@ -0,0 +1,603 @@
+package genlab.core.exec.client;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.exec.CriticalPathPriorities;
+import genlab.core.exec.IAlgoExecutionRemotable;
+import genlab.core.exec.ICleanableTask;
+import genlab.core.exec.IContainerTask;
+import genlab.core.exec.ITask;
+import genlab.core.exec.ResultsCache;
+import genlab.core.exec.ValuesRelease;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.exec.IComputationProgress;
+import genlab.core.performance.MetricsRegistry;
+import genlab.core.performance.TimelineProfiler;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A runner based on a fork/join pool: each worker thread owns a deque of tasks,
+ * and idle workers steal tasks from the others.
+ *
+ * Contrary to the {@link Runner}, there is no global lock on the set of tasks.
+ * The state of each task is tracked in a concurrent map, and the count of tasks
+ * per state is maintained with atomic counters. A task is never searched for:
+ * it is pushed to the pool at the moment it announces it is ready.
+ * When this happens in a worker of the pool (which is the standard case: a task becomes ready when
+ * its last prerequisite finished in a worker), the task is forked into the
+ * deque of this very worker, so it will probably be ran by the same thread with hot caches,
+ * or stolen by another idle worker.
+ *
+ * Tasks which do not use any thread (containers, supervisors...) do not block;
+ * they are ran by a bounded pool of control threads so they never delay computations
+ * (see {@link ControlTasksExecutor}).
+ *
+ * Tasks which can be ran remotely are proposed to distant servers, if any.
+ *
+ * Each task runs in one worker of the pool, whatever the count of threads it declares
+ * (see {@link IAlgoExecution#getThreadsUsed()}): the other threads used by a multi-threaded
+ * task are not reserved, so the machine may have more busy threads than the parallelism
+ * of the pool while such a task runs.
+ *
+ * The priorities of tasks (see {@link CriticalPathPriorities}) are used when tasks are pushed
+ * to the pool: the tasks which become ready while a worker runs a task are forked once this task 
+ * ends, the most critical first, so long chains of tasks start first. There is no shared queue
+ * of ready tasks.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class WorkStealingRunner extends AbstractRunner {
+
+	/*
+	 * indices of the counters of tasks per state
+	 */
+	private final static int COUNT_PENDING = 0;
+	private final static int COUNT_READY = 1;
+	private final static int COUNT_RUNNING = 2;
+	private final static int COUNT_DONE = 3;
+
+	/**
+	 * Associates each known task with the index of its current counter
+	 */
+	private final ConcurrentHashMap<IAlgoExecution,Integer> task2count = new ConcurrentHashMap<IAlgoExecution, Integer>(START_TASKS_SIZE);
+
+	/**
+	 * Count of tasks per state (pending, ready, running, done)
+	 */
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(4);
+
+	private final ConcurrentLinkedQueue<ICleanableTask> cleanable = new ConcurrentLinkedQueue<ICleanableTask>();
+	private final AtomicInteger countCleanable = new AtomicInteger(0);
+
+	/**
+	 * The pool of worker threads which use the CPU.
+	 */
+	private final ForkJoinPool poolWithThreads;
+
+	/**
+	 * The pool of control threads (tasks which declare they use no thread)
+	 */
+	private final ControlTasksExecutor poolNoThread;
+
+	private final int availableThreads;
+
+	/**
+	 * The task ran by a worker, and the tasks which became ready when it finished
+	 * (see {@link WorkStealingRunner#runInWorker(IAlgoExecution)})
+	 */
+	private static final class WorkerBatch {
+
+		final IAlgoExecution running;
+		final List<IAlgoExecution> becameReady = new ArrayList<IAlgoExecution>();
+
+		WorkerBatch(IAlgoExecution running) {
+			this.running = running;
+		}
+	}
+
+	private final ThreadLocal<WorkerBatch> workerBatch = new ThreadLocal<WorkerBatch>();
+
+	/**
+	 * A fork/join task which runs one algo execution
+	 */
+	@SuppressWarnings("serial")
+	private class ExecutionAction extends RecursiveAction {
+
+		private final IAlgoExecution exec;
+
+		public ExecutionAction(IAlgoExecution exec) {
+			this.exec = exec;
+		}
+
+		@Override
+		protected void compute() {
+			
+			runInWorker(exec);
+			
+			// nothing else to do locally ? let's help distant servers
+			IAlgoExecution remotable = null;
+			while (getSurplusQueuedTaskCount() == 0 && (remotable = readyToComputeRemotable.poll()) != null) {
+				runInWorker(remotable);
+			}
+		}
+
+	}
+
+	/**
+	 * Runs one remotable task that distant servers did not take yet.
+	 */
+	@SuppressWarnings("serial")
+	private class StealRemotableAction extends RecursiveAction {
+
+		@Override
+		protected void compute() {
+			IAlgoExecution exec = readyToComputeRemotable.poll();
+			if (exec != null)
+				runInWorker(exec);
+		}
+
+	}
+
+	public WorkStealingRunner(int availableLocalThreads) {
+		this(availableLocalThreads, ControlTasksExecutor.DEFAULT_MAX_THREADS);
+	}
+
+	public WorkStealingRunner(int availableLocalThreads, int maxControlThreads) {
+
+		super("glRunnerWorkStealing", availableLocalThreads);
+
+		this.availableThreads = availableLocalThreads;
+
+		messagesRun.infoUser("creating local work stealing runner (threads = "+availableLocalThreads+")", getClass());
+
+		poolWithThreads = new ForkJoinPool(
+				availableLocalThreads,
+				new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+
+					private final AtomicInteger count = new AtomicInteger(0);
+
+					@Override
+					public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+						ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+						t.setName("gl_worker_local_"+count.getAndIncrement());
+						t.setPriority(MIN_PRIORITY);
+						return t;
+					}
+				},
+				null,
+				true // tasks are never joined, so FIFO scheduling is relevant
+				);
+
+		poolNoThread = new ControlTasksExecutor("gl_workcontroller_local", maxControlThreads);
+
+		// notify the work of our existence
+		declareRunner();
+	}
+
+	/**
+	 * Actually runs a task in the current thread.
+	 * @param exec
+	 */
+	protected void runExecution(IAlgoExecution exec) {
+
+		messagesRun.debugTech(getClass(), "{} running task: {}", Thread.currentThread().getName(), exec.getName());
+		final long startNs = System.nanoTime();
+		TimelineProfiler.singleton.taskRunStarted(exec, null);
+		try {
+			ResultsCache.singleton.run(exec);
+		} catch (Exception e) {
+			messagesRun.errorUser("task "+exec.getName()+" raised an error:"+e.getMessage(), getClass(), e);
+			exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
+			exec.getProgress().setException(e);
+		} catch (OutOfMemoryError e) {
+			messagesRun.errorUser("no more memory while processing task "+exec.getName()+"; update the memory settings", getClass(), e);
+			exec.getProgress().setComputationState(ComputationState.FINISHED_FAILURE);
+			exec.getProgress().setException(e);
+		}
+		MetricsRegistry.singleton.recordTask(exec, System.nanoTime()-startNs);
+		TimelineProfiler.singleton.taskRunEnded(exec);
+		messagesRun.debugTech(getClass(), "{} ran task: {}", Thread.currentThread().getName(), exec.getName());
+
+	}
+
+	/**
+	 * Runs a task in a worker of the pool. The tasks which became ready because this task 
+	 * finished (usually, several of them at once) are then forked into the deque of this worker, 
+	 * the most critical first.
+	 * @param exec
+	 */
+	private void runInWorker(IAlgoExecution exec) {
+
+		// cancelled while it was waiting in a deque: running it would finish it twice
+		if (exec.getProgress().getComputationState().isFinished()) {
+			messagesRun.debugTech(getClass(), "not running task {} which is already {}", exec.getName(), exec.getProgress().getComputationState());
+			return;
+		}
+
+		final WorkerBatch batch = new WorkerBatch(exec);
+		workerBatch.set(batch);
+		try {
+			runExecution(exec);
+		} finally {
+			workerBatch.remove();
+		}
+
+		if (batch.becameReady.size() > 1)
+			Collections.sort(batch.becameReady, CriticalPathPriorities.COMPARATOR_PRIORITY);
+		for (IAlgoExecution ready: batch.becameReady)
+			new ExecutionAction(ready).fork();
+	}
+
+	/**
+	 * Pushes a task to the fork/join pool. If the current thread is a worker of this pool,
+	 * the task goes into its own deque; else it is submitted from outside.
+	 * @param action
+	 */
+	protected void pushToPool(RecursiveAction action) {
+
+		final Thread current = Thread.currentThread();
+		if (current instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread)current).getPool() == poolWithThreads)
+			action.fork();
+		else
+			poolWithThreads.execute(action);
+	}
+
+	/**
+	 * Directs a task to the relevant pool or queue.
+	 * @param exec
+	 */
+	@Override
+	protected void submitAdmittedTask(IAlgoExecution exec) {
+
+		if (exec.getThreadsUsed() == 0) {
+			// control task: never blocks, never competes with computations
+			messagesRun.traceTech(getClass(), "adding task with no CPU: {}", exec);
+			poolNoThread.execute(exec);
+		} else if (exec instanceof IAlgoExecutionRemotable && hasDistantWorkers()) {
+			// distant servers may take it...
+			readyToComputeRemotable.add((IAlgoExecutionRemotable) exec);
+			// ... but we will do it ourselves if we have time for it
+			if (poolWithThreads.getActiveThreadCount() < poolWithThreads.getParallelism())
+				pushToPool(new StealRemotableAction());
+		} else {
+			final WorkerBatch batch = workerBatch.get();
+			if (batch != null && batch.running.getProgress().getComputationState().isFinished())
+				// ready because the task of this worker finished: forked with the other ones
+				batch.becameReady.add(exec);
+			else
+				pushToPool(new ExecutionAction(exec));
+		}
+
+	}
+
+	/**
+	 * Returns the index of the counter for this state, or -1 if this state
+	 * does not change counters.
+	 * @param state
+	 * @return
+	 */
+	private final static int getCountIndexForState(ComputationState state) {
+
+		switch (state) {
+		case CREATED:
+		case WAITING_DEPENDENCY:
+			return COUNT_PENDING;
+		case READY:
+			return COUNT_READY;
+		case STARTED:
+			return COUNT_RUNNING;
+		case FINISHED_CANCEL:
+		case FINISHED_FAILURE:
+		case FINISHED_OK:
+			return COUNT_DONE;
+		case SENDING_CONTINOUS:
+			return -1;
+		default:
+			throw new ProgramException("state of this task unknown: "+state);
+		}
+	}
+
+	/**
+	 * Moves the task to the counter of the state, and returns the previous counter index
+	 * (or -1 if the task was not known)
+	 * @param exec
+	 * @param countIdx
+	 * @return
+	 */
+	private final int moveToCount(IAlgoExecution exec, int countIdx) {
+
+		final Integer previous = task2count.put(exec, countIdx);
+
+		if (previous != null) {
+			if (previous == countIdx)
+				return previous;
+			counts.decrementAndGet(previous);
+		}
+		counts.incrementAndGet(countIdx);
+
+		return previous == null ? -1 : previous;
+	}
+
+	/* (non-Javadoc)
+	 * @see genlab.core.exec.IRunner#addTask(genlab.core.model.exec.IAlgoExecution)
+	 */
+	@Override
+	public void addTask(IAlgoExecution exec) {
+
+		if (task2count.containsKey(exec))
+			return;
+
+		TimelineProfiler.singleton.taskQueued(exec, this);
+
+		messagesRun.traceTech(getClass(), "adding task: {} (state {})", exec, exec.getProgress().getComputationState());
+
+		exec.getProgress().addListener(this);
+
+		// the listener may have received the state already; in this case nothing is done twice
+		final int countIdx = getCountIndexForState(exec.getProgress().getComputationState());
+		if (countIdx >= 0 && task2count.putIfAbsent(exec, countIdx) == null) {
+			counts.incrementAndGet(countIdx);
+			if (countIdx == COUNT_READY)
+				submitTaskIfResourcesAvailable(exec);
+		}
+
+		// add subtasks
+		if (exec instanceof IContainerTask) {
+			IContainerTask execContainer = (IContainerTask)exec;
+			for (ITask subtask: execContainer.getTasks()) {
+				addTask((IAlgoExecution) subtask);
+			}
+		}
+
+		wakeUp();
+	}
+
+	@Override
+	public void computationStateChanged(IComputationProgress progress) {
+
+		final IAlgoExecution e = progress.getAlgoExecution();
+		final ComputationState state = progress.getComputationState();
+
+		TimelineProfiler.singleton.taskStateChanged(e, state);
+
+		final int countIdx = getCountIndexForState(state);
+		if (countIdx < 0)
+			return;
+
+		final int previousIdx = moveToCount(e, countIdx);
+		if (previousIdx == countIdx)
+			return; // nothing new
+
+		switch (countIdx) {
+		case COUNT_READY:
+			submitTaskIfResourcesAvailable(e);
+			break;
+		case COUNT_DONE:
+			possibilityOfTaskCleanup(e);
+			releaseResources(e);
+			recordDuration(e);
+			releaseValues(e);
+			// the producers might now provide more work
+			if (!tasksProducers.isEmpty())
+				wakeUp();
+			break;
+		}
+
+	}
+
+	@Override
+	protected void wakeUp() {
+		synchronized (lockerBothQueues) {
+			lockerBothQueues.notifyAll();
+		}
+	}
+
+	/**
+	 * Tasks which failed remotely are put back in the local queue by the distant threads;
+	 * let's run them locally.
+	 */
+	private void takeBackupTasks() {
+
+		// this queue gives the most critical first
+		IAlgoExecution exec = null;
+		while ((exec = readyToComputeWithThreads.poll()) != null) {
+			poolWithThreads.execute(new ExecutionAction(exec));
+		}
+
+	}
+
+	private void mayCleanTasks() {
+
+		// should we clean ?
+		if (countCleanable.get() < 20)
+			return;
+
+		if (messagesRun.isDebugEnabled(getClass()))
+			messagesRun.debugTech("we are doing a bit of housekeeping there :-) ("+countCleanable.get()+" tasks ready for cleaning)", getClass());
+
+		Iterator<ICleanableTask> itSub = cleanable.iterator();
+		while (itSub.hasNext()) {
+			ICleanableTask sub = itSub.next();
+
+			try {
+
+				if (!sub.isCleanable())
+					continue;
+
+				messagesRun.traceTech(getClass(), "cleaning task: {}", sub);
+				sub.clean();
+				TimelineProfiler.singleton.taskCleaned(sub);
+
+			} catch (RuntimeException e) {
+				messagesRun.warnTech("oops,  catched an error while attempting to clean a task: "+sub, getClass(), e);
+			}
+
+			itSub.remove();
+			countCleanable.decrementAndGet();
+
+		}
+	}
+
+	@Override
+	public void run() {
+
+		while (!cancel) {
+
+			messagesRun.debugTech(getHumanReadableState(), getClass());
+
+			try {
+				synchronized (lockerBothQueues) {
+					lockerBothQueues.wait(tasksProducers.isEmpty() ? 5000 : 500);
+				}
+			} catch (InterruptedException e) {
+				messagesRun.traceTech("Runner thread interrupted o_O. This is not supposed to happen.", getClass());
+			}
+
+			takeBackupTasks();
+
+			// feed the workers with the tasks of dynamic producers
+			while (
+					!cancel
+					&& counts.get(COUNT_READY) < availableThreads
+					&& proposeDynamicProducersToWork()
+					) {
+			}
+
+			mayCleanTasks();
+
+		}
+
+		poolWithThreads.shutdown();
+		poolNoThread.shutdown();
+
+	}
+
+	@Override
+	public void cancelTasks() {
+
+		messagesRun.debugTech("asked to cancel all tasks", getClass());
+
+		cancel = true;
+
+		for (IAlgoExecution e: task2count.keySet()) {
+			switch (e.getProgress().getComputationState()) {
+			case CREATED:
+			case READY:
+			case STARTED:
+			case WAITING_DEPENDENCY:
+				e.cancel();
+				break;
+			default:
+				// nothing to do
+			}
+		}
+
+		wakeUp();
+	}
+
+	@Override
+	public void taskCleaning(ITask task) {
+
+		// a task is going to be removed
+		// I should no more care about this task !
+		final Integer countIdx = task2count.remove(task);
+		if (countIdx == null)
+			return;
+		if (countIdx == COUNT_RUNNING)
+			throw new ProgramException("should not clean a task which is still in running state !");
+		counts.decrementAndGet(countIdx);
+
+	}
+
+	@Override
+	public void possibilityOfTaskCleanup(ITask task) {
+
+		// only clean the tasks marked as "you may clean me"
+		if (!(task instanceof ICleanableTask))
+			return;
+
+		cleanable.add((ICleanableTask)task);
+		countCleanable.incrementAndGet();
+	}
+
+	@Override
+	public boolean containsTask(IAlgoExecution exec) {
+		return task2count.containsKey(exec);
+	}
+
+	@Override
+	public Collection<IAlgoExecution> getAllTasks() {
+		return new LinkedList<IAlgoExecution>(task2count.keySet());
+	}
+
+	@Override
+	public int getCountPending() {
+		return counts.get(COUNT_PENDING);
+	}
+
+	@Override
+	public int getCountReady() {
+		return counts.get(COUNT_READY);
+	}
+
+	@Override
+	public int getCountRunning() {
+		return counts.get(COUNT_RUNNING);
+	}
+
+	@Override
+	public int getCountDone() {
+		return counts.get(COUNT_DONE);
+	}
+
+	@Override
+	public int getCountNotFinished() {
+		return counts.get(COUNT_PENDING) + counts.get(COUNT_READY) + counts.get(COUNT_RUNNING);
+	}
+
+	public ControlTasksExecutor getControlTasksExecutor() {
+		return poolNoThread;
+	}
+
+	@Override
+	public String getHumanReadableState() {
+
+		StringBuffer sb = new StringBuffer();
+
+		sb
+			.append(getCountDone()).append(" done, ")
+			.append(getCountRunning()).append(" running, ")
+			.append(getCountReady()).append(" ready, ")
+			.append(getCountPending()).append(" waiting, ")
+			.append(tasksProducers.size()).append(" task producers, ")
+			.append(poolWithThreads.getPoolSize()).append(" working threads (")
+			.append(poolWithThreads.getActiveThreadCount()).append(" active, ")
+			.append(poolWithThreads.getStealCount()).append(" steals)")
+			.append("\ncontrol tasks: ").append(poolNoThread.getHumanReadableState())
+			.append("\nresources: ").append(resourcesBudget.getHumanReadableState())
+			.append(", ").append(getCountWaitingForResources()).append(" tasks waiting for resources")
+			.append("\nvalues release: ").append(ValuesRelease.singleton.getHumanReadableState())
+			;
+		if (ValuesRelease.singleton.isDebug())
+			sb.append("\n").append(ValuesRelease.singleton.getRetainedReport());
+		sb.append("\ntimeline: ").append(TimelineProfiler.singleton.getHumanReadableState());
+		sb.append("\n").append(MetricsRegistry.singleton.getHumanReadableState(10));
+
+		return sb.toString();
+	}
+
+}
@@ -5,6 +5,7 @@ import genlab.core.exec.server.DistantExecutionResult;
 import genlab.core.model.exec.ComputationResult;
 import genlab.core.model.exec.ComputationState;
 import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.performance.TimelineProfiler;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
 
@@ -27,20 +28,20 @@ import java.util.concurrent.BlockingQueue;
 public class WorkingRunnerDistanceThread extends Thread {
 
 	
-	private final BlockingQueue<IAlgoExecutionRemotable> readyToCompute;
-	private final BlockingQueue<IAlgoExecution> backupQueue;
-	private final Object lockerQueue;
+	protected final BlockingQueue<IAlgoExecutionRemotable> readyToCompute;
+	protected final BlockingQueue<IAlgoExecution> backupQueue;
+	protected final Object lockerQueue;
 	
-	private final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
+	protected final ListOfMessages messages = ListsOfMessages.getGenlabMessages();
 	
-	private final String serverName;
+	protected final String serverName;
 	
-	private DistantGenlabServerManager server = null;
+	protected DistantGenlabServerManager server = null;
 	
 	/**
 	 * If true, will stop when possible.
 	 */
-	private boolean askStop = false;
+	protected volatile boolean askStop = false;
 		
 	public WorkingRunnerDistanceThread(
 						String serverName,
@@ -75,6 +76,48 @@ public class WorkingRunnerDistanceThread extends Thread {
 		
 	}
 	
+	/**
+	 * Transfers the information from the distant result to the local task;
+	 * in case of failure, the task is put back in the local queue.
+	 * @param exec
+	 * @param execResult
+	 */
+	protected void processDistantResult(IAlgoExecution exec, DistantExecutionResult execResult) {
+		
+		// transfer information from the distant result to...
+		// ... the results
+		ComputationResult r = new ComputationResult(
+				exec.getAlgoInstance(), 
+				exec.getProgress(), 
+				exec.getExecution().getListOfMessages()
+				); 
+		// ... the messages
+		r.getMessages().addAll(execResult.messages);
+		
+		for (String idRes: execResult.id2result.keySet()) {
+			r.setResult(
+					exec.getAlgoInstance().getOutputInstanceForOutput(idRes), 
+					execResult.id2result.get(idRes)
+					);
+		}
+		
+		if (execResult.computationState != ComputationState.FINISHED_OK) {
+			reinsertTaskInBackupQueue(exec);
+			
+		} else {
+			//exec.getExecution().getListOfMessages().addAll(r.getMessages());
+			exec.setResult(r);
+			// the messages
+			//exec.getExecution().getListOfMessages().addAll(execResult.messages);
+			// ... the progress
+			exec.getProgress().setProgressMade(1);
+			exec.getProgress().setComputationState(execResult.computationState);
+
+			messages.debugTech(getClass(), "{} ran task: {} on server {}", getName(), exec.getName(), serverName);
+			
+		}
+	}
+	
 	@Override
 	public void run() {
 
@@ -82,9 +125,10 @@ public class WorkingRunnerDistanceThread extends Thread {
 		
 			IAlgoExecution exec = null;
 			try {
-				messages.debugTech(this.getName()+" waiting for a task in the queue", getClass());
+				messages.debugTech(getClass(), "{} waiting for a task in the queue", this.getName());
 				exec = readyToCompute.take();
-				messages.debugTech("still "+readyToCompute.size()+" tasks pending on our queue", getClass());
+				if (messages.isDebugEnabled(getClass()))
+					messages.debugTech("still "+readyToCompute.size()+" tasks pending on our queue", getClass());
 
 			} catch (InterruptedException e) {
 				messages.errorTech("catched an exception from the execution: "+e.getMessage(), getClass(), e);
@@ -101,48 +145,16 @@ public class WorkingRunnerDistanceThread extends Thread {
 				exec.getProgress().setProgressTotal(1);
 				exec.getProgress().setComputationState(ComputationState.STARTED);
 				
-				messages.debugTech(getName()+" running task "+exec.getName()+" in server "+serverName, getClass());
+				messages.debugTech(getClass(), "{} running task {} in server {}", getName(), exec.getName(), serverName);
 
+				TimelineProfiler.singleton.taskRunStarted(exec, getName()+" (remote "+serverName+")");
 				DistantExecutionResult execResult = server.getDistantServer().executeTask(exec);
+				TimelineProfiler.singleton.taskRunEnded(exec);
 				
-				// transfer information from the distant result to...
-				// ... the results
-				ComputationResult r = new ComputationResult(
-						exec.getAlgoInstance(), 
-						exec.getProgress(), 
-						exec.getExecution().getListOfMessages()
-						); 
-				// ... the messages
-				r.getMessages().addAll(execResult.messages);
-				// (besides, let's clear the resources for these messages)
-				execResult.messages.stop();
-				execResult.messages.clear();
-				
-				for (String idRes: execResult.id2result.keySet()) {
-					r.setResult(
-							exec.getAlgoInstance().getOutputInstanceForOutput(idRes), 
-							execResult.id2result.get(idRes)
-							);
-				}
+				processDistantResult(exec, execResult);
 				
-				if (execResult.computationState != ComputationState.FINISHED_OK) {
-					reinsertTaskInBackupQueue(exec);
-					
-				} else {
-					//exec.getExecution().getListOfMessages().addAll(r.getMessages());
-					exec.setResult(r);
-					// the messages
-					//exec.getExecution().getListOfMessages().addAll(execResult.messages);
-					// ... the progress
-					exec.getProgress().setProgressMade(1);
-					exec.getProgress().setComputationState(execResult.computationState);
-
-					messages.debugTech(getName()+" ran task: "+exec.getName()+" on server "+serverName, getClass());
-
-					// might let the other react
-					Thread.yield();
-					
-				}
+				// might let the other react
+				Thread.yield();
 
 			} catch(ConnectException e) {
 				messages.warnUser("connection issue while running "+exec.getName()+"; suggesting a reconnection to the server", getClass()); 
@@ -168,7 +180,7 @@ public class WorkingRunnerDistanceThread extends Thread {
 			
 		}
 		
-		messages.debugTech(getName()+": closing thread.", getClass());
+		messages.debugTech(getClass(), "{}: closing thread.", getName());
 
 	}
 
@@ -1,27 +1,61 @@
 package genlab.core.exec.server;
 
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
 import genlab.core.model.exec.ComputationState;
 import genlab.core.model.exec.IComputationResult;
 import genlab.core.model.instance.IInputOutputInstance;
+import genlab.core.usermachineinteraction.ITextMessage;
 import genlab.core.usermachineinteraction.ListOfMessages;
+import genlab.core.usermachineinteraction.MessageAudience;
+import genlab.core.usermachineinteraction.MessageLevel;
+import genlab.core.usermachineinteraction.TextMessage;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+/**
+ * The result of a task ran by a distant server, as sent back to the client.
+ * 
+ * The messages and results are encoded in the compact binary format (see {@link WireFormat}):
+ * messages are sent as plain text messages, without their emitters.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
 @SuppressWarnings("serial")
 public class DistantExecutionResult implements Serializable {
 
+	/**
+	 * The identifier of the task as provided by the client, or -1
+	 */
+	public final long taskId;
 	public final ComputationState computationState;
-	public final ListOfMessages messages;
-	public final Map<String,Object> id2result; 
+	public transient List<ITextMessage> messages;
+	public transient Map<String,Object> id2result; 
 	
 	public DistantExecutionResult(
 						ComputationState computationState,
 						IComputationResult computationResult) {
 		
+		this(-1, computationState, computationResult);
+	}
+	
+	public DistantExecutionResult(
+						long taskId,
+						ComputationState computationState,
+						IComputationResult computationResult) {
+		
+		this.taskId = taskId;
 		this.computationState = computationState;
-		this.messages = computationResult.getMessages();
+		this.messages = copyMessages(computationResult.getMessages());
 		
 		id2result = new HashMap<String, Object>();
 		try {
@@ -34,5 +68,88 @@ public class DistantExecutionResult implements Serializable {
 		
 		
 	}
+	
+	/**
+	 * For a task which failed before producing any result
+	 * @param taskId
+	 * @param computationState
+	 * @param messages
+	 */
+	public DistantExecutionResult(
+						long taskId,
+						ComputationState computationState,
+						ListOfMessages messages) {
+		
+		this.taskId = taskId;
+		this.computationState = computationState;
+		this.messages = copyMessages(messages);
+		this.id2result = new HashMap<String, Object>();
+	}
+
+	protected static List<ITextMessage> copyMessages(ListOfMessages messages) {
+		List<ITextMessage> res = new ArrayList<ITextMessage>();
+		if (messages != null) {
+			for (ITextMessage m: messages)
+				res.add(m);
+		}
+		return res;
+	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		
+		out.defaultWriteObject();
+		
+		WireOutput wire = new WireOutput();
+		
+		wire.writeVarInt(messages.size());
+		for (ITextMessage m: messages) {
+			wire.writeByte(m.getLevel().ordinal());
+			wire.writeByte(m.getAudience().ordinal());
+			wire.writeInternedString(m.getShortEmitter());
+			wire.writeInternedString(m.getEmitter() == null ? null : m.getEmitter().getName());
+			wire.writeString(m.getMessage());
+			wire.writeVarInt(m.getCount());
+			wire.writeValue(m.getException());
+		}
+		
+		wire.writeMap(id2result);
+		
+		WireFormat.writeBlock(out, wire);
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		
+		in.defaultReadObject();
+		
+		WireInput wire = WireFormat.readBlock(in);
+		
+		final int countMessages = wire.readVarInt();
+		messages = new ArrayList<ITextMessage>(countMessages);
+		for (int i=0; i<countMessages; i++) {
+			final MessageLevel level = MessageLevel.values()[wire.readByte()];
+			final MessageAudience audience = MessageAudience.values()[wire.readByte()];
+			final String fromShort = wire.readInternedString();
+			final String emitterName = wire.readInternedString();
+			@SuppressWarnings("rawtypes")
+			Class emitter;
+			try {
+				emitter = WireFormat.resolveClass(emitterName);
+			} catch (IOException e) {
+				// this class only exists on the server side
+				emitter = DistantExecutionResult.class;
+			}
+			final String message = wire.readString();
+			final int count = wire.readVarInt();
+			final Throwable exception = (Throwable)wire.readValue();
+			TextMessage m = new TextMessage(level, audience, fromShort, emitter, message, exception);
+			for (int c=1; c<count; c++)
+				m.addIncrementCount();
+			messages.add(m);
+		}
+		
+		id2result = wire.readMap();
+		if (id2result == null)
+			id2result = new HashMap<String, Object>();
+	}
 
 }
@@ -1,5 +1,6 @@
 package genlab.core.exec.server;
 
+import genlab.core.exec.ResultsCache;
 import genlab.core.exec.client.ComputationNodes;
 import genlab.core.model.exec.ComputationState;
 import genlab.core.model.exec.IAlgoExecution;
@@ -19,7 +20,17 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.ExportException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * seems useless: -Djava.rmi.server.codebase=${workspace_loc}/ -Djava.security.policy=${workspace_loc}/genlab.core/remote/server/genlabServer.policy
@@ -56,6 +67,21 @@ public class GenlabComputationServer implements IGenlabComputationServer {
 	private Registry registry = null;
 	private IGenlabComputationServer stub = null;
 	
+	/**
+	 * Runs the tasks submitted by batches
+	 */
+	private ThreadPoolExecutor poolBatches = null;
+	
+	/**
+	 * For each client, the results of its tasks which were not collected yet
+	 */
+	private final Map<String,LinkedBlockingQueue<DistantExecutionResult>> client2results = new ConcurrentHashMap<String, LinkedBlockingQueue<DistantExecutionResult>>();
+	
+	/**
+	 * For each client, its tasks queued which did not start yet
+	 */
+	private final Map<String,Map<Long,Runnable>> client2queued = new ConcurrentHashMap<String, Map<Long,Runnable>>();
+	
 	
 	public GenlabComputationServer() {
         super();
@@ -64,6 +90,15 @@ public class GenlabComputationServer implements IGenlabComputationServer {
         
 	}
 	
+	/**
+	 * Creates a server which runs at most this count of tasks in parallel
+	 * @param numberProcessesMax
+	 */
+	public GenlabComputationServer(int numberProcessesMax) {
+		this();
+		this.numberProcessesMax = numberProcessesMax;
+	}
+	
 	private static GenlabComputationServer singleton = null;
 	
 	
@@ -98,18 +133,24 @@ public class GenlabComputationServer implements IGenlabComputationServer {
 		return System.currentTimeMillis();
 	}
 
-	@Override
-	public DistantExecutionResult executeTask(IAlgoExecution task) throws RemoteException {
+	/**
+	 * Runs this task in the current thread and returns its result
+	 * @param taskId
+	 * @param task
+	 * @return
+	 */
+	protected DistantExecutionResult runTask(long taskId, IAlgoExecution task) {
 		
 		// run
 		messages.infoTech("running distant task "+task, getClass());
 		try {
 			// TODO change that; but required now
 			task.getExecution().setExecutionForced(true);
-			task.run();
+			ResultsCache.singleton.run(task);
 			messages.infoTech("finished distant task "+task, getClass());
 			// then retrieve results from the task
 			DistantExecutionResult res = new DistantExecutionResult(
+					taskId,
 					task.getProgress().getComputationState(),
 					task.getResult()
 					);
@@ -117,24 +158,184 @@ public class GenlabComputationServer implements IGenlabComputationServer {
 			// stop the list of messages, so it's not continuing forever
 			task.getExecution().getListOfMessages().stop();
 			
-			// suggest gc ?!
-			System.gc();
-			
 			return res;
 		} catch (RuntimeException e) {
 			messages.errorTech("error while running distant task "+task.getName()+": "+e.getMessage(), getClass(), e);
+			return createFailure(taskId, task);
+		} catch (Error e) {
+			messages.errorTech("error while running distant task "+task.getName()+": "+e.getMessage(), getClass(), e);
+			return createFailure(taskId, task);
+		}
+		
+	}
+	
+	private DistantExecutionResult createFailure(long taskId, IAlgoExecution task) {
+		
+		if (task.getResult() != null)
 			return new DistantExecutionResult(
+					taskId,
 					ComputationState.FINISHED_FAILURE, 
 					task.getResult()
 					);
-		} catch (Error e) {
-			messages.errorTech("error while running distant task "+task.getName()+": "+e.getMessage(), getClass(), e);
+		else
 			return new DistantExecutionResult(
+					taskId,
 					ComputationState.FINISHED_FAILURE, 
-					task.getResult()
+					task.getExecution().getListOfMessages()
 					);
+	}
+	
+	@Override
+	public DistantExecutionResult executeTask(IAlgoExecution task) throws RemoteException {
+		
+		DistantExecutionResult res = runTask(-1, task);
+		
+		// suggest gc ?!
+		System.gc();
+		
+		return res;
+	}
+	
+	protected synchronized ThreadPoolExecutor getPoolBatches() {
+		
+		if (poolBatches == null) {
+			poolBatches = new ThreadPoolExecutor(
+					numberProcessesMax, 
+					numberProcessesMax, 
+					60, TimeUnit.SECONDS, 
+					new LinkedBlockingQueue<Runnable>(),
+					new ThreadFactory() {
+						
+						private final AtomicInteger count = new AtomicInteger(0);
+						
+						@Override
+						public Thread newThread(Runnable r) {
+							Thread t = new Thread(r, "gl_server_worker_"+count.getAndIncrement());
+							t.setDaemon(true);
+							t.setPriority(Thread.MIN_PRIORITY);
+							return t;
+						}
+					}
+					);
+			poolBatches.allowCoreThreadTimeOut(true);
+		}
+		return poolBatches;
+	}
+	
+	protected LinkedBlockingQueue<DistantExecutionResult> getResultsForClient(String clientId) {
+		
+		LinkedBlockingQueue<DistantExecutionResult> results = client2results.get(clientId);
+		if (results == null) {
+			synchronized (client2results) {
+				results = client2results.get(clientId);
+				if (results == null) {
+					results = new LinkedBlockingQueue<DistantExecutionResult>();
+					client2results.put(clientId, results);
+				}
+			}
+		}
+		return results;
+	}
+	
+	@Override
+	public void submitTasks(String clientId, Map<Long, IAlgoExecution> id2task) throws RemoteException {
+		
+		messages.debugTech("received "+id2task.size()+" tasks from client "+clientId, getClass());
+		
+		final LinkedBlockingQueue<DistantExecutionResult> results = getResultsForClient(clientId);
+		final Map<Long,Runnable> queued = getQueuedForClient(clientId);
+		final ThreadPoolExecutor pool = getPoolBatches();
+		
+		for (Map.Entry<Long,IAlgoExecution> e: id2task.entrySet()) {
+			
+			final long taskId = e.getKey();
+			final IAlgoExecution task = e.getValue();
+			
+			Runnable r = new Runnable() {
+				
+				@Override
+				public void run() {
+					// this task can not be cancelled anymore
+					queued.remove(taskId);
+					results.add(runTask(taskId, task));
+				}
+			};
+			queued.put(taskId, r);
+			pool.execute(r);
+		}
+		
+	}
+
+	@Override
+	public List<DistantExecutionResult> collectResults(String clientId, int maxResults, long timeoutMs) throws RemoteException {
+		
+		final LinkedBlockingQueue<DistantExecutionResult> results = getResultsForClient(clientId);
+		
+		List<DistantExecutionResult> res = new LinkedList<DistantExecutionResult>();
+		
+		try {
+			DistantExecutionResult first = results.poll(timeoutMs, TimeUnit.MILLISECONDS);
+			if (first == null)
+				return res;
+			res.add(first);
+		} catch (InterruptedException e) {
+			return res;
+		}
+		results.drainTo(res, maxResults-1);
+		
+		return res;
+	}
+
+	protected Map<Long,Runnable> getQueuedForClient(String clientId) {
+		
+		Map<Long,Runnable> queued = client2queued.get(clientId);
+		if (queued == null) {
+			synchronized (client2queued) {
+				queued = client2queued.get(clientId);
+				if (queued == null) {
+					queued = new ConcurrentHashMap<Long, Runnable>();
+					client2queued.put(clientId, queued);
+				}
+			}
+		}
+		return queued;
+	}
+	
+	@Override
+	public long[] cancelQueuedTasks(String clientId, long[] taskIds) throws RemoteException {
+		
+		final Map<Long,Runnable> queued = getQueuedForClient(clientId);
+		final ThreadPoolExecutor pool = getPoolBatches();
+		
+		long[] removed = new long[taskIds.length];
+		int countRemoved = 0;
+		for (long taskId: taskIds) {
+			Runnable r = queued.remove(taskId);
+			// the task might have started meanwhile
+			if (r != null && pool.remove(r)) 
+				removed[countRemoved++] = taskId;
+		}
+		
+		messages.debugTech("client "+clientId+" took back "+countRemoved+" tasks out of "+taskIds.length+" requested", getClass());
+		
+		return Arrays.copyOf(removed, countRemoved);
+	}
+	
+	@Override
+	public void closeSession(String clientId) throws RemoteException {
+		
+		Map<Long,Runnable> queued = client2queued.remove(clientId);
+		if (queued != null) {
+			// no one will ever collect the results of these ones
+			final ThreadPoolExecutor pool = getPoolBatches();
+			for (Runnable r: queued.values()) {
+				pool.remove(r);
+			}
 		}
 		
+		LinkedBlockingQueue<DistantExecutionResult> results = client2results.remove(clientId);
+		if (results != null && !results.isEmpty())
+			messages.infoTech("client "+clientId+" left without collecting "+results.size()+" results", getClass());
 	}
 
 
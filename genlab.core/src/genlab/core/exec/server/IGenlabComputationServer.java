@@ -3,6 +3,8 @@ package genlab.core.exec.server;
 import genlab.core.model.exec.IAlgoExecution;
 
 import java.rmi.Remote;
+import java.util.List;
+import java.util.Map;
 
 public interface IGenlabComputationServer extends Remote {
 
@@ -24,4 +26,43 @@ public interface IGenlabComputationServer extends Remote {
 	
 	public int getNumberTasksAccepted()  throws java.rmi.RemoteException;
 	
+	/**
+	 * Queues these tasks for execution on this server, and returns immediately. 
+	 * The results are then retrieved with {@link #collectResults(String, int, long)}.
+	 * @param clientId identifies the client, so each client only retrieves the results of its own tasks
+	 * @param id2task the tasks to run, associated to the identifier the client uses for them
+	 * @throws java.rmi.RemoteException
+	 */
+	public void submitTasks(String clientId, Map<Long,IAlgoExecution> id2task) throws java.rmi.RemoteException;
+	
+	/**
+	 * Returns the results of the tasks of this client which finished since the last call
+	 * (at most maxResults of them). If none is available, waits up to timeoutMs for one; 
+	 * returns an empty list if none finished meanwhile.
+	 * @param clientId
+	 * @param maxResults
+	 * @param timeoutMs
+	 * @return
+	 * @throws java.rmi.RemoteException
+	 */
+	public List<DistantExecutionResult> collectResults(String clientId, int maxResults, long timeoutMs) throws java.rmi.RemoteException;
+	
+	/**
+	 * Removes from the queue of this server the tasks of this client which did not start yet. 
+	 * Returns the identifiers of the tasks actually removed; the other ones are running 
+	 * or finished, and their results will be collected as usual.
+	 * @param clientId
+	 * @param taskIds
+	 * @return
+	 * @throws java.rmi.RemoteException
+	 */
+	public long[] cancelQueuedTasks(String clientId, long[] taskIds) throws java.rmi.RemoteException;
+	
+	/**
+	 * Forgets the results not collected yet by this client.
+	 * @param clientId
+	 * @throws java.rmi.RemoteException
+	 */
+	public void closeSession(String clientId) throws java.rmi.RemoteException;
+	
 }
@@ -4,6 +4,7 @@ import genlab.core.commons.ProgramException;
 import genlab.core.exec.ExecutionTask;
 import genlab.core.exec.IExecution;
 import genlab.core.exec.ITask;
+import genlab.core.exec.ValuesRelease;
 import genlab.core.model.instance.IAlgoContainerInstance;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IConnection;
@@ -11,6 +12,8 @@ import genlab.core.model.instance.IInputOutputInstance;
 import genlab.core.model.meta.ExistingAlgos;
 import genlab.core.model.meta.IAlgo;
 import genlab.core.model.meta.IInputOutput;
+import genlab.core.parameters.Parameter;
+import genlab.core.parameters.RNGSeedParameter;
 import genlab.core.usermachineinteraction.ListOfMessages;
 
 import java.io.Externalizable;
@@ -20,6 +23,7 @@ import java.io.ObjectOutput;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -43,12 +47,30 @@ public abstract class AbstractAlgoExecution extends ExecutionTask implements IAl
 
 	protected ListOfMessages messages;
 	
+	/**
+	 * Priority for dispatch (length of the longest path remaining after this task)
+	 */
+	protected volatile long priority = 0;
+	
 
 	/**
 	 * For each input, associates it with the incoming connections for this input.
 	 */
 	protected Map<IInputOutputInstance,Collection<IConnectionExecution>> input2connection = null; 
 
+	/**
+	 * The executable connections which consume our outputs, and the ones which already retrieved them
+	 * (used to release our results as soon as possible, see {@link ValuesRelease}).
+	 * Also used as the locker for consumers.
+	 */
+	private final Set<IConnectionExecution> consumers = new HashSet<IConnectionExecution>();
+	private final Set<IConnectionExecution> consumersFetched = new HashSet<IConnectionExecution>();
+	
+	/**
+	 * Count of the explicit retains of the results, which prevent their release
+	 */
+	private int resultRetains = 0;
+
 	
 	/**
 	 * During init, creates the input executable connections
@@ -147,6 +169,97 @@ public abstract class AbstractAlgoExecution extends ExecutionTask implements IAl
 	
 	public void setResult(IComputationResult res) {
 		this.result = res;
+		synchronized (consumers) {
+			consumersFetched.clear();
+		}
+	}
+
+	/**
+	 * Declares an executable connection which will consume our outputs
+	 * @param c
+	 */
+	public void addConsumer(IConnectionExecution c) {
+		synchronized (consumers) {
+			consumers.add(c);
+		}
+	}
+	
+	/**
+	 * Called by a consumer when it retrieved its value from our results. When all the consumers 
+	 * did, the results are released (if enabled in {@link ValuesRelease}).
+	 * @param c
+	 */
+	public void notifyValueFetched(IConnectionExecution c) {
+		
+		if (!ValuesRelease.singleton.isEnabled())
+			return;
+		
+		synchronized (consumers) {
+			if (!consumers.contains(c))
+				return;
+			consumersFetched.add(c);
+			if (consumersFetched.size() < consumers.size() || resultRetains > 0)
+				return;
+			consumersFetched.clear();
+		}
+		releaseResult();
+	}
+	
+	/**
+	 * Prevents the release of our results until {@link #releaseRetainedResult()} is called 
+	 * (for instance, while they are stored in a cache).
+	 */
+	public void retainResult() {
+		synchronized (consumers) {
+			resultRetains++;
+		}
+	}
+	
+	/**
+	 * Ends a retain of our results; releases them if they were retrieved by all the consumers meanwhile
+	 */
+	public void releaseRetainedResult() {
+		synchronized (consumers) {
+			resultRetains--;
+			if (resultRetains > 0 || consumers.isEmpty() || consumersFetched.size() < consumers.size())
+				return;
+			consumersFetched.clear();
+		}
+		releaseResult();
+	}
+	
+	/**
+	 * Releases our results, which are not needed anymore.
+	 */
+	protected void releaseResult() {
+		
+		final IComputationResult res = result;
+		if (res == null)
+			return;
+		
+		ValuesRelease.singleton.resultsReleased(this, res);
+		res.clean();
+	}
+	
+	/**
+	 * Releases the values of the incoming connections, which are not needed anymore 
+	 * once we are finished. Returns the count of values released.
+	 * @return
+	 */
+	public int releaseInputValues() {
+		
+		final Map<IInputOutputInstance,Collection<IConnectionExecution>> conns = input2connection;
+		if (conns == null)
+			return 0;
+		
+		int count = 0;
+		for (Collection<IConnectionExecution> cExIns: conns.values()) {
+			for (IConnectionExecution cExIn: cExIns) {
+				if (cExIn instanceof AbstractConnectionExec && ((AbstractConnectionExec<?,?>)cExIn).releaseValue())
+					count++;
+			}
+		}
+		return count;
 	}
 
 	
@@ -335,6 +448,52 @@ public abstract class AbstractAlgoExecution extends ExecutionTask implements IAl
 	
 	}
 
+	/**
+	 * Returns true if this execution always produces the same outputs for the same parameters 
+	 * and inputs (used to reuse fitness in genetic explorations, and by {@link #isCacheable()}).
+	 * By default, an algorithm is assumed deterministic unless it declares a random seed which 
+	 * was left undefined. Algorithms using randomness without a seed parameter, or with side effects, 
+	 * should override this method.
+	 * @return
+	 */
+	public boolean isDeterministic() {
+		
+		for (Parameter<?> p: algoInst.getParameters()) {
+			if (p instanceof RNGSeedParameter && algoInst.getValueForParameter(p) == null)
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Returns true if the results of this execution might be stored and reused by the
+	 * {@link genlab.core.exec.ResultsCache}. Caching is opt-in, so a random algorithm is never 
+	 * cached by mistake: by default, only the algorithms which declare a random seed and 
+	 * received a value for it are cached. Deterministic algorithms costly enough to be worth 
+	 * caching should override this method.
+	 * @return
+	 */
+	public boolean isCacheable() {
+		
+		if (!isDeterministic())
+			return false;
+		for (Parameter<?> p: algoInst.getParameters()) {
+			if (p instanceof RNGSeedParameter && algoInst.getValueForParameter(p) != null)
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public long getPriority() {
+		return priority;
+	}
+	
+	@Override
+	public void setPriority(long priority) {
+		this.priority = priority;
+	}
+
 	public void propagateRank(Integer rank, Set<ITask> visited) {
 		super.propagateRank(rank, visited);
 		
@@ -122,7 +122,7 @@ public abstract class AbstractAlgoReduceExecution
 		if (!exec2finishStatus.containsKey(progress.getAlgoExecution()))
 			throw new ProgramException("unknown incoming execution: " + progress.getAlgoExecution());
 
-		messages.traceTech("one of the executions finished: "+progress.getAlgoExecution(), getClass());
+		messages.traceTech(getClass(), "one of the executions finished: {}", progress.getAlgoExecution());
 
 		exec2finishStatus.put(progress.getAlgoExecution(), progress.getComputationState());
 		
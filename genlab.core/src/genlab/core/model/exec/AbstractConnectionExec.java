@@ -11,6 +11,7 @@ import genlab.core.commons.ProgramException;
 import genlab.core.exec.IExecution;
 import genlab.core.exec.ITask;
 import genlab.core.model.instance.IConnection;
+import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 
 /**
  * A connection instance in the execution world: links two algo executions.
@@ -71,6 +72,46 @@ public abstract class AbstractConnectionExec<TypeFrom extends IAlgoExecution, Ty
 	}
 
 	
+	/**
+	 * Returns the value to transmit: graphs are frozen, as the same graph may be read by several algorithms;
+	 * the ones which modify it work on a clone, which shares the data of the frozen graph until modified.
+	 * @param value
+	 * @return
+	 */
+	protected static Object protectValue(Object value) {
+		if (value instanceof IGenlabGraph)
+			((IGenlabGraph)value).freeze();
+		return value;
+	}
+	
+	/**
+	 * Declares this connection as a consumer of the outputs of "from", 
+	 * so its results may be released once read by all its consumers.
+	 */
+	protected void registerAsConsumer() {
+		if (from instanceof AbstractAlgoExecution)
+			((AbstractAlgoExecution)from).addConsumer(this);
+	}
+	
+	/**
+	 * To be called once the value was retrieved from the results of "from"
+	 */
+	protected void notifyValueFetched() {
+		if (from instanceof AbstractAlgoExecution)
+			((AbstractAlgoExecution)from).notifyValueFetched(this);
+	}
+	
+	/**
+	 * Releases the value, which is not needed anymore by "to". 
+	 * Returns true if there was a value.
+	 * @return
+	 */
+	public boolean releaseValue() {
+		final boolean hadValue = value != null;
+		value = null;
+		return hadValue;
+	}
+	
 	public void reset() {
 		//System.out.println("clearing by reset"+this);
 		this.value = null;
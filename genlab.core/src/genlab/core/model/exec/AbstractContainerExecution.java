@@ -1,6 +1,7 @@
 package genlab.core.model.exec;
 
 import genlab.core.commons.ProgramException;
+import genlab.core.exec.CriticalPathPriorities;
 import genlab.core.exec.IContainerTask;
 import genlab.core.exec.IExecution;
 import genlab.core.exec.ITask;
@@ -9,6 +10,7 @@ import genlab.core.model.instance.IAlgoInstance;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedList;
@@ -118,7 +120,16 @@ public abstract class AbstractContainerExecution
 			
 	}
 	
-	protected void updateProgressFromChildren() {
+	protected final void updateProgressFromChildren() {
+		updateProgressFromChildren(true);
+	}
+	
+	/**
+	 * Updates our progress based on the progress of our children; if mayFinish, 
+	 * also ends our computation when they all finished.
+	 * @param mayFinish
+	 */
+	protected void updateProgressFromChildren(boolean mayFinish) {
 		
 		if (!autoUpdateProgressFromChildren && !autoFinishWhenChildrenFinished)
 			return;
@@ -172,7 +183,7 @@ public abstract class AbstractContainerExecution
 			this.progress.setProgressTotal(totalToDo);
 			this.progress.setProgressMade(totalDone);
 			
-		} else if (autoFinishWhenChildrenFinished) {
+		} else if (autoFinishWhenChildrenFinished && mayFinish) {
 			
 			// if we reached this step, then all our children have finished.
 
@@ -189,7 +200,7 @@ public abstract class AbstractContainerExecution
 				
 			}
 			
-			messages.traceTech("all subs terminated; should transmit results (and set my state to "+ourState+")", getClass());
+			messages.traceTech(getClass(), "all subs terminated; should transmit results (and set my state to {})", ourState);
 			hookContainerExecutionFinished(ourState);
 			
 			this.progress.setComputationState(ourState);
@@ -202,8 +213,15 @@ public abstract class AbstractContainerExecution
 	@Override
 	public void computationProgressChanged(IComputationProgress progress) {
 		
-		messages.traceTech("received a state change: "+progress.getAlgoExecution()+" changed to "+progress.getComputationState(), getClass());
-		updateProgressFromChildren();
+		messages.traceTech(getClass(), "received a state change: {} changed to {}", progress.getAlgoExecution(), progress.getComputationState());
+		
+		// detailed changes are coalesced by the progress dispatcher (possibly in another thread); 
+		// the end of children is managed by the (synchronous) changes of state.
+		try {
+			updateProgressFromChildren(false);
+		} catch (ConcurrentModificationException e) {
+			// children were added meanwhile; the progress will be updated at the next change
+		}
 	}
 
 	@Override
@@ -364,7 +382,7 @@ public abstract class AbstractContainerExecution
 			if (sub.isDisabled()) {
 				messages.warnUser("the algorithm "+sub.getName()+" is disabled, so it will not be run", getClass()); 
 			} else {
-				messages.traceTech("creating the execution task for algo "+sub, getClass());
+				messages.traceTech(getClass(), "creating the execution task for algo {}", sub);
 				IAlgoExecution subExec = sub.execute(exec);
 				
 				if (subExec == null)
@@ -460,7 +478,7 @@ public abstract class AbstractContainerExecution
 	protected void initLinksWithSubExec(
 					Map<IAlgoInstance, IAlgoExecution> instance2execution) {
 
-		messages.traceTech("init links for sub executables of "+getAlgoInstance().getName(), getClass());
+		messages.traceTech(getClass(), "init links for sub executables of {}", getAlgoInstance().getName());
 		
 		// call each algo and ask him to create its executable connections
 		Map<IAlgoInstance, IAlgoExecution> unmodifiableMap = Collections.unmodifiableMap(instance2execution);
@@ -477,7 +495,7 @@ public abstract class AbstractContainerExecution
 			if (exec.getAlgoInstance().getContainer() != null  && (exec.getAlgoInstance().getContainer() != getAlgoInstance()))
 				continue;
 	
-			messages.traceTech("init links for sub "+exec, getClass());
+			messages.traceTech(getClass(), "init links for sub {}", exec);
 			exec.initInputs(unmodifiableMap);
 		}
 		
@@ -506,6 +524,17 @@ public abstract class AbstractContainerExecution
 		}
 	}
 	
+	/**
+	 * Computes the priority of each subtask from the critical path
+	 * of the algo instances. Should be called before the tasks are added to the runner.
+	 */
+	protected void initPriorities(
+			Collection<IAlgoInstance> algoInstances, 
+			Map<IAlgoInstance, IAlgoExecution> instance2execution) {
+		
+		CriticalPathPriorities.assignPriorities(algoInstances, instance2execution, getPriority());
+	}
+	
 	protected void initPropagateRanks(
 			Collection<IAlgoInstance> algoInstances, 
 			Map<IAlgoInstance, IAlgoExecution> instance2execution) {
@@ -1,6 +1,7 @@
 package genlab.core.model.exec;
 
 import genlab.core.commons.ProgramException;
+import genlab.core.exec.CriticalPathPriorities;
 import genlab.core.exec.ICleanableTask;
 import genlab.core.exec.IExecution;
 import genlab.core.exec.ITask;
@@ -59,6 +60,11 @@ public class AbstractContainerExecutionIteration
 			instance2execForSubtasks.put(cIn.getFrom().getAlgoInstance(), this);
 		}
 		
+		// we are as critical as our supervisor
+		final IAlgoExecution supervisor = instance2exec.get(algoInst);
+		if (supervisor != null)
+			setPriority(supervisor.getPriority());
+		
 		initSubtasks();
 		initComputationState();
 
@@ -127,10 +133,12 @@ public class AbstractContainerExecutionIteration
 		
 		// first create each child execution...
 		messages.traceTech("create executables for child tasks", getClass());
+		final Map<IAlgoInstance,Long> child2priority = CriticalPathPriorities.computePriorities(algoInst.getChildren());
 		for (IAlgoInstance child : algoInst.getChildren()) {
 			IAlgoExecution childExec = child.execute(exec);
 			instance2execForSubtasks.put(child, childExec);
 			childExec.setParent(this);
+			childExec.setPriority(getPriority() + child2priority.get(child));
 			addTask(childExec);
 		}
 		
@@ -211,7 +219,7 @@ public class AbstractContainerExecutionIteration
 			
 			for (IConnectionExecution cEx : toExec.getConnectionsForInput(c.getTo())) {
 				Object value = inputConnection2value.get(cEx.getConnection());
-				messages.traceTech("defining for "+c+": "+value, getClass());
+				messages.traceTech(getClass(), "defining for {}: {}", c, value);
 				cEx.forceValue(value);
 
 			}
@@ -240,7 +240,7 @@ public abstract class AbstractContainerExecutionSupervisor
 			for (IConnection c: algoInst.getConnectionsComingFromOutside()) {
 				for (IConnectionExecution cEx : resExecIteration.getOrCreateConnectionsForInput(c.getTo())) {
 					Object value = inputConnection2value.get(c);
-					messages.traceTech("defining value "+value+" for "+c, getClass());
+					messages.traceTech(getClass(), "defining value {} for {}", value, c);
 					cEx.forceValue(value);
 				}
 			}
@@ -265,7 +265,7 @@ public abstract class AbstractContainerExecutionSupervisor
 
 		
 	@Override
-	protected void updateProgressFromChildren() {
+	protected void updateProgressFromChildren(boolean mayFinish) {
 		
 		// this version is very similar to the one from parents. 
 		// the main difference is that we assume that a task with "unknown" progress will last as long as the longest 
@@ -328,7 +328,7 @@ public abstract class AbstractContainerExecutionSupervisor
 		if (somethingNotFinished) {
 			this.progress.setProgressTotal(totalToDo);
 			this.progress.setProgressMade(totalDone);
-		} else {
+		} else if (mayFinish) {
 			// if we reached this step, then all our children have finished.
 			// as a container, we end ourself
 			if (somethingFailed && !ignoreFailuresFromChildren)
@@ -6,14 +6,23 @@ import genlab.core.exec.ITask;
 import genlab.core.model.meta.IAlgo;
 import genlab.core.usermachineinteraction.GLLogger;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * Progress of a computation, as steps made over a total.
+ * 
+ * The progress may be updated very often, including by several threads, so it relies on 
+ * atomic counters rather than locks. The listeners are stored in copy-on-write arrays, so 
+ * dispatching does not require any lock or copy. The changes of the numerical progress are
+ * dispatched to detailed listeners by the {@link ProgressDetailDispatcher}, which coalesces them; 
+ * changes of state are dispatched synchronously.
+ * 
  * TODO state
  * TODO timestamps
- * TODO relay small changes in progress ???
  * 
  * @author Samuel Thiriot
  *
@@ -23,23 +32,39 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 
 	private IAlgoExecution algoExec = null;
 	private UniqueTimestamp timestampCreation = null;
-	private Long timestampStart = null;
-	private Long timestampEnd  = null;
-	private Long total  = null;
-	private Long made  = null;
+	private volatile Long timestampStart = null;
+	private volatile Long timestampEnd  = null;
+	
+	/**
+	 * value of the counters when undefined
+	 */
+	private static final long UNDEFINED = -1;
+	
+	private AtomicLong total = new AtomicLong(UNDEFINED);
+	private AtomicLong made = new AtomicLong(UNDEFINED);
 	private IAlgo algo = null;
-	private ComputationState state = null;
+	private volatile ComputationState state = null;
 	// locks the state. Used to avoid the state to be changed while we are dispatching the event on state change.
 	private final Object stateLock = new Object();
 	private Throwable exception = null;
 	private String currentTaskName = "";
 	
-	protected LinkedList<IComputationProgressSimpleListener> listeners = new LinkedList<IComputationProgressSimpleListener>();
-	protected LinkedList<IComputationProgressDetailedListener> listenersDetails = null;
-	protected Object listenersDetailsLock = new Object();
-
+	private static final IComputationProgressSimpleListener[] NO_LISTENERS = new IComputationProgressSimpleListener[0];
+	
+	/**
+	 * Copy-on-write: the array is never modified, but replaced (under the lock)
+	 */
+	protected volatile IComputationProgressSimpleListener[] listeners = NO_LISTENERS;
+	protected final Object listenersLock = new Object();
+	protected volatile IComputationProgressDetailedListener[] listenersDetails = null;
+	protected final Object listenersDetailsLock = new Object();
+
+	/**
+	 * True when a change of the progress waits for being dispatched to detailed listeners
+	 */
+	private AtomicBoolean detailPending = new AtomicBoolean(false);
 	
-	private boolean cleaned = false;
+	private volatile boolean cleaned = false;
 	
 	protected final static int MIN_DIFFERENCE_TO_DISPATCH_DETAILED_CHANGE = 5;
 	
@@ -87,19 +112,21 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 
 	@Override
 	public Double getProgressPercent() {
-		if (total == null || made == null)
+		final long t = total.get();
+		final long m = made.get();
+		if (t == UNDEFINED || m == UNDEFINED)
 			return null;
-		return made*100.0/total;
+		return m*100.0/t;
 	}
 
 	@Override
 	public Long getProgressTotalToDo() {
-		return (total == null?0l:total); // TODO more efficient
+		return Math.max(total.get(), 0l);
 	}
 
 	@Override
 	public Long getProgressDone() {
-		return (made == null?0l:made); // TODO more efficient
+		return Math.max(made.get(), 0l);
 	}
 
 	@Override
@@ -107,28 +134,39 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		return algo;
 	}
 
+	/**
+	 * Raises the total so it is at least the count of steps made
+	 * @param m
+	 */
+	private final void ensureTotalAtLeast(long m) {
+		long t;
+		do {
+			t = total.get();
+			if (t >= m) 
+				return;
+		} while (!total.compareAndSet(t, m));
+	}
+	
 	@Override
 	public void setProgressTotal(Long cumulated) {
 		
 		if (cumulated != null && cumulated <= 0)
 			throw new ProgramException("total should be higher than 0");
 		
-		final long difference = (cumulated == null || made == null?(cumulated != made?1:0):cumulated-this.made);
+		final long previousMade = made.get();
+		final long difference = (cumulated == null || previousMade == UNDEFINED ? 1 : cumulated-previousMade);
 
-		this.total = cumulated;
-		
-		if (cumulated == null)
-			made = null;
-		
-		else if (made == null)
-			made = 0l;
-		
-		if (this.total < made) {
-			this.total = made;
+		if (cumulated == null) {
+			total.set(UNDEFINED);
+			made.set(UNDEFINED);
+		} else {
+			total.set(cumulated);
+			made.compareAndSet(UNDEFINED, 0);
+			ensureTotalAtLeast(made.get());
 		}
 		
 		if (difference > MIN_DIFFERENCE_TO_DISPATCH_DETAILED_CHANGE)
-			dispatchComputationStateChangedDetail();
+			requestDispatchDetail();
 	}
 
 	@Override
@@ -136,40 +174,28 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		if (total < 0)
 			throw new ProgramException("total should be higher than 0");
 		
-		final long difference = (total == null || made == null?(total != made?1:0):total-this.made);
-		
-		this.made = total;
+		final long previousMade = made.getAndSet(total);
+		final long difference = (previousMade == UNDEFINED ? 1 : total-previousMade);
 		
 		if (difference > MIN_DIFFERENCE_TO_DISPATCH_DETAILED_CHANGE)
-			dispatchComputationStateChangedDetail();
+			requestDispatchDetail();
 	}
 
 	@Override
 	public void incProgressMade(Long inc) {
-		if (made == null) {
-			made = 0l;
-		}
-		if (total == null) {
-			total = 1l;
-		}
-		this.made += inc;
-		if (total < made) {
-			total = made;
-		}
+		long m;
+		long updated;
+		do {
+			m = made.get();
+			updated = (m == UNDEFINED ? 0 : m) + inc;
+		} while (!made.compareAndSet(m, updated));
+		total.compareAndSet(UNDEFINED, 1);
+		ensureTotalAtLeast(updated);
 	}
 
 	@Override
 	public void incProgressMade() {
-		if (made == null) {
-			made = 0l;
-		}
-		if (total == null) {
-			total = 1l;
-		}
-		this.made ++;
-		if (total < made) {
-			total = made;
-		}
+		incProgressMade(1l);
 	}
 
 	@Override
@@ -210,7 +236,7 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 			case FINISHED_FAILURE:
 			case FINISHED_CANCEL:
 			case FINISHED_OK:
-				this.made = this.total;
+				this.made.set(this.total.get());
 				this.timestampEnd = System.currentTimeMillis();
 				break;
 			}
@@ -223,38 +249,65 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 
 	@Override
 	public void addListener(IComputationProgressSimpleListener listener) {
-		synchronized (listeners) {
+		synchronized (listenersLock) {
+			
+			final IComputationProgressSimpleListener[] current = listeners;
+			if (current == null || contains(current, listener))
+				return;
 			
-			if (!listeners.contains(listener)) {
-				if (listener instanceof IComputationProgressListenerSimpleHighPriority) 
-					listeners.addFirst(listener);
-				else
-					listeners.add(listener);
+			final IComputationProgressSimpleListener[] updated = new IComputationProgressSimpleListener[current.length+1];
+			if (listener instanceof IComputationProgressListenerSimpleHighPriority) {
+				updated[0] = listener;
+				System.arraycopy(current, 0, updated, 1, current.length);
+			} else {
+				System.arraycopy(current, 0, updated, 0, current.length);
+				updated[current.length] = listener;
 			}
+			listeners = updated;
 		}	
 	}
-		
+	
+	private static final boolean contains(Object[] array, Object o) {
+		for (Object e: array) {
+			if (e.equals(o))
+				return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns a copy of this array without this element (or the same array if it does not contain it) 
+	 * @param array
+	 * @param o
+	 * @return
+	 */
+	private static final <T> T[] without(T[] array, Object o) {
+		for (int i=0; i<array.length; i++) {
+			if (array[i].equals(o)) {
+				final T[] updated = Arrays.copyOf(array, array.length-1);
+				System.arraycopy(array, i+1, updated, i, array.length-i-1);
+				return updated;
+			}
+		}
+		return array;
+	}
 
 	@Override
 	public void removeListener(IComputationProgressSimpleListener listener) {
-		synchronized (listeners) {
-			listeners.remove(listener);	
+		synchronized (listenersLock) {
+			if (listeners != null)
+				listeners = without(listeners, listener);	
 		}
 	}
 	
 	protected void dispatchComputationStateChanged() {
 		
-		if (listeners == null)
+		// the array is never modified, so a change during dispatching would not raise a problem
+		final IComputationProgressSimpleListener[] current = listeners;
+		if (current == null)
 			return;
 		
-		LinkedList<IComputationProgressSimpleListener> listenersCopy = null; 
-		
-		synchronized (listeners) {
-			listenersCopy = (LinkedList<IComputationProgressSimpleListener>) listeners.clone();
-		}
-		
-		// produce a clone, so a change during dispatching would not raise a problem
-		for (IComputationProgressSimpleListener l:  listenersCopy) {
+		for (IComputationProgressSimpleListener l:  current) {
 			try {
 				l.computationStateChanged(this);
 			} catch (RuntimeException e) {
@@ -269,17 +322,40 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		
 	}
 	
-	protected void dispatchComputationStateChangedDetail() {
-		LinkedList<IComputationProgressDetailedListener> listenersCopy = null; 
+	/**
+	 * Dispatches the change of progress to detailed listeners, either now 
+	 * or during the next period of the {@link ProgressDetailDispatcher}
+	 */
+	protected void requestDispatchDetail() {
 		
 		if (listenersDetails == null)
 			return;
 		
-		synchronized (listenersDetailsLock) {
-
-			listenersCopy = (LinkedList<IComputationProgressDetailedListener>) listenersDetails.clone();
+		if (!ProgressDetailDispatcher.singleton.isCoalescing()) {
+			dispatchComputationStateChangedDetail();
+			return;
 		}
-		for (IComputationProgressDetailedListener l:  listenersCopy) {
+		
+		// only submit once until dispatched
+		if (detailPending.compareAndSet(false, true))
+			ProgressDetailDispatcher.singleton.submit(this);
+	}
+	
+	/**
+	 * Called by the {@link ProgressDetailDispatcher} 
+	 */
+	protected void dispatchPendingDetail() {
+		detailPending.set(false);
+		dispatchComputationStateChangedDetail();
+	}
+	
+	protected void dispatchComputationStateChangedDetail() {
+		
+		final IComputationProgressDetailedListener[] current = listenersDetails;
+		if (current == null)
+			return;
+		
+		for (IComputationProgressDetailedListener l:  current) {
 			try {
 				l.computationProgressChanged(this);
 			} catch (RuntimeException e) {
@@ -295,17 +371,11 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 	
 	protected void dispatchCleaning() {
 		
-		if (listeners == null)
+		final IComputationProgressSimpleListener[] current = listeners;
+		if (current == null)
 			return;
 		
-		LinkedList<IComputationProgressSimpleListener> listenersCopy = null; 
-		
-		synchronized (listeners) {
-			listenersCopy = (LinkedList<IComputationProgressSimpleListener>) listeners.clone();
-		}
-		// produce a clone, so a change during dispatching would not raise a problem
-		//ComputationProgressWithSteps clone = (ComputationProgressWithSteps) this.clone();
-		for (IComputationProgressSimpleListener l:  listenersCopy) {
+		for (IComputationProgressSimpleListener l:  current) {
 			try {
 				l.taskCleaning(algoExec);
 			} catch (RuntimeException e) {
@@ -347,6 +417,9 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		
 		try {
 			clone = (ComputationProgressWithSteps)super.clone();
+			clone.total = new AtomicLong(total.get());
+			clone.made = new AtomicLong(made.get());
+			clone.detailPending = new AtomicBoolean(false);
 			
 		} catch(CloneNotSupportedException e) {
 			throw new RuntimeException(e);
@@ -363,15 +436,14 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		if (listeners != null) {
 			// warn listeners
 			dispatchCleaning();
-			listeners.clear();
-			listeners = null;
-
+			synchronized (listenersLock) {
+				listeners = null;
+			}
 		}
 		
 		// clear local data
 		
-		if (listenersDetails != null) {
-			listenersDetails.clear();
+		synchronized (listenersDetailsLock) {
 			listenersDetails = null;
 		}
 		algo = null;
@@ -388,12 +460,13 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		
 		synchronized (listenersDetailsLock) {
 
-			if (listenersDetails == null)
-				listenersDetails = new LinkedList<IComputationProgressDetailedListener>();
-			else if (listenersDetails.contains(listener))
-				return;
-			
-			listenersDetails.add(listener);	
+			if (listenersDetails == null) {
+				listenersDetails = new IComputationProgressDetailedListener[] { listener };
+			} else if (!contains(listenersDetails, listener)) {
+				final IComputationProgressDetailedListener[] updated = Arrays.copyOf(listenersDetails, listenersDetails.length+1);
+				updated[listenersDetails.length] = listener;
+				listenersDetails = updated;
+			}
 		}
 	}
 
@@ -404,7 +477,7 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 		synchronized (listenersDetailsLock) {
 
 			if (listenersDetails != null)
-				listenersDetails.remove(listener);	
+				listenersDetails = without(listenersDetails, listener);	
 		}
 	}
 
@@ -424,17 +497,11 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 	@Override
 	public void propagateRank(Integer rank, Set<ITask> visited) {
 
-		if (listeners == null)
+		final IComputationProgressSimpleListener[] current = listeners;
+		if (current == null)
 			return;
 		
-		LinkedList<IComputationProgressSimpleListener> listenersCopy = null; 
-		
-		synchronized (listeners) {
-			listenersCopy = (LinkedList<IComputationProgressSimpleListener>) listeners.clone();
-		}
-		// produce a clone, so a change during dispatching would not raise a problem
-		//ComputationProgressWithSteps clone = (ComputationProgressWithSteps) this.clone();
-		for (IComputationProgressSimpleListener l:  listenersCopy) {
+		for (IComputationProgressSimpleListener l:  current) {
 			
 			l.propagateRank(rank, visited);
 			
@@ -451,13 +518,19 @@ public final class ComputationProgressWithSteps implements IComputationProgress,
 
 	@Override
 	public List<IComputationProgressSimpleListener> getListeners() {
-		return listeners;
+		final IComputationProgressSimpleListener[] current = listeners;
+		if (current == null)
+			return null;
+		return Arrays.asList(current);
 	}
 
 
 	@Override
 	public List<IComputationProgressDetailedListener> getDetailedListeners() {
-		return listenersDetails;
+		final IComputationProgressDetailedListener[] current = listenersDetails;
+		if (current == null)
+			return null;
+		return Arrays.asList(current);
 	}
 
 
@@ -40,6 +40,7 @@ public class ConnectionExec extends AbstractConnectionExec<IAlgoExecution, IAlgo
 			)
 			throw new ProgramException("inconsistant executable connection");
 		
+		registerAsConsumer();
 		
 	}
 	
@@ -93,7 +94,7 @@ public class ConnectionExec extends AbstractConnectionExec<IAlgoExecution, IAlgo
 		
 		// retrieve the value
 		try {
-			value = from.getResult().getResults().get(c.getFrom());
+			value = protectValue(from.getResult().getResults().get(c.getFrom()));
 		} catch (NullPointerException e) {
 			throw new ProgramException("an executable ("+from.getName()+") announced a finished with success, but does not publish results on this connection.");
 		}
@@ -102,6 +103,9 @@ public class ConnectionExec extends AbstractConnectionExec<IAlgoExecution, IAlgo
 		if (value == null)
 			exec.getListOfMessages().errorUser("received a null value...", getClass());
 
+		// we don't need the results of the parent anymore
+		notifyValueFetched();
+
 		// warn children
 		to.notifyInputAvailable(c.getTo());
 		
@@ -116,7 +120,7 @@ public class ConnectionExec extends AbstractConnectionExec<IAlgoExecution, IAlgo
 	public void forceValue(Object value) {
 		
 		// store the value
-		this.value = value;
+		this.value = protectValue(value);
 
 		// warn children
 		to.notifyInputAvailable(c.getTo());
@@ -53,7 +53,7 @@ public class ConnectionExecFromIterationToChild extends AbstractConnectionExec<I
 
 	@Override
 	public void forceValue(Object value) {
-		this.value = value;
+		this.value = protectValue(value);
 		to.notifyInputAvailable(c.getTo());
 	}
 	
@@ -33,6 +33,8 @@ public class ConnectionExecFromIterationToReduce extends AbstractConnectionExec<
 		
 		// TODO check ?
 		
+		registerAsConsumer();
+		
 	}
 	
 	/* (non-Javadoc)
@@ -63,7 +65,7 @@ public class ConnectionExecFromIterationToReduce extends AbstractConnectionExec<
 		
 		// retrieve the value
 		try {
-			value = from.getResult().getResults().get(c.getFrom());
+			value = protectValue(from.getResult().getResults().get(c.getFrom()));
 		} catch (NullPointerException e) {
 			throw new ProgramException("an executable announced a finished with success, but does not publish results.");
 		}
@@ -72,6 +74,9 @@ public class ConnectionExecFromIterationToReduce extends AbstractConnectionExec<
 		if (value == null)
 			exec.getListOfMessages().errorUser("received a null value...", getClass());
 
+		// we don't need the results of the parent anymore
+		notifyValueFetched();
+
 		// warn children
 		to.receiveInput(
 				(IAlgoExecution)from.getParent(), 
@@ -305,7 +305,7 @@ public class ExplorationExecutionSupervisor extends AbstractContainerExecutionSu
 			for (IConnection c: algoInst.getConnectionsComingFromOutside()) {
 				for (IConnectionExecution cEx : resExecIteration.getOrCreateConnectionsForInput(c.getTo())) {
 					Object value = inputConnection2value.get(c);
-					messages.traceTech("defining value "+value+" for "+c, getClass());
+					messages.traceTech(getClass(), "defining value {} for {}", value, c);
 					cEx.forceValue(value);
 				}
 			}
@@ -75,4 +75,14 @@ public interface IAlgoExecution extends IExecutionTask, IDumpAsExecutionNetwork
 
 	public boolean containedInto(IAlgoExecution other);
 	
+	/**
+	 * Returns the priority of this task for dispatch: the higher, the sooner 
+	 * it should run once ready. 
+	 * @see genlab.core.exec.CriticalPathPriorities
+	 * @return
+	 */
+	public long getPriority();
+	
+	public void setPriority(long priority);
+	
 }
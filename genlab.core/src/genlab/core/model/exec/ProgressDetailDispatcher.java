@@ -0,0 +1,109 @@
+package genlab.core.model.exec;
+
+import genlab.core.usermachineinteraction.GLLogger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Coalesces the notifications of detailed progress (numerical progress, as opposed to state changes):
+ * the progresses which changed are dispatched to their detailed listeners once per period,
+ * whatever the count of updates meanwhile. So a container with thousands of children does
+ * not aggregate their progress at each of their updates.
+ *
+ * Changes of state are not concerned; they are always dispatched synchronously.
+ *
+ * A period of 0 dispatches every change synchronously.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ProgressDetailDispatcher implements Runnable {
+
+	public static final long DEFAULT_PERIOD_MS = 100;
+
+	public static ProgressDetailDispatcher singleton = new ProgressDetailDispatcher();
+
+	private volatile long periodMs = DEFAULT_PERIOD_MS;
+
+	/**
+	 * The progresses which changed since the last dispatch
+	 */
+	private final ConcurrentLinkedQueue<ComputationProgressWithSteps> pending = new ConcurrentLinkedQueue<ComputationProgressWithSteps>();
+
+	private Thread thread = null;
+
+	public ProgressDetailDispatcher() {
+
+	}
+
+	public long getPeriodMs() {
+		return periodMs;
+	}
+
+	/**
+	 * Defines the period of dispatch; 0 means no coalescing (every change is dispatched immediately)
+	 * @param periodMs
+	 */
+	public void setPeriodMs(long periodMs) {
+		if (periodMs < 0)
+			throw new IllegalArgumentException("the period should be positive or 0");
+		this.periodMs = periodMs;
+		if (periodMs == 0)
+			flush();
+	}
+
+	public boolean isCoalescing() {
+		return periodMs > 0;
+	}
+
+	/**
+	 * Plans the dispatch of this progress during the next period. Should be called only once
+	 * until its dispatch.
+	 * @param progress
+	 */
+	protected void submit(ComputationProgressWithSteps progress) {
+
+		pending.add(progress);
+
+		synchronized (this) {
+			if (thread == null) {
+				thread = new Thread(this, "glProgressDispatcher");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				thread.start();
+			}
+		}
+	}
+
+	/**
+	 * Dispatches the pending progresses now.
+	 */
+	public void flush() {
+
+		ComputationProgressWithSteps progress;
+		while ((progress = pending.poll()) != null) {
+			try {
+				progress.dispatchPendingDetail();
+			} catch (RuntimeException e) {
+				GLLogger.warnTech("catched an exception while dispatching the progress of "+progress, getClass(), e);
+			}
+		}
+	}
+
+	@Override
+	public void run() {
+
+		while (true) {
+
+			try {
+				Thread.sleep(Math.max(periodMs, 1));
+			} catch (InterruptedException e) {
+
+			}
+
+			flush();
+		}
+
+	}
+
+}
@@ -54,7 +54,8 @@ public class WatchdogTimer extends Thread implements IComputationProgressSimpleL
 
 		long toWait = timeoutMs;
 		
-		messages.traceTech("starting to watch task "+progress.getCurrentTaskName()+", timeout "+timeoutMs+"ms...", getClass());
+		if (messages.isTraceEnabled(getClass()))
+			messages.traceTech("starting to watch task "+progress.getCurrentTaskName()+", timeout "+timeoutMs+"ms...", getClass());
 		while (!canceled && toWait > 10) {
 			try {
 				Thread.sleep(toWait);
@@ -40,7 +40,7 @@ public class WorkflowExecution
 	protected void initTasks() {
 		
 		try {
-			messages.traceTech("preparing the execution of worklow "+workflowInstance, getClass());
+			messages.traceTech(getClass(), "preparing the execution of worklow {}", workflowInstance);
 			
 			final Collection<IAlgoInstance> allAlgoInstances = workflowInstance.getAlgoInstances();
 			
@@ -57,6 +57,8 @@ public class WorkflowExecution
 			// now init links
 			initLinksWithSubExec(instance2execution);
 		
+			initPriorities(allAlgoInstances, instance2execution);
+			
 			initAddTasksAsSubtasks(allAlgoInstances, instance2execution);
 			
 			initPropagateRanks(allAlgoInstances, instance2execution);
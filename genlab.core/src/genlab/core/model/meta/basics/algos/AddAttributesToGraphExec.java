@@ -36,8 +36,8 @@ public class AddAttributesToGraphExec extends AbstractAlgoExecutionOneshot {
 		IGenlabGraph inGraph = (IGenlabGraph) getInputValueForInput(AddAttributesToGraphAlgo.INPUT_GRAPH);
 		Map<IConnection,Object> inconnection2value = getInputValuesForInput(AddAttributesToGraphAlgo.INPUT_ANYTHING);
 		
-		// TODO copy grpah or reuse ?
-		IGenlabGraph outGraph = inGraph;
+		// the input graph is frozen; its clone shares its data, so this is cheap 
+		IGenlabGraph outGraph = inGraph.clone(inGraph.getGraphId());
 		for (IConnection inConnection: inconnection2value.keySet()) {
 			
 			final String attributeId = inConnection.getFrom().getMeta().getName();
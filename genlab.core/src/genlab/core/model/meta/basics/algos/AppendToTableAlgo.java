@@ -18,7 +18,9 @@ import genlab.core.model.meta.InputOutput;
 import genlab.core.model.meta.basics.flowtypes.AnythingFlowType;
 import genlab.core.model.meta.basics.flowtypes.GenlabTable;
 import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+import genlab.core.model.meta.basics.flowtypes.SpillableGenlabTable;
 import genlab.core.model.meta.basics.flowtypes.TableFlowType;
+import genlab.core.parameters.IntParameter;
 
 public class AppendToTableAlgo extends BasicAlgo implements IReduceAlgo {
 
@@ -37,6 +39,18 @@ public class AppendToTableAlgo extends BasicAlgo implements IReduceAlgo {
 			"a table with all the values"
 			);
 	
+	/**
+	 * Above this count of rows, the oldest rows are written to disk (see {@link SpillableGenlabTable});
+	 * 0 keeps all the rows in memory.
+	 */
+	public static final IntParameter PARAM_MAX_ROWS_IN_MEMORY = new IntParameter(
+			"param_max_rows_in_memory", 
+			"max rows in memory", 
+			"above this count of rows, the oldest rows are stored on disk (0 to keep all the rows in memory)", 
+			0,
+			0
+			);
+	
 	public AppendToTableAlgo() {
 		super(
 				"append table", 
@@ -52,6 +66,8 @@ public class AppendToTableAlgo extends BasicAlgo implements IReduceAlgo {
 		OUTPUT_TABLE.setIsContinuousOutput(true);
 		
 		outputs.add(OUTPUT_TABLE);
+		
+		registerParameter(PARAM_MAX_ROWS_IN_MEMORY);
 	}
 	
 	
@@ -12,8 +12,9 @@ import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IConnection;
 import genlab.core.model.instance.IInputOutputInstance;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.ColumnarGenlabTable;
 import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
+import genlab.core.model.meta.basics.flowtypes.SpillableGenlabTable;
 
 import java.util.Collection;
 import java.util.HashMap;
@@ -63,8 +64,32 @@ public class AppendToTableExecutable
 		
 		super(exec, algoInst, new ComputationProgressWithSteps());
 		
+		createOutputTable();
+		
+		/* WTF ? To remove
+		if (outputTable == null) { 
+			outputTable = new ColumnarGenlabTable();
+		}
+		*/
+		
+		// mapping between exec if and row id: start empty
+		execId2rowId = new HashMap<IAlgoExecution, Integer>();
+		
+	}
+
+	
+
+	/**
+	 * Creates an empty table with all the input connections as columns
+	 */
+	protected void createOutputTable() {
+		
 		messages.debugTech("init table", getClass());
-		outputTable = new GenlabTable();
+		final Integer maxRowsInMemory = (Integer)algoInst.getValueForParameter(AppendToTableAlgo.PARAM_MAX_ROWS_IN_MEMORY);
+		if (maxRowsInMemory != null && maxRowsInMemory > 0)
+			outputTable = new SpillableGenlabTable(maxRowsInMemory);
+		else
+			outputTable = new ColumnarGenlabTable();
 		
 		// mapping between inputs and column ids: filled right now
 		{
@@ -79,19 +104,17 @@ public class AppendToTableExecutable
 				
 			}
 		}
-		
-		/* WTF ? To remove
-		if (outputTable == null) { 
-			outputTable = new GenlabTable();
-		}
-		*/
-		
-		// mapping between exec if and row id: start empty
-		execId2rowId = new HashMap<IAlgoExecution, Integer>();
-		
 	}
-
 	
+	/**
+	 * Removes the temporary file of the table, if any. The table (and the continuous 
+	 * outputs sent, which share its file) should not be read anymore.
+	 */
+	protected void disposeOutputTable() {
+		
+		if (outputTable instanceof SpillableGenlabTable)
+			((SpillableGenlabTable)outputTable).dispose();
+	}
 
 	@Override
 	public long getTimeout() {
@@ -148,11 +171,23 @@ public class AppendToTableExecutable
 	public void reset() {
 		super.reset();
 		
-		// outputTable.clear // TODO clear table when reset !
+		// start again with an empty table
+		disposeOutputTable();
+		createOutputTable();
+		lastContinuousTableLength = 0;
+		lastContinuousTimestamp = 0;
 		execId2rowId.clear();
 		exec2finishStatus.clear();
 	}
 
+	@Override
+	public void clean() {
+		
+		disposeOutputTable();
+		
+		super.clean();
+	}
+
 
 
 	@Override
@@ -256,7 +291,7 @@ public class AppendToTableExecutable
 	protected void sendContinuous() {
 		
 		
-		// add table to output
+		// add table to output (a spillable table shares its spilled rows with the copy)
 		IGenlabTable sent = this.outputTable.cloneOnlyFullLines();
 		
 		if (outputTable.getRowsCount() - lastContinuousTableLength < CONTINOUS_MIN_ADDED_ROWS)
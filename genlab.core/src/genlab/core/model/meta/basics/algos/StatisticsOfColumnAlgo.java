@@ -1,7 +1,6 @@
 package genlab.core.model.meta.basics.algos;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 
 import genlab.core.exec.IExecution;
 import genlab.core.model.exec.AbstractAlgoExecutionOneshot;
@@ -182,34 +181,26 @@ public class StatisticsOfColumnAlgo extends BasicAlgo {
 				// else
 				try {
 					// compute average, min, q1, median, q3 and max
+					// (values read once, in the order of rows, so big tables are streamed)
 					double average = .0;
 					double totalValue = .0;
 					int size = table.getRowsCount();
-					ArrayList<Double> values = new ArrayList<>(size);
+					final int columnIdx = table.getIndexForColumnId(columnId);
+					final double[] values = new double[size];
 					for( int i=0 ; i<size ; i++ ) {
-						final double currentValue = ((Number)table.getValue(i, columnId)).doubleValue();
-						values.add(currentValue);
+						final double currentValue = ((Number)table.getValue(i, columnIdx)).doubleValue();
+						values[i] = currentValue;
 						totalValue += currentValue;
 					}
 					average = totalValue/size;
-					res.setResult(OUTPUT_AVERAGE, average);
-					Collections.sort(values);
-					res.setResult(OUTPUT_MIN, values.get(0));
-					res.setResult(OUTPUT_Q1, values.get((size+1)/4));
-					res.setResult(OUTPUT_MEDIAN, values.get((size+1)/2));
-					res.setResult(OUTPUT_Q3, values.get(3*(size+1)/4));
-					res.setResult(OUTPUT_MAX, values.get(size-1));
 					
 					double variance = .0;
 					// then compute variance
 					if( isUsed(OUTPUT_STD) ) {
 						totalValue = .0;
 						for( int i=0 ; i<size ; i++ ) {
-							final double currentValue = ((Number)table.getValue(i, columnId)).doubleValue();
-							totalValue += StrictMath.pow(
-								average - currentValue,
-								2.0
-							);
+							final double diff = average - values[i];
+							totalValue += diff*diff;
 						}
 						// Bessel's correction
 						if (useSampleVariance) {
@@ -221,6 +212,14 @@ public class StatisticsOfColumnAlgo extends BasicAlgo {
 						
 						res.setResult(OUTPUT_STD, StrictMath.sqrt(variance));
 					}
+					
+					res.setResult(OUTPUT_AVERAGE, average);
+					Arrays.sort(values);
+					res.setResult(OUTPUT_MIN, values[0]);
+					res.setResult(OUTPUT_Q1, values[(size+1)/4]);
+					res.setResult(OUTPUT_MEDIAN, values[(size+1)/2]);
+					res.setResult(OUTPUT_Q3, values[3*(size+1)/4]);
+					res.setResult(OUTPUT_MAX, values[size-1]);
 					progress.setComputationState(ComputationState.FINISHED_OK);
 				} catch (ClassCastException e) {
 					messages.errorUser("the column "+columnId+" does not contain numerics", getClass());
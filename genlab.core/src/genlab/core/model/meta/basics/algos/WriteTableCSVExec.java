@@ -12,8 +12,10 @@ import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.meta.basics.flowtypes.IGenlabTable;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.PrintStream;
 
 public class WriteTableCSVExec 
@@ -28,7 +30,8 @@ public class WriteTableCSVExec
 	protected void writeTableToFile(File file, IGenlabTable table) {
 
 		try {
-			PrintStream ps = new PrintStream(file);
+			// buffered, as big tables are written value by value
+			PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(file), 64*1024));
 			
 			// add titles
 			ps.print("#");
@@ -38,7 +41,7 @@ public class WriteTableCSVExec
 			}
 			ps.println();
 			
-			// write every line
+			// write every line (spillable tables are read block by block)
 			Object[] row = null;
 			for (int i=0; i<table.getRowsCount(); i++) {
 
@@ -0,0 +1,392 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+import genlab.core.commons.WrongParametersException;
+import genlab.core.model.meta.IDumpableToText;
+import genlab.core.usermachineinteraction.GLLogger;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The parts of a table which do not depend on the storage of values: the columns ids
+ * (with a constant time access from index to id and back) and the metadata of the table
+ * and its columns.
+ *
+ * Subclasses store the values (see {@link GenlabTable} for rows of objects,
+ * {@link ColumnarGenlabTable} for typed columns, {@link SpillableGenlabTable} for tables
+ * bigger than memory). The rows can be iterated in their order.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public abstract class AbstractGenlabTable implements IGenlabTable, IDumpableToText, Externalizable, Iterable<Object[]> {
+
+	private static final long serialVersionUID = 1L;
+
+	protected List<String> columnsTitles = new ArrayList<String>();
+	protected Map<String,Integer> columnId2idx = new HashMap<String, Integer>(50);
+
+	protected Map<String,Object> tableMetadata = null;
+
+	protected Map<String,Map<String,Object>> columns2Metadata = new HashMap<String, Map<String,Object>>();
+
+	public AbstractGenlabTable() {
+	}
+
+	public void setTableMetaData(String key, Object value) {
+
+		if (tableMetadata == null) {
+			tableMetadata = new HashMap<String, Object>();
+		}
+
+		tableMetadata.put(key, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	public Map<String,Object> getTableMetaData() {
+		if (tableMetadata == null)
+			return Collections.EMPTY_MAP;
+		else
+			return Collections.unmodifiableMap(tableMetadata);
+	}
+
+	public Object getTableMetaData(String key) {
+		if (tableMetadata == null)
+			return null;
+		else
+			return tableMetadata.get(key);
+	}
+
+
+	public boolean containsTableMetaData(String key) {
+		if (tableMetadata == null)
+			return false;
+		else
+			return tableMetadata.containsKey(key);
+	}
+
+	public void setColumnMetaData(String column, String key, Object value) {
+
+		Map<String,Object> columnMetadata = columns2Metadata.get(column);
+
+		if (columnMetadata == null) {
+			if (!columnId2idx.containsKey(column))
+				throw new WrongParametersException("this column does not exists in the table: "+column);
+
+			columnMetadata = new HashMap<String, Object>();
+			columns2Metadata.put(column, columnMetadata);
+		}
+
+		columnMetadata.put(key, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	public Map<String,Object> getColumnMetaData(String column) {
+
+		Map<String,Object> columnMetadata = columns2Metadata.get(column);
+
+		if (columnMetadata == null)
+			return Collections.EMPTY_MAP;
+		else
+			return Collections.unmodifiableMap(columnMetadata);
+	}
+
+	public Object getColumnMetaData(String column, String key) {
+
+		Map<String,Object> columnMetadata = columns2Metadata.get(column);
+
+		if (columnMetadata == null)
+			return null;
+		else
+			return columnMetadata.get(key);
+
+	}
+
+	public boolean containsColumnMetaData(String column, String key) {
+
+		Map<String,Object> columnMetadata = columns2Metadata.get(column);
+
+		if (columnMetadata == null) {
+			if (!columnId2idx.containsKey(column))
+				throw new WrongParametersException("this column does not exists in the table: "+column);
+			return false;
+		} else {
+			return columnMetadata.containsKey(key);
+		}
+
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return getRowsCount() == 0;
+	}
+
+	@Override
+	public int getColumnsCount() {
+		return columnId2idx.size();
+	}
+
+	protected int createNewIdForColumn(String id) {
+		Integer idx = columnId2idx.size();
+		columnId2idx.put(id, idx);
+		columnsTitles.add(id);
+		return idx;
+	}
+
+	/**
+	 * Called after columns were declared, so the storage can make room for them.
+	 * @param columnsCount the new count of columns
+	 */
+	protected abstract void columnsDeclared(int columnsCount);
+
+	@Override
+	public int declareColumn(String id) {
+
+		if (columnId2idx.containsKey(id))
+			throw new WrongParametersException("this column already exists: "+id);
+
+		GLLogger.debugTech("declaring new column "+id, getClass());
+
+		// create the column id...
+		int intId = createNewIdForColumn(id);
+
+		// and resize all data
+		columnsDeclared(columnId2idx.size());
+
+		return intId;
+
+	}
+
+	@Override
+	public Collection<Integer> declareColumns(Collection<String> ids) {
+
+		Collection<Integer> intIds = new LinkedList<Integer>();
+
+		// check parameters
+		for (String id : ids) {
+			if (columnId2idx.containsKey(id))
+				throw new WrongParametersException("this column already exists: "+id);
+		}
+
+		// create ids
+		for (String id : ids) {
+			intIds.add(createNewIdForColumn(id));
+		}
+
+		// and resize all data
+		columnsDeclared(columnId2idx.size());
+
+		return intIds;
+	}
+
+	@Override
+	public boolean containsColumn(String id) {
+		return columnId2idx.containsKey(id);
+	}
+
+	@Override
+	public List<String> getColumnsId() {
+		return Collections.unmodifiableList(columnsTitles);
+	}
+
+	@Override
+	public String getColumnIdForIdx(int colIdx) {
+		return columnsTitles.get(colIdx);
+	}
+
+	@Override
+	public Integer getIndexForColumnId(String id) {
+		return columnId2idx.get(id);
+	}
+
+	/**
+	 * Returns the value as a double, or missingValue if there is no value or it is not a number.
+	 * @param rowId
+	 * @param columnIdx
+	 * @param missingValue
+	 * @return
+	 */
+	public double getDoubleValue(int rowId, int columnIdx, double missingValue) {
+		final Object value = getValue(rowId, columnIdx);
+		if (value instanceof Number)
+			return ((Number)value).doubleValue();
+		else
+			return missingValue;
+	}
+
+	/**
+	 * Returns the values of a column as doubles (see {@link #getDoubleValue(int, int, double)})
+	 * @param columnIdx
+	 * @param missingValue
+	 * @return
+	 */
+	public double[] getColumnAsDoubles(int columnIdx, double missingValue) {
+		final double[] res = new double[getRowsCount()];
+		for (int i=0; i<res.length; i++)
+			res[i] = getDoubleValue(i, columnIdx, missingValue);
+		return res;
+	}
+
+	/**
+	 * Iterates the rows in their order (see {@link #getRow(int)})
+	 */
+	@Override
+	public Iterator<Object[]> iterator() {
+
+		return new Iterator<Object[]>() {
+
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < getRowsCount();
+			}
+
+			@Override
+			public Object[] next() {
+				if (next >= getRowsCount())
+					throw new NoSuchElementException();
+				return getRow(next++);
+			}
+
+			@Override
+			public void remove() {
+				throw new UnsupportedOperationException("rows can not be removed from a table");
+			}
+		};
+	}
+
+	@Override
+	public Collection<String> getEmptyColumnsIds() {
+
+		Collection<String> emptyColumnsIds = new LinkedList<String>();
+
+		for (Map.Entry<String,Integer> id2idx : columnId2idx.entrySet()) {
+			if (isColumnEmpty(id2idx.getValue()))
+				emptyColumnsIds.add(id2idx.getKey());
+		}
+
+		return emptyColumnsIds;
+	}
+
+	@Override
+	public Collection<Integer> getEmptyColumnsIndexes() {
+
+		Collection<Integer> emptyColumnsIdxs = new LinkedList<Integer>();
+
+		for (Integer idx : columnId2idx.values()) {
+			if (isColumnEmpty(idx))
+				emptyColumnsIdxs.add(idx);
+		}
+
+		return emptyColumnsIdxs;
+	}
+
+	/**
+	 * Copies the metadata and the columns of this table into another (empty) one.
+	 * @param clone
+	 */
+	protected void copyStructureTo(AbstractGenlabTable clone) {
+
+		// copy metadata
+		for (Map.Entry<String,Object> metaEntry: getTableMetaData().entrySet()) {
+			clone.setTableMetaData(metaEntry.getKey(), metaEntry.getValue());
+		}
+		// copy columns
+		clone.declareColumns(getColumnsId());
+		// and their metadata
+		for (String colId: getColumnsId()) {
+			for (Map.Entry<String,Object> metaEntry: getColumnMetaData(colId).entrySet()) {
+				clone.setColumnMetaData(colId, metaEntry.getKey(), metaEntry.getValue());
+			}
+
+		}
+	}
+
+	/**
+	 * Writes the metadata and the columns ids (the header of the serialized form)
+	 * @param wire
+	 * @throws IOException
+	 */
+	protected void writeHeader(WireOutput wire) throws IOException {
+
+		wire.writeMap(tableMetadata);
+		wire.writeVarInt(columnsTitles.size());
+		for (String colId: columnsTitles) {
+			wire.writeInternedString(colId);
+			wire.writeMap(columns2Metadata.get(colId));
+		}
+	}
+
+	/**
+	 * Reads the header written by {@link #writeHeader(WireOutput)}; the storage is
+	 * not notified of the columns.
+	 * @param wire
+	 * @throws IOException
+	 */
+	protected void readHeader(WireInput wire) throws IOException {
+
+		tableMetadata = wire.readMap();
+		final int countColumns = wire.readVarInt();
+		for (int colIdx=0; colIdx<countColumns; colIdx++) {
+			final String colId = wire.readInternedString();
+			createNewIdForColumn(colId);
+			Map<String,Object> columnMetadata = wire.readMap();
+			if (columnMetadata != null)
+				columns2Metadata.put(colId, columnMetadata);
+		}
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuffer sb = new StringBuffer();
+		sb
+		 .append("a table with ")
+		 .append(columnId2idx.size())
+		 .append(" columns and ")
+		 .append(getRowsCount())
+		 .append(" rows")
+		 .append("\n");
+
+		return sb.toString();
+
+	}
+
+	@Override
+	public void dumpAsText(PrintStream ps) {
+
+		// add titles
+		ps.print("# columns: ");
+		for (String id : getColumnsId()) {
+			ps.print(id);
+			ps.print(";\t");
+		}
+		ps.println();
+
+		for (Object[] row: this) {
+
+			for (int j=0; j<row.length; j++) {
+				if (j>0)
+					ps.print(";\t");
+				ps.print(row[j]);
+			}
+			ps.println();
+
+		}
+
+	}
+
+}
@@ -0,0 +1,263 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+import genlab.core.commons.WrongParametersException;
+
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Table stored column by column, for tables with many rows (exploration results,
+ * reduced loops...): numbers and booleans are stored in primitive arrays, strings
+ * as codes into a dictionary of the column (see {@link TableColumn}), and rows
+ * without value are tracked in bitsets. Columns grow by half of their size when full.
+ *
+ * The values can be accessed by row, like in any table, or column by column
+ * without boxing (see {@link #getColumnAsDoubles(int, double)}).
+ * Contrary to {@link GenlabTable}, the rows returned by {@link #getRow(int)} are copies:
+ * modifying them does not change the table.
+ *
+ * When sent to distant servers, it is encoded column by column in a compact binary
+ * format (see {@link WireFormat}).
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ColumnarGenlabTable extends AbstractGenlabTable {
+
+	private static final long serialVersionUID = 1L;
+
+	private List<TableColumn> columns = new ArrayList<TableColumn>();
+
+	private int rowsCount = 0;
+	private int capacity;
+
+	public ColumnarGenlabTable(int expectedRows) {
+		capacity = Math.max(expectedRows, 16);
+	}
+
+	public ColumnarGenlabTable() {
+		this(16);
+	}
+
+	@Override
+	protected void columnsDeclared(int columnsCount) {
+		while (columns.size() < columnsCount)
+			columns.add(new TableColumn(capacity));
+	}
+
+	protected final TableColumn getColumn(int columnIdx) {
+		return columns.get(columnIdx);
+	}
+
+	protected final TableColumn getColumn(String columnId) {
+		final Integer colIdx = columnId2idx.get(columnId);
+		if (colIdx == null)
+			throw new ProgramException("column was not declared: "+columnId);
+		return columns.get(colIdx);
+	}
+
+	protected final void checkRow(int rowId) {
+		if (rowId < 0 || rowId >= rowsCount)
+			throw new ProgramException("row was not declared: "+rowId);
+	}
+
+	@Override
+	public int addRow() {
+
+		if (rowsCount == capacity) {
+			capacity = capacity + (capacity >> 1) + 1;
+			for (TableColumn column: columns)
+				column.ensureCapacity(capacity);
+		}
+
+		return rowsCount++;
+	}
+
+	@Override
+	public int addRow(Object[] values) {
+
+		// check the number of values is OK
+		if (values.length != columns.size())
+			throw new WrongParametersException("wrong count of columns: expected "+columns.size()+", but found "+values.length);
+
+		final int rowId = addRow();
+		for (int colIdx=0; colIdx<values.length; colIdx++)
+			columns.get(colIdx).set(rowId, values[colIdx]);
+
+		return rowId;
+	}
+
+	@Override
+	public int getRowsCount() {
+		return rowsCount;
+	}
+
+	@Override
+	public void setValue(int rowId, String columnId, Object value) {
+		checkRow(rowId);
+		getColumn(columnId).set(rowId, value);
+	}
+
+	@Override
+	public void setValue(int rowId, int columnIdx, Object value) {
+		checkRow(rowId);
+		columns.get(columnIdx).set(rowId, value);
+	}
+
+	/**
+	 * Sets a double value without boxing it
+	 * @param rowId
+	 * @param columnIdx
+	 * @param value
+	 */
+	public void setDoubleValue(int rowId, int columnIdx, double value) {
+		checkRow(rowId);
+		columns.get(columnIdx).setDouble(rowId, value);
+	}
+
+	@Override
+	public void setValues(int rowId, Object[] values) {
+
+		// check the number of values is OK
+		if (values.length != columns.size())
+			throw new WrongParametersException("wrong count of columns: expected "+columns.size()+", but found "+values.length);
+		checkRow(rowId);
+
+		for (int colIdx=0; colIdx<values.length; colIdx++)
+			columns.get(colIdx).set(rowId, values[colIdx]);
+	}
+
+	@Override
+	public void fillColumn(int colIndex, Object value) {
+		columns.get(colIndex).fill(rowsCount, value);
+	}
+
+	@Override
+	public Object getValue(int rowId, int columnIdx) {
+		checkRow(rowId);
+		return columns.get(columnIdx).get(rowId);
+	}
+
+	@Override
+	public Object getValue(int rowId, String columnId) {
+		checkRow(rowId);
+		return getColumn(columnId).get(rowId);
+	}
+
+	@Override
+	public double getDoubleValue(int rowId, int columnIdx, double missingValue) {
+		checkRow(rowId);
+		return columns.get(columnIdx).getDouble(rowId, missingValue);
+	}
+
+	@Override
+	public Object[] getValues(int rowId) {
+		checkRow(rowId);
+		final Object[] res = new Object[columns.size()];
+		for (int colIdx=0; colIdx<res.length; colIdx++)
+			res[colIdx] = columns.get(colIdx).get(rowId);
+		return res;
+	}
+
+	@Override
+	public Object[] getRow(int i) {
+		return getValues(i);
+	}
+
+	@Override
+	public double[] getColumnAsDoubles(int columnIdx, double missingValue) {
+		return columns.get(columnIdx).toDoubles(rowsCount, missingValue);
+	}
+
+	/**
+	 * Returns the values of a column (null when undefined)
+	 * @param columnIdx
+	 * @return
+	 */
+	public Object[] getColumnValues(int columnIdx) {
+		return columns.get(columnIdx).toArray(rowsCount);
+	}
+
+	/**
+	 * Returns the type of the values of this column, or null if it has no value yet
+	 * @param columnIdx
+	 * @return
+	 */
+	public Class<?> getColumnType(int columnIdx) {
+		return columns.get(columnIdx).getType();
+	}
+
+	@Override
+	public boolean isColumnEmpty(String columnId) {
+		return getColumn(columnId).hasMissingValues(rowsCount);
+	}
+
+	@Override
+	public boolean isColumnEmpty(int columnIdx) {
+		return columns.get(columnIdx).hasMissingValues(rowsCount);
+	}
+
+	@Override
+	public IGenlabTable clone() {
+		return cloneOnlyFullLines();
+	}
+
+	@Override
+	public IGenlabTable cloneOnlyFullLines() {
+
+		final BitSet fullRows = new BitSet(rowsCount);
+		fullRows.set(0, rowsCount);
+		for (TableColumn column: columns)
+			fullRows.and(column.getDefinedRows(rowsCount));
+		final int count = fullRows.cardinality();
+
+		ColumnarGenlabTable clone = new ColumnarGenlabTable(count);
+		copyStructureTo(clone);
+		for (int colIdx=0; colIdx<columns.size(); colIdx++)
+			clone.columns.set(colIdx, columns.get(colIdx).select(fullRows, count));
+		clone.rowsCount = count;
+		clone.capacity = Math.max(count, 1);
+
+		return clone;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+
+		WireOutput wire = new WireOutput(64 + rowsCount*columns.size()*4);
+
+		writeHeader(wire);
+
+		wire.writeVarInt(rowsCount);
+		for (TableColumn column: columns)
+			column.write(wire, rowsCount);
+
+		WireFormat.writeBlock(out, wire);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+
+		WireInput wire = WireFormat.readBlock(in);
+
+		readHeader(wire);
+
+		rowsCount = wire.readVarInt();
+		capacity = Math.max(rowsCount, 1);
+		columns = new ArrayList<TableColumn>(columnsTitles.size());
+		for (int colIdx=0; colIdx<columnsTitles.size(); colIdx++)
+			columns.add(TableColumn.read(wire, rowsCount));
+	}
+
+}
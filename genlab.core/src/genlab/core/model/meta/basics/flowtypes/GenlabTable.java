@@ -1,209 +1,48 @@
 package genlab.core.model.meta.basics.flowtypes;
 
 import genlab.core.commons.ProgramException;
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
 import genlab.core.commons.WrongParametersException;
-import genlab.core.model.meta.IDumpableToText;
-import genlab.core.usermachineinteraction.GLLogger;
 
-import java.io.PrintStream;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 
 /**
- * Optimized for a given number of columns .
+ * Optimized for a given number of columns; rows are stored as arrays of objects
+ * (see {@link ColumnarGenlabTable} for big tables of numbers).
+ * 
+ * When sent to distant servers, it is encoded column by column in a compact binary
+ * format (see {@link WireFormat}).
  * 
  * TODO synchronicity !!!???
  * 
  * @author Samuel Thiriot
  *
  */
-public class GenlabTable implements IGenlabTable, IDumpableToText {
+public class GenlabTable extends AbstractGenlabTable {
 
-	private ArrayList<Object[]> content = new ArrayList<Object[]>();
-	
-	private List<String> columnsTitles = new LinkedList<String>();
-	private Map<String,Integer> columnId2idx = new HashMap<String, Integer>(50);
+	private static final long serialVersionUID = 1L;
 
-	private Map<String,Object> tableMetadata = null;
-	
-	private Map<String,Map<String,Object>> columns2Metadata = new HashMap<String, Map<String,Object>>();
+	private ArrayList<Object[]> content = new ArrayList<Object[]>();
 	
 	public GenlabTable() {
 	}
 	
-	public void setTableMetaData(String key, Object value) {
-		
-		if (tableMetadata == null) {
-			tableMetadata = new HashMap<String, Object>();
-		}
-		
-		tableMetadata.put(key, value);
-	}
-	
-	public Map<String,Object> getTableMetaData() {
-		if (tableMetadata == null)
-			return Collections.EMPTY_MAP;
-		else
-			return Collections.unmodifiableMap(tableMetadata);
-	}
-	
-	public Object getTableMetaData(String key) {
-		if (tableMetadata == null)
-			return null;
-		else
-			return tableMetadata.get(key);
-	}
-	
-
-	public boolean containsTableMetaData(String key) {
-		if (tableMetadata == null)
-			return false;
-		else
-			return tableMetadata.containsKey(key);
-	}
-	
-	public void setColumnMetaData(String column, String key, Object value) {
-		
-		Map<String,Object> columnMetadata = columns2Metadata.get(column);
-		
-		if (columnMetadata == null) {
-			if (!columnId2idx.containsKey(column))
-				throw new WrongParametersException("this column does not exists in the table: "+column);
-			
-			columnMetadata = new HashMap<String, Object>();
-			columns2Metadata.put(column, columnMetadata);
-		}
-		
-		columnMetadata.put(key, value);
-	}
-	
-	public Map<String,Object> getColumnMetaData(String column) {
-		
-		Map<String,Object> columnMetadata = columns2Metadata.get(column);
-		
-		if (columnMetadata == null)
-			return Collections.EMPTY_MAP;
-		else
-			return Collections.unmodifiableMap(columnMetadata);
-	}
-	
-	public Object getColumnMetaData(String column, String key) {
-		
-		Map<String,Object> columnMetadata = columns2Metadata.get(column);
-		
-		if (columnMetadata == null)
-			return null;
-		else
-			return tableMetadata.get(key);
-		
-	}
-	
-	public boolean containsColumnMetaData(String column, String key) {
-		
-		Map<String,Object> columnMetadata = columns2Metadata.get(column);
-		
-		if (columnMetadata == null) {
-			if (!columnId2idx.containsKey(column))
-				throw new WrongParametersException("this column does not exists in the table: "+column);
-			return false;
-		} else {
-			return columnMetadata.containsKey(key);
-		}
-		
-	}
-	
 	@Override
 	public boolean isEmpty() {
 		return content.isEmpty();
 	}
 
 	@Override
-	public int getColumnsCount() {
-		return columnId2idx.size();
-	}
-	
-	protected int createNewIdForColumn(String id) {
-		Integer idx = columnId2idx.size();
-		columnId2idx.put(id, idx);
-		columnsTitles.add(id);
-		return idx;
-	}
-
-	@Override
-	public int declareColumn(String id) {
-		
-		if (columnId2idx.containsKey(id))
-			throw new WrongParametersException("this column already exists: "+id);
-		
-		GLLogger.debugTech("declaring new column "+id, getClass());
-		
-		// create the column id...
-		int intId = createNewIdForColumn(id);
-		
-		// and resize all data
-		int newSize = columnId2idx.size();
+	protected void columnsDeclared(int columnsCount) {
 		for (int i = 0; i<content.size(); i++) {
-			content.set(i, Arrays.copyOf(content.get(i), newSize));
-		}
-		
-		return intId;
-		
-	}
-	
-	@Override
-	public Collection<Integer> declareColumns(Collection<String> ids) {
-		
-		Collection<Integer> intIds = new LinkedList<Integer>();
-		
-		// check parameters
-		for (String id : ids) {
-			if (columnId2idx.containsKey(id))
-				throw new WrongParametersException("this column already exists: "+id);
-		}
-		
-		// create ids 
-		for (String id : ids) {
-			intIds.add(createNewIdForColumn(id));
-		}
-		
-		// and resize all data
-		int newSize = columnId2idx.size();
-		for (int i = 0; i<content.size(); i++) {
-			content.set(i, Arrays.copyOf(content.get(i), newSize));
-		}
-
-		return intIds;
-	}
-
-	@Override
-	public boolean containsColumn(String id) {
-		return columnId2idx.containsKey(id);
-	}
-
-	@Override
-	public List<String> getColumnsId() {
-		return Collections.unmodifiableList(columnsTitles);
-	}
-
-	@Override
-	public String getColumnIdForIdx(int colIdx) {
-		return columnsTitles.get(colIdx);
-	}
-	
-
-	@Override
-	public Integer getIndexForColumnId(String id) {
-		for (int i=0; i<columnsTitles.size(); i++) {
-			if (columnsTitles.get(i)==id)
-				return i;
+			content.set(i, Arrays.copyOf(content.get(i), columnsCount));
 		}
-		return null;
 	}
 	
 	@Override
@@ -266,22 +105,6 @@ public class GenlabTable implements IGenlabTable, IDumpableToText {
 	}
 
 
-	@Override
-	public String toString() {
-	
-		StringBuffer sb = new StringBuffer();
-		sb
-		 .append("a table with ")
-		 .append(columnId2idx.size())
-		 .append(" columns and ")
-		 .append(content.size())
-		 .append(" rows")
-		 .append("\n");
-		
-		return sb.toString();
-		
-	}
-
 	@Override
 	public Object[] getRow(int i) {
 		// TODO manage error
@@ -341,76 +164,11 @@ public class GenlabTable implements IGenlabTable, IDumpableToText {
 		return false;
 	}
 
-	@Override
-	public Collection<String> getEmptyColumnsIds() {
-
-		Collection<String> emptyColumnsIds = new LinkedList<String>();
-		
-		for (Map.Entry<String,Integer> id2idx : columnId2idx.entrySet()) {
-			if (isColumnEmpty(id2idx.getValue()))
-				emptyColumnsIds.add(id2idx.getKey());
-		}
-		
-		return emptyColumnsIds;
-	}
-
-	@Override
-	public Collection<Integer> getEmptyColumnsIndexes() {
-		
-		Collection<Integer> emptyColumnsIdxs = new LinkedList<Integer>();
-		
-		for (Integer idx : columnId2idx.values()) {
-			if (isColumnEmpty(idx))
-				emptyColumnsIdxs.add(idx);
-		}
-		
-		return emptyColumnsIdxs;
-	}
-
-	@Override
-	public void dumpAsText(PrintStream ps) {
-		
-		// add titles
-		ps.print("# columns: ");
-		for (String id : getColumnsId()) {
-			ps.print(id);
-			ps.print(";\t");
-		}
-		ps.println();
-		
-		Object[] row = null;
-		for (int i=0; i<getRowsCount(); i++) {
-
-			row = getRow(i);
-			
-			for (int j=0; j<row.length; j++) {
-				if (j>0)
-					ps.print(";\t");
-				ps.print(row[j]);	
-			}
-			ps.println();
-			
-		}
-		
-	}
-
 	@Override
 	public IGenlabTable clone() {
 		GenlabTable clone = new GenlabTable();
 
-		// copy metadata
-		for (Map.Entry<String,Object> metaEntry: getTableMetaData().entrySet()) {
-			clone.setTableMetaData(metaEntry.getKey(), metaEntry.getValue());
-		}
-		// copy columns
-		clone.declareColumns(getColumnsId());
-		// and their metadata
-		for (String colId: getColumnsId()) {
-			for (Map.Entry<String,Object> metaEntry: getColumnMetaData(colId).entrySet()) {
-				clone.setColumnMetaData(colId, metaEntry.getKey(), metaEntry.getValue());	
-			}
-			
-		}
+		copyStructureTo(clone);
 		// copy data
 		for (Object[] line: content) {
 			
@@ -426,19 +184,7 @@ public class GenlabTable implements IGenlabTable, IDumpableToText {
 	public IGenlabTable cloneOnlyFullLines() {
 		GenlabTable clone = new GenlabTable();
 
-		// copy metadata
-		for (Map.Entry<String,Object> metaEntry: getTableMetaData().entrySet()) {
-			clone.setTableMetaData(metaEntry.getKey(), metaEntry.getValue());
-		}
-		// copy columns
-		clone.declareColumns(getColumnsId());
-		// and their metadata
-		for (String colId: getColumnsId()) {
-			for (Map.Entry<String,Object> metaEntry: getColumnMetaData(colId).entrySet()) {
-				clone.setColumnMetaData(colId, metaEntry.getKey(), metaEntry.getValue());	
-			}
-			
-		}
+		copyStructureTo(clone);
 		// copy data
 		for (Object[] line: content) {
 			
@@ -450,4 +196,46 @@ public class GenlabTable implements IGenlabTable, IDumpableToText {
 		return clone;
 	}
 
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		
+		final int countColumns = columnsTitles.size();
+		final int countRows = content.size();
+		
+		WireOutput wire = new WireOutput(64 + countRows*countColumns*4);
+
+		writeHeader(wire);
+		
+		// column by column, so similar values are next to each other
+		wire.writeVarInt(countRows);
+		for (int colIdx=0; colIdx<countColumns; colIdx++) {
+			for (Object[] row: content) {
+				wire.writeValue(row[colIdx]);
+			}
+		}
+		
+		WireFormat.writeBlock(out, wire);
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+		
+		WireInput wire = WireFormat.readBlock(in);
+		
+		readHeader(wire);
+		final int countColumns = columnsTitles.size();
+		
+		final int countRows = wire.readVarInt();
+		content = new ArrayList<Object[]>(countRows);
+		for (int rowIdx=0; rowIdx<countRows; rowIdx++) {
+			content.add(new Object[countColumns]);
+		}
+		for (int colIdx=0; colIdx<countColumns; colIdx++) {
+			for (Object[] row: content) {
+				row[colIdx] = wire.readValue();
+			}
+		}
+	}
+
 }
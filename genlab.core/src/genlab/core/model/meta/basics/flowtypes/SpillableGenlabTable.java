@@ -0,0 +1,794 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import genlab.core.commons.FileUtils;
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+import genlab.core.commons.WrongParametersException;
+import genlab.core.usermachineinteraction.GLLogger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Table for very long explorations, which keeps only a bounded count of rows in memory.
+ * Rows are stored in blocks of columns (like {@link ColumnarGenlabTable}); when more than
+ * maxBlocksInMemory blocks are in memory, the oldest one is written (spilled) to a temporary
+ * file and only read back through memory mapping when its values are accessed.
+ *
+ * In the file, each column of a block is a distinct segment in the compact binary format of
+ * {@link TableColumn}, so reading a column (statistics, plots...) only maps the segments of
+ * this column. The last block read is kept decoded, so reading the rows in their order
+ * (export to CSV, iteration...) decodes each block once.
+ *
+ * Spilled rows can still be changed: their block is loaded back in memory (and spilled again
+ * later), which is slow; filling a column does not need to load the blocks.
+ *
+ * The rows returned by {@link #getRow(int)} are copies. The copies of the table ({@link #clone()},
+ * {@link #cloneOnlyFullLines()}) share its spill file, which they only read: they do not write
+ * again the spilled rows, but can not be read anymore once this table was disposed.
+ *
+ * Threading: several threads may read the table at the same time (the decoded columns are
+ * cached under a lock). The table should be changed (rows added, values set, columns declared)
+ * by one thread only, and not while other threads read it. The copies can be read by other 
+ * threads while this table is still being filled.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class SpillableGenlabTable extends AbstractGenlabTable {
+
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_BLOCK_ROWS = 64*1024;
+	public static final int DEFAULT_BLOCKS_IN_MEMORY = 2;
+
+	/**
+	 * Marks the columns of a spilled block which were not filled
+	 */
+	private static final Object NO_FILL = new Object();
+
+	/**
+	 * A temporary file where blocks are spilled. Only the table which created it writes into it,
+	 * at its end; the segments written never change, so the copies of the table read them as well.
+	 */
+	private static final class SpillFile {
+
+		final File file;
+		final RandomAccessFile randomAccessFile;
+		final FileChannel channel;
+		long length = 0;
+
+		SpillFile() throws IOException {
+			file = FileUtils.createTmpFile("genlab_table_", ".glblocks");
+			file.deleteOnExit();
+			randomAccessFile = new RandomAccessFile(file, "rw");
+			channel = randomAccessFile.getChannel();
+		}
+
+		void dispose() {
+			try {
+				channel.close();
+				randomAccessFile.close();
+			} catch (IOException e) {
+				GLLogger.warnTech("unable to close the file "+file, SpillableGenlabTable.class, e);
+			}
+			file.delete();
+		}
+
+		@Override
+		public String toString() {
+			return file.toString();
+		}
+	}
+
+	/**
+	 * Consecutive rows, stored either in memory (columns) or in the spill file (offsets).
+	 */
+	private static final class Block {
+
+		final int firstRow;
+		final int capacity;
+		int count = 0;
+
+		/**
+		 * the columns, or null if the block is spilled
+		 */
+		List<TableColumn> columns;
+
+		/**
+		 * the file the block was spilled to (maybe the one of another table)
+		 */
+		SpillFile spillFile = null;
+		/**
+		 * offset in the file of the segment of each spilled column, and end of the last one
+		 */
+		long[] offsets = null;
+		/**
+		 * count of rows without value of each spilled column
+		 */
+		int[] missing = null;
+		/**
+		 * values set for the whole column after spilling (or NO_FILL)
+		 */
+		Object[] fills = null;
+
+		Block(int firstRow, int capacity, List<TableColumn> columns) {
+			this.firstRow = firstRow;
+			this.capacity = capacity;
+			this.columns = columns;
+		}
+
+		boolean isSpilled() {
+			return columns == null;
+		}
+
+		int getSpilledColumnsCount() {
+			return offsets.length-1;
+		}
+
+		Object getFill(int columnIdx) {
+			if (fills == null || columnIdx >= fills.length)
+				return NO_FILL;
+			return fills[columnIdx];
+		}
+
+		/**
+		 * Returns true if this spilled block has a value for each of these columns in every row
+		 */
+		boolean isFull(int columnsCount) {
+			for (int colIdx=0; colIdx<columnsCount; colIdx++) {
+				final Object fill = getFill(colIdx);
+				if (fill != NO_FILL) {
+					if (fill == null)
+						return false;
+				} else if (colIdx >= getSpilledColumnsCount() || missing[colIdx] > 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	private int blockRows;
+	private int maxBlocksInMemory;
+
+	private final ArrayList<Block> blocks = new ArrayList<Block>();
+	/**
+	 * blocks in memory, the oldest first
+	 */
+	private final LinkedList<Block> blocksInMemory = new LinkedList<Block>();
+
+	private int rowsCount = 0;
+
+	/**
+	 * last block found for a row
+	 */
+	private Block lastBlock = null;
+
+	/**
+	 * the spilled block last decoded, and its columns decoded so far (protected by lockerDecoded)
+	 */
+	private final Object lockerDecoded = new Object();
+	private Block decodedBlock = null;
+	private TableColumn[] decodedColumns = null;
+
+	/**
+	 * the file this table spills its blocks to, created when the first block is spilled
+	 */
+	private SpillFile spillFile = null;
+
+	/*
+	 * metrics
+	 */
+	private int countSpilled = 0;
+	private int countLoaded = 0;
+
+	/**
+	 * @param blockRows count of rows per block
+	 * @param maxBlocksInMemory count of blocks kept in memory (at least 1)
+	 */
+	public SpillableGenlabTable(int blockRows, int maxBlocksInMemory) {
+
+		if (blockRows < 1)
+			throw new WrongParametersException("blocks should contain at least one row");
+		if (maxBlocksInMemory < 1)
+			throw new WrongParametersException("at least one block should be kept in memory");
+
+		this.blockRows = blockRows;
+		this.maxBlocksInMemory = maxBlocksInMemory;
+	}
+
+	/**
+	 * Creates a table keeping approximately this count of rows in memory
+	 * @param maxRowsInMemory
+	 */
+	public SpillableGenlabTable(int maxRowsInMemory) {
+		this(Math.max(maxRowsInMemory/DEFAULT_BLOCKS_IN_MEMORY, 16), DEFAULT_BLOCKS_IN_MEMORY);
+	}
+
+	public SpillableGenlabTable() {
+		this(DEFAULT_BLOCK_ROWS, DEFAULT_BLOCKS_IN_MEMORY);
+	}
+
+	public int getBlockRows() {
+		return blockRows;
+	}
+
+	public int getMaxBlocksInMemory() {
+		return maxBlocksInMemory;
+	}
+
+	/**
+	 * Returns the count of rows currently stored in the spill file
+	 * @return
+	 */
+	public int getSpilledRowsCount() {
+		int res = 0;
+		for (Block block: blocks) {
+			if (block.isSpilled())
+				res += block.count;
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the count of times a block was written to the spill file
+	 * @return
+	 */
+	public int getCountSpilled() {
+		return countSpilled;
+	}
+
+	/**
+	 * Returns the count of times a spilled block was loaded back in memory to be changed
+	 * @return
+	 */
+	public int getCountLoaded() {
+		return countLoaded;
+	}
+
+	/**
+	 * Returns the size of the spill file (which includes the blocks spilled several times)
+	 * @return
+	 */
+	public long getSpillFileLength() {
+		return spillFile == null ? 0 : spillFile.length;
+	}
+
+	private List<TableColumn> createColumns(int capacity) {
+		final List<TableColumn> res = new ArrayList<TableColumn>(columnsTitles.size());
+		for (int i=0; i<columnsTitles.size(); i++)
+			res.add(new TableColumn(capacity));
+		return res;
+	}
+
+	@Override
+	protected void columnsDeclared(int columnsCount) {
+		// spilled blocks have no value for the columns they do not contain
+		for (Block block: blocksInMemory) {
+			while (block.columns.size() < columnsCount)
+				block.columns.add(new TableColumn(Math.max(block.count, 16)));
+		}
+	}
+
+	protected final int getColumnIdx(String columnId) {
+		final Integer colIdx = columnId2idx.get(columnId);
+		if (colIdx == null)
+			throw new ProgramException("column was not declared: "+columnId);
+		return colIdx;
+	}
+
+	/**
+	 * Returns the block containing this row
+	 * @param rowId
+	 * @return
+	 */
+	private Block getBlock(int rowId) {
+
+		if (rowId < 0 || rowId >= rowsCount)
+			throw new ProgramException("row was not declared: "+rowId);
+
+		final Block last = lastBlock;
+		if (last != null && rowId >= last.firstRow && rowId < last.firstRow+last.count)
+			return last;
+
+		// blocks may have different sizes (see appendBlock)
+		int low = 0;
+		int high = blocks.size()-1;
+		while (low < high) {
+			final int mid = (low + high + 1) >>> 1;
+			if (blocks.get(mid).firstRow <= rowId)
+				low = mid;
+			else
+				high = mid-1;
+		}
+		lastBlock = blocks.get(low);
+		return lastBlock;
+	}
+
+	/**
+	 * Returns the block of this row, loaded in memory to be changed
+	 * @param rowId
+	 * @return
+	 */
+	private Block getBlockForChange(int rowId) {
+		final Block block = getBlock(rowId);
+		if (block.isSpilled())
+			load(block);
+		return block;
+	}
+
+	@Override
+	public int addRow() {
+
+		Block tail = blocks.isEmpty() ? null : blocks.get(blocks.size()-1);
+		if (tail == null || tail.isSpilled() || tail.count == tail.capacity) {
+			tail = new Block(rowsCount, blockRows, createColumns(Math.min(16, blockRows)));
+			blocks.add(tail);
+			blocksInMemory.add(tail);
+			enforceMemoryBound(tail);
+		}
+
+		tail.count++;
+		for (TableColumn column: tail.columns)
+			column.ensureCapacity(tail.count);
+
+		return rowsCount++;
+	}
+
+	@Override
+	public int addRow(Object[] values) {
+
+		// check the number of values is OK
+		if (values.length != columnsTitles.size())
+			throw new WrongParametersException("wrong count of columns: expected "+columnsTitles.size()+", but found "+values.length);
+
+		final int rowId = addRow();
+		final Block tail = blocks.get(blocks.size()-1);
+		for (int colIdx=0; colIdx<values.length; colIdx++)
+			tail.columns.get(colIdx).set(rowId-tail.firstRow, values[colIdx]);
+
+		return rowId;
+	}
+
+	/**
+	 * Appends rows already stored in columns, as a block which will not grow.
+	 * @param columns
+	 * @param count
+	 */
+	private void appendBlock(List<TableColumn> columns, int count) {
+
+		if (count == 0)
+			return;
+
+		final Block block = new Block(rowsCount, count, columns);
+		block.count = count;
+		blocks.add(block);
+		blocksInMemory.add(block);
+		rowsCount += count;
+		enforceMemoryBound(block);
+	}
+
+	/**
+	 * Appends the rows of a block spilled by another table, reading the same segments of its file
+	 * @param spilled
+	 */
+	private void appendSpilledBlock(Block spilled) {
+
+		final Block block = new Block(rowsCount, spilled.count, null);
+		block.count = spilled.count;
+		block.spillFile = spilled.spillFile;
+		block.offsets = spilled.offsets;
+		block.missing = spilled.missing;
+		block.fills = spilled.fills == null ? null : spilled.fills.clone();
+		blocks.add(block);
+		rowsCount += block.count;
+	}
+
+	@Override
+	public int getRowsCount() {
+		return rowsCount;
+	}
+
+	@Override
+	public void setValue(int rowId, String columnId, Object value) {
+		setValue(rowId, getColumnIdx(columnId), value);
+	}
+
+	@Override
+	public void setValue(int rowId, int columnIdx, Object value) {
+		final Block block = getBlockForChange(rowId);
+		block.columns.get(columnIdx).set(rowId-block.firstRow, value);
+	}
+
+	/**
+	 * Sets a double value without boxing it
+	 * @param rowId
+	 * @param columnIdx
+	 * @param value
+	 */
+	public void setDoubleValue(int rowId, int columnIdx, double value) {
+		final Block block = getBlockForChange(rowId);
+		block.columns.get(columnIdx).setDouble(rowId-block.firstRow, value);
+	}
+
+	@Override
+	public void setValues(int rowId, Object[] values) {
+
+		// check the number of values is OK
+		if (values.length != columnsTitles.size())
+			throw new WrongParametersException("wrong count of columns: expected "+columnsTitles.size()+", but found "+values.length);
+
+		final Block block = getBlockForChange(rowId);
+		for (int colIdx=0; colIdx<values.length; colIdx++)
+			block.columns.get(colIdx).set(rowId-block.firstRow, values[colIdx]);
+	}
+
+	@Override
+	public void fillColumn(int colIndex, Object value) {
+
+		for (Block block: blocks) {
+			if (block.isSpilled()) {
+				// applied when the block is read
+				if (block.fills == null) {
+					block.fills = new Object[columnsTitles.size()];
+					Arrays.fill(block.fills, NO_FILL);
+				} else if (block.fills.length < columnsTitles.size()) {
+					final int previousLength = block.fills.length;
+					block.fills = Arrays.copyOf(block.fills, columnsTitles.size());
+					Arrays.fill(block.fills, previousLength, block.fills.length, NO_FILL);
+				}
+				block.fills[colIndex] = value;
+			} else {
+				block.columns.get(colIndex).fill(block.count, value);
+			}
+		}
+		synchronized (lockerDecoded) {
+			decodedBlock = null;
+			decodedColumns = null;
+		}
+	}
+
+	/**
+	 * Returns the column of this block, read from the spill file if the block was spilled.
+	 * The columns read should not be changed.
+	 * @param block
+	 * @param columnIdx
+	 * @return
+	 */
+	private TableColumn getBlockColumn(Block block, int columnIdx) {
+
+		if (!block.isSpilled())
+			return block.columns.get(columnIdx);
+
+		synchronized (lockerDecoded) {
+			if (decodedBlock != block) {
+				decodedBlock = block;
+				decodedColumns = new TableColumn[columnsTitles.size()];
+			} else if (decodedColumns.length < columnsTitles.size()) {
+				decodedColumns = Arrays.copyOf(decodedColumns, columnsTitles.size());
+			}
+			if (decodedColumns[columnIdx] == null)
+				decodedColumns[columnIdx] = readColumn(block, columnIdx);
+			return decodedColumns[columnIdx];
+		}
+	}
+
+	@Override
+	public Object getValue(int rowId, int columnIdx) {
+		final Block block = getBlock(rowId);
+		return getBlockColumn(block, columnIdx).get(rowId-block.firstRow);
+	}
+
+	@Override
+	public Object getValue(int rowId, String columnId) {
+		return getValue(rowId, getColumnIdx(columnId));
+	}
+
+	@Override
+	public double getDoubleValue(int rowId, int columnIdx, double missingValue) {
+		final Block block = getBlock(rowId);
+		return getBlockColumn(block, columnIdx).getDouble(rowId-block.firstRow, missingValue);
+	}
+
+	@Override
+	public Object[] getValues(int rowId) {
+		final Block block = getBlock(rowId);
+		final Object[] res = new Object[columnsTitles.size()];
+		for (int colIdx=0; colIdx<res.length; colIdx++)
+			res[colIdx] = getBlockColumn(block, colIdx).get(rowId-block.firstRow);
+		return res;
+	}
+
+	@Override
+	public Object[] getRow(int i) {
+		return getValues(i);
+	}
+
+	@Override
+	public double[] getColumnAsDoubles(int columnIdx, double missingValue) {
+		final double[] res = new double[rowsCount];
+		for (Block block: blocks) {
+			final double[] values = getBlockColumn(block, columnIdx).toDoubles(block.count, missingValue);
+			System.arraycopy(values, 0, res, block.firstRow, block.count);
+		}
+		return res;
+	}
+
+	@Override
+	public boolean isColumnEmpty(String columnId) {
+		return isColumnEmpty(getColumnIdx(columnId));
+	}
+
+	@Override
+	public boolean isColumnEmpty(int columnIdx) {
+
+		for (Block block: blocks) {
+			if (!block.isSpilled()) {
+				if (block.columns.get(columnIdx).hasMissingValues(block.count))
+					return true;
+				continue;
+			}
+			final Object fill = block.getFill(columnIdx);
+			if (fill != NO_FILL) {
+				if (fill == null)
+					return true;
+			} else if (columnIdx >= block.getSpilledColumnsCount() || block.missing[columnIdx] > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Spills the oldest blocks in memory (but the tail and this one) until the bound is respected
+	 * @param kept
+	 */
+	private void enforceMemoryBound(Block kept) {
+
+		final Block tail = blocks.get(blocks.size()-1);
+		while (blocksInMemory.size() > maxBlocksInMemory) {
+			Block spilled = null;
+			for (Block block: blocksInMemory) {
+				if (block != tail && block != kept) {
+					spilled = block;
+					break;
+				}
+			}
+			if (spilled == null)
+				return;
+			spill(spilled);
+		}
+	}
+
+	private void openFile() throws IOException {
+
+		spillFile = new SpillFile();
+
+		GLLogger.debugTech("spilling the rows of a table to "+spillFile, getClass());
+	}
+
+	/**
+	 * Writes the columns of this block at the end of the spill file, and removes them from memory.
+	 * @param block
+	 */
+	private void spill(Block block) {
+
+		try {
+			if (spillFile == null)
+				openFile();
+
+			final int columnsCount = block.columns.size();
+			final long[] offsets = new long[columnsCount+1];
+			final int[] missing = new int[columnsCount];
+			for (int colIdx=0; colIdx<columnsCount; colIdx++) {
+				final TableColumn column = block.columns.get(colIdx);
+				final WireOutput wire = new WireOutput(block.count*4+16);
+				column.write(wire, block.count);
+				final byte[] bytes = wire.toByteArray();
+
+				offsets[colIdx] = spillFile.length;
+				final ByteBuffer buffer = ByteBuffer.wrap(bytes);
+				long position = spillFile.length;
+				while (buffer.hasRemaining())
+					position += spillFile.channel.write(buffer, position);
+				spillFile.length = position;
+
+				missing[colIdx] = block.count - column.getDefinedRows(block.count).cardinality();
+			}
+			offsets[columnsCount] = spillFile.length;
+
+			block.spillFile = spillFile;
+			block.offsets = offsets;
+			block.missing = missing;
+			block.fills = null;
+			block.columns = null;
+			blocksInMemory.remove(block);
+			countSpilled++;
+
+		} catch (IOException e) {
+			throw new ProgramException("unable to write the rows of the table into the file "+spillFile+": "+e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Maps the segment of this column from the spill file and decodes it
+	 * @param block
+	 * @param columnIdx
+	 * @return
+	 */
+	private TableColumn readColumn(Block block, int columnIdx) {
+
+		final Object fill = block.getFill(columnIdx);
+
+		final TableColumn column;
+		if (columnIdx >= block.getSpilledColumnsCount()) {
+			// declared after the spill
+			column = new TableColumn(block.count);
+		} else {
+			try {
+				column = TableColumn.read(new WireInput(readSegment(block, columnIdx)), block.count);
+			} catch (IOException e) {
+				throw new ProgramException("unable to read the rows of the table from the file "+block.spillFile+": "+e.getMessage(), e);
+			}
+		}
+		if (fill != NO_FILL)
+			column.fill(block.count, fill);
+		return column;
+	}
+
+	private byte[] readSegment(Block block, int columnIdx) throws IOException {
+		if (!block.spillFile.channel.isOpen())
+			throw new ProgramException("the rows of this table were stored in the file "+block.spillFile+", which was disposed");
+		final long offset = block.offsets[columnIdx];
+		final byte[] bytes = new byte[(int)(block.offsets[columnIdx+1]-offset)];
+		block.spillFile.channel.map(FileChannel.MapMode.READ_ONLY, offset, bytes.length).get(bytes);
+		return bytes;
+	}
+
+	/**
+	 * Loads a spilled block back into memory, so it can be changed.
+	 * @param block
+	 */
+	private void load(Block block) {
+
+		final List<TableColumn> columns = new ArrayList<TableColumn>(columnsTitles.size());
+		for (int colIdx=0; colIdx<columnsTitles.size(); colIdx++)
+			columns.add(readColumn(block, colIdx));
+
+		synchronized (lockerDecoded) {
+			if (decodedBlock == block) {
+				decodedBlock = null;
+				decodedColumns = null;
+			}
+		}
+		block.columns = columns;
+		block.spillFile = null;
+		block.offsets = null;
+		block.missing = null;
+		block.fills = null;
+		blocksInMemory.add(block);
+		countLoaded++;
+
+		enforceMemoryBound(block);
+	}
+
+	/**
+	 * Removes the spill file; the table, and its copies which share the rows it spilled, 
+	 * should not be used anymore.
+	 */
+	public void dispose() {
+
+		if (spillFile == null)
+			return;
+		spillFile.dispose();
+		spillFile = null;
+	}
+
+	/**
+	 * Copies the rows into another table of the same kind, block by block. The spilled blocks
+	 * which are kept whole are not written again: the copy reads them from the file of this table.
+	 * @param onlyFullLines
+	 * @return
+	 */
+	protected SpillableGenlabTable copy(boolean onlyFullLines) {
+
+		SpillableGenlabTable clone = new SpillableGenlabTable(blockRows, maxBlocksInMemory);
+		copyStructureTo(clone);
+
+		final int columnsCount = columnsTitles.size();
+		for (Block block: new ArrayList<Block>(blocks)) {
+
+			if (block.isSpilled() && (!onlyFullLines || block.isFull(columnsCount))) {
+				clone.appendSpilledBlock(block);
+				continue;
+			}
+
+			final BitSet rows = new BitSet(block.count);
+			rows.set(0, block.count);
+			if (onlyFullLines) {
+				for (int colIdx=0; colIdx<columnsCount; colIdx++)
+					rows.and(getBlockColumn(block, colIdx).getDefinedRows(block.count));
+			}
+			final int count = rows.cardinality();
+
+			final List<TableColumn> columns = new ArrayList<TableColumn>(columnsCount);
+			for (int colIdx=0; colIdx<columnsCount; colIdx++)
+				columns.add(getBlockColumn(block, colIdx).select(rows, count));
+			clone.appendBlock(columns, count);
+		}
+
+		return clone;
+	}
+
+	@Override
+	public IGenlabTable clone() {
+		return copy(false);
+	}
+
+	@Override
+	public IGenlabTable cloneOnlyFullLines() {
+		return copy(true);
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+
+		WireOutput wire = new WireOutput();
+		writeHeader(wire);
+		wire.writeVarInt(blockRows);
+		wire.writeVarInt(maxBlocksInMemory);
+		wire.writeVarInt(blocks.size());
+		WireFormat.writeBlock(out, wire);
+
+		// then one block of the wire format per block of rows
+		for (Block block: blocks) {
+			wire = new WireOutput(16 + block.count*columnsTitles.size()*4);
+			wire.writeVarInt(block.count);
+			for (int colIdx=0; colIdx<columnsTitles.size(); colIdx++) {
+				if (block.isSpilled() && block.getFill(colIdx) == NO_FILL && colIdx < block.getSpilledColumnsCount()) {
+					// already encoded
+					final byte[] bytes = readSegment(block, colIdx);
+					wire.writeBytes(bytes, 0, bytes.length);
+				} else {
+					getBlockColumn(block, colIdx).write(wire, block.count);
+				}
+			}
+			WireFormat.writeBlock(out, wire);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+
+		WireInput wire = WireFormat.readBlock(in);
+		readHeader(wire);
+		// the parameters of the table written are kept
+		blockRows = wire.readVarInt();
+		maxBlocksInMemory = wire.readVarInt();
+		final int blocksCount = wire.readVarInt();
+
+		for (int i=0; i<blocksCount; i++) {
+			wire = WireFormat.readBlock(in);
+			final int count = wire.readVarInt();
+			final List<TableColumn> columns = new ArrayList<TableColumn>(columnsTitles.size());
+			for (int colIdx=0; colIdx<columnsTitles.size(); colIdx++)
+				columns.add(TableColumn.read(wire, count));
+			appendBlock(columns, count);
+		}
+	}
+
+}
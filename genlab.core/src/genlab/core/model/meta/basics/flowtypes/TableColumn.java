@@ -0,0 +1,497 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The values of one column of a {@link ColumnarGenlabTable}. The storage is chosen from the
+ * first value set: doubles, integers and longs in primitive arrays, booleans in a bitset,
+ * strings as int codes into a dictionary. If a value of another type is set later,
+ * the column falls back to an array of objects, so values are always returned with
+ * the type they were set with.
+ *
+ * The values set are tracked in a bitset (unused for objects, which are null otherwise).
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+final class TableColumn {
+
+	static final int KIND_EMPTY = 0;
+	static final int KIND_DOUBLE = 1;
+	static final int KIND_INTEGER = 2;
+	static final int KIND_LONG = 3;
+	static final int KIND_BOOLEAN = 4;
+	static final int KIND_STRING = 5;
+	static final int KIND_OBJECT = 6;
+
+	/**
+	 * Above this count of distinct strings, the dictionary costs more than it saves
+	 */
+	static final int MAX_DICTIONARY_SIZE = 1 << 16;
+
+	private int kind = KIND_EMPTY;
+	private int capacity;
+
+	private double[] doubles = null;
+	private int[] ints = null;
+	private long[] longs = null;
+	private BitSet booleans = null;
+	private Object[] objects = null;
+
+	private List<String> dictionary = null;
+	private Map<String,Integer> string2code = null;
+
+	private BitSet defined = new BitSet();
+
+	public TableColumn(int capacity) {
+		this.capacity = capacity;
+	}
+
+	private static final int kindOf(Object value) {
+		if (value instanceof Double)
+			return KIND_DOUBLE;
+		if (value instanceof Integer)
+			return KIND_INTEGER;
+		if (value instanceof Long)
+			return KIND_LONG;
+		if (value instanceof Boolean)
+			return KIND_BOOLEAN;
+		if (value instanceof String)
+			return KIND_STRING;
+		return KIND_OBJECT;
+	}
+
+	public int getKind() {
+		return kind;
+	}
+
+	/**
+	 * Returns the type of the values, or null if no value was set yet
+	 * @return
+	 */
+	public Class<?> getType() {
+		switch (kind) {
+		case KIND_EMPTY:
+			return null;
+		case KIND_DOUBLE:
+			return Double.class;
+		case KIND_INTEGER:
+			return Integer.class;
+		case KIND_LONG:
+			return Long.class;
+		case KIND_BOOLEAN:
+			return Boolean.class;
+		case KIND_STRING:
+			return String.class;
+		default:
+			return Object.class;
+		}
+	}
+
+	private void allocate(int newKind) {
+		kind = newKind;
+		switch (kind) {
+		case KIND_DOUBLE:
+			doubles = new double[capacity];
+			break;
+		case KIND_INTEGER:
+			ints = new int[capacity];
+			break;
+		case KIND_LONG:
+			longs = new long[capacity];
+			break;
+		case KIND_BOOLEAN:
+			booleans = new BitSet(capacity);
+			break;
+		case KIND_STRING:
+			ints = new int[capacity];
+			dictionary = new ArrayList<String>();
+			string2code = new HashMap<String, Integer>();
+			break;
+		default:
+			objects = new Object[capacity];
+		}
+	}
+
+	/**
+	 * Moves the values into an array of objects
+	 */
+	private void toObjects() {
+		final Object[] values = new Object[capacity];
+		for (int i=defined.nextSetBit(0); i>=0 && i<capacity; i=defined.nextSetBit(i+1))
+			values[i] = get(i);
+		doubles = null;
+		ints = null;
+		longs = null;
+		booleans = null;
+		dictionary = null;
+		string2code = null;
+		defined.clear();
+		objects = values;
+		kind = KIND_OBJECT;
+	}
+
+	/**
+	 * Ensures the column can store values for this count of rows
+	 * @param required
+	 */
+	public void ensureCapacity(int required) {
+
+		if (capacity >= required)
+			return;
+
+		capacity = Math.max(required, capacity + (capacity >> 1) + 1);
+		switch (kind) {
+		case KIND_DOUBLE:
+			doubles = Arrays.copyOf(doubles, capacity);
+			break;
+		case KIND_INTEGER:
+		case KIND_STRING:
+			ints = Arrays.copyOf(ints, capacity);
+			break;
+		case KIND_LONG:
+			longs = Arrays.copyOf(longs, capacity);
+			break;
+		case KIND_OBJECT:
+			objects = Arrays.copyOf(objects, capacity);
+			break;
+		default:
+			// bitsets grow by themselves; nothing allocated yet for empty columns
+		}
+	}
+
+	public boolean isDefined(int row) {
+		if (kind == KIND_OBJECT)
+			return objects[row] != null;
+		return defined.get(row);
+	}
+
+	public Object get(int row) {
+		if (kind == KIND_OBJECT)
+			return objects[row];
+		if (!defined.get(row))
+			return null;
+		switch (kind) {
+		case KIND_DOUBLE:
+			return doubles[row];
+		case KIND_INTEGER:
+			return ints[row];
+		case KIND_LONG:
+			return longs[row];
+		case KIND_BOOLEAN:
+			return booleans.get(row);
+		default:
+			return dictionary.get(ints[row]);
+		}
+	}
+
+	public double getDouble(int row, double missingValue) {
+		if (!isDefined(row))
+			return missingValue;
+		switch (kind) {
+		case KIND_DOUBLE:
+			return doubles[row];
+		case KIND_INTEGER:
+			return ints[row];
+		case KIND_LONG:
+			return longs[row];
+		case KIND_OBJECT:
+			return objects[row] instanceof Number ? ((Number)objects[row]).doubleValue() : missingValue;
+		default:
+			return missingValue;
+		}
+	}
+
+	/**
+	 * Sets a double without boxing it, when the column stores doubles
+	 * @param row
+	 * @param value
+	 */
+	public void setDouble(int row, double value) {
+		if (kind == KIND_EMPTY)
+			allocate(KIND_DOUBLE);
+		if (kind != KIND_DOUBLE) {
+			set(row, value);
+			return;
+		}
+		doubles[row] = value;
+		defined.set(row);
+	}
+
+	/**
+	 * Sets the value of this row (or removes it if null)
+	 * @param row
+	 * @param value
+	 */
+	public void set(int row, Object value) {
+
+		if (value == null) {
+			clear(row);
+			return;
+		}
+
+		final int valueKind = kindOf(value);
+		if (kind == KIND_EMPTY)
+			allocate(valueKind);
+		else if (kind != valueKind && kind != KIND_OBJECT)
+			toObjects();
+
+		switch (kind) {
+		case KIND_DOUBLE:
+			doubles[row] = (Double)value;
+			break;
+		case KIND_INTEGER:
+			ints[row] = (Integer)value;
+			break;
+		case KIND_LONG:
+			longs[row] = (Long)value;
+			break;
+		case KIND_BOOLEAN:
+			booleans.set(row, (Boolean)value);
+			break;
+		case KIND_STRING:
+			Integer code = string2code.get(value);
+			if (code == null) {
+				if (dictionary.size() >= MAX_DICTIONARY_SIZE) {
+					toObjects();
+					objects[row] = value;
+					return;
+				}
+				code = dictionary.size();
+				dictionary.add((String)value);
+				string2code.put((String)value, code);
+			}
+			ints[row] = code;
+			break;
+		default:
+			objects[row] = value;
+			return;
+		}
+		defined.set(row);
+	}
+
+	public void clear(int row) {
+		if (kind == KIND_OBJECT)
+			objects[row] = null;
+		else
+			defined.clear(row);
+	}
+
+	/**
+	 * Sets the same value for the first rows
+	 * @param count
+	 * @param value
+	 */
+	public void fill(int count, Object value) {
+		for (int i=0; i<count; i++)
+			set(i, value);
+	}
+
+	/**
+	 * Returns true if one of the first rows has no value
+	 * @param count
+	 * @return
+	 */
+	public boolean hasMissingValues(int count) {
+		if (kind == KIND_OBJECT) {
+			for (int i=0; i<count; i++)
+				if (objects[i] == null)
+					return true;
+			return false;
+		}
+		return defined.nextClearBit(0) < count;
+	}
+
+	/**
+	 * Returns the rows (among the first ones) having a value
+	 * @param count
+	 * @return
+	 */
+	public BitSet getDefinedRows(int count) {
+		if (kind != KIND_OBJECT)
+			return defined.get(0, count);
+		final BitSet res = new BitSet(count);
+		for (int i=0; i<count; i++)
+			if (objects[i] != null)
+				res.set(i);
+		return res;
+	}
+
+	public double[] toDoubles(int count, double missingValue) {
+		final double[] res = new double[count];
+		if (kind == KIND_DOUBLE) {
+			System.arraycopy(doubles, 0, res, 0, count);
+			for (int i=defined.nextClearBit(0); i<count; i=defined.nextClearBit(i+1))
+				res[i] = missingValue;
+			return res;
+		}
+		for (int i=0; i<count; i++)
+			res[i] = getDouble(i, missingValue);
+		return res;
+	}
+
+	public Object[] toArray(int count) {
+		if (kind == KIND_OBJECT)
+			return Arrays.copyOf(objects, count);
+		final Object[] res = new Object[count];
+		for (int i=defined.nextSetBit(0); i>=0 && i<count; i=defined.nextSetBit(i+1))
+			res[i] = get(i);
+		return res;
+	}
+
+	/**
+	 * Returns a column with the values of these rows, in their order
+	 * @param rows
+	 * @param count the count of selected rows
+	 * @return
+	 */
+	public TableColumn select(BitSet rows, int count) {
+		final TableColumn res = new TableColumn(Math.max(count, 1));
+		if (kind == KIND_EMPTY)
+			return res;
+		res.allocate(kind);
+		if (kind == KIND_STRING) {
+			// the codes stay valid
+			res.dictionary.addAll(dictionary);
+			res.string2code.putAll(string2code);
+		}
+		int j = 0;
+		for (int i=rows.nextSetBit(0); i>=0; i=rows.nextSetBit(i+1), j++) {
+			if (!isDefined(i))
+				continue;
+			switch (kind) {
+			case KIND_DOUBLE:
+				res.doubles[j] = doubles[i];
+				break;
+			case KIND_INTEGER:
+			case KIND_STRING:
+				res.ints[j] = ints[i];
+				break;
+			case KIND_LONG:
+				res.longs[j] = longs[i];
+				break;
+			case KIND_BOOLEAN:
+				res.booleans.set(j, booleans.get(i));
+				break;
+			default:
+				res.objects[j] = objects[i];
+				continue;
+			}
+			res.defined.set(j);
+		}
+		return res;
+	}
+
+	/**
+	 * Writes the values of the first rows
+	 * @param wire
+	 * @param count
+	 * @throws IOException
+	 */
+	public void write(WireOutput wire, int count) throws IOException {
+
+		wire.writeByte(kind);
+		if (kind == KIND_EMPTY)
+			return;
+		if (kind == KIND_OBJECT) {
+			for (int i=0; i<count; i++)
+				wire.writeValue(objects[i]);
+			return;
+		}
+
+		final long[] bits = defined.get(0, count).toLongArray();
+		wire.writeVarInt(bits.length);
+		for (long l: bits)
+			wire.writeLong(l);
+
+		if (kind == KIND_STRING) {
+			wire.writeVarInt(dictionary.size());
+			for (String s: dictionary)
+				wire.writeString(s);
+		}
+		for (int i=defined.nextSetBit(0); i>=0 && i<count; i=defined.nextSetBit(i+1)) {
+			switch (kind) {
+			case KIND_DOUBLE:
+				wire.writeDouble(doubles[i]);
+				break;
+			case KIND_INTEGER:
+				wire.writeSignedVarInt(ints[i]);
+				break;
+			case KIND_LONG:
+				wire.writeSignedVarLong(longs[i]);
+				break;
+			case KIND_BOOLEAN:
+				wire.writeBoolean(booleans.get(i));
+				break;
+			default:
+				wire.writeVarInt(ints[i]);
+			}
+		}
+	}
+
+	/**
+	 * Reads the values written by {@link #write(WireOutput, int)}
+	 * @param wire
+	 * @param count
+	 * @return
+	 * @throws IOException
+	 */
+	public static TableColumn read(WireInput wire, int count) throws IOException {
+
+		final TableColumn res = new TableColumn(Math.max(count, 1));
+		final int kind = wire.readByte();
+		if (kind == KIND_EMPTY)
+			return res;
+		res.allocate(kind);
+		if (kind == KIND_OBJECT) {
+			for (int i=0; i<count; i++)
+				res.objects[i] = wire.readValue();
+			return res;
+		}
+
+		final long[] bits = new long[wire.readVarInt()];
+		for (int i=0; i<bits.length; i++)
+			bits[i] = wire.readLong();
+		res.defined = BitSet.valueOf(bits);
+
+		if (kind == KIND_STRING) {
+			final int size = wire.readVarInt();
+			for (int i=0; i<size; i++) {
+				final String s = wire.readString();
+				res.string2code.put(s, res.dictionary.size());
+				res.dictionary.add(s);
+			}
+		}
+		for (int i=res.defined.nextSetBit(0); i>=0; i=res.defined.nextSetBit(i+1)) {
+			switch (kind) {
+			case KIND_DOUBLE:
+				res.doubles[i] = wire.readDouble();
+				break;
+			case KIND_INTEGER:
+				res.ints[i] = wire.readSignedVarInt();
+				break;
+			case KIND_LONG:
+				res.longs[i] = wire.readSignedVarLong();
+				break;
+			case KIND_BOOLEAN:
+				res.booleans.set(i, wire.readBoolean());
+				break;
+			default:
+				res.ints[i] = wire.readVarInt();
+			}
+		}
+		return res;
+	}
+
+}
@@ -2,6 +2,8 @@ package genlab.core.model.meta.basics.graphs;
 
 import genlab.core.commons.NotImplementedException;
 import genlab.core.commons.ProgramException;
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireOutput;
 import genlab.core.commons.WrongParametersException;
 
 import java.io.Externalizable;
@@ -30,6 +32,10 @@ import org.graphstream.stream.GraphReplay;
 /**
  * Abstract class for graphstream based operations on graphs.
  * 
+ * Once frozen, the clones of this graph are {@link CopyOnWriteGraph}s, which share its graphstream graph 
+ * instead of replaying it; the graphstream graph returned by {@link #_getInternalGraphstreamGraph()} 
+ * should then not be modified.
+ * 
  * TODO make it multithread compliant !
  * 
  * @author Samuel Thiriot
@@ -55,6 +61,8 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	
 	public boolean ignoreGraphAttributeErrors = false;
 	
+	protected boolean frozen = false;
+	
 	/**
 	 * Please always active strict checking for the graphstream graph.
 	 * @param gsGraph
@@ -71,6 +79,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	@Override
 	@SuppressWarnings("rawtypes")
 	public void declareVertexAttribute(String attributeId, Class type) {
+		checkNotFrozen();
 		if (vertexAttributes2type.containsKey(attributeId))
 			throw new WrongParametersException("a node attribute "+attributeId+" was already declared for this graph");
 		vertexAttributes2type.put(attributeId, type);
@@ -79,6 +88,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	@Override
 	@SuppressWarnings("rawtypes")
 	public void declareEdgeAttribute(String attributeId, Class type) {
+		checkNotFrozen();
 		if (edgeAttributes2type.containsKey(attributeId))
 			throw new WrongParametersException("an edge attribute "+attributeId+" was already declared for this graph");
 		edgeAttributes2type.put(attributeId, type);
@@ -118,6 +128,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	}
 	
 	public String addVertex() {
+		checkNotFrozen();
 		
 		int idx = gsGraph.getNodeCount();
 		String id = Integer.toString(idx);
@@ -132,6 +143,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void addVertex(String id) {
+		checkNotFrozen();
 		try {
 			gsGraph.addNode(id);
 		} catch (IdAlreadyInUseException e) {
@@ -140,11 +152,22 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	}
 
 	@Override
-	@SuppressWarnings("rawtypes")
 	public void setVertexAttribute(String vertexId, String attributeId,
 			Object value) {
 		
-
+		// ensure existence of the node
+		Node gsNode = gsGraph.getNode(vertexId); 
+		if (gsNode == null) {
+			throw new WrongParametersException("no vertex "+vertexId+" declared");
+		}
+		setVertexAttribute(gsNode, attributeId, value);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	protected void setVertexAttribute(Node gsNode, String attributeId,
+			Object value) {
+		checkNotFrozen();
+		
 		if (
 				attributeId.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL)
 				|| attributeId.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_IN)
@@ -152,11 +175,6 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 				)
 			throw new WrongParametersException("cannot modify the degree attribute '"+attributeId+"' of a node without adding or removing an edge");
 
-		// ensure existence of the node
-		Node gsNode = gsGraph.getNode(vertexId); 
-		if (gsNode == null) {
-			throw new WrongParametersException("no vertex "+vertexId+" declared");
-		}
 		// ensure compliance of parameters
 		Class attributeType = vertexAttributes2type.get(attributeId);
 		if (attributeType == null) {
@@ -179,6 +197,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void setVertexAttributes(String vertexId, Map<String, Object> values) {
+		checkNotFrozen();
 		
 
 		// ensure existence of the node
@@ -212,6 +231,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void setEdgeAttributes(String edgeId, Map<String, Object> values) {
+		checkNotFrozen();
 		
 		// ensure existence of the node
 		Edge gsEdge = gsGraph.getEdge(edgeId); 
@@ -279,6 +299,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void addEdge(String id, String vertexIdFrom, String vertexIdTo, boolean directed) {
+		checkNotFrozen();
 		
 		if (directed) {
 			
@@ -300,7 +321,6 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	}
 
 	@Override
-	@SuppressWarnings("rawtypes")
 	public void setEdgeAttribute(String vertexId, String attributeId,
 			Object value) {
 		
@@ -309,6 +329,14 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 		if (gsEdge == null) {
 			throw new WrongParametersException("no edge "+vertexId+" declared");
 		}
+		setEdgeAttribute(gsEdge, attributeId, value);
+	}
+	
+	@SuppressWarnings("rawtypes")
+	protected void setEdgeAttribute(Edge gsEdge, String attributeId,
+			Object value) {
+		checkNotFrozen();
+		
 		// ensure compliance of parameters
 		Class attributeType = edgeAttributes2type.get(attributeId);
 		if (attributeType == null) {
@@ -392,6 +420,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void setGraphAttribute(String attributeId, Object value) {
+		checkNotFrozen();
 		// ensure compliance of parameters
 		Class attributeType = graphAttribute2type.get(attributeId);
 		if (attributeType == null) {
@@ -416,6 +445,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public void declareGraphAttribute(String attributeId, Class type) {
+		checkNotFrozen();
 		if (graphAttribute2type.containsKey(attributeId))
 			throw new WrongParametersException("a graph attribute "+attributeId+" was already declared for this graph");
 		graphAttribute2type.put(attributeId, type);
@@ -472,14 +502,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 		if (n == null)
 			throw new WrongParametersException("unknown vertex "+vertexId);
 		
-		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL))
-			return n.getDegree();
-		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_IN))
-			return n.getInDegree();
-		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_OUT))
-			return n.getOutDegree();
-		
-		return n.getAttribute(attributeName);
+		return getVertexAttributeValue(n, attributeName);
 		
 	}
 	
@@ -559,6 +582,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	@Override
 	public boolean removeEdge(String id) {
+		checkNotFrozen();
 		try {
 			return (gsGraph.removeEdge(id) != null);
 		} catch (org.graphstream.graph.ElementNotFoundException e) {
@@ -569,8 +593,34 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 
 	protected abstract AbstractGraphstreamBasedGraph getGraphImplementationForClone(String cloneId);
 
+	@Override
+	public void freeze() {
+		frozen = true;
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	protected final void checkNotFrozen() {
+		if (frozen)
+			throw new ProgramException("the graph "+getGraphId()+" is frozen, as it was passed to other algorithms; please clone it before modifying it");
+	}
+
 	@Override
 	public IGenlabGraph clone(String cloneId) {
+		if (frozen)
+			return new CopyOnWriteGraph(this, cloneId);
+		return deepClone(cloneId);
+	}
+	
+	/**
+	 * Returns a clone where the graphstream graph is replayed into a new one
+	 * @param cloneId
+	 * @return
+	 */
+	protected AbstractGraphstreamBasedGraph deepClone(String cloneId) {
 	
 		final AbstractGraphstreamBasedGraph clone = getGraphImplementationForClone(cloneId);
 		
@@ -643,17 +693,20 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	
 	@Override
 	public boolean removeVertex(String id) {
+		checkNotFrozen();
 		return gsGraph.removeNode(id) != null;
 	}
 
 
 	@Override
 	public boolean removeVertex(int index) {
+		checkNotFrozen();
 		return gsGraph.removeNode(index) != null;
 	}
 
 	@Override
 	public boolean removeEdge(int index) {
+		checkNotFrozen();
 		return gsGraph.removeEdge(index) != null;
 	}
 
@@ -784,6 +837,7 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 	@Override
 	public void addAll(IGenlabGraph otherGraph, boolean copyGraphAttributes,
 			boolean copyNodeAttributes, boolean copyEdgesAttributes) {
+		checkNotFrozen();
 	
 		// copy graph attributes
 		if (copyGraphAttributes) {
@@ -868,27 +922,228 @@ public abstract class AbstractGraphstreamBasedGraph implements IGenlabGraph, Ext
 		return gsGraph.getEdge(index).getId();
 	}
 
+
+	// --- access by index ---
+
+	private static final int[] ensureBuffer(int[] buffer, int size) {
+		if (buffer == null || buffer.length < size)
+			return new int[Math.max(size, 16)];
+		return buffer;
+	}
+	
+	@Override
+	public int getVertexIndex(String vertexId) {
+		final Node n = gsGraph.getNode(vertexId);
+		return n == null ? -1 : n.getIndex();
+	}
+
+	@Override
+	public int getEdgeIndex(String edgeId) {
+		final Edge e = gsGraph.getEdge(edgeId);
+		return e == null ? -1 : e.getIndex();
+	}
+
+	@Override
+	public int getEdgeVertexFromIndex(int edgeIndex) {
+		return gsGraph.getEdge(edgeIndex).getNode0().getIndex();
+	}
+
+	@Override
+	public int getEdgeVertexToIndex(int edgeIndex) {
+		return gsGraph.getEdge(edgeIndex).getNode1().getIndex();
+	}
+
+	@Override
+	public int getEdgeOtherVertexIndex(int edgeIndex, int vertexIndex) {
+		final Edge e = gsGraph.getEdge(edgeIndex);
+		final int index0 = e.getNode0().getIndex();
+		return index0 == vertexIndex ? e.getNode1().getIndex() : index0;
+	}
+
+	@Override
+	public boolean isEdgeDirected(int edgeIndex) {
+		if (getDirectionality() == GraphDirectionality.DIRECTED)
+			return true;
+		else if (getDirectionality() == GraphDirectionality.UNDIRECTED)
+			return false;
+		else
+			return gsGraph.getEdge(edgeIndex).isDirected();
+	}
+
+	@Override
+	public int getDegree(int vertexIndex) {
+		return gsGraph.getNode(vertexIndex).getDegree();
+	}
+
+	@Override
+	public int getInDegree(int vertexIndex) {
+		return gsGraph.getNode(vertexIndex).getInDegree();
+	}
+
+	@Override
+	public int getOutDegree(int vertexIndex) {
+		return gsGraph.getNode(vertexIndex).getOutDegree();
+	}
+
+	@Override
+	public int[] getDegrees() {
+		final int count = gsGraph.getNodeCount();
+		int[] res = new int[count];
+		for (int i=0; i<count; i++)
+			res[i] = gsGraph.getNode(i).getDegree();
+		return res;
+	}
+
+	@Override
+	public int[] getIncidentEdgesIndices(int vertexIndex, int[] buffer) {
+		final Node n = gsGraph.getNode(vertexIndex);
+		final int d = n.getDegree();
+		buffer = ensureBuffer(buffer, d);
+		for (int k=0; k<d; k++)
+			buffer[k] = n.getEdge(k).getIndex();
+		return buffer;
+	}
+
+	@Override
+	public int[] getNeighboorsIndices(int vertexIndex, int[] buffer) {
+		final Node n = gsGraph.getNode(vertexIndex);
+		final int d = n.getDegree();
+		buffer = ensureBuffer(buffer, d);
+		for (int k=0; k<d; k++)
+			buffer[k] = n.getEdge(k).getOpposite(n).getIndex();
+		return buffer;
+	}
+
+	@Override
+	public int[] getOutNeighboorsIndices(int vertexIndex, int[] buffer) {
+		final Node n = gsGraph.getNode(vertexIndex);
+		final int d = n.getOutDegree();
+		buffer = ensureBuffer(buffer, d);
+		for (int k=0; k<d; k++)
+			buffer[k] = n.getLeavingEdge(k).getOpposite(n).getIndex();
+		return buffer;
+	}
+
+	@Override
+	public int[] getInNeighboorsIndices(int vertexIndex, int[] buffer) {
+		final Node n = gsGraph.getNode(vertexIndex);
+		final int d = n.getInDegree();
+		buffer = ensureBuffer(buffer, d);
+		for (int k=0; k<d; k++)
+			buffer[k] = n.getEnteringEdge(k).getOpposite(n).getIndex();
+		return buffer;
+	}
+
+	private static final Object getVertexAttributeValue(Node n, String attributeName) {
+		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL))
+			return n.getDegree();
+		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_IN))
+			return n.getInDegree();
+		if (attributeName.equals(KEY_VERTEX_ATTRIBUTE_DEGREE_OUT))
+			return n.getOutDegree();
+		return n.getAttribute(attributeName);
+	}
+	
+	@Override
+	public Object getVertexAttributeValue(int vertexIndex, String attributeId) {
+		return getVertexAttributeValue(gsGraph.getNode(vertexIndex), attributeId);
+	}
+
+	@Override
+	public void setVertexAttribute(int vertexIndex, String attributeId, Object value) {
+		if (vertexIndex < 0 || vertexIndex >= gsGraph.getNodeCount())
+			throw new WrongParametersException("no vertex at index "+vertexIndex);
+		setVertexAttribute(gsGraph.getNode(vertexIndex), attributeId, value);
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(int edgeIndex, String attributeId) {
+		return gsGraph.getEdge(edgeIndex).getAttribute(attributeId);
+	}
+
+	@Override
+	public void setEdgeAttribute(int edgeIndex, String attributeId, Object value) {
+		if (edgeIndex < 0 || edgeIndex >= gsGraph.getEdgeCount())
+			throw new WrongParametersException("no edge at index "+edgeIndex);
+		setEdgeAttribute(gsGraph.getEdge(edgeIndex), attributeId, value);
+	}
+
+	@Override
+	public Object[] getVertexAttributeValues(String attributeId) {
+		if (!vertexAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		final int count = gsGraph.getNodeCount();
+		Object[] res = new Object[count];
+		for (int i=0; i<count; i++)
+			res[i] = getVertexAttributeValue(gsGraph.getNode(i), attributeId);
+		return res;
+	}
+
+	private static final double toDouble(Object value, double missingValue) {
+		if (value instanceof Number)
+			return ((Number)value).doubleValue();
+		if (value instanceof Boolean)
+			return ((Boolean)value) ? 1 : 0;
+		return missingValue;
+	}
+	
+	@Override
+	public double[] getVertexAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		if (!vertexAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		final int count = gsGraph.getNodeCount();
+		double[] res = new double[count];
+		for (int i=0; i<count; i++)
+			res[i] = toDouble(getVertexAttributeValue(gsGraph.getNode(i), attributeId), missingValue);
+		return res;
+	}
+
+	@Override
+	public Object[] getEdgeAttributeValues(String attributeId) {
+		if (!edgeAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("no edge attribute "+attributeId+" defined for this graph");
+		final int count = gsGraph.getEdgeCount();
+		Object[] res = new Object[count];
+		for (int i=0; i<count; i++)
+			res[i] = gsGraph.getEdge(i).getAttribute(attributeId);
+		return res;
+	}
+
+	@Override
+	public double[] getEdgeAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		if (!edgeAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("no edge attribute "+attributeId+" defined for this graph");
+		final int count = gsGraph.getEdgeCount();
+		double[] res = new double[count];
+		for (int i=0; i<count; i++)
+			res[i] = toDouble(gsGraph.getEdge(i).getAttribute(attributeId), missingValue);
+		return res;
+	}
+
 	
 	public AbstractGraphstreamBasedGraph() {
 		gsGraph = null;
 	}
 	
+	/**
+	 * Creates an empty graphstream graph of the relevant kind for this implementation;
+	 * used when decoding a graph.
+	 * @param graphId
+	 * @return
+	 */
+	protected abstract Graph createGraphstreamGraph(String graphId);
+	
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
-		out.writeObject(gsGraph);
-		out.writeObject(graphAttribute2type);
-		out.writeObject(edgeAttributes2type);
-		out.writeObject(vertexAttributes2type);
-		
+		WireOutput wire = new WireOutput(64 + gsGraph.getNodeCount()*4 + gsGraph.getEdgeCount()*4);
+		GraphstreamWireFormat.write(this, wire);
+		WireFormat.writeBlock(out, wire);
 	}
+	
 	@Override
 	public void readExternal(ObjectInput in) throws IOException,
 			ClassNotFoundException {
-
-		gsGraph = (Graph) in.readObject();
-		graphAttribute2type = (Map<String, Class>) in.readObject();
-		edgeAttributes2type = (Map<String, Class>) in.readObject();
-		vertexAttributes2type = (Map<String, Class>) in.readObject();
+		GraphstreamWireFormat.read(this, WireFormat.readBlock(in));
 	}
 
 }
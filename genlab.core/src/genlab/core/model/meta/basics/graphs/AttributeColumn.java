@@ -0,0 +1,292 @@
+package genlab.core.model.meta.basics.graphs;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The values of one attribute for all the vertices (or edges) of a graph, stored in a primitive
+ * array when the type of the attribute allows it (Integer, Long, Double, Boolean), else in an array of objects.
+ * Elements without value are null.
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+final class AttributeColumn {
+
+	private static final int KIND_INTEGER = 0;
+	private static final int KIND_LONG = 1;
+	private static final int KIND_DOUBLE = 2;
+	private static final int KIND_BOOLEAN = 3;
+	private static final int KIND_OBJECT = 4;
+
+	@SuppressWarnings("rawtypes")
+	private final Class type;
+	private final int kind;
+
+	private int[] ints = null;
+	private long[] longs = null;
+	private double[] doubles = null;
+	private BitSet booleans = null;
+	private Object[] objects = null;
+
+	/**
+	 * The elements which have a value (unused for objects, which are null otherwise)
+	 */
+	private BitSet defined = null;
+
+	@SuppressWarnings("rawtypes")
+	public AttributeColumn(Class type, int capacity) {
+
+		this.type = type;
+
+		if (type.equals(Integer.class))
+			kind = KIND_INTEGER;
+		else if (type.equals(Long.class))
+			kind = KIND_LONG;
+		else if (type.equals(Double.class))
+			kind = KIND_DOUBLE;
+		else if (type.equals(Boolean.class))
+			kind = KIND_BOOLEAN;
+		else
+			kind = KIND_OBJECT;
+
+		switch (kind) {
+		case KIND_INTEGER:
+			ints = new int[capacity];
+			break;
+		case KIND_LONG:
+			longs = new long[capacity];
+			break;
+		case KIND_DOUBLE:
+			doubles = new double[capacity];
+			break;
+		case KIND_BOOLEAN:
+			booleans = new BitSet(capacity);
+			break;
+		default:
+			objects = new Object[capacity];
+		}
+		if (kind != KIND_OBJECT)
+			defined = new BitSet(capacity);
+	}
+
+	private AttributeColumn(AttributeColumn other, int size) {
+		this.type = other.type;
+		this.kind = other.kind;
+		if (other.ints != null)
+			ints = Arrays.copyOf(other.ints, Math.max(size, 1));
+		if (other.longs != null)
+			longs = Arrays.copyOf(other.longs, Math.max(size, 1));
+		if (other.doubles != null)
+			doubles = Arrays.copyOf(other.doubles, Math.max(size, 1));
+		if (other.booleans != null)
+			booleans = (BitSet)other.booleans.clone();
+		if (other.objects != null)
+			objects = Arrays.copyOf(other.objects, Math.max(size, 1));
+		if (other.defined != null)
+			defined = (BitSet)other.defined.clone();
+	}
+
+	@SuppressWarnings("rawtypes")
+	public Class getType() {
+		return type;
+	}
+
+	/**
+	 * Ensures the column can store values for this count of elements
+	 * @param capacity
+	 */
+	public void ensureCapacity(int capacity) {
+		switch (kind) {
+		case KIND_INTEGER:
+			if (ints.length < capacity)
+				ints = Arrays.copyOf(ints, capacity);
+			break;
+		case KIND_LONG:
+			if (longs.length < capacity)
+				longs = Arrays.copyOf(longs, capacity);
+			break;
+		case KIND_DOUBLE:
+			if (doubles.length < capacity)
+				doubles = Arrays.copyOf(doubles, capacity);
+			break;
+		case KIND_OBJECT:
+			if (objects.length < capacity)
+				objects = Arrays.copyOf(objects, capacity);
+			break;
+		default:
+			// bitsets grow by themselves
+		}
+	}
+
+	public Object get(int index) {
+		if (kind == KIND_OBJECT)
+			return objects[index];
+		if (!defined.get(index))
+			return null;
+		switch (kind) {
+		case KIND_INTEGER:
+			return ints[index];
+		case KIND_LONG:
+			return longs[index];
+		case KIND_DOUBLE:
+			return doubles[index];
+		default:
+			return booleans.get(index);
+		}
+	}
+
+	/**
+	 * Sets the value of this element (which was checked to be of the relevant type), or removes it if null
+	 * @param index
+	 * @param value
+	 */
+	public void set(int index, Object value) {
+		if (kind == KIND_OBJECT) {
+			objects[index] = value;
+			return;
+		}
+		if (value == null) {
+			defined.clear(index);
+			return;
+		}
+		switch (kind) {
+		case KIND_INTEGER:
+			ints[index] = ((Integer)value).intValue();
+			break;
+		case KIND_LONG:
+			longs[index] = ((Long)value).longValue();
+			break;
+		case KIND_DOUBLE:
+			doubles[index] = ((Number)value).doubleValue();
+			break;
+		default:
+			booleans.set(index, ((Boolean)value).booleanValue());
+		}
+		defined.set(index);
+	}
+
+	/**
+	 * Sets the values of the first elements from an array of doubles, without boxing them when
+	 * the column stores doubles.
+	 * @param values
+	 * @param count
+	 */
+	public void setDoubles(double[] values, int count) {
+		if (kind == KIND_DOUBLE) {
+			System.arraycopy(values, 0, doubles, 0, count);
+			defined.set(0, count);
+			return;
+		}
+		for (int i=0; i<count; i++)
+			set(i, values[i]);
+	}
+
+	public boolean isDefined(int index) {
+		if (kind == KIND_OBJECT)
+			return objects[index] != null;
+		return defined.get(index);
+	}
+
+	/**
+	 * Removes the value of this element
+	 * @param index
+	 */
+	public void clear(int index) {
+		if (kind == KIND_OBJECT)
+			objects[index] = null;
+		else
+			defined.clear(index);
+	}
+
+	/**
+	 * Moves the value of an element to another index, and removes it from its previous one
+	 * @param from
+	 * @param to
+	 */
+	public void move(int from, int to) {
+		if (kind != KIND_OBJECT && !defined.get(from)) {
+			clear(to);
+			return;
+		}
+		switch (kind) {
+		case KIND_INTEGER:
+			ints[to] = ints[from];
+			break;
+		case KIND_LONG:
+			longs[to] = longs[from];
+			break;
+		case KIND_DOUBLE:
+			doubles[to] = doubles[from];
+			break;
+		case KIND_BOOLEAN:
+			booleans.set(to, booleans.get(from));
+			break;
+		default:
+			objects[to] = objects[from];
+		}
+		if (defined != null)
+			defined.set(to);
+		clear(from);
+	}
+
+	/**
+	 * Returns the values of the first elements (null when undefined)
+	 * @param size
+	 * @return
+	 */
+	public Object[] toArray(int size) {
+		if (kind == KIND_OBJECT)
+			return Arrays.copyOf(objects, size);
+		Object[] res = new Object[size];
+		for (int i=0; i<size; i++)
+			res[i] = get(i);
+		return res;
+	}
+
+	/**
+	 * Returns the values of the first elements as doubles, or missingValue when 
+	 * they are undefined or not numbers.
+	 * @param size
+	 * @param missingValue
+	 * @return
+	 */
+	public double[] toDoubles(int size, double missingValue) {
+		double[] res = new double[size];
+		for (int i=0; i<size; i++) {
+			if (!isDefined(i)) {
+				res[i] = missingValue;
+				continue;
+			}
+			switch (kind) {
+			case KIND_INTEGER:
+				res[i] = ints[i];
+				break;
+			case KIND_LONG:
+				res[i] = longs[i];
+				break;
+			case KIND_DOUBLE:
+				res[i] = doubles[i];
+				break;
+			case KIND_BOOLEAN:
+				res[i] = booleans.get(i) ? 1 : 0;
+				break;
+			default:
+				res[i] = objects[i] instanceof Number ? ((Number)objects[i]).doubleValue() : missingValue;
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Returns a copy of the values of the first elements
+	 * @param size
+	 * @return
+	 */
+	public AttributeColumn copy(int size) {
+		return new AttributeColumn(this, size);
+	}
+
+}
@@ -0,0 +1,1745 @@
+package genlab.core.model.meta.basics.graphs;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WireFormat;
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+import genlab.core.commons.WrongParametersException;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Graph stored in primitive arrays, for big graphs:
+ * <ul>
+ * <li>vertices and edges are identified by an int index (from 0 to count-1);</li>
+ * <li>the ids of vertices and edges are only stored when they are not the default ones
+ * (index for vertices, from_to_to for edges), in a dictionary of ids to indices;</li>
+ * <li>edges are stored as two arrays of vertices indices; each vertex has an array of the indices of its edges;</li>
+ * <li>attributes are stored column by column, in primitive arrays when their type allows it.</li>
+ * </ul>
+ *
+ * As in graphstream, removing a vertex or an edge moves the last one to its index.
+ *
+ * Once frozen, the clones of this graph are {@link CopyOnWriteGraph}s which share its arrays.
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+@SuppressWarnings("serial")
+public class CompactGraph implements IGenlabGraph, Externalizable {
+
+	protected static final String EDGE_ID_SEPARATOR = "_to_";
+
+	protected final Collection<String> linktypes = Collections.unmodifiableCollection(new LinkedList<String>() {{ add("edges"); }});
+
+	protected String graphId;
+	protected GraphDirectionality directionality;
+	protected boolean multiGraph;
+
+	public boolean ignoreGraphAttributeErrors = false;
+
+	protected boolean frozen = false;
+
+	// vertices
+
+	protected int verticesCount = 0;
+
+	/**
+	 * The id of each vertex, or null if this is the default one (its index)
+	 */
+	protected String[] vertexIds;
+	protected IdIndex explicitVertexIds;
+
+	/**
+	 * For each vertex, the indices of its edges (loops once); the count of edges is its degree.
+	 */
+	protected int[][] incidence;
+	protected int[] degree;
+	protected int[] inDegree;
+	protected int[] outDegree;
+
+	// edges
+
+	protected int edgesCount = 0;
+	protected int[] edgeFrom;
+	protected int[] edgeTo;
+
+	/**
+	 * The id of each edge, or null if this is the default one (from_to_to)
+	 */
+	protected String[] edgeIds;
+	protected IdIndex explicitEdgeIds;
+
+	/**
+	 * For mixed graphs only, the edges which are directed
+	 */
+	protected BitSet edgeDirected;
+
+	// attributes
+
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> graphAttribute2type = new HashMap<String, Class>();
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> vertexAttributes2type = new HashMap<String, Class>();
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> edgeAttributes2type = new HashMap<String, Class>();
+
+	protected Map<String,Object> graphAttributes = new HashMap<String, Object>();
+	protected Map<String,AttributeColumn> vertexColumns = new HashMap<String, AttributeColumn>();
+	protected Map<String,AttributeColumn> edgeColumns = new HashMap<String, AttributeColumn>();
+
+	public CompactGraph(String graphId, GraphDirectionality directionality, boolean multiGraph, int expectedVertices, int expectedEdges) {
+
+		this.graphId = graphId;
+		this.directionality = directionality;
+		this.multiGraph = multiGraph;
+
+		allocate(expectedVertices, expectedEdges);
+
+		declareVertexAttribute(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL, Integer.class);
+		declareVertexAttribute(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN, Integer.class);
+		declareVertexAttribute(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT, Integer.class);
+	}
+
+	public CompactGraph(String graphId, GraphDirectionality directionality, boolean multiGraph) {
+		this(graphId, directionality, multiGraph, 16, 16);
+	}
+
+	public CompactGraph() {
+		directionality = GraphDirectionality.DIRECTED;
+	}
+
+	/**
+	 * Creates a graph from the arrays filled by a builder, which are used as is: the incidence lists
+	 * are computed in one pass on the edges, each one allocated at its final size.
+	 * @param builder
+	 */
+	@SuppressWarnings("rawtypes")
+	CompactGraph(GraphBuilder builder) {
+
+		this(builder.graphId, builder.directionality, builder.multiGraph, 0, 0);
+
+		verticesCount = builder.verticesCount;
+		vertexIds = builder.vertexIds;
+		explicitVertexIds = builder.explicitVertexIds;
+		incidence = new int[vertexIds.length][];
+		degree = new int[vertexIds.length];
+		inDegree = new int[vertexIds.length];
+		outDegree = new int[vertexIds.length];
+
+		edgesCount = builder.edgesCount;
+		edgeFrom = builder.edgeFrom;
+		edgeTo = builder.edgeTo;
+		edgeIds = builder.edgeIds;
+		explicitEdgeIds = builder.explicitEdgeIds;
+		edgeDirected = builder.edgeDirected;
+
+		// the ids given explicitly might be the default ones
+		for (int e=0; e<edgesCount; e++) {
+			final String id = edgeIds[e];
+			if (id != null && id.equals(getVertexId(edgeFrom[e])+EDGE_ID_SEPARATOR+getVertexId(edgeTo[e]))) {
+				explicitEdgeIds.remove(id);
+				edgeIds[e] = null;
+			}
+		}
+
+		indexEdges();
+		checkEdgesUnicity();
+
+		for (Entry<String,Class> entry: builder.vertexAttributes2type.entrySet()) {
+			vertexAttributes2type.put(entry.getKey(), entry.getValue());
+			vertexColumns.put(entry.getKey(), builder.vertexColumns.get(entry.getKey()));
+		}
+		for (Entry<String,Class> entry: builder.edgeAttributes2type.entrySet()) {
+			edgeAttributes2type.put(entry.getKey(), entry.getValue());
+			edgeColumns.put(entry.getKey(), builder.edgeColumns.get(entry.getKey()));
+		}
+		graphAttribute2type.putAll(builder.graphAttribute2type);
+		graphAttributes.putAll(builder.graphAttributes);
+		ignoreGraphAttributeErrors = builder.ignoreGraphAttributeErrors;
+	}
+
+	/**
+	 * Computes the incidence lists and the degrees from the arrays of edges
+	 */
+	private void indexEdges() {
+
+		for (int e=0; e<edgesCount; e++) {
+			degree[edgeFrom[e]]++;
+			if (edgeFrom[e] != edgeTo[e])
+				degree[edgeTo[e]]++;
+		}
+		for (int v=0; v<verticesCount; v++) {
+			if (degree[v] > 0)
+				incidence[v] = new int[degree[v]];
+			degree[v] = 0;
+		}
+		for (int e=0; e<edgesCount; e++) {
+			addIncidence(edgeFrom[e], e);
+			if (edgeFrom[e] != edgeTo[e])
+				addIncidence(edgeTo[e], e);
+			updateDirectedDegrees(e, 1);
+		}
+	}
+
+	/**
+	 * Throws an exception if two edges have the same default id, or if they link the same 
+	 * vertices in a graph which is not a multigraph (the same rules as {@link #addEdge(String, String, String, boolean)})
+	 */
+	private void checkEdgesUnicity() {
+
+		// stamps of the last vertex for which a neighboor was seen, by directed or undirected edges
+		final int[] leaving = new int[verticesCount];
+		final int[] undirected = new int[verticesCount];
+
+		for (int v=0; v<verticesCount; v++) {
+			final int stamp = v+1;
+			final int[] edges = incidence[v];
+			for (int k=0; k<degree[v]; k++) {
+				final int e = edges[k];
+				if (multiGraph) {
+					// only the default ids may collide
+					if (edgeIds[e] != null || edgeFrom[e] != v)
+						continue;
+					if (leaving[edgeTo[e]] == stamp)
+						throw new WrongParametersException("the edge "+getEdgeId(e)+" was already defined");
+					leaving[edgeTo[e]] = stamp;
+				} else if (isEdgeDirected(e)) {
+					if (edgeFrom[e] != v)
+						continue;
+					final int other = edgeTo[e];
+					if (leaving[other] == stamp || undirected[other] == stamp)
+						throw new WrongParametersException("an edge was already defined between "+getVertexId(v)+" and "+getVertexId(other));
+					leaving[other] = stamp;
+				} else {
+					final int other = getOpposite(e, v);
+					if (leaving[other] == stamp || undirected[other] == stamp)
+						throw new WrongParametersException("an edge was already defined between "+getVertexId(v)+" and "+getVertexId(other));
+					undirected[other] = stamp;
+				}
+			}
+		}
+	}
+
+	private void allocate(int vertices, int edges) {
+
+		vertices = Math.max(vertices, 1);
+		edges = Math.max(edges, 1);
+
+		vertexIds = new String[vertices];
+		explicitVertexIds = new IdIndex();
+		incidence = new int[vertices][];
+		degree = new int[vertices];
+		inDegree = new int[vertices];
+		outDegree = new int[vertices];
+
+		edgeFrom = new int[edges];
+		edgeTo = new int[edges];
+		edgeIds = new String[edges];
+		explicitEdgeIds = new IdIndex();
+		edgeDirected = directionality == GraphDirectionality.MIXED ? new BitSet(edges) : null;
+	}
+
+	private static final int grow(int current, int required) {
+		return Math.max(required, current + (current >> 1) + 1);
+	}
+
+	protected void ensureVerticesCapacity(int capacity) {
+
+		if (vertexIds.length >= capacity)
+			return;
+
+		final int newCapacity = grow(vertexIds.length, capacity);
+		vertexIds = Arrays.copyOf(vertexIds, newCapacity);
+		incidence = Arrays.copyOf(incidence, newCapacity);
+		degree = Arrays.copyOf(degree, newCapacity);
+		inDegree = Arrays.copyOf(inDegree, newCapacity);
+		outDegree = Arrays.copyOf(outDegree, newCapacity);
+		for (AttributeColumn c: vertexColumns.values())
+			c.ensureCapacity(newCapacity);
+	}
+
+	protected void ensureEdgesCapacity(int capacity) {
+
+		if (edgeFrom.length >= capacity)
+			return;
+
+		final int newCapacity = grow(edgeFrom.length, capacity);
+		edgeFrom = Arrays.copyOf(edgeFrom, newCapacity);
+		edgeTo = Arrays.copyOf(edgeTo, newCapacity);
+		edgeIds = Arrays.copyOf(edgeIds, newCapacity);
+		for (AttributeColumn c: edgeColumns.values())
+			c.ensureCapacity(newCapacity);
+	}
+
+	// --- indices and ids ---
+
+	/**
+	 * Returns the index of the string if it is the default id of a vertex ("0", "1", ...), else -1
+	 * @param id
+	 * @return
+	 */
+	static final int parseDefaultIndex(String id) {
+
+		final int length = id.length();
+		if (length == 0 || length > 10 || (length > 1 && id.charAt(0) == '0'))
+			return -1;
+		long value = 0;
+		for (int i=0; i<length; i++) {
+			final char c = id.charAt(i);
+			if (c < '0' || c > '9')
+				return -1;
+			value = value*10 + (c-'0');
+		}
+		return value > Integer.MAX_VALUE ? -1 : (int)value;
+	}
+
+	@Override
+	public int getVertexIndex(String vertexId) {
+
+		int index = explicitVertexIds.get(vertexId);
+		if (index >= 0)
+			return index;
+
+		index = parseDefaultIndex(vertexId);
+		if (index >= 0 && index < verticesCount && vertexIds[index] == null)
+			return index;
+
+		return -1;
+	}
+
+	protected int getExistingVertexIndex(String vertexId) {
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("unknown vertex: "+vertexId);
+		return index;
+	}
+
+	protected String getVertexId(int index) {
+		final String id = vertexIds[index];
+		return id == null ? Integer.toString(index) : id;
+	}
+
+	@Override
+	public int getEdgeIndex(String edgeId) {
+
+		final int index = explicitEdgeIds.get(edgeId);
+		if (index >= 0)
+			return index;
+
+		// maybe a default id; the vertex ids might contain the separator as well
+		int pos = edgeId.indexOf(EDGE_ID_SEPARATOR);
+		while (pos >= 0) {
+			final int from = getVertexIndex(edgeId.substring(0, pos));
+			if (from >= 0) {
+				final int to = getVertexIndex(edgeId.substring(pos+EDGE_ID_SEPARATOR.length()));
+				if (to >= 0) {
+					final int found = findEdge(from, to, true, true);
+					if (found >= 0)
+						return found;
+				}
+			}
+			pos = edgeId.indexOf(EDGE_ID_SEPARATOR, pos+1);
+		}
+
+		return -1;
+	}
+
+	protected int getExistingEdgeIndex(String edgeId) {
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("unknown edge: "+edgeId);
+		return index;
+	}
+
+	protected String getEdgeId(int index) {
+		final String id = edgeIds[index];
+		return id == null ? getVertexId(edgeFrom[index])+EDGE_ID_SEPARATOR+getVertexId(edgeTo[index]) : id;
+	}
+
+	@Override
+	public boolean isEdgeDirected(int index) {
+		switch (directionality) {
+		case DIRECTED:
+			return true;
+		case UNDIRECTED:
+			return false;
+		default:
+			return edgeDirected.get(index);
+		}
+	}
+
+	/**
+	 * Returns the index of an edge from this vertex to this one, or -1.
+	 * @param from
+	 * @param to
+	 * @param towardOnly if true, an directed edge from "to" to "from" does not count
+	 * @param defaultIdOnly if true, only the edges having a default id from_to_to are searched
+	 * @return
+	 */
+	protected int findEdge(int from, int to, boolean towardOnly, boolean defaultIdOnly) {
+
+		// search the shortest list
+		final int v = degree[from] <= degree[to] ? from : to;
+		final int[] edges = incidence[v];
+		for (int k=0; k<degree[v]; k++) {
+			final int e = edges[k];
+			if (defaultIdOnly && edgeIds[e] != null)
+				continue;
+			if (edgeFrom[e] == from && edgeTo[e] == to)
+				return e;
+			if (!defaultIdOnly && edgeFrom[e] == to && edgeTo[e] == from && (!towardOnly || !isEdgeDirected(e)))
+				return e;
+		}
+		return -1;
+	}
+
+	private void addIncidence(int vertex, int edge) {
+		int[] edges = incidence[vertex];
+		final int d = degree[vertex];
+		if (edges == null) {
+			edges = new int[4];
+			incidence[vertex] = edges;
+		} else if (d == edges.length) {
+			edges = Arrays.copyOf(edges, d*2);
+			incidence[vertex] = edges;
+		}
+		edges[d] = edge;
+		degree[vertex] = d+1;
+	}
+
+	private void removeIncidence(int vertex, int edge) {
+		final int[] edges = incidence[vertex];
+		final int last = degree[vertex]-1;
+		for (int k=0; k<=last; k++) {
+			if (edges[k] == edge) {
+				edges[k] = edges[last];
+				degree[vertex] = last;
+				return;
+			}
+		}
+	}
+
+	private void replaceIncidence(int vertex, int oldEdge, int newEdge) {
+		final int[] edges = incidence[vertex];
+		for (int k=0; k<degree[vertex]; k++) {
+			if (edges[k] == oldEdge) {
+				edges[k] = newEdge;
+				return;
+			}
+		}
+	}
+
+	private void updateDirectedDegrees(int edge, int delta) {
+		final int from = edgeFrom[edge];
+		final int to = edgeTo[edge];
+		if (from == to || !isEdgeDirected(edge)) {
+			// as in graphstream, undirected edges and loops are both entering and leaving
+			outDegree[from] += delta;
+			inDegree[from] += delta;
+			if (from != to) {
+				outDegree[to] += delta;
+				inDegree[to] += delta;
+			}
+		} else {
+			outDegree[from] += delta;
+			inDegree[to] += delta;
+		}
+	}
+
+	// --- attributes declaration ---
+
+	@Override
+	public String getGraphId() {
+		return graphId;
+	}
+
+	@Override
+	public long getVerticesCount() {
+		return verticesCount;
+	}
+
+	@Override
+	public long getEdgesCount() {
+		return edgesCount;
+	}
+
+	static final boolean isComputedVertexAttribute(String attributeId) {
+		return attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL)
+				|| attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN)
+				|| attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT);
+	}
+
+	/**
+	 * Returns the value to store for this attribute, or throws an exception if it is not of the expected type
+	 */
+	@SuppressWarnings("rawtypes")
+	static Object checkValue(Class attributeType, String attributeId, Object value) {
+		if (attributeType.isInstance(value))
+			return value;
+		// special case of numbers
+		if (attributeType.equals(Double.class) && (value instanceof Number))
+			return ((Number)value).doubleValue();
+		throw new WrongParametersException("type "+attributeType.getSimpleName()+" is expected for attribute "+attributeId);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareGraphAttribute(String attributeId, Class type) {
+		checkNotFrozen();
+		if (graphAttribute2type.containsKey(attributeId))
+			throw new WrongParametersException("a graph attribute "+attributeId+" was already declared for this graph");
+		graphAttribute2type.put(attributeId, type);
+	}
+
+	@Override
+	public boolean hasGraphAttribute(String attribute) {
+		return graphAttribute2type.containsKey(attribute);
+	}
+
+	@Override
+	public Collection<String> getDeclaredGraphAttributes() {
+		return graphAttribute2type.keySet();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredGraphAttributesAndTypes() {
+		return Collections.unmodifiableMap(graphAttribute2type);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void setGraphAttribute(String attributeId, Object value) {
+		checkNotFrozen();
+		Class attributeType = graphAttribute2type.get(attributeId);
+		if (attributeType == null) {
+			if (!ignoreGraphAttributeErrors)
+				throw new WrongParametersException("no graph attribute "+attributeId+" defined for this graph");
+			else
+				return;
+		}
+		graphAttributes.put(attributeId, checkValue(attributeType, attributeId, value));
+	}
+
+	@Override
+	public Object getGraphAttribute(String attributeId) {
+		return graphAttributes.get(attributeId);
+	}
+
+	@Override
+	public Map<String, Object> getGraphAttributes() {
+		return Collections.unmodifiableMap(graphAttributes);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareVertexAttribute(String attributeId, Class type) {
+		checkNotFrozen();
+		if (vertexAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("a node attribute "+attributeId+" was already declared for this graph");
+		vertexAttributes2type.put(attributeId, type);
+		if (!isComputedVertexAttribute(attributeId))
+			vertexColumns.put(attributeId, new AttributeColumn(type, vertexIds.length));
+	}
+
+	@Override
+	public boolean hasVertexAttribute(String attributeId) {
+		return vertexAttributes2type.containsKey(attributeId);
+	}
+
+	@Override
+	public Collection<String> getDeclaredVertexAttributes() {
+		return vertexAttributes2type.keySet();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredVertexAttributesAndTypes() {
+		return Collections.unmodifiableMap(vertexAttributes2type);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareEdgeAttribute(String attributeId, Class type) {
+		checkNotFrozen();
+		if (edgeAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("an edge attribute "+attributeId+" was already declared for this graph");
+		edgeAttributes2type.put(attributeId, type);
+		edgeColumns.put(attributeId, new AttributeColumn(type, edgeFrom.length));
+	}
+
+	@Override
+	public boolean hasEdgeAttribute(String attributeId) {
+		return edgeAttributes2type.containsKey(attributeId);
+	}
+
+	@Override
+	public Collection<String> getDeclaredEdgeAttributes() {
+		return edgeAttributes2type.keySet();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredEdgeAttributesAndTypes() {
+		return Collections.unmodifiableMap(edgeAttributes2type);
+	}
+
+	// --- attributes values ---
+
+	private AttributeColumn getVertexColumnForWrite(String attributeId) {
+		checkNotFrozen();
+		if (isComputedVertexAttribute(attributeId))
+			throw new WrongParametersException("cannot modify the degree attribute '"+attributeId+"' of a node without adding or removing an edge");
+		final AttributeColumn column = vertexColumns.get(attributeId);
+		if (column == null)
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		return column;
+	}
+
+	private AttributeColumn getEdgeColumn(String attributeId) {
+		final AttributeColumn column = edgeColumns.get(attributeId);
+		if (column == null)
+			throw new WrongParametersException("no edge attribute "+attributeId+" defined for this graph");
+		return column;
+	}
+
+	private AttributeColumn getEdgeColumnForWrite(String attributeId) {
+		checkNotFrozen();
+		return getEdgeColumn(attributeId);
+	}
+
+	@Override
+	public void setVertexAttribute(String vertexId, String attributeId, Object value) {
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("no vertex "+vertexId+" declared");
+		final AttributeColumn column = getVertexColumnForWrite(attributeId);
+		column.set(index, checkValue(column.getType(), attributeId, value));
+	}
+
+	@Override
+	public void setVertexAttributes(String vertexId, Map<String, Object> values) {
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("no vertex "+vertexId+" declared");
+		for (Entry<String,Object> entry: values.entrySet()) {
+			final AttributeColumn column = getVertexColumnForWrite(entry.getKey());
+			column.set(index, checkValue(column.getType(), entry.getKey(), entry.getValue()));
+		}
+	}
+
+	@Override
+	public void setEdgeAttribute(String edgeId, String attributeId, Object value) {
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("no edge "+edgeId+" declared");
+		final AttributeColumn column = getEdgeColumnForWrite(attributeId);
+		column.set(index, checkValue(column.getType(), attributeId, value));
+	}
+
+	@Override
+	public void setEdgeAttributes(String edgeId, Map<String, Object> values) {
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("no edge "+edgeId+" declared");
+		for (Entry<String,Object> entry: values.entrySet()) {
+			final AttributeColumn column = getEdgeColumnForWrite(entry.getKey());
+			column.set(index, checkValue(column.getType(), entry.getKey(), entry.getValue()));
+		}
+	}
+
+	@Override
+	public Map<String, Object> getVertexAttributes(String vertexId) {
+
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("unknown vertex "+vertexId);
+
+		Map<String, Object> map = new HashMap<String, Object>(vertexAttributes2type.size()*2);
+
+		map.put(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL, degree[index]);
+		map.put(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN, inDegree[index]);
+		map.put(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT, outDegree[index]);
+
+		for (Entry<String,AttributeColumn> e: vertexColumns.entrySet()) {
+			final Object value = e.getValue().get(index);
+			if (value != null)
+				map.put(e.getKey(), value);
+		}
+
+		return map;
+	}
+
+	@Override
+	public Object getVertexAttributeValue(String vertexId, String attributeName) {
+
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("unknown vertex "+vertexId);
+
+		if (attributeName.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL))
+			return degree[index];
+		if (attributeName.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN))
+			return inDegree[index];
+		if (attributeName.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT))
+			return outDegree[index];
+
+		final AttributeColumn column = vertexColumns.get(attributeName);
+		return column == null ? null : column.get(index);
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(String edgeId, String attributeId) {
+
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("unknown edge "+edgeId);
+
+		final AttributeColumn column = edgeColumns.get(attributeId);
+		return column == null ? null : column.get(index);
+	}
+
+	@Override
+	public Map<String, Object> getEdgeAttributes(String edgeId) {
+
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("no edge "+edgeId+" declared");
+
+		Map<String,Object> res = null;
+		for (Entry<String,AttributeColumn> e: edgeColumns.entrySet()) {
+			final Object value = e.getValue().get(index);
+			if (value == null)
+				continue;
+			if (res == null)
+				res = new HashMap<String, Object>(edgeColumns.size()*2);
+			res.put(e.getKey(), value);
+		}
+		return res == null ? Collections.<String,Object>emptyMap() : res;
+	}
+
+	@Override
+	public boolean isVertexAttributed() {
+		return true;
+	}
+
+	@Override
+	public boolean isEdgeAttributed() {
+		return true;
+	}
+
+	// --- vertices ---
+
+	protected int addVertexInternal(String idOrNull) {
+		checkNotFrozen();
+
+		final int index = verticesCount;
+		ensureVerticesCapacity(index+1);
+
+		if (idOrNull != null && parseDefaultIndex(idOrNull) != index) {
+			vertexIds[index] = idOrNull;
+			explicitVertexIds.put(idOrNull, index);
+		} else {
+			vertexIds[index] = null;
+		}
+		degree[index] = 0;
+		inDegree[index] = 0;
+		outDegree[index] = 0;
+
+		verticesCount++;
+
+		return index;
+	}
+
+	@Override
+	public String addVertex() {
+
+		int idx = verticesCount;
+		String id = Integer.toString(idx);
+		while (containsVertex(id)) {
+			id = Integer.toString(++idx);
+		}
+
+		addVertexInternal(id);
+
+		return id;
+	}
+
+	@Override
+	public void addVertex(String id) {
+		if (containsVertex(id))
+			throw new WrongParametersException("a vertex was already added in this graph with id "+id);
+		addVertexInternal(id);
+	}
+
+	@Override
+	public boolean containsVertex(String vertexId) {
+		return getVertexIndex(vertexId) >= 0;
+	}
+
+	@Override
+	public String getVertex(int index) {
+		if (index < 0 || index >= verticesCount)
+			throw new WrongParametersException("no vertex at index "+index);
+		return getVertexId(index);
+	}
+
+	@Override
+	public List<String> getVertices() {
+
+		if (verticesCount == 0) // quick exit
+			return Collections.emptyList();
+
+		List<String> res = new ArrayList<String>(verticesCount);
+		for (int i=0; i<verticesCount; i++) {
+			res.add(getVertexId(i));
+		}
+		return res;
+	}
+
+	@Override
+	public boolean removeVertex(String id) {
+		final int index = getVertexIndex(id);
+		if (index < 0)
+			return false;
+		removeVertexAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean removeVertex(int index) {
+		if (index < 0 || index >= verticesCount)
+			return false;
+		removeVertexAt(index);
+		return true;
+	}
+
+	protected void removeVertexAt(int index) {
+		checkNotFrozen();
+
+		// remove its edges
+		while (degree[index] > 0)
+			removeEdgeAt(incidence[index][degree[index]-1]);
+
+		if (vertexIds[index] != null)
+			explicitVertexIds.remove(vertexIds[index]);
+
+		// move the last vertex to this index
+		final int last = verticesCount-1;
+		if (index != last) {
+
+			final String lastId = getVertexId(last);
+			vertexIds[index] = lastId;
+			explicitVertexIds.put(lastId, index);
+
+			incidence[index] = incidence[last];
+			degree[index] = degree[last];
+			inDegree[index] = inDegree[last];
+			outDegree[index] = outDegree[last];
+
+			for (int k=0; k<degree[index]; k++) {
+				final int e = incidence[index][k];
+				if (edgeFrom[e] == last)
+					edgeFrom[e] = index;
+				if (edgeTo[e] == last)
+					edgeTo[e] = index;
+			}
+			for (AttributeColumn c: vertexColumns.values())
+				c.move(last, index);
+
+		} else {
+			for (AttributeColumn c: vertexColumns.values())
+				c.clear(index);
+		}
+
+		vertexIds[last] = null;
+		incidence[last] = null;
+		degree[last] = 0;
+		verticesCount--;
+	}
+
+	// --- edges ---
+
+	protected int addEdgeInternal(String idOrNull, int from, int to, boolean directed) {
+		checkNotFrozen();
+
+		final int index = edgesCount;
+		ensureEdgesCapacity(index+1);
+
+		edgeFrom[index] = from;
+		edgeTo[index] = to;
+		edgeIds[index] = idOrNull;
+		if (idOrNull != null)
+			explicitEdgeIds.put(idOrNull, index);
+		if (edgeDirected != null)
+			edgeDirected.set(index, directed);
+
+		addIncidence(from, index);
+		if (from != to)
+			addIncidence(to, index);
+		updateDirectedDegrees(index, 1);
+
+		edgesCount++;
+
+		return index;
+	}
+
+	@Override
+	public void addEdge(String id, String vertexIdFrom, String vertexIdTo) {
+
+		if (directionality == GraphDirectionality.MIXED)
+			throw new WrongParametersException("As this graph is mixed, you have to precise for each new edge if it is directed or not.");
+
+		addEdge(
+				id,
+				vertexIdFrom,
+				vertexIdTo,
+				directionality==GraphDirectionality.DIRECTED
+				);
+	}
+
+	@Override
+	public String addEdge(String vertexIdFrom, String vertexIdTo, boolean directed) {
+		String edgeId = vertexIdFrom+EDGE_ID_SEPARATOR+vertexIdTo;
+		addEdge(
+				edgeId,
+				vertexIdFrom,
+				vertexIdTo,
+				directed
+				);
+		return edgeId;
+	}
+
+	@Override
+	public void addEdge(String id, String vertexIdFrom, String vertexIdTo, boolean directed) {
+
+		if (directed) {
+			if (directionality == GraphDirectionality.UNDIRECTED)
+				throw new WrongParametersException("can not add a directed edge into an undirected graph");
+		} else {
+			if (directionality == GraphDirectionality.DIRECTED)
+				throw new WrongParametersException("can not add an undirected edge into a directed graph");
+		}
+
+		final int from = getExistingVertexIndex(vertexIdFrom);
+		final int to = getExistingVertexIndex(vertexIdTo);
+
+		if (getEdgeIndex(id) >= 0)
+			throw new WrongParametersException("the edge "+id+" was already defined");
+
+		if (!multiGraph && findEdge(from, to, directionality != GraphDirectionality.UNDIRECTED, false) >= 0)
+			throw new WrongParametersException("an edge was already defined between "+vertexIdFrom+" and "+vertexIdTo);
+
+		// only store the id if this is not the default one
+		final boolean defaultId = id.length() == vertexIdFrom.length()+EDGE_ID_SEPARATOR.length()+vertexIdTo.length()
+				&& id.startsWith(vertexIdFrom)
+				&& id.startsWith(EDGE_ID_SEPARATOR, vertexIdFrom.length())
+				&& id.endsWith(vertexIdTo);
+
+		addEdgeInternal(defaultId ? null : id, from, to, directed);
+	}
+
+	@Override
+	public boolean containsEdge(String vertexFrom, String vertexTo) {
+
+		final int from = getVertexIndex(vertexFrom);
+		final int to = getVertexIndex(vertexTo);
+		if (from < 0 || to < 0)
+			return false;
+
+		return findEdge(from, to, directionality != GraphDirectionality.UNDIRECTED, false) >= 0;
+	}
+
+	@Override
+	public boolean containsEdge(String edgeId) {
+		return getEdgeIndex(edgeId) >= 0;
+	}
+
+	@Override
+	public String getEdge(int index) {
+		if (index < 0 || index >= edgesCount)
+			throw new WrongParametersException("no edge at index "+index);
+		return getEdgeId(index);
+	}
+
+	@Override
+	public List<String> getEdges() {
+		List<String> res = new ArrayList<String>(edgesCount);
+		for (int i=0; i<edgesCount; i++) {
+			res.add(getEdgeId(i));
+		}
+		return res;
+	}
+
+	@Override
+	public boolean removeEdge(String id) {
+		final int index = getEdgeIndex(id);
+		if (index < 0)
+			throw new WrongParametersException("this edge does not exists: "+id);
+		removeEdgeAt(index);
+		return true;
+	}
+
+	@Override
+	public boolean removeEdge(int index) {
+		if (index < 0 || index >= edgesCount)
+			return false;
+		removeEdgeAt(index);
+		return true;
+	}
+
+	protected void removeEdgeAt(int index) {
+		checkNotFrozen();
+
+		final int from = edgeFrom[index];
+		final int to = edgeTo[index];
+
+		updateDirectedDegrees(index, -1);
+		removeIncidence(from, index);
+		if (from != to)
+			removeIncidence(to, index);
+
+		if (edgeIds[index] != null)
+			explicitEdgeIds.remove(edgeIds[index]);
+
+		// move the last edge to this index
+		final int last = edgesCount-1;
+		if (index != last) {
+
+			edgeFrom[index] = edgeFrom[last];
+			edgeTo[index] = edgeTo[last];
+			edgeIds[index] = edgeIds[last];
+			if (edgeIds[index] != null)
+				explicitEdgeIds.put(edgeIds[index], index);
+			if (edgeDirected != null)
+				edgeDirected.set(index, edgeDirected.get(last));
+
+			replaceIncidence(edgeFrom[index], last, index);
+			if (edgeFrom[index] != edgeTo[index])
+				replaceIncidence(edgeTo[index], last, index);
+
+			for (AttributeColumn c: edgeColumns.values())
+				c.move(last, index);
+
+		} else {
+			for (AttributeColumn c: edgeColumns.values())
+				c.clear(index);
+		}
+
+		edgeIds[last] = null;
+		edgesCount--;
+	}
+
+	@Override
+	public String getEdgeVertexFrom(String edgeId) {
+		return getVertexId(edgeFrom[getExistingEdgeIndex(edgeId)]);
+	}
+
+	@Override
+	public String getEdgeVertexTo(String edgeId) {
+		return getVertexId(edgeTo[getExistingEdgeIndex(edgeId)]);
+	}
+
+	@Override
+	public boolean isEdgeDirected(String edgeId) {
+		if (directionality == GraphDirectionality.DIRECTED)
+			return true;
+		else if (directionality == GraphDirectionality.UNDIRECTED)
+			return false;
+		else
+			return edgeDirected.get(getExistingEdgeIndex(edgeId));
+	}
+
+	@Override
+	public boolean isEdgeLoop(String edgeId) {
+		final int index = getExistingEdgeIndex(edgeId);
+		return edgeFrom[index] == edgeTo[index];
+	}
+
+	@Override
+	public String getEdgeOtherVertex(String edgeId, String vertex1) {
+		final int index = getExistingEdgeIndex(edgeId);
+		final String from = getVertexId(edgeFrom[index]);
+		if (from.equals(vertex1))
+			return getVertexId(edgeTo[index]);
+		else
+			return from;
+	}
+
+	@Override
+	public String getEdgeBetween(String nodeId1, String nodeId2) {
+		final int index = findEdge(getExistingVertexIndex(nodeId1), getExistingVertexIndex(nodeId2), false, false);
+		return index < 0 ? null : getEdgeId(index);
+	}
+
+	@Override
+	public Collection<String> getEdgesBetween(String nodeId1, String nodeId2) {
+
+		final int v1 = getExistingVertexIndex(nodeId1);
+		final int v2 = getExistingVertexIndex(nodeId2);
+
+		final int v = degree[v1] <= degree[v2] ? v1 : v2;
+		final int[] edges = incidence[v];
+		Collection<String> res = new LinkedList<String>();
+		for (int k=0; k<degree[v]; k++) {
+			final int e = edges[k];
+			if ((edgeFrom[e] == v1 && edgeTo[e] == v2) || (edgeFrom[e] == v2 && edgeTo[e] == v1))
+				res.add(getEdgeId(e));
+		}
+		return res;
+	}
+
+	// --- neighborhood ---
+
+	/**
+	 * Returns true if the edge leaves this vertex (undirected edges and loops do)
+	 */
+	private boolean isLeaving(int edge, int vertex) {
+		return edgeFrom[edge] == vertex || !isEdgeDirected(edge);
+	}
+
+	/**
+	 * Returns true if the edge enters this vertex (undirected edges and loops do)
+	 */
+	private boolean isEntering(int edge, int vertex) {
+		return edgeTo[edge] == vertex || !isEdgeDirected(edge);
+	}
+
+	private int getOpposite(int edge, int vertex) {
+		return edgeFrom[edge] == vertex ? edgeTo[edge] : edgeFrom[edge];
+	}
+
+	@Override
+	public Collection<String> getAllIncidentEdges(String vertexId) {
+		final int v = getExistingVertexIndex(vertexId);
+		Collection<String> res = new ArrayList<String>(degree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			res.add(getEdgeId(incidence[v][k]));
+		}
+		return res;
+	}
+
+	@Override
+	public Collection<String> getEdgesFrom(String vertexId) {
+		final int v = getExistingVertexIndex(vertexId);
+		Collection<String> res = new ArrayList<String>(outDegree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			final int e = incidence[v][k];
+			if (isLeaving(e, v))
+				res.add(getEdgeId(e));
+		}
+		return res;
+	}
+
+	@Override
+	public int getEdgesCountFrom(String vertexId) {
+		return outDegree[getExistingVertexIndex(vertexId)];
+	}
+
+	@Override
+	public Collection<String> getEdgesTo(String vertexId) {
+		final int v = getExistingVertexIndex(vertexId);
+		Collection<String> res = new ArrayList<String>(inDegree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			final int e = incidence[v][k];
+			if (isEntering(e, v))
+				res.add(getEdgeId(e));
+		}
+		return res;
+	}
+
+	@Override
+	public int getEdgesCountTo(String vertexId) {
+		return inDegree[getExistingVertexIndex(vertexId)];
+	}
+
+	@Override
+	public Collection<String> getNeighboors(String vertexId) {
+
+		final int v = getExistingVertexIndex(vertexId);
+
+		if (degree[v] == 0)	// quick exit
+			return Collections.emptyList();
+
+		Collection<String> res = new ArrayList<String>(degree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			res.add(getVertexId(getOpposite(incidence[v][k], v)));
+		}
+		return res;
+	}
+
+	@Override
+	public int getNeighboorsCount(String vertexId) {
+		return degree[getExistingVertexIndex(vertexId)];
+	}
+
+	@Override
+	public Collection<String> getInNeighboors(String vertexId) {
+		final int v = getExistingVertexIndex(vertexId);
+		Collection<String> res = new ArrayList<String>(inDegree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			final int e = incidence[v][k];
+			if (isEntering(e, v))
+				res.add(getVertexId(getOpposite(e, v)));
+		}
+		return res;
+	}
+
+	@Override
+	public Collection<String> getOutNeighboors(String vertexId) {
+		final int v = getExistingVertexIndex(vertexId);
+		Collection<String> res = new ArrayList<String>(outDegree[v]);
+		for (int k=0; k<degree[v]; k++) {
+			final int e = incidence[v][k];
+			if (isLeaving(e, v))
+				res.add(getVertexId(getOpposite(e, v)));
+		}
+		return res;
+	}
+
+	@Override
+	public int getDegree(String nodeId) {
+		return degree[getExistingVertexIndex(nodeId)];
+	}
+
+	@Override
+	public int getInDegree(String nodeId) {
+		return inDegree[getExistingVertexIndex(nodeId)];
+	}
+
+	@Override
+	public int getOutDegree(String nodeId) {
+		return outDegree[getExistingVertexIndex(nodeId)];
+	}
+
+	// --- access by index ---
+
+	private static final int[] ensureBuffer(int[] buffer, int size) {
+		if (buffer == null || buffer.length < size)
+			return new int[Math.max(size, 16)];
+		return buffer;
+	}
+
+	@Override
+	public int getEdgeVertexFromIndex(int edgeIndex) {
+		return edgeFrom[edgeIndex];
+	}
+
+	@Override
+	public int getEdgeVertexToIndex(int edgeIndex) {
+		return edgeTo[edgeIndex];
+	}
+
+	@Override
+	public int getEdgeOtherVertexIndex(int edgeIndex, int vertexIndex) {
+		return getOpposite(edgeIndex, vertexIndex);
+	}
+
+	@Override
+	public int getDegree(int vertexIndex) {
+		return degree[vertexIndex];
+	}
+
+	@Override
+	public int getInDegree(int vertexIndex) {
+		return inDegree[vertexIndex];
+	}
+
+	@Override
+	public int getOutDegree(int vertexIndex) {
+		return outDegree[vertexIndex];
+	}
+
+	@Override
+	public int[] getDegrees() {
+		return Arrays.copyOf(degree, verticesCount);
+	}
+
+	@Override
+	public int[] getIncidentEdgesIndices(int vertexIndex, int[] buffer) {
+		final int d = degree[vertexIndex];
+		buffer = ensureBuffer(buffer, d);
+		if (d > 0)
+			System.arraycopy(incidence[vertexIndex], 0, buffer, 0, d);
+		return buffer;
+	}
+
+	@Override
+	public int[] getNeighboorsIndices(int vertexIndex, int[] buffer) {
+		final int d = degree[vertexIndex];
+		buffer = ensureBuffer(buffer, d);
+		final int[] edges = incidence[vertexIndex];
+		for (int k=0; k<d; k++)
+			buffer[k] = getOpposite(edges[k], vertexIndex);
+		return buffer;
+	}
+
+	@Override
+	public int[] getOutNeighboorsIndices(int vertexIndex, int[] buffer) {
+		buffer = ensureBuffer(buffer, outDegree[vertexIndex]);
+		final int[] edges = incidence[vertexIndex];
+		int count = 0;
+		for (int k=0; k<degree[vertexIndex]; k++) {
+			if (isLeaving(edges[k], vertexIndex))
+				buffer[count++] = getOpposite(edges[k], vertexIndex);
+		}
+		return buffer;
+	}
+
+	@Override
+	public int[] getInNeighboorsIndices(int vertexIndex, int[] buffer) {
+		buffer = ensureBuffer(buffer, inDegree[vertexIndex]);
+		final int[] edges = incidence[vertexIndex];
+		int count = 0;
+		for (int k=0; k<degree[vertexIndex]; k++) {
+			if (isEntering(edges[k], vertexIndex))
+				buffer[count++] = getOpposite(edges[k], vertexIndex);
+		}
+		return buffer;
+	}
+
+	@Override
+	public Object getVertexAttributeValue(int vertexIndex, String attributeId) {
+		if (attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL))
+			return degree[vertexIndex];
+		if (attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN))
+			return inDegree[vertexIndex];
+		if (attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT))
+			return outDegree[vertexIndex];
+		final AttributeColumn column = vertexColumns.get(attributeId);
+		return column == null ? null : column.get(vertexIndex);
+	}
+
+	@Override
+	public void setVertexAttribute(int vertexIndex, String attributeId, Object value) {
+		if (vertexIndex < 0 || vertexIndex >= verticesCount)
+			throw new WrongParametersException("no vertex at index "+vertexIndex);
+		final AttributeColumn column = getVertexColumnForWrite(attributeId);
+		column.set(vertexIndex, checkValue(column.getType(), attributeId, value));
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(int edgeIndex, String attributeId) {
+		final AttributeColumn column = edgeColumns.get(attributeId);
+		return column == null ? null : column.get(edgeIndex);
+	}
+
+	@Override
+	public void setEdgeAttribute(int edgeIndex, String attributeId, Object value) {
+		if (edgeIndex < 0 || edgeIndex >= edgesCount)
+			throw new WrongParametersException("no edge at index "+edgeIndex);
+		final AttributeColumn column = getEdgeColumnForWrite(attributeId);
+		column.set(edgeIndex, checkValue(column.getType(), attributeId, value));
+	}
+
+	@Override
+	public Object[] getVertexAttributeValues(String attributeId) {
+		if (isComputedVertexAttribute(attributeId)) {
+			Object[] res = new Object[verticesCount];
+			for (int i=0; i<verticesCount; i++)
+				res[i] = getVertexAttributeValue(i, attributeId);
+			return res;
+		}
+		final AttributeColumn column = vertexColumns.get(attributeId);
+		if (column == null)
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		return column.toArray(verticesCount);
+	}
+
+	@Override
+	public double[] getVertexAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		if (isComputedVertexAttribute(attributeId)) {
+			double[] res = new double[verticesCount];
+			for (int i=0; i<verticesCount; i++)
+				res[i] = (Integer)getVertexAttributeValue(i, attributeId);
+			return res;
+		}
+		final AttributeColumn column = vertexColumns.get(attributeId);
+		if (column == null)
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		return column.toDoubles(verticesCount, missingValue);
+	}
+
+	@Override
+	public Object[] getEdgeAttributeValues(String attributeId) {
+		return getEdgeColumn(attributeId).toArray(edgesCount);
+	}
+
+	@Override
+	public double[] getEdgeAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		return getEdgeColumn(attributeId).toDoubles(edgesCount, missingValue);
+	}
+
+	// --- graph ---
+
+	@Override
+	public boolean isMultiGraph() {
+		return multiGraph;
+	}
+
+	@Override
+	public GraphDirectionality getDirectionality() {
+		return directionality;
+	}
+
+	@Override
+	public Collection<String> getEdgeTypes() {
+		return linktypes;
+	}
+
+	@Override
+	public String getEdgeType(String edgeId) {
+		return "edges";
+	}
+
+	@Override
+	public void freeze() {
+		frozen = true;
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	protected final void checkNotFrozen() {
+		if (frozen)
+			throw new ProgramException("the graph "+graphId+" is frozen, as it was passed to other algorithms; please clone it before modifying it");
+	}
+
+	@Override
+	public IGenlabGraph clone(String cloneId) {
+		if (frozen)
+			return new CopyOnWriteGraph(this, cloneId);
+		return deepClone(cloneId);
+	}
+
+	/**
+	 * Returns a copy of all the arrays of this graph
+	 * @param cloneId
+	 * @return
+	 */
+	protected CompactGraph deepClone(String cloneId) {
+
+		CompactGraph clone = new CompactGraph();
+		clone.graphId = cloneId;
+		clone.directionality = directionality;
+		clone.multiGraph = multiGraph;
+		clone.ignoreGraphAttributeErrors = ignoreGraphAttributeErrors;
+
+		// vertices
+		final int vertices = Math.max(verticesCount, 1);
+		clone.verticesCount = verticesCount;
+		clone.vertexIds = Arrays.copyOf(vertexIds, vertices);
+		clone.explicitVertexIds = explicitVertexIds.copy();
+		clone.incidence = new int[vertices][];
+		for (int i=0; i<verticesCount; i++) {
+			if (incidence[i] != null)
+				clone.incidence[i] = Arrays.copyOf(incidence[i], Math.max(degree[i], 1));
+		}
+		clone.degree = Arrays.copyOf(degree, vertices);
+		clone.inDegree = Arrays.copyOf(inDegree, vertices);
+		clone.outDegree = Arrays.copyOf(outDegree, vertices);
+
+		// edges
+		final int edges = Math.max(edgesCount, 1);
+		clone.edgesCount = edgesCount;
+		clone.edgeFrom = Arrays.copyOf(edgeFrom, edges);
+		clone.edgeTo = Arrays.copyOf(edgeTo, edges);
+		clone.edgeIds = Arrays.copyOf(edgeIds, edges);
+		clone.explicitEdgeIds = explicitEdgeIds.copy();
+		clone.edgeDirected = edgeDirected == null ? null : (BitSet)edgeDirected.clone();
+
+		// attributes
+		clone.graphAttribute2type.putAll(graphAttribute2type);
+		clone.vertexAttributes2type.putAll(vertexAttributes2type);
+		clone.edgeAttributes2type.putAll(edgeAttributes2type);
+		clone.graphAttributes.putAll(graphAttributes);
+		for (Entry<String,AttributeColumn> e: vertexColumns.entrySet())
+			clone.vertexColumns.put(e.getKey(), e.getValue().copy(vertices));
+		for (Entry<String,AttributeColumn> e: edgeColumns.entrySet())
+			clone.edgeColumns.put(e.getKey(), e.getValue().copy(edges));
+
+		return clone;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void addAll(IGenlabGraph otherGraph, boolean copyGraphAttributes,
+			boolean copyNodeAttributes, boolean copyEdgesAttributes) {
+
+		checkNotFrozen();
+
+		// copy graph attributes
+		if (copyGraphAttributes) {
+			Map<String,Class> types = otherGraph.getDeclaredGraphAttributesAndTypes();
+			Map<String,Object> attributes = otherGraph.getGraphAttributes();
+			for (String key: attributes.keySet()) {
+
+				if (hasGraphAttribute(key))
+					continue;
+
+				declareGraphAttribute(key, types.get(key));
+				setGraphAttribute(key, attributes.get(key));
+			}
+		}
+
+		// copy node attributes
+		if (copyNodeAttributes) {
+			Map<String,Class> attributes = otherGraph.getDeclaredVertexAttributesAndTypes();
+			for (String key: attributes.keySet()) {
+
+				if (hasVertexAttribute(key))
+					continue;
+
+				declareVertexAttribute(key, attributes.get(key));
+			}
+		}
+		// copy edge attributes
+		if (copyEdgesAttributes) {
+			Map<String,Class> attributes = otherGraph.getDeclaredEdgeAttributesAndTypes();
+			for (String key: attributes.keySet()) {
+
+				if (hasEdgeAttribute(key))
+					continue;
+
+				declareEdgeAttribute(key, attributes.get(key));
+			}
+		}
+
+		ensureVerticesCapacity(verticesCount+(int)otherGraph.getVerticesCount());
+		ensureEdgesCapacity(edgesCount+(int)otherGraph.getEdgesCount());
+
+		// copy nodes
+		Map<String,Integer> other2thisIndex = new HashMap<String, Integer>((int)otherGraph.getVerticesCount()*2);
+		for (String nodeId: otherGraph.getVertices()) {
+			final String createdId = addVertex();
+			final int created = verticesCount-1;
+			other2thisIndex.put(nodeId, created);
+			if (copyNodeAttributes) {
+				for (Map.Entry<String,Object> attValue : otherGraph.getVertexAttributes(nodeId).entrySet()) {
+					if (isComputedVertexAttribute(attValue.getKey()))
+						continue;
+					setVertexAttribute(createdId, attValue.getKey(), attValue.getValue());
+				}
+			}
+		}
+
+		// copy edges
+		for (String edgeId: otherGraph.getEdges()) {
+
+			final int from = other2thisIndex.get(otherGraph.getEdgeVertexFrom(edgeId));
+			final int to = other2thisIndex.get(otherGraph.getEdgeVertexTo(edgeId));
+
+			final String createdEdgeId = addEdge(getVertexId(from), getVertexId(to), otherGraph.isEdgeDirected(edgeId));
+
+			if (copyEdgesAttributes) {
+				for (Map.Entry<String,Object> attValue : otherGraph.getEdgeAttributes(edgeId).entrySet()) {
+					setEdgeAttribute(createdEdgeId, attValue.getKey(), attValue.getValue());
+				}
+			}
+		}
+
+	}
+
+	@Override
+	public String toString() {
+
+		StringBuffer sb = new StringBuffer();
+
+		if (isMultiGraph())
+			sb.append("multiplex");
+		else
+			sb.append("simple");
+
+		sb.append(" compact graph with ");
+		sb.append(getVerticesCount()).append(" vertices and ").append(getEdgesCount()).append(" edges.\n");
+		sb.append("\t- vertex attributes: ");
+		sb.append(vertexAttributes2type.keySet());
+		sb.append("\n\t- edge attributes: ");
+		sb.append(edgeAttributes2type.keySet());
+		sb.append("\n");
+		return sb.toString();
+	}
+
+	// --- serialization ---
+
+	@SuppressWarnings("rawtypes")
+	private static void writeTypes(WireOutput out, Map<String,Class> attribute2type) {
+		out.writeVarInt(attribute2type.size());
+		for (Map.Entry<String,Class> e: attribute2type.entrySet()) {
+			out.writeInternedString(e.getKey());
+			out.writeInternedString(e.getValue().getName());
+		}
+	}
+
+	/**
+	 * Reads the declared attributes, in the order they were written (which is the order of the columns)
+	 */
+	@SuppressWarnings("rawtypes")
+	private static Map<String,Class> readTypes(WireInput in) throws IOException {
+		final int count = in.readVarInt();
+		Map<String,Class> res = new LinkedHashMap<String, Class>(count*2);
+		for (int i=0; i<count; i++) {
+			final String attributeId = in.readInternedString();
+			res.put(attributeId, in.readClass());
+		}
+		return res;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+
+		WireOutput wire = new WireOutput(64 + verticesCount*2 + edgesCount*4);
+
+		wire.writeString(graphId);
+		wire.writeByte(directionality.ordinal());
+		wire.writeBoolean(multiGraph);
+
+		// declarations
+		writeTypes(wire, graphAttribute2type);
+		writeTypes(wire, vertexAttributes2type);
+		writeTypes(wire, edgeAttributes2type);
+
+		// graph attributes
+		for (String a: graphAttribute2type.keySet()) {
+			wire.writeValue(graphAttributes.get(a));
+		}
+
+		// vertices (only the ids which are not the default ones)
+		wire.writeVarInt(verticesCount);
+		wire.writeVarInt(explicitVertexIds.size());
+		for (int i=0; i<verticesCount; i++) {
+			if (vertexIds[i] != null) {
+				wire.writeVarInt(i);
+				wire.writeString(vertexIds[i]);
+			}
+		}
+		for (String a: vertexAttributes2type.keySet()) {
+			final AttributeColumn column = vertexColumns.get(a);
+			if (column == null)
+				continue;
+			for (int i=0; i<verticesCount; i++)
+				wire.writeValue(column.get(i));
+		}
+
+		// edges, delta-encoded, and their ids when not the default ones
+		wire.writeVarInt(edgesCount);
+		int previousSource = 0;
+		for (int i=0; i<edgesCount; i++) {
+			wire.writeSignedVarInt(edgeFrom[i]-previousSource);
+			wire.writeSignedVarInt(edgeTo[i]-edgeFrom[i]);
+			if (edgeDirected != null)
+				wire.writeBoolean(edgeDirected.get(i));
+			previousSource = edgeFrom[i];
+		}
+		wire.writeVarInt(explicitEdgeIds.size());
+		for (int i=0; i<edgesCount; i++) {
+			if (edgeIds[i] != null) {
+				wire.writeVarInt(i);
+				wire.writeString(edgeIds[i]);
+			}
+		}
+		for (String a: edgeAttributes2type.keySet()) {
+			final AttributeColumn column = edgeColumns.get(a);
+			for (int i=0; i<edgesCount; i++)
+				wire.writeValue(column.get(i));
+		}
+
+		WireFormat.writeBlock(out, wire);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void readExternal(ObjectInput in) throws IOException,
+			ClassNotFoundException {
+
+		WireInput wire = WireFormat.readBlock(in);
+
+		graphId = wire.readString();
+		directionality = GraphDirectionality.values()[wire.readByte()];
+		multiGraph = wire.readBoolean();
+
+		graphAttribute2type = readTypes(wire);
+		vertexAttributes2type = readTypes(wire);
+		edgeAttributes2type = readTypes(wire);
+
+		graphAttributes = new HashMap<String, Object>();
+		for (String a: graphAttribute2type.keySet()) {
+			final Object value = wire.readValue();
+			if (value != null)
+				graphAttributes.put(a, value);
+		}
+
+		// vertices
+		final int countVertices = wire.readVarInt();
+		allocate(countVertices, 1);
+		final int countExplicitVertices = wire.readVarInt();
+		for (int k=0; k<countExplicitVertices; k++) {
+			final int index = wire.readVarInt();
+			final String id = wire.readString();
+			vertexIds[index] = id;
+			explicitVertexIds.put(id, index);
+		}
+		verticesCount = countVertices;
+		vertexColumns = new HashMap<String, AttributeColumn>();
+		for (Entry<String,Class> e: vertexAttributes2type.entrySet()) {
+			if (isComputedVertexAttribute(e.getKey()))
+				continue;
+			final AttributeColumn column = new AttributeColumn(e.getValue(), vertexIds.length);
+			for (int i=0; i<countVertices; i++) {
+				final Object value = wire.readValue();
+				if (value != null)
+					column.set(i, value);
+			}
+			vertexColumns.put(e.getKey(), column);
+		}
+
+		// edges
+		final int countEdges = wire.readVarInt();
+		ensureEdgesCapacity(countEdges);
+		final boolean directed = directionality == GraphDirectionality.DIRECTED;
+		int source = 0;
+		for (int i=0; i<countEdges; i++) {
+			source += wire.readSignedVarInt();
+			final int target = source + wire.readSignedVarInt();
+			addEdgeInternal(null, source, target, edgeDirected != null ? wire.readBoolean() : directed);
+		}
+		final int countExplicitEdges = wire.readVarInt();
+		for (int k=0; k<countExplicitEdges; k++) {
+			final int index = wire.readVarInt();
+			final String id = wire.readString();
+			edgeIds[index] = id;
+			explicitEdgeIds.put(id, index);
+		}
+		edgeColumns = new HashMap<String, AttributeColumn>();
+		for (Entry<String,Class> e: edgeAttributes2type.entrySet()) {
+			final AttributeColumn column = new AttributeColumn(e.getValue(), edgeFrom.length);
+			for (int i=0; i<countEdges; i++) {
+				final Object value = wire.readValue();
+				if (value != null)
+					column.set(i, value);
+			}
+			edgeColumns.put(e.getKey(), column);
+		}
+
+	}
+
+}
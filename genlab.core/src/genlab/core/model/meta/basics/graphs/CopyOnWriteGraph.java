@@ -0,0 +1,937 @@
+package genlab.core.model.meta.basics.graphs;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WrongParametersException;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Clone of a frozen graph, which shares the vertices, edges and attributes of its parent
+ * until they are modified:
+ * <ul>
+ * <li>the attributes declared and the values set on the clone are stored on the side, attribute by attribute,
+ * and read before the ones of the parent;</li>
+ * <li>the first modification of the vertices or edges copies the parent (as a standard clone would), then
+ * applies the attributes stored so far; the clone then delegates everything to this copy.</li>
+ * </ul>
+ * So an algorithm which clones its input graph only to add a measure as an attribute only stores this attribute.
+ *
+ * The parent being frozen, several clones of it may be used in parallel. Not thread safe otherwise.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+@SuppressWarnings("serial")
+public class CopyOnWriteGraph implements IGenlabGraph, Serializable {
+
+	/**
+	 * The frozen graph read for everything not modified in this clone; null once copied
+	 */
+	protected IGenlabGraph parent;
+
+	/**
+	 * The copy of the parent, once vertices or edges were modified
+	 */
+	protected IGenlabGraph copy = null;
+
+	protected final String graphId;
+
+	protected boolean frozen = false;
+
+	// attributes of this clone (until copied)
+
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> graphAttribute2type;
+	protected Map<String,Object> graphAttributes;
+
+	/**
+	 * The vertex attributes declared on this clone but not on the parent
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> addedVertexAttributes2type;
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> addedEdgeAttributes2type;
+
+	/**
+	 * For each attribute, the values set on this clone, by vertex id
+	 */
+	protected Map<String,Map<String,Object>> vertexValues;
+	protected Map<String,Map<String,Object>> edgeValues;
+
+	@SuppressWarnings("rawtypes")
+	public CopyOnWriteGraph(IGenlabGraph parent, String graphId) {
+
+		if (!parent.isFrozen())
+			throw new ProgramException("a copy-on-write clone can only be created from a frozen graph");
+
+		this.parent = parent;
+		this.graphId = graphId;
+
+		graphAttribute2type = new LinkedHashMap<String, Class>(parent.getDeclaredGraphAttributesAndTypes());
+		graphAttributes = new LinkedHashMap<String, Object>(parent.getGraphAttributes());
+		addedVertexAttributes2type = new LinkedHashMap<String, Class>();
+		addedEdgeAttributes2type = new LinkedHashMap<String, Class>();
+		vertexValues = new HashMap<String, Map<String,Object>>();
+		edgeValues = new HashMap<String, Map<String,Object>>();
+	}
+
+	/**
+	 * Clone of another clone: shares the same parent, and copies the attributes stored by the other one
+	 */
+	@SuppressWarnings("rawtypes")
+	private CopyOnWriteGraph(CopyOnWriteGraph other, String graphId) {
+
+		this.parent = other.parent;
+		this.graphId = graphId;
+
+		graphAttribute2type = new LinkedHashMap<String, Class>(other.graphAttribute2type);
+		graphAttributes = new LinkedHashMap<String, Object>(other.graphAttributes);
+		addedVertexAttributes2type = new LinkedHashMap<String, Class>(other.addedVertexAttributes2type);
+		addedEdgeAttributes2type = new LinkedHashMap<String, Class>(other.addedEdgeAttributes2type);
+		vertexValues = copyValues(other.vertexValues);
+		edgeValues = copyValues(other.edgeValues);
+	}
+
+	private static Map<String,Map<String,Object>> copyValues(Map<String,Map<String,Object>> values) {
+		Map<String,Map<String,Object>> res = new HashMap<String, Map<String,Object>>(values.size()*2);
+		for (Entry<String,Map<String,Object>> e: values.entrySet())
+			res.put(e.getKey(), new HashMap<String, Object>(e.getValue()));
+		return res;
+	}
+
+	/**
+	 * Returns a copy of this graph which shares nothing with it.
+	 * @param graph
+	 * @param graphId
+	 * @return
+	 */
+	protected static IGenlabGraph copyOf(IGenlabGraph graph, String graphId) {
+		if (graph instanceof AbstractGraphstreamBasedGraph)
+			return ((AbstractGraphstreamBasedGraph)graph).deepClone(graphId);
+		if (graph instanceof CompactGraph)
+			return ((CompactGraph)graph).deepClone(graphId);
+		// other implementations don't share their data
+		return graph.clone(graphId);
+	}
+
+	/**
+	 * Returns true if the vertices and edges of the parent were already copied
+	 * (then this clone does not share anything anymore)
+	 * @return
+	 */
+	public boolean isCopied() {
+		return copy != null;
+	}
+
+	/**
+	 * Returns the parent with the attributes of this clone applied on it
+	 */
+	@SuppressWarnings("rawtypes")
+	protected IGenlabGraph buildCopy() {
+
+		IGenlabGraph res = copyOf(parent, graphId);
+
+		for (Entry<String,Class> e: graphAttribute2type.entrySet()) {
+			if (!res.hasGraphAttribute(e.getKey()))
+				res.declareGraphAttribute(e.getKey(), e.getValue());
+		}
+		for (Entry<String,Object> e: graphAttributes.entrySet())
+			res.setGraphAttribute(e.getKey(), e.getValue());
+
+		for (Entry<String,Class> e: addedVertexAttributes2type.entrySet())
+			res.declareVertexAttribute(e.getKey(), e.getValue());
+		for (Entry<String,Map<String,Object>> e: vertexValues.entrySet()) {
+			for (Entry<String,Object> v: e.getValue().entrySet())
+				res.setVertexAttribute(v.getKey(), e.getKey(), v.getValue());
+		}
+
+		for (Entry<String,Class> e: addedEdgeAttributes2type.entrySet())
+			res.declareEdgeAttribute(e.getKey(), e.getValue());
+		for (Entry<String,Map<String,Object>> e: edgeValues.entrySet()) {
+			for (Entry<String,Object> v: e.getValue().entrySet())
+				res.setEdgeAttribute(v.getKey(), e.getKey(), v.getValue());
+		}
+
+		return res;
+	}
+
+	protected final void checkNotFrozen() {
+		if (frozen)
+			throw new ProgramException("the graph "+graphId+" is frozen, as it was passed to other algorithms; please clone it before modifying it");
+	}
+
+	/**
+	 * Returns the graph to read vertices and edges from
+	 */
+	protected final IGenlabGraph read() {
+		return copy == null ? parent : copy;
+	}
+
+	/**
+	 * Copies the parent (if not done yet) and returns this copy, so the vertices or edges can be modified
+	 */
+	protected final IGenlabGraph write() {
+		checkNotFrozen();
+		if (copy == null) {
+			copy = buildCopy();
+			parent = null;
+			graphAttribute2type = null;
+			graphAttributes = null;
+			addedVertexAttributes2type = null;
+			addedEdgeAttributes2type = null;
+			vertexValues = null;
+			edgeValues = null;
+		}
+		return copy;
+	}
+
+	/**
+	 * When serialized, the graph is replaced by an independant copy
+	 */
+	protected Object writeReplace() throws ObjectStreamException {
+		return copy == null ? buildCopy() : copy;
+	}
+
+	// --- attributes ---
+
+	@SuppressWarnings("rawtypes")
+	protected Class getVertexAttributeType(String attributeId) {
+		Class type = addedVertexAttributes2type.get(attributeId);
+		if (type == null)
+			type = parent.getDeclaredVertexAttributesAndTypes().get(attributeId);
+		if (type == null)
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		return type;
+	}
+
+	@SuppressWarnings("rawtypes")
+	protected Class getEdgeAttributeType(String attributeId) {
+		Class type = addedEdgeAttributes2type.get(attributeId);
+		if (type == null)
+			type = parent.getDeclaredEdgeAttributesAndTypes().get(attributeId);
+		if (type == null)
+			throw new WrongParametersException("no edge attribute "+attributeId+" defined for this graph");
+		return type;
+	}
+
+	private static Map<String,Object> getOrCreate(Map<String,Map<String,Object>> values, String attributeId) {
+		Map<String,Object> res = values.get(attributeId);
+		if (res == null) {
+			res = new HashMap<String, Object>();
+			values.put(attributeId, res);
+		}
+		return res;
+	}
+
+	@Override
+	public String getGraphId() {
+		return graphId;
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareGraphAttribute(String attributeId, Class type) {
+		if (copy != null) {
+			write().declareGraphAttribute(attributeId, type);
+			return;
+		}
+		checkNotFrozen();
+		if (graphAttribute2type.containsKey(attributeId))
+			throw new WrongParametersException("a graph attribute "+attributeId+" was already declared for this graph");
+		graphAttribute2type.put(attributeId, type);
+	}
+
+	@Override
+	public boolean hasGraphAttribute(String attribute) {
+		if (copy != null)
+			return copy.hasGraphAttribute(attribute);
+		return graphAttribute2type.containsKey(attribute);
+	}
+
+	@Override
+	public Collection<String> getDeclaredGraphAttributes() {
+		if (copy != null)
+			return copy.getDeclaredGraphAttributes();
+		return Collections.unmodifiableCollection(graphAttribute2type.keySet());
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredGraphAttributesAndTypes() {
+		if (copy != null)
+			return copy.getDeclaredGraphAttributesAndTypes();
+		return Collections.unmodifiableMap(graphAttribute2type);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void setGraphAttribute(String attributeId, Object value) {
+		if (copy != null) {
+			write().setGraphAttribute(attributeId, value);
+			return;
+		}
+		checkNotFrozen();
+		final Class type = graphAttribute2type.get(attributeId);
+		if (type == null)
+			throw new WrongParametersException("no graph attribute "+attributeId+" defined for this graph");
+		if (!type.isInstance(value))
+			throw new WrongParametersException("type "+type.getSimpleName()+" is expected for attribute "+attributeId);
+		graphAttributes.put(attributeId, value);
+	}
+
+	@Override
+	public Object getGraphAttribute(String attributeId) {
+		if (copy != null)
+			return copy.getGraphAttribute(attributeId);
+		return graphAttributes.get(attributeId);
+	}
+
+	@Override
+	public Map<String, Object> getGraphAttributes() {
+		if (copy != null)
+			return copy.getGraphAttributes();
+		return Collections.unmodifiableMap(graphAttributes);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareVertexAttribute(String attributeId, Class type) {
+		if (copy != null) {
+			write().declareVertexAttribute(attributeId, type);
+			return;
+		}
+		checkNotFrozen();
+		if (hasVertexAttribute(attributeId))
+			throw new WrongParametersException("a node attribute "+attributeId+" was already declared for this graph");
+		addedVertexAttributes2type.put(attributeId, type);
+	}
+
+	@Override
+	public boolean hasVertexAttribute(String attributeId) {
+		if (copy != null)
+			return copy.hasVertexAttribute(attributeId);
+		return addedVertexAttributes2type.containsKey(attributeId) || parent.hasVertexAttribute(attributeId);
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public void declareEdgeAttribute(String attributeId, Class type) {
+		if (copy != null) {
+			write().declareEdgeAttribute(attributeId, type);
+			return;
+		}
+		checkNotFrozen();
+		if (hasEdgeAttribute(attributeId))
+			throw new WrongParametersException("an edge attribute "+attributeId+" was already declared for this graph");
+		addedEdgeAttributes2type.put(attributeId, type);
+	}
+
+	@Override
+	public boolean hasEdgeAttribute(String attributeId) {
+		if (copy != null)
+			return copy.hasEdgeAttribute(attributeId);
+		return addedEdgeAttributes2type.containsKey(attributeId) || parent.hasEdgeAttribute(attributeId);
+	}
+
+	@Override
+	public Collection<String> getDeclaredVertexAttributes() {
+		return getDeclaredVertexAttributesAndTypes().keySet();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredVertexAttributesAndTypes() {
+		if (copy != null)
+			return copy.getDeclaredVertexAttributesAndTypes();
+		if (addedVertexAttributes2type.isEmpty())
+			return parent.getDeclaredVertexAttributesAndTypes();
+		Map<String,Class> res = new LinkedHashMap<String, Class>(parent.getDeclaredVertexAttributesAndTypes());
+		res.putAll(addedVertexAttributes2type);
+		return Collections.unmodifiableMap(res);
+	}
+
+	@Override
+	public Collection<String> getDeclaredEdgeAttributes() {
+		return getDeclaredEdgeAttributesAndTypes().keySet();
+	}
+
+	@Override
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredEdgeAttributesAndTypes() {
+		if (copy != null)
+			return copy.getDeclaredEdgeAttributesAndTypes();
+		if (addedEdgeAttributes2type.isEmpty())
+			return parent.getDeclaredEdgeAttributesAndTypes();
+		Map<String,Class> res = new LinkedHashMap<String, Class>(parent.getDeclaredEdgeAttributesAndTypes());
+		res.putAll(addedEdgeAttributes2type);
+		return Collections.unmodifiableMap(res);
+	}
+
+	@Override
+	public Map<String, Object> getVertexAttributes(String vertexId) {
+		if (copy != null)
+			return copy.getVertexAttributes(vertexId);
+		final Map<String,Object> values = parent.getVertexAttributes(vertexId);
+		if (vertexValues.isEmpty())
+			return values;
+		Map<String,Object> res = new HashMap<String, Object>(values);
+		for (Entry<String,Map<String,Object>> e: vertexValues.entrySet()) {
+			final Object value = e.getValue().get(vertexId);
+			if (value != null)
+				res.put(e.getKey(), value);
+		}
+		return res;
+	}
+
+	@Override
+	public Map<String, Object> getEdgeAttributes(String edgeId) {
+		if (copy != null)
+			return copy.getEdgeAttributes(edgeId);
+		final Map<String,Object> values = parent.getEdgeAttributes(edgeId);
+		if (edgeValues.isEmpty())
+			return values;
+		Map<String,Object> res = new HashMap<String, Object>(values);
+		for (Entry<String,Map<String,Object>> e: edgeValues.entrySet()) {
+			final Object value = e.getValue().get(edgeId);
+			if (value != null)
+				res.put(e.getKey(), value);
+		}
+		return res;
+	}
+
+	@Override
+	public Object getVertexAttributeValue(String vertexId, String attributeName) {
+		if (copy != null)
+			return copy.getVertexAttributeValue(vertexId, attributeName);
+		final Map<String,Object> values = vertexValues.get(attributeName);
+		if (values != null) {
+			final Object value = values.get(vertexId);
+			if (value != null)
+				return value;
+		}
+		return parent.getVertexAttributeValue(vertexId, attributeName);
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(String edgeId, String attributeId) {
+		if (copy != null)
+			return copy.getEdgeAttributeValue(edgeId, attributeId);
+		final Map<String,Object> values = edgeValues.get(attributeId);
+		if (values != null) {
+			final Object value = values.get(edgeId);
+			if (value != null)
+				return value;
+		}
+		return parent.getEdgeAttributeValue(edgeId, attributeId);
+	}
+
+	@Override
+	public void setVertexAttribute(String vertexId, String attributeId, Object value) {
+		if (copy != null) {
+			write().setVertexAttribute(vertexId, attributeId, value);
+			return;
+		}
+		checkNotFrozen();
+		if (CompactGraph.isComputedVertexAttribute(attributeId))
+			throw new WrongParametersException("cannot modify the degree attribute '"+attributeId+"' of a node without adding or removing an edge");
+		if (!parent.containsVertex(vertexId))
+			throw new WrongParametersException("no vertex "+vertexId+" declared");
+		getOrCreate(vertexValues, attributeId).put(
+				vertexId,
+				CompactGraph.checkValue(getVertexAttributeType(attributeId), attributeId, value)
+				);
+	}
+
+	@Override
+	public void setVertexAttributes(String vertexId, Map<String, Object> values) {
+		for (Entry<String,Object> e: values.entrySet())
+			setVertexAttribute(vertexId, e.getKey(), e.getValue());
+	}
+
+	@Override
+	public void setEdgeAttribute(String edgeId, String attributeId, Object value) {
+		if (copy != null) {
+			write().setEdgeAttribute(edgeId, attributeId, value);
+			return;
+		}
+		checkNotFrozen();
+		if (!parent.containsEdge(edgeId))
+			throw new WrongParametersException("no edge "+edgeId+" declared");
+		getOrCreate(edgeValues, attributeId).put(
+				edgeId,
+				CompactGraph.checkValue(getEdgeAttributeType(attributeId), attributeId, value)
+				);
+	}
+
+	@Override
+	public void setEdgeAttributes(String edgeId, Map<String, Object> values) {
+		for (Entry<String,Object> e: values.entrySet())
+			setEdgeAttribute(edgeId, e.getKey(), e.getValue());
+	}
+
+	@Override
+	public boolean isVertexAttributed() {
+		if (copy != null)
+			return copy.isVertexAttributed();
+		return parent.isVertexAttributed() || !addedVertexAttributes2type.isEmpty();
+	}
+
+	@Override
+	public boolean isEdgeAttributed() {
+		if (copy != null)
+			return copy.isEdgeAttributed();
+		return parent.isEdgeAttributed() || !addedEdgeAttributes2type.isEmpty();
+	}
+
+	// --- modification of vertices and edges: copies the parent ---
+
+	@Override
+	public String addVertex() {
+		return write().addVertex();
+	}
+
+	@Override
+	public void addVertex(String id) {
+		write().addVertex(id);
+	}
+
+	@Override
+	public boolean removeVertex(String id) {
+		return write().removeVertex(id);
+	}
+
+	@Override
+	public boolean removeVertex(int index) {
+		return write().removeVertex(index);
+	}
+
+	@Override
+	public void addEdge(String id, String vertexIdFrom, String vertexIdTo) {
+		write().addEdge(id, vertexIdFrom, vertexIdTo);
+	}
+
+	@Override
+	public String addEdge(String vertexIdFrom, String vertexIdTo, boolean directed) {
+		return write().addEdge(vertexIdFrom, vertexIdTo, directed);
+	}
+
+	@Override
+	public void addEdge(String id, String vertexIdFrom, String vertexIdTo, boolean directed) {
+		write().addEdge(id, vertexIdFrom, vertexIdTo, directed);
+	}
+
+	@Override
+	public boolean removeEdge(String id) {
+		return write().removeEdge(id);
+	}
+
+	@Override
+	public boolean removeEdge(int index) {
+		return write().removeEdge(index);
+	}
+
+	@Override
+	public void addAll(IGenlabGraph otherGraph, boolean copyGraphAttributes,
+			boolean copyNodeAttributes, boolean copyEdgesAttributes) {
+		write().addAll(otherGraph, copyGraphAttributes, copyNodeAttributes, copyEdgesAttributes);
+	}
+
+	// --- reading of vertices and edges ---
+
+	@Override
+	public long getVerticesCount() {
+		return read().getVerticesCount();
+	}
+
+	@Override
+	public long getEdgesCount() {
+		return read().getEdgesCount();
+	}
+
+	@Override
+	public String getVertex(int index) {
+		return read().getVertex(index);
+	}
+
+	@Override
+	public List<String> getVertices() {
+		return read().getVertices();
+	}
+
+	@Override
+	public boolean containsEdge(String vertexFrom, String vertexTo) {
+		return read().containsEdge(vertexFrom, vertexTo);
+	}
+
+	@Override
+	public boolean containsEdge(String edgeId) {
+		return read().containsEdge(edgeId);
+	}
+
+	@Override
+	public String getEdge(int index) {
+		return read().getEdge(index);
+	}
+
+	@Override
+	public boolean isMultiGraph() {
+		return read().isMultiGraph();
+	}
+
+	@Override
+	public GraphDirectionality getDirectionality() {
+		return read().getDirectionality();
+	}
+
+	@Override
+	public boolean containsVertex(String vertexId) {
+		return read().containsVertex(vertexId);
+	}
+
+	@Override
+	public Collection<String> getAllIncidentEdges(String vertexId) {
+		return read().getAllIncidentEdges(vertexId);
+	}
+
+	@Override
+	public Collection<String> getEdgesFrom(String vertexId) {
+		return read().getEdgesFrom(vertexId);
+	}
+
+	@Override
+	public int getEdgesCountFrom(String vertexId) {
+		return read().getEdgesCountFrom(vertexId);
+	}
+
+	@Override
+	public Collection<String> getEdgesTo(String vertexId) {
+		return read().getEdgesTo(vertexId);
+	}
+
+	@Override
+	public int getEdgesCountTo(String vertexId) {
+		return read().getEdgesCountTo(vertexId);
+	}
+
+	@Override
+	public Collection<String> getNeighboors(String vertexId) {
+		return read().getNeighboors(vertexId);
+	}
+
+	@Override
+	public int getNeighboorsCount(String vertexId) {
+		return read().getNeighboorsCount(vertexId);
+	}
+
+	@Override
+	public Collection<String> getInNeighboors(String vertexId) {
+		return read().getInNeighboors(vertexId);
+	}
+
+	@Override
+	public Collection<String> getOutNeighboors(String vertexId) {
+		return read().getOutNeighboors(vertexId);
+	}
+
+	@Override
+	public String getEdgeOtherVertex(String edgeId, String vertex1) {
+		return read().getEdgeOtherVertex(edgeId, vertex1);
+	}
+
+	@Override
+	public String getEdgeVertexFrom(String edgeId) {
+		return read().getEdgeVertexFrom(edgeId);
+	}
+
+	@Override
+	public String getEdgeVertexTo(String edgeId) {
+		return read().getEdgeVertexTo(edgeId);
+	}
+
+	@Override
+	public boolean isEdgeDirected(String edgeId) {
+		return read().isEdgeDirected(edgeId);
+	}
+
+	@Override
+	public boolean isEdgeLoop(String edgeId) {
+		return read().isEdgeLoop(edgeId);
+	}
+
+	@Override
+	public String getEdgeBetween(String nodeId1, String nodeId2) {
+		return read().getEdgeBetween(nodeId1, nodeId2);
+	}
+
+	@Override
+	public Collection<String> getEdgesBetween(String nodeId1, String nodeId2) {
+		return read().getEdgesBetween(nodeId1, nodeId2);
+	}
+
+	@Override
+	public int getDegree(String nodeId) {
+		return read().getDegree(nodeId);
+	}
+
+	@Override
+	public int getInDegree(String nodeId) {
+		return read().getInDegree(nodeId);
+	}
+
+	@Override
+	public int getOutDegree(String nodeId) {
+		return read().getOutDegree(nodeId);
+	}
+
+	@Override
+	public Collection<String> getEdgeTypes() {
+		return read().getEdgeTypes();
+	}
+
+	@Override
+	public String getEdgeType(String edgeId) {
+		return read().getEdgeType(edgeId);
+	}
+
+	@Override
+	public List<String> getEdges() {
+		return read().getEdges();
+	}
+
+	// --- access by index ---
+
+	@Override
+	public int getVertexIndex(String vertexId) {
+		return read().getVertexIndex(vertexId);
+	}
+
+	@Override
+	public int getEdgeIndex(String edgeId) {
+		return read().getEdgeIndex(edgeId);
+	}
+
+	@Override
+	public int getEdgeVertexFromIndex(int edgeIndex) {
+		return read().getEdgeVertexFromIndex(edgeIndex);
+	}
+
+	@Override
+	public int getEdgeVertexToIndex(int edgeIndex) {
+		return read().getEdgeVertexToIndex(edgeIndex);
+	}
+
+	@Override
+	public int getEdgeOtherVertexIndex(int edgeIndex, int vertexIndex) {
+		return read().getEdgeOtherVertexIndex(edgeIndex, vertexIndex);
+	}
+
+	@Override
+	public boolean isEdgeDirected(int edgeIndex) {
+		return read().isEdgeDirected(edgeIndex);
+	}
+
+	@Override
+	public int getDegree(int vertexIndex) {
+		return read().getDegree(vertexIndex);
+	}
+
+	@Override
+	public int getInDegree(int vertexIndex) {
+		return read().getInDegree(vertexIndex);
+	}
+
+	@Override
+	public int getOutDegree(int vertexIndex) {
+		return read().getOutDegree(vertexIndex);
+	}
+
+	@Override
+	public int[] getDegrees() {
+		return read().getDegrees();
+	}
+
+	@Override
+	public int[] getIncidentEdgesIndices(int vertexIndex, int[] buffer) {
+		return read().getIncidentEdgesIndices(vertexIndex, buffer);
+	}
+
+	@Override
+	public int[] getNeighboorsIndices(int vertexIndex, int[] buffer) {
+		return read().getNeighboorsIndices(vertexIndex, buffer);
+	}
+
+	@Override
+	public int[] getOutNeighboorsIndices(int vertexIndex, int[] buffer) {
+		return read().getOutNeighboorsIndices(vertexIndex, buffer);
+	}
+
+	@Override
+	public int[] getInNeighboorsIndices(int vertexIndex, int[] buffer) {
+		return read().getInNeighboorsIndices(vertexIndex, buffer);
+	}
+
+	@Override
+	public Object getVertexAttributeValue(int vertexIndex, String attributeId) {
+		if (copy != null)
+			return copy.getVertexAttributeValue(vertexIndex, attributeId);
+		final Map<String,Object> values = vertexValues.get(attributeId);
+		if (values != null) {
+			final Object value = values.get(parent.getVertex(vertexIndex));
+			if (value != null)
+				return value;
+		}
+		return parent.getVertexAttributeValue(vertexIndex, attributeId);
+	}
+
+	@Override
+	public void setVertexAttribute(int vertexIndex, String attributeId, Object value) {
+		if (copy != null) {
+			write().setVertexAttribute(vertexIndex, attributeId, value);
+			return;
+		}
+		setVertexAttribute(parent.getVertex(vertexIndex), attributeId, value);
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(int edgeIndex, String attributeId) {
+		if (copy != null)
+			return copy.getEdgeAttributeValue(edgeIndex, attributeId);
+		final Map<String,Object> values = edgeValues.get(attributeId);
+		if (values != null) {
+			final Object value = values.get(parent.getEdge(edgeIndex));
+			if (value != null)
+				return value;
+		}
+		return parent.getEdgeAttributeValue(edgeIndex, attributeId);
+	}
+
+	@Override
+	public void setEdgeAttribute(int edgeIndex, String attributeId, Object value) {
+		if (copy != null) {
+			write().setEdgeAttribute(edgeIndex, attributeId, value);
+			return;
+		}
+		setEdgeAttribute(parent.getEdge(edgeIndex), attributeId, value);
+	}
+
+	@Override
+	public Object[] getVertexAttributeValues(String attributeId) {
+		if (copy != null)
+			return copy.getVertexAttributeValues(attributeId);
+		final Object[] res = addedVertexAttributes2type.containsKey(attributeId) ?
+				new Object[(int)parent.getVerticesCount()]
+				: parent.getVertexAttributeValues(attributeId);
+		final Map<String,Object> values = vertexValues.get(attributeId);
+		if (values != null) {
+			for (Entry<String,Object> e: values.entrySet())
+				res[parent.getVertexIndex(e.getKey())] = e.getValue();
+		}
+		return res;
+	}
+
+	@Override
+	public double[] getVertexAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		if (copy != null)
+			return copy.getVertexAttributeValuesAsDoubles(attributeId, missingValue);
+		final double[] res;
+		if (addedVertexAttributes2type.containsKey(attributeId)) {
+			res = new double[(int)parent.getVerticesCount()];
+			Arrays.fill(res, missingValue);
+		} else {
+			res = parent.getVertexAttributeValuesAsDoubles(attributeId, missingValue);
+		}
+		final Map<String,Object> values = vertexValues.get(attributeId);
+		if (values != null) {
+			for (Entry<String,Object> e: values.entrySet())
+				res[parent.getVertexIndex(e.getKey())] = toDouble(e.getValue(), missingValue);
+		}
+		return res;
+	}
+
+	@Override
+	public Object[] getEdgeAttributeValues(String attributeId) {
+		if (copy != null)
+			return copy.getEdgeAttributeValues(attributeId);
+		final Object[] res = addedEdgeAttributes2type.containsKey(attributeId) ?
+				new Object[(int)parent.getEdgesCount()]
+				: parent.getEdgeAttributeValues(attributeId);
+		final Map<String,Object> values = edgeValues.get(attributeId);
+		if (values != null) {
+			for (Entry<String,Object> e: values.entrySet())
+				res[parent.getEdgeIndex(e.getKey())] = e.getValue();
+		}
+		return res;
+	}
+
+	@Override
+	public double[] getEdgeAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		if (copy != null)
+			return copy.getEdgeAttributeValuesAsDoubles(attributeId, missingValue);
+		final double[] res;
+		if (addedEdgeAttributes2type.containsKey(attributeId)) {
+			res = new double[(int)parent.getEdgesCount()];
+			Arrays.fill(res, missingValue);
+		} else {
+			res = parent.getEdgeAttributeValuesAsDoubles(attributeId, missingValue);
+		}
+		final Map<String,Object> values = edgeValues.get(attributeId);
+		if (values != null) {
+			for (Entry<String,Object> e: values.entrySet())
+				res[parent.getEdgeIndex(e.getKey())] = toDouble(e.getValue(), missingValue);
+		}
+		return res;
+	}
+
+	private static final double toDouble(Object value, double missingValue) {
+		if (value instanceof Number)
+			return ((Number)value).doubleValue();
+		if (value instanceof Boolean)
+			return ((Boolean)value) ? 1 : 0;
+		return missingValue;
+	}
+
+	// --- immutability and clones ---
+
+	@Override
+	public void freeze() {
+		frozen = true;
+		if (copy != null)
+			copy.freeze();
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	@Override
+	public IGenlabGraph clone(String cloneId) {
+		if (copy != null)
+			return copy.clone(cloneId);
+		// share the same parent
+		return new CopyOnWriteGraph(this, cloneId);
+	}
+
+	@Override
+	public String toString() {
+		StringBuffer sb = new StringBuffer();
+		sb.append("copy-on-write clone ");
+		if (copy == null) {
+			sb.append("of ").append(parent.getGraphId());
+			sb.append(" (").append(vertexValues.size()+edgeValues.size()).append(" attributes modified)");
+		} else {
+			sb.append("(copied): ").append(copy);
+		}
+		return sb.toString();
+	}
+
+}
@@ -0,0 +1,23 @@
+package genlab.core.model.meta.basics.graphs;
+
+/**
+ * The implementations available for graphs.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public enum GraphBackend {
+
+	/**
+	 * Graphs based on graphstream (nodes and edges are objects); 
+	 * the graphstream algorithms and display use them directly.
+	 */
+	GRAPHSTREAM,
+	
+	/**
+	 * Graphs stored in primitive arrays (see {@link CompactGraph}), 
+	 * which need far less memory for big graphs.
+	 */
+	COMPACT;
+	
+}
@@ -0,0 +1,694 @@
+package genlab.core.model.meta.basics.graphs;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WrongParametersException;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.EdgeRejectedException;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.IdAlreadyInUseException;
+import org.graphstream.graph.Node;
+
+/**
+ * Builds a graph in bulk, for the generators and converters which create big graphs:
+ * vertices and edges are added by index into arrays sized from the expected counts,
+ * attributes are set column by column, and the graph is only created once by {@link #build()}.
+ * No check on the edges is done before this last step, so adding an edge costs no lookup.
+ *
+ * Vertices are identified by their index (from 0 to count-1); as in graphs, their default id
+ * is their index, and edges have the default id from_to_to when no id is given.
+ *
+ * For the compact backend, the arrays of the builder become the ones of the graph;
+ * so a builder can only build one graph.
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class GraphBuilder {
+
+	protected final String graphId;
+	protected final GraphDirectionality directionality;
+	protected final boolean multiGraph;
+
+	public boolean ignoreGraphAttributeErrors = false;
+
+	protected boolean built = false;
+
+	// vertices (ids are null when default)
+	protected int verticesCount = 0;
+	protected String[] vertexIds;
+	protected IdIndex explicitVertexIds = new IdIndex();
+
+	// edges (ids are null when not given)
+	protected int edgesCount = 0;
+	protected int[] edgeFrom;
+	protected int[] edgeTo;
+	protected String[] edgeIds;
+	protected IdIndex explicitEdgeIds = new IdIndex();
+	protected BitSet edgeDirected;
+
+	// attributes
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> graphAttribute2type = new LinkedHashMap<String, Class>();
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> vertexAttributes2type = new LinkedHashMap<String, Class>();
+	@SuppressWarnings("rawtypes")
+	protected Map<String,Class> edgeAttributes2type = new LinkedHashMap<String, Class>();
+
+	protected Map<String,Object> graphAttributes = new LinkedHashMap<String, Object>();
+	protected Map<String,AttributeColumn> vertexColumns = new LinkedHashMap<String, AttributeColumn>();
+	protected Map<String,AttributeColumn> edgeColumns = new LinkedHashMap<String, AttributeColumn>();
+
+	public GraphBuilder(String graphId, GraphDirectionality directionality, boolean multiGraph, int expectedVertices, int expectedEdges) {
+
+		this.graphId = graphId;
+		this.directionality = directionality;
+		this.multiGraph = multiGraph;
+
+		expectedVertices = Math.max(expectedVertices, 1);
+		expectedEdges = Math.max(expectedEdges, 1);
+
+		vertexIds = new String[expectedVertices];
+		edgeFrom = new int[expectedEdges];
+		edgeTo = new int[expectedEdges];
+		edgeIds = new String[expectedEdges];
+		edgeDirected = directionality == GraphDirectionality.MIXED ? new BitSet(expectedEdges) : null;
+	}
+
+	public GraphBuilder(String graphId, GraphDirectionality directionality, boolean multiGraph) {
+		this(graphId, directionality, multiGraph, 16, 16);
+	}
+
+	public String getGraphId() {
+		return graphId;
+	}
+
+	public GraphDirectionality getDirectionality() {
+		return directionality;
+	}
+
+	public boolean isMultiGraph() {
+		return multiGraph;
+	}
+
+	public int getVerticesCount() {
+		return verticesCount;
+	}
+
+	public int getEdgesCount() {
+		return edgesCount;
+	}
+
+	protected final void checkNotBuilt() {
+		if (built)
+			throw new ProgramException("the graph "+graphId+" was already built from this builder");
+	}
+
+	private static final int grow(int current, int required) {
+		return Math.max(required, current + (current >> 1) + 1);
+	}
+
+	protected void ensureVerticesCapacity(int capacity) {
+
+		if (vertexIds.length >= capacity)
+			return;
+
+		final int newCapacity = grow(vertexIds.length, capacity);
+		vertexIds = Arrays.copyOf(vertexIds, newCapacity);
+		for (AttributeColumn c: vertexColumns.values())
+			c.ensureCapacity(newCapacity);
+	}
+
+	protected void ensureEdgesCapacity(int capacity) {
+
+		if (edgeFrom.length >= capacity)
+			return;
+
+		final int newCapacity = grow(edgeFrom.length, capacity);
+		edgeFrom = Arrays.copyOf(edgeFrom, newCapacity);
+		edgeTo = Arrays.copyOf(edgeTo, newCapacity);
+		edgeIds = Arrays.copyOf(edgeIds, newCapacity);
+		for (AttributeColumn c: edgeColumns.values())
+			c.ensureCapacity(newCapacity);
+	}
+
+	// --- vertices ---
+
+	public int getVertexIndex(String vertexId) {
+
+		int index = explicitVertexIds.get(vertexId);
+		if (index >= 0)
+			return index;
+
+		index = CompactGraph.parseDefaultIndex(vertexId);
+		if (index >= 0 && index < verticesCount && vertexIds[index] == null)
+			return index;
+
+		return -1;
+	}
+
+	protected int getExistingVertexIndex(String vertexId) {
+		final int index = getVertexIndex(vertexId);
+		if (index < 0)
+			throw new WrongParametersException("unknown vertex: "+vertexId);
+		return index;
+	}
+
+	public String getVertexId(int index) {
+		final String id = vertexIds[index];
+		return id == null ? Integer.toString(index) : id;
+	}
+
+	public boolean containsVertex(String vertexId) {
+		return getVertexIndex(vertexId) >= 0;
+	}
+
+	/**
+	 * Adds a vertex with the default id (its index, unless this id was already given to another vertex)
+	 * @return the index of the vertex
+	 */
+	public int addVertex() {
+		checkNotBuilt();
+
+		final int index = verticesCount;
+		ensureVerticesCapacity(index+1);
+
+		if (explicitVertexIds.size() > 0 && explicitVertexIds.get(Integer.toString(index)) >= 0) {
+			int idx = index;
+			String id = Integer.toString(idx);
+			while (containsVertex(id))
+				id = Integer.toString(++idx);
+			vertexIds[index] = id;
+			explicitVertexIds.put(id, index);
+		} else {
+			vertexIds[index] = null;
+		}
+		verticesCount++;
+
+		return index;
+	}
+
+	/**
+	 * Adds a vertex with this id
+	 * @param id
+	 * @return the index of the vertex
+	 */
+	public int addVertex(String id) {
+		checkNotBuilt();
+
+		if (containsVertex(id))
+			throw new WrongParametersException("a vertex was already added in this graph with id "+id);
+
+		final int index = verticesCount;
+		ensureVerticesCapacity(index+1);
+
+		if (CompactGraph.parseDefaultIndex(id) != index) {
+			vertexIds[index] = id;
+			explicitVertexIds.put(id, index);
+		} else {
+			vertexIds[index] = null;
+		}
+		verticesCount++;
+
+		return index;
+	}
+
+	/**
+	 * Adds this count of vertices with default ids
+	 * @param count
+	 * @return the index of the first one
+	 */
+	public int addVertices(int count) {
+		checkNotBuilt();
+
+		final int first = verticesCount;
+		ensureVerticesCapacity(first+count);
+
+		if (explicitVertexIds.size() == 0) {
+			// quick path: no id to check
+			Arrays.fill(vertexIds, first, first+count, null);
+			verticesCount += count;
+		} else {
+			for (int i=0; i<count; i++)
+				addVertex();
+		}
+
+		return first;
+	}
+
+	// --- edges ---
+
+	protected void checkVertexIndex(int index) {
+		if (index < 0 || index >= verticesCount)
+			throw new WrongParametersException("unknown vertex: "+index);
+	}
+
+	protected boolean getDefaultDirected() {
+		if (directionality == GraphDirectionality.MIXED)
+			throw new WrongParametersException("As this graph is mixed, you have to precise for each new edge if it is directed or not.");
+		return directionality == GraphDirectionality.DIRECTED;
+	}
+
+	/**
+	 * Adds an edge with the default id and the directionality of the graph
+	 * @param from
+	 * @param to
+	 * @return the index of the edge
+	 */
+	public int addEdge(int from, int to) {
+		return addEdge(null, from, to, getDefaultDirected());
+	}
+
+	/**
+	 * Adds an edge with the default id
+	 * @param from
+	 * @param to
+	 * @param directed
+	 * @return the index of the edge
+	 */
+	public int addEdge(int from, int to, boolean directed) {
+		return addEdge(null, from, to, directed);
+	}
+
+	/**
+	 * Adds an edge. Only the unicity of the id is checked here;
+	 * the edges linking the same vertices are detected by {@link #build()}.
+	 * @param idOrNull the id of the edge, or null for the default one
+	 * @param from
+	 * @param to
+	 * @param directed
+	 * @return the index of the edge
+	 */
+	public int addEdge(String idOrNull, int from, int to, boolean directed) {
+		checkNotBuilt();
+
+		if (directed) {
+			if (directionality == GraphDirectionality.UNDIRECTED)
+				throw new WrongParametersException("can not add a directed edge into an undirected graph");
+		} else {
+			if (directionality == GraphDirectionality.DIRECTED)
+				throw new WrongParametersException("can not add an undirected edge into a directed graph");
+		}
+		checkVertexIndex(from);
+		checkVertexIndex(to);
+
+		if (idOrNull != null && explicitEdgeIds.get(idOrNull) >= 0)
+			throw new WrongParametersException("the edge "+idOrNull+" was already defined");
+
+		final int index = edgesCount;
+		ensureEdgesCapacity(index+1);
+
+		edgeFrom[index] = from;
+		edgeTo[index] = to;
+		edgeIds[index] = idOrNull;
+		if (idOrNull != null)
+			explicitEdgeIds.put(idOrNull, index);
+		if (edgeDirected != null)
+			edgeDirected.set(index, directed);
+
+		edgesCount++;
+
+		return index;
+	}
+
+	/**
+	 * Adds an edge between the vertices having these ids
+	 * @param idOrNull
+	 * @param vertexIdFrom
+	 * @param vertexIdTo
+	 * @param directed
+	 * @return the index of the edge
+	 */
+	public int addEdge(String idOrNull, String vertexIdFrom, String vertexIdTo, boolean directed) {
+		return addEdge(idOrNull, getExistingVertexIndex(vertexIdFrom), getExistingVertexIndex(vertexIdTo), directed);
+	}
+
+	/**
+	 * Adds edges with default ids and the directionality of the graph,
+	 * the k-th one going from from[k] to to[k].
+	 * @param from
+	 * @param to
+	 * @param count
+	 */
+	public void addEdges(int[] from, int[] to, int count) {
+		checkNotBuilt();
+
+		getDefaultDirected();
+		ensureEdgesCapacity(edgesCount+count);
+		for (int k=0; k<count; k++) {
+			checkVertexIndex(from[k]);
+			checkVertexIndex(to[k]);
+		}
+		System.arraycopy(from, 0, edgeFrom, edgesCount, count);
+		System.arraycopy(to, 0, edgeTo, edgesCount, count);
+		Arrays.fill(edgeIds, edgesCount, edgesCount+count, null);
+		edgesCount += count;
+	}
+
+	/**
+	 * Adds edges with default ids and the directionality of the graph from an
+	 * edge list (from0, to0, from1, to1, ...)
+	 * @param edgeList
+	 * @param count the count of edges (half the count of values read)
+	 */
+	public void addEdges(int[] edgeList, int count) {
+		checkNotBuilt();
+
+		getDefaultDirected();
+		ensureEdgesCapacity(edgesCount+count);
+		for (int k=0; k<count; k++) {
+			final int from = edgeList[2*k];
+			final int to = edgeList[2*k+1];
+			checkVertexIndex(from);
+			checkVertexIndex(to);
+			edgeFrom[edgesCount] = from;
+			edgeTo[edgesCount] = to;
+			edgeIds[edgesCount] = null;
+			edgesCount++;
+		}
+	}
+
+	public int getEdgeIndex(String edgeId) {
+
+		final int index = explicitEdgeIds.get(edgeId);
+		if (index >= 0)
+			return index;
+
+		// maybe a default id; rare, so no index is maintained for them
+		for (int e=0; e<edgesCount; e++) {
+			if (edgeIds[e] == null && edgeId.equals(getEdgeId(e)))
+				return e;
+		}
+		return -1;
+	}
+
+	protected int getExistingEdgeIndex(String edgeId) {
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			throw new WrongParametersException("unknown edge: "+edgeId);
+		return index;
+	}
+
+	public String getEdgeId(int index) {
+		final String id = edgeIds[index];
+		return id == null ? getVertexId(edgeFrom[index])+CompactGraph.EDGE_ID_SEPARATOR+getVertexId(edgeTo[index]) : id;
+	}
+
+	public boolean isEdgeDirected(int index) {
+		switch (directionality) {
+		case DIRECTED:
+			return true;
+		case UNDIRECTED:
+			return false;
+		default:
+			return edgeDirected.get(index);
+		}
+	}
+
+	/**
+	 * Removes an edge; as in graphs, the last edge takes its index.
+	 * @param edgeId
+	 * @return true if the edge existed
+	 */
+	public boolean removeEdge(String edgeId) {
+		checkNotBuilt();
+
+		final int index = getEdgeIndex(edgeId);
+		if (index < 0)
+			return false;
+
+		if (edgeIds[index] != null)
+			explicitEdgeIds.remove(edgeIds[index]);
+
+		final int last = edgesCount-1;
+		if (index != last) {
+			edgeFrom[index] = edgeFrom[last];
+			edgeTo[index] = edgeTo[last];
+			edgeIds[index] = edgeIds[last];
+			if (edgeIds[last] != null)
+				explicitEdgeIds.put(edgeIds[last], index);
+			if (edgeDirected != null)
+				edgeDirected.set(index, edgeDirected.get(last));
+			for (AttributeColumn c: edgeColumns.values())
+				c.move(last, index);
+		} else {
+			for (AttributeColumn c: edgeColumns.values())
+				c.clear(last);
+		}
+		edgeIds[last] = null;
+		edgesCount--;
+
+		return true;
+	}
+
+	// --- attributes ---
+
+	@SuppressWarnings("rawtypes")
+	public void declareGraphAttribute(String attributeId, Class type) {
+		checkNotBuilt();
+		if (graphAttribute2type.containsKey(attributeId))
+			throw new WrongParametersException("a graph attribute "+attributeId+" was already declared for this graph");
+		graphAttribute2type.put(attributeId, type);
+	}
+
+	public boolean hasGraphAttribute(String attributeId) {
+		return graphAttribute2type.containsKey(attributeId);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public void setGraphAttribute(String attributeId, Object value) {
+		checkNotBuilt();
+		Class attributeType = graphAttribute2type.get(attributeId);
+		if (attributeType == null) {
+			if (!ignoreGraphAttributeErrors)
+				throw new WrongParametersException("no graph attribute "+attributeId+" defined for this graph");
+			else
+				return;
+		}
+		graphAttributes.put(attributeId, CompactGraph.checkValue(attributeType, attributeId, value));
+	}
+
+	@SuppressWarnings("rawtypes")
+	public void declareVertexAttribute(String attributeId, Class type) {
+		checkNotBuilt();
+		if (hasVertexAttribute(attributeId))
+			throw new WrongParametersException("a node attribute "+attributeId+" was already declared for this graph");
+		vertexAttributes2type.put(attributeId, type);
+		vertexColumns.put(attributeId, new AttributeColumn(type, vertexIds.length));
+	}
+
+	public boolean hasVertexAttribute(String attributeId) {
+		// the degrees are declared by all the graphs
+		return vertexAttributes2type.containsKey(attributeId) || CompactGraph.isComputedVertexAttribute(attributeId);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public void declareEdgeAttribute(String attributeId, Class type) {
+		checkNotBuilt();
+		if (edgeAttributes2type.containsKey(attributeId))
+			throw new WrongParametersException("an edge attribute "+attributeId+" was already declared for this graph");
+		edgeAttributes2type.put(attributeId, type);
+		edgeColumns.put(attributeId, new AttributeColumn(type, edgeFrom.length));
+	}
+
+	public boolean hasEdgeAttribute(String attributeId) {
+		return edgeAttributes2type.containsKey(attributeId);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredVertexAttributesAndTypes() {
+		return Collections.unmodifiableMap(vertexAttributes2type);
+	}
+
+	@SuppressWarnings("rawtypes")
+	public Map<String, Class> getDeclaredEdgeAttributesAndTypes() {
+		return Collections.unmodifiableMap(edgeAttributes2type);
+	}
+
+	protected AttributeColumn getVertexColumn(String attributeId) {
+		checkNotBuilt();
+		final AttributeColumn column = vertexColumns.get(attributeId);
+		if (column == null) {
+			if (CompactGraph.isComputedVertexAttribute(attributeId))
+				throw new WrongParametersException("cannot modify the degree attribute '"+attributeId+"' of a node without adding or removing an edge");
+			throw new WrongParametersException("no vertex attribute "+attributeId+" defined for this graph");
+		}
+		return column;
+	}
+
+	protected AttributeColumn getEdgeColumn(String attributeId) {
+		checkNotBuilt();
+		final AttributeColumn column = edgeColumns.get(attributeId);
+		if (column == null)
+			throw new WrongParametersException("no edge attribute "+attributeId+" defined for this graph");
+		return column;
+	}
+
+	public void setVertexAttribute(int index, String attributeId, Object value) {
+		final AttributeColumn column = getVertexColumn(attributeId);
+		checkVertexIndex(index);
+		column.set(index, CompactGraph.checkValue(column.getType(), attributeId, value));
+	}
+
+	public void setVertexAttribute(String vertexId, String attributeId, Object value) {
+		setVertexAttribute(getExistingVertexIndex(vertexId), attributeId, value);
+	}
+
+	/**
+	 * Sets the values of an attribute for the vertices 0 to values.length-1 (null for no value)
+	 * @param attributeId
+	 * @param values
+	 */
+	public void setVertexAttributeValues(String attributeId, Object[] values) {
+		final AttributeColumn column = getVertexColumn(attributeId);
+		if (values.length > verticesCount)
+			throw new WrongParametersException("more values than vertices for attribute "+attributeId);
+		for (int i=0; i<values.length; i++)
+			column.set(i, values[i] == null ? null : CompactGraph.checkValue(column.getType(), attributeId, values[i]));
+	}
+
+	/**
+	 * Sets the values of a numeric attribute for the vertices 0 to values.length-1
+	 * @param attributeId
+	 * @param values
+	 */
+	public void setVertexAttributeValues(String attributeId, double[] values) {
+		final AttributeColumn column = getVertexColumn(attributeId);
+		if (values.length > verticesCount)
+			throw new WrongParametersException("more values than vertices for attribute "+attributeId);
+		final Class<?> type = column.getType();
+		if (!type.isAssignableFrom(Double.class))
+			throw new WrongParametersException("type "+type.getSimpleName()+" is expected for attribute "+attributeId);
+		column.setDoubles(values, values.length);
+	}
+
+	public void setEdgeAttribute(int index, String attributeId, Object value) {
+		final AttributeColumn column = getEdgeColumn(attributeId);
+		if (index < 0 || index >= edgesCount)
+			throw new WrongParametersException("unknown edge: "+index);
+		column.set(index, CompactGraph.checkValue(column.getType(), attributeId, value));
+	}
+
+	public void setEdgeAttribute(String edgeId, String attributeId, Object value) {
+		setEdgeAttribute(getExistingEdgeIndex(edgeId), attributeId, value);
+	}
+
+	/**
+	 * Sets the values of an attribute for the edges 0 to values.length-1 (null for no value)
+	 * @param attributeId
+	 * @param values
+	 */
+	public void setEdgeAttributeValues(String attributeId, Object[] values) {
+		final AttributeColumn column = getEdgeColumn(attributeId);
+		if (values.length > edgesCount)
+			throw new WrongParametersException("more values than edges for attribute "+attributeId);
+		for (int i=0; i<values.length; i++)
+			column.set(i, values[i] == null ? null : CompactGraph.checkValue(column.getType(), attributeId, values[i]));
+	}
+
+	/**
+	 * Sets the values of a numeric attribute for the edges 0 to values.length-1
+	 * @param attributeId
+	 * @param values
+	 */
+	public void setEdgeAttributeValues(String attributeId, double[] values) {
+		final AttributeColumn column = getEdgeColumn(attributeId);
+		if (values.length > edgesCount)
+			throw new WrongParametersException("more values than edges for attribute "+attributeId);
+		final Class<?> type = column.getType();
+		if (!type.isAssignableFrom(Double.class))
+			throw new WrongParametersException("type "+type.getSimpleName()+" is expected for attribute "+attributeId);
+		column.setDoubles(values, values.length);
+	}
+
+	// --- build ---
+
+	/**
+	 * Creates the graph with the default backend (see {@link GraphFactory#defaultBackend})
+	 * @return
+	 */
+	public IGenlabGraph build() {
+		return build(GraphFactory.defaultBackend);
+	}
+
+	/**
+	 * Creates the graph; throws a {@link WrongParametersException} if edges link the same
+	 * vertices in a graph which is not a multigraph, or have the same default id.
+	 * @param backend
+	 * @return
+	 */
+	public IGenlabGraph build(GraphBackend backend) {
+		checkNotBuilt();
+		built = true;
+
+		switch (backend) {
+		case COMPACT:
+			return new CompactGraph(this);
+		case GRAPHSTREAM:
+			return buildGraphstream();
+		default:
+			throw new ProgramException("unknown graph backend "+backend);
+		}
+	}
+
+	/**
+	 * Fills the graphstream graph directly, without the checks done by the genlab graph
+	 * for each element
+	 */
+	@SuppressWarnings("rawtypes")
+	protected IGenlabGraph buildGraphstream() {
+
+		final AbstractGraphstreamBasedGraph res = (AbstractGraphstreamBasedGraph)GraphFactory.createGraph(graphId, directionality, multiGraph, GraphBackend.GRAPHSTREAM);
+		res.ignoreGraphAttributeErrors = ignoreGraphAttributeErrors;
+		for (Entry<String,Class> entry: graphAttribute2type.entrySet())
+			res.declareGraphAttribute(entry.getKey(), entry.getValue());
+		for (Entry<String,Object> entry: graphAttributes.entrySet())
+			res.setGraphAttribute(entry.getKey(), entry.getValue());
+		for (Entry<String,Class> entry: vertexAttributes2type.entrySet())
+			res.declareVertexAttribute(entry.getKey(), entry.getValue());
+		for (Entry<String,Class> entry: edgeAttributes2type.entrySet())
+			res.declareEdgeAttribute(entry.getKey(), entry.getValue());
+
+		final Graph gsGraph = res._getInternalGraphstreamGraph();
+
+		final Node[] nodes = new Node[verticesCount];
+		for (int v=0; v<verticesCount; v++) {
+			final Node node = gsGraph.addNode(getVertexId(v));
+			for (Entry<String,AttributeColumn> entry: vertexColumns.entrySet()) {
+				final Object value = entry.getValue().get(v);
+				if (value != null)
+					node.setAttribute(entry.getKey(), value);
+			}
+			nodes[v] = node;
+		}
+
+		for (int e=0; e<edgesCount; e++) {
+			final String id = getEdgeId(e);
+			final Edge edge;
+			try {
+				edge = gsGraph.addEdge(id, nodes[edgeFrom[e]], nodes[edgeTo[e]], isEdgeDirected(e));
+			} catch (IdAlreadyInUseException ex) {
+				throw new WrongParametersException("the edge "+id+" was already defined");
+			} catch (EdgeRejectedException ex) {
+				throw new WrongParametersException("an edge was already defined between "+getVertexId(edgeFrom[e])+" and "+getVertexId(edgeTo[e]));
+			}
+			for (Entry<String,AttributeColumn> entry: edgeColumns.entrySet()) {
+				final Object value = entry.getValue().get(e);
+				if (value != null)
+					edge.setAttribute(entry.getKey(), value);
+			}
+		}
+
+		return res;
+	}
+
+}
@@ -1,12 +1,30 @@
 package genlab.core.model.meta.basics.graphs;
 
+import genlab.core.commons.ProgramException;
+
 public class GraphFactory {
 
+	/**
+	 * The implementation of the graphs created when none is precised
+	 */
+	public static GraphBackend defaultBackend = GraphBackend.GRAPHSTREAM;
+	
 	public static IGenlabGraph createGraph(String graphId, GraphDirectionality directionality, boolean multiplex) {
-		if (multiplex)
-			return new MultiplexGraphstreamBasedGraph(graphId, directionality);
-		else 
-			return new SimpleGraphstreamBasedGraph(graphId, directionality);
+		return createGraph(graphId, directionality, multiplex, defaultBackend);
+	}
+	
+	public static IGenlabGraph createGraph(String graphId, GraphDirectionality directionality, boolean multiplex, GraphBackend backend) {
+		switch (backend) {
+		case COMPACT:
+			return new CompactGraph(graphId, directionality, multiplex);
+		case GRAPHSTREAM:
+			if (multiplex)
+				return new MultiplexGraphstreamBasedGraph(graphId, directionality);
+			else 
+				return new SimpleGraphstreamBasedGraph(graphId, directionality);
+		default:
+			throw new ProgramException("unknown graph backend "+backend);
+		}
 	}
 	
 }
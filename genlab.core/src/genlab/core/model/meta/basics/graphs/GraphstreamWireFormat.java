@@ -0,0 +1,236 @@
+package genlab.core.model.meta.basics.graphs;
+
+import genlab.core.commons.WireInput;
+import genlab.core.commons.WireOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graphstream.graph.Edge;
+import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
+
+/**
+ * Compact binary format for the graphstream based graphs, used when they are sent
+ * to distant servers (or back).
+ *
+ * The java serialization of graphstream graphs stores all the nodes and edges
+ * as objects, with their ids and attributes maps. Instead:
+ * <ul>
+ * <li>the ids of the vertices are not written when they are the default ones (0,1,2...)</li>
+ * <li>the ids of the edges are not written when they are the default ones (from_to_to)</li>
+ * <li>edges are written as the indices of their vertices, as delta-encoded varints</li>
+ * <li>attributes are written column by column (all the values of an attribute, then the next one)</li>
+ * </ul>
+ *
+ * @author Samuel Thiriot
+ *
+ */
+class GraphstreamWireFormat {
+
+	private static final int VERTICES_IDS_DEFAULT = 0;
+	private static final int VERTICES_IDS_EXPLICIT = 1;
+
+	private static final int EDGES_IDS_DEFAULT = 0;
+	private static final int EDGES_IDS_EXPLICIT = 1;
+
+	private static final int EDGES_ALL_DIRECTED = 0;
+	private static final int EDGES_ALL_UNDIRECTED = 1;
+	private static final int EDGES_MIXED = 2;
+
+	private GraphstreamWireFormat() {
+
+	}
+
+	private static final boolean isComputedVertexAttribute(String attributeId) {
+		return attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_IN)
+				|| attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_OUT)
+				|| attributeId.equals(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL);
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static void writeTypes(WireOutput out, Map<String,Class> attribute2type) {
+		out.writeVarInt(attribute2type.size());
+		for (Map.Entry<String,Class> e: attribute2type.entrySet()) {
+			out.writeInternedString(e.getKey());
+			out.writeInternedString(e.getValue().getName());
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static Map<String,Class> readTypes(WireInput in) throws IOException {
+		final int count = in.readVarInt();
+		// keeps the order they were written in, which is the order of the attributes columns
+		Map<String,Class> res = new LinkedHashMap<String, Class>(count*2);
+		for (int i=0; i<count; i++) {
+			final String attributeId = in.readInternedString();
+			res.put(attributeId, in.readClass());
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the attributes stored for each element (that is, not the computed ones)
+	 */
+	@SuppressWarnings("rawtypes")
+	private static List<String> getStoredAttributes(Map<String,Class> attribute2type, boolean forVertices) {
+		List<String> res = new ArrayList<String>(attribute2type.size());
+		for (String a: attribute2type.keySet()) {
+			if (forVertices && isComputedVertexAttribute(a))
+				continue;
+			res.add(a);
+		}
+		return res;
+	}
+
+	public static void write(AbstractGraphstreamBasedGraph graph, WireOutput out) throws IOException {
+
+		final Graph gsGraph = graph.gsGraph;
+
+		out.writeString(gsGraph.getId());
+
+		// declarations
+		writeTypes(out, graph.graphAttribute2type);
+		writeTypes(out, graph.vertexAttributes2type);
+		writeTypes(out, graph.edgeAttributes2type);
+
+		// graph attributes
+		for (String a: graph.graphAttribute2type.keySet()) {
+			out.writeValue(gsGraph.getAttribute(a));
+		}
+
+		// vertices
+		final int countVertices = gsGraph.getNodeCount();
+		out.writeVarInt(countVertices);
+		boolean defaultVerticesIds = true;
+		for (int i=0; i<countVertices && defaultVerticesIds; i++) {
+			defaultVerticesIds = gsGraph.getNode(i).getId().equals(Integer.toString(i));
+		}
+		if (defaultVerticesIds) {
+			out.writeByte(VERTICES_IDS_DEFAULT);
+		} else {
+			out.writeByte(VERTICES_IDS_EXPLICIT);
+			for (int i=0; i<countVertices; i++)
+				out.writeString(gsGraph.getNode(i).getId());
+		}
+		for (String a: getStoredAttributes(graph.vertexAttributes2type, true)) {
+			for (int i=0; i<countVertices; i++) {
+				out.writeValue(gsGraph.getNode(i).getAttribute(a));
+			}
+		}
+
+		// edges
+		final int countEdges = gsGraph.getEdgeCount();
+		out.writeVarInt(countEdges);
+		boolean defaultEdgesIds = true;
+		int countDirected = 0;
+		for (int i=0; i<countEdges; i++) {
+			final Edge e = gsGraph.getEdge(i);
+			if (e.isDirected())
+				countDirected++;
+			if (defaultEdgesIds)
+				defaultEdgesIds = e.getId().equals(e.getSourceNode().getId()+"_to_"+e.getTargetNode().getId());
+		}
+		out.writeByte(defaultEdgesIds ? EDGES_IDS_DEFAULT : EDGES_IDS_EXPLICIT);
+		final int directedness;
+		if (countDirected == countEdges)
+			directedness = EDGES_ALL_DIRECTED;
+		else if (countDirected == 0)
+			directedness = EDGES_ALL_UNDIRECTED;
+		else
+			directedness = EDGES_MIXED;
+		out.writeByte(directedness);
+
+		// edges are often generated by source vertex, so the delta with the previous source is small
+		int previousSource = 0;
+		for (int i=0; i<countEdges; i++) {
+			final Edge e = gsGraph.getEdge(i);
+			final int source = e.getSourceNode().getIndex();
+			final int target = e.getTargetNode().getIndex();
+			out.writeSignedVarInt(source-previousSource);
+			out.writeSignedVarInt(target-source);
+			if (directedness == EDGES_MIXED)
+				out.writeBoolean(e.isDirected());
+			if (!defaultEdgesIds)
+				out.writeString(e.getId());
+			previousSource = source;
+		}
+		for (String a: getStoredAttributes(graph.edgeAttributes2type, false)) {
+			for (int i=0; i<countEdges; i++) {
+				out.writeValue(gsGraph.getEdge(i).getAttribute(a));
+			}
+		}
+
+	}
+
+	/**
+	 * Reads a graph into this graph, which should have been built by its default constructor
+	 * @param graph
+	 * @param in
+	 * @throws IOException
+	 */
+	public static void read(AbstractGraphstreamBasedGraph graph, WireInput in) throws IOException {
+
+		final String graphId = in.readString();
+		final Graph gsGraph = graph.createGraphstreamGraph(graphId);
+		graph.gsGraph = gsGraph;
+
+		// declarations
+		graph.graphAttribute2type = readTypes(in);
+		graph.vertexAttributes2type = readTypes(in);
+		graph.edgeAttributes2type = readTypes(in);
+
+		// graph attributes
+		for (String a: graph.graphAttribute2type.keySet()) {
+			final Object value = in.readValue();
+			if (value != null)
+				gsGraph.setAttribute(a, value);
+		}
+
+		// vertices
+		final int countVertices = in.readVarInt();
+		final Node[] vertices = new Node[countVertices];
+		final int verticesIds = in.readByte();
+		for (int i=0; i<countVertices; i++) {
+			final String id = verticesIds == VERTICES_IDS_DEFAULT ? Integer.toString(i) : in.readString();
+			vertices[i] = gsGraph.addNode(id);
+		}
+		for (String a: getStoredAttributes(graph.vertexAttributes2type, true)) {
+			for (int i=0; i<countVertices; i++) {
+				final Object value = in.readValue();
+				if (value != null)
+					vertices[i].setAttribute(a, value);
+			}
+		}
+
+		// edges
+		final int countEdges = in.readVarInt();
+		final int edgesIds = in.readByte();
+		final int directedness = in.readByte();
+		final Edge[] edges = new Edge[countEdges];
+		int source = 0;
+		for (int i=0; i<countEdges; i++) {
+			source += in.readSignedVarInt();
+			final int target = source + in.readSignedVarInt();
+			final boolean directed;
+			if (directedness == EDGES_MIXED)
+				directed = in.readBoolean();
+			else
+				directed = directedness == EDGES_ALL_DIRECTED;
+			final String id = edgesIds == EDGES_IDS_DEFAULT ? vertices[source].getId()+"_to_"+vertices[target].getId() : in.readString();
+			edges[i] = gsGraph.addEdge(id, vertices[source], vertices[target], directed);
+		}
+		for (String a: getStoredAttributes(graph.edgeAttributes2type, false)) {
+			for (int i=0; i<countEdges; i++) {
+				final Object value = in.readValue();
+				if (value != null)
+					edges[i].setAttribute(a, value);
+			}
+		}
+
+	}
+
+}
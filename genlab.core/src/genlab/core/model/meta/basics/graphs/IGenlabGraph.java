@@ -145,7 +145,9 @@ public interface IGenlabGraph {
 	public List<String> getEdges();
 	
 	/**
-	 * Returns a deep clone where vertices, edges, attributes values were all duplicated.
+	 * Returns a clone whose vertices, edges and attributes values can be modified independantly of this graph.
+	 * If this graph is frozen, the clone shares its data until it is modified (see {@link CopyOnWriteGraph}); 
+	 * else everything is duplicated.
 	 * @return
 	 */
 	public IGenlabGraph clone(String cloneId);
@@ -153,6 +155,104 @@ public interface IGenlabGraph {
 	
 	public void addAll(IGenlabGraph otherGraph, boolean copyGraphAttributes, boolean copyNodeAttributes, boolean copyEdgesAttributes);
 
+	// --- access by index ---
+	// vertices and edges are indexed from 0 to count-1; removing a vertex or an edge may change the 
+	// indices of others. Loops over the graph should use these methods rather than the ones based on ids,
+	// which allocate collections of strings.
+	
+	/**
+	 * Returns the index of the vertex of this id, or -1 if there is none
+	 * @param vertexId
+	 * @return
+	 */
+	public int getVertexIndex(String vertexId);
+	
+	/**
+	 * Returns the index of the edge of this id, or -1 if there is none
+	 * @param edgeId
+	 * @return
+	 */
+	public int getEdgeIndex(String edgeId);
+	
+	public int getEdgeVertexFromIndex(int edgeIndex);
+	public int getEdgeVertexToIndex(int edgeIndex);
+	public int getEdgeOtherVertexIndex(int edgeIndex, int vertexIndex);
+	public boolean isEdgeDirected(int edgeIndex);
+	
+	public int getDegree(int vertexIndex);
+	public int getInDegree(int vertexIndex);
+	public int getOutDegree(int vertexIndex);
+	
+	/**
+	 * Returns the degree of each vertex, by index
+	 * @return
+	 */
+	public int[] getDegrees();
+	
+	/**
+	 * Puts the indices of the edges of this vertex in the buffer (as many as its degree), and returns it;
+	 * if the buffer is null or too small, another one is allocated and returned. Traversals should pass 
+	 * the buffer returned by the previous call, so they don't allocate anything.
+	 * @param vertexIndex
+	 * @param buffer
+	 * @return
+	 */
+	public int[] getIncidentEdgesIndices(int vertexIndex, int[] buffer);
+	
+	/**
+	 * Puts the indices of the neighboors of this vertex in the buffer (one per edge, so as many as its degree), 
+	 * and returns it (see {@link #getIncidentEdgesIndices(int, int[])} for the buffer).
+	 * @param vertexIndex
+	 * @param buffer
+	 * @return
+	 */
+	public int[] getNeighboorsIndices(int vertexIndex, int[] buffer);
+	
+	/**
+	 * Same as {@link #getNeighboorsIndices(int, int[])}, for the edges leaving this vertex (as many as its out degree)
+	 */
+	public int[] getOutNeighboorsIndices(int vertexIndex, int[] buffer);
+	
+	/**
+	 * Same as {@link #getNeighboorsIndices(int, int[])}, for the edges entering this vertex (as many as its in degree)
+	 */
+	public int[] getInNeighboorsIndices(int vertexIndex, int[] buffer);
+
+	public Object getVertexAttributeValue(int vertexIndex, String attributeId);
+	public void setVertexAttribute(int vertexIndex, String attributeId, Object value);
+	public Object getEdgeAttributeValue(int edgeIndex, String attributeId);
+	public void setEdgeAttribute(int edgeIndex, String attributeId, Object value);
+
+	/**
+	 * Returns the values of this attribute for all the vertices, by index (null for vertices without value)
+	 * @param attributeId
+	 * @return
+	 */
+	public Object[] getVertexAttributeValues(String attributeId);
+	
+	/**
+	 * Returns the values of this numeric attribute for all the vertices, by index 
+	 * @param attributeId
+	 * @param missingValue the value for vertices without value
+	 * @return
+	 */
+	public double[] getVertexAttributeValuesAsDoubles(String attributeId, double missingValue);
+	
+	public Object[] getEdgeAttributeValues(String attributeId);
+	public double[] getEdgeAttributeValuesAsDoubles(String attributeId, double missingValue);
+
+	// --- immutability ---
+	
+	/**
+	 * Makes this graph immutable: any later modification raises a {@link genlab.core.commons.ProgramException}.
+	 * The graphs passed along the connections of a workflow are frozen, as several algorithms may read them 
+	 * at the same time; an algorithm which has to modify its input graph modifies a clone of it. 
+	 */
+	public void freeze();
+	
+	public boolean isFrozen();
+	
+
 
 
 
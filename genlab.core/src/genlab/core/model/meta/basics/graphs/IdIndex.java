@@ -0,0 +1,149 @@
+package genlab.core.model.meta.basics.graphs;
+
+import java.util.Arrays;
+
+/**
+ * Dictionary from string ids to int indices, stored in two arrays with linear probing:
+ * there is no entry object nor boxed integer per id, as in a HashMap.
+ *
+ * Not thread safe.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+final class IdIndex {
+
+	private static final float LOAD_FACTOR = 0.6f;
+
+	private String[] keys;
+	private int[] values;
+	private int mask;
+	private int size = 0;
+	private int threshold;
+
+	public IdIndex(int expectedSize) {
+		int capacity = 16;
+		while (capacity*LOAD_FACTOR < expectedSize)
+			capacity <<= 1;
+		allocate(capacity);
+	}
+
+	public IdIndex() {
+		this(16);
+	}
+
+	private void allocate(int capacity) {
+		keys = new String[capacity];
+		values = new int[capacity];
+		mask = capacity-1;
+		threshold = (int)(capacity*LOAD_FACTOR);
+	}
+
+	private static final int hash(String key) {
+		final int h = key.hashCode()*0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the index of this id, or -1 if unknown
+	 * @param key
+	 * @return
+	 */
+	public int get(String key) {
+		int slot = hash(key) & mask;
+		String current;
+		while ((current = keys[slot]) != null) {
+			if (current.equals(key))
+				return values[slot];
+			slot = (slot+1) & mask;
+		}
+		return -1;
+	}
+
+	/**
+	 * Associates this index to this id (replacing any previous one)
+	 * @param key
+	 * @param value
+	 */
+	public void put(String key, int value) {
+		int slot = hash(key) & mask;
+		String current;
+		while ((current = keys[slot]) != null) {
+			if (current.equals(key)) {
+				values[slot] = value;
+				return;
+			}
+			slot = (slot+1) & mask;
+		}
+		keys[slot] = key;
+		values[slot] = value;
+		if (++size > threshold)
+			rehash(keys.length << 1);
+	}
+
+	private void rehash(int capacity) {
+		final String[] oldKeys = keys;
+		final int[] oldValues = values;
+		allocate(capacity);
+		for (int i=0; i<oldKeys.length; i++) {
+			if (oldKeys[i] == null)
+				continue;
+			int slot = hash(oldKeys[i]) & mask;
+			while (keys[slot] != null)
+				slot = (slot+1) & mask;
+			keys[slot] = oldKeys[i];
+			values[slot] = oldValues[i];
+		}
+	}
+
+	/**
+	 * Removes this id; returns true if it was known
+	 * @param key
+	 * @return
+	 */
+	public boolean remove(String key) {
+		int slot = hash(key) & mask;
+		String current;
+		while ((current = keys[slot]) != null) {
+			if (current.equals(key))
+				break;
+			slot = (slot+1) & mask;
+		}
+		if (current == null)
+			return false;
+
+		// shift back the next entries of the cluster, so no probing sequence is broken
+		int free = slot;
+		int next = free;
+		while (true) {
+			next = (next+1) & mask;
+			if (keys[next] == null)
+				break;
+			final int home = hash(keys[next]) & mask;
+			final boolean stays = (free <= next) ? (free < home && home <= next) : (free < home || home <= next);
+			if (stays)
+				continue;
+			keys[free] = keys[next];
+			values[free] = values[next];
+			free = next;
+		}
+		keys[free] = null;
+		size--;
+		return true;
+	}
+
+	public IdIndex copy() {
+		IdIndex res = new IdIndex();
+		res.keys = Arrays.copyOf(keys, keys.length);
+		res.values = Arrays.copyOf(values, values.length);
+		res.mask = mask;
+		res.size = size;
+		res.threshold = threshold;
+		return res;
+	}
+
+}
@@ -8,6 +8,7 @@ import java.io.ObjectInput;
 import java.io.ObjectOutput;
 import java.util.Collection;
 
+import org.graphstream.graph.Graph;
 import org.graphstream.graph.implementations.MultiGraph;
 
 /**
@@ -47,6 +48,11 @@ public class MultiplexGraphstreamBasedGraph extends AbstractGraphstreamBasedGrap
 		directionality = GraphDirectionality.DIRECTED;
 	}
 	
+	@Override
+	protected Graph createGraphstreamGraph(String graphId) {
+		return new MultiGraph(graphId, true, false);
+	}
+	
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
 		super.writeExternal(out);
@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 
+import org.graphstream.graph.Graph;
 import org.graphstream.graph.implementations.SingleGraph;
 
 /**
@@ -49,6 +50,11 @@ public class SimpleGraphstreamBasedGraph extends AbstractGraphstreamBasedGraph i
 		directionality = GraphDirectionality.DIRECTED;
 	}
 	
+	@Override
+	protected Graph createGraphstreamGraph(String graphId) {
+		return new SingleGraph(graphId, true, false);
+	}
+	
 	@Override
 	public void writeExternal(ObjectOutput out) throws IOException {
 		super.writeExternal(out);
@@ -0,0 +1,91 @@
+package genlab.core.performance;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A counter which can be incremented by many threads at once with little contention:
+ * each thread increments one of several stripes (each on its own cache line),
+ * and the value is the sum of the stripes. Reading is slower than writing;
+ * the value read while others write is an approximation.
+ *
+ * Increments are forwarded to the counter of the parent registry, if any.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public final class Counter {
+
+	/**
+	 * Count of longs between two stripes, so they don't share a cache line
+	 */
+	private static final int PADDING = 8;
+
+	private static final int STRIPES;
+
+	static {
+		int stripes = 1;
+		while (stripes < 2*Runtime.getRuntime().availableProcessors() && stripes < 64)
+			stripes <<= 1;
+		STRIPES = stripes;
+	}
+
+	private final String name;
+
+	private final AtomicLongArray cells = new AtomicLongArray(STRIPES*PADDING);
+
+	private final Counter parent;
+
+	protected Counter(String name, Counter parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+
+	private static final int getStripe() {
+		// mixes the id so successive threads use distinct stripes
+		final long id = Thread.currentThread().getId()*0x9E3779B97F4A7C15L;
+		return (int)(id >>> 32) & (STRIPES-1);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void add(long increment) {
+		addLocally(increment);
+		if (parent != null)
+			parent.add(increment);
+	}
+
+	/**
+	 * Adds this value to this counter only, not to its parent
+	 * @param increment
+	 */
+	public void addLocally(long increment) {
+		cells.addAndGet(getStripe()*PADDING, increment);
+	}
+
+	public void increment() {
+		add(1);
+	}
+
+	public long get() {
+		long total = 0;
+		for (int i=0; i<STRIPES; i++)
+			total += cells.get(i*PADDING);
+		return total;
+	}
+
+	/**
+	 * Resets this counter (not its parent)
+	 */
+	public void reset() {
+		for (int i=0; i<STRIPES; i++)
+			cells.set(i*PADDING, 0);
+	}
+
+	@Override
+	public String toString() {
+		return name+"="+get();
+	}
+
+}
@@ -0,0 +1,171 @@
+package genlab.core.performance;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of durations in nanoseconds, with buckets of logarithmic size divided
+ * linearly (like HDR histograms): whatever the magnitude, the value of a bucket is known
+ * with a relative error below 1/16 (about 6%). Recording a value costs a few atomic increments
+ * and no allocation; so does it for percentiles, which are computed on demand.
+ *
+ * Values are forwarded to the histogram of the parent registry, if any.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public final class LatencyHistogram {
+
+	/**
+	 * Count of bits used for the linear division of each magnitude
+	 */
+	private static final int SUB_BITS = 5;
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	private static final int HALF_COUNT = SUB_COUNT >> 1;
+
+	/**
+	 * Enough buckets for any positive long
+	 */
+	private static final int BUCKETS_COUNT = SUB_COUNT + (63-SUB_BITS)*HALF_COUNT;
+
+	private final String name;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS_COUNT);
+
+	private final Counter count;
+	private final Counter sum;
+	private final AtomicLong max = new AtomicLong(0);
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+	private final LatencyHistogram parent;
+
+	protected LatencyHistogram(String name, LatencyHistogram parent) {
+		this.name = name;
+		this.parent = parent;
+		this.count = new Counter(name, null);
+		this.sum = new Counter(name, null);
+	}
+
+	protected static final int getBucket(long value) {
+		if (value < SUB_COUNT)
+			return (int)value;
+		final int magnitude = 63-Long.numberOfLeadingZeros(value);
+		final int shift = magnitude-SUB_BITS+1;
+		final int top = (int)(value >>> shift);
+		return SUB_COUNT + (shift-1)*HALF_COUNT + (top-HALF_COUNT);
+	}
+
+	/**
+	 * Returns the highest value stored in this bucket
+	 * @param bucket
+	 * @return
+	 */
+	protected static final long getBucketHighestValue(int bucket) {
+		if (bucket < SUB_COUNT)
+			return bucket;
+		final int k = bucket-SUB_COUNT;
+		final int shift = k/HALF_COUNT+1;
+		final long top = k%HALF_COUNT+HALF_COUNT;
+		return ((top+1) << shift)-1;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void recordNanos(long durationNs) {
+
+		if (durationNs < 0)
+			durationNs = 0;
+
+		counts.incrementAndGet(getBucket(durationNs));
+		count.increment();
+		sum.add(durationNs);
+
+		long current;
+		while (durationNs > (current = max.get())) {
+			if (max.compareAndSet(current, durationNs))
+				break;
+		}
+		while (durationNs < (current = min.get())) {
+			if (min.compareAndSet(current, durationNs))
+				break;
+		}
+
+		if (parent != null)
+			parent.recordNanos(durationNs);
+	}
+
+	/**
+	 * Records the time elapsed since this start, as returned by System.nanoTime()
+	 * @param startNs
+	 */
+	public void recordSince(long startNs) {
+		recordNanos(System.nanoTime()-startNs);
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public long getTotalNanos() {
+		return sum.get();
+	}
+
+	public long getMaxNanos() {
+		return max.get();
+	}
+
+	public long getMinNanos() {
+		final long res = min.get();
+		return res == Long.MAX_VALUE ? 0 : res;
+	}
+
+	public double getMeanNanos() {
+		final long c = count.get();
+		return c == 0 ? 0 : (double)sum.get()/c;
+	}
+
+	/**
+	 * Returns the value below which this percentage of the recorded values fall
+	 * (with the precision of buckets), or 0 if nothing was recorded.
+	 * @param percentile between 0 and 100
+	 * @return
+	 */
+	public long getPercentileNanos(double percentile) {
+
+		// count from the buckets, so it is consistent with them
+		long total = 0;
+		for (int i=0; i<BUCKETS_COUNT; i++)
+			total += counts.get(i);
+		if (total == 0)
+			return 0;
+
+		final long rank = Math.max(1, (long)Math.ceil(total*Math.min(100, Math.max(0, percentile))/100d));
+		long cumulated = 0;
+		for (int i=0; i<BUCKETS_COUNT; i++) {
+			cumulated += counts.get(i);
+			if (cumulated >= rank)
+				return Math.min(getBucketHighestValue(i), max.get());
+		}
+		return max.get();
+	}
+
+	/**
+	 * Resets this histogram (not its parent)
+	 */
+	public void reset() {
+		for (int i=0; i<BUCKETS_COUNT; i++)
+			counts.set(i, 0);
+		count.reset();
+		sum.reset();
+		max.set(0);
+		min.set(Long.MAX_VALUE);
+	}
+
+	@Override
+	public String toString() {
+		return name+"(count="+getCount()+", p50="+getPercentileNanos(50)+"ns, p99="+getPercentileNanos(99)+"ns)";
+	}
+
+}
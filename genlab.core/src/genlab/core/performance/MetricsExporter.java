@@ -0,0 +1,220 @@
+package genlab.core.performance;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.usermachineinteraction.GLLogger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Exports the snapshots of the global metrics registry: to CSV or JSON files,
+ * through JMX (MBean {@link #JMX_NAME}) and through a small HTTP server bound to the local 
+ * interface (/metrics.json, /metrics.csv, /algos).
+ * 
+ * Nothing is published by default.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public class MetricsExporter implements MetricsExporterMBean {
+
+	public static final String JMX_NAME = "genlab:type=Metrics";
+
+	/**
+	 * Count of algorithms listed in summaries
+	 */
+	public static final int SUMMARY_ALGOS = 20;
+
+	public static MetricsExporter singleton = new MetricsExporter(MetricsRegistry.singleton);
+
+	private final MetricsRegistry registry;
+
+	private HttpServer httpServer = null;
+
+	private boolean jmxRegistered = false;
+
+	public MetricsExporter(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public String getSnapshotJson() {
+		StringWriter writer = new StringWriter();
+		try {
+			registry.writeJson(writer);
+		} catch (IOException e) {
+			throw new ProgramException("unable to export the metrics", e);
+		}
+		return writer.toString();
+	}
+
+	@Override
+	public String getSnapshotCsv() {
+		StringWriter writer = new StringWriter();
+		try {
+			registry.writeCsv(writer);
+		} catch (IOException e) {
+			throw new ProgramException("unable to export the metrics", e);
+		}
+		return writer.toString();
+	}
+
+	@Override
+	public String getAlgosSummary() {
+		return registry.getHumanReadableState(SUMMARY_ALGOS);
+	}
+
+	/**
+	 * Writes a snapshot of the metrics in this file, as JSON if its extension is .json, else as CSV
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeSnapshot(File file) throws IOException {
+
+		Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			if (file.getName().toLowerCase().endsWith(".json"))
+				registry.writeJson(writer);
+			else
+				registry.writeCsv(writer);
+		} finally {
+			writer.close();
+		}
+		GLLogger.debugTech("exported the metrics to "+file.getAbsolutePath(), getClass());
+	}
+
+	@Override
+	public void writeSnapshot(String filename) {
+		try {
+			writeSnapshot(new File(filename));
+		} catch (IOException e) {
+			throw new ProgramException("unable to export the metrics to "+filename, e);
+		}
+	}
+
+	@Override
+	public void reset() {
+		registry.reset();
+	}
+
+	/**
+	 * Publishes the metrics through JMX (in the platform MBean server)
+	 */
+	public synchronized void registerJmx() {
+
+		if (jmxRegistered)
+			return;
+
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			server.registerMBean(this, new ObjectName(JMX_NAME));
+			jmxRegistered = true;
+			GLLogger.debugTech("metrics published through JMX as "+JMX_NAME, getClass());
+		} catch (Exception e) {
+			GLLogger.warnTech("unable to publish the metrics through JMX", getClass(), e);
+		}
+	}
+
+	public synchronized void unregisterJmx() {
+
+		if (!jmxRegistered)
+			return;
+
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean(new ObjectName(JMX_NAME));
+		} catch (Exception e) {
+			GLLogger.warnTech("unable to unpublish the metrics from JMX", getClass(), e);
+		}
+		jmxRegistered = false;
+	}
+
+	public synchronized boolean isJmxRegistered() {
+		return jmxRegistered;
+	}
+
+	private void reply(HttpExchange exchange, int code, String contentType, String content) throws IOException {
+
+		final byte[] bytes = content.getBytes("UTF-8");
+		exchange.getResponseHeaders().set("Content-Type", contentType+"; charset=utf-8");
+		exchange.sendResponseHeaders(code, bytes.length);
+		OutputStream os = exchange.getResponseBody();
+		try {
+			os.write(bytes);
+		} finally {
+			os.close();
+		}
+	}
+
+	/**
+	 * Starts to serve the metrics over HTTP on this port of the local interface
+	 * (0 for any free port). Does nothing if already started.
+	 * @param port
+	 */
+	public synchronized void startHttp(int port) {
+
+		if (httpServer != null)
+			return;
+
+		try {
+			httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		} catch (IOException e) {
+			throw new ProgramException("unable to serve the metrics on port "+port, e);
+		}
+		httpServer.createContext("/", new HttpHandler() {
+
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+
+				final String path = exchange.getRequestURI().getPath();
+				try {
+					if (path.equals("/metrics.json"))
+						reply(exchange, 200, "application/json", getSnapshotJson());
+					else if (path.equals("/metrics.csv"))
+						reply(exchange, 200, "text/csv", getSnapshotCsv());
+					else if (path.equals("/algos") || path.equals("/"))
+						reply(exchange, 200, "text/plain", getAlgosSummary());
+					else
+						reply(exchange, 404, "text/plain", "available: /metrics.json, /metrics.csv, /algos");
+				} catch (RuntimeException e) {
+					GLLogger.warnTech("error while serving the metrics", MetricsExporter.class, e);
+					reply(exchange, 500, "text/plain", e.toString());
+				}
+			}
+		});
+		httpServer.start();
+		GLLogger.infoTech("metrics served on http://localhost:"+getHttpPort()+"/metrics.json", getClass());
+	}
+
+	public synchronized void stopHttp() {
+
+		if (httpServer == null)
+			return;
+
+		httpServer.stop(0);
+		httpServer = null;
+	}
+
+	/**
+	 * Returns the port of the HTTP server, or -1 if it is not started
+	 * @return
+	 */
+	public synchronized int getHttpPort() {
+		return httpServer == null ? -1 : httpServer.getAddress().getPort();
+	}
+
+}
@@ -0,0 +1,21 @@
+package genlab.core.performance;
+
+/**
+ * The view of the metrics published through JMX.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
+public interface MetricsExporterMBean {
+
+	public String getSnapshotJson();
+	
+	public String getSnapshotCsv();
+	
+	public String getAlgosSummary();
+	
+	public void writeSnapshot(String filename);
+	
+	public void reset();
+	
+}
@@ -0,0 +1,361 @@
+package genlab.core.performance;
+
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.usermachineinteraction.GLLogger;
+import genlab.core.usermachineinteraction.UserMachineInteractionUtils;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Entry point for monitoring: a set of named counters and latency histograms.
+ *
+ * The singleton is the global registry. Scopes are child registries (for instance one per execution);
+ * what is recorded in a scope is recorded in its parent as well. The last scopes created are kept,
+ * so they can be exported.
+ *
+ * The durations of the algorithms are recorded in histograms named after their id ({@link #PREFIX_ALGO}).
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class MetricsRegistry {
+
+	public static final String PREFIX_ALGO = "algo.";
+
+	/**
+	 * Count of scopes kept by a registry
+	 */
+	public static final int MAX_SCOPES = 50;
+
+	public static MetricsRegistry singleton = new MetricsRegistry("genlab", null);
+
+	private final String name;
+
+	private final MetricsRegistry parent;
+
+	private final Map<String,Counter> counters = new ConcurrentHashMap<String, Counter>(50);
+
+	private final Map<String,LatencyHistogram> histograms = new ConcurrentHashMap<String, LatencyHistogram>(50);
+
+	/**
+	 * The last scopes used, the oldest first. Also used as the locker for it.
+	 */
+	private final LinkedHashMap<String,MetricsRegistry> scopes = new LinkedHashMap<String, MetricsRegistry>(16, 0.75f, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,MetricsRegistry> eldest) {
+			return size() > MAX_SCOPES;
+		}
+	};
+
+	protected MetricsRegistry(String name, MetricsRegistry parent) {
+		this.name = name;
+		this.parent = parent;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public MetricsRegistry getParent() {
+		return parent;
+	}
+
+	public Counter getCounter(String key) {
+		Counter res = counters.get(key);
+		if (res == null) {
+			synchronized (counters) {
+				res = counters.get(key);
+				if (res == null) {
+					res = new Counter(key, parent == null ? null : parent.getCounter(key));
+					counters.put(key, res);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the counter with this name, or null if it was never used
+	 * @param key
+	 * @return
+	 */
+	public Counter getExistingCounter(String key) {
+		return counters.get(key);
+	}
+
+	public LatencyHistogram getHistogram(String key) {
+		LatencyHistogram res = histograms.get(key);
+		if (res == null) {
+			synchronized (histograms) {
+				res = histograms.get(key);
+				if (res == null) {
+					res = new LatencyHistogram(key, parent == null ? null : parent.getHistogram(key));
+					histograms.put(key, res);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * Returns the scope of this name, created if necessary
+	 * @param scopeName
+	 * @return
+	 */
+	public MetricsRegistry getScope(String scopeName) {
+		synchronized (scopes) {
+			MetricsRegistry res = scopes.get(scopeName);
+			if (res == null) {
+				res = new MetricsRegistry(scopeName, this);
+				scopes.put(scopeName, res);
+			}
+			return res;
+		}
+	}
+
+	/**
+	 * Returns the scopes known, the oldest first
+	 * @return
+	 */
+	public List<MetricsRegistry> getScopes() {
+		synchronized (scopes) {
+			return new ArrayList<MetricsRegistry>(scopes.values());
+		}
+	}
+
+	public SortedMap<String,Long> getCounterValues() {
+		SortedMap<String,Long> res = new TreeMap<String, Long>();
+		for (Counter c: counters.values())
+			res.put(c.getName(), c.get());
+		return res;
+	}
+
+	public SortedMap<String,LatencyHistogram> getHistograms() {
+		return new TreeMap<String, LatencyHistogram>(histograms);
+	}
+
+	/**
+	 * Records the duration of the run of this task in the histogram of its algorithm,
+	 * in this registry and in the scope of its execution (if any).
+	 * @param exec
+	 * @param durationNs
+	 */
+	public void recordTask(IAlgoExecution exec, long durationNs) {
+
+		final String key = PREFIX_ALGO+exec.getAlgoInstance().getAlgo().getId();
+
+		if (this == singleton && exec.getExecution() != null && exec.getExecution().getMetrics() != null)
+			// the scope forwards it to us
+			exec.getExecution().getMetrics().getHistogram(key).recordNanos(durationNs);
+		else
+			getHistogram(key).recordNanos(durationNs);
+	}
+
+	/**
+	 * Resets all the counters and histograms of this registry and its scopes
+	 */
+	public void reset() {
+		for (Counter c: counters.values())
+			c.reset();
+		for (LatencyHistogram h: histograms.values())
+			h.reset();
+		for (MetricsRegistry scope: getScopes())
+			scope.reset();
+	}
+
+	/**
+	 * Writes a snapshot of this registry and its scopes as CSV, one line per metric
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeCsv(Writer writer) throws IOException {
+		writer.write("scope,metric,type,count,total_ns,mean_ns,min_ns,p50_ns,p90_ns,p99_ns,max_ns\n");
+		writeCsvLines(writer);
+		for (MetricsRegistry scope: getScopes())
+			scope.writeCsvLines(writer);
+		writer.flush();
+	}
+
+	protected static String quoteCsv(String s) {
+		if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0)
+			return s;
+		return "\""+s.replace("\"", "\"\"")+"\"";
+	}
+
+	protected void writeCsvLines(Writer writer) throws IOException {
+		final String scope = quoteCsv(name);
+		for (Map.Entry<String,Long> e: getCounterValues().entrySet()) {
+			writer.write(scope);
+			writer.write(',');
+			writer.write(quoteCsv(e.getKey()));
+			writer.write(",counter,");
+			writer.write(Long.toString(e.getValue()));
+			writer.write(",,,,,,,\n");
+		}
+		for (LatencyHistogram h: getHistograms().values()) {
+			writer.write(scope);
+			writer.write(',');
+			writer.write(quoteCsv(h.getName()));
+			writer.write(",histogram,");
+			writer.write(h.getCount()+","+h.getTotalNanos()+","+(long)h.getMeanNanos()+","+h.getMinNanos()+","
+					+h.getPercentileNanos(50)+","+h.getPercentileNanos(90)+","+h.getPercentileNanos(99)+","+h.getMaxNanos()+"\n");
+		}
+	}
+
+	protected static String quoteJson(String s) {
+		StringBuilder sb = new StringBuilder(s.length()+2);
+		sb.append('"');
+		for (int i=0; i<s.length(); i++) {
+			final char c = s.charAt(i);
+			switch (c) {
+			case '"': sb.append("\\\""); break;
+			case '\\': sb.append("\\\\"); break;
+			case '\n': sb.append("\\n"); break;
+			case '\r': sb.append("\\r"); break;
+			case '\t': sb.append("\\t"); break;
+			default:
+				if (c < 0x20)
+					sb.append(String.format("\\u%04x", (int)c));
+				else
+					sb.append(c);
+			}
+		}
+		sb.append('"');
+		return sb.toString();
+	}
+
+	/**
+	 * Writes a snapshot of this registry and its scopes as JSON
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeJson(Writer writer) throws IOException {
+		writeJsonObject(writer, true);
+		writer.flush();
+	}
+
+	protected void writeJsonObject(Writer writer, boolean withScopes) throws IOException {
+
+		writer.write("{\"name\":");
+		writer.write(quoteJson(name));
+
+		writer.write(",\"counters\":{");
+		boolean first = true;
+		for (Map.Entry<String,Long> e: getCounterValues().entrySet()) {
+			if (!first)
+				writer.write(',');
+			first = false;
+			writer.write(quoteJson(e.getKey()));
+			writer.write(':');
+			writer.write(Long.toString(e.getValue()));
+		}
+
+		writer.write("},\"histograms\":{");
+		first = true;
+		for (LatencyHistogram h: getHistograms().values()) {
+			if (!first)
+				writer.write(',');
+			first = false;
+			writer.write(quoteJson(h.getName()));
+			writer.write(":{\"count\":"+h.getCount()
+					+",\"total_ns\":"+h.getTotalNanos()
+					+",\"mean_ns\":"+(long)h.getMeanNanos()
+					+",\"min_ns\":"+h.getMinNanos()
+					+",\"p50_ns\":"+h.getPercentileNanos(50)
+					+",\"p90_ns\":"+h.getPercentileNanos(90)
+					+",\"p99_ns\":"+h.getPercentileNanos(99)
+					+",\"max_ns\":"+h.getMaxNanos()
+					+"}");
+		}
+		writer.write('}');
+
+		if (withScopes) {
+			writer.write(",\"scopes\":[");
+			first = true;
+			for (MetricsRegistry scope: getScopes()) {
+				if (!first)
+					writer.write(',');
+				first = false;
+				scope.writeJsonObject(writer, false);
+			}
+			writer.write(']');
+		}
+
+		writer.write('}');
+	}
+
+	/**
+	 * Returns the durations of the algorithms which took the most time, with their percentiles
+	 * @param maxAlgos
+	 * @return
+	 */
+	public String getHumanReadableState(int maxAlgos) {
+
+		List<LatencyHistogram> algos = new ArrayList<LatencyHistogram>();
+		for (LatencyHistogram h: histograms.values()) {
+			if (h.getName().startsWith(PREFIX_ALGO))
+				algos.add(h);
+		}
+		Collections.sort(algos, new Comparator<LatencyHistogram>() {
+
+			@Override
+			public int compare(LatencyHistogram o1, LatencyHistogram o2) {
+				return Long.compare(o2.getTotalNanos(), o1.getTotalNanos());
+			}
+		});
+
+		StringBuffer sb = new StringBuffer();
+		sb.append("statistics for ").append(name).append(":");
+		for (LatencyHistogram h: algos.subList(0, Math.min(maxAlgos, algos.size()))) {
+			sb.append("\n\t").append(h.getName().substring(PREFIX_ALGO.length()))
+				.append(": ").append(h.getCount()).append(" runs")
+				.append(", total ").append(UserMachineInteractionUtils.getHumanReadableTimeRepresentation(h.getTotalNanos()/1000000))
+				.append(", p50 ").append(h.getPercentileNanos(50)/1000).append(" us")
+				.append(", p99 ").append(h.getPercentileNanos(99)/1000).append(" us");
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Returns a human readable representation of all the metrics of this registry
+	 * @return
+	 */
+	public String getHumanRepresentation() {
+
+		StringBuffer sb = new StringBuffer("\n");
+		sb.append("statistics for ").append(name).append(":\n");
+		for (Map.Entry<String,Long> e: getCounterValues().entrySet()) {
+			sb.append("\t").append(e.getKey()).append(":\t").append(e.getValue()).append("\n");
+		}
+		for (LatencyHistogram h: getHistograms().values()) {
+			sb.append("\t").append(h.getName()).append(":\t")
+				.append(UserMachineInteractionUtils.getHumanReadableTimeRepresentation(h.getTotalNanos()/1000000))
+				.append(" (").append(h.getCount()).append(" times, p50 ").append(h.getPercentileNanos(50)/1000)
+				.append(" us, p99 ").append(h.getPercentileNanos(99)/1000).append(" us)\n");
+		}
+		return sb.toString();
+	}
+
+	public void printToStream(PrintStream ps) {
+		ps.println(getHumanRepresentation());
+	}
+
+	public void printToLog() {
+		GLLogger.debugTech(getHumanRepresentation(), getClass());
+	}
+
+}
@@ -0,0 +1,620 @@
+package genlab.core.performance;
+
+import genlab.core.exec.IContainerTask;
+import genlab.core.exec.ITask;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.usermachineinteraction.GLLogger;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records the lifecycle of tasks (queued in a runner, ready, started, ran by a worker, finished)
+ * and exports it as a timeline in the Chrome trace event format (to be opened in chrome://tracing
+ * or any compatible viewer), with a summary: critical path, idle time of each worker,
+ * delays spent waiting for dependencies and for a worker.
+ *
+ * When a workflow (a task without parent) finishes, its timeline is written into the results
+ * directory of its execution, and forgotten.
+ *
+ * Disabled by default. When enabled, each transition costs a lookup and a timestamp; the tasks
+ * are referenced until they are cleaned by the runner.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class TimelineProfiler {
+
+	/**
+	 * Count of tasks recorded at most; the next ones are ignored
+	 */
+	public static final int MAX_RECORDS = 1000000;
+
+	/**
+	 * Count of steps of the critical path detailed in the summary
+	 */
+	public static final int MAX_CRITICAL_STEPS = 30;
+
+	public static TimelineProfiler singleton = new TimelineProfiler();
+
+	/**
+	 * What we know about a task
+	 */
+	protected static final class TaskRecord {
+
+		final int id;
+		final int parentId;
+		final int rootId;
+		final String name;
+		final String category;
+		final boolean container;
+
+		volatile String runner = null;
+		volatile String worker = null;
+		volatile String state = null;
+
+		volatile long queuedNs = -1;
+		volatile long readyNs = -1;
+		volatile long startedNs = -1;
+		volatile long runStartNs = -1;
+		volatile long runEndNs = -1;
+		volatile long finishedNs = -1;
+
+		volatile int[] prerequisites = null;
+
+		TaskRecord(int id, TaskRecord parent, String name, String category, boolean container) {
+			this.id = id;
+			this.parentId = parent == null ? -1 : parent.id;
+			this.rootId = parent == null ? id : parent.rootId;
+			this.name = name;
+			this.category = category;
+			this.container = container;
+		}
+
+		long getEndNs() {
+			return finishedNs >= 0 ? finishedNs : runEndNs;
+		}
+
+		long getBeginNs() {
+			if (queuedNs >= 0)
+				return queuedNs;
+			if (readyNs >= 0)
+				return readyNs;
+			return startedNs >= 0 ? startedNs : runStartNs;
+		}
+	}
+
+	private volatile boolean enabled = false;
+
+	private volatile long originNs = System.nanoTime();
+	private volatile long originMs = System.currentTimeMillis();
+
+	private final AtomicInteger nextId = new AtomicInteger(0);
+	private final AtomicInteger countDropped = new AtomicInteger(0);
+
+	/**
+	 * The records of the tasks alive
+	 */
+	private final ConcurrentHashMap<Object,TaskRecord> task2record = new ConcurrentHashMap<Object, TaskRecord>(1000);
+
+	/**
+	 * All the records not exported yet
+	 */
+	private final ConcurrentLinkedQueue<TaskRecord> records = new ConcurrentLinkedQueue<TaskRecord>();
+
+	private final AtomicInteger countRecords = new AtomicInteger(0);
+
+	public TimelineProfiler() {
+
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(boolean enabled) {
+		if (enabled && !this.enabled)
+			reset();
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Forgets everything recorded
+	 */
+	public void reset() {
+		task2record.clear();
+		records.clear();
+		countRecords.set(0);
+		countDropped.set(0);
+		originNs = System.nanoTime();
+		originMs = System.currentTimeMillis();
+	}
+
+	private TaskRecord getOrCreateRecord(ITask task) {
+
+		TaskRecord record = task2record.get(task);
+		if (record != null)
+			return record;
+
+		if (countRecords.get() >= MAX_RECORDS) {
+			if (countDropped.getAndIncrement() == 0)
+				GLLogger.warnTech("more than "+MAX_RECORDS+" tasks profiled; the next ones will be ignored", getClass());
+			return null;
+		}
+
+		final TaskRecord parent = task.getParent() == null ? null : task2record.get(task.getParent());
+		String category = "task";
+		if (task instanceof IAlgoExecution && ((IAlgoExecution)task).getAlgoInstance() != null)
+			category = ((IAlgoExecution)task).getAlgoInstance().getAlgo().getId();
+		record = new TaskRecord(
+				nextId.getAndIncrement(),
+				parent,
+				task.getName(),
+				category,
+				task instanceof IContainerTask
+				);
+
+		final TaskRecord previous = task2record.putIfAbsent(task, record);
+		if (previous != null)
+			return previous;
+
+		records.add(record);
+		countRecords.incrementAndGet();
+		return record;
+	}
+
+	/**
+	 * Called by runners when a task is submitted to them
+	 * @param task
+	 * @param runner
+	 */
+	public void taskQueued(ITask task, Object runner) {
+
+		if (!enabled)
+			return;
+
+		final TaskRecord record = getOrCreateRecord(task);
+		if (record == null)
+			return;
+		if (record.queuedNs < 0)
+			record.queuedNs = System.nanoTime();
+		if (record.runner == null)
+			record.runner = runner.getClass().getSimpleName();
+	}
+
+	/**
+	 * Called by runners when the state of a task changes
+	 * @param exec
+	 * @param state
+	 */
+	public void taskStateChanged(IAlgoExecution exec, ComputationState state) {
+
+		if (!enabled)
+			return;
+
+		final TaskRecord record = getOrCreateRecord(exec);
+		if (record == null)
+			return;
+
+		final long now = System.nanoTime();
+
+		switch (state) {
+		case READY:
+			if (record.readyNs < 0)
+				record.readyNs = now;
+			break;
+		case STARTED:
+			if (record.startedNs < 0)
+				record.startedNs = now;
+			break;
+		case FINISHED_OK:
+		case FINISHED_FAILURE:
+		case FINISHED_CANCEL:
+			if (record.finishedNs >= 0)
+				break;
+			record.finishedNs = now;
+			record.state = state.toString();
+			// remember the tasks we depended on
+			final Collection<ITask> prerequires = exec.getPrerequires();
+			if (prerequires != null && !prerequires.isEmpty()) {
+				final int[] ids = new int[prerequires.size()];
+				int count = 0;
+				for (ITask pre: prerequires) {
+					final TaskRecord preRecord = task2record.get(pre);
+					if (preRecord != null && count < ids.length)
+						ids[count++] = preRecord.id;
+				}
+				final int[] res = new int[count];
+				System.arraycopy(ids, 0, res, 0, count);
+				record.prerequisites = res;
+			}
+			if (exec.getParent() == null)
+				workflowFinished(exec, record);
+			break;
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Called by a worker just before it runs a task
+	 * @param exec
+	 * @param worker the name of the worker (if null, the one of the current thread)
+	 */
+	public void taskRunStarted(IAlgoExecution exec, String worker) {
+
+		if (!enabled)
+			return;
+
+		final TaskRecord record = getOrCreateRecord(exec);
+		if (record == null)
+			return;
+		record.worker = worker == null ? Thread.currentThread().getName() : worker;
+		record.runStartNs = System.nanoTime();
+	}
+
+	/**
+	 * Called by a worker just after it ran a task
+	 * @param exec
+	 */
+	public void taskRunEnded(IAlgoExecution exec) {
+
+		if (!enabled)
+			return;
+
+		final TaskRecord record = task2record.get(exec);
+		if (record == null)
+			return;
+		record.runEndNs = System.nanoTime();
+	}
+
+	/**
+	 * Called by runners when a task is cleaned; we will not receive anything for it anymore.
+	 * @param task
+	 */
+	public void taskCleaned(Object task) {
+
+		if (!enabled)
+			return;
+
+		task2record.remove(task);
+	}
+
+	/**
+	 * Returns the records of this workflow, and forgets them.
+	 * @param rootId
+	 * @return
+	 */
+	protected List<TaskRecord> extractRecords(int rootId) {
+
+		final List<TaskRecord> res = new ArrayList<TaskRecord>();
+		Iterator<TaskRecord> it = records.iterator();
+		while (it.hasNext()) {
+			final TaskRecord r = it.next();
+			if (rootId >= 0 && r.rootId != rootId)
+				continue;
+			res.add(r);
+			it.remove();
+			countRecords.decrementAndGet();
+		}
+		return res;
+	}
+
+	protected void workflowFinished(IAlgoExecution exec, TaskRecord root) {
+
+		final List<TaskRecord> workflowRecords = extractRecords(root.rootId);
+		if (exec.getExecution() == null)
+			return;
+
+		try {
+			final String prefix = "timeline_"+new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+			final File directory = exec.getExecution().getResultsDirectory();
+			final File fileTrace = new File(directory, prefix+".json");
+			final File fileSummary = new File(directory, prefix+".txt");
+			writeTrace(workflowRecords, fileTrace);
+			writeSummary(workflowRecords, fileSummary);
+			exec.getExecution().getListOfMessages().infoUser(
+					"the timeline of the execution was written to "+fileTrace.getAbsolutePath()+" (summary: "+fileSummary.getName()+")",
+					getClass()
+					);
+		} catch (IOException e) {
+			GLLogger.warnTech("unable to write the timeline of "+exec.getName(), getClass(), e);
+		} catch (RuntimeException e) {
+			GLLogger.warnTech("unable to write the timeline of "+exec.getName(), getClass(), e);
+		}
+	}
+
+	/**
+	 * Writes the timeline of everything recorded (and not exported yet), and forgets it.
+	 * @param fileTrace the trace (Chrome trace event format)
+	 * @param fileSummary the summary (text), or null
+	 * @throws IOException
+	 */
+	public void writeTimeline(File fileTrace, File fileSummary) throws IOException {
+
+		final List<TaskRecord> all = extractRecords(-1);
+		writeTrace(all, fileTrace);
+		if (fileSummary != null)
+			writeSummary(all, fileSummary);
+	}
+
+	private long toMicros(long ns) {
+		return (ns-originNs)/1000;
+	}
+
+	private static Integer getIndex(Map<String,Integer> map, String key) {
+		Integer res = map.get(key);
+		if (res == null) {
+			res = map.size()+1;
+			map.put(key, res);
+		}
+		return res;
+	}
+
+	protected void writeTrace(List<TaskRecord> all, File file) throws IOException {
+
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writeTrace(all, writer);
+		} finally {
+			writer.close();
+		}
+	}
+
+	protected void writeTrace(List<TaskRecord> all, Writer writer) throws IOException {
+
+		final Map<String,Integer> runner2pid = new LinkedHashMap<String, Integer>();
+		final Map<String,Integer> worker2tid = new LinkedHashMap<String, Integer>();
+
+		writer.write("{\"displayTimeUnit\":\"ms\",\"otherData\":{\"origin_epoch_ms\":"+originMs+"},\"traceEvents\":[\n");
+
+		boolean first = true;
+		for (TaskRecord r: all) {
+
+			final int pid = getIndex(runner2pid, r.runner == null ? "runner" : r.runner);
+			final StringBuilder sb = new StringBuilder(300);
+
+			// waiting for dependencies, then for a worker
+			final long readyOrRun = r.readyNs >= 0 ? r.readyNs : r.runStartNs;
+			if (r.queuedNs >= 0 && readyOrRun > r.queuedNs)
+				appendAsync(sb, "waiting dependencies", "wait", r.id, pid, r.queuedNs, readyOrRun);
+			if (!r.container && r.readyNs >= 0 && r.runStartNs > r.readyNs)
+				appendAsync(sb, "waiting worker", "queue", r.id, pid, r.readyNs, r.runStartNs);
+
+			if (r.runStartNs >= 0 && r.runEndNs >= r.runStartNs) {
+				// actually ran by a worker
+				final int tid = getIndex(worker2tid, r.worker);
+				sb.append("{\"name\":").append(MetricsRegistry.quoteJson(r.name))
+					.append(",\"cat\":").append(MetricsRegistry.quoteJson(r.category))
+					.append(",\"ph\":\"X\",\"pid\":").append(pid)
+					.append(",\"tid\":").append(tid)
+					.append(",\"ts\":").append(toMicros(r.runStartNs))
+					.append(",\"dur\":").append((r.runEndNs-r.runStartNs)/1000)
+					.append(",\"args\":{\"id\":").append(r.id)
+					.append(",\"parent\":").append(r.parentId)
+					.append(",\"state\":").append(MetricsRegistry.quoteJson(String.valueOf(r.state)))
+					.append("}},\n");
+			} else if (r.getBeginNs() >= 0 && r.getEndNs() >= 0) {
+				// containers and tasks which run on their own
+				final long begin = r.startedNs >= 0 ? r.startedNs : r.getBeginNs();
+				appendAsync(sb, r.name, r.container ? "container" : r.category, r.id, pid, begin, r.getEndNs());
+			}
+
+			if (sb.length() == 0)
+				continue;
+			if (!first)
+				writer.write(",\n");
+			first = false;
+			// remove the last separator
+			writer.write(sb.substring(0, sb.length()-2));
+		}
+
+		// names of processes and threads
+		for (Map.Entry<String,Integer> e: runner2pid.entrySet()) {
+			if (!first)
+				writer.write(",\n");
+			first = false;
+			writer.write("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":"+e.getValue()+",\"tid\":0,\"args\":{\"name\":"+MetricsRegistry.quoteJson(e.getKey())+"}}");
+		}
+		for (Map.Entry<String,Integer> e: worker2tid.entrySet()) {
+			for (Integer pid: runner2pid.values()) {
+				if (!first)
+					writer.write(",\n");
+				first = false;
+				writer.write("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":"+pid+",\"tid\":"+e.getValue()+",\"args\":{\"name\":"+MetricsRegistry.quoteJson(e.getKey())+"}}");
+			}
+		}
+
+		writer.write("\n]}\n");
+		writer.flush();
+	}
+
+	private void appendAsync(StringBuilder sb, String name, String category, int id, int pid, long beginNs, long endNs) {
+		final String common = "{\"name\":"+MetricsRegistry.quoteJson(name)+",\"cat\":"+MetricsRegistry.quoteJson(category)+",\"id\":"+id+",\"pid\":"+pid+",\"tid\":0";
+		sb.append(common).append(",\"ph\":\"b\",\"ts\":").append(toMicros(beginNs)).append("},\n");
+		sb.append(common).append(",\"ph\":\"e\",\"ts\":").append(toMicros(endNs)).append("},\n");
+	}
+
+	protected void writeSummary(List<TaskRecord> all, File file) throws IOException {
+
+		final Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+		try {
+			writer.write(getSummary(all));
+		} finally {
+			writer.close();
+		}
+	}
+
+	private static String ms(long ns) {
+		return String.format("%.1f ms", ns/1000000d);
+	}
+
+	/**
+	 * Returns the summary of these records: critical path, idle time per worker, delays
+	 * @param all
+	 * @return
+	 */
+	protected String getSummary(List<TaskRecord> all) {
+
+		final StringBuffer sb = new StringBuffer();
+
+		long begin = Long.MAX_VALUE;
+		long end = Long.MIN_VALUE;
+		final Map<Integer,TaskRecord> id2record = new HashMap<Integer, TaskRecord>(all.size()*2);
+		for (TaskRecord r: all) {
+			id2record.put(r.id, r);
+			if (r.getBeginNs() >= 0)
+				begin = Math.min(begin, r.getBeginNs());
+			if (r.getEndNs() >= 0)
+				end = Math.max(end, r.getEndNs());
+		}
+		if (begin > end) {
+			return "nothing was recorded\n";
+		}
+		final long wall = end-begin;
+		sb.append(all.size()).append(" tasks, ").append(ms(wall)).append(" from the first submission to the last end\n");
+		if (countDropped.get() > 0)
+			sb.append("(").append(countDropped.get()).append(" tasks were not recorded)\n");
+
+		// delays
+		final LatencyHistogram waitDependencies = new LatencyHistogram("waiting for dependencies", null);
+		final LatencyHistogram waitWorker = new LatencyHistogram("waiting for a worker", null);
+		final LatencyHistogram run = new LatencyHistogram("running", null);
+		for (TaskRecord r: all) {
+			if (r.container)
+				continue;
+			if (r.queuedNs >= 0 && r.readyNs >= r.queuedNs)
+				waitDependencies.recordNanos(r.readyNs-r.queuedNs);
+			if (r.readyNs >= 0 && r.runStartNs >= r.readyNs)
+				waitWorker.recordNanos(r.runStartNs-r.readyNs);
+			if (r.runStartNs >= 0 && r.runEndNs >= r.runStartNs)
+				run.recordNanos(r.runEndNs-r.runStartNs);
+		}
+		sb.append("\ndelays per task:\n");
+		for (LatencyHistogram h: new LatencyHistogram[] { waitDependencies, waitWorker, run }) {
+			sb.append("\t").append(h.getName()).append(": ")
+				.append(h.getCount()).append(" tasks, mean ").append(ms((long)h.getMeanNanos()))
+				.append(", p50 ").append(ms(h.getPercentileNanos(50)))
+				.append(", p99 ").append(ms(h.getPercentileNanos(99)))
+				.append(", max ").append(ms(h.getMaxNanos()))
+				.append(", total ").append(ms(h.getTotalNanos()))
+				.append("\n");
+		}
+
+		// idle time per worker
+		final Map<String,Long> worker2busy = new HashMap<String, Long>();
+		for (TaskRecord r: all) {
+			if (r.worker == null || r.runStartNs < 0 || r.runEndNs < r.runStartNs)
+				continue;
+			final Long previous = worker2busy.get(r.worker);
+			worker2busy.put(r.worker, (previous == null ? 0 : previous) + r.runEndNs-r.runStartNs);
+		}
+		final List<String> workers = new ArrayList<String>(worker2busy.keySet());
+		Collections.sort(workers);
+		sb.append("\nworkers (").append(workers.size()).append("):\n");
+		for (String worker: workers) {
+			final long busy = worker2busy.get(worker);
+			sb.append("\t").append(worker).append(": busy ").append(ms(busy))
+				.append(", idle ").append(ms(Math.max(0, wall-busy)))
+				.append(String.format(" (%.0f%%)", wall == 0 ? 0d : 100d*Math.max(0, wall-busy)/wall))
+				.append("\n");
+		}
+
+		// critical path: from the last task which ended, go back through the prerequisite which ended last
+		TaskRecord current = null;
+		for (TaskRecord r: all) {
+			if (r.container || r.getEndNs() < 0)
+				continue;
+			if (current == null || r.getEndNs() > current.getEndNs())
+				current = r;
+		}
+		final LinkedList<TaskRecord> path = new LinkedList<TaskRecord>();
+		final Set<TaskRecord> visited = new HashSet<TaskRecord>();
+		while (current != null && visited.add(current)) {
+			path.addFirst(current);
+			TaskRecord next = null;
+			final int[] prerequisites = current.prerequisites;
+			if (prerequisites != null) {
+				for (int id: prerequisites) {
+					final TaskRecord pre = id2record.get(id);
+					if (pre == null || pre.getEndNs() < 0)
+						continue;
+					if (next == null || pre.getEndNs() > next.getEndNs())
+						next = pre;
+				}
+			}
+			current = next;
+		}
+		if (!path.isEmpty()) {
+			long running = 0;
+			for (TaskRecord r: path) {
+				if (r.runStartNs >= 0 && r.runEndNs >= r.runStartNs)
+					running += r.runEndNs-r.runStartNs;
+			}
+			final long length = path.getLast().getEndNs()-path.getFirst().getBeginNs();
+			sb.append("\ncritical path: ").append(path.size()).append(" tasks, ").append(ms(length))
+				.append(" of which ").append(ms(running)).append(" running and ").append(ms(Math.max(0, length-running))).append(" waiting\n");
+			int count = 0;
+			for (TaskRecord r: path) {
+				if (count++ >= MAX_CRITICAL_STEPS) {
+					sb.append("\t...\n");
+					break;
+				}
+				sb.append("\t").append(r.name).append(" (").append(r.category).append(")");
+				if (r.readyNs >= 0 && r.runStartNs >= r.readyNs)
+					sb.append(": waited ").append(ms(r.runStartNs-r.readyNs)).append(" for a worker");
+				if (r.runStartNs >= 0 && r.runEndNs >= r.runStartNs)
+					sb.append(", ran ").append(ms(r.runEndNs-r.runStartNs)).append(" on ").append(r.worker);
+				sb.append("\n");
+			}
+		}
+
+		// the longest tasks
+		final List<TaskRecord> ran = new ArrayList<TaskRecord>();
+		for (TaskRecord r: all) {
+			if (r.runStartNs >= 0 && r.runEndNs >= r.runStartNs)
+				ran.add(r);
+		}
+		Collections.sort(ran, new Comparator<TaskRecord>() {
+
+			@Override
+			public int compare(TaskRecord o1, TaskRecord o2) {
+				return Long.compare(o2.runEndNs-o2.runStartNs, o1.runEndNs-o1.runStartNs);
+			}
+		});
+		sb.append("\nlongest tasks:\n");
+		for (TaskRecord r: ran.subList(0, Math.min(10, ran.size()))) {
+			sb.append("\t").append(r.name).append(" (").append(r.category).append("): ").append(ms(r.runEndNs-r.runStartNs)).append("\n");
+		}
+
+		return sb.toString();
+	}
+
+	public String getHumanReadableState() {
+		if (!enabled)
+			return "disabled";
+		return "enabled, "+countRecords.get()+" tasks recorded";
+	}
+
+}
@@ -110,6 +110,54 @@ public class GLLogger {
 		ListsOfMessages.getGenlabMessages().infoTech(message, fromClass);
 	}
 
+	public static boolean isTraceEnabled(Class fromClass) {
+		return ListsOfMessages.getGenlabMessages().isTraceEnabled(fromClass);
+	}
+
+	public static boolean isDebugEnabled(Class fromClass) {
+		return ListsOfMessages.getGenlabMessages().isDebugEnabled(fromClass);
+	}
+
+	public static boolean isInfoEnabled(Class fromClass) {
+		return ListsOfMessages.getGenlabMessages().isInfoEnabled(fromClass);
+	}
+
+	public static void traceTech(Class fromClass, String pattern, Object arg1) {
+		ListsOfMessages.getGenlabMessages().traceTech(fromClass, pattern, arg1);
+	}
+
+	public static void traceTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		ListsOfMessages.getGenlabMessages().traceTech(fromClass, pattern, arg1, arg2);
+	}
+
+	public static void traceTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		ListsOfMessages.getGenlabMessages().traceTech(fromClass, pattern, arg1, arg2, arg3);
+	}
+
+	public static void debugTech(Class fromClass, String pattern, Object arg1) {
+		ListsOfMessages.getGenlabMessages().debugTech(fromClass, pattern, arg1);
+	}
+
+	public static void debugTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		ListsOfMessages.getGenlabMessages().debugTech(fromClass, pattern, arg1, arg2);
+	}
+
+	public static void debugTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		ListsOfMessages.getGenlabMessages().debugTech(fromClass, pattern, arg1, arg2, arg3);
+	}
+
+	public static void infoTech(Class fromClass, String pattern, Object arg1) {
+		ListsOfMessages.getGenlabMessages().infoTech(fromClass, pattern, arg1);
+	}
+
+	public static void infoTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		ListsOfMessages.getGenlabMessages().infoTech(fromClass, pattern, arg1, arg2);
+	}
+
+	public static void infoTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		ListsOfMessages.getGenlabMessages().infoTech(fromClass, pattern, arg1, arg2, arg3);
+	}
+
 	public static void tipTech(String message, String fromShort, Class fromClass) {
 		ListsOfMessages.getGenlabMessages().tipTech(message, fromShort, fromClass);
 	}
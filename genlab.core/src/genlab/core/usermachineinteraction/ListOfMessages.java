@@ -3,20 +3,22 @@ package genlab.core.usermachineinteraction;
 import genlab.core.commons.ProgramException;
 import genlab.core.commons.WrongParametersException;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.PrintStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.log4j.BasicConfigurator;
 import org.apache.log4j.Level;
@@ -27,10 +29,15 @@ import org.apache.log4j.Priority;
  * Stores a set of messages. Orders them by increasing timestamp.
  * Avoids to add many times a message, by just increasing the amount of occurences (for the X last messages).
  * 
- * Verbosity can be tuned at different levels:
+ * Verbosity can be tuned at different levels; the messages which would be filtered are 
+ * ignored before being created.
  * 
+ * Messages are not stored immediately: they are published into the {@link MessagesPipeline} 
+ * shared by all the lists, which delivers them from one single thread. So a list of messages does 
+ * not cost a thread, and emitting a message does not take any lock. Messages are stored in 
+ * append-only segments, which are only sorted when read (messages are almost always received 
+ * in order).
  * 
- * TODO thread safety, please !
  * TODO observer pattern
  * 
  * @author Samuel Thiriot
@@ -62,39 +69,73 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	
 	
 	/**
-	 * The maximum size for the "pending in queue" messages.
+	 * The maximum size for the "pending in queue" messages (shared by all the lists).
 	 */
-	public static final int QUEUE_SIZE = 2000;
+	public static final int QUEUE_SIZE = MessagesPipeline.CAPACITY;
 
 	public static final MessageLevel DEFAULT_LEVEL = MessageLevel.TRACE;
 
 	protected MessageLevel filterIgnoreBelowForDeveloper = MessageLevel.TRACE;
 	protected MessageLevel filterIgnoreBelowForUser = MessageLevel.TRACE;
 
-	private static Map<String, MessageLevel> CLASSNAME_TO_LEVEL = new HashMap<String, MessageLevel>(200);
-	private static Map<Class, MessageLevel> CLASS_TO_LEVEL = new HashMap<Class, MessageLevel>(200);
+	private static Map<String, MessageLevel> CLASSNAME_TO_LEVEL = new ConcurrentHashMap<String, MessageLevel>(200);
+
+	/**
+	 * The level defined for a class, as computed for a given generation of the settings
+	 */
+	private static final class ClassLevel {
+		volatile int generation = -1;
+		volatile MessageLevel level = null;
+	}
+	
+	/**
+	 * Incremented when the settings of levels per class change, so the levels cached per class are computed again
+	 */
+	private static volatile int levelsGeneration = 0;
+	
+	/**
+	 * The classes which emitted messages
+	 */
+	private static final Map<Class,Boolean> KNOWN_EMITTERS = new ConcurrentHashMap<Class, Boolean>(200);
+	
+	/**
+	 * Level cached for each class, so the check of the level requires neither lookup by name nor allocation
+	 */
+	private static final ClassValue<ClassLevel> CLASS_TO_LEVEL = new ClassValue<ClassLevel>() {
+
+		@Override
+		protected ClassLevel computeValue(Class<?> type) {
+			KNOWN_EMITTERS.put(type, Boolean.TRUE);
+			return new ClassLevel();
+		}
+	};
 
 	/**
 	 * Returns the prefered level for this emittor, or null if not specified
 	 * @param emitter
 	 * @return
 	 */
+	@SuppressWarnings("unchecked")
 	private static final MessageLevel getLevelForClass(Class emitter) {
 		
 		if (emitter == null)
 			return null;
 		
 		// quick solution: we already now this mapping
-		MessageLevel res = CLASS_TO_LEVEL.get(emitter);
+		final ClassLevel cached = CLASS_TO_LEVEL.get(emitter);
+		final int generation = levelsGeneration;
+		if (cached.generation == generation)
+			return cached.level;
 		
-		// sadly it's the first time we're asked it
-		if (res == null) {
-			// search if it was provided as parameters
-			res = CLASSNAME_TO_LEVEL.get(emitter.getCanonicalName());
-			// Nota: it might be null !
-			// store it so we become more efficient
-			CLASS_TO_LEVEL.put(emitter, res);
-		}
+		// sadly it's the first time we're asked it (since the last change of settings)
+		// search if it was provided as parameters
+		// (local and anonymous classes have no canonical name)
+		final String classname = emitter.getCanonicalName();
+		final MessageLevel res = classname == null ? null : CLASSNAME_TO_LEVEL.get(classname);
+		// Nota: it might be null !
+		// store it so we become more efficient
+		cached.level = res;
+		cached.generation = generation;
 		
 		return res;
 		
@@ -103,8 +144,9 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	public static final SortedSet<String> getMessageProducers() {
 		
 		TreeSet<String> res = new TreeSet<String>();
-		for (Class c : CLASS_TO_LEVEL.keySet()) {
-			res.add(c.getCanonicalName());
+		for (Class c : KNOWN_EMITTERS.keySet()) {
+			if (c.getCanonicalName() != null)
+				res.add(c.getCanonicalName());
 		}
 		return res;
 		
@@ -113,8 +155,8 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	public static Map<String, MessageLevel> getClassnameAndLevel() {
 		Map<String, MessageLevel> res = new HashMap<String, MessageLevel>();
 		
-		for (Class c: CLASS_TO_LEVEL.keySet()) {
-			res.put(c.getCanonicalName(), CLASS_TO_LEVEL.get(c));
+		for (Class c: KNOWN_EMITTERS.keySet()) {
+			res.put(c.getCanonicalName(), getLevelForClass(c));
 		}
 
 		for (String s: CLASSNAME_TO_LEVEL.keySet()) {
@@ -131,7 +173,7 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 			CLASSNAME_TO_LEVEL.remove(classname);
 		else 
 			CLASSNAME_TO_LEVEL.put(classname, level);
-		CLASS_TO_LEVEL.clear();
+		levelsGeneration++;
 	}
 	
 	public void setFilterIgnoreBelow(MessageLevel filterIgnoreBelowDeveloper, MessageLevel filterIgnoreBelowUser) {
@@ -140,23 +182,46 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 		
 	}
 
+	/*
+	 * storage: the messages, in segments of fixed size, in the order of reception
+	 */
+	private static final int SEGMENT_BITS = 9;
+	private static final int SEGMENT_SIZE = 1 << SEGMENT_BITS;
+	private static final int SEGMENT_MASK = SEGMENT_SIZE-1;
+	
+	/**
+	 * How many of the last messages are compared with a novel one to detect repetitions
+	 */
+	private static final int COUNT_LAST_COMPARED = 3;
+	
+	private transient ArrayList<ITextMessage[]> segments;
+	private transient int size;
+	/**
+	 * false when a message was received after a more recent one
+	 */
+	private transient boolean sorted;
 	/**
-	 * Stores the messages as soon as received. Then they will be added to the sorted space;
+	 * Locks the storage. Only taken by the thread delivering messages and by readers.
 	 */
-	protected transient BlockingQueue<ITextMessage> receivedMessages = new LinkedBlockingQueue<ITextMessage>(QUEUE_SIZE);
+	private transient Object lockStorage;
 
+	/*
+	 * messages pending delivery
+	 */
+	private transient AtomicLong countSubmitted;
+	private transient volatile long countDelivered;
+	private transient Object lockDelivered;
+	private transient volatile int countWaiting;
 	
 	/**
-	 * All the messages in natural order (by timestamp)
+	 * when true, the messages received are ignored
 	 */
-	private TreeSet<ITextMessage> sortedMessages = new TreeSet<ITextMessage>();
+	private transient volatile boolean stopped;
 
-	private transient LinkedList<IListOfMessagesListener> listeners = new LinkedList<IListOfMessagesListener>();
+	private transient CopyOnWriteArrayList<IListOfMessagesListener> listeners;
 	
 	private transient long countMessagesCanBeDeleted = 0;
 	
-	protected transient final ReceiveMessagesThread queueConsumerThread;
-
 	/**
 	 * true if received one message (even if it was cleaned) or level error.
 	 */
@@ -200,16 +265,36 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 		this.limitStartCleanup = cleanupSize;
 		this.cleanupTarget = cleanupTarget;
 		
-		queueConsumerThread = new ReceiveMessagesThread();
-		queueConsumerThread.start();
+		initTransient();
+	}
+	
+	private void initTransient() {
+		
+		segments = new ArrayList<ITextMessage[]>();
+		size = 0;
+		sorted = true;
+		lockStorage = new Object();
+		
+		countSubmitted = new AtomicLong(0);
+		countDelivered = 0;
+		lockDelivered = new Object();
+		
+		listeners = new CopyOnWriteArrayList<IListOfMessagesListener>();
 	}
 	
 	public boolean isEmpty() {
-		return sortedMessages.isEmpty();
+		synchronized (lockStorage) {
+			return size == 0;
+		}
 	}
 	
 	public ITextMessage last() {
-		return sortedMessages.last();
+		synchronized (lockStorage) {
+			if (size == 0)
+				throw new java.util.NoSuchElementException();
+			ensureSorted();
+			return get(size-1);
+		}
 	}
 
 	/**
@@ -221,30 +306,73 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 		return containedAnError;
 	}
 
+	/*
+	 * storage primitives; the lock of the storage should be hold
+	 */
+	
+	private final ITextMessage get(int i) {
+		return segments.get(i >> SEGMENT_BITS)[i & SEGMENT_MASK];
+	}
+	
+	private final void append(ITextMessage e) {
+		if ((size & SEGMENT_MASK) == 0)
+			segments.add(new ITextMessage[SEGMENT_SIZE]);
+		segments.get(size >> SEGMENT_BITS)[size & SEGMENT_MASK] = e;
+		size++;
+	}
+	
+	private final ITextMessage[] toArray() {
+		ITextMessage[] res = new ITextMessage[size];
+		for (int s=0; s<segments.size(); s++) {
+			final int offset = s << SEGMENT_BITS;
+			System.arraycopy(segments.get(s), 0, res, offset, Math.min(SEGMENT_SIZE, size-offset));
+		}
+		return res;
+	}
+	
+	/**
+	 * Replaces the content of the storage
+	 * @param messages
+	 * @param count
+	 */
+	private final void reset(ITextMessage[] messages, int count) {
+		segments = new ArrayList<ITextMessage[]>(count/SEGMENT_SIZE+1);
+		size = 0;
+		for (int i=0; i<count; i++)
+			append(messages[i]);
+	}
+	
+	/**
+	 * Sorts the messages by timestamp, if some were not received in order
+	 */
+	private final void ensureSorted() {
+		if (sorted)
+			return;
+		ITextMessage[] all = toArray();
+		Arrays.sort(all);
+		reset(all, all.length);
+		sorted = true;
+	}
+	
 	protected void clearOld() {
 			
-		synchronized (sortedMessages) {
+		synchronized (lockStorage) {
 			
-			//System.err.println("can be cleaned: "+countMessagesCanBeDeleted);
+			ensureSorted();
 			
-			long timeBegin = System.currentTimeMillis();
-			Iterator<ITextMessage> it = sortedMessages.iterator();
-			ITextMessage current = null;
-			while (it.hasNext() && countMessagesCanBeDeleted > cleanupTarget) {
-				
-				current = it.next();
-				if (current.getLevel().compareTo(MessageLevel.DEBUG) <= 0) {
-					it.remove();
+			ITextMessage[] all = toArray();
+			int kept = 0;
+			for (int i=0; i<all.length; i++) {
+				final ITextMessage current = all[i];
+				if (countMessagesCanBeDeleted > cleanupTarget && current.getLevel().compareTo(MessageLevel.DEBUG) <= 0) {
 					countMessagesCanBeDeleted --;
+					continue;
 				}
-				
+				all[kept++] = current;
 			}
-			//System.err.println("can be cleaned: "+countMessagesCanBeDeleted);
-			//System.err.println("cleanup took "+(System.currentTimeMillis()-timeBegin)+" ms");
-			
+			reset(all, kept);
 		}
 		
-		
 	}
 	
 	
@@ -256,24 +384,15 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 */
 	private void _add(ITextMessage e) {
 		
-		synchronized (sortedMessages) {
-			
-			Iterator<ITextMessage> it = sortedMessages.descendingIterator();
+		synchronized (lockStorage) {
 			
 			// attempt to find a similar message in time (in the previous 3 messages ?)
 			ITextMessage messageIdentical = null;
-			{
-				ITextMessage current = null;
-				int i=3;
-				while (it.hasNext() && (i-- > 0) ) {
-					
-					current = it.next();
-					
-					if (current.equals(e)) {
-						messageIdentical = current;
-						break;
-					}
-						
+			for (int i=size-1; i>=0 && i>=size-COUNT_LAST_COMPARED; i--) {
+				final ITextMessage current = get(i);
+				if (current.equals(e)) {
+					messageIdentical = current;
+					break;
 				}
 			}
 								
@@ -282,7 +401,9 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 				messageIdentical.addIncrementCount();
 	
 			} else {
-				sortedMessages.add(e);	
+				if (sorted && size > 0 && e.compareTo(get(size-1)) < 0)
+					sorted = false;
+				append(e);
 				
 				if (DEFAULT_RELAY_TO_LOG4J) {
 					
@@ -316,119 +437,13 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	}
 	
 	/**
-	 * This thread consumes the queue of messages.
-	 * 
-	 * @author Samuel Thiriot
-	 *
+	 * Sends the message to the pipeline of messages
+	 * @param e
 	 */
-	protected class ReceiveMessagesThread extends Thread {
-		
-		/**
-		 * Once received in the queue, the thread will notify the end of the thread.
-		 */
-		protected final ITextMessage MESSAGE_PILL_NOTIFY_EMPTY = new TextMessage(null, null, this.getClass(), null);
+	private final void submit(ITextMessage e) {
 		
-		/**
-		 * If true, the thread will attempt to stop (when consuming a message)
-		 */
-		protected boolean cancel = false;
-		
-		/**
-		 * Is notified when the queue becomes empty.
-		 */
-		private Object notifierReceivedMessages = new Object();
-		
-		protected boolean notifyWhenEmpty = false;
-		
-		public ReceiveMessagesThread() {
-			super();
-			
-			setName("glConsumeMessages");
-			setPriority(NORM_PRIORITY);
-			setDaemon(true);
-		}
-		
-		public void cancel() {
-			
-			// cancel in case the thread in consuming messages
-			this.cancel = true; 
-		
-			// and interrupt
-			interrupt();
-		}
-		
-		public void waitUntilEndOfQueue() {
-			
-			// submit a magic pill at the end of the queue.
-			// so even if many, many things are still trying to push data into the queue, we are 
-			// in some way accepting a large part of their data before.
-			try {
-				receivedMessages.put(MESSAGE_PILL_NOTIFY_EMPTY);
-			} catch (InterruptedException e1) {
-				throw new RuntimeException("unable to enqueue another message");
-			}
-			
-			// and wait for it to work
-			synchronized (notifierReceivedMessages) {
-				this.interrupt();
-				try {
-					notifierReceivedMessages.wait();
-				} catch (InterruptedException e) {
-					// TODO Auto-generated catch block
-					e.printStackTrace();
-				}
-			}
-			
-			notifyWhenEmpty = false;
-		}
-		
-		protected void signalQueueEmpty() {
-			synchronized (notifierReceivedMessages) {
-				notifierReceivedMessages.notifyAll();
-			}
-			notifyWhenEmpty = false;
-		}
-		
-		public void run() {
-			
-			//long total = 0;
-			//long made = 0;
-			
-			while (!cancel) {
-				
-				if (notifyWhenEmpty && receivedMessages.isEmpty()) {
-					signalQueueEmpty();
-				}
-				
-				try {
-					ITextMessage message = receivedMessages.take();
-					if (message == MESSAGE_PILL_NOTIFY_EMPTY) {
-						if (receivedMessages.isEmpty()) {
-							signalQueueEmpty();	
-						} else {
-							notifyWhenEmpty = true;
-						}
-						continue;
-					}
-					//long start = System.currentTimeMillis();
-					addDelayed(message);
-					/*total += (System.currentTimeMillis()-start);
-					made++;
-					/*if (made > 2 && made % 500 == 1) {
-						System.err.println("adding and sending a message costs ~"+(total/made)+"ms (on "+made+" messages)");
-						total = 0;
-						made = 0;
-					}*/
-				} catch (InterruptedException e) {
-					
-				}
-				
-				// for debug
-				//if (receivedMessages.remainingCapacity() < 1000)
-				//	System.err.println("****************************** REACHING CAPACITY :!!!!! =========================**");
-				
-			}
-		}
+		countSubmitted.incrementAndGet();
+		MessagesPipeline.singleton.publish(this, e); // may wait for the pipeline to have room
 	}
 	
 	/**
@@ -453,13 +468,11 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 			return false;
 		*/
 		
-		try {
-			// add the message to the list of messages to be processed.
-			receivedMessages.put(e); // may wait for the queue to be small enough
-		} catch (InterruptedException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		} 
+		if (stopped)
+			return false;
+		
+		// add the message to the list of messages to be processed.
+		submit(e);
 		
 		if (e.getLevel() == MessageLevel.ERROR) {
 			containedAnError = true; 
@@ -484,14 +497,11 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 				)
 			return false;
 		
+		if (stopped)
+			return false;
 		
-		try {
-			// add the message to the list of messages to be processed.
-			receivedMessages.put(e); // may wait for the queue to be small enough
-		} catch (InterruptedException e1) {
-			// TODO Auto-generated catch block
-			e1.printStackTrace();
-		} 
+		// add the message to the list of messages to be processed.
+		submit(e);
 		
 		if (e.getLevel() == MessageLevel.ERROR) {
 			containedAnError = true; 
@@ -501,19 +511,35 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	}
 	
 	/**
-	 * Actual add of the message. Inserts the message in the right place, and calls listeners.
+	 * Called by the pipeline of messages: actual add of the message. 
+	 * Inserts the message in the right place, and calls listeners.
+	 * A null message is only a marker for waiting the delivery.
 	 * @param e
 	 */
-	private void addDelayed(ITextMessage e) {
-		
-		_add(e);
+	void deliver(ITextMessage e) {
 		
-		for (IListOfMessagesListener l : new LinkedList<IListOfMessagesListener>(getListeners())) {
-			l.messageAdded(this, e);
-		}
-		
-		for (IListOfMessagesListener l : new LinkedList<IListOfMessagesListener>(getListeners())) {
-			l.contentChanged(this);
+		try {
+			if (e != null) {
+				
+				_add(e);
+				
+				for (IListOfMessagesListener l : listeners) {
+					l.messageAdded(this, e);
+				}
+				
+				for (IListOfMessagesListener l : listeners) {
+					l.contentChanged(this);
+				}
+			}
+		} finally {
+			
+			countDelivered++;
+			
+			if (countWaiting > 0 && countDelivered >= countSubmitted.get()) {
+				synchronized (lockDelivered) {
+					lockDelivered.notifyAll();
+				}
+			}
 		}
 		
 	}
@@ -523,8 +549,28 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 * Remember that once a message was added, it takes time before being added.
 	 */
 	public void waitUntilMessagesQueueConsumed() {
-		if (queueConsumerThread != null)
-			queueConsumerThread.waitUntilEndOfQueue();
+		
+		// the thread delivering messages can not wait for itself
+		if (MessagesPipeline.singleton.isConsumerThread())
+			return;
+		
+		// submit a marker at the end of the queue.
+		// so even if many, many things are still trying to push data into the queue, we are 
+		// in some way accepting a large part of their data before.
+		submit(null);
+		
+		synchronized (lockDelivered) {
+			countWaiting++;
+			try {
+				while (countDelivered < countSubmitted.get()) {
+					lockDelivered.wait(10);
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			} finally {
+				countWaiting--;
+			}
+		}
 	}
 	
 	/**
@@ -532,11 +578,10 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 * @return
 	 */
 	public Iterator<ITextMessage> iterator() {
-		// TODO ! wait for the end of dispatch messages queues before analysis !!!
 		
 		waitUntilMessagesQueueConsumed();
 
-		return sortedMessages.iterator();
+		return Arrays.asList(asArray()).iterator();
 	}
 
 	/**
@@ -546,61 +591,31 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 */
 	public boolean addAll(Iterable<ITextMessage> others) {
 
+		if (stopped)
+			return false;
 		
 		for (ITextMessage m : others) {
 			
-			try {
-				if (m.getLevel().shouldDisplay(filterIgnoreBelowForDeveloper))
-					receivedMessages.put(m);
-			} catch (InterruptedException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
-		}
-		
-		/* OLD implementation 
-		 * 
-		 
-		// add messages
-		synchronized (sortedMessages) {
-
-			Iterator<ITextMessage> itOther = others.iterator();
-			
-			while (itOther.hasNext()) {
-				ITextMessage m = itOther.next();
-				
-				if (m.getLevel().shouldDisplay(filterIgnoreBelow))
-					this._add(m);
-			}
-			
-
+			if (m.getLevel().shouldDisplay(filterIgnoreBelowForDeveloper))
+				submit(m);
 		}
 		
-		// raise messages
-		synchronized (listeners) {
-			for (IListOfMessagesListener l : getListeners()) {
-				l.contentChanged(this);
-			}
-		}
-		
-		*/
 		return true;
 		
 	}
 	
 	public void clear() {
 		
-		synchronized (sortedMessages) {
+		synchronized (lockStorage) {
 
-			sortedMessages.clear();
+			segments.clear();
+			size = 0;
+			sorted = true;
+			countMessagesCanBeDeleted = 0;
 			
 		}
-		if (listeners != null) {
-			synchronized (listeners) {
-				for (IListOfMessagesListener l : getListeners()) {
-					l.contentChanged(this);
-				}
-			}
+		for (IListOfMessagesListener l : listeners) {
+			l.contentChanged(this);
 		}
 			
 		containedAnError = false;
@@ -609,18 +624,14 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 
 	public ITextMessage[] asArray() {
 		
-		synchronized (sortedMessages) {
+		synchronized (lockStorage) {
 
-			return sortedMessages.toArray(new ITextMessage[sortedMessages.size()]);
+			ensureSorted();
+			return toArray();
 		
 		}
 	}
 	
-	private final Collection<IListOfMessagesListener> getOrCreateListeners() {
-		
-		return listeners;
-	}
-	
 	public Collection<IListOfMessagesListener> getListeners() {
 		return listeners;
 	}
@@ -629,23 +640,19 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 		if (l == null) 
 			throw new WrongParametersException("listeners should never be null");
 			
-		synchronized (listeners) {
-			getOrCreateListeners().add(l);
-		}
+		listeners.add(l);
 		
 	}
 	
 	public void removeListener(IListOfMessagesListener l) {
-		synchronized (listeners) {
-			getOrCreateListeners().remove(l);
-		}
+		listeners.remove(l);
 	}
 	
 	public int getSize() {
 	
-		synchronized (sortedMessages) {
+		synchronized (lockStorage) {
 
-			return sortedMessages.size();
+			return size;
 		}
 	}
 		
@@ -664,6 +671,115 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 		
 	}
 	
+	/**
+	 * Returns true if a technical message of level TRACE from this class would be kept.
+	 * Intended to guard the building of costly messages.
+	 * @param fromClass
+	 * @return
+	 */
+	public final boolean isTraceEnabled(Class fromClass) {
+		return shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.TRACE, fromClass);
+	}
+	
+	/**
+	 * Returns true if a technical message of level DEBUG from this class would be kept.
+	 * @param fromClass
+	 * @return
+	 */
+	public final boolean isDebugEnabled(Class fromClass) {
+		return shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.DEBUG, fromClass);
+	}
+	
+	/**
+	 * Returns true if a technical message of level INFO from this class would be kept.
+	 * @param fromClass
+	 * @return
+	 */
+	public final boolean isInfoEnabled(Class fromClass) {
+		return shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.INFO, fromClass);
+	}
+	
+	/**
+	 * Replaces each "{}" of the pattern by the next argument. 
+	 * @param pattern
+	 * @param args
+	 * @return
+	 */
+	protected static final String format(String pattern, Object arg1, Object arg2, Object arg3, int countArgs) {
+		
+		final StringBuilder sb = new StringBuilder(pattern.length()+32);
+		int argIdx = 0;
+		int from = 0;
+		int idx;
+		while (argIdx < countArgs && (idx = pattern.indexOf("{}", from)) >= 0) {
+			sb.append(pattern, from, idx);
+			sb.append(argIdx == 0 ? arg1 : (argIdx == 1 ? arg2 : arg3));
+			argIdx++;
+			from = idx+2;
+		}
+		sb.append(pattern, from, pattern.length());
+		return sb.toString();
+	}
+	
+	/*
+	 * Parameterized variants: the message is only built if it would be kept. 
+	 * Each "{}" of the pattern is replaced by the next argument.
+	 */
+	
+	public final void traceTech(Class fromClass, String pattern, Object arg1) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.TRACE, fromClass))
+			return;
+		traceTech(format(pattern, arg1, null, null, 1), fromClass);
+	}
+	
+	public final void traceTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.TRACE, fromClass))
+			return;
+		traceTech(format(pattern, arg1, arg2, null, 2), fromClass);
+	}
+	
+	public final void traceTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.TRACE, fromClass))
+			return;
+		traceTech(format(pattern, arg1, arg2, arg3, 3), fromClass);
+	}
+	
+	public final void debugTech(Class fromClass, String pattern, Object arg1) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.DEBUG, fromClass))
+			return;
+		debugTech(format(pattern, arg1, null, null, 1), fromClass);
+	}
+	
+	public final void debugTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.DEBUG, fromClass))
+			return;
+		debugTech(format(pattern, arg1, arg2, null, 2), fromClass);
+	}
+	
+	public final void debugTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.DEBUG, fromClass))
+			return;
+		debugTech(format(pattern, arg1, arg2, arg3, 3), fromClass);
+	}
+	
+	public final void infoTech(Class fromClass, String pattern, Object arg1) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.INFO, fromClass))
+			return;
+		infoTech(format(pattern, arg1, null, null, 1), fromClass);
+	}
+	
+	public final void infoTech(Class fromClass, String pattern, Object arg1, Object arg2) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.INFO, fromClass))
+			return;
+		infoTech(format(pattern, arg1, arg2, null, 2), fromClass);
+	}
+	
+	public final void infoTech(Class fromClass, String pattern, Object arg1, Object arg2, Object arg3) {
+		if (!shouldDisplay(MessageAudience.DEVELOPER, MessageLevel.INFO, fromClass))
+			return;
+		infoTech(format(pattern, arg1, arg2, arg3, 3), fromClass);
+	}
+	
 	public final void debugUser(String message, String fromShort, Class fromClass) {
 		if (!shouldDisplay(MessageAudience.USER, MessageLevel.DEBUG, fromClass))
 			return;
@@ -1107,16 +1223,6 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 			);
 	}
 
-	@Override
-	protected void finalize() throws Throwable {
-	
-		if (queueConsumerThread != null) {
-			queueConsumerThread.cancel();
-		}
-		
-		super.finalize();
-	}
-	
 	/**
 	 * Returns true if it contains a messages of this level. O(n).
 	 * @param searchedLevel
@@ -1124,10 +1230,10 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 */
 	public boolean containsMessageLevel(MessageLevel searchedLevel) {
 		 
-		synchronized (sortedMessages) {
+		synchronized (lockStorage) {
 	
-			for (ITextMessage message: sortedMessages) {
-				if (message.getLevel() == searchedLevel)
+			for (int i=0; i<size; i++) {
+				if (get(i).getLevel() == searchedLevel)
 					return true;
 			}
 
@@ -1141,11 +1247,8 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 */
 	public void dumpToStream(PrintStream ps) {
 		
-		synchronized (sortedMessages) {
-
-			for (ITextMessage message: sortedMessages) {
-				ps.println(message.toString());
-			}
+		for (ITextMessage message: asArray()) {
+			ps.println(message.toString());
 		}
 	}
 
@@ -1162,8 +1265,23 @@ public class ListOfMessages implements Iterable<ITextMessage>, Serializable {
 	 * anymore, even if it's keeping its current messages
 	 */
 	public void stop() {
-		if (queueConsumerThread != null)
-			queueConsumerThread.cancel();
+		stopped = true;
 	}
+	
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		out.defaultWriteObject();
+		out.writeObject(asArray());
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+		in.defaultReadObject();
+		initTransient();
+		ITextMessage[] messages = (ITextMessage[])in.readObject();
+		reset(messages, messages.length);
+		for (ITextMessage m: messages) {
+			if (m.getLevel() == MessageLevel.ERROR)
+				containedAnError = true;
+		}
+	}
+	
 }
-
@@ -0,0 +1,137 @@
+package genlab.core.usermachineinteraction;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The asynchronous pipeline shared by all the lists of messages: the messages are published
+ * into a bounded ring buffer, and one single thread delivers them to their list (which stores them and
+ * notifies its listeners). So a list of messages costs no thread, and emitting a message
+ * only claims a slot in the ring (no lock).
+ *
+ * When the ring is full, emitters wait for the consumer to make room (as with the bounded
+ * queues used before).
+ *
+ * @author Samuel Thiriot
+ *
+ */
+final class MessagesPipeline implements Runnable {
+
+	/**
+	 * Size of the ring (power of 2)
+	 */
+	public static final int CAPACITY = 1 << 14;
+	private static final int MASK = CAPACITY-1;
+
+	/**
+	 * Time the consumer sleeps when there is nothing to do; it is woken up by emitters anyway.
+	 */
+	private static final long IDLE_PARK_NS = 10*1000*1000;
+
+	public static final MessagesPipeline singleton = new MessagesPipeline();
+
+	private final ListOfMessages[] targets = new ListOfMessages[CAPACITY];
+	private final ITextMessage[] messages = new ITextMessage[CAPACITY];
+
+	/**
+	 * For each slot, 1 + the sequence of the message published in it
+	 */
+	private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+
+	/**
+	 * The next sequence to be claimed by an emitter
+	 */
+	private final AtomicLong claimed = new AtomicLong(0);
+
+	/**
+	 * The next sequence to be consumed
+	 */
+	private volatile long consumed = 0;
+
+	private volatile boolean consumerSleeping = false;
+
+	private final Thread consumer;
+
+	private MessagesPipeline() {
+
+		consumer = new Thread(this, "glConsumeMessages");
+		consumer.setPriority(Thread.NORM_PRIORITY);
+		consumer.setDaemon(true);
+		consumer.start();
+	}
+
+	/**
+	 * Returns true if the current thread is the one delivering messages
+	 * (so it should never wait for them to be delivered)
+	 * @return
+	 */
+	public boolean isConsumerThread() {
+		return Thread.currentThread() == consumer;
+	}
+
+	/**
+	 * Publishes this message for this list; it will be delivered later by the consumer thread.
+	 * A null message is a marker, which only notifies the list it was reached.
+	 * @param target
+	 * @param message
+	 */
+	public void publish(ListOfMessages target, ITextMessage message) {
+
+		if (isConsumerThread()) {
+			// emitted while delivering (probably by a listener): the consumer can not wait for itself
+			target.deliver(message);
+			return;
+		}
+
+		final long sequence = claimed.getAndIncrement();
+
+		// wait for room in the ring
+		while (sequence - consumed >= CAPACITY) {
+			LockSupport.unpark(consumer);
+			LockSupport.parkNanos(100*1000);
+		}
+
+		final int idx = (int)(sequence & MASK);
+		targets[idx] = target;
+		messages[idx] = message;
+		published.set(idx, sequence+1);
+
+		if (consumerSleeping)
+			LockSupport.unpark(consumer);
+	}
+
+	@Override
+	public void run() {
+
+		while (true) {
+
+			final long sequence = consumed;
+			final int idx = (int)(sequence & MASK);
+
+			if (published.get(idx) != sequence+1) {
+				// nothing to consume; sleep until woken up by an emitter
+				consumerSleeping = true;
+				if (published.get(idx) != sequence+1)
+					LockSupport.parkNanos(this, IDLE_PARK_NS);
+				consumerSleeping = false;
+				continue;
+			}
+
+			final ListOfMessages target = targets[idx];
+			final ITextMessage message = messages[idx];
+			targets[idx] = null;
+			messages[idx] = null;
+			consumed = sequence+1;
+
+			try {
+				target.deliver(message);
+			} catch (RuntimeException e) {
+				// don't let a listener kill the delivery of messages
+				e.printStackTrace();
+			}
+		}
+
+	}
+
+}
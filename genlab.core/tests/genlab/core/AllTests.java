@@ -9,7 +9,17 @@ import org.junit.runners.Suite.SuiteClasses;
 @SuiteClasses(
 		{ 
 			genlab.core.usermachineinteraction.AllTests.class,
-			genlab.core.commons.AllTests.class
+			genlab.core.commons.AllTests.class,
+			genlab.core.exec.TestResourcesBudget.class,
+			genlab.core.exec.client.TestDistantBatchWorkerThread.class,
+			genlab.core.exec.client.TestWorkStealingRunner.class,
+			genlab.core.performance.TestMetricsRegistry.class,
+			genlab.core.performance.TestTimelineProfiler.class,
+			genlab.core.model.meta.basics.graphs.TestCompactGraph.class,
+			genlab.core.model.meta.basics.graphs.TestCopyOnWriteGraph.class,
+			genlab.core.model.meta.basics.graphs.TestGraphBuilder.class,
+			genlab.core.model.meta.basics.flowtypes.TestColumnarGenlabTable.class,
+			genlab.core.model.meta.basics.flowtypes.TestSpillableGenlabTable.class
 			}
 		)
 public class AllTests {
@@ -8,7 +8,8 @@ import org.junit.runners.Suite.SuiteClasses;
 @RunWith(Suite.class)
 @SuiteClasses(
 		{ 
-			TestUniqueTimestamp.class
+			TestUniqueTimestamp.class,
+			TestWireFormat.class
 			}
 		)
 public class AllTests {
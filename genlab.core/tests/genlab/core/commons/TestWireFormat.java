@@ -0,0 +1,152 @@
+package genlab.core.commons;
+
+import static org.junit.Assert.*;
+
+import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.graphs.GraphDirectionality;
+import genlab.core.model.meta.basics.graphs.GraphFactory;
+import genlab.core.model.meta.basics.graphs.IGenlabGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+public class TestWireFormat {
+
+	@SuppressWarnings("unchecked")
+	protected static <T> T roundTrip(T o) throws IOException, ClassNotFoundException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(o);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			return (T)ois.readObject();
+		} finally {
+			ois.close();
+		}
+	}
+
+	@Test
+	public void testValues() throws IOException {
+
+		WireOutput out = new WireOutput(16);
+		out.writeVarInt(0);
+		out.writeVarInt(Integer.MAX_VALUE);
+		out.writeSignedVarInt(-1);
+		out.writeSignedVarInt(Integer.MIN_VALUE);
+		out.writeSignedVarLong(Long.MIN_VALUE);
+		out.writeInternedString("a");
+		out.writeInternedString("a");
+		out.writeInternedString(null);
+		out.writeString("été");
+		Map<String,Object> map = new HashMap<String, Object>();
+		map.put("int", 42);
+		map.put("double", 0.5);
+		map.put("string", "a");
+		map.put("boolean", true);
+		map.put("long", 1L << 40);
+		map.put("float", 1.5f);
+		map.put("class", String.class);
+		map.put("null", null);
+		map.put("other", new Date(12));
+		out.writeMap(map);
+
+		WireInput in = new WireInput(out.toByteArray());
+		assertEquals(0, in.readVarInt());
+		assertEquals(Integer.MAX_VALUE, in.readVarInt());
+		assertEquals(-1, in.readSignedVarInt());
+		assertEquals(Integer.MIN_VALUE, in.readSignedVarInt());
+		assertEquals(Long.MIN_VALUE, in.readSignedVarLong());
+		assertEquals("a", in.readInternedString());
+		assertEquals("a", in.readInternedString());
+		assertNull(in.readInternedString());
+		assertEquals("été", in.readString());
+		assertEquals(map, in.readMap());
+		assertEquals(0, in.available());
+	}
+
+	@Test
+	public void testGraph() throws Exception {
+
+		for (GraphDirectionality directionality: new GraphDirectionality[] { GraphDirectionality.DIRECTED, GraphDirectionality.UNDIRECTED }) {
+
+			IGenlabGraph g = GraphFactory.createGraph("test", directionality, false);
+			g.declareGraphAttribute("name", String.class);
+			g.declareVertexAttribute("x", Double.class);
+			g.declareEdgeAttribute("weight", Integer.class);
+			g.setGraphAttribute("name", "a graph");
+			for (int i=0; i<100; i++) {
+				g.addVertex();
+				g.setVertexAttribute(Integer.toString(i), "x", i/2.0);
+			}
+			g.addVertex("named");
+			for (int i=1; i<100; i++) {
+				String e = g.addEdge(Integer.toString(i-1), Integer.toString(i), directionality == GraphDirectionality.DIRECTED);
+				g.setEdgeAttribute(e, "weight", i);
+			}
+			g.addEdge("explicit", "0", "named", directionality == GraphDirectionality.DIRECTED);
+
+			IGenlabGraph g2 = roundTrip(g);
+
+			assertEquals(g.getGraphId(), g2.getGraphId());
+			assertEquals(g.getDirectionality(), g2.getDirectionality());
+			assertEquals(g.getVerticesCount(), g2.getVerticesCount());
+			assertEquals(g.getEdgesCount(), g2.getEdgesCount());
+			assertEquals("a graph", g2.getGraphAttribute("name"));
+			assertEquals(g.getDeclaredVertexAttributesAndTypes(), g2.getDeclaredVertexAttributesAndTypes());
+			assertEquals(g.getDeclaredEdgeAttributesAndTypes(), g2.getDeclaredEdgeAttributesAndTypes());
+			assertEquals(10.0, g2.getVertexAttributeValue("20", "x"));
+			assertTrue(g2.containsVertex("named"));
+			assertTrue(g2.containsEdge("explicit"));
+			assertTrue(g2.containsEdge("4", "5"));
+			assertEquals(5, g2.getEdgeAttributeValue("4_to_5", "weight"));
+		}
+	}
+
+	@Test
+	public void testTable() throws Exception {
+
+		GenlabTable t = new GenlabTable();
+		t.declareColumn("a");
+		t.declareColumn("b");
+		t.setTableMetaData("meta", "value");
+		t.setColumnMetaData("a", "meta", 1);
+		for (int i=0; i<50; i++) {
+			t.addRow(new Object[] { i, (i % 2 == 0) ? null : "odd" });
+		}
+
+		GenlabTable t2 = roundTrip(t);
+
+		assertEquals(t.getColumnsId(), t2.getColumnsId());
+		assertEquals(t.getRowsCount(), t2.getRowsCount());
+		assertEquals("value", t2.getTableMetaData("meta"));
+		assertEquals(t.getColumnMetaData("a"), t2.getColumnMetaData("a"));
+		for (int i=0; i<t.getRowsCount(); i++) {
+			assertArrayEquals(t.getValues(i), t2.getValues(i));
+		}
+	}
+
+	@Test
+	public void testCompression() throws Exception {
+
+		final int previousThreshold = WireFormat.compressionThreshold;
+		WireFormat.compressionThreshold = 0;
+		try {
+			testGraph();
+			testTable();
+		} finally {
+			WireFormat.compressionThreshold = previousThreshold;
+		}
+	}
+
+}
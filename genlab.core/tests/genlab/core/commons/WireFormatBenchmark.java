@@ -0,0 +1,132 @@
+package genlab.core.commons;
+
+import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.graphs.AbstractGraphstreamBasedGraph;
+import genlab.core.model.meta.basics.graphs.GraphDirectionality;
+import genlab.core.model.meta.basics.graphs.GraphFactory;
+import genlab.core.model.meta.basics.graphs.IGenlabGraph;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.HashMap;
+import java.util.Random;
+
+/**
+ * Compares the size and speed of the java serialization of graphstream graphs
+ * (as sent to distant servers before the compact format) with the compact binary format.
+ * Not a unit test: run it as a java application.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class WireFormatBenchmark {
+
+	public static final int COUNT_VERTICES = 20000;
+	public static final int COUNT_EDGES = 100000;
+	public static final int COUNT_ROWS = 100000;
+	public static final int REPEAT = 10;
+
+	protected static IGenlabGraph createGraph(Random random) {
+		IGenlabGraph g = GraphFactory.createGraph("bench", GraphDirectionality.UNDIRECTED, false);
+		g.declareVertexAttribute("x", Double.class);
+		for (int i=0; i<COUNT_VERTICES; i++) {
+			String v = g.addVertex();
+			g.setVertexAttribute(v, "x", random.nextDouble());
+		}
+		int added = 0;
+		while (added < COUNT_EDGES) {
+			String from = Integer.toString(random.nextInt(COUNT_VERTICES));
+			String to = Integer.toString(random.nextInt(COUNT_VERTICES));
+			if (from.equals(to) || g.containsEdge(from, to))
+				continue;
+			g.addEdge(from, to, false);
+			added++;
+		}
+		return g;
+	}
+
+	protected static GenlabTable createTable(Random random) {
+		GenlabTable t = new GenlabTable();
+		t.declareColumn("iteration");
+		t.declareColumn("density");
+		t.declareColumn("status");
+		for (int i=0; i<COUNT_ROWS; i++) {
+			t.addRow(new Object[] { i, random.nextDouble(), random.nextBoolean() ? "ok" : "failed" });
+		}
+		return t;
+	}
+
+	/**
+	 * The content previously written for a graph
+	 */
+	@SuppressWarnings("rawtypes")
+	protected static Object[] legacyContent(IGenlabGraph g) {
+		AbstractGraphstreamBasedGraph gg = (AbstractGraphstreamBasedGraph)g;
+		return new Object[] {
+				gg._getInternalGraphstreamGraph(),
+				new HashMap<String,Class>(gg.getDeclaredGraphAttributesAndTypes()),
+				new HashMap<String,Class>(gg.getDeclaredEdgeAttributesAndTypes()),
+				new HashMap<String,Class>(gg.getDeclaredVertexAttributesAndTypes())
+		};
+	}
+
+	protected static byte[] serialize(Object o) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(o);
+		oos.close();
+		return bytes.toByteArray();
+	}
+
+	protected static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException {
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+		try {
+			return ois.readObject();
+		} finally {
+			ois.close();
+		}
+	}
+
+	protected static void measure(String name, Object o) throws Exception {
+
+		byte[] bytes = null;
+		long start = System.nanoTime();
+		for (int i=0; i<REPEAT; i++)
+			bytes = serialize(o);
+		final double writeMs = (System.nanoTime()-start)/1000000.0/REPEAT;
+
+		start = System.nanoTime();
+		for (int i=0; i<REPEAT; i++)
+			deserialize(bytes);
+		final double readMs = (System.nanoTime()-start)/1000000.0/REPEAT;
+
+		System.out.println(String.format("%-30s %10d bytes, write %8.1f ms, read %8.1f ms", name, bytes.length, writeMs, readMs));
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		Random random = new Random(42);
+
+		IGenlabGraph g = createGraph(random);
+		GenlabTable t = createTable(random);
+
+		// warm up
+		measure("(warm up)", g);
+
+		measure("graph, java serialization", legacyContent(g));
+		WireFormat.compressionThreshold = -1;
+		measure("graph, compact", g);
+		WireFormat.compressionThreshold = 0;
+		measure("graph, compact + deflate", g);
+
+		WireFormat.compressionThreshold = -1;
+		measure("table, compact", t);
+		WireFormat.compressionThreshold = 0;
+		measure("table, compact + deflate", t);
+
+	}
+
+}
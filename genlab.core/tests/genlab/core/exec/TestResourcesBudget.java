@@ -0,0 +1,342 @@
+package genlab.core.exec;
+
+import static org.junit.Assert.*;
+
+import genlab.core.exec.client.AbstractRunner;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.exec.IComputationProgress;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestResourcesBudget {
+
+	protected static ResourcesDemand heap(long bytes) {
+		return new ResourcesDemand(bytes, 0, 0);
+	}
+
+	@Test
+	public void testAdmission() {
+
+		ResourcesBudget budget = new ResourcesBudget(100, 100, 2);
+
+		assertTrue(budget.tryAcquire(heap(60)));
+		assertFalse(budget.tryAcquire(heap(60)));
+		assertTrue(budget.tryAcquire(heap(40)));
+
+		assertEquals(100, budget.getUsedHeapBytes());
+		assertEquals(1, budget.getCountRefused());
+
+		// a demand for another resource is not impacted
+		assertTrue(budget.tryAcquire(new ResourcesDemand(0, 50, 1)));
+		assertEquals(50, budget.getUsedNativeBytes());
+		assertEquals(1, budget.getUsedIoSlots());
+	}
+
+	@Test
+	public void testRelease() {
+
+		ResourcesBudget budget = new ResourcesBudget(100, 100, 2);
+
+		final ResourcesDemand d = new ResourcesDemand(80, 80, 1);
+		assertTrue(budget.tryAcquire(d));
+		assertFalse(budget.tryAcquire(d));
+
+		budget.release(d);
+		assertEquals(0, budget.getUsedHeapBytes());
+		assertEquals(0, budget.getUsedNativeBytes());
+		assertEquals(0, budget.getUsedIoSlots());
+
+		assertTrue(budget.tryAcquire(d));
+	}
+
+	@Test
+	public void testOversizedAcceptedWhenIdle() {
+
+		ResourcesBudget budget = new ResourcesBudget(100, 100, 1);
+
+		final ResourcesDemand big = heap(500);
+
+		// refused while another task uses the heap...
+		assertTrue(budget.tryAcquire(heap(10)));
+		assertFalse(budget.tryAcquire(big));
+		budget.release(heap(10));
+
+		// ... but accepted when the heap is idle, else it would never run
+		assertTrue(budget.tryAcquire(big));
+		assertEquals(5.0, budget.getHeapUtilisation(), 1e-9);
+		assertFalse(budget.tryAcquire(heap(1)));
+
+		// tasks which do not use the heap still run meanwhile
+		assertTrue(budget.tryAcquire(new ResourcesDemand(0, 10, 1)));
+
+		budget.release(big);
+		assertTrue(budget.tryAcquire(heap(1)));
+	}
+
+	@Test
+	public void testIoSlots() {
+
+		ResourcesBudget budget = new ResourcesBudget(100, 100, 2);
+
+		final ResourcesDemand io = new ResourcesDemand(0, 0, 1);
+		assertTrue(budget.tryAcquire(io));
+		assertTrue(budget.tryAcquire(io));
+		assertFalse(budget.tryAcquire(io));
+
+		// demands without IO are not limited by the IO slots
+		assertTrue(budget.tryAcquire(heap(10)));
+	}
+
+	@Test
+	public void testIoSlotsSizedFromThreads() {
+
+		assertEquals(8, new ResourcesBudget(8).getCapacityIoSlots());
+		assertEquals(1, new ResourcesBudget(0).getCapacityIoSlots());
+		assertEquals(ResourcesBudget.getDefaultCapacityHeapBytes(), new ResourcesBudget(8).getCapacityHeapBytes());
+	}
+
+	@Test
+	public void testExclusiveEngines() {
+
+		ResourcesBudget budget = new ResourcesBudget(100, 100, 2);
+
+		final ResourcesDemand r = new ResourcesDemand(0, 0, 0, "R");
+		assertTrue(budget.tryAcquire(r));
+		assertFalse(budget.tryAcquire(r));
+		assertTrue(budget.tryAcquire(new ResourcesDemand(0, 0, 0, "igraph")));
+		assertTrue(budget.getUsedEngines().contains("R"));
+
+		budget.release(r);
+		assertTrue(budget.tryAcquire(r));
+	}
+
+	/**
+	 * A task which only answers what the runner needs to admit it
+	 */
+	protected static class FakeTask implements InvocationHandler {
+
+		final String name;
+		final long priority;
+		final ResourcesDemand demand;
+		ComputationState state = ComputationState.READY;
+
+		final IComputationProgress progress = (IComputationProgress)Proxy.newProxyInstance(
+				getClass().getClassLoader(),
+				new Class[] { IComputationProgress.class },
+				new InvocationHandler() {
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+						if (method.getName().equals("getComputationState"))
+							return state;
+						return null;
+					}
+				}
+				);
+
+		public FakeTask(String name, long priority, ResourcesDemand demand) {
+			this.name = name;
+			this.priority = priority;
+			this.demand = demand;
+		}
+
+		public IAlgoExecution create() {
+			return (IAlgoExecution)Proxy.newProxyInstance(
+					getClass().getClassLoader(),
+					new Class[] { IAlgoExecution.class, IResourcesConsumer.class },
+					this
+					);
+		}
+
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+
+			final String m = method.getName();
+			if (m.equals("equals"))
+				return proxy == args[0];
+			if (m.equals("hashCode"))
+				return System.identityHashCode(proxy);
+			if (m.equals("toString") || m.equals("getName"))
+				return name;
+			if (m.equals("getPriority"))
+				return priority;
+			if (m.equals("getProgress"))
+				return progress;
+			if (m.equals("getResourcesDemand"))
+				return demand;
+			throw new UnsupportedOperationException(m);
+		}
+	}
+
+	/**
+	 * A runner which only records the tasks admitted
+	 */
+	protected static class RecordingRunner extends AbstractRunner {
+
+		final List<String> admitted = new LinkedList<String>();
+
+		public RecordingRunner(int threads) {
+			super("glRunnerTest", threads);
+		}
+
+		public void submit(IAlgoExecution exec) {
+			submitTaskIfResourcesAvailable(exec);
+		}
+
+		public void finished(IAlgoExecution exec) {
+			releaseResources(exec);
+		}
+
+		@Override
+		protected void wakeUp() {
+		}
+
+		@Override
+		protected void submitAdmittedTask(IAlgoExecution exec) {
+			admitted.add(exec.toString());
+		}
+
+		@Override
+		public void cancelTasks() {
+		}
+
+		@Override
+		public void computationStateChanged(IComputationProgress progress) {
+		}
+
+		@Override
+		public void addTask(IAlgoExecution exec) {
+		}
+
+		@Override
+		public boolean containsTask(IAlgoExecution exec) {
+			return false;
+		}
+
+		@Override
+		public Collection<IAlgoExecution> getAllTasks() {
+			return null;
+		}
+
+		@Override
+		public void taskCleaning(ITask task) {
+		}
+
+		@Override
+		public void possibilityOfTaskCleanup(ITask task) {
+		}
+
+		@Override
+		public int getCountPending() {
+			return 0;
+		}
+
+		@Override
+		public int getCountReady() {
+			return 0;
+		}
+
+		@Override
+		public int getCountRunning() {
+			return 0;
+		}
+
+		@Override
+		public int getCountDone() {
+			return 0;
+		}
+
+		@Override
+		public int getCountNotFinished() {
+			return 0;
+		}
+
+		@Override
+		public String getHumanReadableState() {
+			return null;
+		}
+
+	}
+
+	@Test
+	public void testRunnerBudgetSizedFromThreads() {
+
+		RecordingRunner runner = new RecordingRunner(6);
+		assertEquals(6, runner.getResourcesBudget().getCapacityIoSlots());
+	}
+
+	@Test
+	public void testBackfill() {
+
+		RecordingRunner runner = new RecordingRunner(4);
+		runner.getResourcesBudget().setCapacityHeapBytes(100);
+
+		final IAlgoExecution a = new FakeTask("a", 10, heap(60)).create();
+		final IAlgoExecution low = new FakeTask("low", 1, heap(60)).create();
+		final IAlgoExecution high = new FakeTask("high", 100, heap(60)).create();
+		final IAlgoExecution small = new FakeTask("small", 10, heap(30)).create();
+		final IAlgoExecution free = new FakeTask("free", 10, ResourcesDemand.NONE).create();
+
+		runner.submit(a);
+		runner.submit(low);
+		runner.submit(high);
+		runner.submit(small);
+		runner.submit(free);
+
+		// the small task fits next to the first one, the others wait
+		assertEquals(2, runner.getCountWaitingForResources());
+		assertEquals(3, runner.admitted.size());
+		assertEquals("a", runner.admitted.get(0));
+		assertEquals("small", runner.admitted.get(1));
+		assertEquals("free", runner.admitted.get(2));
+
+		// the most critical waiting task is admitted first
+		runner.finished(a);
+		assertEquals(4, runner.admitted.size());
+		assertEquals("high", runner.admitted.get(3));
+		assertEquals(90, runner.getResourcesBudget().getUsedHeapBytes());
+
+		// still not enough space for the last one
+		runner.finished(small);
+		assertEquals(4, runner.admitted.size());
+		assertEquals(1, runner.getCountWaitingForResources());
+
+		runner.finished(high);
+		assertEquals(5, runner.admitted.size());
+		assertEquals("low", runner.admitted.get(4));
+		assertEquals(0, runner.getCountWaitingForResources());
+
+		runner.finished(low);
+		assertEquals(0, runner.getResourcesBudget().getUsedHeapBytes());
+	}
+
+	@Test
+	public void testBackfillForgetsCancelledTasks() {
+
+		RecordingRunner runner = new RecordingRunner(4);
+		runner.getResourcesBudget().setCapacityHeapBytes(100);
+
+		final IAlgoExecution a = new FakeTask("a", 10, heap(80)).create();
+		final FakeTask cancelled = new FakeTask("cancelled", 10, heap(80));
+		final IAlgoExecution b = cancelled.create();
+
+		runner.submit(a);
+		runner.submit(b);
+		assertEquals(1, runner.getCountWaitingForResources());
+
+		cancelled.state = ComputationState.FINISHED_CANCEL;
+		runner.finished(a);
+
+		assertEquals(1, runner.admitted.size());
+		assertEquals(0, runner.getCountWaitingForResources());
+		assertEquals(0, runner.getResourcesBudget().getUsedHeapBytes());
+	}
+
+}
@@ -0,0 +1,436 @@
+package genlab.core.exec.client;
+
+import static org.junit.Assert.*;
+
+import genlab.core.exec.Execution;
+import genlab.core.exec.IAlgoExecutionRemotable;
+import genlab.core.exec.IExecution;
+import genlab.core.exec.server.DistantExecutionResult;
+import genlab.core.exec.server.GenlabComputationServer;
+import genlab.core.exec.server.IGenlabComputationServer;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.instance.GenlabWorkflowInstance;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IGenlabWorkflowInstance;
+import genlab.core.model.meta.basics.algos.ConstantValueExecution;
+import genlab.core.model.meta.basics.algos.ConstantValueInteger;
+import genlab.core.performance.LatencyHistogram;
+import genlab.core.performance.MetricsRegistry;
+import genlab.core.performance.TimelineProfiler;
+
+import java.io.File;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Runs the batch API against a server running in this very JVM (no RMI involved)
+ */
+public class TestDistantBatchWorkerThread {
+
+	public static final long TIMEOUT_MS = 10000;
+
+	protected static final ConstantValueInteger ALGO = new ConstantValueInteger();
+
+	/**
+	 * A constant which counts its runs, and may block until released
+	 */
+	@SuppressWarnings("serial")
+	protected static class CountingTask extends ConstantValueExecution<Integer> implements IAlgoExecutionRemotable {
+
+		final AtomicInteger countRuns = new AtomicInteger(0);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release;
+
+		public CountingTask(IExecution exec, IAlgoInstance algoInst, Integer value, boolean blocking) {
+			super(exec, algoInst, value);
+			release = new CountDownLatch(blocking ? 1 : 0);
+		}
+
+		@Override
+		public void run() {
+			countRuns.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			super.run();
+		}
+
+		public void awaitStarted() throws InterruptedException {
+			assertTrue("the task did not start", started.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+		}
+
+		public Object getValue() {
+			return getResult().getResults().get(algoInst.getOutputInstanceForOutput(ConstantValueInteger.OUTPUT));
+		}
+	}
+
+	/**
+	 * Gives access to a server of this JVM as if it was a distant one
+	 */
+	protected static class LocalServerManager extends DistantGenlabServerManager {
+
+		final IGenlabComputationServer server;
+		final int slots;
+		final long latencyMs;
+
+		public LocalServerManager(IGenlabComputationServer server, int slots, long latencyMs) {
+			super("localhost", 0);
+			this.server = server;
+			this.slots = slots;
+			this.latencyMs = latencyMs;
+		}
+
+		@Override
+		public IGenlabComputationServer getDistantServer() {
+			return server;
+		}
+
+		@Override
+		public int getNumberOfTasksAccepted() {
+			return slots;
+		}
+
+		@Override
+		public long getLatencyMs() {
+			return latencyMs;
+		}
+
+		@Override
+		public void disconnectAndReconnect() {
+			fail("the connection to a local server should never fail");
+		}
+	}
+
+	protected final IGenlabWorkflowInstance workflow = new GenlabWorkflowInstance(
+			"test",
+			"test",
+			new File(System.getProperty("java.io.tmpdir"), "test_batches.glw").getAbsolutePath()
+			);
+
+	protected final Execution execution = new Execution(null);
+
+	protected CountingTask createTask(int value, boolean blocking) {
+
+		IAlgoInstance instance = ALGO.createInstance(workflow);
+		workflow.addAlgoInstance(instance);
+		return new CountingTask(execution, instance, value, blocking);
+	}
+
+	protected List<CountingTask> createTasks(int count) {
+
+		List<CountingTask> res = new ArrayList<CountingTask>(count);
+		for (int i=0; i<count; i++) {
+			res.add(createTask(i, false));
+		}
+		return res;
+	}
+
+	protected DistantBatchWorkerThread createWorker(
+			String name,
+			BlockingQueue<IAlgoExecutionRemotable> queue,
+			BlockingQueue<IAlgoExecution> backupQueue,
+			DistantGenlabServerManager manager,
+			int maxInFlight,
+			NodesScheduler scheduler) {
+
+		return new DistantBatchWorkerThread(
+				name,
+				name,
+				queue,
+				backupQueue,
+				new Object(),
+				manager,
+				maxInFlight,
+				scheduler
+				);
+	}
+
+	protected static void waitUntilFinished(List<? extends IAlgoExecution> tasks) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		for (IAlgoExecution task: tasks) {
+			while (!task.getProgress().getComputationState().isFinished()) {
+				if (System.currentTimeMillis() - start > TIMEOUT_MS)
+					fail("task "+task.getName()+" did not finish in time: "+task.getProgress().getComputationState());
+				Thread.sleep(10);
+			}
+		}
+	}
+
+	protected static void waitUntilInFlight(DistantBatchWorkerThread worker, int count) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		while (worker.getCountInFlight() != count) {
+			if (System.currentTimeMillis() - start > TIMEOUT_MS)
+				fail("expected "+count+" tasks in flight, but "+worker.getCountInFlight());
+			Thread.sleep(10);
+		}
+	}
+
+	protected static void waitUntilGivenBack(DistantBatchWorkerThread worker, int count) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		while (worker.getCountStolenFrom() < count) {
+			if (System.currentTimeMillis() - start > TIMEOUT_MS)
+				fail("expected "+count+" tasks given back, but "+worker.getCountStolenFrom());
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * Runs a first task which lasts long enough for the worker to measure the duration of tasks; 
+	 * then it sends several tasks at once if the latency is high.
+	 * @param worker
+	 * @param queue
+	 * @throws InterruptedException
+	 */
+	protected void warmUp(DistantBatchWorkerThread worker, BlockingQueue<IAlgoExecutionRemotable> queue) throws InterruptedException {
+
+		CountingTask warmup = createTask(-1, true);
+		queue.add(warmup);
+		warmup.awaitStarted();
+		Thread.sleep(20);
+		warmup.release.countDown();
+		waitUntilFinished(Arrays.asList(warmup));
+		waitUntilInFlight(worker, 0);
+	}
+
+	protected static void stop(DistantBatchWorkerThread worker) throws InterruptedException {
+
+		worker.askStop();
+		worker.join(TIMEOUT_MS);
+		assertFalse(worker.isAlive());
+	}
+
+	@Test
+	public void testSubmitCollectCancelClose() throws RemoteException, InterruptedException {
+
+		GenlabComputationServer server = new GenlabComputationServer(1);
+		final String clientId = "client_test";
+
+		CountingTask running = createTask(0, true);
+		CountingTask queued1 = createTask(1, false);
+		CountingTask queued2 = createTask(2, false);
+
+		Map<Long,IAlgoExecution> batch = new LinkedHashMap<Long, IAlgoExecution>();
+		batch.put(10l, running);
+		batch.put(11l, queued1);
+		batch.put(12l, queued2);
+		server.submitTasks(clientId, batch);
+
+		// the first task occupies the only slot; the others can be taken back
+		running.awaitStarted();
+		long[] cancelled = server.cancelQueuedTasks(clientId, new long[] { 10, 11, 12 });
+		Arrays.sort(cancelled);
+		assertArrayEquals(new long[] { 11, 12 }, cancelled);
+
+		// nothing finished yet
+		assertTrue(server.collectResults(clientId, 10, 0).isEmpty());
+
+		running.release.countDown();
+		List<DistantExecutionResult> results = server.collectResults(clientId, 10, TIMEOUT_MS);
+		assertEquals(1, results.size());
+		assertEquals(10, results.get(0).taskId);
+		assertEquals(ComputationState.FINISHED_OK, results.get(0).computationState);
+		assertEquals(0, results.get(0).id2result.get(ConstantValueInteger.OUTPUT.getId()));
+
+		// the tasks taken back never ran
+		assertTrue(server.collectResults(clientId, 10, 100).isEmpty());
+		assertEquals(0, queued1.countRuns.get());
+		assertEquals(0, queued2.countRuns.get());
+
+		// closing the session forgets the tasks queued
+		CountingTask running2 = createTask(3, true);
+		CountingTask queued3 = createTask(4, false);
+		batch.clear();
+		batch.put(13l, running2);
+		batch.put(14l, queued3);
+		server.submitTasks(clientId, batch);
+		running2.awaitStarted();
+
+		server.closeSession(clientId);
+		running2.release.countDown();
+		waitUntilFinished(Arrays.asList(running2));
+		Thread.sleep(100);
+		assertEquals(0, queued3.countRuns.get());
+		assertEquals(1, running2.countRuns.get());
+	}
+
+	@Test
+	public void testWorkerLoopback() throws InterruptedException {
+
+		final int count = 20;
+
+		TimelineProfiler.singleton.setEnabled(false);
+		TimelineProfiler.singleton.setEnabled(true);
+		try {
+			GenlabComputationServer server = new GenlabComputationServer(2);
+			BlockingQueue<IAlgoExecutionRemotable> queue = new LinkedBlockingQueue<IAlgoExecutionRemotable>();
+			BlockingQueue<IAlgoExecution> backupQueue = new LinkedBlockingQueue<IAlgoExecution>();
+
+			List<CountingTask> tasks = createTasks(count);
+			queue.addAll(tasks);
+
+			DistantBatchWorkerThread worker = createWorker(
+					"worker_test",
+					queue,
+					backupQueue,
+					new LocalServerManager(server, 2, 0),
+					4,
+					new NodesScheduler()
+					);
+			worker.start();
+
+			waitUntilFinished(tasks);
+			stop(worker);
+
+			for (int i=0; i<count; i++) {
+				final CountingTask task = tasks.get(i);
+				assertEquals(ComputationState.FINISHED_OK, task.getProgress().getComputationState());
+				assertEquals(1, task.countRuns.get());
+				assertEquals(i, task.getValue());
+			}
+			assertTrue(backupQueue.isEmpty());
+			assertEquals(0, worker.getCountInFlight());
+			assertTrue(worker.getMeanTaskDurationMs() >= 0);
+
+			// the runs were recorded as the local ones
+			LatencyHistogram histogram = execution.getMetrics().getHistograms().get(MetricsRegistry.PREFIX_ALGO+ALGO.getId());
+			assertNotNull(histogram);
+			assertEquals(count, histogram.getCount());
+			assertEquals("enabled, "+count+" tasks recorded", TimelineProfiler.singleton.getHumanReadableState());
+		} finally {
+			TimelineProfiler.singleton.setEnabled(false);
+		}
+	}
+
+	@Test
+	public void testGiveBackQueuedTasks() throws InterruptedException {
+
+		// the server runs two tasks, but the worker believes it runs one: 
+		// the second task running is seen as queued
+		GenlabComputationServer server = new GenlabComputationServer(2);
+		BlockingQueue<IAlgoExecutionRemotable> queue = new LinkedBlockingQueue<IAlgoExecutionRemotable>();
+		BlockingQueue<IAlgoExecution> backupQueue = new LinkedBlockingQueue<IAlgoExecution>();
+
+		DistantBatchWorkerThread worker = createWorker(
+				"worker_test",
+				queue,
+				backupQueue,
+				new LocalServerManager(server, 1, 1000),
+				4,
+				new NodesScheduler()
+				);
+		worker.start();
+		warmUp(worker, queue);
+
+		CountingTask running1 = createTask(1, true);
+		CountingTask running2 = createTask(2, true);
+		CountingTask queued1 = createTask(3, false);
+		CountingTask queued2 = createTask(4, false);
+		List<CountingTask> tasks = Arrays.asList(running1, running2, queued1, queued2);
+		queue.addAll(tasks);
+
+		running1.awaitStarted();
+		running2.awaitStarted();
+		waitUntilInFlight(worker, 4);
+
+		// the give back of the second task arrives while it runs: only the queued ones come back
+		worker.requestGiveBack(3);
+		waitUntilGivenBack(worker, 2);
+		assertEquals(2, worker.getCountStolenFrom());
+		assertEquals(0, queued1.countRuns.get());
+		assertEquals(0, queued2.countRuns.get());
+
+		// ... and are sent again later, as no other worker took them
+		running1.release.countDown();
+		running2.release.countDown();
+		waitUntilFinished(tasks);
+		stop(worker);
+
+		for (CountingTask task: tasks) {
+			assertEquals(ComputationState.FINISHED_OK, task.getProgress().getComputationState());
+			assertEquals(1, task.countRuns.get());
+		}
+		assertEquals(2, running2.getValue());
+		assertTrue(queue.isEmpty());
+		assertTrue(backupQueue.isEmpty());
+		assertEquals(0, worker.getCountInFlight());
+	}
+
+	@Test
+	public void testStealIfIdle() throws InterruptedException {
+
+		NodesScheduler scheduler = new NodesScheduler();
+		BlockingQueue<IAlgoExecutionRemotable> queue = new LinkedBlockingQueue<IAlgoExecutionRemotable>();
+		BlockingQueue<IAlgoExecution> backupQueue = new LinkedBlockingQueue<IAlgoExecution>();
+
+		// a distant server running one task at a time 
+		DistantBatchWorkerThread victim = createWorker(
+				"worker_victim",
+				queue,
+				backupQueue,
+				new LocalServerManager(new GenlabComputationServer(1), 1, 1000),
+				4,
+				scheduler
+				);
+		victim.start();
+		warmUp(victim, queue);
+
+		CountingTask running = createTask(1, true);
+		CountingTask queued1 = createTask(2, false);
+		CountingTask queued2 = createTask(3, false);
+		CountingTask queued3 = createTask(4, false);
+		List<CountingTask> tasks = Arrays.asList(running, queued1, queued2, queued3);
+		queue.addAll(tasks);
+
+		running.awaitStarted();
+		waitUntilInFlight(victim, 4);
+
+		// a close server with nothing to do
+		DistantBatchWorkerThread thief = createWorker(
+				"worker_thief",
+				queue,
+				backupQueue,
+				new LocalServerManager(new GenlabComputationServer(2), 2, 0),
+				4,
+				scheduler
+				);
+		thief.start();
+
+		// the last tasks queued on the busy server run on the idle one
+		waitUntilFinished(Arrays.asList(queued2, queued3));
+		assertEquals(2, victim.getCountStolenFrom());
+		assertFalse(running.getProgress().getComputationState().isFinished());
+		assertEquals(0, queued1.countRuns.get());
+
+		running.release.countDown();
+		waitUntilFinished(tasks);
+		stop(victim);
+		stop(thief);
+
+		for (CountingTask task: tasks) {
+			assertEquals(ComputationState.FINISHED_OK, task.getProgress().getComputationState());
+			assertEquals(1, task.countRuns.get());
+		}
+		assertEquals(0, thief.getCountStolenFrom());
+		assertTrue(queue.isEmpty());
+		assertTrue(backupQueue.isEmpty());
+	}
+
+}
@@ -0,0 +1,228 @@
+package genlab.core.exec.client;
+
+import static org.junit.Assert.*;
+
+import genlab.core.exec.Execution;
+import genlab.core.exec.IContainerTask;
+import genlab.core.exec.IExecution;
+import genlab.core.exec.ITask;
+import genlab.core.model.exec.ComputationState;
+import genlab.core.model.exec.IAlgoExecution;
+import genlab.core.model.instance.GenlabWorkflowInstance;
+import genlab.core.model.instance.IAlgoInstance;
+import genlab.core.model.instance.IGenlabWorkflowInstance;
+import genlab.core.model.meta.basics.algos.ConstantValueExecution;
+import genlab.core.model.meta.basics.algos.ConstantValueInteger;
+import genlab.core.model.meta.basics.algos.SumAlgo;
+import genlab.core.performance.LatencyHistogram;
+import genlab.core.performance.MetricsRegistry;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Runs workflows with the runner of kind {@link ComputationNodes.RunnerKind#WORK_STEALING}
+ */
+public class TestWorkStealingRunner {
+
+	public static final long TIMEOUT_MS = 10000;
+
+	protected static IGenlabWorkflowInstance createWorkflow() {
+		return new GenlabWorkflowInstance(
+				"test",
+				"test",
+				new File(System.getProperty("java.io.tmpdir"), "test_work_stealing.glw").getAbsolutePath()
+				);
+	}
+
+	protected static void waitUntilFinished(IAlgoExecution task) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		while (!task.getProgress().getComputationState().isFinished()) {
+			if (System.currentTimeMillis() - start > TIMEOUT_MS)
+				fail("task "+task.getName()+" did not finish in time: "+task.getProgress().getComputationState());
+			Thread.sleep(10);
+		}
+	}
+
+	protected static long countRecorded(Execution exec, String algoId) {
+
+		final LatencyHistogram histogram = exec.getMetrics().getHistograms().get(MetricsRegistry.PREFIX_ALGO+algoId);
+		return histogram == null ? 0 : histogram.getCount();
+	}
+
+	protected static void waitUntilRecorded(Execution exec, String algoId, long count) throws InterruptedException {
+
+		final long start = System.currentTimeMillis();
+		while (countRecorded(exec, algoId) < count) {
+			if (System.currentTimeMillis() - start > TIMEOUT_MS)
+				fail("expected "+count+" runs of "+algoId+", but "+countRecorded(exec, algoId));
+			Thread.sleep(10);
+		}
+	}
+
+	@Test
+	public void testAllTasksFinish() throws InterruptedException {
+
+		final int groups = 4;
+		final int constantsPerGroup = 4;
+
+		// constants summed by groups, then the sums are summed
+		IGenlabWorkflowInstance workflow = createWorkflow();
+		ConstantValueInteger constant = new ConstantValueInteger();
+		SumAlgo sum = new SumAlgo();
+
+		IAlgoInstance total = sum.createInstance(workflow);
+		workflow.addAlgoInstance(total);
+		int expected = 0;
+		for (int g=0; g<groups; g++) {
+			IAlgoInstance subtotal = sum.createInstance(workflow);
+			workflow.addAlgoInstance(subtotal);
+			workflow.connect(
+					subtotal.getOutputInstanceForOutput(SumAlgo.OUTPUT_TOTAL),
+					total.getInputInstanceForInput(SumAlgo.INPUT_VALUES)
+					);
+			for (int c=0; c<constantsPerGroup; c++) {
+				final int value = g*constantsPerGroup+c;
+				expected += value;
+				IAlgoInstance constantInstance = constant.createInstance(workflow);
+				workflow.addAlgoInstance(constantInstance);
+				constantInstance.setValueForParameter(constant.getConstantParameter(), value);
+				workflow.connect(
+						constantInstance.getOutputInstanceForOutput(ConstantValueInteger.OUTPUT),
+						subtotal.getInputInstanceForInput(SumAlgo.INPUT_VALUES)
+						);
+			}
+		}
+
+		WorkStealingRunner runner = new WorkStealingRunner(4, 2);
+		runner.start();
+		try {
+			Execution exec = new Execution(runner);
+			exec.setExecutionForced(true);
+			IAlgoExecution execution = workflow.execute(exec);
+			runner.addTask(execution);
+
+			waitUntilFinished(execution);
+			assertEquals(ComputationState.FINISHED_OK, execution.getProgress().getComputationState());
+
+			IAlgoExecution totalExec = null;
+			for (ITask task: ((IContainerTask)execution).getTasks()) {
+				IAlgoExecution sub = (IAlgoExecution)task;
+				assertEquals(sub.getName(), ComputationState.FINISHED_OK, sub.getProgress().getComputationState());
+				if (sub.getAlgoInstance() == total)
+					totalExec = sub;
+			}
+			assertNotNull(totalExec);
+			assertEquals(
+					expected,
+					((Number)totalExec.getResult().getResults().get(total.getOutputInstanceForOutput(SumAlgo.OUTPUT_TOTAL))).intValue()
+					);
+
+			// each task ran once (the runs are recorded just after the tasks finished)
+			waitUntilRecorded(exec, constant.getId(), groups*constantsPerGroup);
+			waitUntilRecorded(exec, sum.getId(), groups+1);
+			Thread.sleep(100);
+			assertEquals(groups*constantsPerGroup, countRecorded(exec, constant.getId()));
+			assertEquals(groups+1, countRecorded(exec, sum.getId()));
+			assertEquals(0, runner.getCountNotFinished());
+		} finally {
+			runner.cancel();
+		}
+	}
+
+	/**
+	 * A task which counts its runs, blocks until released, and stops when cancelled
+	 */
+	@SuppressWarnings("serial")
+	protected static class BlockingTask extends ConstantValueExecution<Integer> {
+
+		final AtomicInteger countRuns = new AtomicInteger(0);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+
+		public BlockingTask(IExecution exec, IAlgoInstance algoInst, Integer value) {
+			super(exec, algoInst, value);
+		}
+
+		@Override
+		public void run() {
+			countRuns.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (progress.getComputationState().isFinished())
+				return;
+			super.run();
+		}
+
+		@Override
+		public void cancel() {
+			progress.setComputationState(ComputationState.FINISHED_CANCEL);
+		}
+	}
+
+	@Test
+	public void testCancelNeverRunsTwiceNorDrops() throws InterruptedException {
+
+		final int threads = 2;
+		final int count = 10;
+
+		IGenlabWorkflowInstance workflow = createWorkflow();
+		ConstantValueInteger constant = new ConstantValueInteger();
+
+		WorkStealingRunner runner = new WorkStealingRunner(threads, 2);
+		runner.start();
+
+		Execution exec = new Execution(runner);
+		List<BlockingTask> tasks = new ArrayList<BlockingTask>(count);
+		for (int i=0; i<count; i++) {
+			IAlgoInstance instance = constant.createInstance(workflow);
+			workflow.addAlgoInstance(instance);
+			tasks.add(new BlockingTask(exec, instance, i));
+		}
+		for (BlockingTask task: tasks) {
+			runner.addTask(task);
+		}
+
+		// every worker is busy with one task; the others wait in the deques
+		final long start = System.currentTimeMillis();
+		List<BlockingTask> running = new ArrayList<BlockingTask>();
+		while (running.size() < threads) {
+			if (System.currentTimeMillis() - start > TIMEOUT_MS)
+				fail("the workers did not start the tasks");
+			running.clear();
+			for (BlockingTask task: tasks) {
+				if (task.started.await(0, TimeUnit.MILLISECONDS))
+					running.add(task);
+			}
+			Thread.sleep(10);
+		}
+		assertEquals(threads, running.size());
+
+		runner.cancel();
+		for (BlockingTask task: tasks) {
+			task.release.countDown();
+		}
+		for (BlockingTask task: tasks) {
+			waitUntilFinished(task);
+		}
+		// leave time to the workers to run what they should not
+		Thread.sleep(100);
+
+		for (BlockingTask task: tasks) {
+			assertEquals(ComputationState.FINISHED_CANCEL, task.getProgress().getComputationState());
+			assertEquals(running.contains(task) ? 1 : 0, task.countRuns.get());
+		}
+	}
+
+}
@@ -0,0 +1,118 @@
+package genlab.core.model.exec;
+
+import genlab.core.exec.ITask;
+
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the cost of an update of progress for the children of a container which aggregates
+ * their progress (as containers do with autoUpdateProgressFromChildren), with a synchronous dispatch
+ * (as before the coalescing dispatcher) and with the coalescing dispatcher.
+ * Not a unit test: run it as a java application.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class ProgressDispatchBenchmark {
+
+	public static final int COUNT_CHILDREN = 10000;
+	public static final int COUNT_THREADS = 4;
+	public static final int UPDATES_PER_THREAD = 20000;
+
+	/**
+	 * Aggregates the progress of all the children at each notification, like containers do
+	 */
+	protected static class AggregatingListener implements IComputationProgressDetailedListener {
+
+		private final ComputationProgressWithSteps[] children;
+		private final AtomicLong countAggregations = new AtomicLong(0);
+		protected volatile long lastDone = 0;
+
+		public AggregatingListener(ComputationProgressWithSteps[] children) {
+			this.children = children;
+		}
+
+		@Override
+		public void computationProgressChanged(IComputationProgress progress) {
+			long done = 0;
+			for (ComputationProgressWithSteps child: children)
+				done += child.getProgressDone();
+			lastDone = done;
+			countAggregations.incrementAndGet();
+		}
+
+		@Override
+		public void computationStateChanged(IComputationProgress progress) {
+		}
+
+		@Override
+		public void propagateRank(Integer rank, Set<ITask> visited) {
+		}
+
+		@Override
+		public void taskCleaning(ITask task) {
+		}
+
+	}
+
+	protected static void measure(String name, long periodMs) throws InterruptedException {
+
+		ProgressDetailDispatcher.singleton.setPeriodMs(periodMs);
+
+		final ComputationProgressWithSteps[] children = new ComputationProgressWithSteps[COUNT_CHILDREN];
+		for (int i=0; i<COUNT_CHILDREN; i++) {
+			children[i] = new ComputationProgressWithSteps();
+			children[i].setProgressTotal(1000000l);
+		}
+		final AggregatingListener listener = new AggregatingListener(children);
+		for (ComputationProgressWithSteps child: children)
+			child.addDetailedListener(listener);
+
+		Thread[] threads = new Thread[COUNT_THREADS];
+		for (int t=0; t<COUNT_THREADS; t++) {
+			final Random random = new Random(t);
+			threads[t] = new Thread() {
+				public void run() {
+					for (int i=0; i<UPDATES_PER_THREAD; i++) {
+						final ComputationProgressWithSteps child = children[random.nextInt(COUNT_CHILDREN)];
+						// big enough to be dispatched
+						child.setProgressMade(child.getProgressDone()+10);
+						child.incProgressMade();
+					}
+				}
+			};
+		}
+
+		final long start = System.nanoTime();
+		for (Thread t: threads)
+			t.start();
+		for (Thread t: threads)
+			t.join();
+		final long duration = System.nanoTime()-start;
+		ProgressDetailDispatcher.singleton.flush();
+
+		final long updates = 2l*COUNT_THREADS*UPDATES_PER_THREAD;
+		System.out.println(String.format(
+				"%-35s %8.0f ns/update, %8d aggregations",
+				name,
+				(double)duration/updates,
+				listener.countAggregations.get()
+				));
+	}
+
+	public static void main(String[] args) throws Exception {
+
+		// warm up
+		measure("(warm up)", 0);
+		measure("(warm up)", ProgressDetailDispatcher.DEFAULT_PERIOD_MS);
+
+		for (int i=0; i<3; i++) {
+			measure("synchronous dispatch", 0);
+			measure("coalesced dispatch ("+ProgressDetailDispatcher.DEFAULT_PERIOD_MS+" ms)", ProgressDetailDispatcher.DEFAULT_PERIOD_MS);
+		}
+
+	}
+
+}
@@ -0,0 +1,143 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import static org.junit.Assert.*;
+
+import genlab.core.commons.ProgramException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+public class TestColumnarGenlabTable {
+
+	@SuppressWarnings("unchecked")
+	protected static <T> T roundTrip(T o) throws IOException, ClassNotFoundException {
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(o);
+		oos.close();
+
+		ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+		try {
+			return (T)ois.readObject();
+		} finally {
+			ois.close();
+		}
+	}
+
+	protected static ColumnarGenlabTable createTable(int rows) {
+
+		ColumnarGenlabTable t = new ColumnarGenlabTable();
+		t.declareColumn("int");
+		t.declareColumn("double");
+		t.declareColumn("string");
+		t.declareColumn("bool");
+		t.declareColumn("mixed");
+		t.setTableMetaData("name", "test");
+		t.setColumnMetaData("double", "unit", "m");
+
+		for (int i=0; i<rows; i++) {
+			final int row = t.addRow();
+			t.setValue(row, "int", i);
+			t.setValue(row, 1, i/2d);
+			if (i % 5 != 0)
+				t.setValue(row, "string", "s"+(i%3));
+			t.setValue(row, "bool", i%2 == 0);
+			t.setValue(row, "mixed", i%2 == 0 ? (Object)i : (Object)("m"+i));
+		}
+		return t;
+	}
+
+	@Test
+	public void testTypedValues() {
+
+		ColumnarGenlabTable t = createTable(50);
+
+		assertEquals(50, t.getRowsCount());
+		assertEquals(5, t.getColumnsCount());
+		assertEquals(Integer.class, t.getColumnType(0));
+		assertEquals(Double.class, t.getColumnType(1));
+		assertEquals(String.class, t.getColumnType(2));
+		assertEquals(Boolean.class, t.getColumnType(3));
+		assertEquals(Object.class, t.getColumnType(4));
+
+		assertEquals(7, t.getValue(7, "int"));
+		assertEquals(3.5d, t.getValue(7, "double"));
+		assertEquals("s1", t.getValue(7, "string"));
+		assertNull(t.getValue(10, "string"));
+		assertEquals(Boolean.FALSE, t.getValue(7, "bool"));
+		assertEquals(8, t.getValue(8, "mixed"));
+		assertEquals("m7", t.getValue(7, "mixed"));
+
+		assertFalse(t.isColumnEmpty("int"));
+		assertTrue(t.isColumnEmpty("string"));
+		assertEquals(1, t.getEmptyColumnsIds().size());
+
+		// primitive accesses
+		final double[] doubles = t.getColumnAsDoubles(0, Double.NaN);
+		assertEquals(50, doubles.length);
+		assertEquals(49d, doubles[49], 0d);
+		assertEquals(-1d, t.getDoubleValue(3, 2, -1d), 0d);
+		t.setDoubleValue(3, 1, 12.5);
+		assertEquals(12.5d, t.getValue(3, 1));
+
+		// rows are copies
+		Object[] row = t.getRow(2);
+		row[0] = 1000;
+		assertEquals(2, t.getValue(2, 0));
+
+		try {
+			t.getValue(50, 0);
+			fail("row does not exist");
+		} catch (ProgramException e) {
+			// expected
+		}
+	}
+
+	@Test
+	public void testCloneOnlyFullLines() {
+
+		ColumnarGenlabTable t = createTable(50);
+
+		ColumnarGenlabTable clone = (ColumnarGenlabTable)t.cloneOnlyFullLines();
+		assertEquals(40, clone.getRowsCount());
+		assertEquals(1, clone.getValue(0, "int"));
+		assertEquals("s1", clone.getValue(0, "string"));
+		assertEquals("m", clone.getColumnMetaData("double", "unit"));
+		assertEquals("test", clone.getTableMetaData("name"));
+
+		// the clone is independant
+		clone.addRow();
+		clone.setValue(0, "int", 100);
+		assertEquals(1, t.getValue(1, "int"));
+		assertEquals(50, t.getRowsCount());
+	}
+
+	@Test
+	public void testSerialization() throws Exception {
+
+		ColumnarGenlabTable t = createTable(50);
+
+		ColumnarGenlabTable t2 = roundTrip(t);
+
+		assertEquals(t.getColumnsId(), t2.getColumnsId());
+		assertEquals(t.getRowsCount(), t2.getRowsCount());
+		assertEquals("test", t2.getTableMetaData("name"));
+		assertEquals("m", t2.getColumnMetaData("double", "unit"));
+		for (int i=0; i<t.getRowsCount(); i++)
+			assertArrayEquals(t.getValues(i), t2.getValues(i));
+		for (int c=0; c<t.getColumnsCount(); c++)
+			assertEquals(t.getColumnType(c), t2.getColumnType(c));
+
+		// the table read can grow
+		final int row = t2.addRow();
+		t2.setValue(row, "int", 12);
+		assertEquals(12, t2.getValue(50, 0));
+	}
+
+}
@@ -0,0 +1,162 @@
+package genlab.core.model.meta.basics.flowtypes;
+
+import static org.junit.Assert.*;
+
+import genlab.core.commons.ProgramException;
+
+import org.junit.Test;
+
+public class TestSpillableGenlabTable {
+
+	protected static SpillableGenlabTable createTable(int rows) {
+
+		SpillableGenlabTable t = new SpillableGenlabTable(10, 2);
+		t.declareColumn("int");
+		t.declareColumn("double");
+		t.declareColumn("string");
+		t.setTableMetaData("name", "test");
+
+		for (int i=0; i<rows; i++) {
+			final int row = t.addRow();
+			t.setValue(row, "int", i);
+			t.setDoubleValue(row, 1, i/2d);
+			if (i % 5 != 0)
+				t.setValue(row, "string", "s"+(i%3));
+		}
+		return t;
+	}
+
+	@Test
+	public void testSpill() {
+
+		SpillableGenlabTable t = createTable(95);
+
+		assertEquals(95, t.getRowsCount());
+		// only the tail and the previous block are in memory
+		assertEquals(80, t.getSpilledRowsCount());
+		assertEquals(8, t.getCountSpilled());
+		assertTrue(t.getSpillFileLength() > 0);
+
+		for (int i=0; i<95; i++) {
+			assertEquals(i, t.getValue(i, 0));
+			assertEquals(i/2d, t.getValue(i, "double"));
+			assertEquals(i % 5 == 0 ? null : "s"+(i%3), t.getValue(i, 2));
+		}
+		// backwards too
+		for (int i=94; i>=0; i--)
+			assertEquals(i, t.getValue(i, "int"));
+
+		int i = 0;
+		for (Object[] row: t) {
+			assertEquals(i, row[0]);
+			i++;
+		}
+		assertEquals(95, i);
+
+		final double[] doubles = t.getColumnAsDoubles(1, Double.NaN);
+		assertEquals(95, doubles.length);
+		assertEquals(47d, doubles[94], 0d);
+		assertEquals(-1d, t.getDoubleValue(10, 2, -1d), 0d);
+
+		t.dispose();
+	}
+
+	@Test
+	public void testChanges() {
+
+		SpillableGenlabTable t = createTable(95);
+
+		assertTrue(t.isColumnEmpty("string"));
+		assertFalse(t.isColumnEmpty("int"));
+
+		// change a spilled row
+		t.setValue(12, "int", -12);
+		assertEquals(1, t.getCountLoaded());
+		assertEquals(-12, t.getValue(12, 0));
+
+		// columns declared late are empty for all the rows
+		final int colIdx = t.declareColumn("late");
+		assertNull(t.getValue(3, colIdx));
+		assertTrue(t.isColumnEmpty(colIdx));
+
+		// filled without loading the spilled blocks
+		t.fillColumn(colIdx, "constant");
+		t.fillColumn(2, "full");
+		assertEquals(1, t.getCountLoaded());
+		assertFalse(t.isColumnEmpty(colIdx));
+		assertTrue(t.getEmptyColumnsIds().isEmpty());
+		assertEquals("constant", t.getValue(3, colIdx));
+		assertEquals("full", t.getValue(94, "string"));
+
+		// values set after the fill are kept
+		t.setValue(0, colIdx, "changed");
+		t.addRow(new Object[] {95, 0d, "s", "c"});
+		assertEquals("changed", t.getValue(0, colIdx));
+		assertEquals("constant", t.getValue(1, colIdx));
+		assertEquals(-12, t.getValue(12, 0));
+
+		t.dispose();
+	}
+
+	@Test
+	public void testCloneAndSerialization() throws Exception {
+
+		SpillableGenlabTable t = createTable(95);
+
+		SpillableGenlabTable clone = (SpillableGenlabTable)t.cloneOnlyFullLines();
+		assertEquals(76, clone.getRowsCount());
+		assertEquals(1, clone.getValue(0, "int"));
+		assertEquals(94, clone.getValue(75, "int"));
+		assertEquals("test", clone.getTableMetaData("name"));
+		assertTrue(clone.getSpilledRowsCount() > 0);
+		clone.addRow();
+		assertEquals(77, clone.getRowsCount());
+		assertEquals(95, t.getRowsCount());
+
+		SpillableGenlabTable t2 = TestColumnarGenlabTable.roundTrip(t);
+		assertEquals(t.getColumnsId(), t2.getColumnsId());
+		assertEquals(95, t2.getRowsCount());
+		assertEquals(10, t2.getBlockRows());
+		assertEquals("test", t2.getTableMetaData("name"));
+		for (int i=0; i<t.getRowsCount(); i++)
+			assertArrayEquals(t.getValues(i), t2.getValues(i));
+
+		clone.dispose();
+		t2.dispose();
+		t.dispose();
+	}
+
+	@Test
+	public void testCloneSharesSpilledRows() {
+
+		SpillableGenlabTable t = new SpillableGenlabTable(10, 2);
+		t.declareColumn("int");
+		for (int i=0; i<95; i++)
+			t.setValue(t.addRow(), "int", i);
+		final long length = t.getSpillFileLength();
+		assertTrue(length > 0);
+
+		// the full spilled blocks are read from the file of the table, not written again
+		SpillableGenlabTable clone = (SpillableGenlabTable)t.cloneOnlyFullLines();
+		assertEquals(95, clone.getRowsCount());
+		assertEquals(0, clone.getCountSpilled());
+		assertEquals(0, clone.getSpillFileLength());
+		assertEquals(length, t.getSpillFileLength());
+		for (int i=0; i<95; i++)
+			assertEquals(i, clone.getValue(i, "int"));
+
+		// changing the table does not change the copy
+		t.setValue(3, "int", -1);
+		assertEquals(3, clone.getValue(3, "int"));
+
+		t.dispose();
+		try {
+			clone.getValue(50, "int");
+			fail("the rows of the disposed table should not be readable");
+		} catch (ProgramException e) {
+			// expected
+		}
+		clone.dispose();
+	}
+
+}
@@ -0,0 +1,251 @@
+package genlab.core.model.meta.basics.graphs;
+
+import static org.junit.Assert.*;
+
+import genlab.core.commons.WrongParametersException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class TestCompactGraph {
+
+	protected IGenlabGraph getGraph(GraphDirectionality directionality, boolean multiplex) {
+		return GraphFactory.createGraph("1", directionality, multiplex, GraphBackend.COMPACT);
+	}
+
+	@Test
+	public void testIdsAndEdges() {
+
+		IGenlabGraph g = getGraph(GraphDirectionality.DIRECTED, false);
+
+		assertEquals("0", g.addVertex());
+		assertEquals("1", g.addVertex());
+		g.addVertex("a");
+		assertEquals("3", g.addVertex());
+		assertEquals(4, g.getVerticesCount());
+		assertTrue(g.containsVertex("a"));
+		assertFalse(g.containsVertex("2"));
+		assertFalse(g.containsVertex("01"));
+		assertEquals("a", g.getVertex(2));
+
+		try {
+			g.addVertex("3");
+			fail("a vertex id can only be used once");
+		} catch (WrongParametersException e) {
+			// expected
+		}
+
+		assertEquals("0_to_a", g.addEdge("0", "a", true));
+		g.addEdge("explicit", "a", "3", true);
+		g.addEdge("a", "a", true);
+		assertTrue(g.containsEdge("0_to_a"));
+		assertTrue(g.containsEdge("explicit"));
+		assertFalse(g.containsEdge("a_to_3"));
+		assertTrue(g.containsEdge("0", "a"));
+		assertFalse(g.containsEdge("a", "0"));
+		assertEquals("a", g.getEdgeVertexFrom("explicit"));
+		assertEquals("3", g.getEdgeOtherVertex("explicit", "a"));
+		assertTrue(g.isEdgeLoop("a_to_a"));
+
+		try {
+			g.addEdge("0", "a", true);
+			fail("not a multigraph");
+		} catch (WrongParametersException e) {
+			// expected
+		}
+
+		// same degrees as graphstream: loops count once
+		assertEquals(3, g.getDegree("a"));
+		assertEquals(2, g.getInDegree("a"));
+		assertEquals(2, g.getOutDegree("a"));
+		assertEquals(new HashSet<String>(g.getOutNeighboors("a")), new HashSet<String>(Arrays.asList("a", "3")));
+		assertEquals(3, g.getVertexAttributeValue("a", AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL));
+
+		// removing a vertex removes its edges, and the last vertex takes its index
+		assertTrue(g.removeVertex("0"));
+		assertEquals(3, g.getVerticesCount());
+		assertEquals(2, g.getEdgesCount());
+		assertEquals("3", g.getVertex(0));
+		assertTrue(g.containsVertex("3"));
+		assertFalse(g.containsVertex("0"));
+		assertEquals("3", g.getEdgeVertexTo("explicit"));
+		assertEquals(2, g.getDegree("a"));
+		// (as in graphstream, the default id is taken)
+		assertEquals("4", g.addVertex());
+		assertEquals("4", g.getVertex(3));
+	}
+
+	@Test
+	public void testAttributes() {
+
+		IGenlabGraph g = getGraph(GraphDirectionality.UNDIRECTED, true);
+		g.declareVertexAttribute("weight", Double.class);
+		g.declareVertexAttribute("flag", Boolean.class);
+		g.declareVertexAttribute("label", String.class);
+		g.declareEdgeAttribute("count", Integer.class);
+		g.declareGraphAttribute("name", String.class);
+
+		for (int i=0; i<100; i++)
+			g.addVertex();
+		for (int i=0; i<100; i++)
+			g.setVertexAttribute(Integer.toString(i), "weight", i);
+		g.setVertexAttribute("5", "flag", Boolean.TRUE);
+		g.setVertexAttribute("6", "label", "six");
+		g.setGraphAttribute("name", "test");
+
+		final String e1 = g.addEdge("1", "2", false);
+		g.addEdge("e2", "2", "1", false);
+		g.setEdgeAttribute(e1, "count", 12);
+
+		assertEquals(5d, g.getVertexAttributeValue("5", "weight"));
+		assertEquals(Boolean.TRUE, g.getVertexAttributeValue("5", "flag"));
+		assertNull(g.getVertexAttributeValue("6", "flag"));
+		assertEquals("six", g.getVertexAttributes("6").get("label"));
+		assertEquals(12, g.getEdgeAttributeValue(e1, "count"));
+		assertTrue(g.getEdgeAttributes("e2").isEmpty());
+		assertEquals("test", g.getGraphAttribute("name"));
+		assertEquals(2, g.getEdgesBetween("2", "1").size());
+
+		try {
+			g.setEdgeAttribute(e1, "count", "twelve");
+			fail("wrong type");
+		} catch (WrongParametersException e) {
+			// expected
+		}
+		try {
+			g.setVertexAttribute("1", AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL, 3);
+			fail("computed attribute");
+		} catch (WrongParametersException e) {
+			// expected
+		}
+
+		// the attributes follow the vertex moved to the removed index
+		g.removeVertex("5");
+		assertEquals(99d, g.getVertexAttributeValue("99", "weight"));
+		assertNull(g.getVertexAttributeValue("99", "flag"));
+
+		// clones are independant
+		IGenlabGraph clone = g.clone("cloned");
+		clone.setVertexAttribute("99", "weight", 0d);
+		clone.removeEdge("e2");
+		assertEquals(99d, g.getVertexAttributeValue("99", "weight"));
+		assertEquals(2, g.getEdgesCount());
+		assertEquals(1, clone.getEdgesCount());
+		assertEquals("cloned", clone.getGraphId());
+	}
+
+	/**
+	 * The access by index returns the same as the access by id, for both backends
+	 */
+	@Test
+	public void testIndexAccess() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			IGenlabGraph g = GraphFactory.createGraph("1", GraphDirectionality.DIRECTED, false, backend);
+			g.declareVertexAttribute("weight", Double.class);
+			for (int i=0; i<10; i++) {
+				g.addVertex();
+				g.setVertexAttribute(i, "weight", (double)i);
+			}
+			for (int i=1; i<10; i++)
+				g.addEdge("0", Integer.toString(i), true);
+			g.addEdge("3", "0", true);
+
+			final int idx0 = g.getVertexIndex("0");
+			final int idx3 = g.getVertexIndex("3");
+			assertEquals(-1, g.getVertexIndex("unknown"));
+			assertEquals(10, g.getDegree(idx0));
+			assertEquals(9, g.getOutDegree(idx0));
+			assertEquals(1, g.getInDegree(idx0));
+			assertEquals(g.getDegree("3"), g.getDegrees()[idx3]);
+
+			// the buffer is reused when large enough, else replaced by a bigger one
+			int[] buffer = new int[2];
+			buffer = g.getOutNeighboorsIndices(idx0, buffer);
+			assertTrue(buffer.length >= 9);
+			HashSet<String> neighboors = new HashSet<String>();
+			for (int k=0; k<g.getOutDegree(idx0); k++)
+				neighboors.add(g.getVertex(buffer[k]));
+			assertEquals(new HashSet<String>(g.getOutNeighboors("0")), neighboors);
+			assertSame(buffer, g.getInNeighboorsIndices(idx0, buffer));
+			assertEquals(idx3, buffer[0]);
+
+			final int e = g.getEdgeIndex("3_to_0");
+			assertEquals(idx3, g.getEdgeVertexFromIndex(e));
+			assertEquals(idx0, g.getEdgeOtherVertexIndex(e, idx3));
+			assertTrue(g.isEdgeDirected(e));
+
+			final double[] weights = g.getVertexAttributeValuesAsDoubles("weight", Double.NaN);
+			assertEquals(3d, weights[idx3], 0d);
+			assertEquals(3d, g.getVertexAttributeValue(idx3, "weight"));
+			g.setVertexAttribute(idx3, "weight", 30d);
+			assertEquals(30d, g.getVertexAttributeValue("3", "weight"));
+		}
+	}
+
+	/**
+	 * Applies the same random operations to a graphstream based graph and a compact one,
+	 * and compares them
+	 */
+	@Test
+	public void testSameAsGraphstream() throws Exception {
+
+		final Random random = new Random(42);
+
+		IGenlabGraph reference = GraphFactory.createGraph("1", GraphDirectionality.UNDIRECTED, false, GraphBackend.GRAPHSTREAM);
+		IGenlabGraph g = getGraph(GraphDirectionality.UNDIRECTED, false);
+		reference.declareEdgeAttribute("w", Integer.class);
+		g.declareEdgeAttribute("w", Integer.class);
+
+		for (int i=0; i<200; i++) {
+			assertEquals(reference.addVertex(), g.addVertex());
+		}
+		for (int i=0; i<2000; i++) {
+			final String from = reference.getVertex(random.nextInt((int)reference.getVerticesCount()));
+			final String to = reference.getVertex(random.nextInt((int)reference.getVerticesCount()));
+			if (reference.containsEdge(from, to)) {
+				assertTrue(g.containsEdge(from, to));
+				continue;
+			}
+			final String edgeId = reference.addEdge(from, to, false);
+			assertEquals(edgeId, g.addEdge(from, to, false));
+			reference.setEdgeAttribute(edgeId, "w", i);
+			g.setEdgeAttribute(edgeId, "w", i);
+			if (i % 10 == 0) {
+				final String removed = reference.getVertex(random.nextInt((int)reference.getVerticesCount()));
+				reference.removeVertex(removed);
+				g.removeVertex(removed);
+			}
+		}
+
+		// serialization
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		ObjectOutputStream oos = new ObjectOutputStream(bos);
+		oos.writeObject(g);
+		oos.close();
+		g = (IGenlabGraph)new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+
+		assertEquals(reference.getVerticesCount(), g.getVerticesCount());
+		assertEquals(reference.getEdgesCount(), g.getEdgesCount());
+		assertEquals(new HashSet<String>(reference.getVertices()), new HashSet<String>(g.getVertices()));
+		final List<String> edges = reference.getEdges();
+		assertEquals(new HashSet<String>(edges), new HashSet<String>(g.getEdges()));
+		for (String v: reference.getVertices()) {
+			assertEquals(reference.getDegree(v), g.getDegree(v));
+			assertEquals(new HashSet<String>(reference.getNeighboors(v)), new HashSet<String>(g.getNeighboors(v)));
+		}
+		for (String e: edges) {
+			assertEquals(reference.getEdgeAttributeValue(e, "w"), g.getEdgeAttributeValue(e, "w"));
+		}
+	}
+
+}
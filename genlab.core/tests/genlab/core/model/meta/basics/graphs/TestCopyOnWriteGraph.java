@@ -0,0 +1,149 @@
+package genlab.core.model.meta.basics.graphs;
+
+import static org.junit.Assert.*;
+
+import genlab.core.commons.ProgramException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import org.junit.Test;
+
+public class TestCopyOnWriteGraph {
+
+	protected IGenlabGraph getFrozenGraph(GraphBackend backend) {
+
+		IGenlabGraph g = GraphFactory.createGraph("parent", GraphDirectionality.UNDIRECTED, false, backend);
+		g.declareVertexAttribute("weight", Double.class);
+		g.declareEdgeAttribute("w", Integer.class);
+		g.declareGraphAttribute("name", String.class);
+		g.setGraphAttribute("name", "parent");
+		for (int i=0; i<20; i++) {
+			g.addVertex();
+			g.setVertexAttribute(i, "weight", (double)i);
+		}
+		for (int i=1; i<20; i++) {
+			final String e = g.addEdge(Integer.toString(i-1), Integer.toString(i), false);
+			g.setEdgeAttribute(e, "w", i);
+		}
+		g.freeze();
+		return g;
+	}
+
+	@Test
+	public void testFrozen() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+			IGenlabGraph g = getFrozenGraph(backend);
+			assertTrue(g.isFrozen());
+			try {
+				g.setVertexAttribute("1", "weight", 2d);
+				fail("frozen graph");
+			} catch (ProgramException e) {
+				// expected
+			}
+			try {
+				g.addVertex();
+				fail("frozen graph");
+			} catch (ProgramException e) {
+				// expected
+			}
+			assertEquals(1d, g.getVertexAttributeValue("1", "weight"));
+			assertEquals(20, g.getVerticesCount());
+		}
+	}
+
+	@Test
+	public void testAttributesOnClone() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			IGenlabGraph g = getFrozenGraph(backend);
+			IGenlabGraph clone = g.clone("clone");
+			assertTrue(clone instanceof CopyOnWriteGraph);
+			assertFalse(clone.isFrozen());
+			assertEquals("clone", clone.getGraphId());
+
+			clone.declareVertexAttribute("component", Integer.class);
+			clone.setVertexAttribute("3", "component", 7);
+			clone.setVertexAttribute(4, "weight", 40);
+			clone.setEdgeAttribute("0_to_1", "w", 100);
+			clone.setGraphAttribute("name", "clone");
+
+			// the clone sees its values...
+			assertTrue(clone.hasVertexAttribute("component"));
+			assertTrue(clone.getDeclaredVertexAttributes().contains("weight"));
+			assertEquals(7, clone.getVertexAttributeValue("3", "component"));
+			assertNull(clone.getVertexAttributeValue("2", "component"));
+			assertEquals(40d, clone.getVertexAttributeValue("4", "weight"));
+			assertEquals(5d, clone.getVertexAttributeValue("5", "weight"));
+			assertEquals(100, clone.getEdgeAttributeValue("0_to_1", "w"));
+			assertEquals("clone", clone.getGraphAttribute("name"));
+			assertEquals(40d, clone.getVertexAttributes("4").get("weight"));
+			final double[] weights = clone.getVertexAttributeValuesAsDoubles("weight", Double.NaN);
+			assertEquals(40d, weights[clone.getVertexIndex("4")], 0d);
+			assertEquals(6d, weights[clone.getVertexIndex("6")], 0d);
+			assertEquals(7, clone.getVertexAttributeValues("component")[clone.getVertexIndex("3")]);
+
+			// ... not the parent
+			assertFalse(g.hasVertexAttribute("component"));
+			assertEquals(4d, g.getVertexAttributeValue("4", "weight"));
+			assertEquals(1, g.getEdgeAttributeValue("0_to_1", "w"));
+			assertEquals("parent", g.getGraphAttribute("name"));
+
+			// clones of the clone are independant
+			IGenlabGraph clone2 = clone.clone("clone2");
+			clone2.setVertexAttribute("3", "component", 8);
+			assertEquals(7, clone.getVertexAttributeValue("3", "component"));
+			assertEquals(8, clone2.getVertexAttributeValue("3", "component"));
+			assertFalse(((CopyOnWriteGraph)clone).isCopied());
+		}
+	}
+
+	@Test
+	public void testTopologyOnClone() throws Exception {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			IGenlabGraph g = getFrozenGraph(backend);
+			IGenlabGraph clone = g.clone("clone");
+			clone.declareVertexAttribute("component", Integer.class);
+			clone.setVertexAttribute("3", "component", 7);
+
+			// modifying the vertices copies the parent, with the attributes of the clone
+			final String v = clone.addVertex();
+			clone.addEdge(v, "0", false);
+			assertTrue(((CopyOnWriteGraph)clone).isCopied());
+			assertEquals(21, clone.getVerticesCount());
+			assertEquals(20, clone.getEdgesCount());
+			assertEquals(7, clone.getVertexAttributeValue("3", "component"));
+			assertEquals(19, clone.getEdgeAttributeValue("18_to_19", "w"));
+			assertEquals(20, g.getVerticesCount());
+			assertEquals(19, g.getEdgesCount());
+
+			// serialization sends an independant graph
+			IGenlabGraph clone3 = g.clone("clone3");
+			clone3.setVertexAttribute("2", "weight", 22d);
+			ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			ObjectOutputStream oos = new ObjectOutputStream(bos);
+			oos.writeObject(clone3);
+			oos.close();
+			IGenlabGraph read = (IGenlabGraph)new ObjectInputStream(new ByteArrayInputStream(bos.toByteArray())).readObject();
+			assertFalse(read instanceof CopyOnWriteGraph);
+			assertEquals(22d, read.getVertexAttributeValue("2", "weight"));
+			assertEquals(19, read.getEdgesCount());
+
+			// once frozen, the clone can not be modified anymore
+			clone.freeze();
+			try {
+				clone.setVertexAttribute("3", "component", 8);
+				fail("frozen graph");
+			} catch (ProgramException e) {
+				// expected
+			}
+		}
+	}
+
+}
@@ -0,0 +1,152 @@
+package genlab.core.model.meta.basics.graphs;
+
+import static org.junit.Assert.*;
+
+import genlab.core.commons.ProgramException;
+import genlab.core.commons.WrongParametersException;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class TestGraphBuilder {
+
+	@Test
+	public void testBulk() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			GraphBuilder builder = new GraphBuilder("built", GraphDirectionality.UNDIRECTED, false, 10, 5);
+			builder.declareVertexAttribute("weight", Double.class);
+			builder.declareVertexAttribute("label", String.class);
+			builder.declareEdgeAttribute("w", Integer.class);
+			builder.declareGraphAttribute("name", String.class);
+
+			assertEquals(0, builder.addVertices(10));
+			assertEquals(10, builder.addVertex("a"));
+			builder.addEdges(new int[] {0, 1, 2}, new int[] {1, 2, 3}, 3);
+			builder.addEdges(new int[] {3, 4, 4, 5}, 2);
+			final int explicit = builder.addEdge("explicit", 5, 10, false);
+			builder.addEdge("9_to_a", "9", "a", false);
+
+			final double[] weights = new double[10];
+			for (int i=0; i<weights.length; i++)
+				weights[i] = i*2;
+			builder.setVertexAttributeValues("weight", weights);
+			builder.setVertexAttributeValues("label", new String[] {"zero", null, "two"});
+			builder.setEdgeAttribute(explicit, "w", 12);
+			builder.setGraphAttribute("name", "test");
+			assertEquals(11, builder.getVerticesCount());
+			assertEquals(7, builder.getEdgesCount());
+
+			IGenlabGraph g = builder.build(backend);
+
+			assertEquals(11, g.getVerticesCount());
+			assertEquals(7, g.getEdgesCount());
+			assertTrue(g.containsVertex("a"));
+			assertEquals(2, g.getDegree("5"));
+			assertEquals(2, g.getDegree("a"));
+			assertEquals(new HashSet<String>(Arrays.asList("4", "a")), new HashSet<String>(g.getNeighboors("5")));
+			assertTrue(g.containsEdge("0_to_1"));
+			assertTrue(g.containsEdge("explicit"));
+			assertTrue(g.containsEdge("9_to_a"));
+			assertEquals(6d, g.getVertexAttributeValue("3", "weight"));
+			assertEquals("zero", g.getVertexAttributeValue("0", "label"));
+			assertNull(g.getVertexAttributeValue("1", "label"));
+			assertNull(g.getVertexAttributeValue("a", "weight"));
+			assertEquals(12, g.getEdgeAttributeValue("explicit", "w"));
+			assertEquals("test", g.getGraphAttribute("name"));
+
+			// the graph is a normal one
+			g.addEdge("a", "0", false);
+			assertEquals(3, g.getDegree("a"));
+
+			// the builder can not be used anymore
+			try {
+				builder.addVertex();
+				fail("already built");
+			} catch (ProgramException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testChecks() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			// parallel edges are detected when building
+			GraphBuilder builder = new GraphBuilder("built", GraphDirectionality.UNDIRECTED, false);
+			builder.addVertices(3);
+			builder.addEdge(0, 1);
+			builder.addEdge(1, 0);
+			try {
+				builder.build(backend);
+				fail("not a multigraph");
+			} catch (WrongParametersException e) {
+				// expected
+			}
+
+			// ... but opposite edges are accepted in directed graphs
+			builder = new GraphBuilder("built", GraphDirectionality.DIRECTED, true);
+			builder.addVertices(3);
+			builder.addEdge(0, 1);
+			builder.addEdge(1, 0);
+			builder.addEdge("parallel", 0, 1, true);
+			IGenlabGraph g = builder.build(backend);
+			assertEquals(3, g.getEdgesCount());
+			assertEquals(2, g.getOutDegree("0"));
+
+			builder = new GraphBuilder("built", GraphDirectionality.DIRECTED, false);
+			builder.addVertices(3);
+			try {
+				builder.addEdge(0, 3);
+				fail("unknown vertex");
+			} catch (WrongParametersException e) {
+				// expected
+			}
+			try {
+				builder.addEdge(0, 1, false);
+				fail("directed graph");
+			} catch (WrongParametersException e) {
+				// expected
+			}
+			try {
+				builder.declareVertexAttribute(AbstractGraphstreamBasedGraph.KEY_VERTEX_ATTRIBUTE_DEGREE_TOTAL, Integer.class);
+				fail("already declared");
+			} catch (WrongParametersException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testRemoveEdge() {
+
+		for (GraphBackend backend: GraphBackend.values()) {
+
+			GraphBuilder builder = new GraphBuilder("built", GraphDirectionality.UNDIRECTED, false);
+			builder.declareEdgeAttribute("w", Integer.class);
+			builder.addVertex("a");
+			builder.addVertex("b");
+			builder.addVertex("c");
+			builder.addEdge("e1", "a", "b", false);
+			builder.addEdge("e2", "b", "c", false);
+			builder.addEdge("e3", "c", "a", false);
+			builder.setEdgeAttribute("e3", "w", 3);
+
+			assertTrue(builder.removeEdge("e1"));
+			assertFalse(builder.removeEdge("e1"));
+			assertEquals(0, builder.getEdgeIndex("e3"));
+
+			IGenlabGraph g = builder.build(backend);
+			assertEquals(2, g.getEdgesCount());
+			assertFalse(g.containsEdge("e1"));
+			assertEquals(3, g.getEdgeAttributeValue("e3", "w"));
+			assertNull(g.getEdgeAttributeValue("e2", "w"));
+		}
+	}
+
+}
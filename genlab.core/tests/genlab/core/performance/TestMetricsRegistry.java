@@ -0,0 +1,100 @@
+package genlab.core.performance;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class TestMetricsRegistry {
+
+	@Test
+	public void testCounterMultiThread() throws InterruptedException {
+		
+		final MetricsRegistry registry = new MetricsRegistry("test", null);
+		final int nbThreads = 8;
+		final int incrementsPerThread = 100000;
+		
+		Thread[] threads = new Thread[nbThreads];
+		for (int t=0; t<nbThreads; t++) {
+			threads[t] = new Thread() {
+				public void run() {
+					final Counter counter = registry.getCounter("count");
+					for (int i=0; i<incrementsPerThread; i++)
+						counter.increment();
+				}
+			};
+			threads[t].start();
+		}
+		for (Thread t: threads)
+			t.join();
+		
+		assertEquals(nbThreads*incrementsPerThread, registry.getCounter("count").get());
+	}
+	
+	@Test
+	public void testBuckets() {
+		
+		long previous = -1;
+		for (long value=0; value < 1000000; value = value < 100 ? value+1 : value*11/10) {
+			final int bucket = LatencyHistogram.getBucket(value);
+			assertTrue("bucket too small for "+value, LatencyHistogram.getBucketHighestValue(bucket) >= value);
+			assertTrue("bucket too imprecise for "+value, LatencyHistogram.getBucketHighestValue(bucket) <= value+value/16);
+			assertTrue(bucket >= previous);
+			previous = bucket;
+		}
+		assertEquals(Long.MAX_VALUE, LatencyHistogram.getBucketHighestValue(LatencyHistogram.getBucket(Long.MAX_VALUE)));
+	}
+	
+	@Test
+	public void testPercentiles() {
+		
+		final LatencyHistogram h = new LatencyHistogram("test", null);
+		
+		assertEquals(0, h.getPercentileNanos(50));
+
+		for (int i=1; i<=1000; i++)
+			h.recordNanos(i*1000);
+		
+		assertEquals(1000, h.getCount());
+		assertEquals(1000, h.getMinNanos());
+		assertEquals(1000000, h.getMaxNanos());
+		assertEquals(500500, h.getMeanNanos(), 0.1);
+		assertEquals(500000, h.getPercentileNanos(50), 500000/16);
+		assertEquals(990000, h.getPercentileNanos(99), 990000/16);
+		assertEquals(1000000, h.getPercentileNanos(100));
+	}
+	
+	@Test
+	public void testScopes() throws IOException {
+		
+		final MetricsRegistry registry = new MetricsRegistry("test", null);
+		final MetricsRegistry scope1 = registry.getScope("execution 1");
+		final MetricsRegistry scope2 = registry.getScope("execution 2");
+		
+		assertSame(scope1, registry.getScope("execution 1"));
+		
+		scope1.getCounter("conversions").add(3);
+		scope2.getCounter("conversions").add(2);
+		scope1.getHistogram(MetricsRegistry.PREFIX_ALGO+"a").recordNanos(10);
+		
+		assertEquals(3, scope1.getCounter("conversions").get());
+		assertEquals(5, registry.getCounter("conversions").get());
+		assertEquals(1, registry.getHistogram(MetricsRegistry.PREFIX_ALGO+"a").getCount());
+		assertNull(scope2.getExistingCounter("other"));
+		
+		StringWriter csv = new StringWriter();
+		registry.writeCsv(csv);
+		assertTrue(csv.toString().contains("execution 1,conversions,counter,3"));
+		
+		StringWriter json = new StringWriter();
+		registry.writeJson(json);
+		assertTrue(json.toString().startsWith("{\"name\":\"test\",\"counters\":{\"conversions\":5}"));
+		
+		registry.reset();
+		assertEquals(0, scope1.getCounter("conversions").get());
+		assertEquals(0, registry.getCounter("conversions").get());
+	}
+	
+}
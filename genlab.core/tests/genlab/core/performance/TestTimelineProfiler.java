@@ -0,0 +1,93 @@
+package genlab.core.performance;
+
+import static org.junit.Assert.*;
+
+import genlab.core.performance.TimelineProfiler.TaskRecord;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class TestTimelineProfiler {
+
+	private static final long MS = 1000000;
+	
+	/**
+	 * A workflow with a generator, then two measures in parallel on two workers
+	 */
+	protected List<TaskRecord> createRecords(long origin) {
+		
+		List<TaskRecord> res = new LinkedList<TaskRecord>();
+		
+		TaskRecord workflow = new TaskRecord(0, null, "workflow", "workflow", true);
+		workflow.queuedNs = origin;
+		workflow.startedNs = origin;
+		workflow.finishedNs = origin+100*MS;
+		res.add(workflow);
+		
+		TaskRecord generator = new TaskRecord(1, workflow, "generator", "algo.generator", false);
+		generator.queuedNs = origin;
+		generator.readyNs = origin;
+		generator.runStartNs = origin+10*MS;
+		generator.runEndNs = origin+40*MS;
+		generator.finishedNs = origin+40*MS;
+		generator.worker = "worker 1";
+		res.add(generator);
+		
+		TaskRecord measure1 = new TaskRecord(2, workflow, "measure 1", "algo.measure", false);
+		measure1.queuedNs = origin;
+		measure1.readyNs = origin+40*MS;
+		measure1.runStartNs = origin+40*MS;
+		measure1.runEndNs = origin+60*MS;
+		measure1.finishedNs = origin+60*MS;
+		measure1.worker = "worker 1";
+		measure1.prerequisites = new int[] { 1 };
+		res.add(measure1);
+		
+		TaskRecord measure2 = new TaskRecord(3, workflow, "measure 2", "algo.measure", false);
+		measure2.queuedNs = origin;
+		measure2.readyNs = origin+40*MS;
+		measure2.runStartNs = origin+50*MS;
+		measure2.runEndNs = origin+100*MS;
+		measure2.finishedNs = origin+100*MS;
+		measure2.worker = "worker 2";
+		measure2.prerequisites = new int[] { 1 };
+		res.add(measure2);
+		
+		return res;
+	}
+	
+	@Test
+	public void testSummary() {
+		
+		TimelineProfiler profiler = new TimelineProfiler();
+		final String summary = profiler.getSummary(createRecords(System.nanoTime()));
+
+		assertTrue(summary, summary.startsWith("4 tasks, 100.0 ms"));
+		assertTrue(summary, summary.contains("critical path: 2 tasks, 100.0 ms of which 80.0 ms running"));
+		assertTrue(summary, summary.indexOf("\tgenerator") < summary.indexOf("\tmeasure 2"));
+		assertTrue(summary, summary.contains("worker 1: busy 50.0 ms, idle 50.0 ms (50%)"));
+		assertTrue(summary, summary.contains("waiting for a worker: 3 tasks"));
+	}
+	
+	@Test
+	public void testTrace() throws IOException {
+		
+		TimelineProfiler profiler = new TimelineProfiler();
+		StringWriter writer = new StringWriter();
+		profiler.writeTrace(createRecords(System.nanoTime()), writer);
+		final String trace = writer.toString();
+		
+		assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ms\""));
+		assertTrue(trace.contains("\"name\":\"measure 2\",\"cat\":\"algo.measure\",\"ph\":\"X\""));
+		assertTrue(trace.contains("\"dur\":50000,"));
+		assertTrue(trace.contains("\"name\":\"thread_name\""));
+		assertTrue(trace.contains("\"name\":\"waiting worker\""));
+		assertTrue(trace.trim().endsWith("]}"));
+		assertFalse(trace.contains(",\n,"));
+	}
+	
+}
@@ -0,0 +1,119 @@
+package genlab.core.usermachineinteraction;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Measures the bytes allocated by the logging of the runners per scheduled task, when the
+ * trace and debug messages are filtered out (the default): with messages built by concatenation
+ * (as before the parameterized variants), and with the parameterized and guarded variants.
+ * Relies on the allocation counters of the HotSpot JVM.
+ * Not a unit test: run it as a java application.
+ *
+ * @author Samuel Thiriot
+ *
+ */
+public class LoggingAllocationBenchmark {
+
+	public static final int COUNT_TASKS = 1000000;
+
+	/**
+	 * Stands for a task, as logged by the runners
+	 */
+	protected static class FakeTask {
+
+		private final String name;
+
+		public FakeTask(int i) {
+			this.name = "task "+i;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		@Override
+		public String toString() {
+			return "FakeTask("+name+")";
+		}
+
+	}
+
+	private static final com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+	/**
+	 * The messages logged by a runner for a task, built by concatenation
+	 */
+	protected static void logConcatenated(ListOfMessages messages, FakeTask task, long durationMs) {
+		messages.traceTech("adding task: "+task+" (state READY)", LoggingAllocationBenchmark.class);
+		messages.debugTech(Thread.currentThread().getName()+" running task: "+task.getName(), LoggingAllocationBenchmark.class);
+		messages.traceTech("task started: "+task, LoggingAllocationBenchmark.class);
+		messages.debugTech(Thread.currentThread().getName()+" ran task: "+task.getName(), LoggingAllocationBenchmark.class);
+		messages.traceTech("task finished: "+task+" ("+durationMs+" ms)", LoggingAllocationBenchmark.class);
+	}
+
+	/**
+	 * The same messages, parameterized or guarded
+	 */
+	protected static void logParameterized(ListOfMessages messages, FakeTask task, long durationMs) {
+		messages.traceTech(LoggingAllocationBenchmark.class, "adding task: {} (state READY)", task);
+		messages.debugTech(LoggingAllocationBenchmark.class, "{} running task: {}", Thread.currentThread().getName(), task.getName());
+		messages.traceTech(LoggingAllocationBenchmark.class, "task started: {}", task);
+		messages.debugTech(LoggingAllocationBenchmark.class, "{} ran task: {}", Thread.currentThread().getName(), task.getName());
+		if (messages.isTraceEnabled(LoggingAllocationBenchmark.class))
+			messages.traceTech("task finished: "+task+" ("+durationMs+" ms)", LoggingAllocationBenchmark.class);
+	}
+
+	protected static void measure(String name, ListOfMessages messages, FakeTask[] tasks, boolean parameterized) {
+
+		final long threadId = Thread.currentThread().getId();
+		final long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+		final long start = System.nanoTime();
+
+		for (int i=0; i<COUNT_TASKS; i++) {
+			final FakeTask task = tasks[i % tasks.length];
+			final long durationMs = 1000+i;
+			if (parameterized)
+				logParameterized(messages, task, durationMs);
+			else
+				logConcatenated(messages, task, durationMs);
+		}
+
+		final long duration = System.nanoTime()-start;
+		final long bytes = threadBean.getThreadAllocatedBytes(threadId)-startBytes;
+
+		System.out.println(String.format(
+				"%-25s %8.1f bytes/task, %8.1f ns/task",
+				name,
+				(double)bytes/COUNT_TASKS,
+				(double)duration/COUNT_TASKS
+				));
+	}
+
+	public static void main(String[] args) {
+
+		if (!threadBean.isThreadAllocatedMemorySupported()) {
+			System.err.println("this JVM does not measure allocations per thread");
+			return;
+		}
+		threadBean.setThreadAllocatedMemoryEnabled(true);
+
+		// the default filter: trace and debug messages are dropped
+		final ListOfMessages messages = new ListOfMessages(MessageLevel.INFO, MessageLevel.INFO, 1000);
+
+		final FakeTask[] tasks = new FakeTask[1000];
+		for (int i=0; i<tasks.length; i++)
+			tasks[i] = new FakeTask(i);
+
+		// warm up
+		measure("(warm up)", messages, tasks, false);
+		measure("(warm up)", messages, tasks, true);
+
+		for (int i=0; i<3; i++) {
+			measure("concatenated", messages, tasks, false);
+			measure("parameterized", messages, tasks, true);
+		}
+
+		messages.stop();
+	}
+
+}
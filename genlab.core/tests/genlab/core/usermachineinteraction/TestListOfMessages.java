@@ -1,6 +1,9 @@
 package genlab.core.usermachineinteraction;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 
@@ -76,9 +79,20 @@ public class TestListOfMessages {
 		}
 		
 		
+		Thread[] threads = new Thread[nbThreads];
 		for (int i = 0; i<nbThreads; i++) {
-			Thread t = new ThreadAddManyMessages("thread "+i, toAddPerThread*i+1);
-			t.start();
+			threads[i] = new ThreadAddManyMessages("thread "+i, toAddPerThread*i+1);
+			threads[i].start();
+		}
+		
+		// the messages are delivered by a thread shared by all the lists, which may be 
+		// quicker than the emitters: wait for all of them to be emitted
+		for (Thread t: threads) {
+			try {
+				t.join();
+			} catch (InterruptedException e) {
+				fail("interrupted");
+			}
 		}
 		
 		msgs.waitUntilMessagesQueueConsumed();
@@ -88,4 +102,53 @@ public class TestListOfMessages {
 	}
 
 
+	@Test(timeout=1000)
+	public void testParameterizedMessage() {
+		
+		ListOfMessages msgs = new ListOfMessages(MessageLevel.TRACE, MessageLevel.TRACE, 1000);
+		
+		msgs.debugTech(getClass(), "{} ran task {} ({} ms)", "thread", "task", 12);
+		msgs.traceTech(getClass(), "no {} in this", "more", "arguments");
+		
+		msgs.waitUntilMessagesQueueConsumed();
+		
+		assertEquals("the message was not added", 2, msgs.getSize());
+		assertEquals("thread ran task task (12 ms)", msgs.asArray()[0].getMessage());
+		assertEquals("no more in this", msgs.asArray()[1].getMessage());
+		
+	}
+	
+	/**
+	 * An emitter with a canonical name, so a level can be defined for it
+	 */
+	public static class Emitter {
+		
+	}
+	
+	@Test(timeout=1000)
+	public void testLevelForClass() {
+		
+		ListOfMessages msgs = new ListOfMessages(MessageLevel.INFO, MessageLevel.INFO, 1000);
+		
+		assertFalse(msgs.isDebugEnabled(Emitter.class));
+		msgs.debugTech(Emitter.class, "not {}", "kept");
+
+		// the level cached for the class should be updated
+		ListOfMessages.setLevelForClassname(Emitter.class.getCanonicalName(), MessageLevel.TRACE);
+		try {
+			assertTrue(msgs.isTraceEnabled(Emitter.class));
+			msgs.traceTech(Emitter.class, "{}", "kept");
+		} finally {
+			ListOfMessages.setLevelForClassname(Emitter.class.getCanonicalName(), null);
+		}
+		assertFalse(msgs.isTraceEnabled(Emitter.class));
+		assertTrue(ListOfMessages.getMessageProducers().contains(Emitter.class.getCanonicalName()));
+		
+		msgs.waitUntilMessagesQueueConsumed();
+		
+		assertEquals(1, msgs.getSize());
+		assertEquals("kept", msgs.asArray()[0].getMessage());
+		
+	}
+
 }
@@ -60,4 +60,10 @@ public abstract class RandomNetworkGeneratorAlgoExec extends AbstractAlgoExecuti
 
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// random models, without any seed
+		return false;
+	}
+
 }
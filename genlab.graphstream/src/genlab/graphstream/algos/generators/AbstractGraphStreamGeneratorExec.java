@@ -26,5 +26,10 @@ public abstract class AbstractGraphStreamGeneratorExec extends AbstractAlgoExecu
 		
 	}
 
-	
+	@Override
+	public boolean isDeterministic() {
+		// most graphstream generators draw random numbers without any seed
+		return false;
+	}
+
 }
@@ -9,6 +9,7 @@ import genlab.core.model.meta.AlgoCategory;
 import genlab.core.model.meta.ExistingAlgoCategories;
 import genlab.core.model.meta.InputOutput;
 import genlab.core.model.meta.basics.flowtypes.SimpleGraphFlowType;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.parameters.BooleanParameter;
@@ -131,7 +132,7 @@ public abstract class GraphStreamGeneratorAlgo extends GraphStreamAlgo {
 							new IGenlabGraphInitializer() {
 								
 								@Override
-								public void initGraph(IGenlabGraph glGraph) {
+								public void initGraph(GraphBuilder glGraph) {
 									glGraph.declareVertexAttribute("x", Double.class);
 									glGraph.declareVertexAttribute("y", Double.class);
 								}
@@ -1,9 +1,9 @@
 package genlab.graphstream.algos.generators;
 
-import genlab.core.model.meta.basics.graphs.IGenlabGraph;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 
 public interface IGenlabGraphInitializer {
 
-	public void initGraph(IGenlabGraph glGraph);
+	public void initGraph(GraphBuilder glGraph);
 	
 }
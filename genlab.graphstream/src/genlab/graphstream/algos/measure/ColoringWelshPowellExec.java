@@ -14,6 +14,7 @@ import java.util.Map;
 
 import org.graphstream.algorithm.coloring.WelshPowell;
 import org.graphstream.graph.Graph;
+import org.graphstream.graph.Node;
 
 public class ColoringWelshPowellExec extends AbstractGraphstreamMeasureExecution implements IAlgoExecutionRemotable {
 	
@@ -46,11 +47,23 @@ public class ColoringWelshPowellExec extends AbstractGraphstreamMeasureExecution
 			
 		}
 		
-		Graph outGSgraph = ((AbstractGraphstreamBasedGraph)outGraph)._getInternalGraphstreamGraph();
+		final boolean graphstreamBased = outGraph instanceof AbstractGraphstreamBasedGraph;
+		Graph outGSgraph;
+		if (graphstreamBased)
+			outGSgraph = ((AbstractGraphstreamBasedGraph)outGraph)._getInternalGraphstreamGraph();
+		else
+			outGSgraph = gsGraph;
 		
 		WelshPowell wp = new WelshPowell(attributeId);
 		wp.init(outGSgraph);
 		wp.compute();
+		
+		// other implementations: copy the colors into our graph
+		if (!graphstreamBased && outGraph.hasVertexAttribute(attributeId)) {
+			for (Node n: outGSgraph) {
+				outGraph.setVertexAttribute(n.getId(), attributeId, n.getAttribute(attributeId));
+			}
+		}
 
 		res.put(ColoringWelshPowell.OUTPUT_COLORS_COUNT, wp.getChromaticNumber());
 		res.put(ColoringWelshPowell.OUTPUT_GRAPH, outGraph);
@@ -2,8 +2,8 @@ package genlab.graphstream.utils;
 
 import genlab.core.commons.ProgramException;
 import genlab.core.commons.WrongParametersException;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
-import genlab.core.model.meta.basics.graphs.GraphFactory;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.MessageAudience;
@@ -11,9 +11,7 @@ import genlab.core.usermachineinteraction.MessageLevel;
 import genlab.core.usermachineinteraction.TextMessage;
 import genlab.graphstream.algos.generators.IGenlabGraphInitializer;
 
-import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 
 import org.graphstream.algorithm.generator.BaseGenerator;
@@ -36,25 +34,34 @@ public class GraphstreamConvertors {
 	 */
 	public static class GenLabGraphSink extends SinkAdapter {
 		
-		protected final IGenlabGraph graph;
+		/**
+		 * The graph is filled in bulk, and only created by {@link #getGraph()}
+		 */
+		protected final GraphBuilder builder;
+		
+		protected IGenlabGraph graph = null;
 		
 		protected final ListOfMessages messages;
 		
 		protected Set<String> ignoredAttributesEdge = new HashSet<String>();
 		protected Set<String> ignoredAttributesVertex = new HashSet<String>();
 
-		public GenLabGraphSink (String graphId, ListOfMessages messages,  GraphDirectionality directionality, IGenlabGraphInitializer initializer) {
+		public GenLabGraphSink (String graphId, ListOfMessages messages,  GraphDirectionality directionality, IGenlabGraphInitializer initializer, int expectedVertices, int expectedEdges) {
 			
 			this.messages = messages;
 			
 			// TODO hard to predict what will be found into the graph...
-			graph = GraphFactory.createGraph(graphId, directionality, false);
+			builder = new GraphBuilder(graphId, directionality, false, expectedVertices, expectedEdges);
 			
 			if (initializer != null)
-				initializer.initGraph(graph);
+				initializer.initGraph(builder);
 			
 		}
 		
+		public GenLabGraphSink (String graphId, ListOfMessages messages,  GraphDirectionality directionality, IGenlabGraphInitializer initializer) {
+			this(graphId, messages, directionality, initializer, 16, 16);
+		}
+		
 		public GenLabGraphSink (String graphId, ListOfMessages messages,  GraphDirectionality directionality) {
 			this(graphId, messages, directionality, null);
 		}
@@ -72,12 +79,12 @@ public class GraphstreamConvertors {
 		public void edgeAdded(String sourceId, long timeId, String edgeId, String fromNodeId,
 			String toNodeId, boolean directed) {
 		
-			graph.addEdge(edgeId, fromNodeId, toNodeId, directed);
+			builder.addEdge(edgeId, fromNodeId, toNodeId, directed);
 		}
 
 		@Override
 		public void nodeAdded(String sourceId, long timeId, String nodeId) {
-			graph.addVertex(nodeId);
+			builder.addVertex(nodeId);
 		}
 
 		@Override
@@ -87,14 +94,14 @@ public class GraphstreamConvertors {
 				return;
 
 			try {
-				graph.setEdgeAttribute(edgeId, attribute, value);
+				builder.setEdgeAttribute(edgeId, attribute, value);
 			} catch (WrongParametersException e) {
 
-				if (!graph.hasEdgeAttribute(attribute)) {
+				if (!builder.hasEdgeAttribute(attribute)) {
 					if (messages != null) 
-						messages.traceTech("the graph had no edge attribute "+attribute+"; we automatically define it", getClass());
-					graph.declareEdgeAttribute(attribute, value.getClass());
-					graph.setEdgeAttribute(edgeId, attribute, value);
+						messages.traceTech(getClass(), "the graph had no edge attribute {}; we automatically define it", attribute);
+					builder.declareEdgeAttribute(attribute, value.getClass());
+					builder.setEdgeAttribute(edgeId, attribute, value);
 				} else {
 					if (messages != null)
 						messages.errorTech("error while attempting to define edge attribute: "+attribute, getClass(), e);
@@ -106,7 +113,7 @@ public class GraphstreamConvertors {
 		@Override
 		public void graphAttributeAdded(String sourceId, long timeId,
 				String attribute, Object value) {
-			graph.setGraphAttribute(attribute, value);
+			builder.setGraphAttribute(attribute, value);
 		}
 
 		@Override
@@ -116,14 +123,14 @@ public class GraphstreamConvertors {
 				return;
 			
 			try {
-				graph.setVertexAttribute(nodeId, attribute, value);
+				builder.setVertexAttribute(nodeId, attribute, value);
 			} catch (WrongParametersException e) {
 
-				if (!graph.hasVertexAttribute(attribute)) {
+				if (!builder.hasVertexAttribute(attribute)) {
 					if (messages != null)
-						messages.traceTech("the graph had no vertex attribute "+attribute+"; we automatically define it", getClass());
-					graph.declareVertexAttribute(attribute, value.getClass());
-					graph.setVertexAttribute(nodeId, attribute, value);
+						messages.traceTech(getClass(), "the graph had no vertex attribute {}; we automatically define it", attribute);
+					builder.declareVertexAttribute(attribute, value.getClass());
+					builder.setVertexAttribute(nodeId, attribute, value);
 				} else {
 					if (messages != null)
 						messages.errorTech("error while attempting to define graph attribute: "+attribute, getClass(), e);
@@ -139,14 +146,14 @@ public class GraphstreamConvertors {
 			
 
 			try {
-				graph.setEdgeAttribute(edgeId, attribute, newValue);
+				builder.setEdgeAttribute(edgeId, attribute, newValue);
 			} catch (WrongParametersException e) {
 
-				if (!graph.hasEdgeAttribute(attribute)) {
+				if (!builder.hasEdgeAttribute(attribute)) {
 					if (messages != null)
-						messages.traceTech("the graph had no edge attribute "+attribute+"; we automatically define it", getClass());
-					graph.declareEdgeAttribute(attribute, newValue.getClass());
-					graph.setEdgeAttribute(edgeId, attribute, newValue);
+						messages.traceTech(getClass(), "the graph had no edge attribute {}; we automatically define it", attribute);
+					builder.declareEdgeAttribute(attribute, newValue.getClass());
+					builder.setEdgeAttribute(edgeId, attribute, newValue);
 				} else {
 					if (messages != null)
 						messages.errorTech("error while attempting to define edge attribute: "+attribute, getClass(), e);
@@ -170,14 +177,14 @@ public class GraphstreamConvertors {
 			
 
 			try {
-				graph.setGraphAttribute(attribute, newValue);
+				builder.setGraphAttribute(attribute, newValue);
 			} catch (WrongParametersException e) {
 
-				if (!graph.hasGraphAttribute(attribute)) {
+				if (!builder.hasGraphAttribute(attribute)) {
 					if (messages != null)
-						messages.traceTech("the graph had no graph attribute "+attribute+"; we automatically define it", getClass());
-					graph.declareGraphAttribute(attribute, newValue.getClass());
-					graph.setGraphAttribute(attribute, newValue);
+						messages.traceTech(getClass(), "the graph had no graph attribute {}; we automatically define it", attribute);
+					builder.declareGraphAttribute(attribute, newValue.getClass());
+					builder.setGraphAttribute(attribute, newValue);
 				} else {
 					if (messages != null)
 						messages.errorTech("error while attempting to define edge graph: "+attribute, getClass(), e);
@@ -205,14 +212,14 @@ public class GraphstreamConvertors {
 				Object newValue) {
 			
 			try {
-				graph.setVertexAttribute(nodeId, attribute, newValue);
+				builder.setVertexAttribute(nodeId, attribute, newValue);
 			} catch (WrongParametersException e) {
 
-				if (!graph.hasVertexAttribute(attribute)) {
+				if (!builder.hasVertexAttribute(attribute)) {
 					if (messages != null)
-						messages.traceTech("the graph had no vertex attribute "+attribute+"; we automatically define it as "+newValue.getClass(), getClass());
-					graph.declareVertexAttribute(attribute, newValue.getClass());
-					graph.setVertexAttribute(nodeId, attribute, newValue);
+						messages.traceTech(getClass(), "the graph had no vertex attribute {}; we automatically define it as {}", attribute, newValue.getClass());
+					builder.declareVertexAttribute(attribute, newValue.getClass());
+					builder.setVertexAttribute(nodeId, attribute, newValue);
 				} else {
 					if (messages != null)
 						messages.errorTech("error while attempting to define vertex attribute: "+attribute, getClass(), e);
@@ -232,7 +239,7 @@ public class GraphstreamConvertors {
 
 		@Override
 		public void edgeRemoved(String sourceId, long timeId, String edgeId) {
-			graph.removeEdge(edgeId);
+			builder.removeEdge(edgeId);
 		}
 
 		@Override
@@ -257,7 +264,10 @@ public class GraphstreamConvertors {
 		}
 		
 		public IGenlabGraph getGraph() {
-			return graph; // TODO postprocessing, like define if directed, etc...
+			// TODO postprocessing, like define if directed, etc...
+			if (graph == null)
+				graph = builder.build();
+			return graph; 
 		}
 		
 	}
@@ -271,7 +281,8 @@ public class GraphstreamConvertors {
 			if (messages != null)
 				messages.debugTech("loading the graph from a source into a genlab graph...", GraphstreamConvertors.class);
 		
-			GenLabGraphSink ourSink = new GenLabGraphSink(graphId, messages, directionality, initializer);
+			final int expectedVertices = maxNodes > 0 ? maxNodes+1 : 16;
+			GenLabGraphSink ourSink = new GenLabGraphSink(graphId, messages, directionality, initializer, expectedVertices, expectedVertices);
 			// TODO ??? ourSink.ignoreVertexAttribute("xy");
 			generator.addSink(ourSink);
 
@@ -291,7 +302,7 @@ public class GraphstreamConvertors {
 							break;
 					}
 				} else {
-					while (ourSink.graph.getVerticesCount() <= maxNodes) {
+					while (ourSink.builder.getVerticesCount() <= maxNodes) {
 						if (!generator.nextEvents())
 							break;
 					}
@@ -320,8 +331,6 @@ public class GraphstreamConvertors {
 		if (messages != null)
 			messages.debugTech("transcoding from a genlab graph to a graphstream graph...", GraphstreamConvertors.class);
 		
-		Map<String,Node> genlabNode2graphStreamNode = new HashMap<String, Node>((int) genlabGraph.getVerticesCount());
-		
 		// TODO graph attributes
 
 		// add graph attributes
@@ -338,41 +347,34 @@ public class GraphstreamConvertors {
 		}
 		
 		
-		// add nodes		
-		for (String vertexId : genlabGraph.getVertices()) {
-				
-			Node n = g.addNode(vertexId);
-			
-			genlabNode2graphStreamNode.put(
-					vertexId,
-					n
-					);
-			
-			// copy attributes values of vertices
-			for (Map.Entry<String,Object> kv : genlabGraph.getVertexAttributes(vertexId).entrySet()) {
-				n.setAttribute(
-						kv.getKey(), 
-						kv.getValue()
-						);
-			}		
+		// add nodes (by index, so edges find them without any lookup)
+		final int countVertices = (int)genlabGraph.getVerticesCount();
+		final Node[] nodes = new Node[countVertices];
+		for (int i=0; i<countVertices; i++) {
+			nodes[i] = g.addNode(genlabGraph.getVertex(i));
+		}
+		// copy attributes values of vertices, attribute by attribute
+		for (String attributeId: genlabGraph.getDeclaredVertexAttributes()) {
+			final Object[] values = genlabGraph.getVertexAttributeValues(attributeId);
+			for (int i=0; i<countVertices; i++) {
+				if (values[i] != null)
+					nodes[i].setAttribute(attributeId, values[i]);
+			}
 		}
 		
 		// add edges
-		for (String edgeId : genlabGraph.getEdges()) {
+		final int countEdges = (int)genlabGraph.getEdgesCount();
+		final Edge[] edges = new Edge[countEdges];
+		for (int i=0; i<countEdges; i++) {
 			
 			try {
-				Edge e = g.addEdge(
-						edgeId, 
-						genlabGraph.getEdgeVertexFrom(edgeId),
-						genlabGraph.getEdgeVertexTo(edgeId), 
-						genlabGraph.isEdgeDirected(edgeId)				// till now, directionality of an edge depends on the whole gama graph
+				edges[i] = g.addEdge(
+						genlabGraph.getEdge(i), 
+						nodes[genlabGraph.getEdgeVertexFromIndex(i)],
+						nodes[genlabGraph.getEdgeVertexToIndex(i)], 
+						genlabGraph.isEdgeDirected(i)				// till now, directionality of an edge depends on the whole gama graph
 						);
 				
-				// copy attributes
-				for (Map.Entry<String,Object> kv: genlabGraph.getEdgeAttributes(edgeId).entrySet()) {
-					e.setAttribute(kv.getKey(), kv.getValue());
-				}
-
 			} catch (EdgeRejectedException e) {
 				if (messages != null)
 					messages.add(new TextMessage(
@@ -395,6 +397,15 @@ public class GraphstreamConvertors {
 			
 		}
 
+		// copy attributes of edges (rejected edges are null)
+		for (String attributeId: genlabGraph.getDeclaredEdgeAttributes()) {
+			final Object[] values = genlabGraph.getEdgeAttributeValues(attributeId);
+			for (int i=0; i<countEdges; i++) {
+				if (values[i] != null && edges[i] != null)
+					edges[i].setAttribute(attributeId, values[i]);
+			}
+		}
+
 		// some basic tests for integrity
 		if (genlabGraph.getVerticesCount() != g.getNodeCount())
 			if (messages != null)
@@ -4,7 +4,7 @@ import genlab.core.exec.IExecution;
 import genlab.core.model.exec.IAlgoExecution;
 import genlab.core.model.exec.IConnectionExecution;
 import genlab.core.model.instance.IAlgoInstance;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.jfreechart.algos.ScatterPlotAlgo;
 import genlab.gui.jfreechart.instance.ScatterPlotAlgoInstance;
 import genlab.gui.jfreechart.views.ScatterView;
@@ -13,7 +13,7 @@ import genlab.gui.views.AbstractViewOpenedByAlgo;
 public class ScatterPlotExec extends AbstractJFreeChartAlgoExec {
 
 	// the table loaded from a continuous update, or a sequential update.
-	private GenlabTable table;
+	private AbstractGenlabTable table;
 	private boolean parametersDefined = false;
 
 	public ScatterPlotExec(IExecution exec, IAlgoInstance algoInst) {
@@ -21,7 +21,7 @@ public class ScatterPlotExec extends AbstractJFreeChartAlgoExec {
 		
 	}
 
-	protected void adaptParametersForData(IAlgoInstance algoInst, GenlabTable table) {
+	protected void adaptParametersForData(IAlgoInstance algoInst, AbstractGenlabTable table) {
 		
 		if (table == null)
 			return;
@@ -35,14 +35,14 @@ public class ScatterPlotExec extends AbstractJFreeChartAlgoExec {
 	}
 	
 	protected void loadDataSuccessiveFromInput() {
-		table = (GenlabTable)getInputValueForInput(ScatterPlotAlgo.INPUT_TABLE);
+		table = (AbstractGenlabTable)getInputValueForInput(ScatterPlotAlgo.INPUT_TABLE);
 
 	}
 		
 	protected void setDataFromContinuousUpdate(IAlgoExecution continuousProducer,
 			Object keyWave, IConnectionExecution connectionExec, Object value) {
 
-		table = (GenlabTable)value;
+		table = (AbstractGenlabTable)value;
 
 	}
 
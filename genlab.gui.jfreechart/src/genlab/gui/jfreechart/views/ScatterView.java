@@ -3,7 +3,7 @@ package genlab.gui.jfreechart.views;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.model.instance.IAlgoInstance;
 import genlab.core.model.instance.IParametersListener;
-import genlab.core.model.meta.basics.flowtypes.GenlabTable;
+import genlab.core.model.meta.basics.flowtypes.AbstractGenlabTable;
 import genlab.gui.actions.ShowParametersAction;
 import genlab.gui.algos.AbstractOpenViewAlgoExec;
 import genlab.gui.jfreechart.instance.ScatterPlotAlgoInstance;
@@ -36,7 +36,7 @@ public class ScatterView extends AbstractViewOpenedByAlgo implements IParameters
 	protected int glTableColumnXIdx;
 	protected int glTableColumnYIdx;
 	
-	public GenlabTable glTable = null;
+	public AbstractGenlabTable glTable = null;
 
 	XYSeries serie = null;
 			
@@ -124,7 +124,7 @@ public class ScatterView extends AbstractViewOpenedByAlgo implements IParameters
 	}
 	
 	
-	public void setData(IAlgoInstance viewAlgoInstance, GenlabTable glTable) {
+	public void setData(IAlgoInstance viewAlgoInstance, AbstractGenlabTable glTable) {
 
 
 		if (glTable == null)
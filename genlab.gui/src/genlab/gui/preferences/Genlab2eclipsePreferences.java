@@ -1,8 +1,16 @@
 package genlab.gui.preferences;
 
+import genlab.core.commons.ProgramException;
+import genlab.core.exec.ResultsCache;
+import genlab.core.exec.ValuesRelease;
 import genlab.core.exec.client.ComputationNodes;
+import genlab.core.exec.client.ComputationNodes.RunnerKind;
 import genlab.core.exec.client.ServerHostPreference;
 import genlab.core.exec.server.GenlabComputationServer;
+import genlab.core.model.meta.basics.graphs.GraphBackend;
+import genlab.core.model.meta.basics.graphs.GraphFactory;
+import genlab.core.performance.MetricsExporter;
+import genlab.core.performance.TimelineProfiler;
 import genlab.core.usermachineinteraction.GLLogger;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.ListsOfMessages;
@@ -70,6 +78,43 @@ public class Genlab2eclipsePreferences {
 		
 		// parameters for local runner
 		ComputationNodes.getSingleton().setParameterLocalThreadsMax(Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_MAX_CPUS));
+		ComputationNodes.getSingleton().setParameterRunnerKind(RunnerKind.valueOf(Activator.getDefault().getPreferenceStore().getString(LocalRunnerPreferencePage.KEY_RUNNER_KIND)));
+		ComputationNodes.getSingleton().setParameterControlThreadsMax(Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_MAX_CONTROL_THREADS));
+		ComputationNodes.getSingleton().setParameterRemoteTasksInFlight(Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_REMOTE_TASKS_IN_FLIGHT));
+		// resources shared by tasks
+		ComputationNodes.getSingleton().setParameterResources(
+				Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_RESOURCES_HEAP_MB), 
+				Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_RESOURCES_NATIVE_MB), 
+				Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_RESOURCES_IO_SLOTS)
+				);
+		// reuse of results
+		ResultsCache.singleton.setEnabled(Activator.getDefault().getPreferenceStore().getBoolean(LocalRunnerPreferencePage.KEY_RESULTS_CACHE));
+		ResultsCache.singleton.setMemoryBudgetBytes(Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_RESULTS_CACHE_MEMORY_MB)*1024L*1024L);
+		ResultsCache.singleton.setDiskBudgetBytes(Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_RESULTS_CACHE_DISK_MB)*1024L*1024L);
+		// release of intermediate values
+		ValuesRelease.singleton.setEnabled(Activator.getDefault().getPreferenceStore().getBoolean(LocalRunnerPreferencePage.KEY_EAGER_RELEASE));
+		ValuesRelease.singleton.setDebug(Activator.getDefault().getPreferenceStore().getBoolean(LocalRunnerPreferencePage.KEY_EAGER_RELEASE_DEBUG));
+		// publication of metrics
+		if (Activator.getDefault().getPreferenceStore().getBoolean(LocalRunnerPreferencePage.KEY_METRICS_JMX))
+			MetricsExporter.singleton.registerJmx();
+		else
+			MetricsExporter.singleton.unregisterJmx();
+		{
+			final int port = Activator.getDefault().getPreferenceStore().getInt(LocalRunnerPreferencePage.KEY_METRICS_HTTP_PORT);
+			if (port != MetricsExporter.singleton.getHttpPort())
+				MetricsExporter.singleton.stopHttp();
+			if (port > 0) {
+				try {
+					MetricsExporter.singleton.startHttp(port);
+				} catch (ProgramException e) {
+					GLLogger.warnUser("unable to serve the metrics on port "+port+": "+e.getMessage(), getClass());
+				}
+			}
+		}
+		// profiling of executions
+		TimelineProfiler.singleton.setEnabled(Activator.getDefault().getPreferenceStore().getBoolean(LocalRunnerPreferencePage.KEY_PROFILE_TIMELINE));
+		// implementation of graphs
+		GraphFactory.defaultBackend = GraphBackend.valueOf(Activator.getDefault().getPreferenceStore().getString(LocalRunnerPreferencePage.KEY_GRAPH_BACKEND));
 		// parameters for contacting a server
 		ComputationNodes.getSingleton().setParameterListOfHosts(ServerHostPreference.parseAsList(Activator.getDefault().getPreferenceStore().getString(LocalRunnerPreferencePage.KEY_SERVERS)));
 		
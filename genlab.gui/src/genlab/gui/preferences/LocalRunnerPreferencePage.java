@@ -1,5 +1,7 @@
 package genlab.gui.preferences;
 
+import genlab.core.exec.client.ComputationNodes.RunnerKind;
+import genlab.core.model.meta.basics.graphs.GraphBackend;
 import genlab.gui.Activator;
 
 import java.io.IOException;
@@ -34,6 +36,36 @@ public class LocalRunnerPreferencePage
 
 	public static final String KEY_SERVERS = PAGE_ID+".servers";
 
+	public static final String KEY_RUNNER_KIND = PAGE_ID+".runner_kind";
+
+	public static final String KEY_MAX_CONTROL_THREADS = PAGE_ID+".max_control_threads";
+
+	public static final String KEY_REMOTE_TASKS_IN_FLIGHT = PAGE_ID+".remote_tasks_in_flight";
+
+	public static final String KEY_RESOURCES_HEAP_MB = PAGE_ID+".resources_heap_mb";
+
+	public static final String KEY_RESOURCES_NATIVE_MB = PAGE_ID+".resources_native_mb";
+
+	public static final String KEY_RESOURCES_IO_SLOTS = PAGE_ID+".resources_io_slots";
+
+	public static final String KEY_RESULTS_CACHE = PAGE_ID+".results_cache";
+
+	public static final String KEY_RESULTS_CACHE_MEMORY_MB = PAGE_ID+".results_cache_memory_mb";
+
+	public static final String KEY_RESULTS_CACHE_DISK_MB = PAGE_ID+".results_cache_disk_mb";
+
+	public static final String KEY_EAGER_RELEASE = PAGE_ID+".eager_release";
+
+	public static final String KEY_EAGER_RELEASE_DEBUG = PAGE_ID+".eager_release_debug";
+
+	public static final String KEY_METRICS_JMX = PAGE_ID+".metrics_jmx";
+
+	public static final String KEY_METRICS_HTTP_PORT = PAGE_ID+".metrics_http_port";
+
+	public static final String KEY_PROFILE_TIMELINE = PAGE_ID+".profile_timeline";
+
+	public static final String KEY_GRAPH_BACKEND = PAGE_ID+".graph_backend";
+
 
 	public LocalRunnerPreferencePage() {
 	}
@@ -47,6 +79,34 @@ public class LocalRunnerPreferencePage
 
 	}
 	
+	public static String[][] getListOfOptionsForRunnerKinds() {
+		
+		RunnerKind[] kinds = RunnerKind.values();
+
+		String[][] res = new String[kinds.length][];
+		
+		for (int i=0; i<kinds.length; i++) {
+			res[i] = new String[] {kinds[i].toString(), kinds[i].toString()};
+		}
+		
+		return res;
+		
+	}
+	
+	public static String[][] getListOfOptionsForGraphBackends() {
+		
+		GraphBackend[] backends = GraphBackend.values();
+
+		String[][] res = new String[backends.length][];
+		
+		for (int i=0; i<backends.length; i++) {
+			res[i] = new String[] {backends[i].toString(), backends[i].toString()};
+		}
+		
+		return res;
+		
+	}
+	
 	@Override
 	protected void createFieldEditors() {
 
@@ -60,6 +120,144 @@ public class LocalRunnerPreferencePage
 			cpusEditor.setValidRange(1, Runtime.getRuntime().availableProcessors()*4);
 			addField(cpusEditor);
 		}
+		{
+			ComboFieldEditor runnerKindEditor = new ComboFieldEditor(
+					KEY_RUNNER_KIND, 
+					"kind of local runner (applied after restart)", 
+					getListOfOptionsForRunnerKinds(), 
+					getFieldEditorParent()
+					);
+			addField(runnerKindEditor);
+		}
+		{
+			IntegerFieldEditor controlThreadsEditor = new IntegerFieldEditor(
+					KEY_MAX_CONTROL_THREADS,
+					"Max threads for control tasks (0: on demand)", 
+					getFieldEditorParent()
+					);
+			
+			controlThreadsEditor.setValidRange(0, 64);
+			addField(controlThreadsEditor);
+		}
+		{
+			IntegerFieldEditor inFlightEditor = new IntegerFieldEditor(
+					KEY_REMOTE_TASKS_IN_FLIGHT,
+					"Tasks sent in advance to each server (0: one by one)", 
+					getFieldEditorParent()
+					);
+			
+			inFlightEditor.setValidRange(0, 1024);
+			addField(inFlightEditor);
+		}
+		{
+			IntegerFieldEditor heapEditor = new IntegerFieldEditor(
+					KEY_RESOURCES_HEAP_MB,
+					"Memory for tasks declaring their needs (MB, 0: automatic)", 
+					getFieldEditorParent()
+					);
+			
+			heapEditor.setValidRange(0, 1024*1024);
+			addField(heapEditor);
+		}
+		{
+			IntegerFieldEditor nativeEditor = new IntegerFieldEditor(
+					KEY_RESOURCES_NATIVE_MB,
+					"Native memory for tasks declaring their needs (MB, 0: no limit)", 
+					getFieldEditorParent()
+					);
+			
+			nativeEditor.setValidRange(0, 1024*1024);
+			addField(nativeEditor);
+		}
+		{
+			IntegerFieldEditor ioEditor = new IntegerFieldEditor(
+					KEY_RESOURCES_IO_SLOTS,
+					"Tasks intensive in disk or network running together (0: as many as CPUs)", 
+					getFieldEditorParent()
+					);
+			
+			ioEditor.setValidRange(0, 1024);
+			addField(ioEditor);
+		}
+		{
+			BooleanFieldEditor cacheEditor = new BooleanFieldEditor(
+					KEY_RESULTS_CACHE,
+					"Reuse the results of algorithms ran again with the same seed, parameters and inputs", 
+					getFieldEditorParent()
+					);
+			addField(cacheEditor);
+		}
+		{
+			IntegerFieldEditor cacheMemoryEditor = new IntegerFieldEditor(
+					KEY_RESULTS_CACHE_MEMORY_MB,
+					"Memory for reused results (MB)", 
+					getFieldEditorParent()
+					);
+			
+			cacheMemoryEditor.setValidRange(0, 64*1024);
+			addField(cacheMemoryEditor);
+		}
+		{
+			IntegerFieldEditor cacheDiskEditor = new IntegerFieldEditor(
+					KEY_RESULTS_CACHE_DISK_MB,
+					"Disk space for reused results (MB, 0: none)", 
+					getFieldEditorParent()
+					);
+			
+			cacheDiskEditor.setValidRange(0, 1024*1024);
+			addField(cacheDiskEditor);
+		}
+		{
+			BooleanFieldEditor releaseEditor = new BooleanFieldEditor(
+					KEY_EAGER_RELEASE,
+					"Release intermediate values as soon as all the algorithms using them retrieved them", 
+					getFieldEditorParent()
+					);
+			addField(releaseEditor);
+		}
+		{
+			BooleanFieldEditor releaseDebugEditor = new BooleanFieldEditor(
+					KEY_EAGER_RELEASE_DEBUG,
+					"Report the memory retained by each task (slow, for debugging)", 
+					getFieldEditorParent()
+					);
+			addField(releaseDebugEditor);
+		}
+		{
+			BooleanFieldEditor jmxEditor = new BooleanFieldEditor(
+					KEY_METRICS_JMX,
+					"Publish the metrics (durations of algorithms, counters) through JMX", 
+					getFieldEditorParent()
+					);
+			addField(jmxEditor);
+		}
+		{
+			IntegerFieldEditor httpEditor = new IntegerFieldEditor(
+					KEY_METRICS_HTTP_PORT,
+					"Serve the metrics on this local HTTP port (0: none)", 
+					getFieldEditorParent()
+					);
+			
+			httpEditor.setValidRange(0, 65535);
+			addField(httpEditor);
+		}
+		{
+			BooleanFieldEditor timelineEditor = new BooleanFieldEditor(
+					KEY_PROFILE_TIMELINE,
+					"Write the timeline of each execution (Chrome trace format) in its results directory", 
+					getFieldEditorParent()
+					);
+			addField(timelineEditor);
+		}
+		{
+			ComboFieldEditor graphBackendEditor = new ComboFieldEditor(
+					KEY_GRAPH_BACKEND, 
+					"implementation of the graphs (COMPACT needs less memory for big graphs)", 
+					getListOfOptionsForGraphBackends(), 
+					getFieldEditorParent()
+					);
+			addField(graphBackendEditor);
+		}
 		{
 			HostsListFieldEditor list = new HostsListFieldEditor(
 					KEY_SERVERS, 
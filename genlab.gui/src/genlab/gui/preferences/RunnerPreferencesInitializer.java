@@ -1,6 +1,9 @@
 package genlab.gui.preferences;
 
+import genlab.core.exec.ResultsCache;
+import genlab.core.exec.client.ComputationNodes.RunnerKind;
 import genlab.core.exec.server.GenlabComputationServer;
+import genlab.core.model.meta.basics.graphs.GraphBackend;
 import genlab.core.usermachineinteraction.MessageLevel;
 import genlab.gui.Activator;
 
@@ -19,6 +22,21 @@ public class RunnerPreferencesInitializer extends AbstractPreferenceInitializer
 		IPreferenceStore store = Activator.getDefault().getPreferenceStore();
 		
 		store.setDefault(LocalRunnerPreferencePage.KEY_MAX_CPUS, Runtime.getRuntime().availableProcessors());
+		store.setDefault(LocalRunnerPreferencePage.KEY_RUNNER_KIND, RunnerKind.CLASSIC.toString());
+		store.setDefault(LocalRunnerPreferencePage.KEY_MAX_CONTROL_THREADS, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_REMOTE_TASKS_IN_FLIGHT, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESOURCES_HEAP_MB, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESOURCES_NATIVE_MB, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESOURCES_IO_SLOTS, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESULTS_CACHE, false);
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESULTS_CACHE_MEMORY_MB, (int)(ResultsCache.DEFAULT_MEMORY_BUDGET_BYTES/1024/1024));
+		store.setDefault(LocalRunnerPreferencePage.KEY_RESULTS_CACHE_DISK_MB, (int)(ResultsCache.DEFAULT_DISK_BUDGET_BYTES/1024/1024));
+		store.setDefault(LocalRunnerPreferencePage.KEY_EAGER_RELEASE, false);
+		store.setDefault(LocalRunnerPreferencePage.KEY_EAGER_RELEASE_DEBUG, false);
+		store.setDefault(LocalRunnerPreferencePage.KEY_METRICS_JMX, false);
+		store.setDefault(LocalRunnerPreferencePage.KEY_METRICS_HTTP_PORT, 0);
+		store.setDefault(LocalRunnerPreferencePage.KEY_PROFILE_TIMELINE, false);
+		store.setDefault(LocalRunnerPreferencePage.KEY_GRAPH_BACKEND, GraphBackend.GRAPHSTREAM.toString());
 		
 		store.setDefault(LocalServerPreferencePage.KEY_START_SERVER, false);
 		store.setDefault(LocalServerPreferencePage.KEY_START_SERVER_PORT, GenlabComputationServer.DEFAULT_PORT);
@@ -2,7 +2,7 @@ package genlab.igraph.Rigraph;
 
 import genlab.core.commons.FileUtils;
 import genlab.core.commons.WrongParametersException;
-import genlab.core.model.meta.basics.graphs.AbstractGraphstreamBasedGraph;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.usermachineinteraction.GLLogger;
@@ -81,9 +81,9 @@ public class RIGraph2Genlab {
 				directionality,
 				new IGenlabGraphInitializer() {
 					@Override
-					public void initGraph(IGenlabGraph glGraph) {
+					public void initGraph(GraphBuilder glGraph) {
 						// ingore the graph attributes errors, as Igraph is going to create plenty
-						((AbstractGraphstreamBasedGraph)glGraph).ignoreGraphAttributeErrors = true;
+						glGraph.ignoreGraphAttributeErrors = true;
 					}
 				}
 				);
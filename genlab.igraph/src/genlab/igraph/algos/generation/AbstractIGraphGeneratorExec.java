@@ -3,6 +3,8 @@ package genlab.igraph.algos.generation;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.exec.IAlgoExecutionRemotable;
 import genlab.core.exec.IExecution;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.exec.ComputationResult;
 import genlab.core.model.exec.ComputationState;
 import genlab.core.model.instance.IAlgoInstance;
@@ -10,9 +12,17 @@ import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.usermachineinteraction.GLLogger;
 import genlab.igraph.algos.AbstractIGraphExec;
 
+/**
+ * Basis for the generators based on igraph. Declares the memory which will be used 
+ * by the generation, so the runner does not start too many generations of big graphs
+ * at the same time.
+ * 
+ * @author Samuel Thiriot
+ *
+ */
 public abstract class AbstractIGraphGeneratorExec 	
 										extends AbstractIGraphExec 
-										implements IAlgoExecutionRemotable
+										implements IAlgoExecutionRemotable, IResourcesConsumer
 										{
 
 	public AbstractIGraphGeneratorExec(
@@ -31,6 +41,61 @@ public abstract class AbstractIGraphGeneratorExec
 	 */
 	public AbstractIGraphGeneratorExec(){}
 	
+	/**
+	 * Estimated bytes of native memory used by igraph for each vertex and edge
+	 */
+	public static final long NATIVE_BYTES_PER_VERTEX = 32;
+	public static final long NATIVE_BYTES_PER_EDGE = 48;
+	
+	/**
+	 * Estimated bytes of heap used by the genlab graph for each vertex and edge
+	 */
+	public static final long HEAP_BYTES_PER_VERTEX = 400;
+	public static final long HEAP_BYTES_PER_EDGE = 250;
+	
+	/**
+	 * Demand declared when the size of the graph can not be estimated
+	 */
+	public static final ResourcesDemand DEFAULT_DEMAND = new ResourcesDemand(
+			10*ResourcesDemand.MEGABYTE, 
+			2*ResourcesDemand.MEGABYTE, 
+			0
+			);
+	
+	/**
+	 * Returns the expected count of vertices for the graph to generate, or -1 if unknown.
+	 * Should be overriden by generators which are able to estimate it from their inputs.
+	 * @return
+	 */
+	protected long estimateCountVertices() {
+		return -1;
+	}
+	
+	/**
+	 * Returns the expected count of edges for the graph to generate, or -1 if unknown.
+	 * Should be overriden by generators which are able to estimate it from their inputs.
+	 * @return
+	 */
+	protected long estimateCountEdges() {
+		return -1;
+	}
+	
+	@Override
+	public ResourcesDemand getResourcesDemand() {
+		
+		final long vertices = estimateCountVertices();
+		final long edges = estimateCountEdges();
+		
+		if (vertices < 0 || edges < 0)
+			return DEFAULT_DEMAND;
+		
+		return new ResourcesDemand(
+				vertices*HEAP_BYTES_PER_VERTEX + edges*HEAP_BYTES_PER_EDGE, 
+				vertices*NATIVE_BYTES_PER_VERTEX + edges*NATIVE_BYTES_PER_EDGE, 
+				0
+				);
+	}
+	
 	/**
 	 * Should be overriden to do the right call(s) to 
 	 * actually generate the graph.
@@ -42,6 +42,14 @@ public class BarabasiAlbertGeneratorExec extends AbstractIGraphGeneratorExec {
 		
 	}
 	
+	@Override
+	protected long estimateCountVertices() {
+		return (Integer)getInputValueForInput(BarabasiAlbertGeneratorAlgo.INPUT_N);
+	}
 	
+	@Override
+	protected long estimateCountEdges() {
+		return estimateCountVertices()*(Integer)getInputValueForInput(BarabasiAlbertGeneratorAlgo.INPUT_M);
+	}
 
 }
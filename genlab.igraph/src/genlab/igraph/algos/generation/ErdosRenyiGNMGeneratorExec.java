@@ -34,4 +34,14 @@ public class ErdosRenyiGNMGeneratorExec extends AbstractIGraphGeneratorExec {
 				);
 		
 	}
+	
+	@Override
+	protected long estimateCountVertices() {
+		return (Integer)getInputValueForInput(ErdosRenyiGNMGeneratorAlgo.INPUT_N);
+	}
+	
+	@Override
+	protected long estimateCountEdges() {
+		return ((Double)getInputValueForInput(ErdosRenyiGNMGeneratorAlgo.INPUT_M)).longValue();
+	}
 }
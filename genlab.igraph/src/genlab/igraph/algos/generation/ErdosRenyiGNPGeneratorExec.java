@@ -40,4 +40,17 @@ public class ErdosRenyiGNPGeneratorExec extends AbstractIGraphGeneratorExec {
 		
 	}
 	
+	@Override
+	protected long estimateCountVertices() {
+		return (Integer)getInputValueForInput(ErdosRenyiGNPGeneratorAlgo.INPUT_N);
+	}
+	
+	@Override
+	protected long estimateCountEdges() {
+		final long nodes = estimateCountVertices();
+		final double proba = (Double)getInputValueForInput(ErdosRenyiGNPGeneratorAlgo.INPUT_P);
+		// expected count of edges; a bit too much if undirected, which is fine for an estimation
+		return (long)(proba*nodes*nodes);
+	}
+	
 }
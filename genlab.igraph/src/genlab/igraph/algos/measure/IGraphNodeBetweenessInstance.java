@@ -25,10 +25,13 @@ public class IGraphNodeBetweenessInstance extends AbstractIGraphMeasureInstance
 	@Override
 	public Object getPrecomputedValueForOutput(IInputOutput<?> output) {
 
-		final IGenlabGraph glGraph = (IGenlabGraph)getPrecomputedValueForInput(IGraphNodeBetweenessAlgo.INPUT_GRAPH);
-		if (glGraph == null)
+		final IGenlabGraph inGraph = (IGenlabGraph)getPrecomputedValueForInput(IGraphNodeBetweenessAlgo.INPUT_GRAPH);
+		if (inGraph == null)
 			return null;
 		
+		// don't modify the value precomputed by the previous algo
+		final IGenlabGraph glGraph = inGraph.clone(inGraph.getGraphId());
+		
 		final String parameterAttribute = (String)getValueForParameter(IGraphNodeBetweenessAlgo.PARAM_ATTRIBUTE_NAME);
 
 		glGraph.declareVertexAttribute(parameterAttribute, Double.class);
@@ -40,6 +40,12 @@ public class RewireGraph extends AbstractIGraphTransform {
 				return 500;
 			}
 			
+			@Override
+			public boolean isDeterministic() {
+				// igraph rewires the edges randomly, without any seed
+				return false;
+			}
+			
 			@Override
 			protected void transformGraph(IComputationProgress progress,
 					IGraphGraph igraphGraph, IGenlabGraph genlabGraph,
@@ -3,8 +3,8 @@ package genlab.igraph.commons;
 import genlab.core.commons.ProgramException;
 import genlab.core.commons.WrongParametersException;
 import genlab.core.exec.IExecution;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
-import genlab.core.model.meta.basics.graphs.GraphFactory;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.core.usermachineinteraction.UserMachineInteractionUtils;
@@ -42,7 +42,7 @@ public class IGraph2GenLabConvertor {
 		final long timestampStart = System.currentTimeMillis();
 		
 		int totalNodes = -1;
-		IGenlabGraph glGraph = null;
+		GraphBuilder builder = null;
 		
 		try {
 		
@@ -50,57 +50,45 @@ public class IGraph2GenLabConvertor {
 				messages.infoUser("the multiplicity of the converted graph is unknown; will assume it is multiplex, but this will lead to bad performance", IGraph2GenLabConvertor.class);
 			}		
 			
-			glGraph = GraphFactory.createGraph(
+			// the sizes are known, so the graph is built in bulk
+			totalNodes = graph.lib.getVertexCount(graph);
+			builder = new GraphBuilder(
 					"igraphGen", 
 					graph.directed?GraphDirectionality.DIRECTED:GraphDirectionality.UNDIRECTED, 
-					(graph.isMultiGraph() != Boolean.FALSE)
+					(graph.isMultiGraph() != Boolean.FALSE),
+					totalNodes,
+					graph.lib.getEdgeCount(graph)
 					);
 			
+			// add nodes
+			builder.addVertices(totalNodes);
 			
 			// add node attributes
 			if (graph.xPositions != null) {
 				
 				// declare attributes
-				glGraph.declareVertexAttribute("x", Double.class);
-				glGraph.declareVertexAttribute("y", Double.class);
+				builder.declareVertexAttribute("x", Double.class);
+				builder.declareVertexAttribute("y", Double.class);
+				builder.setVertexAttributeValues("x", graph.xPositions);
+				builder.setVertexAttributeValues("y", graph.yPositions);
 				
 				messages.debugUser("x and y attributes are provided by igraph; will copy them", IGraph2GenLabConvertor.class);
 			}
 			
-			// add nodes
-			totalNodes = graph.lib.getVertexCount(graph);
-			for (int i=0; i<totalNodes; i++) {
-				
-				String vertexId = Integer.toString(i);
-	
-				glGraph.addVertex(vertexId);
-				
-				// add node attributes
-				if (graph.xPositions != null) {
-					glGraph.setVertexAttribute(
-							vertexId, 
-							"x", graph.xPositions[i]
-							);
-					glGraph.setVertexAttribute(
-							vertexId, 
-							"y", graph.yPositions[i]
-							);
-					
-				}			
-				
-			}
-			
 			// add edges
 			for (IGraphEdge edge : graph) {
 			
-				glGraph.addEdge(
+				builder.addEdge(
 						Integer.toString(edge.id), 
-						Integer.toString(edge.node1id),
-						Integer.toString(edge.node2id)
+						edge.node1id,
+						edge.node2id,
+						graph.directed
 						);
 				
 			}
 			
+			final IGenlabGraph glGraph = builder.build();
+			
 			{
 				long timeElapsed = System.currentTimeMillis()-timestampStart;
 				
@@ -124,7 +112,7 @@ public class IGraph2GenLabConvertor {
 			return glGraph;
 			
 		} catch (OutOfMemoryError e) {
-			messages.errorUser("error during the conversion of a graph from igraph ("+totalNodes+" vertices, more than "+glGraph.getEdgesCount()+" edges): no enough memory", IGraph2GenLabConvertor.class, e);
+			messages.errorUser("error during the conversion of a graph from igraph ("+totalNodes+" vertices, more than "+(builder == null ? 0 : builder.getEdgesCount())+" edges): no enough memory", IGraph2GenLabConvertor.class, e);
 			throw new ProgramException("not enough memory", e);
 		}
 		
@@ -154,6 +142,12 @@ public class IGraph2GenLabConvertor {
 					);
 			// TODO multigrapph ??
 			
+			// igraph vertices have the indices of the genlab ones 
+			final int countVertices = (int)genlabGraph.getVerticesCount();
+			for (int i=0; i<countVertices; i++) {
+				igraphGraph.getOrCreateIGraphNodeIdForGenlabId(genlabGraph.getVertex(i));
+			}
+			
 			// copy links
 			if (genlabGraph.getEdgesCount() > 0) {
 				
@@ -170,13 +164,11 @@ public class IGraph2GenLabConvertor {
 				
 				try { 
 					
-					for (String edgeId : genlabGraph.getEdges()) {
+					final int countEdges = (int)genlabGraph.getEdgesCount();
+					for (int edgeIndex=0; edgeIndex<countEdges; edgeIndex++) {
 						
-						final Integer id1 = igraphGraph.getOrCreateIGraphNodeIdForGenlabId(genlabGraph.getEdgeVertexFrom(edgeId)); 
-						final Integer id2 = igraphGraph.getOrCreateIGraphNodeIdForGenlabId(genlabGraph.getEdgeVertexTo(edgeId));
-				
-						buffer[filledInBuffer++] = id1.doubleValue();
-						buffer[filledInBuffer++] = id2.doubleValue();
+						buffer[filledInBuffer++] = genlabGraph.getEdgeVertexFromIndex(edgeIndex);
+						buffer[filledInBuffer++] = genlabGraph.getEdgeVertexToIndex(edgeIndex);
 		
 						if (sizeBuffer - filledInBuffer < 2) {
 							// no more place in this buffer...
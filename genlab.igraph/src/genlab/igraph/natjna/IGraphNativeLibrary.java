@@ -170,7 +170,8 @@ public class IGraphNativeLibrary {
 		);
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
@@ -201,7 +202,8 @@ public class IGraphNativeLibrary {
 		);
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
@@ -233,7 +235,8 @@ public class IGraphNativeLibrary {
 				);
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
@@ -269,7 +272,8 @@ public class IGraphNativeLibrary {
 				);
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
@@ -316,7 +320,8 @@ public class IGraphNativeLibrary {
 		
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
@@ -463,7 +468,8 @@ public class IGraphNativeLibrary {
 		
 		final long duration = System.currentTimeMillis() - startTime;
 		//GLLogger.debugTech("back from igraph after "+duration+" ms", getClass());
-		listOfMessages.debugTech("processing took "+duration+" ms", getClass());
+		if (listOfMessages.isDebugEnabled(getClass()))
+			listOfMessages.debugTech("processing took "+duration+" ms", getClass());
 		// detect errors
 		checkIGraphResult(res);
 		
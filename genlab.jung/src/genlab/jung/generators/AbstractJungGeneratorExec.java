@@ -39,6 +39,12 @@ public abstract class AbstractJungGeneratorExec extends AbstractAlgoExecutionOne
 		progress.setComputationState(ComputationState.FINISHED_OK);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the JUNG generators draw random numbers without any seed
+		return false;
+	}
+
 	@Override
 	public void kill() {
 		// TODO Auto-generated method stub
@@ -2,8 +2,9 @@ package genlab.jung.utils;
 
 import edu.uci.ics.jung.graph.Graph;
 import edu.uci.ics.jung.graph.Hypergraph;
+import edu.uci.ics.jung.graph.util.Pair;
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
-import genlab.core.model.meta.basics.graphs.GraphFactory;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 
 /**
@@ -26,27 +27,36 @@ public class Converters {
 	
 	public static IGenlabGraph getGenlabGraphFromJUNG(Graph<String, String> jungGraph) {
 
-		IGenlabGraph glGraph = GraphFactory.createGraph("generated", GraphDirectionality.UNDIRECTED, false);
+		final GraphBuilder builder = new GraphBuilder(
+				"generated", 
+				GraphDirectionality.UNDIRECTED, 
+				false, 
+				jungGraph.getVertexCount(), 
+				jungGraph.getEdgeCount()
+				);
 		
 		// add nodes
 		for (String vertexId : jungGraph.getVertices()) {
 			
-			glGraph.addVertex(vertexId);
+			builder.addVertex(vertexId);
 			
 		}
 		
 		// add edges
 		for (String edgeId : jungGraph.getEdges()) {
 			
-			glGraph.addEdge(
+			// (the source of undirected edges is null)
+			final Pair<String> endpoints = jungGraph.getEndpoints(edgeId);
+			builder.addEdge(
 					edgeId, 
-					jungGraph.getSource(edgeId), 
-					jungGraph.getDest(edgeId)
+					endpoints.getFirst(), 
+					endpoints.getSecond(),
+					false
 					);
 			
 		}
 		
-		return glGraph;
+		return builder.build();
 	}
 	
 	private Converters() {
@@ -2,6 +2,7 @@ package genlab.netlogo;
 
 import genlab.core.commons.FileUtils;
 import genlab.core.commons.ProgramException;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.core.usermachineinteraction.ListOfMessages;
 import genlab.graphstream.utils.GraphstreamConvertors;
@@ -18,6 +19,17 @@ import org.osgi.framework.Bundle;
 
 public class NetlogoUtils {
 
+	/**
+	 * The resources required by a headless run of a Netlogo model: 
+	 * the workspace is quite heavy in heap. The network is exchanged through a small temporary file
+	 * written once, which does not deserve an IO slot (else models would run one by one).
+	 */
+	public static final ResourcesDemand RESOURCES_DEMAND_HEADLESS = new ResourcesDemand(
+			256*ResourcesDemand.MEGABYTE, 
+			0, 
+			0
+			);
+
 	public static String toNetlogoString(Object v) {
 		
 		if (v instanceof String) {
@@ -2,6 +2,8 @@ package genlab.netlogo.exec;
 
 import genlab.core.commons.ProgramException;
 import genlab.core.exec.IExecution;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.exec.AbstractAlgoExecutionOneshot;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -19,7 +21,7 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.Map;
 
-public class NetlogoModelExec extends AbstractAlgoExecutionOneshot {
+public class NetlogoModelExec extends AbstractAlgoExecutionOneshot implements IResourcesConsumer {
 
 	private boolean cancel = false;
 	
@@ -35,6 +37,11 @@ public class NetlogoModelExec extends AbstractAlgoExecutionOneshot {
 		// TODO Auto-generated method stub
 		return 0;
 	}
+
+	@Override
+	public ResourcesDemand getResourcesDemand() {
+		return NetlogoUtils.RESOURCES_DEMAND_HEADLESS;
+	}
 	
 	protected Object getNetlogoValueForValue(Object v) {
 		if (v instanceof Double) {
@@ -153,4 +160,10 @@ public class NetlogoModelExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the simulation uses the random generator of NetLogo, not seeded
+		return false;
+	}
+
 }
@@ -8,6 +8,8 @@ import java.util.Map;
 
 import genlab.core.commons.ProgramException;
 import genlab.core.exec.IExecution;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.exec.AbstractAlgoExecutionOneshot;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -19,7 +21,7 @@ import genlab.netlogo.NetlogoUtils;
 import genlab.netlogo.RunNetlogoModel;
 import genlab.netlogo.algos.SIRModelAlgo;
 
-public class SIRModelExec extends AbstractAlgoExecutionOneshot {
+public class SIRModelExec extends AbstractAlgoExecutionOneshot implements IResourcesConsumer {
 
 	private boolean cancel = false;
 	
@@ -36,6 +38,11 @@ public class SIRModelExec extends AbstractAlgoExecutionOneshot {
 		return 0;
 	}
 
+	@Override
+	public ResourcesDemand getResourcesDemand() {
+		return NetlogoUtils.RESOURCES_DEMAND_HEADLESS;
+	}
+
 	@Override
 	public void run() {
 		
@@ -136,4 +143,10 @@ public class SIRModelExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the simulation uses the random generator of NetLogo, not seeded
+		return false;
+	}
+
 }
@@ -18,6 +18,8 @@ import java.util.TreeSet;
 import cern.jet.random.Uniform;
 import genlab.core.commons.ProgramException;
 import genlab.core.exec.IExecution;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.exec.AbstractAlgoExecutionOneshot;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -33,7 +35,7 @@ import genlab.netlogo.algos.SIRVaccinesModelAlgo;
 import genlab.netlogo.inst.SIRVaccinesModelInstance;
 import genlab.random.colt.ColtRandomGenerator;
 
-public class SIRVaccinesModelExec extends AbstractAlgoExecutionOneshot {
+public class SIRVaccinesModelExec extends AbstractAlgoExecutionOneshot implements IResourcesConsumer {
 
 	private boolean cancel = false;
 	
@@ -50,6 +52,11 @@ public class SIRVaccinesModelExec extends AbstractAlgoExecutionOneshot {
 		return 0;
 	}
 
+	@Override
+	public ResourcesDemand getResourcesDemand() {
+		return NetlogoUtils.RESOURCES_DEMAND_HEADLESS;
+	}
+
 	protected SortedSet<String> findHigestValues(final IGenlabGraph graph, int count, final String attributeId) {
 				
 		TreeSet<String> bests = new TreeSet<String>(new Comparator<String>() {
@@ -118,7 +125,9 @@ public class SIRVaccinesModelExec extends AbstractAlgoExecutionOneshot {
 		
 		try {
 			// retrieve inputs
-			final IGenlabGraph graph = (IGenlabGraph)getInputValueForInput(SIRVaccinesModelAlgo.INPUT_GRAPH);
+			// (the input graph is shared with other algos, so the vaccination attribute is added to a clone)
+			final IGenlabGraph inputGraph = (IGenlabGraph)getInputValueForInput(SIRVaccinesModelAlgo.INPUT_GRAPH);
+			final IGenlabGraph graph = inputGraph.clone(inputGraph.getGraphId());
 			final Integer outbreak = (Integer)getInputValueForInput(SIRVaccinesModelAlgo.INPUT_OUTBREAK);
 			
 			final Double spread = (Double)getInputValueForInput(SIRVaccinesModelAlgo.INPUT_SPREAD_CHANCE);
@@ -293,4 +302,10 @@ public class SIRVaccinesModelExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the simulation and the choice of vaccinated nodes are random, not seeded
+		return false;
+	}
+
 }
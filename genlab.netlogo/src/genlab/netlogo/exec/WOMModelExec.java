@@ -7,6 +7,8 @@ import java.util.LinkedList;
 import java.util.Map;
 
 import genlab.core.exec.IExecution;
+import genlab.core.exec.IResourcesConsumer;
+import genlab.core.exec.ResourcesDemand;
 import genlab.core.model.exec.AbstractAlgoExecutionOneshot;
 import genlab.core.model.exec.ComputationProgressWithSteps;
 import genlab.core.model.exec.ComputationResult;
@@ -18,7 +20,7 @@ import genlab.netlogo.RunNetlogoModel;
 import genlab.netlogo.algos.SIRVaccinesModelAlgo;
 import genlab.netlogo.algos.WOMModelAlgo;;
 
-public class WOMModelExec extends AbstractAlgoExecutionOneshot {
+public class WOMModelExec extends AbstractAlgoExecutionOneshot implements IResourcesConsumer {
 
 	public WOMModelExec(IExecution exec, IAlgoInstance algoInst) {
 		super(exec, algoInst, new ComputationProgressWithSteps());
@@ -34,6 +36,11 @@ public class WOMModelExec extends AbstractAlgoExecutionOneshot {
 		return 0;
 	}
 
+	@Override
+	public ResourcesDemand getResourcesDemand() {
+		return NetlogoUtils.RESOURCES_DEMAND_HEADLESS;
+	}
+
 	@Override
 	public void run() {
 
@@ -118,4 +125,10 @@ public class WOMModelExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the simulation uses the random generator of NetLogo, not seeded
+		return false;
+	}
+
 }
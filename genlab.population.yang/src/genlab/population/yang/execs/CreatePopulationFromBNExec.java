@@ -96,4 +96,10 @@ public class CreatePopulationFromBNExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// individuals are sampled randomly, without any seed
+		return false;
+	}
+
 }
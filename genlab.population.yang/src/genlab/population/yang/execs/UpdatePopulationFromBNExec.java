@@ -94,4 +94,10 @@ public class UpdatePopulationFromBNExec extends AbstractAlgoExecutionOneshot {
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// individuals are sampled randomly, without any seed
+		return false;
+	}
+
 }
@@ -120,4 +120,10 @@ public class SetAttributeRandomIntegerExec extends AbstractAlgoExecutionOneshot
 		progress.setComputationState(ComputationState.FINISHED_CANCEL);
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// random values, without any seed
+		return false;
+	}
+
 }
@@ -697,6 +697,124 @@ public class Population implements IPopulation {
 		throw new NotImplementedException();
 	}
 
-	
-	
+	@Override
+	public int getVertexIndex(String vertexId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getEdgeIndex(String edgeId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getEdgeVertexFromIndex(int edgeIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getEdgeVertexToIndex(int edgeIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getEdgeOtherVertexIndex(int edgeIndex, int vertexIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public boolean isEdgeDirected(int edgeIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getDegree(int vertexIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getInDegree(int vertexIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int getOutDegree(int vertexIndex) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int[] getDegrees() {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int[] getIncidentEdgesIndices(int vertexIndex, int[] buffer) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int[] getNeighboorsIndices(int vertexIndex, int[] buffer) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int[] getOutNeighboorsIndices(int vertexIndex, int[] buffer) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public int[] getInNeighboorsIndices(int vertexIndex, int[] buffer) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public Object getVertexAttributeValue(int vertexIndex, String attributeId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public void setVertexAttribute(int vertexIndex, String attributeId, Object value) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public Object getEdgeAttributeValue(int edgeIndex, String attributeId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public void setEdgeAttribute(int edgeIndex, String attributeId, Object value) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public Object[] getVertexAttributeValues(String attributeId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public double[] getVertexAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public Object[] getEdgeAttributeValues(String attributeId) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public double[] getEdgeAttributeValuesAsDoubles(String attributeId, double missingValue) {
+		throw new NotImplementedException("this population can not be accessed by index");
+	}
+
+	@Override
+	public void freeze() {
+		// populations are not frozen when passed along connections; the algorithms don't modify them
+	}
+
+	@Override
+	public boolean isFrozen() {
+		return false;
+	}
+
 }
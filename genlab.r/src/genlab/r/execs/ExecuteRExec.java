@@ -145,4 +145,10 @@ public class ExecuteRExec extends AbstractAlgoExecutionOneshot {
 		
 	}
 
+	@Override
+	public boolean isDeterministic() {
+		// the R script may use randomness or depend on the state of the R session
+		return false;
+	}
+
 }
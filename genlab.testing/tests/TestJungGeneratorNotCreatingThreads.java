@@ -1,3 +1,4 @@
+import genlab.core.model.meta.basics.graphs.GraphBuilder;
 import genlab.core.model.meta.basics.graphs.GraphDirectionality;
 import genlab.core.model.meta.basics.graphs.IGenlabGraph;
 import genlab.graphstream.algos.generators.IGenlabGraphInitializer;
@@ -32,7 +33,7 @@ public class TestJungGeneratorNotCreatingThreads extends
 				new IGenlabGraphInitializer() {
 					
 					@Override
-					public void initGraph(IGenlabGraph glGraph) {
+					public void initGraph(GraphBuilder glGraph) {
 						glGraph.declareVertexAttribute("x", Integer.class);
 						glGraph.declareVertexAttribute("y", Integer.class);
 					}